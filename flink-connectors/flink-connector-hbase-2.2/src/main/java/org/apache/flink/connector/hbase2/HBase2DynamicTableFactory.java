@@ -39,6 +39,8 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.apache.flink.connector.hbase.options.HBaseOptions.LOOKUP_ASYNC;
+import static org.apache.flink.connector.hbase.options.HBaseOptions.LOOKUP_ASYNC_BATCH_INTERVAL;
+import static org.apache.flink.connector.hbase.options.HBaseOptions.LOOKUP_ASYNC_BATCH_SIZE;
 import static org.apache.flink.connector.hbase.options.HBaseOptions.LOOKUP_CACHE_MAX_ROWS;
 import static org.apache.flink.connector.hbase.options.HBaseOptions.LOOKUP_CACHE_TTL;
 import static org.apache.flink.connector.hbase.options.HBaseOptions.LOOKUP_MAX_RETRIES;
@@ -130,6 +132,8 @@ public class HBase2DynamicTableFactory
         set.add(SINK_BUFFER_FLUSH_INTERVAL);
         set.add(SINK_PARALLELISM);
         set.add(LOOKUP_ASYNC);
+        set.add(LOOKUP_ASYNC_BATCH_SIZE);
+        set.add(LOOKUP_ASYNC_BATCH_INTERVAL);
         set.add(LOOKUP_CACHE_MAX_ROWS);
         set.add(LOOKUP_CACHE_TTL);
         set.add(LOOKUP_MAX_RETRIES);
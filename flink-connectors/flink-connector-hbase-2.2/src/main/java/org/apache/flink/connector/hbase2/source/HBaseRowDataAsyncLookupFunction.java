@@ -28,7 +28,7 @@ import org.apache.flink.metrics.Gauge;
 import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
-import org.apache.flink.table.functions.AsyncTableFunction;
+import org.apache.flink.table.functions.AsyncBatchTableFunction;
 import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.util.StringUtils;
 
@@ -50,8 +50,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -60,10 +63,11 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * The HBaseRowDataAsyncLookupFunction is an implemenation to lookup HBase data by rowkey in async
- * fashion. It looks up the result as {@link RowData}.
+ * fashion. It looks up the result as {@link RowData}. Row keys can be looked up in batches with
+ * multi-gets, see {@link HBaseLookupOptions#getAsyncBatchSize()}.
  */
 @Internal
-public class HBaseRowDataAsyncLookupFunction extends AsyncTableFunction<RowData> {
+public class HBaseRowDataAsyncLookupFunction extends AsyncBatchTableFunction<RowData> {
 
     private static final Logger LOG =
             LoggerFactory.getLogger(HBaseRowDataAsyncLookupFunction.class);
@@ -92,6 +96,9 @@ public class HBaseRowDataAsyncLookupFunction extends AsyncTableFunction<RowData>
             HBaseTableSchema hbaseTableSchema,
             String nullStringLiteral,
             HBaseLookupOptions lookupOptions) {
+        super(
+                lookupOptions.getAsyncBatchSize(),
+                Duration.ofMillis(lookupOptions.getAsyncBatchIntervalMs()));
         this.serializedConfig = HBaseConfigurationUtil.serializeConfiguration(configuration);
         this.hTableName = hTableName;
         this.hbaseTableSchema = hbaseTableSchema;
@@ -137,26 +144,53 @@ public class HBaseRowDataAsyncLookupFunction extends AsyncTableFunction<RowData>
     }
 
     /**
-     * The invoke entry point of lookup function.
+     * The invoke entry point of lookup function. The row keys of a batch which are not cached are
+     * fetched with a single multi-get.
      *
-     * @param future The result or exception is returned.
-     * @param rowKey the lookup key. Currently only support single rowkey.
+     * @param keys the lookup keys. Currently only support single rowkey.
+     * @param futures The results or exceptions are returned, one per lookup key.
      */
-    public void eval(CompletableFuture<Collection<RowData>> future, Object rowKey) {
-        int currentRetry = 0;
-        if (cache != null) {
-            RowData cacheRowData = cache.getIfPresent(rowKey);
-            if (cacheRowData != null) {
-                if (cacheRowData.getArity() == 0) {
-                    future.complete(Collections.emptyList());
-                } else {
-                    future.complete(Collections.singletonList(cacheRowData));
+    @Override
+    protected void evalBatch(
+            List<Object[]> keys, List<CompletableFuture<Collection<RowData>>> futures) {
+        List<Object> rowKeys = new ArrayList<>(keys.size());
+        List<CompletableFuture<Collection<RowData>>> resultFutures = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Object rowKey = keys.get(i)[0];
+            if (cache != null) {
+                RowData cacheRowData = cache.getIfPresent(rowKey);
+                if (cacheRowData != null) {
+                    if (cacheRowData.getArity() == 0) {
+                        futures.get(i).complete(Collections.emptyList());
+                    } else {
+                        futures.get(i).complete(Collections.singletonList(cacheRowData));
+                    }
+                    continue;
                 }
-                return;
+            }
+            rowKeys.add(rowKey);
+            resultFutures.add(futures.get(i));
+        }
+
+        if (rowKeys.size() == 1) {
+            // fetch result
+            fetchResult(resultFutures.get(0), 0, rowKeys.get(0));
+        } else if (!rowKeys.isEmpty()) {
+            List<Get> gets = new ArrayList<>(rowKeys.size());
+            for (Object rowKey : rowKeys) {
+                gets.add(serde.createGet(rowKey));
+            }
+            List<CompletableFuture<Result>> responseFutures = table.get(gets);
+            for (int i = 0; i < rowKeys.size(); i++) {
+                CompletableFuture<Collection<RowData>> resultFuture = resultFutures.get(i);
+                Object rowKey = rowKeys.get(i);
+                // a failed get of the batch is retried on its own
+                CompletableFuture<Result> responseFuture = responseFutures.get(i);
+                responseFuture.whenCompleteAsync(
+                        (result, throwable) ->
+                                handleResponse(resultFuture, 0, rowKey, result, throwable));
             }
         }
-        // fetch result
-        fetchResult(future, currentRetry, rowKey);
     }
 
     /**
@@ -171,49 +205,54 @@ public class HBaseRowDataAsyncLookupFunction extends AsyncTableFunction<RowData>
         Get get = serde.createGet(rowKey);
         CompletableFuture<Result> responseFuture = table.get(get);
         responseFuture.whenCompleteAsync(
-                (result, throwable) -> {
-                    if (throwable != null) {
-                        if (throwable instanceof TableNotFoundException) {
-                            LOG.error("Table '{}' not found ", hTableName, throwable);
-                            resultFuture.completeExceptionally(
-                                    new RuntimeException(
-                                            "HBase table '" + hTableName + "' not found.",
-                                            throwable));
-                        } else {
-                            LOG.error(
-                                    String.format(
-                                            "HBase asyncLookup error, retry times = %d",
-                                            currentRetry),
-                                    throwable);
-                            if (currentRetry >= maxRetryTimes) {
-                                resultFuture.completeExceptionally(throwable);
-                            } else {
-                                try {
-                                    Thread.sleep(1000 * currentRetry);
-                                } catch (InterruptedException e1) {
-                                    resultFuture.completeExceptionally(e1);
-                                }
-                                fetchResult(resultFuture, currentRetry + 1, rowKey);
-                            }
-                        }
-                    } else {
-                        if (result.isEmpty()) {
-                            resultFuture.complete(Collections.emptyList());
-                            if (cache != null) {
-                                cache.put(rowKey, new GenericRowData(0));
-                            }
-                        } else {
-                            if (cache != null) {
-                                RowData rowData = serde.convertToNewRow(result);
-                                resultFuture.complete(Collections.singletonList(rowData));
-                                cache.put(rowKey, rowData);
-                            } else {
-                                resultFuture.complete(
-                                        Collections.singletonList(serde.convertToNewRow(result)));
-                            }
-                        }
+                (result, throwable) ->
+                        handleResponse(resultFuture, currentRetry, rowKey, result, throwable));
+    }
+
+    /** Completes the result future of a get, or retries the get of a single row key on failure. */
+    private void handleResponse(
+            CompletableFuture<Collection<RowData>> resultFuture,
+            int currentRetry,
+            Object rowKey,
+            Result result,
+            Throwable throwable) {
+        if (throwable != null) {
+            if (throwable instanceof TableNotFoundException) {
+                LOG.error("Table '{}' not found ", hTableName, throwable);
+                resultFuture.completeExceptionally(
+                        new RuntimeException(
+                                "HBase table '" + hTableName + "' not found.", throwable));
+            } else {
+                LOG.error(
+                        String.format("HBase asyncLookup error, retry times = %d", currentRetry),
+                        throwable);
+                if (currentRetry >= maxRetryTimes) {
+                    resultFuture.completeExceptionally(throwable);
+                } else {
+                    try {
+                        Thread.sleep(1000 * currentRetry);
+                    } catch (InterruptedException e1) {
+                        resultFuture.completeExceptionally(e1);
                     }
-                });
+                    fetchResult(resultFuture, currentRetry + 1, rowKey);
+                }
+            }
+        } else {
+            if (result.isEmpty()) {
+                resultFuture.complete(Collections.emptyList());
+                if (cache != null) {
+                    cache.put(rowKey, new GenericRowData(0));
+                }
+            } else {
+                if (cache != null) {
+                    RowData rowData = serde.convertToNewRow(result);
+                    resultFuture.complete(Collections.singletonList(rowData));
+                    cache.put(rowKey, rowData);
+                } else {
+                    resultFuture.complete(Collections.singletonList(serde.convertToNewRow(result)));
+                }
+            }
+        }
     }
 
     private Configuration prepareRuntimeConfiguration() {
@@ -241,8 +280,9 @@ public class HBaseRowDataAsyncLookupFunction extends AsyncTableFunction<RowData>
     }
 
     @Override
-    public void close() {
+    public void close() throws Exception {
         LOG.info("start close ...");
+        super.close();
         if (null != table) {
             table = null;
         }
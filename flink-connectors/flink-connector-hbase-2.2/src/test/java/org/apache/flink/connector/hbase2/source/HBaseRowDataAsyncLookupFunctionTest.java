@@ -47,9 +47,17 @@ import static org.junit.Assert.assertTrue;
 public class HBaseRowDataAsyncLookupFunctionTest extends HBaseTestBase {
     @Parameterized.Parameter public boolean useCache;
 
-    @Parameterized.Parameters(name = "use cache = {0}")
+    @Parameterized.Parameter(1)
+    public int batchSize;
+
+    @Parameterized.Parameters(name = "use cache = {0}, batch size = {1}")
     public static Object[] parameters() {
-        return new Object[][] {new Object[] {true}, new Object[] {false}};
+        return new Object[][] {
+            new Object[] {true, 1},
+            new Object[] {false, 1},
+            new Object[] {true, 3},
+            new Object[] {false, 3}
+        };
     }
 
     @Override
@@ -100,11 +108,12 @@ public class HBaseRowDataAsyncLookupFunctionTest extends HBaseTestBase {
     }
 
     private HBaseRowDataAsyncLookupFunction buildRowDataAsyncLookupFunction() {
-        HBaseLookupOptions lookupOptions = HBaseLookupOptions.builder().build();
+        HBaseLookupOptions.Builder builder =
+                HBaseLookupOptions.builder().setAsyncBatchSize(batchSize);
         if (useCache) {
-            lookupOptions =
-                    HBaseLookupOptions.builder().setCacheMaxSize(4).setCacheExpireMs(10000).build();
+            builder.setCacheMaxSize(4).setCacheExpireMs(10000);
         }
+        HBaseLookupOptions lookupOptions = builder.build();
         TableSchema schema =
                 TableSchema.builder()
                         .field(ROW_KEY, DataTypes.INT())
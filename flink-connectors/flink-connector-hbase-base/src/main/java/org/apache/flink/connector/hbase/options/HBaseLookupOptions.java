@@ -28,18 +28,39 @@ import java.util.Objects;
 public class HBaseLookupOptions implements Serializable {
     private static final long serialVersionUID = 1L;
     private static final int DEFAULT_MAX_RETRY_TIMES = 3;
+    private static final long DEFAULT_ASYNC_BATCH_INTERVAL_MS = 10L;
 
     private final long cacheMaxSize;
     private final long cacheExpireMs;
     private final int maxRetryTimes;
     private final boolean lookupAsync;
+    private final int asyncBatchSize;
+    private final long asyncBatchIntervalMs;
 
     public HBaseLookupOptions(
             long cacheMaxSize, long cacheExpireMs, int maxRetryTimes, boolean lookupAsync) {
+        this(
+                cacheMaxSize,
+                cacheExpireMs,
+                maxRetryTimes,
+                lookupAsync,
+                1,
+                DEFAULT_ASYNC_BATCH_INTERVAL_MS);
+    }
+
+    public HBaseLookupOptions(
+            long cacheMaxSize,
+            long cacheExpireMs,
+            int maxRetryTimes,
+            boolean lookupAsync,
+            int asyncBatchSize,
+            long asyncBatchIntervalMs) {
         this.cacheMaxSize = cacheMaxSize;
         this.cacheExpireMs = cacheExpireMs;
         this.maxRetryTimes = maxRetryTimes;
         this.lookupAsync = lookupAsync;
+        this.asyncBatchSize = asyncBatchSize;
+        this.asyncBatchIntervalMs = asyncBatchIntervalMs;
     }
 
     public long getCacheMaxSize() {
@@ -58,6 +79,14 @@ public class HBaseLookupOptions implements Serializable {
         return lookupAsync;
     }
 
+    public int getAsyncBatchSize() {
+        return asyncBatchSize;
+    }
+
+    public long getAsyncBatchIntervalMs() {
+        return asyncBatchIntervalMs;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -69,7 +98,9 @@ public class HBaseLookupOptions implements Serializable {
             return Objects.equals(cacheMaxSize, options.cacheMaxSize)
                     && Objects.equals(cacheExpireMs, options.cacheExpireMs)
                     && Objects.equals(maxRetryTimes, options.maxRetryTimes)
-                    && Objects.equals(lookupAsync, options.lookupAsync);
+                    && Objects.equals(lookupAsync, options.lookupAsync)
+                    && Objects.equals(asyncBatchSize, options.asyncBatchSize)
+                    && Objects.equals(asyncBatchIntervalMs, options.asyncBatchIntervalMs);
         } else {
             return false;
         }
@@ -81,6 +112,8 @@ public class HBaseLookupOptions implements Serializable {
         private long cacheExpireMs = 0L;
         private int maxRetryTimes = DEFAULT_MAX_RETRY_TIMES;
         private boolean lookupAsync = false;
+        private int asyncBatchSize = 1;
+        private long asyncBatchIntervalMs = DEFAULT_ASYNC_BATCH_INTERVAL_MS;
 
         /** optional, lookup cache max size, over this value, the old data will be eliminated. */
         public Builder setCacheMaxSize(long cacheMaxSize) {
@@ -106,8 +139,26 @@ public class HBaseLookupOptions implements Serializable {
             return this;
         }
 
+        /** optional, max number of row keys looked up with one async multi-get. */
+        public Builder setAsyncBatchSize(int asyncBatchSize) {
+            this.asyncBatchSize = asyncBatchSize;
+            return this;
+        }
+
+        /** optional, max time an async lookup waits for other row keys of the same multi-get. */
+        public Builder setAsyncBatchIntervalMs(long asyncBatchIntervalMs) {
+            this.asyncBatchIntervalMs = asyncBatchIntervalMs;
+            return this;
+        }
+
         public HBaseLookupOptions build() {
-            return new HBaseLookupOptions(cacheMaxSize, cacheExpireMs, maxRetryTimes, lookupAsync);
+            return new HBaseLookupOptions(
+                    cacheMaxSize,
+                    cacheExpireMs,
+                    maxRetryTimes,
+                    lookupAsync,
+                    asyncBatchSize,
+                    asyncBatchIntervalMs);
         }
     }
 }
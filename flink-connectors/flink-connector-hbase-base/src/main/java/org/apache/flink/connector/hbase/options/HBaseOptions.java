@@ -100,6 +100,24 @@ public class HBaseOptions {
                     .defaultValue(false)
                     .withDescription("whether to set async lookup.");
 
+    public static final ConfigOption<Integer> LOOKUP_ASYNC_BATCH_SIZE =
+            ConfigOptions.key("lookup.async.batch-size")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            "The max number of row keys looked up with one multi-get when async lookup is enabled. "
+                                    + "Duplicate row keys within a batch are only looked up once. "
+                                    + "Default is 1, which looks up every row key on its own.");
+
+    public static final ConfigOption<Duration> LOOKUP_ASYNC_BATCH_INTERVAL =
+            ConfigOptions.key("lookup.async.batch-interval")
+                    .durationType()
+                    .defaultValue(Duration.ofMillis(10))
+                    .withDescription(
+                            "The max time an async lookup waits for other row keys to fill up the batch "
+                                    + "before the multi-get is sent. Only has an effect if 'lookup.async.batch-size' "
+                                    + "is greater than 1.");
+
     public static final ConfigOption<Long> LOOKUP_CACHE_MAX_ROWS =
             ConfigOptions.key("lookup.cache.max-rows")
                     .longType()
@@ -173,6 +191,8 @@ public class HBaseOptions {
     public static HBaseLookupOptions getHBaseLookupOptions(ReadableConfig tableOptions) {
         HBaseLookupOptions.Builder builder = HBaseLookupOptions.builder();
         builder.setLookupAsync(tableOptions.get(LOOKUP_ASYNC));
+        builder.setAsyncBatchSize(tableOptions.get(LOOKUP_ASYNC_BATCH_SIZE));
+        builder.setAsyncBatchIntervalMs(tableOptions.get(LOOKUP_ASYNC_BATCH_INTERVAL).toMillis());
         builder.setMaxRetryTimes(tableOptions.get(LOOKUP_MAX_RETRIES));
         builder.setCacheExpireMs(tableOptions.get(LOOKUP_CACHE_TTL).toMillis());
         builder.setCacheMaxSize(tableOptions.get(LOOKUP_CACHE_MAX_ROWS));
@@ -50,6 +50,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static org.apache.flink.table.filesystem.FileSystemOptions.LOOKUP_JOIN_CACHE_OFF_HEAP;
 import static org.apache.flink.table.filesystem.FileSystemOptions.LOOKUP_JOIN_CACHE_TTL;
 import static org.apache.flink.table.filesystem.FileSystemOptions.STREAMING_SOURCE_CONSUME_START_OFFSET;
 import static org.apache.flink.table.filesystem.FileSystemOptions.STREAMING_SOURCE_MONITOR_INTERVAL;
@@ -261,7 +262,8 @@ public class HiveLookupTableSource extends HiveTableSource implements LookupTabl
                 partitionReader,
                 (RowType) getProducedTableSchema().toRowDataType().getLogicalType(),
                 keys,
-                hiveTableReloadInterval);
+                hiveTableReloadInterval,
+                configuration.get(LOOKUP_JOIN_CACHE_OFF_HEAP));
     }
 
     /** PartitionFetcher.Context for {@link HiveTablePartition}. */
@@ -189,7 +189,9 @@ public class HiveLookupJoinITCase {
 
         PartitionFetcher<HiveTablePartition> fetcher = lookupFunction.getPartitionFetcher();
         PartitionFetcher.Context<HiveTablePartition> context = lookupFunction.getFetcherContext();
+        context.open();
         List<HiveTablePartition> partitions = fetcher.fetch(context);
+        context.close();
         // fetch latest partition by partition-name
         assertEquals(1, partitions.size());
 
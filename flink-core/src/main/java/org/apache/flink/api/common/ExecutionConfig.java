@@ -119,6 +119,8 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 
     private boolean objectReuse = false;
 
+    private boolean localObjectExchange = false;
+
     private boolean autoTypeRegistrationEnabled = true;
 
     private boolean forceAvro = false;
@@ -689,6 +691,37 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
         return objectReuse;
     }
 
+    /**
+     * Enables handing over records as objects between tasks that run in the same TaskManager,
+     * instead of serializing and deserializing them. The receiving task gets a copy of each record
+     * like a chained operator without object reuse, so the records keep their runtime class.
+     */
+    @PublicEvolving
+    public ExecutionConfig enableLocalObjectExchange() {
+        localObjectExchange = true;
+        return this;
+    }
+
+    /**
+     * Disables handing over records as objects between tasks that run in the same TaskManager.
+     *
+     * @see #enableLocalObjectExchange()
+     */
+    @PublicEvolving
+    public ExecutionConfig disableLocalObjectExchange() {
+        localObjectExchange = false;
+        return this;
+    }
+
+    /**
+     * Returns whether records are handed over as objects between tasks that run in the same
+     * TaskManager. @see #enableLocalObjectExchange()
+     */
+    @PublicEvolving
+    public boolean isLocalObjectExchangeEnabled() {
+        return localObjectExchange;
+    }
+
     public GlobalJobParameters getGlobalJobParameters() {
         return globalJobParameters;
     }
@@ -893,6 +926,7 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
                     && forceKryo == other.forceKryo
                     && disableGenericTypes == other.disableGenericTypes
                     && objectReuse == other.objectReuse
+                    && localObjectExchange == other.localObjectExchange
                     && autoTypeRegistrationEnabled == other.autoTypeRegistrationEnabled
                     && forceAvro == other.forceAvro
                     && Objects.equals(globalJobParameters, other.globalJobParameters)
@@ -920,6 +954,7 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
                 forceKryo,
                 disableGenericTypes,
                 objectReuse,
+                localObjectExchange,
                 autoTypeRegistrationEnabled,
                 forceAvro,
                 globalJobParameters,
@@ -953,6 +988,8 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
                 + enableAutoGeneratedUids
                 + ", objectReuse="
                 + objectReuse
+                + ", localObjectExchange="
+                + localObjectExchange
                 + ", autoTypeRegistrationEnabled="
                 + autoTypeRegistrationEnabled
                 + ", forceAvro="
@@ -1107,6 +1144,9 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
         configuration
                 .getOptional(PipelineOptions.OBJECT_REUSE)
                 .ifPresent(o -> this.objectReuse = o);
+        configuration
+                .getOptional(PipelineOptions.LOCAL_OBJECT_EXCHANGE)
+                .ifPresent(o -> this.localObjectExchange = o);
         configuration
                 .getOptional(TaskManagerOptions.TASK_CANCELLATION_INTERVAL)
                 .ifPresent(this::setTaskCancellationInterval);
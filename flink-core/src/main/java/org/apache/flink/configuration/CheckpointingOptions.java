@@ -129,6 +129,24 @@ public class CheckpointingOptions {
                                     + " possible and configurable. Some state backends may not support asynchronous snapshots, or only support"
                                     + " asynchronous snapshots, and ignore this option.");
 
+    /**
+     * Option whether the {@code HashMapStateBackend} keeps the working state in serialized form in
+     * off-heap memory instead of as objects on the JVM heap.
+     */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Boolean> HASHMAP_OFF_HEAP_STATE_TABLES =
+            ConfigOptions.key("state.backend.hashmap.off-heap")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Option whether the HashMapStateBackend keeps its working state in serialized form in"
+                                    + " off-heap memory instead of as objects on the JVM heap. This reduces the garbage"
+                                    + " collection overhead of large states at the cost of serializing state on every access."
+                                    + " Adding to a list or accessing a single entry of a map does not deserialize the"
+                                    + " whole collection."
+                                    + " The off-heap memory is allocated as direct memory and must be accounted for in"
+                                    + " 'taskmanager.memory.task.off-heap.size'.");
+
     /**
      * Option whether the state backend should create incremental checkpoints, if possible. For an
      * incremental checkpoint, only a diff from the previous checkpoint is stored, rather than the
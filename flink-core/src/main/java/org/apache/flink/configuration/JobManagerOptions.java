@@ -361,13 +361,16 @@ public class JobManagerOptions {
                                     .list(
                                             text("'Ng': new generation scheduler"),
                                             text(
-                                                    "'Adaptive': adaptive scheduler; supports reactive mode"))
+                                                    "'Adaptive': adaptive scheduler; supports reactive mode"),
+                                            text(
+                                                    "'AdaptiveBatch': adaptive batch scheduler; decides the parallelism of batch job vertices from the size of their inputs"))
                                     .build());
 
     /** Type of scheduler implementation. */
     public enum SchedulerType {
         Ng,
-        Adaptive
+        Adaptive,
+        AdaptiveBatch
     }
 
     @Documentation.Section(Documentation.Sections.EXPERT_SCHEDULING)
@@ -413,6 +416,55 @@ public class JobManagerOptions {
                                                     + "while decreasing this value reduces downtime of a job (provided that enough slots are available to still run the job).")
                                     .build());
 
+    @Documentation.Section({
+        Documentation.Sections.EXPERT_SCHEDULING,
+        Documentation.Sections.ALL_JOB_MANAGER
+    })
+    public static final ConfigOption<Integer> ADAPTIVE_BATCH_SCHEDULER_MIN_PARALLELISM =
+            key("jobmanager.adaptive-batch-scheduler.min-parallelism")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            "The lower bound of the parallelism the adaptive batch scheduler decides for a job vertex.");
+
+    @Documentation.Section({
+        Documentation.Sections.EXPERT_SCHEDULING,
+        Documentation.Sections.ALL_JOB_MANAGER
+    })
+    public static final ConfigOption<Integer> ADAPTIVE_BATCH_SCHEDULER_MAX_PARALLELISM =
+            key("jobmanager.adaptive-batch-scheduler.max-parallelism")
+                    .intType()
+                    .defaultValue(128)
+                    .withDescription(
+                            "The upper bound of the parallelism the adaptive batch scheduler decides for a job vertex, "
+                                    + "unless the vertex has a configured max parallelism. It is also the number of "
+                                    + "subpartitions the inputs of such a vertex are split into.");
+
+    @Documentation.Section({
+        Documentation.Sections.EXPERT_SCHEDULING,
+        Documentation.Sections.ALL_JOB_MANAGER
+    })
+    public static final ConfigOption<MemorySize> ADAPTIVE_BATCH_SCHEDULER_DATA_VOLUME_PER_TASK =
+            key("jobmanager.adaptive-batch-scheduler.data-volume-per-task")
+                    .memoryType()
+                    .defaultValue(MemorySize.ofMebiBytes(1024))
+                    .withDescription(
+                            "The data volume a single task is expected to process. The adaptive batch scheduler "
+                                    + "sets the parallelism of a job vertex to the size of its non-broadcast inputs "
+                                    + "divided by this value, bounded by the minimum and maximum parallelism.");
+
+    @Documentation.Section({
+        Documentation.Sections.EXPERT_SCHEDULING,
+        Documentation.Sections.ALL_JOB_MANAGER
+    })
+    public static final ConfigOption<Integer> ADAPTIVE_BATCH_SCHEDULER_DEFAULT_SOURCE_PARALLELISM =
+            key("jobmanager.adaptive-batch-scheduler.default-source-parallelism")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            "The parallelism of source vertices without a configured parallelism when the "
+                                    + "adaptive batch scheduler is used.");
+
     /**
      * Config parameter controlling whether partitions should already be released during the job
      * execution.
@@ -21,6 +21,8 @@ package org.apache.flink.configuration;
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.annotation.docs.Documentation;
 
+import java.time.Duration;
+
 import static org.apache.flink.configuration.ConfigOptions.key;
 
 /** The set of configuration options relating to network stack. */
@@ -86,11 +88,84 @@ public class NettyShuffleEnvironmentOptions {
                                     + "compression is an experimental feature and the config option can be changed in the future.");
 
     /** The codec to be used when compressing shuffle data. */
-    @Documentation.ExcludeFromDocumentation("Currently, LZ4 is the only legal option.")
     public static final ConfigOption<String> SHUFFLE_COMPRESSION_CODEC =
             key("taskmanager.network.compression.codec")
                     .defaultValue("LZ4")
-                    .withDescription("The codec to be used when compressing shuffle data.");
+                    .withDescription(
+                            "The codec to be used when compressing shuffle data. Supported codecs are"
+                                    + " LZ4, ZSTD and SNAPPY, or the fully qualified class name of a custom"
+                                    + " BlockCompressionFactory. LZ4 is the fastest codec, ZSTD achieves the"
+                                    + " highest compression ratio at a higher CPU cost.");
+
+    /**
+     * The codec to be used when compressing the shuffle data of blocking result partitions. Falls
+     * back to {@link #SHUFFLE_COMPRESSION_CODEC} if not set.
+     */
+    public static final ConfigOption<String> BLOCKING_SHUFFLE_COMPRESSION_CODEC =
+            key("taskmanager.network.blocking-shuffle.compression.codec")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "The codec to be used when compressing the shuffle data of blocking result"
+                                    + " partitions, which are written to disk and are often IO bounded, so a codec"
+                                    + " with a higher compression ratio like ZSTD may pay off. If not set, "
+                                    + SHUFFLE_COMPRESSION_CODEC.key()
+                                    + " is used.");
+
+    /** The compression level of the ZSTD codec for shuffle data. */
+    public static final ConfigOption<Integer> SHUFFLE_COMPRESSION_ZSTD_LEVEL =
+            key("taskmanager.network.compression.zstd-level")
+                    .intType()
+                    .defaultValue(3)
+                    .withDescription(
+                            "The compression level of the ZSTD codec for shuffle data. Higher levels"
+                                    + " achieve higher compression ratios at the cost of compression speed,"
+                                    + " the decompression speed is barely affected.");
+
+    /**
+     * Boolean flag indicating whether the shuffle data of pipelined result partitions will be
+     * compressed when it is sent to remote consumers.
+     */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Boolean> PIPELINED_SHUFFLE_COMPRESSION_ENABLED =
+            key("taskmanager.network.pipelined-shuffle.compression.enabled")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Boolean flag indicating whether the shuffle data of pipelined result partitions"
+                                    + " will be compressed with "
+                                    + SHUFFLE_COMPRESSION_CODEC.key()
+                                    + " when it is sent to remote consumers. Data sent to consumers in the"
+                                    + " same TaskManager is never compressed. The compression ratio and speed"
+                                    + " are sampled per channel, and the compression is switched off for a"
+                                    + " while if it does not pay off. This can reduce the network traffic of"
+                                    + " bandwidth bound jobs at the cost of extra CPU overhead.");
+
+    /**
+     * The maximum ratio of compressed to original data size below which the compression of
+     * pipelined shuffle data pays off.
+     */
+    public static final ConfigOption<Float> PIPELINED_SHUFFLE_COMPRESSION_MAX_RATIO =
+            key("taskmanager.network.pipelined-shuffle.compression.max-ratio")
+                    .floatType()
+                    .defaultValue(0.8f)
+                    .withDescription(
+                            "The maximum ratio of compressed to original data size, at which the"
+                                    + " compression of pipelined shuffle data still pays off. If the sampled"
+                                    + " ratio of a channel is higher, its data is sent uncompressed for a while.");
+
+    /**
+     * The minimum speed at which the pipelined shuffle data must be compressed for the compression
+     * to pay off.
+     */
+    public static final ConfigOption<MemorySize> PIPELINED_SHUFFLE_COMPRESSION_MIN_THROUGHPUT =
+            key("taskmanager.network.pipelined-shuffle.compression.min-throughput")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("64m"))
+                    .withDescription(
+                            "The minimum amount of pipelined shuffle data compressed per second of"
+                                    + " compression time, at which the compression still pays off. If a channel"
+                                    + " compresses slower, its data is sent uncompressed for a while.");
 
     /**
      * Boolean flag to enable/disable more detailed metrics about inbound/outbound network queue
@@ -214,6 +289,20 @@ public class NettyShuffleEnvironmentOptions {
                                     + " direct memory for shuffle data writing and reading so just increase the size of"
                                     + " direct memory if direct memory OOM error occurs.");
 
+    /** Size of the memory used to read sort-merge blocking result partitions in a TaskManager. */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<MemorySize> NETWORK_SORT_SHUFFLE_READ_MEMORY =
+            key("taskmanager.network.sort-shuffle.read-memory")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("32m"))
+                    .withDescription(
+                            "Size of the memory shared by all readers of sort-merge blocking result "
+                                    + "partitions in a TaskManager. The data of all subpartitions is read in file "
+                                    + "offset order into buffers of this memory, so the disk is accessed mostly "
+                                    + "sequentially. The memory is unmanaged direct memory, so just increase the size "
+                                    + "of direct memory if direct memory OOM error occurs, and increase this config "
+                                    + "value if the reading of many subpartitions at the same time is slow.");
+
     /** Number of max buffers can be used for each output subparition. */
     @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
     public static final ConfigOption<Integer> NETWORK_MAX_BUFFERS_PER_CHANNEL =
@@ -227,6 +316,78 @@ public class NettyShuffleEnvironmentOptions {
                                     + " and can be ignored by things like flatMap operators, records spanning multiple buffers or single timer"
                                     + " producing large amount of data.");
 
+    /** Whether the size of the network buffers is adapted to the measured throughput. */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Boolean> BUFFER_DEBLOAT_ENABLED =
+            key("taskmanager.network.memory.buffer-debloat.enabled")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether to enable buffer debloating. If enabled, each input gate measures the"
+                                    + " throughput of its task and adjusts the size of the buffers announced"
+                                    + " to the producers, so that the in-flight data of the gate can be consumed within"
+                                    + " the configured target time ('"
+                                    + "taskmanager.network.memory.buffer-debloat.target"
+                                    + "'). This reduces the amount of in-flight data under back pressure, which speeds up"
+                                    + " aligned checkpoints and reduces the size of unaligned checkpoints.");
+
+    /** The target time to consume the in-flight data of an input gate. */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Duration> BUFFER_DEBLOAT_TARGET =
+            key("taskmanager.network.memory.buffer-debloat.target")
+                    .durationType()
+                    .defaultValue(Duration.ofSeconds(1))
+                    .withDescription(
+                            "The target total time after which the buffered in-flight data of an input gate should"
+                                    + " be fully consumed, if buffer debloating is enabled. The buffer size is adapted"
+                                    + " to the throughput measured by the task, but never exceeds the configured size"
+                                    + " of the memory segments.");
+
+    /** The period between two recalculations of the buffer size. */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Duration> BUFFER_DEBLOAT_PERIOD =
+            key("taskmanager.network.memory.buffer-debloat.period")
+                    .durationType()
+                    .defaultValue(Duration.ofMillis(200))
+                    .withDescription(
+                            "The minimum period of time after which the buffer size is recalculated from the"
+                                    + " throughput measured since the previous recalculation, if buffer debloating is"
+                                    + " enabled. The lower the period, the faster the buffer size reacts to changes of"
+                                    + " the throughput, at the cost of a higher CPU overhead.");
+
+    /** The number of samples over which the buffer size is averaged. */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Integer> BUFFER_DEBLOAT_SAMPLES =
+            key("taskmanager.network.memory.buffer-debloat.samples")
+                    .intType()
+                    .defaultValue(20)
+                    .withDescription(
+                            "The number of recent buffer size recalculations over which the new buffer size is"
+                                    + " averaged, if buffer debloating is enabled. The higher the number, the slower"
+                                    + " the buffer size follows changes of the throughput.");
+
+    /** The minimum relative change of the buffer size that is announced to the producers. */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Integer> BUFFER_DEBLOAT_THRESHOLD_PERCENTAGES =
+            key("taskmanager.network.memory.buffer-debloat.threshold-percentages")
+                    .intType()
+                    .defaultValue(25)
+                    .withDescription(
+                            "The minimum difference in percent between the new and the old buffer size for the"
+                                    + " new size to be announced to the producers, if buffer debloating is enabled."
+                                    + " This avoids frequent small changes of the buffer size.");
+
+    /** The lower bound of the buffer size chosen by buffer debloating. */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<MemorySize> BUFFER_DEBLOAT_MIN_BUFFER_SIZE =
+            key("taskmanager.network.memory.buffer-debloat.min-buffer-size")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("256b"))
+                    .withDescription(
+                            "The minimum size of the buffers announced to the producers, if buffer debloating"
+                                    + " is enabled. Small buffers increase the per-buffer overhead of the network"
+                                    + " stack, so the size is never reduced below this value.");
+
     /** The timeout for requesting exclusive buffers for each channel. */
     @Documentation.ExcludeFromDocumentation(
             "This option is purely implementation related, and may be removed as the implementation changes.")
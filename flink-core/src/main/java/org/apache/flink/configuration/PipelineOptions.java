@@ -197,6 +197,17 @@ public class PipelineOptions {
                                     + " data to user-code functions will be reused. Keep in mind that this can lead to bugs when the"
                                     + " user-code function of an operation is not aware of this behaviour.");
 
+    public static final ConfigOption<Boolean> LOCAL_OBJECT_EXCHANGE =
+            key("pipeline.local-object-exchange")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "When enabled records are handed over between tasks that run in the same TaskManager"
+                                    + " as objects instead of being serialized and deserialized. The receiving task gets"
+                                    + " a copy of each record like a chained operator without object reuse, which keeps"
+                                    + " the runtime class of the record. Records are still serialized when they have to"
+                                    + " be persisted as in-flight data of unaligned checkpoints.");
+
     public static final ConfigOption<List<String>> KRYO_DEFAULT_SERIALIZERS =
             key("pipeline.default-kryo-serializers")
                     .stringType()
@@ -31,6 +31,7 @@ import org.apache.flink.table.data.vector.VectorizedColumnBatch;
 import org.apache.flink.table.filesystem.ColumnarRowIterator;
 import org.apache.flink.table.filesystem.PartitionFieldExtractor;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.vector.VectorizedFilter;
 import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.RowType;
 
@@ -38,6 +39,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.orc.TypeDescription;
 
+import javax.annotation.Nullable;
+
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -63,6 +66,12 @@ public class OrcColumnarRowFileInputFormat<BatchT, SplitT extends FileSourceSpli
     private final ColumnBatchFactory<BatchT, SplitT> batchFactory;
     private final RowType projectedOutputType;
 
+    /**
+     * Filter evaluated over each Flink column batch. Unlike the {@link OrcFilters.Predicate}s,
+     * which skip whole row groups, it skips single rows.
+     */
+    @Nullable private final VectorizedFilter filter;
+
     public OrcColumnarRowFileInputFormat(
             final OrcShim<BatchT> shim,
             final Configuration hadoopConfig,
@@ -72,9 +81,32 @@ public class OrcColumnarRowFileInputFormat<BatchT, SplitT extends FileSourceSpli
             final int batchSize,
             final ColumnBatchFactory<BatchT, SplitT> batchFactory,
             final RowType projectedOutputType) {
+        this(
+                shim,
+                hadoopConfig,
+                schema,
+                selectedFields,
+                conjunctPredicates,
+                batchSize,
+                batchFactory,
+                projectedOutputType,
+                null);
+    }
+
+    public OrcColumnarRowFileInputFormat(
+            final OrcShim<BatchT> shim,
+            final Configuration hadoopConfig,
+            final TypeDescription schema,
+            final int[] selectedFields,
+            final List<OrcFilters.Predicate> conjunctPredicates,
+            final int batchSize,
+            final ColumnBatchFactory<BatchT, SplitT> batchFactory,
+            final RowType projectedOutputType,
+            @Nullable final VectorizedFilter filter) {
         super(shim, hadoopConfig, schema, selectedFields, conjunctPredicates, batchSize);
         this.batchFactory = batchFactory;
         this.projectedOutputType = projectedOutputType;
+        this.filter = filter;
     }
 
     @Override
@@ -86,7 +118,7 @@ public class OrcColumnarRowFileInputFormat<BatchT, SplitT extends FileSourceSpli
 
         final VectorizedColumnBatch flinkColumnBatch =
                 batchFactory.create(split, orcBatch.getBatch());
-        return new VectorizedColumnReaderBatch<>(orcBatch, flinkColumnBatch, recycler);
+        return new VectorizedColumnReaderBatch<>(orcBatch, flinkColumnBatch, filter, recycler);
     }
 
     @Override
@@ -106,11 +138,11 @@ public class OrcColumnarRowFileInputFormat<BatchT, SplitT extends FileSourceSpli
         VectorizedColumnReaderBatch(
                 final OrcVectorizedBatchWrapper<BatchT> orcBatch,
                 final VectorizedColumnBatch flinkColumnBatch,
+                @Nullable final VectorizedFilter filter,
                 final Pool.Recycler<OrcReaderBatch<RowData, BatchT>> recycler) {
             super(orcBatch, recycler);
             this.flinkColumnBatch = flinkColumnBatch;
-            this.result =
-                    new ColumnarRowIterator(new ColumnarRowData(flinkColumnBatch), this::recycle);
+            this.result = new ColumnarRowIterator(flinkColumnBatch, filter, this::recycle);
         }
 
         @Override
@@ -139,6 +171,33 @@ public class OrcColumnarRowFileInputFormat<BatchT, SplitT extends FileSourceSpli
                     int[] selectedFields,
                     List<OrcFilters.Predicate> conjunctPredicates,
                     int batchSize) {
+        return createPartitionedFormat(
+                shim,
+                hadoopConfig,
+                tableType,
+                partitionKeys,
+                extractor,
+                selectedFields,
+                conjunctPredicates,
+                batchSize,
+                null);
+    }
+
+    /**
+     * Create a partitioned {@link OrcColumnarRowFileInputFormat}, the partition columns can be
+     * generated by split. Only the rows selected by the given filter are returned.
+     */
+    public static <SplitT extends FileSourceSplit>
+            OrcColumnarRowFileInputFormat<VectorizedRowBatch, SplitT> createPartitionedFormat(
+                    OrcShim<VectorizedRowBatch> shim,
+                    Configuration hadoopConfig,
+                    RowType tableType,
+                    List<String> partitionKeys,
+                    PartitionFieldExtractor<SplitT> extractor,
+                    int[] selectedFields,
+                    List<OrcFilters.Predicate> conjunctPredicates,
+                    int batchSize,
+                    @Nullable VectorizedFilter filter) {
         String[] tableFieldNames = tableType.getFieldNames().toArray(new String[0]);
         LogicalType[] tableFieldTypes = tableType.getChildren().toArray(new LogicalType[0]);
         List<String> orcFieldNames = getNonPartNames(tableFieldNames, partitionKeys);
@@ -175,6 +234,7 @@ public class OrcColumnarRowFileInputFormat<BatchT, SplitT extends FileSourceSpli
                 new RowType(
                         Arrays.stream(selectedFields)
                                 .mapToObj(i -> tableType.getFields().get(i))
-                                .collect(Collectors.toList())));
+                                .collect(Collectors.toList())),
+                filter);
     }
 }
@@ -38,8 +38,10 @@ import org.apache.flink.table.expressions.ResolvedExpression;
 import org.apache.flink.table.factories.BulkReaderFormatFactory;
 import org.apache.flink.table.factories.BulkWriterFormatFactory;
 import org.apache.flink.table.factories.DynamicTableFactory;
+import org.apache.flink.table.filesystem.ColumnarBulkDecodingFormat;
 import org.apache.flink.table.filesystem.FileSystemOptions;
 import org.apache.flink.table.filesystem.PartitionFieldExtractor;
+import org.apache.flink.table.runtime.vector.VectorizedFilters;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.RowType;
@@ -85,7 +87,7 @@ public class OrcFileFormatFactory implements BulkReaderFormatFactory, BulkWriter
     @Override
     public BulkDecodingFormat<RowData> createDecodingFormat(
             DynamicTableFactory.Context context, ReadableConfig formatOptions) {
-        return new BulkDecodingFormat<RowData>() {
+        return new ColumnarBulkDecodingFormat() {
 
             private List<ResolvedExpression> filters;
 
@@ -136,7 +138,8 @@ public class OrcFileFormatFactory implements BulkReaderFormatFactory, BulkWriter
                         PartitionFieldExtractor.forFileSystem(defaultPartName),
                         selectedFields,
                         orcPredicates,
-                        VectorizedColumnBatch.DEFAULT_SIZE);
+                        VectorizedColumnBatch.DEFAULT_SIZE,
+                        filters == null ? null : VectorizedFilters.create(filters, projectedType));
             }
 
             @Override
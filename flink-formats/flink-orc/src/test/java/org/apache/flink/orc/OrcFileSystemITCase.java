@@ -18,6 +18,7 @@
 
 package org.apache.flink.orc;
 
+import org.apache.flink.table.api.config.OptimizerConfigOptions;
 import org.apache.flink.table.planner.runtime.batch.sql.BatchFileSystemITCaseBase;
 import org.apache.flink.types.Row;
 
@@ -164,4 +165,23 @@ public class OrcFileSystemITCase extends BatchFileSystemITCaseBase {
                 "select x, y from orcFilterTable where g = timestamp '2020-01-01 05:20:00' and x = 'x10'",
                 Collections.singletonList(Row.of("x10", "10")));
     }
+
+    @Test
+    public void testAggregatePushDownPlan() {
+        super.tableEnv()
+                .getConfig()
+                .getConfiguration()
+                .setString(OptimizerConfigOptions.TABLE_OPTIMIZER_AGG_PHASE_STRATEGY, "TWO_PHASE");
+        String plan =
+                super.tableEnv()
+                        .explainSql("select a, count(*), sum(y) from partitionedTable group by a");
+        Assert.assertTrue(plan, plan.contains("aggregates=[grouping=[a]"));
+
+        // the aggregates are not pushed down when the filters remain in the plan
+        plan =
+                super.tableEnv()
+                        .explainSql(
+                                "select a, count(*) from partitionedTable where y > 3 group by a");
+        Assert.assertFalse(plan, plan.contains("aggregates=["));
+    }
 }
@@ -32,10 +32,13 @@ import org.apache.flink.table.data.vector.writable.WritableColumnVector;
 import org.apache.flink.table.filesystem.ColumnarRowIterator;
 import org.apache.flink.table.filesystem.PartitionFieldExtractor;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.vector.VectorizedFilter;
 import org.apache.flink.table.types.logical.RowType;
 
 import org.apache.hadoop.conf.Configuration;
 
+import javax.annotation.Nullable;
+
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -52,6 +55,9 @@ public class ParquetColumnarRowInputFormat<SplitT extends FileSourceSplit>
 
     private final RowType producedType;
 
+    /** Filter evaluated over each column batch, or {@code null} to return all rows. */
+    @Nullable private final VectorizedFilter filter;
+
     /** Constructor to create parquet format without extra fields. */
     public ParquetColumnarRowInputFormat(
             Configuration hadoopConfig,
@@ -84,6 +90,33 @@ public class ParquetColumnarRowInputFormat<SplitT extends FileSourceSplit>
             int batchSize,
             boolean isUtcTimestamp,
             boolean isCaseSensitive) {
+        this(
+                hadoopConfig,
+                projectedType,
+                producedType,
+                batchFactory,
+                batchSize,
+                isUtcTimestamp,
+                isCaseSensitive,
+                null);
+    }
+
+    /**
+     * Constructor to create parquet format with extra fields created by {@link ColumnBatchFactory}
+     * and a filter over the produced column batches.
+     *
+     * @param filter filter evaluated over each column batch of the produced row type, the rows it
+     *     does not select are skipped.
+     */
+    public ParquetColumnarRowInputFormat(
+            Configuration hadoopConfig,
+            RowType projectedType,
+            RowType producedType,
+            ColumnBatchFactory<SplitT> batchFactory,
+            int batchSize,
+            boolean isUtcTimestamp,
+            boolean isCaseSensitive,
+            @Nullable VectorizedFilter filter) {
         super(
                 new SerializableConfiguration(hadoopConfig),
                 projectedType,
@@ -92,6 +125,7 @@ public class ParquetColumnarRowInputFormat<SplitT extends FileSourceSplit>
                 isUtcTimestamp,
                 isCaseSensitive);
         this.producedType = producedType;
+        this.filter = filter;
     }
 
     @Override
@@ -99,7 +133,7 @@ public class ParquetColumnarRowInputFormat<SplitT extends FileSourceSplit>
             WritableColumnVector[] writableVectors,
             VectorizedColumnBatch columnarBatch,
             Pool.Recycler<ParquetReaderBatch<RowData>> recycler) {
-        return new ColumnarRowReaderBatch(writableVectors, columnarBatch, recycler);
+        return new ColumnarRowReaderBatch(writableVectors, columnarBatch, filter, recycler);
     }
 
     @Override
@@ -111,18 +145,26 @@ public class ParquetColumnarRowInputFormat<SplitT extends FileSourceSplit>
 
         private final ColumnarRowIterator result;
 
+        private final boolean hasFilter;
+
         private ColumnarRowReaderBatch(
                 WritableColumnVector[] writableVectors,
                 VectorizedColumnBatch columnarBatch,
+                @Nullable VectorizedFilter filter,
                 Pool.Recycler<ParquetReaderBatch<RowData>> recycler) {
             super(writableVectors, columnarBatch, recycler);
-            this.result =
-                    new ColumnarRowIterator(new ColumnarRowData(columnarBatch), this::recycle);
+            this.result = new ColumnarRowIterator(columnarBatch, filter, this::recycle);
+            this.hasFilter = filter != null;
         }
 
         @Override
         public RecordIterator<RowData> convertAndGetIterator(long rowsReturned) {
-            result.set(columnarBatch.getNumRows(), rowsReturned);
+            if (hasFilter) {
+                // the filtered rows are not counted, restore from the start of the batch
+                result.set(columnarBatch.getNumRows(), rowsReturned, 0);
+            } else {
+                result.set(columnarBatch.getNumRows(), rowsReturned);
+            }
             return result;
         }
     }
@@ -140,6 +182,31 @@ public class ParquetColumnarRowInputFormat<SplitT extends FileSourceSplit>
                     int batchSize,
                     boolean isUtcTimestamp,
                     boolean isCaseSensitive) {
+        return createPartitionedFormat(
+                hadoopConfig,
+                producedRowType,
+                partitionKeys,
+                extractor,
+                batchSize,
+                isUtcTimestamp,
+                isCaseSensitive,
+                null);
+    }
+
+    /**
+     * Create a partitioned {@link ParquetColumnarRowInputFormat}, the partition columns can be
+     * generated by {@link Path}. Only the rows selected by the given filter are returned.
+     */
+    public static <SplitT extends FileSourceSplit>
+            ParquetColumnarRowInputFormat<SplitT> createPartitionedFormat(
+                    Configuration hadoopConfig,
+                    RowType producedRowType,
+                    List<String> partitionKeys,
+                    PartitionFieldExtractor<SplitT> extractor,
+                    int batchSize,
+                    boolean isUtcTimestamp,
+                    boolean isCaseSensitive,
+                    @Nullable VectorizedFilter filter) {
         RowType projectedRowType =
                 new RowType(
                         producedRowType.getFields().stream()
@@ -173,6 +240,7 @@ public class ParquetColumnarRowInputFormat<SplitT extends FileSourceSplit>
                 factory,
                 batchSize,
                 isUtcTimestamp,
-                isCaseSensitive);
+                isCaseSensitive,
+                filter);
     }
 }
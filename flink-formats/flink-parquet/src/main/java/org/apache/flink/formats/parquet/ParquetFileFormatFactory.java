@@ -31,17 +31,22 @@ import org.apache.flink.table.connector.sink.DynamicTableSink;
 import org.apache.flink.table.connector.source.DynamicTableSource;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.expressions.ResolvedExpression;
 import org.apache.flink.table.factories.BulkReaderFormatFactory;
 import org.apache.flink.table.factories.BulkWriterFormatFactory;
 import org.apache.flink.table.factories.DynamicTableFactory;
+import org.apache.flink.table.filesystem.ColumnarBulkDecodingFormat;
 import org.apache.flink.table.filesystem.FileSystemOptions;
 import org.apache.flink.table.filesystem.PartitionFieldExtractor;
+import org.apache.flink.table.runtime.vector.VectorizedFilters;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.RowType;
 
 import org.apache.hadoop.conf.Configuration;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
@@ -64,10 +69,14 @@ public class ParquetFileFormatFactory implements BulkReaderFormatFactory, BulkWr
     @Override
     public BulkDecodingFormat<RowData> createDecodingFormat(
             DynamicTableFactory.Context context, ReadableConfig formatOptions) {
-        return new BulkDecodingFormat<RowData>() {
+        return new ColumnarBulkDecodingFormat() {
+
+            private List<ResolvedExpression> filters = Collections.emptyList();
+
             @Override
             public BulkFormat<RowData, FileSourceSplit> createRuntimeDecoder(
                     DynamicTableSource.Context sourceContext, DataType producedDataType) {
+                RowType producedType = (RowType) producedDataType.getLogicalType();
                 String defaultPartName =
                         context.getCatalogTable()
                                 .getOptions()
@@ -76,18 +85,24 @@ public class ParquetFileFormatFactory implements BulkReaderFormatFactory, BulkWr
                                         FileSystemOptions.PARTITION_DEFAULT_NAME.defaultValue());
                 return ParquetColumnarRowInputFormat.createPartitionedFormat(
                         getParquetConfiguration(formatOptions),
-                        (RowType) producedDataType.getLogicalType(),
+                        producedType,
                         context.getCatalogTable().getPartitionKeys(),
                         PartitionFieldExtractor.forFileSystem(defaultPartName),
                         VectorizedColumnBatch.DEFAULT_SIZE,
                         formatOptions.get(UTC_TIMEZONE),
-                        true);
+                        true,
+                        VectorizedFilters.create(filters, producedType));
             }
 
             @Override
             public ChangelogMode getChangelogMode() {
                 return ChangelogMode.insertOnly();
             }
+
+            @Override
+            public void applyFilters(List<ResolvedExpression> filters) {
+                this.filters = filters;
+            }
         };
     }
 
@@ -37,7 +37,6 @@ import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.LogicalTypeRoot;
 import org.apache.flink.table.types.logical.RowType;
 import org.apache.flink.util.FlinkRuntimeException;
-import org.apache.flink.util.Preconditions;
 
 import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.page.PageReadStore;
@@ -148,11 +147,14 @@ public abstract class ParquetVectorizedInputFormat<T, SplitT extends FileSourceS
         assert split.getReaderPosition().isPresent();
         final CheckpointedPosition checkpointedPosition = split.getReaderPosition().get();
 
-        Preconditions.checkArgument(
-                checkpointedPosition.getOffset() == CheckpointedPosition.NO_OFFSET,
-                "The offset of CheckpointedPosition should always be NO_OFFSET");
         ParquetReader reader = createReader(config, split);
-        reader.seek(checkpointedPosition.getRecordsAfterOffset());
+        if (checkpointedPosition.getOffset() == CheckpointedPosition.NO_OFFSET) {
+            reader.seek(checkpointedPosition.getRecordsAfterOffset());
+        } else {
+            // the offset is the first row of a batch whose returned records are counted
+            reader.seekToBatch(
+                    checkpointedPosition.getOffset(), checkpointedPosition.getRecordsAfterOffset());
+        }
         return reader;
     }
 
@@ -311,6 +313,9 @@ public abstract class ParquetVectorizedInputFormat<T, SplitT extends FileSourceS
 
         private long recordsToSkip;
 
+        /** The number of rows to read without returning them, see {@link #seekToBatch}. */
+        private long rowsToDiscard;
+
         private ParquetReader(
                 ParquetFileReader reader,
                 MessageType requestedSchema,
@@ -323,6 +328,7 @@ public abstract class ParquetVectorizedInputFormat<T, SplitT extends FileSourceS
             this.rowsReturned = 0;
             this.totalCountLoadedSoFar = 0;
             this.recordsToSkip = 0;
+            this.rowsToDiscard = 0;
         }
 
         @Nullable
@@ -330,6 +336,14 @@ public abstract class ParquetVectorizedInputFormat<T, SplitT extends FileSourceS
         public RecordIterator<T> readBatch() throws IOException {
             final ParquetReaderBatch<T> batch = getCachedEntry();
 
+            while (rowsToDiscard > 0) {
+                if (!nextBatch(batch)) {
+                    batch.recycle();
+                    return null;
+                }
+                rowsToDiscard -= batch.columnarBatch.getNumRows();
+            }
+
             final long rowsReturnedBefore = rowsReturned;
             if (!nextBatch(batch)) {
                 batch.recycle();
@@ -410,6 +424,17 @@ public abstract class ParquetVectorizedInputFormat<T, SplitT extends FileSourceS
             this.recordsToSkip = rowCount;
         }
 
+        /**
+         * Seeks to the batch starting at the given row and skips the given number of records
+         * returned by that batch. Unlike {@link #seek(long)}, the rows before the batch are not
+         * passed to the batch, which matters if the batch does not return all of its rows.
+         */
+        public void seekToBatch(long batchOffset, long recordsAfterOffset) {
+            seek(batchOffset);
+            this.rowsToDiscard = recordsToSkip;
+            this.recordsToSkip = recordsAfterOffset;
+        }
+
         private ParquetReaderBatch<T> getCachedEntry() throws IOException {
             try {
                 return pool.pollEntry();
@@ -472,7 +497,9 @@ public abstract class ParquetVectorizedInputFormat<T, SplitT extends FileSourceS
         /**
          * Provides reading iterator after the records are written to the {@link #columnarBatch}.
          *
-         * @param rowsReturned The number of rows that have been returned before this batch.
+         * @param rowsReturned The number of rows that have been returned before this batch. Batches
+         *     which do not return all of their rows should use it as offset of the positions, see
+         *     {@link ParquetReader#seekToBatch}.
          */
         public abstract RecordIterator<T> convertAndGetIterator(long rowsReturned)
                 throws IOException;
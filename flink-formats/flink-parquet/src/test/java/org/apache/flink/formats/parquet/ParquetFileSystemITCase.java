@@ -18,12 +18,14 @@
 
 package org.apache.flink.formats.parquet;
 
+import org.apache.flink.table.api.config.OptimizerConfigOptions;
 import org.apache.flink.table.planner.runtime.batch.sql.BatchFileSystemITCaseBase;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.junit.Assert;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
@@ -91,4 +93,23 @@ public class ParquetFileSystemITCase extends BatchFileSystemITCaseBase {
             throw new RuntimeException(e);
         }
     }
+
+    @Test
+    public void testAggregatePushDownPlan() {
+        super.tableEnv()
+                .getConfig()
+                .getConfiguration()
+                .setString(OptimizerConfigOptions.TABLE_OPTIMIZER_AGG_PHASE_STRATEGY, "TWO_PHASE");
+        String plan =
+                super.tableEnv()
+                        .explainSql("select a, count(*), sum(y) from partitionedTable group by a");
+        Assert.assertTrue(plan, plan.contains("aggregates=[grouping=[a]"));
+
+        // the aggregates are not pushed down when the filters remain in the plan
+        plan =
+                super.tableEnv()
+                        .explainSql(
+                                "select a, count(*) from partitionedTable where y > 3 group by a");
+        Assert.assertFalse(plan, plan.contains("aggregates=["));
+    }
 }
@@ -29,13 +29,15 @@ import javax.annotation.Nonnegative;
 import java.io.Serializable;
 import java.util.Arrays;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
  * Deployment descriptor for a single input gate instance.
  *
- * <p>Each input gate consumes partitions of a single intermediate result. The consumed subpartition
- * index is the same for each consumed partition.
+ * <p>Each input gate consumes partitions of a single intermediate result. The consumed range of
+ * subpartition indexes is the same for each consumed partition. Usually a single subpartition is
+ * consumed, unless the consuming vertex runs fewer subtasks than the partitions have subpartitions.
  *
  * @see SingleInputGate
  */
@@ -58,7 +60,13 @@ public class InputGateDeploymentDescriptor implements Serializable {
      */
     @Nonnegative private final int consumedSubpartitionIndex;
 
-    /** An input channel for each consumed subpartition. */
+    /**
+     * The number of consecutive subpartitions, starting at the consumed subpartition index, which
+     * are consumed of each consumed partition.
+     */
+    private final int numberOfConsumedSubpartitions;
+
+    /** The shuffle descriptor for each consumed partition. */
     private final ShuffleDescriptor[] inputChannels;
 
     public InputGateDeploymentDescriptor(
@@ -66,9 +74,21 @@ public class InputGateDeploymentDescriptor implements Serializable {
             ResultPartitionType consumedPartitionType,
             @Nonnegative int consumedSubpartitionIndex,
             ShuffleDescriptor[] inputChannels) {
+        this(consumedResultId, consumedPartitionType, consumedSubpartitionIndex, 1, inputChannels);
+    }
+
+    public InputGateDeploymentDescriptor(
+            IntermediateDataSetID consumedResultId,
+            ResultPartitionType consumedPartitionType,
+            @Nonnegative int consumedSubpartitionIndex,
+            int numberOfConsumedSubpartitions,
+            ShuffleDescriptor[] inputChannels) {
+        checkArgument(
+                numberOfConsumedSubpartitions > 0, "At least one subpartition must be consumed.");
         this.consumedResultId = checkNotNull(consumedResultId);
         this.consumedPartitionType = checkNotNull(consumedPartitionType);
         this.consumedSubpartitionIndex = consumedSubpartitionIndex;
+        this.numberOfConsumedSubpartitions = numberOfConsumedSubpartitions;
         this.inputChannels = checkNotNull(inputChannels);
     }
 
@@ -90,6 +110,14 @@ public class InputGateDeploymentDescriptor implements Serializable {
         return consumedSubpartitionIndex;
     }
 
+    /**
+     * Returns the number of consecutive subpartitions consumed of each partition, starting at
+     * {@link #getConsumedSubpartitionIndex()}.
+     */
+    public int getNumberOfConsumedSubpartitions() {
+        return numberOfConsumedSubpartitions;
+    }
+
     public ShuffleDescriptor[] getShuffleDescriptors() {
         return inputChannels;
     }
@@ -98,9 +126,11 @@ public class InputGateDeploymentDescriptor implements Serializable {
     public String toString() {
         return String.format(
                 "InputGateDeploymentDescriptor [result id: %s, "
-                        + "consumed subpartition index: %d, input channels: %s]",
+                        + "consumed subpartition index: %d, "
+                        + "number of consumed subpartitions: %d, input channels: %s]",
                 consumedResultId.toString(),
                 consumedSubpartitionIndex,
+                numberOfConsumedSubpartitions,
                 Arrays.toString(inputChannels));
     }
 }
@@ -37,10 +37,13 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
+import org.apache.flink.runtime.jobgraph.JobEdge;
 import org.apache.flink.runtime.jobgraph.JobType;
 import org.apache.flink.runtime.scheduler.strategy.ConsumedPartitionGroup;
 import org.apache.flink.runtime.shuffle.ShuffleDescriptor;
 import org.apache.flink.runtime.shuffle.UnknownShuffleDescriptor;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.types.Either;
 import org.apache.flink.util.SerializedValue;
 
@@ -49,8 +52,10 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Factory of {@link TaskDeploymentDescriptor} to deploy {@link
@@ -64,7 +69,9 @@ public class TaskDeploymentDescriptorFactory {
     private final JobID jobID;
     private final PartitionLocationConstraint partitionDeploymentConstraint;
     private final int subtaskIndex;
+    private final int numberOfDeployedSubtasks;
     private final List<List<IntermediateResultPartition>> consumedPartitions;
+    private final Set<IntermediateDataSetID> broadcastInputs;
 
     private TaskDeploymentDescriptorFactory(
             ExecutionAttemptID executionId,
@@ -74,7 +81,9 @@ public class TaskDeploymentDescriptorFactory {
             JobID jobID,
             PartitionLocationConstraint partitionDeploymentConstraint,
             int subtaskIndex,
-            List<List<IntermediateResultPartition>> consumedPartitions) {
+            int numberOfDeployedSubtasks,
+            List<List<IntermediateResultPartition>> consumedPartitions,
+            Set<IntermediateDataSetID> broadcastInputs) {
         this.executionId = executionId;
         this.attemptNumber = attemptNumber;
         this.serializedJobInformation = serializedJobInformation;
@@ -82,7 +91,9 @@ public class TaskDeploymentDescriptorFactory {
         this.jobID = jobID;
         this.partitionDeploymentConstraint = partitionDeploymentConstraint;
         this.subtaskIndex = subtaskIndex;
+        this.numberOfDeployedSubtasks = numberOfDeployedSubtasks;
         this.consumedPartitions = consumedPartitions;
+        this.broadcastInputs = broadcastInputs;
     }
 
     public TaskDeploymentDescriptor createDeploymentDescriptor(
@@ -114,15 +125,29 @@ public class TaskDeploymentDescriptorFactory {
             int numConsumers = resultPartition.getConsumers().get(0).size();
 
             int queueToRequest = subtaskIndex % numConsumers;
+            int numberOfQueuesToRequest = 1;
             IntermediateResult consumedIntermediateResult = resultPartition.getIntermediateResult();
             IntermediateDataSetID resultId = consumedIntermediateResult.getId();
             ResultPartitionType partitionType = consumedIntermediateResult.getResultType();
 
+            // If fewer subtasks are deployed than the partitions have subpartitions, each deployed
+            // subtask consumes a range of subpartitions. The ranges are the key group ranges, so
+            // that keyed data ends up at the subtask owning its key group. Broadcast data is the
+            // same in every subpartition, so a single one is consumed.
+            if (numberOfDeployedSubtasks < numConsumers && !broadcastInputs.contains(resultId)) {
+                KeyGroupRange queueRange =
+                        KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(
+                                numConsumers, numberOfDeployedSubtasks, subtaskIndex);
+                queueToRequest = queueRange.getStartKeyGroup();
+                numberOfQueuesToRequest = queueRange.getNumberOfKeyGroups();
+            }
+
             inputGates.add(
                     new InputGateDeploymentDescriptor(
                             resultId,
                             partitionType,
                             queueToRequest,
+                            numberOfQueuesToRequest,
                             getConsumedPartitionShuffleDescriptors(partitions)));
         }
 
@@ -153,12 +178,23 @@ public class TaskDeploymentDescriptorFactory {
                 executionVertex.getAllConsumedPartitionGroups()) {
             List<IntermediateResultPartition> partitions = new ArrayList<>();
             for (IntermediateResultPartitionID partitionId : partitionGroup) {
-                partitions.add(
-                        internalExecutionGraphAccessor.getResultPartitionOrThrow(partitionId));
+                IntermediateResultPartition partition =
+                        internalExecutionGraphAccessor.getResultPartitionOrThrow(partitionId);
+                // partitions of producers which were finished without deployment are empty
+                if (isProducerDeployed(partition)) {
+                    partitions.add(partition);
+                }
             }
             consumedPartitions.add(partitions);
         }
 
+        final Set<IntermediateDataSetID> broadcastInputs = new HashSet<>();
+        for (JobEdge input : executionVertex.getJobVertex().getJobVertex().getInputs()) {
+            if (input.isBroadcast()) {
+                broadcastInputs.add(input.getSourceId());
+            }
+        }
+
         return new TaskDeploymentDescriptorFactory(
                 executionVertex.getCurrentExecutionAttempt().getAttemptId(),
                 attemptNumber,
@@ -168,7 +204,15 @@ public class TaskDeploymentDescriptorFactory {
                 internalExecutionGraphAccessor.getJobID(),
                 internalExecutionGraphAccessor.getPartitionLocationConstraint(),
                 executionVertex.getParallelSubtaskIndex(),
-                consumedPartitions);
+                executionVertex.getJobVertex().getNumberOfDeployedSubtasks(),
+                consumedPartitions,
+                broadcastInputs);
+    }
+
+    private static boolean isProducerDeployed(IntermediateResultPartition partition) {
+        ExecutionVertex producer = partition.getProducer();
+        return producer.getParallelSubtaskIndex()
+                < producer.getJobVertex().getNumberOfDeployedSubtasks();
     }
 
     private static MaybeOffloaded<JobInformation> getSerializedJobInformation(
@@ -936,6 +936,32 @@ public class Execution
         }
     }
 
+    /**
+     * Finishes this execution without deploying it. This is used for subtasks which the scheduler
+     * decided not to run because the number of deployed subtasks of the job vertex was lowered. The
+     * produced blocking partitions are marked as finished but stay empty, and must not be consumed
+     * by any consumer.
+     */
+    public void markFinishedWithoutDeployment() {
+        assertRunningInJobMasterMainThread();
+
+        final ExecutionState current = this.state;
+        checkState(
+                current == CREATED || current == SCHEDULED,
+                "Only executions which have not been deployed can be finished without deployment, "
+                        + "but %s was in state %s.",
+                getVertexWithAttempt(),
+                current);
+
+        if (transitionState(current, FINISHED)) {
+            try {
+                vertex.finishAllBlockingPartitions();
+            } finally {
+                vertex.executionFinished(this);
+            }
+        }
+    }
+
     private void finishPartitionsAndUpdateConsumers() {
         final List<IntermediateResultPartition> newlyFinishedResults =
                 getVertex().finishAllBlockingPartitions();
@@ -101,6 +101,12 @@ public class ExecutionJobVertex
 
     private final int parallelism;
 
+    /**
+     * The number of subtasks which are actually run. Subtasks with a higher index are finished
+     * without being deployed, see {@link #setNumberOfDeployedSubtasks(int)}.
+     */
+    private int numberOfDeployedSubtasks;
+
     private final SlotSharingGroup slotSharingGroup;
 
     @Nullable private final CoLocationGroup coLocationGroup;
@@ -165,6 +171,8 @@ public class ExecutionJobVertex
         this.resourceProfile =
                 ResourceProfile.fromResourceSpec(jobVertex.getMinResources(), MemorySize.ZERO);
 
+        this.numberOfDeployedSubtasks = this.parallelism;
+
         this.taskVertices = new ExecutionVertex[this.parallelism];
 
         this.inputs = new ArrayList<>(jobVertex.getInputs().size());
@@ -319,6 +327,35 @@ public class ExecutionJobVertex
         return maxParallelism;
     }
 
+    /**
+     * Gets the number of subtasks of this vertex which are run. It equals the parallelism unless
+     * the scheduler lowered it with {@link #setNumberOfDeployedSubtasks(int)}.
+     */
+    public int getNumberOfDeployedSubtasks() {
+        return numberOfDeployedSubtasks;
+    }
+
+    /**
+     * Lowers the number of subtasks of this vertex which are run, before any of them is deployed.
+     * The deployed subtasks see the lowered number as their parallelism, while the remaining
+     * subtasks must be finished without deployment and produce no data.
+     *
+     * @param numberOfDeployedSubtasks The number of subtasks to run, at most the parallelism.
+     */
+    public void setNumberOfDeployedSubtasks(int numberOfDeployedSubtasks) {
+        Preconditions.checkArgument(
+                numberOfDeployedSubtasks > 0 && numberOfDeployedSubtasks <= parallelism,
+                "The number of deployed subtasks must be in (0, %s], but was %s.",
+                parallelism,
+                numberOfDeployedSubtasks);
+        synchronized (stateMonitor) {
+            Preconditions.checkState(
+                    taskInformationOrBlobKey == null,
+                    "The number of deployed subtasks cannot be changed after the task information was created.");
+            this.numberOfDeployedSubtasks = numberOfDeployedSubtasks;
+        }
+    }
+
     @Override
     public ResourceProfile getResourceProfile() {
         return resourceProfile;
@@ -379,7 +416,7 @@ public class ExecutionJobVertex
                         new TaskInformation(
                                 jobVertex.getID(),
                                 jobVertex.getName(),
-                                parallelism,
+                                numberOfDeployedSubtasks,
                                 maxParallelism,
                                 jobVertex.getInvokableClassName(),
                                 jobVertex.getConfiguration());
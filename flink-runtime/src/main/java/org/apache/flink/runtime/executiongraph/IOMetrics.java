@@ -19,8 +19,12 @@
 package org.apache.flink.runtime.executiongraph;
 
 import org.apache.flink.metrics.Meter;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /** An instance of this class represents a snapshot of the io-related metrics of a single task. */
 public class IOMetrics implements Serializable {
@@ -33,11 +37,24 @@ public class IOMetrics implements Serializable {
     protected long numBytesIn;
     protected long numBytesOut;
 
+    /** The bytes produced into each of the result partitions of the task. */
+    private final Map<IntermediateResultPartitionID, Long> numBytesProducedOfPartitions;
+
     public IOMetrics(Meter recordsIn, Meter recordsOut, Meter bytesIn, Meter bytesOut) {
+        this(recordsIn, recordsOut, bytesIn, bytesOut, Collections.emptyMap());
+    }
+
+    public IOMetrics(
+            Meter recordsIn,
+            Meter recordsOut,
+            Meter bytesIn,
+            Meter bytesOut,
+            Map<IntermediateResultPartitionID, Long> numBytesProducedOfPartitions) {
         this.numRecordsIn = recordsIn.getCount();
         this.numRecordsOut = recordsOut.getCount();
         this.numBytesIn = bytesIn.getCount();
         this.numBytesOut = bytesOut.getCount();
+        this.numBytesProducedOfPartitions = new HashMap<>(numBytesProducedOfPartitions);
     }
 
     public IOMetrics(long numBytesIn, long numBytesOut, long numRecordsIn, long numRecordsOut) {
@@ -45,6 +62,7 @@ public class IOMetrics implements Serializable {
         this.numBytesOut = numBytesOut;
         this.numRecordsIn = numRecordsIn;
         this.numRecordsOut = numRecordsOut;
+        this.numBytesProducedOfPartitions = Collections.emptyMap();
     }
 
     public long getNumRecordsIn() {
@@ -62,4 +80,12 @@ public class IOMetrics implements Serializable {
     public long getNumBytesOut() {
         return numBytesOut;
     }
+
+    /**
+     * Gets the number of bytes produced into each result partition of the task. Broadcast data is
+     * counted once for every subpartition it was written to.
+     */
+    public Map<IntermediateResultPartitionID, Long> getNumBytesProducedOfPartitions() {
+        return Collections.unmodifiableMap(numBytesProducedOfPartitions);
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base class of the {@link BlockCompressor}s which wrap a native compression library. Like {@link
+ * Lz4BlockCompressor}, it puts two little-endian integers before each compressed block, the
+ * compressed length and the original length of the block.
+ *
+ * <p>Subclasses only compress between byte arrays and between direct {@link ByteBuffer}s, the other
+ * combinations of buffers are copied through reusable heap arrays.
+ */
+public abstract class AbstractBlockCompressor implements BlockCompressor {
+
+    /** Length of the header put before each compressed block. */
+    public static final int HEADER_LENGTH = 8;
+
+    /** Reusable heap array the uncompressed data is copied to if needed. */
+    private byte[] srcCopy = new byte[0];
+
+    /** Reusable heap array the compressed data is copied from if needed. */
+    private byte[] dstCopy = new byte[0];
+
+    /** Returns the maximum length of the compressed data without the header. */
+    protected abstract int maxCompressedLength(int srcLen);
+
+    /**
+     * Compresses between byte arrays, returns the length of the compressed data.
+     *
+     * @throws InsufficientBufferException if dstLen is not enough for the compressed data
+     */
+    protected abstract int compressArray(
+            byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen)
+            throws InsufficientBufferException;
+
+    /**
+     * Compresses between direct byte buffers at the given absolute offsets, returns the length of
+     * the compressed data. The positions and limits of the buffers may be changed.
+     *
+     * @throws InsufficientBufferException if dstLen is not enough for the compressed data
+     */
+    protected abstract int compressDirect(
+            ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff, int dstLen)
+            throws InsufficientBufferException;
+
+    @Override
+    public int getMaxCompressedSize(int srcSize) {
+        return HEADER_LENGTH + maxCompressedLength(srcSize);
+    }
+
+    @Override
+    public int compress(ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff)
+            throws InsufficientBufferException {
+        final int prevSrcOff = src.position() + srcOff;
+        final int prevDstOff = dst.position() + dstOff;
+        final int maxLen = dst.limit() - prevDstOff - HEADER_LENGTH;
+        if (maxLen <= 0) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        int compressedLength;
+        if (src.hasArray() && dst.hasArray()) {
+            compressedLength =
+                    compressArray(
+                            src.array(),
+                            src.arrayOffset() + prevSrcOff,
+                            srcLen,
+                            dst.array(),
+                            dst.arrayOffset() + prevDstOff + HEADER_LENGTH,
+                            maxLen);
+        } else if (src.isDirect() && dst.isDirect()) {
+            compressedLength =
+                    compressDirect(
+                            src.duplicate(),
+                            prevSrcOff,
+                            srcLen,
+                            dst.duplicate(),
+                            prevDstOff + HEADER_LENGTH,
+                            maxLen);
+        } else {
+            compressedLength = compressByCopy(src, prevSrcOff, srcLen, dst, prevDstOff, maxLen);
+        }
+
+        src.position(prevSrcOff + srcLen);
+
+        dst.position(prevDstOff);
+        dst.order(ByteOrder.LITTLE_ENDIAN);
+        dst.putInt(compressedLength);
+        dst.putInt(srcLen);
+        dst.position(prevDstOff + compressedLength + HEADER_LENGTH);
+
+        return HEADER_LENGTH + compressedLength;
+    }
+
+    private int compressByCopy(
+            ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff, int maxLen) {
+        if (srcCopy.length < srcLen) {
+            srcCopy = new byte[srcLen];
+        }
+        ByteBuffer srcDuplicate = src.duplicate();
+        srcDuplicate.position(srcOff);
+        srcDuplicate.get(srcCopy, 0, srcLen);
+
+        int dstLen = Math.min(maxLen, maxCompressedLength(srcLen));
+        if (dstCopy.length < dstLen) {
+            dstCopy = new byte[dstLen];
+        }
+        int compressedLength = compressArray(srcCopy, 0, srcLen, dstCopy, 0, dstLen);
+
+        ByteBuffer dstDuplicate = dst.duplicate();
+        dstDuplicate.position(dstOff + HEADER_LENGTH);
+        dstDuplicate.put(dstCopy, 0, compressedLength);
+        return compressedLength;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+            throws InsufficientBufferException {
+        final int maxLen = dst.length - dstOff - HEADER_LENGTH;
+        if (maxLen <= 0) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        int compressedLength =
+                compressArray(src, srcOff, srcLen, dst, dstOff + HEADER_LENGTH, maxLen);
+        writeIntLE(compressedLength, dst, dstOff);
+        writeIntLE(srcLen, dst, dstOff + 4);
+        return HEADER_LENGTH + compressedLength;
+    }
+
+    private static void writeIntLE(int i, byte[] buf, int offset) {
+        buf[offset++] = (byte) i;
+        buf[offset++] = (byte) (i >>> 8);
+        buf[offset++] = (byte) (i >>> 16);
+        buf[offset] = (byte) (i >>> 24);
+    }
+}
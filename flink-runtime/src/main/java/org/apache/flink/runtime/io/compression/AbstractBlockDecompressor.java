@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.apache.flink.runtime.io.compression.AbstractBlockCompressor.HEADER_LENGTH;
+
+/**
+ * Base class of the {@link BlockDecompressor}s which decode the data written by an {@link
+ * AbstractBlockCompressor}.
+ *
+ * <p>Subclasses only decompress between byte arrays and between direct {@link ByteBuffer}s, the
+ * other combinations of buffers are copied through reusable heap arrays.
+ */
+public abstract class AbstractBlockDecompressor implements BlockDecompressor {
+
+    /** Reusable heap array the compressed data is copied to if needed. */
+    private byte[] srcCopy = new byte[0];
+
+    /** Reusable heap array the decompressed data is copied from if needed. */
+    private byte[] dstCopy = new byte[0];
+
+    /**
+     * Decompresses between byte arrays, returns the length of the decompressed data.
+     *
+     * @throws DataCorruptionException if the data is corrupted
+     */
+    protected abstract int decompressArray(
+            byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLen)
+            throws DataCorruptionException;
+
+    /**
+     * Decompresses between direct byte buffers at the given absolute offsets, returns the length of
+     * the decompressed data. The positions and limits of the buffers may be changed.
+     *
+     * @throws DataCorruptionException if the data is corrupted
+     */
+    protected abstract int decompressDirect(
+            ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff, int originalLen)
+            throws DataCorruptionException;
+
+    @Override
+    public int decompress(ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff)
+            throws DataCorruptionException {
+        final int prevSrcOff = src.position() + srcOff;
+        final int prevDstOff = dst.position() + dstOff;
+
+        src.order(ByteOrder.LITTLE_ENDIAN);
+        final int compressedLen = src.getInt(prevSrcOff);
+        final int originalLen = src.getInt(prevSrcOff + 4);
+        validateLength(compressedLen, originalLen);
+
+        if (dst.capacity() - prevDstOff < originalLen) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        if (src.limit() - prevSrcOff - HEADER_LENGTH < compressedLen) {
+            throw new DataCorruptionException("Source data is not integral for decompression.");
+        }
+
+        int decompressedLen;
+        if (src.hasArray() && dst.hasArray()) {
+            decompressedLen =
+                    decompressArray(
+                            src.array(),
+                            src.arrayOffset() + prevSrcOff + HEADER_LENGTH,
+                            compressedLen,
+                            dst.array(),
+                            dst.arrayOffset() + prevDstOff,
+                            originalLen);
+        } else if (src.isDirect() && dst.isDirect()) {
+            decompressedLen =
+                    decompressDirect(
+                            src.duplicate(),
+                            prevSrcOff + HEADER_LENGTH,
+                            compressedLen,
+                            dst.duplicate(),
+                            prevDstOff,
+                            originalLen);
+        } else {
+            decompressedLen =
+                    decompressByCopy(src, prevSrcOff, compressedLen, dst, prevDstOff, originalLen);
+        }
+        checkDecompressedLength(decompressedLen, originalLen);
+
+        src.position(prevSrcOff + compressedLen + HEADER_LENGTH);
+        dst.position(prevDstOff + originalLen);
+
+        return originalLen;
+    }
+
+    private int decompressByCopy(
+            ByteBuffer src,
+            int srcOff,
+            int compressedLen,
+            ByteBuffer dst,
+            int dstOff,
+            int originalLen) {
+        if (srcCopy.length < compressedLen) {
+            srcCopy = new byte[compressedLen];
+        }
+        ByteBuffer srcDuplicate = src.duplicate();
+        srcDuplicate.position(srcOff + HEADER_LENGTH);
+        srcDuplicate.get(srcCopy, 0, compressedLen);
+
+        if (dstCopy.length < originalLen) {
+            dstCopy = new byte[originalLen];
+        }
+        int decompressedLen = decompressArray(srcCopy, 0, compressedLen, dstCopy, 0, originalLen);
+        checkDecompressedLength(decompressedLen, originalLen);
+
+        ByteBuffer dstDuplicate = dst.duplicate();
+        dstDuplicate.clear();
+        dstDuplicate.position(dstOff);
+        dstDuplicate.put(dstCopy, 0, originalLen);
+        return decompressedLen;
+    }
+
+    @Override
+    public int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+            throws InsufficientBufferException, DataCorruptionException {
+        final int compressedLen = readIntLE(src, srcOff);
+        final int originalLen = readIntLE(src, srcOff + 4);
+        validateLength(compressedLen, originalLen);
+
+        if (dst.length - dstOff < originalLen) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        if (src.length - srcOff - HEADER_LENGTH < compressedLen) {
+            throw new DataCorruptionException("Source data is not integral for decompression.");
+        }
+
+        int decompressedLen =
+                decompressArray(
+                        src, srcOff + HEADER_LENGTH, compressedLen, dst, dstOff, originalLen);
+        checkDecompressedLength(decompressedLen, originalLen);
+
+        return originalLen;
+    }
+
+    private static int readIntLE(byte[] buf, int offset) {
+        return (buf[offset] & 0xFF)
+                | ((buf[offset + 1] & 0xFF) << 8)
+                | ((buf[offset + 2] & 0xFF) << 16)
+                | ((buf[offset + 3] & 0xFF) << 24);
+    }
+
+    private static void validateLength(int compressedLen, int originalLen)
+            throws DataCorruptionException {
+        if (originalLen < 0
+                || compressedLen < 0
+                || (originalLen == 0 && compressedLen != 0)
+                || (originalLen != 0 && compressedLen == 0)) {
+            throw new DataCorruptionException("Input is corrupted, invalid length.");
+        }
+    }
+
+    private static void checkDecompressedLength(int decompressedLen, int originalLen)
+            throws DataCorruptionException {
+        if (decompressedLen != originalLen) {
+            throw new DataCorruptionException("Input is corrupted, unexpected original length.");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Encode data into Snappy format. */
+public class SnappyBlockCompressor extends AbstractBlockCompressor {
+
+    @Override
+    protected int maxCompressedLength(int srcLen) {
+        return Snappy.maxCompressedLength(srcLen);
+    }
+
+    @Override
+    protected int compressArray(
+            byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+        // snappy does not check the bounds of the target
+        checkTargetLength(srcLen, dstLen);
+        try {
+            return Snappy.compress(src, srcOff, srcLen, dst, dstOff);
+        } catch (IOException e) {
+            throw new InsufficientBufferException(e);
+        }
+    }
+
+    @Override
+    protected int compressDirect(
+            ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff, int dstLen) {
+        checkTargetLength(srcLen, dstLen);
+        src.limit(srcOff + srcLen);
+        src.position(srcOff);
+        dst.limit(dstOff + dstLen);
+        dst.position(dstOff);
+        try {
+            return Snappy.compress(src, dst);
+        } catch (IOException e) {
+            throw new InsufficientBufferException(e);
+        }
+    }
+
+    private static void checkTargetLength(int srcLen, int dstLen) {
+        if (dstLen < Snappy.maxCompressedLength(srcLen)) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+    }
+}
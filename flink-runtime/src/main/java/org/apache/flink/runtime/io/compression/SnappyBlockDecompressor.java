@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Decode data written with {@link SnappyBlockCompressor}. */
+public class SnappyBlockDecompressor extends AbstractBlockDecompressor {
+
+    @Override
+    protected int decompressArray(
+            byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLen) {
+        try {
+            // snappy does not check the bounds of the target
+            checkOriginalLength(Snappy.uncompressedLength(src, srcOff, srcLen), originalLen);
+            return Snappy.uncompress(src, srcOff, srcLen, dst, dstOff);
+        } catch (IOException e) {
+            throw new DataCorruptionException("Input is corrupted", e);
+        }
+    }
+
+    @Override
+    protected int decompressDirect(
+            ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff, int originalLen) {
+        src.limit(srcOff + srcLen);
+        src.position(srcOff);
+        dst.limit(dstOff + originalLen);
+        dst.position(dstOff);
+        try {
+            checkOriginalLength(Snappy.uncompressedLength(src), originalLen);
+            return Snappy.uncompress(src, dst);
+        } catch (IOException e) {
+            throw new DataCorruptionException("Input is corrupted", e);
+        }
+    }
+
+    private static void checkOriginalLength(int uncompressedLen, int originalLen) {
+        if (uncompressedLen != originalLen) {
+            throw new DataCorruptionException("Input is corrupted, unexpected original length.");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import com.github.luben.zstd.Zstd;
+
+import java.nio.ByteBuffer;
+
+/** Encode data into Zstandard format with the configured compression level. */
+public class ZstdBlockCompressor extends AbstractBlockCompressor {
+
+    private final int level;
+
+    public ZstdBlockCompressor(int level) {
+        this.level = level;
+    }
+
+    @Override
+    protected int maxCompressedLength(int srcLen) {
+        return (int) Zstd.compressBound(srcLen);
+    }
+
+    @Override
+    protected int compressArray(
+            byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+        return checkResult(Zstd.compressByteArray(dst, dstOff, dstLen, src, srcOff, srcLen, level));
+    }
+
+    @Override
+    protected int compressDirect(
+            ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff, int dstLen) {
+        return checkResult(
+                Zstd.compressDirectByteBuffer(dst, dstOff, dstLen, src, srcOff, srcLen, level));
+    }
+
+    private static int checkResult(long result) {
+        if (Zstd.isError(result)) {
+            // the target being too small is the only error expected for valid arguments
+            throw new InsufficientBufferException(Zstd.getErrorName(result));
+        }
+        return (int) result;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk;
+
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A fixed-size {@link MemorySegment} pool shared by all readers of the sort-merge blocking result
+ * partitions of a TaskManager. The memory is allocated when it is requested for the first time, so
+ * TaskManagers which never read sort-merge blocking result partitions don't pay for it.
+ */
+public class BatchShuffleReadBufferPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchShuffleReadBufferPool.class);
+
+    /** Memory size in bytes which can be used by a single request. */
+    private static final int NUM_BYTES_PER_REQUEST = 4 * 1024 * 1024;
+
+    /** Total memory size in bytes of this buffer pool. */
+    private final long totalBytes;
+
+    /** Size of each buffer in bytes in this buffer pool. */
+    private final int bufferSize;
+
+    /** Total number of buffers in this buffer pool. */
+    private final int numTotalBuffers;
+
+    /** Maximum number of buffers returned by a single request. */
+    private final int numBuffersPerRequest;
+
+    /** All available buffers in this buffer pool. */
+    @GuardedBy("buffers")
+    private final Queue<MemorySegment> buffers = new ArrayDeque<>();
+
+    /** Whether the memory of this buffer pool has been allocated or not. */
+    @GuardedBy("buffers")
+    private boolean initialized;
+
+    /** Whether this buffer pool has been destroyed or not. */
+    @GuardedBy("buffers")
+    private boolean destroyed;
+
+    public BatchShuffleReadBufferPool(long totalBytes, int bufferSize) {
+        checkArgument(bufferSize > 0, "Illegal buffer size, must be positive.");
+        checkArgument(
+                totalBytes >= bufferSize,
+                String.format(
+                        "The configured memory size for batch shuffle read (%d bytes) is smaller "
+                                + "than the buffer size (%d bytes), please increase %s.",
+                        totalBytes,
+                        bufferSize,
+                        NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_READ_MEMORY.key()));
+        checkArgument(
+                totalBytes / bufferSize <= Integer.MAX_VALUE,
+                "The configured memory size for batch shuffle read is too large.");
+
+        this.totalBytes = totalBytes;
+        this.bufferSize = bufferSize;
+        this.numTotalBuffers = (int) (totalBytes / bufferSize);
+        this.numBuffersPerRequest =
+                Math.min(numTotalBuffers, Math.max(1, NUM_BYTES_PER_REQUEST / bufferSize));
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getNumTotalBuffers() {
+        return numTotalBuffers;
+    }
+
+    public int getNumBuffersPerRequest() {
+        return numBuffersPerRequest;
+    }
+
+    public int getNumAvailableBuffers() {
+        synchronized (buffers) {
+            return initialized ? buffers.size() : numTotalBuffers;
+        }
+    }
+
+    @GuardedBy("buffers")
+    private void initialize() {
+        LOG.info(
+                "Allocating {} bytes of direct memory for batch shuffle read ({} buffers).",
+                totalBytes,
+                numTotalBuffers);
+
+        try {
+            for (int i = 0; i < numTotalBuffers; ++i) {
+                buffers.add(MemorySegmentFactory.allocateUnpooledOffHeapMemory(bufferSize, null));
+            }
+        } catch (OutOfMemoryError outOfMemoryError) {
+            int allocated = buffers.size();
+            buffers.forEach(MemorySegment::free);
+            buffers.clear();
+            throw new OutOfMemoryError(
+                    String.format(
+                            "Can not allocate enough direct memory for batch shuffle read "
+                                    + "(bytes allocated: %d, bytes still needed: %d). Please "
+                                    + "decrease %s or increase the size of direct memory.",
+                            (long) allocated * bufferSize,
+                            (long) (numTotalBuffers - allocated) * bufferSize,
+                            NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_READ_MEMORY.key()));
+        }
+        initialized = true;
+    }
+
+    /**
+     * Requests at most {@link #getNumBuffersPerRequest()} buffers from this buffer pool. Returns an
+     * empty list if no buffer is available at the moment.
+     */
+    public List<MemorySegment> requestBuffers() {
+        List<MemorySegment> allocated = new ArrayList<>(numBuffersPerRequest);
+        synchronized (buffers) {
+            checkState(!destroyed, "Buffer pool is already destroyed.");
+
+            if (!initialized) {
+                initialize();
+            }
+
+            while (allocated.size() < numBuffersPerRequest && !buffers.isEmpty()) {
+                allocated.add(buffers.poll());
+            }
+        }
+        return allocated;
+    }
+
+    /** Recycles the target buffer to this buffer pool. */
+    public void recycle(MemorySegment segment) {
+        checkNotNull(segment);
+        synchronized (buffers) {
+            if (destroyed) {
+                segment.free();
+                return;
+            }
+            buffers.add(segment);
+        }
+    }
+
+    /** Recycles a collection of buffers to this buffer pool. */
+    public void recycle(Collection<MemorySegment> segments) {
+        checkNotNull(segments);
+        synchronized (buffers) {
+            if (destroyed) {
+                segments.forEach(MemorySegment::free);
+                return;
+            }
+            buffers.addAll(segments);
+        }
+    }
+
+    /** Destroys this buffer pool, the buffers recycled afterwards are freed. */
+    public void destroy() {
+        synchronized (buffers) {
+            destroyed = true;
+
+            buffers.forEach(MemorySegment::free);
+            buffers.clear();
+        }
+    }
+
+    public boolean isDestroyed() {
+        synchronized (buffers) {
+            return destroyed;
+        }
+    }
+}
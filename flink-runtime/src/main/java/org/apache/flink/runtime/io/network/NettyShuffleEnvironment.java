@@ -25,6 +25,7 @@ import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.executiongraph.PartitionInfo;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
@@ -58,6 +59,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import static org.apache.flink.runtime.io.network.metrics.NettyShuffleMetricFactory.METRIC_GROUP_INPUT;
 import static org.apache.flink.runtime.io.network.metrics.NettyShuffleMetricFactory.METRIC_GROUP_OUTPUT;
@@ -99,6 +101,10 @@ public class NettyShuffleEnvironment
 
     private final Executor ioExecutor;
 
+    private final BatchShuffleReadBufferPool batchShuffleReadBufferPool;
+
+    private final ExecutorService batchShuffleReadIOExecutor;
+
     private boolean isClosed;
 
     NettyShuffleEnvironment(
@@ -110,7 +116,9 @@ public class NettyShuffleEnvironment
             FileChannelManager fileChannelManager,
             ResultPartitionFactory resultPartitionFactory,
             SingleInputGateFactory singleInputGateFactory,
-            Executor ioExecutor) {
+            Executor ioExecutor,
+            BatchShuffleReadBufferPool batchShuffleReadBufferPool,
+            ExecutorService batchShuffleReadIOExecutor) {
         this.taskExecutorResourceId = taskExecutorResourceId;
         this.config = config;
         this.networkBufferPool = networkBufferPool;
@@ -121,6 +129,8 @@ public class NettyShuffleEnvironment
         this.resultPartitionFactory = resultPartitionFactory;
         this.singleInputGateFactory = singleInputGateFactory;
         this.ioExecutor = ioExecutor;
+        this.batchShuffleReadBufferPool = batchShuffleReadBufferPool;
+        this.batchShuffleReadIOExecutor = batchShuffleReadIOExecutor;
         this.isClosed = false;
     }
 
@@ -356,6 +366,19 @@ public class NettyShuffleEnvironment
                 LOG.warn("Network buffer pool did not shut down properly.", t);
             }
 
+            // stop reading the sort-merge result partitions and free the read buffers
+            try {
+                batchShuffleReadIOExecutor.shutdown();
+            } catch (Throwable t) {
+                LOG.warn("Cannot shut down batch shuffle read IO executor properly.", t);
+            }
+
+            try {
+                batchShuffleReadBufferPool.destroy();
+            } catch (Throwable t) {
+                LOG.warn("Cannot shut down batch shuffle read buffer pool properly.", t);
+            }
+
             // delete all the temp directories
             try {
                 fileChannelManager.close();
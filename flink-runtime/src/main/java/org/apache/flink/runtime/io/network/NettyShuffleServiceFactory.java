@@ -20,8 +20,11 @@ package org.apache.flink.runtime.io.network;
 
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
@@ -37,9 +40,13 @@ import org.apache.flink.runtime.shuffle.NettyShuffleMaster;
 import org.apache.flink.runtime.shuffle.ShuffleEnvironmentContext;
 import org.apache.flink.runtime.shuffle.ShuffleServiceFactory;
 import org.apache.flink.runtime.taskmanager.NettyShuffleEnvironmentConfiguration;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static org.apache.flink.runtime.io.network.metrics.NettyShuffleMetricFactory.registerBatchShuffleReadMetrics;
 import static org.apache.flink.runtime.io.network.metrics.NettyShuffleMetricFactory.registerShuffleMetrics;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -49,6 +56,8 @@ public class NettyShuffleServiceFactory
 
     private static final String DIR_NAME_PREFIX = "netty-shuffle";
 
+    private static final String BATCH_SHUFFLE_READ_THREAD_NAME = "blocking-shuffle-io";
+
     @Override
     public NettyShuffleMaster createShuffleMaster(Configuration configuration) {
         return NettyShuffleMaster.INSTANCE;
@@ -121,6 +130,19 @@ public class NettyShuffleServiceFactory
 
         registerShuffleMetrics(metricGroup, networkBufferPool);
 
+        // the read buffers are allocated lazily, only when sort-merge partitions are read
+        BatchShuffleReadBufferPool batchShuffleReadBufferPool =
+                new BatchShuffleReadBufferPool(
+                        config.sortShuffleReadMemoryBytes(), config.networkBufferSize());
+        // one read thread per temp directory, which is usually one per disk
+        ExecutorService batchShuffleReadIOExecutor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, config.getTempDirs().length),
+                        new ExecutorThreadFactory(BATCH_SHUFFLE_READ_THREAD_NAME));
+        Counter batchShuffleReadBytes = new SimpleCounter();
+        registerBatchShuffleReadMetrics(
+                metricGroup, batchShuffleReadBufferPool, batchShuffleReadBytes);
+
         ResultPartitionFactory resultPartitionFactory =
                 new ResultPartitionFactory(
                         resultPartitionManager,
@@ -131,11 +153,15 @@ public class NettyShuffleServiceFactory
                         config.floatingNetworkBuffersPerGate(),
                         config.networkBufferSize(),
                         config.isBlockingShuffleCompressionEnabled(),
-                        config.getCompressionCodec(),
+                        config.getBlockingShuffleCompressionCodec(),
+                        config.getCompressionZstdLevel(),
                         config.getMaxBuffersPerChannel(),
                         config.sortShuffleMinBuffers(),
                         config.sortShuffleMinParallelism(),
-                        config.isSSLEnabled());
+                        config.isSSLEnabled(),
+                        batchShuffleReadBufferPool,
+                        batchShuffleReadIOExecutor,
+                        batchShuffleReadBytes);
 
         SingleInputGateFactory singleInputGateFactory =
                 new SingleInputGateFactory(
@@ -155,6 +181,8 @@ public class NettyShuffleServiceFactory
                 fileChannelManager,
                 resultPartitionFactory,
                 singleInputGateFactory,
-                ioExecutor);
+                ioExecutor,
+                batchShuffleReadBufferPool,
+                batchShuffleReadIOExecutor);
     }
 }
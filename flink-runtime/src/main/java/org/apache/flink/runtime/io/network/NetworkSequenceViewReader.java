@@ -33,10 +33,23 @@ import java.io.IOException;
  */
 public interface NetworkSequenceViewReader {
 
-    void requestSubpartitionView(
+    default void requestSubpartitionView(
             ResultPartitionProvider partitionProvider,
             ResultPartitionID resultPartitionId,
             int subPartitionIndex)
+            throws IOException {
+        requestSubpartitionView(partitionProvider, resultPartitionId, subPartitionIndex, 1);
+    }
+
+    /**
+     * Requests a view reading the given number of consecutive subpartitions, starting at the given
+     * subpartition index, one after the other.
+     */
+    void requestSubpartitionView(
+            ResultPartitionProvider partitionProvider,
+            ResultPartitionID resultPartitionId,
+            int subPartitionIndex,
+            int numberOfSubpartitions)
             throws IOException;
 
     @Nullable
@@ -52,6 +65,13 @@ public interface NetworkSequenceViewReader {
     /** Resumes data consumption after an exactly once checkpoint. */
     void resumeConsumption();
 
+    /**
+     * Notifies the size of the buffers that the consumer would like to receive.
+     *
+     * @param newBufferSize The new buffer size in bytes.
+     */
+    void notifyNewBufferSize(int newBufferSize);
+
     /**
      * Checks whether this reader is available or not.
      *
@@ -56,6 +56,14 @@ public interface PartitionRequestClient {
      */
     void resumeConsumption(RemoteInputChannel inputChannel);
 
+    /**
+     * Announces the size of the buffers that one remote input channel would like to receive.
+     *
+     * @param inputChannel The remote input channel which announces the buffer size.
+     * @param bufferSize The new buffer size in bytes.
+     */
+    void notifyNewBufferSize(RemoteInputChannel inputChannel, int bufferSize);
+
     /**
      * Sends a task event backwards to an intermediate result partition.
      *
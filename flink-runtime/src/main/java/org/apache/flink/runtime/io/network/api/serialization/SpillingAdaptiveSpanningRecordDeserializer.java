@@ -21,6 +21,8 @@ package org.apache.flink.runtime.io.network.api.serialization;
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
+import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.util.CloseableIterator;
 
 import javax.annotation.Nullable;
@@ -30,6 +32,7 @@ import java.io.IOException;
 import static org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult.INTERMEDIATE_RECORD_FROM_BUFFER;
 import static org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult.LAST_RECORD_FROM_BUFFER;
 import static org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult.PARTIAL_RECORD;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /** @param <T> The type of the record to be deserialized. */
 public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWritable>
@@ -47,6 +50,9 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 
     @Nullable private Buffer currentBuffer;
 
+    /** The current buffer if it holds records as objects, which need no deserialization. */
+    @Nullable private ObjectBuffer currentObjectBuffer;
+
     public SpillingAdaptiveSpanningRecordDeserializer(String[] tmpDirectories) {
         this(tmpDirectories, DEFAULT_THRESHOLD_FOR_SPILLING, DEFAULT_FILE_BUFFER_SIZE);
     }
@@ -65,6 +71,15 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
     public void setNextBuffer(Buffer buffer) throws IOException {
         currentBuffer = buffer;
 
+        if (buffer instanceof ObjectBuffer) {
+            checkState(
+                    !nonSpanningWrapper.hasRemaining()
+                            && spanningWrapper.getNumGatheredBytes() == 0,
+                    "Object buffers must start with a complete record.");
+            currentObjectBuffer = (ObjectBuffer) buffer;
+            return;
+        }
+
         int offset = buffer.getMemorySegmentOffset();
         MemorySegment segment = buffer.getMemorySegment();
         int numBytes = buffer.getSize();
@@ -79,6 +94,12 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 
     @Override
     public CloseableIterator<Buffer> getUnconsumedBuffer() throws IOException {
+        if (currentObjectBuffer != null) {
+            return currentObjectBuffer.readableBytes() > 0
+                    ? CloseableIterator.ofElement(
+                            currentObjectBuffer.serialize(), Buffer::recycleBuffer)
+                    : CloseableIterator.empty();
+        }
         return nonSpanningWrapper.hasRemaining()
                 ? nonSpanningWrapper.getUnconsumedSegment()
                 : spanningWrapper.getUnconsumedSegment();
@@ -90,14 +111,27 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
         // this should be the majority of the cases for small records
         // for large records, this portion of the work is very small in comparison anyways
 
-        final DeserializationResult result = readNextRecord(target);
+        final DeserializationResult result =
+                currentObjectBuffer != null ? readNextObject(target) : readNextRecord(target);
         if (result.isBufferConsumed()) {
             currentBuffer.recycleBuffer();
             currentBuffer = null;
+            currentObjectBuffer = null;
         }
         return result;
     }
 
+    @SuppressWarnings("unchecked")
+    private DeserializationResult readNextObject(T target) {
+        checkState(
+                target instanceof DeserializationDelegate,
+                "Object buffers can only be read into a DeserializationDelegate.");
+        ((DeserializationDelegate<Object>) target).setInstance(currentObjectBuffer.nextRecord());
+        return currentObjectBuffer.readableBytes() > 0
+                ? INTERMEDIATE_RECORD_FROM_BUFFER
+                : LAST_RECORD_FROM_BUFFER;
+    }
+
     private DeserializationResult readNextRecord(T target) throws IOException {
         if (nonSpanningWrapper.hasCompleteLength()) {
             return readNonSpanningRecord(target);
@@ -138,6 +172,7 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
             currentBuffer.recycleBuffer();
             currentBuffer = null;
         }
+        currentObjectBuffer = null;
         nonSpanningWrapper.clear();
         spanningWrapper.clear();
     }
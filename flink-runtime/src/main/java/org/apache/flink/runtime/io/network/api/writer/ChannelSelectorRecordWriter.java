@@ -42,8 +42,9 @@ public final class ChannelSelectorRecordWriter<T extends IOReadableWritable>
             ResultPartitionWriter writer,
             ChannelSelector<T> channelSelector,
             long timeout,
-            String taskName) {
-        super(writer, timeout, taskName);
+            String taskName,
+            boolean objectExchange) {
+        super(writer, timeout, taskName, objectExchange);
 
         this.channelSelector = checkNotNull(channelSelector);
         this.channelSelector.setup(numberOfChannels);
@@ -19,11 +19,13 @@
 package org.apache.flink.runtime.io.network.api.writer;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.AvailabilityProvider;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
+import org.apache.flink.runtime.plugable.SerializationDelegate;
 import org.apache.flink.util.XORShiftRandom;
 
 import org.slf4j.Logger;
@@ -64,6 +66,27 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
 
     protected final boolean flushAlways;
 
+    /**
+     * Whether records are handed over as objects to the subpartitions that are consumed in the same
+     * TaskManager. This requires the records to be {@link SerializationDelegate
+     * SerializationDelegates}.
+     */
+    private final boolean objectExchange;
+
+    /** The serializer passed along with records that are handed over as objects. */
+    @Nullable private TypeSerializer<Object> objectSerializer;
+
+    /**
+     * The serialized size of the records handed over as objects is sampled once per this many
+     * records, unless the records have a fixed length.
+     */
+    private static final int OBJECT_SIZE_SAMPLE_INTERVAL = 64;
+
+    /** The last sampled serialized size of the records handed over as objects. */
+    private int sampledObjectSize;
+
+    private int numObjectsSinceSample;
+
     /** The thread that periodically flushes the output, to give an upper latency bound. */
     @Nullable private final OutputFlusher outputFlusher;
 
@@ -78,7 +101,13 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
     private static final int VOLATILE_FLUSHER_EXCEPTION_MAX_CHECK_SKIP_COUNT = 100;
 
     RecordWriter(ResultPartitionWriter writer, long timeout, String taskName) {
+        this(writer, timeout, taskName, false);
+    }
+
+    RecordWriter(
+            ResultPartitionWriter writer, long timeout, String taskName, boolean objectExchange) {
         this.targetPartition = writer;
+        this.objectExchange = objectExchange;
         this.numberOfChannels = writer.getNumberOfSubpartitions();
 
         this.serializer = new DataOutputSerializer(128);
@@ -101,13 +130,47 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
     protected void emit(T record, int targetSubpartition) throws IOException {
         checkErroneous();
 
-        targetPartition.emitRecord(serializeRecord(serializer, record), targetSubpartition);
+        if (objectExchange && targetPartition.isObjectExchange(targetSubpartition)) {
+            emitObject(record, targetSubpartition);
+        } else {
+            targetPartition.emitRecord(serializeRecord(serializer, record), targetSubpartition);
+        }
 
         if (flushAlways) {
             targetPartition.flush(targetSubpartition);
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void emitObject(T record, int targetSubpartition) throws IOException {
+        final SerializationDelegate<Object> delegate = (SerializationDelegate<Object>) record;
+        final TypeSerializer<Object> recordSerializer = delegate.getSerializer();
+        if (objectSerializer == null) {
+            // the consumers may use the serializer for the records handed over to them
+            objectSerializer = recordSerializer.duplicate();
+        }
+
+        // the emitting operator may modify or reuse the record afterwards, so the consumer gets a
+        // copy as with chained operators without object reuse
+        targetPartition.emitObject(
+                recordSerializer.copy(delegate.getInstance()),
+                estimateSerializedSize(record, recordSerializer.getLength()),
+                objectSerializer,
+                targetSubpartition);
+    }
+
+    /** Estimates the size of the record as serialized by {@link #serializeRecord}. */
+    private int estimateSerializedSize(T record, int fixedLength) throws IOException {
+        if (fixedLength > 0) {
+            return fixedLength + 4;
+        }
+        if (numObjectsSinceSample == 0) {
+            sampledObjectSize = serializeRecord(serializer, record).remaining();
+        }
+        numObjectsSinceSample = (numObjectsSinceSample + 1) % OBJECT_SIZE_SAMPLE_INTERVAL;
+        return sampledObjectSize;
+    }
+
     public void broadcastEvent(AbstractEvent event) throws IOException {
         broadcastEvent(event, false);
     }
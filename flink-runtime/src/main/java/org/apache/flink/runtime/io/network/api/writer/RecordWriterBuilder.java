@@ -29,6 +29,8 @@ public class RecordWriterBuilder<T extends IOReadableWritable> {
 
     private String taskName = "test";
 
+    private boolean objectExchange = false;
+
     public RecordWriterBuilder<T> setChannelSelector(ChannelSelector<T> selector) {
         this.selector = selector;
         return this;
@@ -44,11 +46,23 @@ public class RecordWriterBuilder<T extends IOReadableWritable> {
         return this;
     }
 
+    /**
+     * Sets whether records are handed over as objects to the subpartitions that are consumed in the
+     * same TaskManager, instead of being serialized. This requires the records to be {@link
+     * org.apache.flink.runtime.plugable.SerializationDelegate SerializationDelegates}. It has no
+     * effect for broadcast writers.
+     */
+    public RecordWriterBuilder<T> setObjectExchange(boolean objectExchange) {
+        this.objectExchange = objectExchange;
+        return this;
+    }
+
     public RecordWriter<T> build(ResultPartitionWriter writer) {
         if (selector.isBroadcast()) {
             return new BroadcastRecordWriter<>(writer, timeout, taskName);
         } else {
-            return new ChannelSelectorRecordWriter<>(writer, selector, timeout, taskName);
+            return new ChannelSelectorRecordWriter<>(
+                    writer, selector, timeout, taskName, objectExchange);
         }
     }
 }
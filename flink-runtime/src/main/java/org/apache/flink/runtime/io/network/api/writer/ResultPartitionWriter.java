@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network.api.writer;
 
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.AvailabilityProvider;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
@@ -62,6 +63,29 @@ public interface ResultPartitionWriter extends AutoCloseable, AvailabilityProvid
      */
     void broadcastRecord(ByteBuffer record) throws IOException;
 
+    /**
+     * Returns whether records for the target subpartition can be handed over as objects via {@link
+     * #emitObject(Object, int, TypeSerializer, int)}, because the subpartition is consumed in the
+     * same TaskManager.
+     */
+    boolean isObjectExchange(int targetSubpartition);
+
+    /**
+     * Writes the given record to the target subpartition without serializing it. The record must
+     * not be modified afterwards.
+     *
+     * @param record the record to hand over to the consumer
+     * @param recordSize the estimated serialized size of the record, which bounds the records of a
+     *     buffer as if they were serialized
+     * @param serializer a serializer of the record which is used if the record has to be serialized
+     *     after all, e.g. as in-flight data of an unaligned checkpoint. It must not be used
+     *     elsewhere, because the serialization may happen in another thread.
+     * @param targetSubpartition the subpartition, for which {@link #isObjectExchange(int)} is true
+     */
+    void emitObject(
+            Object record, int recordSize, TypeSerializer<?> serializer, int targetSubpartition)
+            throws IOException;
+
     /** Writes the given {@link AbstractEvent} to all channels. */
     void broadcastEvent(AbstractEvent event, boolean isPriorityEvent) throws IOException;
 
@@ -44,9 +44,13 @@ public class BufferBuilder {
 
     private boolean bufferConsumerCreated = false;
 
+    /** The maximum number of bytes this builder accepts, at most the size of the segment. */
+    private int maxCapacity;
+
     public BufferBuilder(MemorySegment memorySegment, BufferRecycler recycler) {
         this.memorySegment = checkNotNull(memorySegment);
         this.recycler = checkNotNull(recycler);
+        this.maxCapacity = memorySegment.size();
     }
 
     /**
@@ -144,7 +148,17 @@ public class BufferBuilder {
     }
 
     public int getMaxCapacity() {
-        return memorySegment.size();
+        return maxCapacity;
+    }
+
+    /**
+     * Limits the number of bytes this builder accepts. The capacity never falls below the bytes
+     * already written and never exceeds the size of the underlying {@link MemorySegment}.
+     *
+     * @param newSize the desired capacity in bytes
+     */
+    public void trim(int newSize) {
+        maxCapacity = Math.min(Math.max(newSize, positionMarker.getCached()), memorySegment.size());
     }
 
     @VisibleForTesting
@@ -22,6 +22,7 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.compression.BlockCompressor;
+import org.apache.flink.runtime.io.compression.ZstdBlockCompressionFactory;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -37,17 +38,22 @@ public class BufferCompressor {
     private final NetworkBuffer internalBuffer;
 
     public BufferCompressor(int bufferSize, String factoryName) {
+        this(bufferSize, factoryName, ZstdBlockCompressionFactory.DEFAULT_LEVEL);
+    }
+
+    public BufferCompressor(int bufferSize, String factoryName, int zstdLevel) {
         checkArgument(bufferSize > 0);
         checkNotNull(factoryName);
         // the size of this intermediate heap buffer will be gotten from the
         // plugin configuration in the future, and currently, double size of
-        // the input buffer is enough for lz4-java compression library.
+        // the input buffer is enough for all the built-in compression codecs.
         final byte[] heapBuffer = new byte[2 * bufferSize];
         this.internalBuffer =
                 new NetworkBuffer(
                         MemorySegmentFactory.wrap(heapBuffer), FreeingBufferRecycler.INSTANCE);
         this.blockCompressor =
-                BlockCompressionFactory.createBlockCompressionFactory(factoryName).getCompressor();
+                BlockCompressionFactory.createBlockCompressionFactory(factoryName, zstdLevel)
+                        .getCompressor();
     }
 
     /**
@@ -80,7 +80,7 @@ public class BufferConsumer implements Closeable {
                 "BufferConsumer with static size must be finished after construction!");
     }
 
-    private BufferConsumer(
+    BufferConsumer(
             Buffer buffer,
             BufferBuilder.PositionMarker currentWriterPosition,
             int currentReaderPosition) {
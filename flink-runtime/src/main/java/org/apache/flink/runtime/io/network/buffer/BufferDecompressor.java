@@ -18,7 +18,6 @@
 
 package org.apache.flink.runtime.io.network.buffer;
 
-import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
@@ -75,7 +74,6 @@ public class BufferDecompressor {
      * <p>The caller must guarantee that the input {@link Buffer} is writable and there's enough
      * space left.
      */
-    @VisibleForTesting
     public Buffer decompressToOriginalBuffer(Buffer buffer) {
         int decompressedLen = decompress(buffer);
 
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBufAllocator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A {@link Buffer} that holds records as object references instead of serialized bytes. It is
+ * written by an {@link ObjectBufferBuilder} and hands records over from a producer to a consumer in
+ * the same TaskManager without serializing and deserializing them.
+ *
+ * <p>All indexes and sizes of this buffer count records instead of bytes. The records can be read
+ * one after another via {@link #nextRecord()}. If the records have to leave the JVM, for example as
+ * in-flight data of an unaligned checkpoint, {@link #serialize()} creates a regular buffer with the
+ * serialized records.
+ *
+ * <p>Each object buffer occupies a network buffer of the producer's buffer pool until it is
+ * recycled and holds at most as many records as would fit into that buffer serialized, according to
+ * their estimated serialized size. That way, the records in flight are bounded and backpressure
+ * works as for serialized records. The memory itself is not used.
+ *
+ * <p>Because the buffer does not hold its data in a {@link MemorySegment}, the methods accessing
+ * the memory throw {@link UnsupportedOperationException}.
+ */
+public class ObjectBuffer implements Buffer {
+
+    /** The records and the network buffer shared by an object buffer and all its slices. */
+    private final Records records;
+
+    /** The index of the first record of this buffer in the shared records. */
+    private final int offset;
+
+    /** The number of records of this buffer. */
+    private final int size;
+
+    private int readerIndex;
+
+    ObjectBuffer(
+            Object[] records,
+            int[] recordEnds,
+            BufferBuilder memory,
+            TypeSerializer<?> serializer) {
+        this(new Records(records, recordEnds, memory, serializer), 0, records.length);
+    }
+
+    private ObjectBuffer(Records records, int offset, int size) {
+        this.records = records;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /** Returns the next unread record and advances the reader index. */
+    public Object nextRecord() {
+        checkState(readerIndex < size, "No more records.");
+        return records.records[offset + readerIndex++];
+    }
+
+    /**
+     * Returns the estimated serialized size of the records of this buffer, so that the throughput
+     * of object buffers can be measured in bytes like that of the regular buffers.
+     */
+    public int getOccupiedBytes() {
+        return records.endOf(offset + size) - records.endOf(offset);
+    }
+
+    /**
+     * Serializes the unread records into a new buffer, in the same format as they would be written
+     * by the {@link org.apache.flink.runtime.io.network.api.writer.RecordWriter}. The reader index
+     * of this buffer is not changed.
+     */
+    public Buffer serialize() throws IOException {
+        final DataOutputSerializer target = new DataOutputSerializer(64);
+        // the serializer is shared by the producer's buffers which might be serialized
+        // concurrently by the producer and the consumer
+        final TypeSerializer<Object> serializer = records.serializer.duplicate();
+        for (int i = readerIndex; i < size; i++) {
+            final int lengthPosition = target.length();
+            target.writeInt(0);
+            serializer.serialize(records.records[offset + i], target);
+            target.writeIntUnsafe(target.length() - lengthPosition - 4, lengthPosition);
+        }
+
+        final int length = target.length();
+        return new NetworkBuffer(
+                MemorySegmentFactory.wrap(target.getSharedBuffer()),
+                FreeingBufferRecycler.INSTANCE,
+                DataType.DATA_BUFFER,
+                length);
+    }
+
+    // ------------------------------------------------------------------------
+    // Buffer override methods
+    // ------------------------------------------------------------------------
+
+    @Override
+    public boolean isBuffer() {
+        return true;
+    }
+
+    @Override
+    public MemorySegment getMemorySegment() {
+        throw new UnsupportedOperationException("Object buffers are not backed by memory.");
+    }
+
+    @Override
+    public int getMemorySegmentOffset() {
+        throw new UnsupportedOperationException("Object buffers are not backed by memory.");
+    }
+
+    @Override
+    public BufferRecycler getRecycler() {
+        return null;
+    }
+
+    @Override
+    public void recycleBuffer() {
+        records.release();
+    }
+
+    @Override
+    public boolean isRecycled() {
+        return records.referenceCount.get() == 0;
+    }
+
+    @Override
+    public ObjectBuffer retainBuffer() {
+        records.retain();
+        return this;
+    }
+
+    @Override
+    public ObjectBuffer readOnlySlice() {
+        return readOnlySlice(readerIndex, size - readerIndex);
+    }
+
+    @Override
+    public ObjectBuffer readOnlySlice(int index, int length) {
+        checkArgument(index >= 0 && length >= 0 && index + length <= size);
+        return new ObjectBuffer(records, offset + index, length);
+    }
+
+    @Override
+    public int getMaxCapacity() {
+        return records.records.length;
+    }
+
+    @Override
+    public int getReaderIndex() {
+        return readerIndex;
+    }
+
+    @Override
+    public void setReaderIndex(int readerIndex) throws IndexOutOfBoundsException {
+        if (readerIndex < 0 || readerIndex > size) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.readerIndex = readerIndex;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public void setSize(int writerIndex) {
+        throw new UnsupportedOperationException("Object buffers are read-only.");
+    }
+
+    @Override
+    public int readableBytes() {
+        return size - readerIndex;
+    }
+
+    @Override
+    public ByteBuffer getNioBufferReadable() {
+        throw new UnsupportedOperationException("Object buffers are not backed by memory.");
+    }
+
+    @Override
+    public ByteBuffer getNioBuffer(int index, int length) throws IndexOutOfBoundsException {
+        throw new UnsupportedOperationException("Object buffers are not backed by memory.");
+    }
+
+    @Override
+    public void setAllocator(ByteBufAllocator allocator) {
+        // nothing to do
+    }
+
+    @Override
+    public ByteBuf asByteBuf() {
+        throw new UnsupportedOperationException("Object buffers are not backed by memory.");
+    }
+
+    @Override
+    public boolean isCompressed() {
+        return false;
+    }
+
+    @Override
+    public void setCompressed(boolean isCompressed) {
+        throw new UnsupportedOperationException("Object buffers can not be compressed.");
+    }
+
+    @Override
+    public DataType getDataType() {
+        return DataType.DATA_BUFFER;
+    }
+
+    @Override
+    public void setDataType(DataType dataType) {
+        throw new UnsupportedOperationException("Object buffers always hold data.");
+    }
+
+    @Override
+    public String toDebugString(boolean includeHash) {
+        return "ObjectBuffer{records=" + size + "}";
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static final class Records {
+
+        private final Object[] records;
+
+        /** The estimated serialized size of the records up to and including each record. */
+        private final int[] recordEnds;
+
+        private final BufferBuilder memory;
+
+        private final TypeSerializer<Object> serializer;
+
+        private final AtomicInteger referenceCount = new AtomicInteger(1);
+
+        @SuppressWarnings("unchecked")
+        private Records(
+                Object[] records,
+                int[] recordEnds,
+                BufferBuilder memory,
+                TypeSerializer<?> serializer) {
+            checkArgument(records.length == recordEnds.length);
+            this.records = records;
+            this.recordEnds = recordEnds;
+            this.memory = checkNotNull(memory);
+            this.serializer = (TypeSerializer<Object>) checkNotNull(serializer);
+        }
+
+        /** Returns the estimated serialized size of the records before the given index. */
+        private int endOf(int index) {
+            return index == 0 ? 0 : recordEnds[index - 1];
+        }
+
+        private void retain() {
+            checkState(
+                    referenceCount.getAndIncrement() > 0, "The object buffer has been recycled.");
+        }
+
+        private void release() {
+            final int remaining = referenceCount.decrementAndGet();
+            checkState(remaining >= 0, "The object buffer has already been recycled.");
+            if (remaining == 0) {
+                Arrays.fill(records, null);
+                memory.recycle();
+            }
+        }
+    }
+}
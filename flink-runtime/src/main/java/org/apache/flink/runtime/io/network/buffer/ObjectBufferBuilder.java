@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.io.network.buffer.BufferBuilder.SettablePositionMarker;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Not thread safe class for filling an {@link ObjectBuffer} with records. Similar to the {@link
+ * BufferBuilder}, the records are read by a {@link BufferConsumer}, possibly in another thread,
+ * which sees every record as soon as it has been appended. No locks are involved: the records are
+ * published through the same volatile position marker that the {@link BufferBuilder} uses for
+ * bytes.
+ */
+@NotThreadSafe
+public class ObjectBufferBuilder {
+
+    /**
+     * The estimated serialized size of a record is at least this many bytes. This limits the number
+     * of tiny records of an object buffer and thereby the size of its arrays, which take about 8
+     * bytes of heap per {@code MIN_RECORD_SIZE} bytes of the network buffer that backs it, e.g. 16
+     * KB for a 32 KB network buffer. The heap taken by the records themselves is not accounted, it
+     * is usually larger than their serialized size.
+     */
+    static final int MIN_RECORD_SIZE = 16;
+
+    private final Object[] records;
+
+    /** The estimated serialized size of the records up to and including each record. */
+    private final int[] recordEnds;
+
+    /** The number of bytes that the records may take serialized. */
+    private final int maxRecordBytes;
+
+    private int recordBytes;
+
+    private final ObjectBuffer buffer;
+
+    private final SettablePositionMarker positionMarker = new SettablePositionMarker();
+
+    private boolean bufferConsumerCreated = false;
+
+    /**
+     * Creates an object buffer builder.
+     *
+     * @param memory the network buffer that the object buffer occupies until it is recycled
+     * @param serializer the serializer of the records, used only if the records need to be
+     *     serialized; it must not be used by other threads
+     */
+    public ObjectBufferBuilder(BufferBuilder memory, TypeSerializer<?> serializer) {
+        this.maxRecordBytes = memory.getMaxCapacity();
+        this.records = new Object[Math.max(1, maxRecordBytes / MIN_RECORD_SIZE)];
+        this.recordEnds = new int[records.length];
+        this.buffer = new ObjectBuffer(records, recordEnds, memory, serializer);
+    }
+
+    /**
+     * Creates the {@link BufferConsumer} reading all records of this builder. Only one consumer may
+     * be created.
+     */
+    public BufferConsumer createBufferConsumer() {
+        checkState(
+                !bufferConsumerCreated,
+                "Two BufferConsumer shouldn't exist for one ObjectBufferBuilder");
+        bufferConsumerCreated = true;
+        return new BufferConsumer(buffer, positionMarker, 0);
+    }
+
+    /**
+     * Appends the record and makes it visible to the consumer. The record must not be modified
+     * afterwards.
+     *
+     * @param record the record to append
+     * @param recordSize the estimated serialized size of the record, the builder is full when the
+     *     appended records would fill the network buffer serialized
+     */
+    public void append(Object record, int recordSize) {
+        checkState(!isFinished() && !isFull());
+
+        final int position = positionMarker.getCached();
+        recordBytes += Math.max(MIN_RECORD_SIZE, recordSize);
+        records[position] = record;
+        recordEnds[position] = recordBytes;
+        positionMarker.move(1);
+        positionMarker.commit();
+    }
+
+    /**
+     * Marks this builder as finished - no new records may be appended.
+     *
+     * @return number of appended records.
+     */
+    public int finish() {
+        int numRecords = positionMarker.markFinished();
+        positionMarker.commit();
+        return numRecords;
+    }
+
+    public boolean isFinished() {
+        return positionMarker.isFinished();
+    }
+
+    public boolean isFull() {
+        return positionMarker.getCached() == records.length || recordBytes >= maxRecordBytes;
+    }
+}
@@ -18,7 +18,10 @@
 
 package org.apache.flink.runtime.io.network.metrics;
 
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MeterView;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.partition.ResultPartition;
@@ -53,6 +56,12 @@ public class NettyShuffleMetricFactory {
     private static final String METRIC_USED_MEMORY_SEGMENT = "UsedMemorySegments";
     private static final String METRIC_USED_MEMORY = "UsedMemory";
 
+    private static final String METRIC_SORT_SHUFFLE_READ_AVAILABLE_BUFFERS =
+            "SortShuffleReadAvailableBuffers";
+    private static final String METRIC_SORT_SHUFFLE_READ_BYTES = "SortShuffleReadBytes";
+    private static final String METRIC_SORT_SHUFFLE_READ_BYTES_RATE =
+            "SortShuffleReadBytesPerSecond";
+
     // task level metric group structure: Shuffle.Netty.<Input|Output>.Buffers
 
     private static final String METRIC_GROUP_SHUFFLE = "Shuffle";
@@ -72,6 +81,8 @@ public class NettyShuffleMetricFactory {
     private static final String METRIC_INPUT_POOL_USAGE = "inPoolUsage";
     private static final String METRIC_INPUT_FLOATING_BUFFERS_USAGE = "inputFloatingBuffersUsage";
     private static final String METRIC_INPUT_EXCLUSIVE_BUFFERS_USAGE = "inputExclusiveBuffersUsage";
+    private static final String METRIC_DEBLOATED_BUFFER_SIZE = "debloatedBufferSize";
+    private static final String METRIC_ESTIMATED_IN_FLIGHT_DATA = "estimatedInFlightDataBytes";
 
     private NettyShuffleMetricFactory() {}
 
@@ -116,6 +127,24 @@ public class NettyShuffleMetricFactory {
         networkGroup.gauge(METRIC_USED_MEMORY, networkBufferPool::getUsedMemory);
     }
 
+    /** Registers the metrics of reading sort-merge blocking result partitions. */
+    public static void registerBatchShuffleReadMetrics(
+            MetricGroup metricGroup,
+            BatchShuffleReadBufferPool readBufferPool,
+            Counter numBytesRead) {
+        checkNotNull(metricGroup);
+        checkNotNull(readBufferPool);
+        checkNotNull(numBytesRead);
+
+        MetricGroup networkGroup =
+                metricGroup.addGroup(METRIC_GROUP_SHUFFLE).addGroup(METRIC_GROUP_NETTY);
+
+        networkGroup.gauge(
+                METRIC_SORT_SHUFFLE_READ_AVAILABLE_BUFFERS, readBufferPool::getNumAvailableBuffers);
+        networkGroup.counter(METRIC_SORT_SHUFFLE_READ_BYTES, numBytesRead);
+        networkGroup.meter(METRIC_SORT_SHUFFLE_READ_BYTES_RATE, new MeterView(numBytesRead));
+    }
+
     public static MetricGroup createShuffleIOOwnerMetricGroup(MetricGroup parentGroup) {
         return parentGroup.addGroup(METRIC_GROUP_SHUFFLE).addGroup(METRIC_GROUP_NETTY);
     }
@@ -211,5 +240,8 @@ public class NettyShuffleMetricFactory {
         buffersGroup.gauge(METRIC_INPUT_EXCLUSIVE_BUFFERS_USAGE, exclusiveBuffersUsageGauge);
         buffersGroup.gauge(METRIC_INPUT_FLOATING_BUFFERS_USAGE, floatingBuffersUsageGauge);
         buffersGroup.gauge(METRIC_INPUT_POOL_USAGE, creditBasedInputBuffersUsageGauge);
+        buffersGroup.gauge(METRIC_DEBLOATED_BUFFER_SIZE, new DebloatedBufferSizeGauge(inputGates));
+        buffersGroup.gauge(
+                METRIC_ESTIMATED_IN_FLIGHT_DATA, new EstimatedInFlightDataGauge(inputGates));
     }
 }
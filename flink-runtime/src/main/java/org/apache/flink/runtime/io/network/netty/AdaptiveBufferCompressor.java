@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Compresses the data buffers sent to one remote input channel as long as the compression pays off.
+ *
+ * <p>The compression ratio and time are sampled over {@link #NUM_SAMPLE_BUFFERS} buffers. If the
+ * compression did not pay off for a sample, the following buffers are sent uncompressed before the
+ * compression is sampled again. The number of uncompressed buffers doubles with every sample in a
+ * row that did not pay off, so channels with incompressible data spend little CPU on sampling.
+ */
+class AdaptiveBufferCompressor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveBufferCompressor.class);
+
+    @VisibleForTesting static final int NUM_SAMPLE_BUFFERS = 64;
+
+    @VisibleForTesting static final int MIN_NUM_UNCOMPRESSED_BUFFERS = 1024;
+
+    @VisibleForTesting static final int MAX_NUM_UNCOMPRESSED_BUFFERS = 64 * 1024;
+
+    private final NetworkBufferCompressor bufferCompressor;
+
+    private final InputChannelID receiverId;
+
+    /** Number of buffers of the current sample. */
+    private int numSampledBuffers;
+
+    private long sampledOriginalBytes;
+
+    private long sampledCompressedBytes;
+
+    private long sampledCompressionNanos;
+
+    /** Number of buffers still to be sent uncompressed before the next sample. */
+    private int numRemainingUncompressedBuffers;
+
+    /** Number of buffers sent uncompressed after the next sample which does not pay off. */
+    private int numUncompressedBuffersOnFailure = MIN_NUM_UNCOMPRESSED_BUFFERS;
+
+    AdaptiveBufferCompressor(NetworkBufferCompressor bufferCompressor, InputChannelID receiverId) {
+        this.bufferCompressor = checkNotNull(bufferCompressor);
+        this.receiverId = checkNotNull(receiverId);
+    }
+
+    /**
+     * Returns the compressed buffer and recycles the given one if the buffer is compressed,
+     * otherwise returns the given buffer.
+     */
+    Buffer compressIfPaysOff(Buffer buffer) {
+        if (!buffer.isBuffer() || buffer.isCompressed() || buffer.readableBytes() == 0) {
+            return buffer;
+        }
+
+        if (numRemainingUncompressedBuffers > 0) {
+            --numRemainingUncompressedBuffers;
+            return buffer;
+        }
+
+        // all pooled segments are in flight, the buffer is not sampled
+        if (!bufferCompressor.hasAvailableSegment()) {
+            return buffer;
+        }
+
+        int originalSize = buffer.getSize();
+        long startTime = System.nanoTime();
+        Buffer compressedBuffer = bufferCompressor.compress(buffer);
+        sampledCompressionNanos += System.nanoTime() - startTime;
+        sampledOriginalBytes += originalSize;
+        sampledCompressedBytes +=
+                compressedBuffer != null ? compressedBuffer.getSize() : originalSize;
+
+        if (++numSampledBuffers == NUM_SAMPLE_BUFFERS) {
+            finishSample();
+        }
+        return compressedBuffer != null ? compressedBuffer : buffer;
+    }
+
+    private void finishSample() {
+        if (bufferCompressor.paysOff(
+                sampledOriginalBytes, sampledCompressedBytes, sampledCompressionNanos)) {
+            numUncompressedBuffersOnFailure = MIN_NUM_UNCOMPRESSED_BUFFERS;
+        } else {
+            LOG.debug(
+                    "Compression of the data sent to {} does not pay off ({} of {} bytes in {}"
+                            + " ns), sending the next {} buffers uncompressed.",
+                    receiverId,
+                    sampledCompressedBytes,
+                    sampledOriginalBytes,
+                    sampledCompressionNanos,
+                    numUncompressedBuffersOnFailure);
+            numRemainingUncompressedBuffers = numUncompressedBuffersOnFailure;
+            numUncompressedBuffersOnFailure =
+                    Math.min(2 * numUncompressedBuffersOnFailure, MAX_NUM_UNCOMPRESSED_BUFFERS);
+        }
+
+        numSampledBuffers = 0;
+        sampledOriginalBytes = 0;
+        sampledCompressedBytes = 0;
+        sampledCompressionNanos = 0;
+    }
+
+    @VisibleForTesting
+    boolean isCompressing() {
+        return numRemainingUncompressedBuffers == 0;
+    }
+}
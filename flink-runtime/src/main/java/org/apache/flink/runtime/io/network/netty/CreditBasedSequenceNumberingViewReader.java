@@ -22,6 +22,7 @@ import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.runtime.io.network.NetworkSequenceViewReader;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.PipelinedSubpartitionView;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
@@ -63,11 +64,18 @@ class CreditBasedSequenceNumberingViewReader
     /** The number of available buffers for holding data on the consumer side. */
     private int numCreditsAvailable;
 
+    /** Compresses the data sent to the consumer, null if the data is sent uncompressed. */
+    @Nullable private AdaptiveBufferCompressor bufferCompressor;
+
+    /** The credit announced with the partition request. */
+    private final int initialCredit;
+
     CreditBasedSequenceNumberingViewReader(
             InputChannelID receiverId, int initialCredit, PartitionRequestQueue requestQueue) {
 
         this.receiverId = receiverId;
         this.numCreditsAvailable = initialCredit;
+        this.initialCredit = initialCredit;
         this.requestQueue = requestQueue;
     }
 
@@ -75,7 +83,8 @@ class CreditBasedSequenceNumberingViewReader
     public void requestSubpartitionView(
             ResultPartitionProvider partitionProvider,
             ResultPartitionID resultPartitionId,
-            int subPartitionIndex)
+            int subPartitionIndex,
+            int numberOfSubpartitions)
             throws IOException {
 
         synchronized (requestLock) {
@@ -85,8 +94,25 @@ class CreditBasedSequenceNumberingViewReader
                 // start consuming this. Otherwise the reference to the
                 // view cannot be available in getNextBuffer().
                 this.subpartitionView =
-                        partitionProvider.createSubpartitionView(
-                                resultPartitionId, subPartitionIndex, this);
+                        numberOfSubpartitions > 1
+                                ? partitionProvider.createSubpartitionRangeView(
+                                        resultPartitionId,
+                                        subPartitionIndex,
+                                        numberOfSubpartitions,
+                                        this)
+                                : partitionProvider.createSubpartitionView(
+                                        resultPartitionId, subPartitionIndex, this);
+
+                // only the data of pipelined partitions is compressed when it is sent, blocking
+                // partitions compress their data when it is written
+                NetworkBufferCompressor networkBufferCompressor =
+                        requestQueue.getBufferCompressor();
+                if (networkBufferCompressor != null
+                        && subpartitionView instanceof PipelinedSubpartitionView) {
+                    networkBufferCompressor.addSegments(initialCredit);
+                    this.bufferCompressor =
+                            new AdaptiveBufferCompressor(networkBufferCompressor, receiverId);
+                }
             } else {
                 throw new IllegalStateException("Subpartition already requested");
             }
@@ -105,6 +131,11 @@ class CreditBasedSequenceNumberingViewReader
         subpartitionView.resumeConsumption();
     }
 
+    @Override
+    public void notifyNewBufferSize(int newBufferSize) {
+        subpartitionView.notifyNewBufferSize(newBufferSize);
+    }
+
     @Override
     public void setRegisteredAsAvailable(boolean isRegisteredAvailable) {
         this.isRegisteredAsAvailable = isRegisteredAvailable;
@@ -173,9 +204,14 @@ class CreditBasedSequenceNumberingViewReader
                 throw new IllegalStateException("no credit available");
             }
 
+            Buffer buffer = next.buffer();
+            if (bufferCompressor != null) {
+                buffer = bufferCompressor.compressIfPaysOff(buffer);
+            }
+
             final Buffer.DataType nextDataType = getNextDataType(next);
             return new BufferAndAvailability(
-                    next.buffer(), nextDataType, next.buffersInBacklog(), next.getSequenceNumber());
+                    buffer, nextDataType, next.buffersInBacklog(), next.getSequenceNumber());
         } else {
             return null;
         }
@@ -193,6 +229,10 @@ class CreditBasedSequenceNumberingViewReader
 
     @Override
     public void releaseAllResources() throws IOException {
+        if (bufferCompressor != null) {
+            requestQueue.getBufferCompressor().removeSegments(initialCredit);
+            bufferCompressor = null;
+        }
         subpartitionView.releaseAllResources();
     }
 
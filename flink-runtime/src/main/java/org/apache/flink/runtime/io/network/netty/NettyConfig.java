@@ -88,6 +88,10 @@ public class NettyConfig {
         return serverPort;
     }
 
+    int getMemorySegmentSize() {
+        return memorySegmentSize;
+    }
+
     // ------------------------------------------------------------------------
     // Getters
     // ------------------------------------------------------------------------
@@ -156,6 +160,10 @@ public class NettyConfig {
                 && SSLUtils.isInternalSSLEnabled(config);
     }
 
+    public boolean isPipelinedShuffleCompressionEnabled() {
+        return config.get(NettyShuffleEnvironmentOptions.PIPELINED_SHUFFLE_COMPRESSION_ENABLED);
+    }
+
     public Configuration getConfig() {
         return config;
     }
@@ -54,7 +54,14 @@ public class NettyConnectionManager implements ConnectionManager {
 
         this.nettyProtocol =
                 new NettyProtocol(
-                        checkNotNull(partitionProvider), checkNotNull(taskEventPublisher));
+                        checkNotNull(partitionProvider),
+                        checkNotNull(taskEventPublisher),
+                        nettyConfig.isPipelinedShuffleCompressionEnabled()
+                                ? () ->
+                                        NetworkBufferCompressor.fromConfiguration(
+                                                nettyConfig.getMemorySegmentSize(),
+                                                nettyConfig.getConfig())
+                                : null);
     }
 
     @Override
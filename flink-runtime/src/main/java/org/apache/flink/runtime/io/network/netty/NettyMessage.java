@@ -233,6 +233,9 @@ public abstract class NettyMessage {
                     case ResumeConsumption.ID:
                         decodedMsg = ResumeConsumption.readFrom(msg);
                         break;
+                    case NewBufferSize.ID:
+                        decodedMsg = NewBufferSize.readFrom(msg);
+                        break;
                     default:
                         throw new ProtocolException(
                                 "Received unknown message from producer: " + msg);
@@ -501,15 +504,31 @@ public abstract class NettyMessage {
 
         final int credit;
 
+        /**
+         * The number of consecutive subpartitions, starting at the queue index, which are read one
+         * after the other through the requested view.
+         */
+        final int numberOfSubpartitions;
+
         PartitionRequest(
                 ResultPartitionID partitionId,
                 int queueIndex,
                 InputChannelID receiverId,
                 int credit) {
+            this(partitionId, queueIndex, receiverId, credit, 1);
+        }
+
+        PartitionRequest(
+                ResultPartitionID partitionId,
+                int queueIndex,
+                InputChannelID receiverId,
+                int credit,
+                int numberOfSubpartitions) {
             this.partitionId = checkNotNull(partitionId);
             this.queueIndex = queueIndex;
             this.receiverId = checkNotNull(receiverId);
             this.credit = credit;
+            this.numberOfSubpartitions = numberOfSubpartitions;
         }
 
         @Override
@@ -522,6 +541,7 @@ public abstract class NettyMessage {
                         bb.writeInt(queueIndex);
                         receiverId.writeTo(bb);
                         bb.writeInt(credit);
+                        bb.writeInt(numberOfSubpartitions);
                     };
 
             writeToChannel(
@@ -534,6 +554,7 @@ public abstract class NettyMessage {
                             + ExecutionAttemptID.getByteBufLength()
                             + Integer.BYTES
                             + InputChannelID.getByteBufLength()
+                            + Integer.BYTES
                             + Integer.BYTES);
         }
 
@@ -545,13 +566,17 @@ public abstract class NettyMessage {
             int queueIndex = buffer.readInt();
             InputChannelID receiverId = InputChannelID.fromByteBuf(buffer);
             int credit = buffer.readInt();
+            int numberOfSubpartitions = buffer.readInt();
 
-            return new PartitionRequest(partitionId, queueIndex, receiverId, credit);
+            return new PartitionRequest(
+                    partitionId, queueIndex, receiverId, credit, numberOfSubpartitions);
         }
 
         @Override
         public String toString() {
-            return String.format("PartitionRequest(%s:%d:%d)", partitionId, queueIndex, credit);
+            return String.format(
+                    "PartitionRequest(%s:%d:%d:%d)",
+                    partitionId, queueIndex, credit, numberOfSubpartitions);
         }
     }
 
@@ -753,6 +778,49 @@ public abstract class NettyMessage {
         }
     }
 
+    /** Announcement of the buffer size that the client would like to receive. */
+    static class NewBufferSize extends NettyMessage {
+
+        private static final byte ID = 8;
+
+        final int bufferSize;
+
+        final InputChannelID receiverId;
+
+        NewBufferSize(int bufferSize, InputChannelID receiverId) {
+            checkArgument(bufferSize > 0, "The new buffer size should be greater than 0");
+            this.bufferSize = bufferSize;
+            this.receiverId = receiverId;
+        }
+
+        @Override
+        void write(ChannelOutboundInvoker out, ChannelPromise promise, ByteBufAllocator allocator)
+                throws IOException {
+            writeToChannel(
+                    out,
+                    promise,
+                    allocator,
+                    byteBuf -> {
+                        byteBuf.writeInt(bufferSize);
+                        receiverId.writeTo(byteBuf);
+                    },
+                    ID,
+                    Integer.BYTES + InputChannelID.getByteBufLength());
+        }
+
+        static NewBufferSize readFrom(ByteBuf buffer) {
+            int bufferSize = buffer.readInt();
+            InputChannelID receiverId = InputChannelID.fromByteBuf(buffer);
+
+            return new NewBufferSize(bufferSize, receiverId);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("NewBufferSize(%s : %d)", receiverId, bufferSize);
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     void writeToChannel(
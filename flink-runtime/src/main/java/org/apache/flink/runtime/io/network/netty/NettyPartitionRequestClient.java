@@ -119,7 +119,8 @@ public class NettyPartitionRequestClient implements PartitionRequestClient {
                         partitionId,
                         subpartitionIndex,
                         inputChannel.getInputChannelId(),
-                        inputChannel.getInitialCredit());
+                        inputChannel.getInitialCredit(),
+                        inputChannel.getNumberOfConsumedSubpartitions());
 
         final ChannelFutureListener listener =
                 new ChannelFutureListener() {
@@ -140,25 +141,33 @@ public class NettyPartitionRequestClient implements PartitionRequestClient {
                 };
 
         if (delayMs == 0) {
-            ChannelFuture f = tcpChannel.writeAndFlush(request);
-            f.addListener(listener);
+            writePartitionRequest(request, inputChannel, listener);
         } else {
-            final ChannelFuture[] f = new ChannelFuture[1];
             tcpChannel
                     .eventLoop()
                     .schedule(
-                            new Runnable() {
-                                @Override
-                                public void run() {
-                                    f[0] = tcpChannel.writeAndFlush(request);
-                                    f[0].addListener(listener);
-                                }
-                            },
+                            () -> writePartitionRequest(request, inputChannel, listener),
                             delayMs,
                             TimeUnit.MILLISECONDS);
         }
     }
 
+    /**
+     * Writes the partition request, followed by the buffer size announced by the input channel
+     * before, so the size reaches the reader which the request creates on the server.
+     */
+    private void writePartitionRequest(
+            PartitionRequest request,
+            RemoteInputChannel inputChannel,
+            ChannelFutureListener listener) {
+        tcpChannel.writeAndFlush(request).addListener(listener);
+
+        int bufferSize = inputChannel.getAnnouncedBufferSize();
+        if (bufferSize > 0) {
+            clientHandler.notifyNewBufferSize(inputChannel, bufferSize);
+        }
+    }
+
     /**
      * Sends a task event backwards to an intermediate result partition producer.
      *
@@ -203,6 +212,11 @@ public class NettyPartitionRequestClient implements PartitionRequestClient {
         clientHandler.resumeConsumption(inputChannel);
     }
 
+    @Override
+    public void notifyNewBufferSize(RemoteInputChannel inputChannel, int bufferSize) {
+        clientHandler.notifyNewBufferSize(inputChannel, bufferSize);
+    }
+
     @Override
     public void close(RemoteInputChannel inputChannel) throws IOException {
 
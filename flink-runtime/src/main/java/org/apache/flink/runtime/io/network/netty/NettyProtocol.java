@@ -24,6 +24,10 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 
 import org.apache.flink.shaded.netty4.io.netty.channel.ChannelHandler;
 
+import javax.annotation.Nullable;
+
+import java.util.function.Supplier;
+
 /** Defines the server and client channel handlers, i.e. the protocol, used by netty. */
 public class NettyProtocol {
 
@@ -33,10 +37,24 @@ public class NettyProtocol {
     private final ResultPartitionProvider partitionProvider;
     private final TaskEventPublisher taskEventPublisher;
 
+    /**
+     * Creates the compressor of the pipelined shuffle data for each server channel, null if the
+     * data is sent uncompressed.
+     */
+    @Nullable private final Supplier<NetworkBufferCompressor> bufferCompressorFactory;
+
     NettyProtocol(
             ResultPartitionProvider partitionProvider, TaskEventPublisher taskEventPublisher) {
+        this(partitionProvider, taskEventPublisher, null);
+    }
+
+    NettyProtocol(
+            ResultPartitionProvider partitionProvider,
+            TaskEventPublisher taskEventPublisher,
+            @Nullable Supplier<NetworkBufferCompressor> bufferCompressorFactory) {
         this.partitionProvider = partitionProvider;
         this.taskEventPublisher = taskEventPublisher;
+        this.bufferCompressorFactory = bufferCompressorFactory;
     }
 
     /**
@@ -73,7 +91,9 @@ public class NettyProtocol {
      * @return channel handlers
      */
     public ChannelHandler[] getServerChannelHandlers() {
-        PartitionRequestQueue queueOfPartitionQueues = new PartitionRequestQueue();
+        PartitionRequestQueue queueOfPartitionQueues =
+                new PartitionRequestQueue(
+                        bufferCompressorFactory != null ? bufferCompressorFactory.get() : null);
         PartitionRequestServerHandler serverHandler =
                 new PartitionRequestServerHandler(
                         partitionProvider, taskEventPublisher, queueOfPartitionQueues);
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayDeque;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Compresses the data buffers of pipelined result partitions before they are sent to remote
+ * consumers. It is shared by all readers of a connection and must only be used by the netty thread
+ * of the connection.
+ *
+ * <p>The compressed data is copied to pooled heap segments, because the memory segment of the
+ * original buffer may be shared with other subpartitions and several compressed buffers may be in
+ * flight at the same time. The pool is sized by the initial credits of the readers, that is the
+ * number of exclusive buffers of the remote input channels, which bounds the heap memory of a
+ * connection. Buffers are sent uncompressed while all segments are in flight.
+ */
+class NetworkBufferCompressor implements BufferRecycler {
+
+    private final BufferCompressor bufferCompressor;
+
+    private final int bufferSize;
+
+    private final float maxCompressionRatio;
+
+    private final long minCompressionBytesPerSecond;
+
+    /** Free segments for the compressed data, guarded by itself. */
+    private final ArrayDeque<MemorySegment> freeSegments = new ArrayDeque<>();
+
+    /** Number of segments which may be allocated, guarded by {@link #freeSegments}. */
+    private int maxSegments;
+
+    /** Number of allocated segments, free or in flight, guarded by {@link #freeSegments}. */
+    private int numSegments;
+
+    NetworkBufferCompressor(
+            int bufferSize,
+            String compressionCodec,
+            int compressionZstdLevel,
+            float maxCompressionRatio,
+            long minCompressionBytesPerSecond) {
+        checkArgument(
+                maxCompressionRatio > 0 && maxCompressionRatio <= 1,
+                "The maximum compression ratio must be in (0, 1].");
+        checkArgument(
+                minCompressionBytesPerSecond >= 0,
+                "The minimum compression throughput must not be negative.");
+
+        this.bufferCompressor =
+                new BufferCompressor(bufferSize, compressionCodec, compressionZstdLevel);
+        this.bufferSize = bufferSize;
+        this.maxCompressionRatio = maxCompressionRatio;
+        this.minCompressionBytesPerSecond = minCompressionBytesPerSecond;
+    }
+
+    static NetworkBufferCompressor fromConfiguration(int bufferSize, Configuration configuration) {
+        return new NetworkBufferCompressor(
+                bufferSize,
+                configuration.get(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_CODEC),
+                configuration.get(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_ZSTD_LEVEL),
+                configuration.get(
+                        NettyShuffleEnvironmentOptions.PIPELINED_SHUFFLE_COMPRESSION_MAX_RATIO),
+                configuration
+                        .get(
+                                NettyShuffleEnvironmentOptions
+                                        .PIPELINED_SHUFFLE_COMPRESSION_MIN_THROUGHPUT)
+                        .getBytes());
+    }
+
+    /**
+     * Adds segments for a reader to the pool.
+     *
+     * @param numReaderSegments the initial credit of the reader
+     */
+    void addSegments(int numReaderSegments) {
+        checkArgument(numReaderSegments >= 0);
+        synchronized (freeSegments) {
+            maxSegments += numReaderSegments;
+        }
+    }
+
+    /**
+     * Removes the segments of a released reader from the pool. Surplus free segments are freed
+     * immediately, surplus segments in flight when they are recycled.
+     */
+    void removeSegments(int numReaderSegments) {
+        synchronized (freeSegments) {
+            maxSegments -= numReaderSegments;
+            checkState(maxSegments >= 0, "More segments removed than added.");
+            while (numSegments > maxSegments && !freeSegments.isEmpty()) {
+                freeSegments.poll().free();
+                numSegments--;
+            }
+        }
+    }
+
+    /** Returns whether a segment is available to {@link #compress} a buffer. */
+    boolean hasAvailableSegment() {
+        synchronized (freeSegments) {
+            return !freeSegments.isEmpty() || numSegments < maxSegments;
+        }
+    }
+
+    /**
+     * Compresses the given data buffer into a pooled segment. Returns the compressed buffer and
+     * recycles the given one, or returns null and keeps the given buffer if the compressed data is
+     * not smaller than the original data or if no segment is available.
+     */
+    @Nullable
+    Buffer compress(Buffer buffer) {
+        MemorySegment segment = requestSegment();
+        if (segment == null) {
+            return null;
+        }
+
+        Buffer compressedBuffer = bufferCompressor.compressToIntermediateBuffer(buffer);
+        if (compressedBuffer == buffer) {
+            recycle(segment);
+            return null;
+        }
+
+        int compressedSize = compressedBuffer.getSize();
+        try {
+            compressedBuffer
+                    .getMemorySegment()
+                    .copyTo(compressedBuffer.getMemorySegmentOffset(), segment, 0, compressedSize);
+        } finally {
+            compressedBuffer.recycleBuffer();
+        }
+
+        Buffer result =
+                new NetworkBuffer(segment, this, buffer.getDataType(), true, compressedSize);
+        buffer.recycleBuffer();
+        return result;
+    }
+
+    /**
+     * Returns whether the compression pays off for the sampled data, that is whether the data was
+     * compressed both well and fast enough.
+     */
+    boolean paysOff(long originalBytes, long compressedBytes, long compressionNanos) {
+        if (originalBytes == 0) {
+            return true;
+        }
+        if (compressedBytes > maxCompressionRatio * originalBytes) {
+            return false;
+        }
+        return compressionNanos == 0
+                || originalBytes * 1_000_000_000.0 / compressionNanos
+                        >= minCompressionBytesPerSecond;
+    }
+
+    @Nullable
+    private MemorySegment requestSegment() {
+        synchronized (freeSegments) {
+            MemorySegment segment = freeSegments.poll();
+            if (segment == null && numSegments < maxSegments) {
+                segment = MemorySegmentFactory.allocateUnpooledSegment(bufferSize);
+                numSegments++;
+            }
+            return segment;
+        }
+    }
+
+    @Override
+    public void recycle(MemorySegment segment) {
+        synchronized (freeSegments) {
+            if (numSegments <= maxSegments) {
+                freeSegments.add(segment);
+                return;
+            }
+            numSegments--;
+        }
+        segment.free();
+    }
+}
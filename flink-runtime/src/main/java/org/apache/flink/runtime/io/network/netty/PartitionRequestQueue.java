@@ -67,6 +67,17 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
     private ChannelHandlerContext ctx;
 
+    /** Compressor for the data of pipelined partitions, null if it is not compressed. */
+    @Nullable private final NetworkBufferCompressor bufferCompressor;
+
+    PartitionRequestQueue() {
+        this(null);
+    }
+
+    PartitionRequestQueue(@Nullable NetworkBufferCompressor bufferCompressor) {
+        this.bufferCompressor = bufferCompressor;
+    }
+
     @Override
     public void channelRegistered(final ChannelHandlerContext ctx) throws Exception {
         if (this.ctx == null) {
@@ -164,6 +175,26 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * Forwards the buffer size that the consumer would like to receive to the reader of the
+     * consumer. Unlike credits, the new buffer size does not make the reader available.
+     *
+     * @param receiverId The input channel id to identify the consumer.
+     * @param newBufferSize The new buffer size.
+     */
+    void notifyNewBufferSize(InputChannelID receiverId, int newBufferSize) {
+        if (fatalError) {
+            return;
+        }
+
+        // the reader might have been released concurrently, which is fine as the buffer size
+        // does not matter anymore then
+        NetworkSequenceViewReader reader = allReaders.get(receiverId);
+        if (reader != null) {
+            reader.notifyNewBufferSize(newBufferSize);
+        }
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object msg) throws Exception {
         // The user event triggered event loop callback is used for thread-safe
@@ -257,6 +288,11 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
         }
     }
 
+    @Nullable
+    NetworkBufferCompressor getBufferCompressor() {
+        return bufferCompressor;
+    }
+
     private void registerAvailableReader(NetworkSequenceViewReader reader) {
         availableReaders.add(reader);
         reader.setRegisteredAsAvailable(true);
@@ -33,4 +33,13 @@ public interface BufferAvailabilityListener {
      * @param prioritySequenceNumber the sequence number that identifies the priority buffer.
      */
     default void notifyPriorityEvent(int prioritySequenceNumber) {}
+
+    /**
+     * Returns whether the consumer accepts {@link
+     * org.apache.flink.runtime.io.network.buffer.ObjectBuffer object buffers}, which hold records
+     * as object references. Only consumers in the same TaskManager as the producer can do so.
+     */
+    default boolean supportsObjectBuffers() {
+        return false;
+    }
 }
@@ -19,12 +19,14 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.ObjectBufferBuilder;
 import org.apache.flink.runtime.metrics.TimerGauge;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 import org.apache.flink.util.function.SupplierWithException;
@@ -62,6 +64,13 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
     /** For broadcast mode, a single BufferBuilder is shared by all subpartitions. */
     private BufferBuilder broadcastBufferBuilder;
 
+    /**
+     * For subpartitions consumed in the same TaskManager, records may be handed over as objects
+     * instead of bytes. These are unicast builders, too; a subpartition never has both a {@link
+     * BufferBuilder} and an {@link ObjectBufferBuilder} at the same time.
+     */
+    private final ObjectBufferBuilder[] objectBufferBuilders;
+
     private TimerGauge backPressuredTimeMsPerSecond = new TimerGauge();
 
     public BufferWritingResultPartition(
@@ -88,6 +97,7 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
 
         this.subpartitions = checkNotNull(subpartitions);
         this.unicastBufferBuilders = new BufferBuilder[subpartitions.length];
+        this.objectBufferBuilders = new ObjectBufferBuilder[subpartitions.length];
     }
 
     @Override
@@ -121,6 +131,7 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
         if (finishProducers) {
             finishBroadcastBufferBuilder();
             finishUnicastBufferBuilder(targetSubpartition);
+            finishObjectBufferBuilder(targetSubpartition);
         }
 
         subpartitions[targetSubpartition].flush();
@@ -173,6 +184,29 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
         // partial buffer, full record
     }
 
+    @Override
+    public boolean isObjectExchange(int targetSubpartition) {
+        return subpartitions[targetSubpartition].isObjectExchange();
+    }
+
+    @Override
+    public void emitObject(
+            Object record, int recordSize, TypeSerializer<?> serializer, int targetSubpartition)
+            throws IOException {
+        ObjectBufferBuilder buffer = objectBufferBuilders[targetSubpartition];
+
+        if (buffer == null) {
+            buffer = requestNewObjectBufferBuilder(targetSubpartition, serializer);
+            subpartitions[targetSubpartition].add(buffer.createBufferConsumer(), 0);
+        }
+
+        buffer.append(record, recordSize);
+
+        if (buffer.isFull()) {
+            finishObjectBufferBuilder(targetSubpartition);
+        }
+    }
+
     @Override
     public void broadcastEvent(AbstractEvent event, boolean isPriorityEvent) throws IOException {
         checkInProduceState();
@@ -311,21 +345,46 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
             throws IOException {
         checkInProduceState();
         ensureUnicastMode();
+        finishObjectBufferBuilder(targetSubpartition);
         final BufferBuilder bufferBuilder = requestNewBufferBuilderFromPool(targetSubpartition);
+        bufferBuilder.trim(subpartitions[targetSubpartition].getDesirableBufferSize());
         unicastBufferBuilders[targetSubpartition] = bufferBuilder;
 
         return bufferBuilder;
     }
 
+    private ObjectBufferBuilder requestNewObjectBufferBuilder(
+            int targetSubpartition, TypeSerializer<?> serializer) throws IOException {
+        checkInProduceState();
+        ensureUnicastMode();
+        finishUnicastBufferBuilder(targetSubpartition);
+        final BufferBuilder memory = requestNewBufferBuilderFromPool(targetSubpartition);
+        memory.trim(subpartitions[targetSubpartition].getDesirableBufferSize());
+        final ObjectBufferBuilder objectBufferBuilder = new ObjectBufferBuilder(memory, serializer);
+        objectBufferBuilders[targetSubpartition] = objectBufferBuilder;
+
+        return objectBufferBuilder;
+    }
+
     private BufferBuilder requestNewBroadcastBufferBuilder() throws IOException {
         checkInProduceState();
         ensureBroadcastMode();
 
         final BufferBuilder bufferBuilder = requestNewBufferBuilderFromPool(0);
+        bufferBuilder.trim(getMinDesirableBufferSize());
         broadcastBufferBuilder = bufferBuilder;
         return bufferBuilder;
     }
 
+    private int getMinDesirableBufferSize() {
+        int minDesirableBufferSize = Integer.MAX_VALUE;
+        for (ResultSubpartition subpartition : subpartitions) {
+            minDesirableBufferSize =
+                    Math.min(minDesirableBufferSize, subpartition.getDesirableBufferSize());
+        }
+        return minDesirableBufferSize;
+    }
+
     private BufferBuilder requestNewBufferBuilderFromPool(int targetSubpartition)
             throws IOException {
         BufferBuilder bufferBuilder = bufferPool.requestBufferBuilder(targetSubpartition);
@@ -352,9 +411,20 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
         }
     }
 
+    private void finishObjectBufferBuilder(int targetSubpartition) {
+        final ObjectBufferBuilder objectBufferBuilder = objectBufferBuilders[targetSubpartition];
+        if (objectBufferBuilder != null) {
+            // the records are not serialized, so there are no bytes to count
+            objectBufferBuilder.finish();
+            numBuffersOut.inc();
+            objectBufferBuilders[targetSubpartition] = null;
+        }
+    }
+
     private void finishUnicastBufferBuilders() {
         for (int channelIndex = 0; channelIndex < numSubpartitions; channelIndex++) {
             finishUnicastBufferBuilder(channelIndex);
+            finishObjectBufferBuilder(channelIndex);
         }
     }
 
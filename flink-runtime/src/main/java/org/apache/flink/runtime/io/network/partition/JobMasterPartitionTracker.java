@@ -52,4 +52,13 @@ public interface JobMasterPartitionTracker
      * ID, and stops the tracking of partitions that were released/promoted.
      */
     void stopTrackingAndReleaseOrPromotePartitionsFor(ResourceID producingTaskExecutorId);
+
+    /**
+     * Releases all partitions which do not occupy local resources of their producing task executor,
+     * and stops the tracking of these partitions.
+     *
+     * <p>These partitions are not tracked for the producing task executor, so that it can be
+     * released while the partitions are still consumable from an external shuffle service.
+     */
+    void stopTrackingAndReleaseExternalPartitions();
 }
@@ -41,6 +41,13 @@ public class JobMasterPartitionTrackerImpl
         extends AbstractPartitionTracker<ResourceID, ResultPartitionDeploymentDescriptor>
         implements JobMasterPartitionTracker {
 
+    /**
+     * Key of the partitions which do not occupy local resources of their producing task executor,
+     * e.g. because they are stored by an external shuffle service. Tracking them for the producing
+     * task executor would prevent it from being released and would lose them when it disconnects.
+     */
+    private final ResourceID externalPartitionsKey = ResourceID.generate();
+
     private final JobID jobId;
 
     private final ShuffleMaster<?> shuffleMaster;
@@ -75,7 +82,11 @@ public class JobMasterPartitionTrackerImpl
                 resultPartitionDeploymentDescriptor.getShuffleDescriptor().getResultPartitionID();
 
         startTrackingPartition(
-                producingTaskExecutorId, resultPartitionId, resultPartitionDeploymentDescriptor);
+                isPartitionWithLocalResources(resultPartitionDeploymentDescriptor)
+                        ? producingTaskExecutorId
+                        : externalPartitionsKey,
+                resultPartitionId,
+                resultPartitionDeploymentDescriptor);
     }
 
     @Override
@@ -118,6 +129,13 @@ public class JobMasterPartitionTrackerImpl
         internalReleaseOrPromotePartitions(producingTaskExecutorId, resultPartitionIds);
     }
 
+    @Override
+    public void stopTrackingAndReleaseExternalPartitions() {
+        // the partitions are not reported to the cluster partition tracker by any task executor,
+        // so persistent partitions are released as well instead of being promoted
+        stopTrackingAndReleasePartitionsFor(externalPartitionsKey);
+    }
+
     private void internalReleasePartitions(
             ResourceID potentialPartitionLocation,
             Collection<ResultPartitionDeploymentDescriptor> partitionDeploymentDescriptors) {
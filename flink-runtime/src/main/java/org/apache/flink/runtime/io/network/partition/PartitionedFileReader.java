@@ -18,7 +18,6 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
-import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
@@ -37,7 +36,14 @@ import static org.apache.flink.runtime.io.network.partition.BufferReaderWriterUt
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
-/** Reader which can read all data of the target subpartition from a {@link PartitionedFile}. */
+/**
+ * Reader which can read all data of the target subpartition from a {@link PartitionedFile}.
+ *
+ * <p>The reader either opens its own file channels, or reads through file channels which are shared
+ * with the readers of the other subpartitions of the same file. A shared data file channel is
+ * positioned by every read, so shared channels must not be used by multiple threads at the same
+ * time.
+ */
 public class PartitionedFileReader implements AutoCloseable {
 
     /** Used to read buffers from file channel. */
@@ -58,12 +64,18 @@ public class PartitionedFileReader implements AutoCloseable {
     /** Index file channel of the target {@link PartitionedFile}. */
     private final FileChannel indexFileChannel;
 
+    /** Whether the file channels are opened by this reader and should be closed by it. */
+    private final boolean ownsFileChannels;
+
     /** Next data region to be read. */
     private int nextRegionToRead;
 
     /** Number of remaining buffers in the current data region read. */
     private int currentRegionRemainingBuffers;
 
+    /** Offset in the data file of the next buffer to be read. */
+    private long nextOffsetToRead;
+
     /** Whether this partitioned file reader is closed. */
     private boolean isClosed;
 
@@ -72,8 +84,8 @@ public class PartitionedFileReader implements AutoCloseable {
         this.partitionedFile = checkNotNull(partitionedFile);
         this.targetSubpartition = targetSubpartition;
 
-        this.indexEntryBuf = ByteBuffer.allocateDirect(PartitionedFile.INDEX_ENTRY_SIZE);
-        BufferReaderWriterUtil.configureByteBuffer(indexEntryBuf);
+        this.indexEntryBuf = createIndexEntryBuffer();
+        this.ownsFileChannels = true;
 
         this.dataFileChannel = openFileChannel(partitionedFile.getDataFilePath());
         try {
@@ -84,6 +96,31 @@ public class PartitionedFileReader implements AutoCloseable {
         }
     }
 
+    /**
+     * Creates a reader which reads through the given shared file channels. The file channels are
+     * not closed when this reader is closed.
+     */
+    public PartitionedFileReader(
+            PartitionedFile partitionedFile,
+            int targetSubpartition,
+            FileChannel dataFileChannel,
+            FileChannel indexFileChannel) {
+        this.partitionedFile = checkNotNull(partitionedFile);
+        this.targetSubpartition = targetSubpartition;
+
+        this.indexEntryBuf = createIndexEntryBuffer();
+        this.ownsFileChannels = false;
+
+        this.dataFileChannel = checkNotNull(dataFileChannel);
+        this.indexFileChannel = checkNotNull(indexFileChannel);
+    }
+
+    private static ByteBuffer createIndexEntryBuffer() {
+        ByteBuffer indexEntryBuf = ByteBuffer.allocateDirect(PartitionedFile.INDEX_ENTRY_SIZE);
+        BufferReaderWriterUtil.configureByteBuffer(indexEntryBuf);
+        return indexEntryBuf;
+    }
+
     private FileChannel openFileChannel(Path path) throws IOException {
         return FileChannel.open(path, StandardOpenOption.READ);
     }
@@ -101,7 +138,7 @@ public class PartitionedFileReader implements AutoCloseable {
             ++nextRegionToRead;
 
             if (currentRegionRemainingBuffers > 0) {
-                dataFileChannel.position(dataOffset);
+                nextOffsetToRead = dataOffset;
                 return true;
             }
         }
@@ -120,13 +157,29 @@ public class PartitionedFileReader implements AutoCloseable {
 
         if (moveToNextReadableRegion()) {
             --currentRegionRemainingBuffers;
-            return readFromByteChannel(dataFileChannel, headerBuf, target, recycler);
+            dataFileChannel.position(nextOffsetToRead);
+            Buffer buffer = readFromByteChannel(dataFileChannel, headerBuf, target, recycler);
+            nextOffsetToRead = dataFileChannel.position();
+            return buffer;
         }
 
         return null;
     }
 
-    @VisibleForTesting
+    /** Whether the data region read currently has remaining buffers of the target subpartition. */
+    public boolean hasRemainingInCurrentRegion() {
+        return currentRegionRemainingBuffers > 0;
+    }
+
+    /**
+     * Returns the offset in the data file of the next buffer to be read. This is only meaningful
+     * after {@link #hasRemaining()} has returned true.
+     */
+    public long getNextOffsetToRead() {
+        return nextOffsetToRead;
+    }
+
+    /** Whether there are remaining buffers of the target subpartition to be read. */
     public boolean hasRemaining() throws IOException {
         checkState(!isClosed, "File reader is already closed.");
 
@@ -140,6 +193,10 @@ public class PartitionedFileReader implements AutoCloseable {
         }
         isClosed = true;
 
+        if (!ownsFileChannels) {
+            return;
+        }
+
         IOException exception = null;
         try {
             if (dataFileChannel != null) {
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import static org.apache.flink.util.Preconditions.checkElementIndex;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Provides the {@link ResultSubpartitionView}s of a finished {@link PartitionedFile} which is not
+ * owned by a {@link SortMergeResultPartition}, for example a partition stored on a shuffle worker.
+ * As for the sort-merge partitions, the data of all views is read by a {@link
+ * SortMergeResultPartitionReadScheduler} in the shared I/O threads with the read buffers of the
+ * shared {@link BatchShuffleReadBufferPool}.
+ */
+public class PartitionedFileSubpartitionProvider {
+
+    private final Object lock = new Object();
+
+    private final PartitionedFile partitionedFile;
+
+    /** Number of data buffers (excluding events) of each subpartition. */
+    private final int[] numDataBuffers;
+
+    private final SortMergeResultPartitionReadScheduler readScheduler;
+
+    /** Whether this provider has been released, the file is deleted once all views are released. */
+    @GuardedBy("lock")
+    private boolean isReleased;
+
+    public PartitionedFileSubpartitionProvider(
+            PartitionedFile partitionedFile,
+            int[] numDataBuffers,
+            BatchShuffleReadBufferPool readBufferPool,
+            Executor readIOExecutor,
+            Counter numBytesRead) {
+        this.partitionedFile = checkNotNull(partitionedFile);
+        this.numDataBuffers = checkNotNull(numDataBuffers);
+        this.readScheduler =
+                new SortMergeResultPartitionReadScheduler(
+                        readBufferPool, readIOExecutor, numBytesRead, lock);
+    }
+
+    public ResultSubpartitionView createSubpartitionView(
+            int subpartitionIndex, BufferAvailabilityListener availabilityListener)
+            throws IOException {
+        checkElementIndex(subpartitionIndex, numDataBuffers.length, "Subpartition not found.");
+        checkNotNull(availabilityListener);
+
+        synchronized (lock) {
+            checkState(!isReleased, "Partition released.");
+
+            return readScheduler.createSubpartitionReader(
+                    this::releaseReader,
+                    availabilityListener,
+                    subpartitionIndex,
+                    numDataBuffers[subpartitionIndex],
+                    partitionedFile);
+        }
+    }
+
+    private void releaseReader(SortMergeSubpartitionReader reader) {
+        synchronized (lock) {
+            readScheduler.releaseSubpartitionReader(reader);
+
+            // delete the file if this provider has been released before
+            if (isReleased && !readScheduler.hasSubpartitionReaders()) {
+                releaseInternal();
+            }
+        }
+    }
+
+    /**
+     * Releases this provider. The file is deleted immediately if no view is reading it, otherwise
+     * once the last view is released.
+     */
+    public void release() {
+        synchronized (lock) {
+            if (isReleased) {
+                return;
+            }
+            isReleased = true;
+
+            if (!readScheduler.hasSubpartitionReaders()) {
+                releaseInternal();
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void releaseInternal() {
+        readScheduler.release();
+        partitionedFile.deleteQuietly();
+    }
+}
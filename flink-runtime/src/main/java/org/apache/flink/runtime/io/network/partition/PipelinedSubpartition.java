@@ -28,8 +28,10 @@ import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumerWithPartialRecordLength;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.logger.NetworkActionsLogger;
 import org.apache.flink.runtime.io.network.partition.consumer.EndOfChannelStateEvent;
+import org.apache.flink.util.FlinkRuntimeException;
 
 import org.apache.flink.shaded.guava18.com.google.common.collect.Iterators;
 
@@ -45,6 +47,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -101,6 +104,12 @@ public class PipelinedSubpartition extends ResultSubpartition
     /** Writes in-flight data. */
     private ChannelStateWriter channelStateWriter;
 
+    /** Whether the read view accepts {@link ObjectBuffer object buffers}. */
+    private volatile boolean isObjectExchange;
+
+    /** The size of the buffers that the consumer asked for. */
+    private volatile int bufferSize = Integer.MAX_VALUE;
+
     /**
      * Whether this subpartition is blocked (e.g. by exactly once checkpoint) and is waiting for
      * resumption.
@@ -199,7 +208,7 @@ public class PipelinedSubpartition extends ResultSubpartition
 
                 if (buffer.isBuffer()) {
                     try (BufferConsumer bc = buffer.copy()) {
-                        inflightBuffers.add(bc.build());
+                        inflightBuffers.add(toSerializedBuffer(bc.build()));
                     }
                 }
             }
@@ -216,6 +225,20 @@ public class PipelinedSubpartition extends ResultSubpartition
         // notifications
     }
 
+    private Buffer toSerializedBuffer(Buffer buffer) {
+        if (!(buffer instanceof ObjectBuffer)) {
+            return buffer;
+        }
+
+        try {
+            return ((ObjectBuffer) buffer).serialize();
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Could not serialize in-flight records.", e);
+        } finally {
+            buffer.recycleBuffer();
+        }
+    }
+
     @Nullable
     private CheckpointBarrier parseCheckpointBarrier(BufferConsumer bufferConsumer) {
         CheckpointBarrier barrier;
@@ -369,11 +392,27 @@ public class PipelinedSubpartition extends ResultSubpartition
                     parent.getPartitionId());
 
             readView = new PipelinedSubpartitionView(this, availabilityListener);
+            isObjectExchange = availabilityListener.supportsObjectBuffers();
         }
 
         return readView;
     }
 
+    @Override
+    public boolean isObjectExchange() {
+        return isObjectExchange;
+    }
+
+    void bufferSize(int desirableNewBufferSize) {
+        checkArgument(desirableNewBufferSize > 0, "Buffer size must be positive.");
+        bufferSize = desirableNewBufferSize;
+    }
+
+    @Override
+    public int getDesirableBufferSize() {
+        return bufferSize;
+    }
+
     public boolean isAvailable(int numCreditsAvailable) {
         synchronized (buffers) {
             if (numCreditsAvailable > 0) {
@@ -477,6 +516,11 @@ public class PipelinedSubpartition extends ResultSubpartition
     }
 
     private void updateStatistics(Buffer buffer) {
+        if (buffer instanceof ObjectBuffer) {
+            // the size of an object buffer is a number of records, count their estimated bytes
+            totalNumberOfBytes += ((ObjectBuffer) buffer).getOccupiedBytes();
+            return;
+        }
         totalNumberOfBytes += buffer.getSize();
     }
 
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
@@ -26,6 +27,7 @@ import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.partition.consumer.LocalInputChannel;
 import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
 import org.apache.flink.runtime.jobgraph.DistributionPattern;
@@ -188,6 +190,19 @@ public abstract class ResultPartition implements ResultPartitionWriter {
         return partitionType;
     }
 
+    @Override
+    public boolean isObjectExchange(int targetSubpartition) {
+        return false;
+    }
+
+    @Override
+    public void emitObject(
+            Object record, int recordSize, TypeSerializer<?> serializer, int targetSubpartition)
+            throws IOException {
+        throw new UnsupportedOperationException(
+                getClass().getSimpleName() + " does not support object exchange.");
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -253,7 +268,8 @@ public abstract class ResultPartition implements ResultPartitionWriter {
 
     @Override
     public void setMetricGroup(TaskIOMetricGroup metrics) {
-        numBytesOut = metrics.getNumBytesOutCounter();
+        metrics.registerNumBytesProducedCounterForPartition(
+                partitionId.getPartitionId(), numBytesOut);
         numBuffersOut = metrics.getNumBuffersOutCounter();
     }
 
@@ -313,6 +329,9 @@ public abstract class ResultPartition implements ResultPartitionWriter {
      * usually small and the size can become even larger after compression.
      */
     protected boolean canBeCompressed(Buffer buffer) {
-        return bufferCompressor != null && buffer.isBuffer() && buffer.readableBytes() > 0;
+        return bufferCompressor != null
+                && buffer.isBuffer()
+                && buffer.readableBytes() > 0
+                && !(buffer instanceof ObjectBuffer);
     }
 }
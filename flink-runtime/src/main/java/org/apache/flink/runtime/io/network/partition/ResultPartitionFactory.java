@@ -19,7 +19,9 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Counter;
 import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.network.NettyShuffleEnvironment;
 import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
@@ -35,6 +37,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 
 /** Factory for {@link ResultPartition} to use in {@link NettyShuffleEnvironment}. */
@@ -58,7 +61,9 @@ public class ResultPartitionFactory {
 
     private final boolean blockingShuffleCompressionEnabled;
 
-    private final String compressionCodec;
+    private final String blockingShuffleCompressionCodec;
+
+    private final int compressionZstdLevel;
 
     private final int maxBuffersPerChannel;
 
@@ -68,6 +73,12 @@ public class ResultPartitionFactory {
 
     private final boolean sslEnabled;
 
+    private final BatchShuffleReadBufferPool batchShuffleReadBufferPool;
+
+    private final Executor batchShuffleReadIOExecutor;
+
+    private final Counter batchShuffleReadBytes;
+
     public ResultPartitionFactory(
             ResultPartitionManager partitionManager,
             FileChannelManager channelManager,
@@ -77,11 +88,15 @@ public class ResultPartitionFactory {
             int floatingNetworkBuffersPerGate,
             int networkBufferSize,
             boolean blockingShuffleCompressionEnabled,
-            String compressionCodec,
+            String blockingShuffleCompressionCodec,
+            int compressionZstdLevel,
             int maxBuffersPerChannel,
             int sortShuffleMinBuffers,
             int sortShuffleMinParallelism,
-            boolean sslEnabled) {
+            boolean sslEnabled,
+            BatchShuffleReadBufferPool batchShuffleReadBufferPool,
+            Executor batchShuffleReadIOExecutor,
+            Counter batchShuffleReadBytes) {
 
         this.partitionManager = partitionManager;
         this.channelManager = channelManager;
@@ -91,11 +106,15 @@ public class ResultPartitionFactory {
         this.blockingSubpartitionType = blockingSubpartitionType;
         this.networkBufferSize = networkBufferSize;
         this.blockingShuffleCompressionEnabled = blockingShuffleCompressionEnabled;
-        this.compressionCodec = compressionCodec;
+        this.blockingShuffleCompressionCodec = blockingShuffleCompressionCodec;
+        this.compressionZstdLevel = compressionZstdLevel;
         this.maxBuffersPerChannel = maxBuffersPerChannel;
         this.sortShuffleMinBuffers = sortShuffleMinBuffers;
         this.sortShuffleMinParallelism = sortShuffleMinParallelism;
         this.sslEnabled = sslEnabled;
+        this.batchShuffleReadBufferPool = batchShuffleReadBufferPool;
+        this.batchShuffleReadIOExecutor = batchShuffleReadIOExecutor;
+        this.batchShuffleReadBytes = batchShuffleReadBytes;
     }
 
     public ResultPartition create(
@@ -123,7 +142,11 @@ public class ResultPartitionFactory {
             SupplierWithException<BufferPool, IOException> bufferPoolFactory) {
         BufferCompressor bufferCompressor = null;
         if (type.isBlocking() && blockingShuffleCompressionEnabled) {
-            bufferCompressor = new BufferCompressor(networkBufferSize, compressionCodec);
+            bufferCompressor =
+                    new BufferCompressor(
+                            networkBufferSize,
+                            blockingShuffleCompressionCodec,
+                            compressionZstdLevel);
         }
 
         ResultSubpartition[] subpartitions = new ResultSubpartition[numberOfSubpartitions];
@@ -170,6 +193,9 @@ public class ResultPartitionFactory {
                                 networkBufferSize,
                                 partitionManager,
                                 channelManager.createChannel().getPath(),
+                                batchShuffleReadBufferPool,
+                                batchShuffleReadIOExecutor,
+                                batchShuffleReadBytes,
                                 bufferCompressor,
                                 bufferPoolFactory);
             } else {
@@ -29,4 +29,18 @@ public interface ResultPartitionProvider {
             int index,
             BufferAvailabilityListener availabilityListener)
             throws IOException;
+
+    /**
+     * Returns a view reading the given number of consecutive subpartitions of the requested
+     * intermediate result partition, starting at the given index, one after the other.
+     */
+    default ResultSubpartitionView createSubpartitionRangeView(
+            ResultPartitionID partitionId,
+            int startIndex,
+            int numberOfSubpartitions,
+            BufferAvailabilityListener availabilityListener)
+            throws IOException {
+        return new SubpartitionRangeView(
+                this, partitionId, startIndex, numberOfSubpartitions, availabilityListener);
+    }
 }
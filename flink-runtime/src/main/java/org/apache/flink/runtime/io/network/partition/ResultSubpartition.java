@@ -22,6 +22,7 @@ import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.runtime.checkpoint.channel.ResultSubpartitionInfo;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 
 import java.io.IOException;
 
@@ -97,6 +98,23 @@ public abstract class ResultSubpartition {
 
     public abstract boolean isReleased();
 
+    /**
+     * Returns whether this subpartition is consumed by a reader that accepts {@link ObjectBuffer
+     * object buffers}, i.e. a reader in the same TaskManager.
+     */
+    public boolean isObjectExchange() {
+        return false;
+    }
+
+    /**
+     * Returns the size of the buffers that the consumer of this subpartition asked for via {@link
+     * ResultSubpartitionView#notifyNewBufferSize(int)}. Buffers of this subpartition should not be
+     * filled beyond this size.
+     */
+    public int getDesirableBufferSize() {
+        return Integer.MAX_VALUE;
+    }
+
     /**
      * Gets the number of non-event buffers in this subpartition.
      *
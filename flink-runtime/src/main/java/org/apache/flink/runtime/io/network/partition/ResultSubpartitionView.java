@@ -51,6 +51,12 @@ public interface ResultSubpartitionView {
 
     void resumeConsumption();
 
+    /**
+     * Notifies the subpartition about the size of the buffers that the consumer would like to
+     * receive. Subpartitions that do not support this ignore the notification.
+     */
+    default void notifyNewBufferSize(int newBufferSize) {}
+
     Throwable getFailureCause();
 
     boolean isAvailable(int numCreditsAvailable);
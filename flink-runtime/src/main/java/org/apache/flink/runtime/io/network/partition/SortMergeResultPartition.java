@@ -18,10 +18,11 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
-import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.metrics.Counter;
 import org.apache.flink.runtime.event.AbstractEvent;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
@@ -38,9 +39,8 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static org.apache.flink.runtime.io.network.buffer.Buffer.DataType;
 import static org.apache.flink.runtime.io.network.partition.SortBuffer.BufferWithChannel;
@@ -53,15 +53,18 @@ import static org.apache.flink.util.Preconditions.checkState;
  * {@link PartitionedFile} in subpartition index order sequentially. Large records that can not be
  * appended to an empty {@link SortBuffer} will be spilled to the result {@link PartitionedFile}
  * separately.
+ *
+ * <p>The produced {@link PartitionedFile} is read by a {@link
+ * SortMergeResultPartitionReadScheduler} for all consumers, with the read buffers and I/O threads
+ * shared by the TaskManager.
  */
 @NotThreadSafe
 public class SortMergeResultPartition extends ResultPartition {
 
     private final Object lock = new Object();
 
-    /** All active readers which are consuming data from this result partition now. */
-    @GuardedBy("lock")
-    private final Set<SortMergeSubpartitionReader> readers = new HashSet<>();
+    /** Scheduler which reads data for all active readers of this result partition. */
+    private final SortMergeResultPartitionReadScheduler readScheduler;
 
     /** {@link PartitionedFile} produced by this result partition. */
     @GuardedBy("lock")
@@ -92,6 +95,9 @@ public class SortMergeResultPartition extends ResultPartition {
             int networkBufferSize,
             ResultPartitionManager partitionManager,
             String resultFileBasePath,
+            BatchShuffleReadBufferPool readBufferPool,
+            Executor readIOExecutor,
+            Counter numBytesRead,
             @Nullable BufferCompressor bufferCompressor,
             SupplierWithException<BufferPool, IOException> bufferPoolFactory) {
 
@@ -109,6 +115,9 @@ public class SortMergeResultPartition extends ResultPartition {
         this.networkBufferSize = networkBufferSize;
         this.numDataBuffers = new int[numSubpartitions];
         this.writeBuffer = MemorySegmentFactory.allocateUnpooledOffHeapMemory(networkBufferSize);
+        this.readScheduler =
+                new SortMergeResultPartitionReadScheduler(
+                        readBufferPool, readIOExecutor, numBytesRead, lock);
 
         PartitionedFileWriter fileWriter = null;
         try {
@@ -128,7 +137,8 @@ public class SortMergeResultPartition extends ResultPartition {
             }
 
             // delete the produced file only when no reader is reading now
-            if (readers.isEmpty()) {
+            if (!readScheduler.hasSubpartitionReaders()) {
+                readScheduler.release();
                 if (resultFile != null) {
                     resultFile.deleteQuietly();
                     resultFile = null;
@@ -265,10 +275,10 @@ public class SortMergeResultPartition extends ResultPartition {
 
     void releaseReader(SortMergeSubpartitionReader reader) {
         synchronized (lock) {
-            readers.remove(reader);
+            readScheduler.releaseSubpartitionReader(reader);
 
             // release the result partition if it has been marked as released
-            if (readers.isEmpty() && isReleased()) {
+            if (!readScheduler.hasSubpartitionReaders() && isReleased()) {
                 releaseInternal();
             }
         }
@@ -306,17 +316,12 @@ public class SortMergeResultPartition extends ResultPartition {
             checkState(!isReleased(), "Partition released.");
             checkState(isFinished(), "Trying to read unfinished blocking partition.");
 
-            SortMergeSubpartitionReader reader =
-                    new SortMergeSubpartitionReader(
-                            subpartitionIndex,
-                            numDataBuffers[subpartitionIndex],
-                            networkBufferSize,
-                            this,
-                            availabilityListener,
-                            resultFile);
-            readers.add(reader);
-
-            return reader;
+            return readScheduler.createSubpartitionReader(
+                    this::releaseReader,
+                    availabilityListener,
+                    subpartitionIndex,
+                    numDataBuffers[subpartitionIndex],
+                    resultFile);
         }
     }
 
@@ -353,8 +358,16 @@ public class SortMergeResultPartition extends ResultPartition {
         return 0;
     }
 
-    @VisibleForTesting
-    PartitionedFile getResultFile() {
-        return resultFile;
+    /** Returns the produced {@link PartitionedFile}, or null if this partition is not finished. */
+    @Nullable
+    public PartitionedFile getResultFile() {
+        synchronized (lock) {
+            return resultFile;
+        }
+    }
+
+    /** Returns the number of data buffers (excluding events) written for each subpartition. */
+    public int[] getNumDataBuffers() {
+        return numDataBuffers.clone();
     }
 }
@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.util.IOUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Read scheduler of a {@link SortMergeResultPartition}, or of a {@link
+ * PartitionedFileSubpartitionProvider}, which reads data for all the {@link
+ * SortMergeSubpartitionReader}s consuming the partition. The reads are executed in the shared I/O
+ * threads of the TaskManager with the read buffers of the shared {@link
+ * BatchShuffleReadBufferPool}, and the readers are served in the order of their file offsets, so
+ * the {@link PartitionedFile} is read as sequentially as possible instead of being seeked back and
+ * forth by the independent readers.
+ *
+ * <p>Each round reads the remaining data of the current data region of every reader, or stops
+ * earlier if the read buffers run out or the reader already holds its fair share of the read
+ * buffers. A new round is scheduled when the consumers recycle read buffers or a new reader is
+ * created.
+ */
+class SortMergeResultPartitionReadScheduler implements Runnable, BufferRecycler {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(SortMergeResultPartitionReadScheduler.class);
+
+    /** Minimum number of read buffers a subpartition reader may hold. */
+    private static final int MIN_BUFFERS_PER_READER = 2;
+
+    /** Maximum time in milliseconds to wait for read buffers from the shared buffer pool. */
+    private static final long BUFFER_REQUEST_TIMEOUT_MS = 5 * 60 * 1000L;
+
+    /** Time in milliseconds to wait before requesting read buffers again. */
+    private static final long BUFFER_REQUEST_RETRY_INTERVAL_MS = 5L;
+
+    /** Lock of the corresponding {@link SortMergeResultPartition}. */
+    private final Object lock;
+
+    /** Buffer pool to request read buffers from. */
+    private final BatchShuffleReadBufferPool bufferPool;
+
+    /** Executor to run the reads in. */
+    private final Executor ioExecutor;
+
+    /** Number of bytes read from the {@link PartitionedFile}s of the TaskManager. */
+    private final Counter numBytesRead;
+
+    /** All subpartition readers of the corresponding {@link SortMergeResultPartition}. */
+    @GuardedBy("lock")
+    private final Set<SortMergeSubpartitionReader> allReaders = new HashSet<>();
+
+    /** Released or failed readers whose file readers are to be closed. */
+    @GuardedBy("lock")
+    private final Set<SortMergeSubpartitionReader> readersToClose = new HashSet<>();
+
+    /** Data file channel shared by all subpartition readers. */
+    @GuardedBy("lock")
+    private FileChannel dataFileChannel;
+
+    /** Index file channel shared by all subpartition readers. */
+    @GuardedBy("lock")
+    private FileChannel indexFileChannel;
+
+    /** Number of read buffers requested from the buffer pool and not recycled yet. */
+    @GuardedBy("lock")
+    private int numRequestedBuffers;
+
+    /** Whether a read round is scheduled or running now. */
+    @GuardedBy("lock")
+    private boolean isRunning;
+
+    /** Whether this scheduler has been released or not. */
+    @GuardedBy("lock")
+    private boolean isReleased;
+
+    SortMergeResultPartitionReadScheduler(
+            BatchShuffleReadBufferPool bufferPool,
+            Executor ioExecutor,
+            Counter numBytesRead,
+            Object lock) {
+        this.bufferPool = checkNotNull(bufferPool);
+        this.ioExecutor = checkNotNull(ioExecutor);
+        this.numBytesRead = checkNotNull(numBytesRead);
+        this.lock = checkNotNull(lock);
+    }
+
+    @Override
+    public void run() {
+        Queue<SortMergeSubpartitionReader> availableReaders = new ArrayDeque<>();
+        Queue<MemorySegment> buffers = new ArrayDeque<>();
+        int maxBuffersPerReader = 0;
+        try {
+            List<SortMergeSubpartitionReader> readers;
+            synchronized (lock) {
+                readers = new ArrayList<>(allReaders);
+                maxBuffersPerReader = getMaxBuffersPerReader();
+            }
+            availableReaders = getAvailableReaders(readers, maxBuffersPerReader);
+            if (!availableReaders.isEmpty()) {
+                buffers = allocateBuffers();
+            }
+        } catch (Throwable throwable) {
+            LOG.error("Failed to prepare the read of the sort-merge partition.", throwable);
+            failReaders(availableReaders, throwable);
+            availableReaders.clear();
+        }
+
+        while (!availableReaders.isEmpty() && !buffers.isEmpty()) {
+            SortMergeSubpartitionReader reader = availableReaders.poll();
+            try {
+                numBytesRead.inc(reader.readBuffers(buffers, this, maxBuffersPerReader));
+                if (reader.isReadable(maxBuffersPerReader)) {
+                    // continue from the new file offset of the reader
+                    availableReaders.add(reader);
+                }
+            } catch (Throwable throwable) {
+                LOG.error("Failed to read data from the sort-merge blocking partition.", throwable);
+                failReaders(Collections.singletonList(reader), throwable);
+            }
+        }
+
+        finishRound(buffers);
+    }
+
+    private Queue<SortMergeSubpartitionReader> getAvailableReaders(
+            List<SortMergeSubpartitionReader> readers, int maxBuffersPerReader) throws IOException {
+        Queue<SortMergeSubpartitionReader> availableReaders =
+                new PriorityQueue<>(
+                        Math.max(1, readers.size()),
+                        Comparator.comparingLong(SortMergeSubpartitionReader::getNextOffsetToRead));
+        for (SortMergeSubpartitionReader reader : readers) {
+            if (reader.isReadable(maxBuffersPerReader)) {
+                availableReaders.add(reader);
+            }
+        }
+        return availableReaders;
+    }
+
+    private Queue<MemorySegment> allocateBuffers() throws Exception {
+        long deadline = System.currentTimeMillis() + BUFFER_REQUEST_TIMEOUT_MS;
+        while (true) {
+            List<MemorySegment> buffers = bufferPool.requestBuffers();
+            synchronized (lock) {
+                numRequestedBuffers += buffers.size();
+                // the read buffers held by this scheduler will trigger the next round when
+                // recycled, so there is no need to wait for the other partitions
+                if (!buffers.isEmpty() || numRequestedBuffers > 0 || isReleased) {
+                    return new ArrayDeque<>(buffers);
+                }
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new TimeoutException(
+                        "Buffer request timeout, this means there is a fierce contention of the "
+                                + "batch shuffle read memory, please increase "
+                                + "'taskmanager.network.sort-shuffle.read-memory'.");
+            }
+            Thread.sleep(BUFFER_REQUEST_RETRY_INTERVAL_MS);
+        }
+    }
+
+    private void failReaders(Collection<SortMergeSubpartitionReader> readers, Throwable cause) {
+        for (SortMergeSubpartitionReader reader : readers) {
+            reader.fail(cause);
+        }
+    }
+
+    private void finishRound(Queue<MemorySegment> remainingBuffers) {
+        synchronized (lock) {
+            if (!remainingBuffers.isEmpty()) {
+                numRequestedBuffers -= remainingBuffers.size();
+                bufferPool.recycle(remainingBuffers);
+            }
+
+            closeReleasedReaders();
+            isRunning = false;
+
+            if (isReleased) {
+                closeFileChannels();
+            } else if (numRequestedBuffers == 0 || !remainingBuffers.isEmpty()) {
+                // otherwise the next round is triggered when the read buffers are recycled
+                mayTriggerReading();
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private int getMaxBuffersPerReader() {
+        return Math.max(
+                MIN_BUFFERS_PER_READER,
+                bufferPool.getNumTotalBuffers() / Math.max(1, allReaders.size()));
+    }
+
+    @GuardedBy("lock")
+    private void mayTriggerReading() {
+        if (isRunning || isReleased) {
+            return;
+        }
+
+        int maxBuffersPerReader = getMaxBuffersPerReader();
+        for (SortMergeSubpartitionReader reader : allReaders) {
+            if (reader.needsMoreData(maxBuffersPerReader)) {
+                isRunning = true;
+                try {
+                    ioExecutor.execute(this);
+                } catch (Throwable throwable) {
+                    isRunning = false;
+                    LOG.error("Failed to schedule the read of sort-merge partition.", throwable);
+                    failReaders(new ArrayList<>(allReaders), throwable);
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void recycle(MemorySegment segment) {
+        synchronized (lock) {
+            --numRequestedBuffers;
+            bufferPool.recycle(segment);
+            mayTriggerReading();
+        }
+    }
+
+    SortMergeSubpartitionReader createSubpartitionReader(
+            Consumer<SortMergeSubpartitionReader> releaseCallback,
+            BufferAvailabilityListener availabilityListener,
+            int targetSubpartition,
+            int dataBufferBacklog,
+            PartitionedFile resultFile)
+            throws IOException {
+        synchronized (lock) {
+            checkState(!isReleased, "Partition is already released.");
+
+            if (dataFileChannel == null) {
+                openFileChannels(resultFile);
+            }
+
+            PartitionedFileReader fileReader =
+                    new PartitionedFileReader(
+                            resultFile, targetSubpartition, dataFileChannel, indexFileChannel);
+            SortMergeSubpartitionReader subpartitionReader =
+                    new SortMergeSubpartitionReader(
+                            lock,
+                            releaseCallback,
+                            availabilityListener,
+                            dataBufferBacklog,
+                            fileReader);
+            allReaders.add(subpartitionReader);
+
+            mayTriggerReading();
+            return subpartitionReader;
+        }
+    }
+
+    @GuardedBy("lock")
+    private void openFileChannels(PartitionedFile resultFile) throws IOException {
+        dataFileChannel = FileChannel.open(resultFile.getDataFilePath(), StandardOpenOption.READ);
+        try {
+            indexFileChannel =
+                    FileChannel.open(resultFile.getIndexFilePath(), StandardOpenOption.READ);
+        } catch (Throwable throwable) {
+            IOUtils.closeQuietly(dataFileChannel);
+            dataFileChannel = null;
+            throw throwable;
+        }
+    }
+
+    /** Removes the released subpartition reader, its file reader is closed asynchronously. */
+    void releaseSubpartitionReader(SortMergeSubpartitionReader subpartitionReader) {
+        synchronized (lock) {
+            if (allReaders.remove(subpartitionReader)) {
+                readersToClose.add(subpartitionReader);
+            }
+
+            if (!isRunning) {
+                closeReleasedReaders();
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void closeReleasedReaders() {
+        for (SortMergeSubpartitionReader reader : readersToClose) {
+            reader.closeFileReader();
+        }
+        readersToClose.clear();
+    }
+
+    boolean hasSubpartitionReaders() {
+        synchronized (lock) {
+            return !allReaders.isEmpty();
+        }
+    }
+
+    /**
+     * Releases this scheduler after all subpartition readers have been released. The shared file
+     * channels are closed once the running read round, if any, has finished.
+     */
+    void release() {
+        synchronized (lock) {
+            if (isReleased) {
+                return;
+            }
+            isReleased = true;
+
+            if (!isRunning) {
+                closeReleasedReaders();
+                closeFileChannels();
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void closeFileChannels() {
+        IOUtils.closeAllQuietly(dataFileChannel, indexFileChannel);
+        dataFileChannel = null;
+        indexFileChannel = null;
+    }
+
+    @VisibleForTesting
+    int getNumRequestedBuffers() {
+        synchronized (lock) {
+            return numRequestedBuffers;
+        }
+    }
+}
@@ -19,154 +19,256 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.core.memory.MemorySegment;
-import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
-import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.IOUtils;
 
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.function.Consumer;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
-import static org.apache.flink.util.Preconditions.checkState;
 
-/** Subpartition data reader for {@link SortMergeResultPartition}. */
-public class SortMergeSubpartitionReader implements ResultSubpartitionView, BufferRecycler {
+/**
+ * Subpartition data reader for {@link SortMergeResultPartition}. The data is read by the {@link
+ * SortMergeResultPartitionReadScheduler} of the partition and queued in this reader until it is
+ * polled by the consumer.
+ */
+public class SortMergeSubpartitionReader implements ResultSubpartitionView {
 
-    private static final int NUM_READ_BUFFERS = 2;
+    /** Lock of the corresponding {@link SortMergeResultPartition}. */
+    private final Object lock;
 
-    /** Target {@link SortMergeResultPartition} to read data from. */
-    private final SortMergeResultPartition partition;
+    /** Removes this reader from the partition it reads, called when this reader is released. */
+    private final Consumer<SortMergeSubpartitionReader> releaseCallback;
 
     /** Listener to notify when data is available. */
     private final BufferAvailabilityListener availabilityListener;
 
-    /** Unmanaged memory used as read buffers. */
-    private final Queue<MemorySegment> readBuffers = new ArrayDeque<>();
-
     /** Buffers read by the file reader. */
+    @GuardedBy("lock")
     private final Queue<Buffer> buffersRead = new ArrayDeque<>();
 
-    /** File reader used to read buffer from. */
+    /** File reader used to read buffer from, only accessed by the read scheduler. */
     private final PartitionedFileReader fileReader;
 
     /** Number of remaining non-event buffers to read. */
+    @GuardedBy("lock")
     private int dataBufferBacklog;
 
+    /** Whether all data of the target subpartition has been read from the file or not. */
+    @GuardedBy("lock")
+    private boolean isEndOfData;
+
     /** Whether this reader is released or not. */
+    @GuardedBy("lock")
     private boolean isReleased;
 
+    /** Cause of the failure of this reader if it failed to read data. */
+    @GuardedBy("lock")
+    private Throwable failureCause;
+
     /** Sequence number of the next buffer to be sent to the consumer. */
+    @GuardedBy("lock")
     private int sequenceNumber;
 
-    public SortMergeSubpartitionReader(
-            int subpartitionIndex,
-            int dataBufferBacklog,
-            int bufferSize,
-            SortMergeResultPartition partition,
+    SortMergeSubpartitionReader(
+            Object lock,
+            Consumer<SortMergeSubpartitionReader> releaseCallback,
             BufferAvailabilityListener listener,
-            PartitionedFile partitionedFile)
-            throws IOException {
-        this.partition = checkNotNull(partition);
+            int dataBufferBacklog,
+            PartitionedFileReader fileReader) {
+        this.lock = checkNotNull(lock);
+        this.releaseCallback = checkNotNull(releaseCallback);
         this.availabilityListener = checkNotNull(listener);
         this.dataBufferBacklog = dataBufferBacklog;
+        this.fileReader = checkNotNull(fileReader);
+    }
+
+    @Nullable
+    @Override
+    public BufferAndBacklog getNextBuffer() {
+        synchronized (lock) {
+            if (isReleased) {
+                return null;
+            }
+
+            Buffer buffer = buffersRead.poll();
+            if (buffer == null) {
+                return null;
+            }
 
-        // allocate two pieces of unmanaged segments for data reading
-        for (int i = 0; i < NUM_READ_BUFFERS; i++) {
-            this.readBuffers.add(
-                    MemorySegmentFactory.allocateUnpooledOffHeapMemory(bufferSize, null));
+            if (buffer.isBuffer()) {
+                --dataBufferBacklog;
+            }
+
+            final Buffer lookAhead = buffersRead.peek();
+
+            return BufferAndBacklog.fromBufferAndLookahead(
+                    buffer,
+                    lookAhead == null ? Buffer.DataType.NONE : lookAhead.getDataType(),
+                    dataBufferBacklog,
+                    sequenceNumber++);
+        }
+    }
+
+    /**
+     * Reads the remaining buffers of the current data region with the given read buffers, or less
+     * if the read buffers run out or this reader would queue more than the given number of buffers.
+     * Called by the read scheduler only, without holding the lock.
+     *
+     * <p>Note: The caller is responsible for recycling the read buffers left in the queue.
+     *
+     * @return number of bytes read.
+     */
+    long readBuffers(
+            Queue<MemorySegment> readBuffers, BufferRecycler recycler, int maxNumQueuedBuffers)
+            throws IOException {
+        int numQueuedBuffers;
+        synchronized (lock) {
+            if (isReleased) {
+                return 0;
+            }
+            numQueuedBuffers = buffersRead.size();
         }
 
-        this.fileReader = new PartitionedFileReader(partitionedFile, subpartitionIndex);
+        List<Buffer> buffers = new ArrayList<>();
+        long numBytesRead = 0;
         try {
-            readBuffers();
-        } catch (Throwable throwable) {
-            // ensure that the file reader is closed when any exception occurs
-            IOUtils.closeQuietly(fileReader);
-            throw throwable;
+            while (!readBuffers.isEmpty()
+                    && numQueuedBuffers + buffers.size() < maxNumQueuedBuffers
+                    && fileReader.hasRemainingInCurrentRegion()) {
+                MemorySegment segment = readBuffers.poll();
+                Buffer buffer;
+                try {
+                    buffer = fileReader.readBuffer(segment, recycler);
+                } catch (Throwable throwable) {
+                    readBuffers.add(segment);
+                    throw throwable;
+                }
+
+                if (buffer == null) {
+                    readBuffers.add(segment);
+                    break;
+                }
+                numBytesRead += buffer.readableBytes();
+                buffers.add(buffer);
+            }
+        } finally {
+            addBuffersRead(buffers);
         }
+        return numBytesRead;
     }
 
-    @Nullable
-    @Override
-    public BufferAndBacklog getNextBuffer() {
-        checkState(!isReleased, "Reader is already released.");
+    private void addBuffersRead(List<Buffer> buffers) {
+        if (buffers.isEmpty()) {
+            return;
+        }
 
-        Buffer buffer = buffersRead.poll();
-        if (buffer == null) {
-            return null;
+        boolean wasEmpty;
+        synchronized (lock) {
+            if (isReleased) {
+                buffers.forEach(Buffer::recycleBuffer);
+                return;
+            }
+            wasEmpty = buffersRead.isEmpty();
+            buffersRead.addAll(buffers);
         }
 
-        if (buffer.isBuffer()) {
-            --dataBufferBacklog;
+        if (wasEmpty) {
+            availabilityListener.notifyDataAvailable();
         }
+    }
 
-        final Buffer lookAhead = buffersRead.peek();
+    /**
+     * Whether this reader can read more data now. Moves the file reader to the next data region if
+     * the current one has been read, so it must only be called by the read scheduler.
+     */
+    boolean isReadable(int maxNumQueuedBuffers) throws IOException {
+        if (!needsMoreData(maxNumQueuedBuffers)) {
+            return false;
+        }
 
-        return BufferAndBacklog.fromBufferAndLookahead(
-                buffer,
-                lookAhead == null ? Buffer.DataType.NONE : lookAhead.getDataType(),
-                dataBufferBacklog,
-                sequenceNumber++);
-    }
+        if (fileReader.hasRemaining()) {
+            return true;
+        }
 
-    void readBuffers() throws IOException {
-        // we do not need to recycle the allocated segment here if any exception occurs
-        // for this subpartition reader will be released so no resource will be leaked
-        MemorySegment segment;
-        while ((segment = readBuffers.poll()) != null) {
-            Buffer buffer = fileReader.readBuffer(segment, this);
-            if (buffer == null) {
-                readBuffers.add(segment);
-                break;
-            }
-            buffersRead.add(buffer);
+        synchronized (lock) {
+            isEndOfData = true;
         }
+        return false;
     }
 
-    @Override
-    public void notifyDataAvailable() {
-        if (!buffersRead.isEmpty()) {
-            availabilityListener.notifyDataAvailable();
+    /** Whether this reader has data left in the file and room for the given number of buffers. */
+    boolean needsMoreData(int maxNumQueuedBuffers) {
+        synchronized (lock) {
+            return !isReleased && !isEndOfData && buffersRead.size() < maxNumQueuedBuffers;
         }
     }
 
-    @Override
-    public void recycle(MemorySegment segment) {
-        if (!isReleased) {
-            readBuffers.add(segment);
+    /** Returns the file offset of the next buffer to read, see {@link #isReadable(int)}. */
+    long getNextOffsetToRead() {
+        return fileReader.getNextOffsetToRead();
+    }
+
+    /**
+     * Fails this reader. The reader stays available, so the consumer polls it and reports the
+     * failure, see {@link #getFailureCause()}.
+     */
+    void fail(Throwable throwable) {
+        synchronized (lock) {
+            if (isReleased) {
+                return;
+            }
+            isReleased = true;
+            failureCause = checkNotNull(throwable);
+
+            buffersRead.forEach(Buffer::recycleBuffer);
+            buffersRead.clear();
         }
 
-        // notify data available if the reader is unavailable currently
-        if (!isReleased && readBuffers.size() == NUM_READ_BUFFERS) {
-            try {
-                readBuffers();
-            } catch (IOException exception) {
-                ExceptionUtils.rethrow(exception, "Failed to read next buffer.");
+        availabilityListener.notifyDataAvailable();
+    }
+
+    /** Closes the file reader, called by the read scheduler after this reader is released. */
+    void closeFileReader() {
+        IOUtils.closeQuietly(fileReader);
+    }
+
+    @Override
+    public void notifyDataAvailable() {
+        synchronized (lock) {
+            if (buffersRead.isEmpty()) {
+                return;
             }
-            notifyDataAvailable();
         }
+        availabilityListener.notifyDataAvailable();
     }
 
     @Override
     public void releaseAllResources() {
-        isReleased = true;
+        synchronized (lock) {
+            isReleased = true;
 
-        buffersRead.clear();
-        readBuffers.clear();
+            buffersRead.forEach(Buffer::recycleBuffer);
+            buffersRead.clear();
+        }
 
-        IOUtils.closeQuietly(fileReader);
-        partition.releaseReader(this);
+        releaseCallback.accept(this);
     }
 
     @Override
     public boolean isReleased() {
-        return isReleased;
+        synchronized (lock) {
+            return isReleased;
+        }
     }
 
     @Override
@@ -176,17 +278,29 @@ public class SortMergeSubpartitionReader implements ResultSubpartitionView, Buff
 
     @Override
     public Throwable getFailureCause() {
-        // we can never throw an error after this was created
-        return null;
+        synchronized (lock) {
+            return failureCause;
+        }
     }
 
     @Override
     public boolean isAvailable(int numCreditsAvailable) {
-        if (numCreditsAvailable > 0) {
-            return !buffersRead.isEmpty();
-        }
+        synchronized (lock) {
+            if (failureCause != null) {
+                // the consumer must poll this reader to find out about the failure
+                return true;
+            }
+
+            if (isReleased) {
+                return false;
+            }
 
-        return !buffersRead.isEmpty() && !buffersRead.peek().isBuffer();
+            if (numCreditsAvailable > 0) {
+                return !buffersRead.isEmpty();
+            }
+
+            return !buffersRead.isEmpty() && !buffersRead.peek().isBuffer();
+        }
     }
 
     @Override
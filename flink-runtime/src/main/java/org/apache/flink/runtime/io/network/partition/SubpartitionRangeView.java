@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A view reading a range of consecutive subpartitions of a blocking result partition one after the
+ * other, so that a consumer needs a single input channel for the whole range.
+ *
+ * <p>The view of the next subpartition is only created once the previous subpartition is fully
+ * consumed. The {@link EndOfPartitionEvent} of every subpartition but the last one is swallowed and
+ * the returned buffers are numbered consecutively across all subpartitions.
+ *
+ * <p>When the view switches to the next subpartition, {@link #getNextBuffer()} returns {@code null}
+ * and notifies the availability listener, so that the consumer checks again whether the next
+ * subpartition has data available for its credits.
+ */
+public class SubpartitionRangeView implements ResultSubpartitionView {
+
+    private final Object lock = new Object();
+
+    private final ResultPartitionProvider partitionProvider;
+
+    private final ResultPartitionID partitionId;
+
+    /** The index of the last subpartition of the range. */
+    private final int lastSubpartitionIndex;
+
+    private final BufferAvailabilityListener availabilityListener;
+
+    /** The index of the subpartition currently read. */
+    @GuardedBy("lock")
+    private int currentSubpartitionIndex;
+
+    /** The view of the subpartition currently read. */
+    private volatile ResultSubpartitionView currentView;
+
+    /** The buffer size last announced by the consumer, or 0 if none was announced. */
+    @GuardedBy("lock")
+    private int bufferSize;
+
+    @GuardedBy("lock")
+    private int sequenceNumber;
+
+    private volatile boolean isReleased;
+
+    public SubpartitionRangeView(
+            ResultPartitionProvider partitionProvider,
+            ResultPartitionID partitionId,
+            int startIndex,
+            int numberOfSubpartitions,
+            BufferAvailabilityListener availabilityListener)
+            throws IOException {
+        checkArgument(startIndex >= 0, "Illegal subpartition index.");
+        checkArgument(numberOfSubpartitions > 0, "At least one subpartition must be read.");
+
+        this.partitionProvider = checkNotNull(partitionProvider);
+        this.partitionId = checkNotNull(partitionId);
+        this.lastSubpartitionIndex = startIndex + numberOfSubpartitions - 1;
+        this.availabilityListener = checkNotNull(availabilityListener);
+
+        this.currentSubpartitionIndex = startIndex;
+        this.currentView =
+                partitionProvider.createSubpartitionView(
+                        partitionId, startIndex, availabilityListener);
+    }
+
+    @Nullable
+    @Override
+    public BufferAndBacklog getNextBuffer() throws IOException {
+        synchronized (lock) {
+            if (isReleased) {
+                return null;
+            }
+
+            BufferAndBacklog next = currentView.getNextBuffer();
+            if (next == null) {
+                return null;
+            }
+
+            if (currentSubpartitionIndex < lastSubpartitionIndex
+                    && isEndOfPartitionEvent(next.buffer())) {
+                next.buffer().recycleBuffer();
+                switchToNextSubpartition();
+            } else {
+                return new BufferAndBacklog(
+                        next.buffer(),
+                        next.buffersInBacklog(),
+                        next.getNextDataType(),
+                        sequenceNumber++);
+            }
+        }
+
+        // the next subpartition may not have data for the consumer's credits yet
+        availabilityListener.notifyDataAvailable();
+        return null;
+    }
+
+    @GuardedBy("lock")
+    private void switchToNextSubpartition() throws IOException {
+        currentView.releaseAllResources();
+
+        currentSubpartitionIndex++;
+        currentView =
+                partitionProvider.createSubpartitionView(
+                        partitionId, currentSubpartitionIndex, availabilityListener);
+        if (bufferSize > 0) {
+            currentView.notifyNewBufferSize(bufferSize);
+        }
+    }
+
+    private boolean isEndOfPartitionEvent(Buffer buffer) throws IOException {
+        if (buffer.getDataType() != Buffer.DataType.EVENT_BUFFER) {
+            return false;
+        }
+        // the events of blocking partitions are read as file regions without being deserialized,
+        // these partitions contain no other events than the end of partition event
+        return buffer instanceof FileRegionBuffer
+                || EventSerializer.fromBuffer(buffer, getClass().getClassLoader())
+                        instanceof EndOfPartitionEvent;
+    }
+
+    @Override
+    public void notifyDataAvailable() {
+        currentView.notifyDataAvailable();
+    }
+
+    @Override
+    public void notifyPriorityEvent(int priorityBufferNumber) {
+        currentView.notifyPriorityEvent(priorityBufferNumber);
+    }
+
+    @Override
+    public void releaseAllResources() throws IOException {
+        synchronized (lock) {
+            isReleased = true;
+            currentView.releaseAllResources();
+        }
+    }
+
+    @Override
+    public boolean isReleased() {
+        return isReleased || currentView.isReleased();
+    }
+
+    @Override
+    public void resumeConsumption() {
+        currentView.resumeConsumption();
+    }
+
+    @Override
+    public void notifyNewBufferSize(int newBufferSize) {
+        synchronized (lock) {
+            bufferSize = newBufferSize;
+            currentView.notifyNewBufferSize(newBufferSize);
+        }
+    }
+
+    @Override
+    public Throwable getFailureCause() {
+        return currentView.getFailureCause();
+    }
+
+    @Override
+    public boolean isAvailable(int numCreditsAvailable) {
+        synchronized (lock) {
+            return !isReleased && currentView.isAvailable(numCreditsAvailable);
+        }
+    }
+
+    @Override
+    public int unsynchronizedGetNumberOfQueuedBuffers() {
+        return currentView.unsynchronizedGetNumberOfQueuedBuffers();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "SubpartitionRangeView(partition: %s, current subpartition: %s)",
+                partitionId, currentView);
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import org.apache.flink.runtime.io.network.api.EventAnnouncement;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.util.CloseableIterator;
 
 import org.slf4j.Logger;
@@ -107,13 +108,18 @@ public final class ChannelStatePersister {
         }
     }
 
-    protected void maybePersist(Buffer buffer) {
+    protected void maybePersist(Buffer buffer) throws IOException {
         if (checkpointStatus == CheckpointStatus.BARRIER_PENDING && buffer.isBuffer()) {
+            // records handed over as objects are persisted in their serialized form
+            Buffer persistedBuffer =
+                    buffer instanceof ObjectBuffer
+                            ? ((ObjectBuffer) buffer).serialize()
+                            : buffer.retainBuffer();
             channelStateWriter.addInputData(
                     lastSeenBarrier,
                     channelInfo,
                     ChannelStateWriter.SEQUENCE_NUMBER_UNKNOWN,
-                    CloseableIterator.ofElement(buffer.retainBuffer(), Buffer::recycleBuffer));
+                    CloseableIterator.ofElement(persistedBuffer, Buffer::recycleBuffer));
         }
     }
 
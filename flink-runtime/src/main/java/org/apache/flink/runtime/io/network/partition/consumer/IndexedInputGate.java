@@ -28,6 +28,13 @@ public abstract class IndexedInputGate extends InputGate implements Checkpointab
     /** Returns the index of this input gate. Only supported on */
     public abstract int getGateIndex();
 
+    /**
+     * Recalculates the size of the buffers which the channels of this gate should receive based on
+     * the throughput measured since the last call and announces it to the producers. Does nothing
+     * if buffer debloating is not supported or disabled.
+     */
+    public void triggerDebloating() {}
+
     @Override
     public void checkpointStarted(CheckpointBarrier barrier) throws CheckpointException {
         for (int index = 0, numChannels = getNumberOfInputChannels();
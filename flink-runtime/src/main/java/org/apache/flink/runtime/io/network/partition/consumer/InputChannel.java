@@ -130,6 +130,14 @@ public abstract class InputChannel {
      */
     public abstract void resumeConsumption() throws IOException;
 
+    /**
+     * Announces the size of the buffers that this channel would like to receive to the producer.
+     * Channels without a producer to talk to ignore the announcement.
+     *
+     * @param newBufferSize The new buffer size in bytes.
+     */
+    public void announceBufferSize(int newBufferSize) {}
+
     /**
      * Notifies the owning {@link SingleInputGate} that this channel became non-empty.
      *
@@ -287,6 +295,14 @@ public abstract class InputChannel {
         return 0;
     }
 
+    /**
+     * Returns the number of buffers of this channel which are filled or about to be filled by the
+     * producer, i.e. the buffers whose data is in flight from the perspective of the consumer.
+     */
+    public int getBuffersInUseCount() {
+        return unsynchronizedGetNumberOfQueuedBuffers();
+    }
+
     // ------------------------------------------------------------------------
 
     /**
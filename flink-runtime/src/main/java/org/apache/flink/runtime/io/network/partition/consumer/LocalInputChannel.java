@@ -28,6 +28,7 @@ import org.apache.flink.runtime.io.network.TaskEventPublisher;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.logger.NetworkActionsLogger;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
@@ -68,6 +69,9 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
     /** The consumed subpartition. */
     @Nullable private volatile ResultSubpartitionView subpartitionView;
 
+    /** The last announced buffer size, 0 if no size has been announced yet. */
+    private volatile int announcedBufferSize;
+
     private volatile boolean isReleased;
 
     private final ChannelStatePersister channelStatePersister;
@@ -151,9 +155,16 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
                         channelStatePersister);
 
                 try {
+                    int numberOfSubpartitions = inputGate.getNumberOfConsumedSubpartitions();
                     ResultSubpartitionView subpartitionView =
-                            partitionManager.createSubpartitionView(
-                                    partitionId, subpartitionIndex, this);
+                            numberOfSubpartitions > 1
+                                    ? partitionManager.createSubpartitionRangeView(
+                                            partitionId,
+                                            subpartitionIndex,
+                                            numberOfSubpartitions,
+                                            this)
+                                    : partitionManager.createSubpartitionView(
+                                            partitionId, subpartitionIndex, this);
 
                     if (subpartitionView == null) {
                         throw new IOException("Error requesting subpartition.");
@@ -167,6 +178,11 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
                         subpartitionView.releaseAllResources();
                         this.subpartitionView = null;
                     } else {
+                        // the buffer size might have been announced before the view was created
+                        int bufferSize = announcedBufferSize;
+                        if (bufferSize > 0) {
+                            subpartitionView.notifyNewBufferSize(bufferSize);
+                        }
                         notifyDataAvailable = true;
                     }
                 } catch (PartitionNotFoundException notFound) {
@@ -254,7 +270,9 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
             buffer = ((FileRegionBuffer) buffer).readInto(inputGate.getUnpooledSegment());
         }
 
-        numBytesIn.inc(buffer.getSize());
+        if (!(buffer instanceof ObjectBuffer)) {
+            numBytesIn.inc(buffer.getSize());
+        }
         numBuffersIn.inc();
         channelStatePersister.checkForBarrier(buffer);
         channelStatePersister.maybePersist(buffer);
@@ -278,6 +296,11 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
         notifyChannelNonEmpty();
     }
 
+    @Override
+    public boolean supportsObjectBuffers() {
+        return true;
+    }
+
     private ResultSubpartitionView checkAndWaitForSubpartitionView() {
         // synchronizing on the request lock means this blocks until the asynchronous request
         // for the partition view has been completed
@@ -302,6 +325,15 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
         }
     }
 
+    @Override
+    public void announceBufferSize(int newBufferSize) {
+        announcedBufferSize = newBufferSize;
+        ResultSubpartitionView subpartitionView = this.subpartitionView;
+        if (subpartitionView != null) {
+            subpartitionView.notifyNewBufferSize(newBufferSize);
+        }
+    }
+
     // ------------------------------------------------------------------------
     // Task events
     // ------------------------------------------------------------------------
@@ -91,6 +91,9 @@ public class RemoteInputChannel extends InputChannel {
     /** Client to establish a (possibly shared) TCP connection and request the partition. */
     private volatile PartitionRequestClient partitionRequestClient;
 
+    /** The last buffer size announced to the producer, 0 if no size has been announced yet. */
+    private volatile int announcedBufferSize;
+
     /** The next expected sequence number for the next buffer. */
     private int expectedSequenceNumber = 0;
 
@@ -355,6 +358,16 @@ public class RemoteInputChannel extends InputChannel {
         partitionRequestClient.resumeConsumption(this);
     }
 
+    @Override
+    public void announceBufferSize(int newBufferSize) {
+        // the size is sent with the partition request if the partition has not been requested yet
+        announcedBufferSize = newBufferSize;
+        PartitionRequestClient client = partitionRequestClient;
+        if (!isReleased.get() && client != null) {
+            client.notifyNewBufferSize(this, newBufferSize);
+        }
+    }
+
     // ------------------------------------------------------------------------
     // Network I/O notifications (called by network I/O thread)
     // ------------------------------------------------------------------------
@@ -393,6 +406,14 @@ public class RemoteInputChannel extends InputChannel {
         return Math.max(0, receivedBuffers.size());
     }
 
+    @Override
+    public int getBuffersInUseCount() {
+        return unsynchronizedGetNumberOfQueuedBuffers()
+                + Math.max(
+                        0,
+                        bufferManager.unsynchronizedGetNumberOfRequiredBuffers() - initialCredit);
+    }
+
     public int unsynchronizedGetExclusiveBuffersUsed() {
         return Math.max(
                 0, initialCredit - bufferManager.unsynchronizedGetAvailableExclusiveBuffers());
@@ -410,6 +431,19 @@ public class RemoteInputChannel extends InputChannel {
         return initialCredit;
     }
 
+    /**
+     * Returns the number of consecutive subpartitions which this channel reads of its partition,
+     * starting at the requested subpartition index.
+     */
+    public int getNumberOfConsumedSubpartitions() {
+        return inputGate.getNumberOfConsumedSubpartitions();
+    }
+
+    /** Returns the last announced buffer size, or 0 if no size has been announced yet. */
+    public int getAnnouncedBufferSize() {
+        return announcedBufferSize;
+    }
+
     public BufferProvider getBufferProvider() throws IOException {
         if (isReleased.get()) {
             return null;
@@ -452,6 +486,8 @@ public class RemoteInputChannel extends InputChannel {
                 return;
             }
 
+            buffer = inputGate.decompressReceivedBuffer(buffer);
+
             final boolean wasEmpty;
             boolean firstPriorityEvent = false;
             synchronized (receivedBuffers) {
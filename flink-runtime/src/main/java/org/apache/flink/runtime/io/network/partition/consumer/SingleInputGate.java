@@ -33,6 +33,7 @@ import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.partition.PartitionProducerStateProvider;
 import org.apache.flink.runtime.io.network.partition.PrioritizedDeque;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -42,6 +43,8 @@ import org.apache.flink.runtime.jobgraph.DistributionPattern;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+import org.apache.flink.runtime.throughput.BufferDebloater;
+import org.apache.flink.runtime.throughput.ThroughputCalculator;
 import org.apache.flink.util.Preconditions;
 import org.apache.flink.util.function.SupplierWithException;
 
@@ -59,6 +62,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Timer;
 import java.util.concurrent.CompletableFuture;
 
@@ -134,6 +138,13 @@ public class SingleInputGate extends IndexedInputGate {
      */
     private final int consumedSubpartitionIndex;
 
+    /**
+     * The number of consecutive subpartitions consumed of each consumed partition, starting at the
+     * {@link #consumedSubpartitionIndex}. A range of subpartitions is read through a single input
+     * channel per partition.
+     */
+    private final int numberOfConsumedSubpartitions;
+
     /** The number of input channels (equivalent to the number of consumed partitions). */
     private final int numberOfInputChannels;
 
@@ -196,18 +207,58 @@ public class SingleInputGate extends IndexedInputGate {
      */
     private final MemorySegment unpooledSegment;
 
+    /** Measures the throughput of this gate. Only accessed by the task thread. */
+    private final ThroughputCalculator throughputCalculator;
+
+    /** Adapts the buffer size to the throughput, or {@code null} if debloating is disabled. */
+    @Nullable private final BufferDebloater bufferDebloater;
+
+    public SingleInputGate(
+            String owningTaskName,
+            int gateIndex,
+            IntermediateDataSetID consumedResultId,
+            final ResultPartitionType consumedPartitionType,
+            int consumedSubpartitionIndex,
+            int numberOfInputChannels,
+            PartitionProducerStateProvider partitionProducerStateProvider,
+            SupplierWithException<BufferPool, IOException> bufferPoolFactory,
+            @Nullable BufferDecompressor bufferDecompressor,
+            MemorySegmentProvider memorySegmentProvider,
+            int segmentSize,
+            ThroughputCalculator throughputCalculator,
+            @Nullable BufferDebloater bufferDebloater) {
+        this(
+                owningTaskName,
+                gateIndex,
+                consumedResultId,
+                consumedPartitionType,
+                consumedSubpartitionIndex,
+                1,
+                numberOfInputChannels,
+                partitionProducerStateProvider,
+                bufferPoolFactory,
+                bufferDecompressor,
+                memorySegmentProvider,
+                segmentSize,
+                throughputCalculator,
+                bufferDebloater);
+    }
+
     public SingleInputGate(
             String owningTaskName,
             int gateIndex,
             IntermediateDataSetID consumedResultId,
             final ResultPartitionType consumedPartitionType,
             int consumedSubpartitionIndex,
+            int numberOfConsumedSubpartitions,
             int numberOfInputChannels,
             PartitionProducerStateProvider partitionProducerStateProvider,
             SupplierWithException<BufferPool, IOException> bufferPoolFactory,
             @Nullable BufferDecompressor bufferDecompressor,
             MemorySegmentProvider memorySegmentProvider,
-            int segmentSize) {
+            int segmentSize,
+            ThroughputCalculator throughputCalculator,
+            @Nullable BufferDebloater bufferDebloater) {
 
         this.owningTaskName = checkNotNull(owningTaskName);
         Preconditions.checkArgument(0 <= gateIndex, "The gate index must be positive.");
@@ -220,6 +271,9 @@ public class SingleInputGate extends IndexedInputGate {
         checkArgument(consumedSubpartitionIndex >= 0);
         this.consumedSubpartitionIndex = consumedSubpartitionIndex;
 
+        checkArgument(numberOfConsumedSubpartitions > 0);
+        this.numberOfConsumedSubpartitions = numberOfConsumedSubpartitions;
+
         checkArgument(numberOfInputChannels > 0);
         this.numberOfInputChannels = numberOfInputChannels;
 
@@ -238,6 +292,9 @@ public class SingleInputGate extends IndexedInputGate {
         this.closeFuture = new CompletableFuture<>();
 
         this.unpooledSegment = MemorySegmentFactory.allocateUnpooledSegment(segmentSize);
+
+        this.throughputCalculator = checkNotNull(throughputCalculator);
+        this.bufferDebloater = bufferDebloater;
     }
 
     protected PrioritizedDeque<InputChannel> getInputChannelsWithData() {
@@ -349,6 +406,14 @@ public class SingleInputGate extends IndexedInputGate {
         return gateIndex;
     }
 
+    /**
+     * Returns the number of consecutive subpartitions which each input channel reads of its
+     * consumed partition, starting at the consumed subpartition index.
+     */
+    public int getNumberOfConsumedSubpartitions() {
+        return numberOfConsumedSubpartitions;
+    }
+
     /**
      * Returns the type of this input channel's consumed result partition.
      *
@@ -392,6 +457,41 @@ public class SingleInputGate extends IndexedInputGate {
         return 0;
     }
 
+    /**
+     * Returns the number of buffers of all channels which are filled or about to be filled by the
+     * producers.
+     */
+    public int getBuffersInUseCount() {
+        int total = 0;
+        for (InputChannel channel : channels) {
+            total += channel.getBuffersInUseCount();
+        }
+        return total;
+    }
+
+    @Nullable
+    public BufferDebloater getBufferDebloater() {
+        return bufferDebloater;
+    }
+
+    @Override
+    public void triggerDebloating() {
+        if (bufferDebloater == null || isFinished() || closeFuture.isDone()) {
+            return;
+        }
+
+        OptionalInt newBufferSize =
+                bufferDebloater.recalculateBufferSize(
+                        throughputCalculator.calculateThroughput(), getBuffersInUseCount());
+        if (newBufferSize.isPresent()) {
+            synchronized (requestLock) {
+                for (InputChannel channel : channels) {
+                    channel.announceBufferSize(newBufferSize.getAsInt());
+                }
+            }
+        }
+    }
+
     public CompletableFuture<Void> getCloseFuture() {
         return closeFuture;
     }
@@ -708,6 +808,11 @@ public class SingleInputGate extends IndexedInputGate {
             boolean moreAvailable,
             InputChannel currentChannel,
             boolean morePriorityEvents) {
+        // the size of an object buffer counts records, so the occupied memory is measured instead
+        throughputCalculator.incomingDataSize(
+                buffer instanceof ObjectBuffer
+                        ? ((ObjectBuffer) buffer).getOccupiedBytes()
+                        : buffer.getSize());
         return new BufferOrEvent(
                 decompressBufferIfNeeded(buffer),
                 currentChannel.getChannelInfo(),
@@ -754,6 +859,25 @@ public class SingleInputGate extends IndexedInputGate {
                 morePriorityEvents);
     }
 
+    /**
+     * Decompresses a compressed buffer of a pipelined partition in place when it is received by a
+     * remote input channel, so that the in-flight data of the channel, which may be persisted for
+     * unaligned checkpoints, is never compressed. The buffers of blocking partitions are
+     * decompressed when they are consumed, see {@link #decompressBufferIfNeeded(Buffer)}.
+     *
+     * <p>This method is called by the netty threads of all remote input channels of this gate.
+     */
+    Buffer decompressReceivedBuffer(Buffer buffer) {
+        if (!buffer.isCompressed() || !consumedPartitionType.isPipelined()) {
+            return buffer;
+        }
+
+        checkNotNull(bufferDecompressor, "Buffer decompressor not set.");
+        synchronized (bufferDecompressor) {
+            return bufferDecompressor.decompressToOriginalBuffer(buffer);
+        }
+    }
+
     private Buffer decompressBufferIfNeeded(Buffer buffer) {
         if (buffer.isCompressed()) {
             try {
@@ -920,6 +1044,8 @@ public class SingleInputGate extends IndexedInputGate {
                 throw new IllegalStateException("Released");
             }
 
+            // the time without available data is not caused by this consumer
+            throughputCalculator.pauseMeasurement();
             if (blocking) {
                 inputChannelsWithData.wait();
             } else {
@@ -36,12 +36,17 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
 import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
 import org.apache.flink.runtime.shuffle.ShuffleDescriptor;
 import org.apache.flink.runtime.taskmanager.NettyShuffleEnvironmentConfiguration;
+import org.apache.flink.runtime.throughput.BufferDebloatConfiguration;
+import org.apache.flink.runtime.throughput.BufferDebloater;
+import org.apache.flink.runtime.throughput.ThroughputCalculator;
+import org.apache.flink.util.clock.SystemClock;
 import org.apache.flink.util.function.SupplierWithException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.IOException;
 
@@ -71,10 +76,16 @@ public class SingleInputGateFactory {
 
     private final boolean blockingShuffleCompressionEnabled;
 
+    private final String blockingShuffleCompressionCodec;
+
+    private final boolean pipelinedShuffleCompressionEnabled;
+
     private final String compressionCodec;
 
     private final int networkBufferSize;
 
+    private final BufferDebloatConfiguration debloatConfiguration;
+
     public SingleInputGateFactory(
             @Nonnull ResourceID taskExecutorResourceId,
             @Nonnull NettyShuffleEnvironmentConfiguration networkConfig,
@@ -89,8 +100,12 @@ public class SingleInputGateFactory {
         this.floatingNetworkBuffersPerGate = networkConfig.floatingNetworkBuffersPerGate();
         this.blockingShuffleCompressionEnabled =
                 networkConfig.isBlockingShuffleCompressionEnabled();
+        this.blockingShuffleCompressionCodec = networkConfig.getBlockingShuffleCompressionCodec();
+        this.pipelinedShuffleCompressionEnabled =
+                networkConfig.isPipelinedShuffleCompressionEnabled();
         this.compressionCodec = networkConfig.getCompressionCodec();
         this.networkBufferSize = networkConfig.networkBufferSize();
+        this.debloatConfiguration = networkConfig.getDebloatConfiguration();
         this.connectionManager = connectionManager;
         this.partitionManager = partitionManager;
         this.taskEventPublisher = taskEventPublisher;
@@ -114,6 +129,10 @@ public class SingleInputGateFactory {
 
         BufferDecompressor bufferDecompressor = null;
         if (igdd.getConsumedPartitionType().isBlocking() && blockingShuffleCompressionEnabled) {
+            bufferDecompressor =
+                    new BufferDecompressor(networkBufferSize, blockingShuffleCompressionCodec);
+        } else if (igdd.getConsumedPartitionType().isPipelined()
+                && pipelinedShuffleCompressionEnabled) {
             bufferDecompressor = new BufferDecompressor(networkBufferSize, compressionCodec);
         }
 
@@ -124,17 +143,25 @@ public class SingleInputGateFactory {
                         igdd.getConsumedResultId(),
                         igdd.getConsumedPartitionType(),
                         igdd.getConsumedSubpartitionIndex(),
+                        igdd.getNumberOfConsumedSubpartitions(),
                         igdd.getShuffleDescriptors().length,
                         partitionProducerStateProvider,
                         bufferPoolFactory,
                         bufferDecompressor,
                         networkBufferPool,
-                        networkBufferSize);
+                        networkBufferSize,
+                        new ThroughputCalculator(SystemClock.getInstance()),
+                        maybeCreateBufferDebloater());
 
         createInputChannels(owningTaskName, igdd, inputGate, metrics);
         return inputGate;
     }
 
+    @Nullable
+    private BufferDebloater maybeCreateBufferDebloater() {
+        return debloatConfiguration.isEnabled() ? new BufferDebloater(debloatConfiguration) : null;
+    }
+
     private void createInputChannels(
             String owningTaskName,
             InputGateDeploymentDescriptor inputGateDeploymentDescriptor,
@@ -55,6 +55,9 @@ public class JobEdge implements java.io.Serializable {
      */
     private String shipStrategyName;
 
+    /** Whether every record of the source is sent to all subtasks of the target. */
+    private boolean isBroadcast;
+
     /**
      * Optional name for the pre-processing operation (sort, combining sort, ...), to be displayed
      * in the JSON plan
@@ -181,6 +184,24 @@ public class JobEdge implements java.io.Serializable {
         this.shipStrategyName = shipStrategyName;
     }
 
+    /**
+     * Gets whether the represented input broadcasts all of its data to every subtask of the target.
+     *
+     * @return True, if the data of the input is broadcast, false otherwise.
+     */
+    public boolean isBroadcast() {
+        return isBroadcast;
+    }
+
+    /**
+     * Sets whether the represented input broadcasts all of its data to every subtask of the target.
+     *
+     * @param broadcast True, if the data of the input is broadcast.
+     */
+    public void setBroadcast(boolean broadcast) {
+        isBroadcast = broadcast;
+    }
+
     /**
      * Gets the channel state rescaler used for rescaling persisted data on downstream side of this
      * JobEdge.
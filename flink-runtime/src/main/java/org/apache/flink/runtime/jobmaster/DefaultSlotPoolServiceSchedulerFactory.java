@@ -39,6 +39,7 @@ import org.apache.flink.runtime.jobmaster.slotpool.SlotPoolService;
 import org.apache.flink.runtime.jobmaster.slotpool.SlotPoolServiceFactory;
 import org.apache.flink.runtime.metrics.groups.JobManagerJobMetricGroup;
 import org.apache.flink.runtime.rpc.FatalErrorHandler;
+import org.apache.flink.runtime.scheduler.AdaptiveBatchSchedulerFactory;
 import org.apache.flink.runtime.scheduler.DefaultSchedulerFactory;
 import org.apache.flink.runtime.scheduler.SchedulerNG;
 import org.apache.flink.runtime.scheduler.SchedulerNGFactory;
@@ -154,6 +155,12 @@ public final class DefaultSlotPoolServiceSchedulerFactory
                         "Adaptive Scheduler configured, but Batch job detected. Changing scheduler type to NG / DefaultScheduler.");
                 // overwrite
                 schedulerType = JobManagerOptions.SchedulerType.Ng;
+            } else if (schedulerType == JobManagerOptions.SchedulerType.AdaptiveBatch
+                    && jobType == JobType.STREAMING) {
+                LOG.info(
+                        "Adaptive Batch Scheduler configured, but Streaming job detected. Changing scheduler type to NG / DefaultScheduler.");
+                // overwrite
+                schedulerType = JobManagerOptions.SchedulerType.Ng;
             }
 
             switch (schedulerType) {
@@ -166,6 +173,15 @@ public final class DefaultSlotPoolServiceSchedulerFactory
                                     slotIdleTimeout,
                                     batchSlotTimeout);
                     break;
+                case AdaptiveBatch:
+                    schedulerNGFactory = new AdaptiveBatchSchedulerFactory();
+                    slotPoolServiceFactory =
+                            new DeclarativeSlotPoolBridgeServiceFactory(
+                                    SystemClock.getInstance(),
+                                    rpcTimeout,
+                                    slotIdleTimeout,
+                                    batchSlotTimeout);
+                    break;
                 case Adaptive:
                     schedulerNGFactory = new AdaptiveSchedulerFactory();
                     slotPoolServiceFactory =
@@ -984,15 +984,17 @@ public class JobMaster extends PermanentlyFencedRpcEndpoint<JobMasterId>
 
         if (newJobStatus.isGloballyTerminalState()) {
             runAsync(
-                    () ->
-                            registeredTaskManagers
-                                    .keySet()
-                                    .forEach(
-                                            newJobStatus == JobStatus.FINISHED
-                                                    ? partitionTracker
-                                                            ::stopTrackingAndReleaseOrPromotePartitionsFor
-                                                    : partitionTracker
-                                                            ::stopTrackingAndReleasePartitionsFor));
+                    () -> {
+                        registeredTaskManagers
+                                .keySet()
+                                .forEach(
+                                        newJobStatus == JobStatus.FINISHED
+                                                ? partitionTracker
+                                                        ::stopTrackingAndReleaseOrPromotePartitionsFor
+                                                : partitionTracker
+                                                        ::stopTrackingAndReleasePartitionsFor);
+                        partitionTracker.stopTrackingAndReleaseExternalPartitions();
+                    });
 
             final ExecutionGraphInfo executionGraphInfo = schedulerNG.requestJob();
             scheduledExecutorService.execute(
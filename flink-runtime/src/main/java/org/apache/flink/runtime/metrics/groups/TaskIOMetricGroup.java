@@ -24,11 +24,14 @@ import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.MeterView;
 import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.executiongraph.IOMetrics;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 import org.apache.flink.runtime.metrics.MetricNames;
 import org.apache.flink.runtime.metrics.TimerGauge;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Metric group that contains shareable pre-defined IO-related metrics. The metrics registration is
@@ -37,7 +40,7 @@ import java.util.List;
 public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 
     private final Counter numBytesIn;
-    private final Counter numBytesOut;
+    private final SumCounter numBytesOut;
     private final SumCounter numRecordsIn;
     private final SumCounter numRecordsOut;
     private final Counter numBuffersOut;
@@ -53,11 +56,14 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 
     private volatile boolean busyTimeEnabled;
 
+    private final Map<IntermediateResultPartitionID, Counter> numBytesProducedOfPartitions =
+            new HashMap<>();
+
     public TaskIOMetricGroup(TaskMetricGroup parent) {
         super(parent);
 
         this.numBytesIn = counter(MetricNames.IO_NUM_BYTES_IN);
-        this.numBytesOut = counter(MetricNames.IO_NUM_BYTES_OUT);
+        this.numBytesOut = counter(MetricNames.IO_NUM_BYTES_OUT, new SumCounter());
         this.numBytesInRate = meter(MetricNames.IO_NUM_BYTES_IN_RATE, new MeterView(numBytesIn));
         this.numBytesOutRate = meter(MetricNames.IO_NUM_BYTES_OUT_RATE, new MeterView(numBytesOut));
 
@@ -79,7 +85,17 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
     }
 
     public IOMetrics createSnapshot() {
-        return new IOMetrics(numRecordsInRate, numRecordsOutRate, numBytesInRate, numBytesOutRate);
+        Map<IntermediateResultPartitionID, Long> numBytesProduced = new HashMap<>();
+        for (Map.Entry<IntermediateResultPartitionID, Counter> entry :
+                numBytesProducedOfPartitions.entrySet()) {
+            numBytesProduced.put(entry.getKey(), entry.getValue().getCount());
+        }
+        return new IOMetrics(
+                numRecordsInRate,
+                numRecordsOutRate,
+                numBytesInRate,
+                numBytesOutRate,
+                numBytesProduced);
     }
 
     // ============================================================================================
@@ -134,6 +150,17 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
         this.numRecordsOut.addCounter(numRecordsOutCounter);
     }
 
+    /**
+     * Registers the counter of the bytes produced into the given result partition. The counter is
+     * added to the bytes out of the task and reported per partition in the {@link IOMetrics}.
+     */
+    public void registerNumBytesProducedCounterForPartition(
+            IntermediateResultPartitionID resultPartitionId, Counter numBytesProducedCounter) {
+        if (numBytesProducedOfPartitions.put(resultPartitionId, numBytesProducedCounter) == null) {
+            this.numBytesOut.addCounter(numBytesProducedCounter);
+        }
+    }
+
     /**
      * A {@link SimpleCounter} that can contain other {@link Counter}s. A call to {@link
      * SumCounter#getCount()} returns the sum of this counters and all contained counters.
@@ -49,6 +49,10 @@ public class SerializationDelegate<T> implements IOReadableWritable {
         return this.instance;
     }
 
+    public TypeSerializer<T> getSerializer() {
+        return this.serializer;
+    }
+
     @Override
     public void write(DataOutputView out) throws IOException {
         this.serializer.serialize(this.instance, out);
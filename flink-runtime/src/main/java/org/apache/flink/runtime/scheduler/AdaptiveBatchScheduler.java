@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.scheduler;
+
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.blob.BlobWriter;
+import org.apache.flink.runtime.checkpoint.CheckpointRecoveryFactory;
+import org.apache.flink.runtime.concurrent.ComponentMainThreadExecutor;
+import org.apache.flink.runtime.concurrent.ScheduledExecutor;
+import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.ExecutionVertex;
+import org.apache.flink.runtime.executiongraph.IOMetrics;
+import org.apache.flink.runtime.executiongraph.IntermediateResult;
+import org.apache.flink.runtime.executiongraph.JobStatusListener;
+import org.apache.flink.runtime.executiongraph.failover.flip1.FailoverStrategy;
+import org.apache.flink.runtime.executiongraph.failover.flip1.RestartBackoffTimeStrategy;
+import org.apache.flink.runtime.io.network.partition.JobMasterPartitionTracker;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.jobmaster.ExecutionDeploymentTracker;
+import org.apache.flink.runtime.metrics.groups.JobManagerJobMetricGroup;
+import org.apache.flink.runtime.scheduler.strategy.ExecutionVertexID;
+import org.apache.flink.runtime.scheduler.strategy.SchedulingStrategyFactory;
+import org.apache.flink.runtime.shuffle.ShuffleMaster;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link DefaultScheduler} for batch jobs which decides the parallelism of job vertices at
+ * runtime, from the amount of data their producers have produced.
+ *
+ * <p>The execution graph of an adaptive job vertex is created at the max parallelism of the vertex.
+ * Once all its blocking inputs are finished and the vertex is scheduled for the first time, its
+ * parallelism is decided by the {@link VertexParallelismDecider}. Only the subtasks below the
+ * decided parallelism are deployed, each of them consuming a contiguous range of the subpartitions
+ * of its inputs. The remaining subtasks are finished without being deployed.
+ */
+public class AdaptiveBatchScheduler extends DefaultScheduler {
+
+    private final Logger log;
+
+    private final Set<JobVertexID> adaptiveVertices;
+
+    private final Set<JobVertexID> decidedVertices = new HashSet<>();
+
+    private final VertexParallelismDecider vertexParallelismDecider;
+
+    AdaptiveBatchScheduler(
+            final Logger log,
+            final JobGraph jobGraph,
+            final Executor ioExecutor,
+            final Configuration jobMasterConfiguration,
+            final Consumer<ComponentMainThreadExecutor> startUpAction,
+            final ScheduledExecutorService futureExecutor,
+            final ScheduledExecutor delayExecutor,
+            final ClassLoader userCodeLoader,
+            final CheckpointRecoveryFactory checkpointRecoveryFactory,
+            final Time rpcTimeout,
+            final BlobWriter blobWriter,
+            final JobManagerJobMetricGroup jobManagerJobMetricGroup,
+            final ShuffleMaster<?> shuffleMaster,
+            final JobMasterPartitionTracker partitionTracker,
+            final SchedulingStrategyFactory schedulingStrategyFactory,
+            final FailoverStrategy.Factory failoverStrategyFactory,
+            final RestartBackoffTimeStrategy restartBackoffTimeStrategy,
+            final ExecutionVertexOperations executionVertexOperations,
+            final ExecutionVertexVersioner executionVertexVersioner,
+            final ExecutionSlotAllocatorFactory executionSlotAllocatorFactory,
+            final ExecutionDeploymentTracker executionDeploymentTracker,
+            long initializationTimestamp,
+            final ComponentMainThreadExecutor mainThreadExecutor,
+            final JobStatusListener jobStatusListener,
+            final Set<JobVertexID> adaptiveVertices,
+            final VertexParallelismDecider vertexParallelismDecider)
+            throws Exception {
+
+        super(
+                log,
+                jobGraph,
+                ioExecutor,
+                jobMasterConfiguration,
+                startUpAction,
+                futureExecutor,
+                delayExecutor,
+                userCodeLoader,
+                checkpointRecoveryFactory,
+                rpcTimeout,
+                blobWriter,
+                jobManagerJobMetricGroup,
+                shuffleMaster,
+                partitionTracker,
+                schedulingStrategyFactory,
+                failoverStrategyFactory,
+                restartBackoffTimeStrategy,
+                executionVertexOperations,
+                executionVertexVersioner,
+                executionSlotAllocatorFactory,
+                executionDeploymentTracker,
+                initializationTimestamp,
+                mainThreadExecutor,
+                jobStatusListener);
+
+        this.log = log;
+        this.adaptiveVertices = checkNotNull(adaptiveVertices);
+        this.vertexParallelismDecider = checkNotNull(vertexParallelismDecider);
+    }
+
+    @Override
+    public void allocateSlotsAndDeploy(
+            final List<ExecutionVertexDeploymentOption> executionVertexDeploymentOptions) {
+
+        final List<ExecutionVertexDeploymentOption> deploymentOptionsToDeploy =
+                new ArrayList<>(executionVertexDeploymentOptions.size());
+        for (ExecutionVertexDeploymentOption deploymentOption : executionVertexDeploymentOptions) {
+            final ExecutionVertexID executionVertexId = deploymentOption.getExecutionVertexId();
+            final ExecutionJobVertex jobVertex =
+                    getExecutionJobVertex(executionVertexId.getJobVertexId());
+            decideParallelismIfNecessary(jobVertex);
+
+            if (executionVertexId.getSubtaskIndex() < jobVertex.getNumberOfDeployedSubtasks()) {
+                deploymentOptionsToDeploy.add(deploymentOption);
+            } else {
+                getExecutionVertex(executionVertexId)
+                        .getCurrentExecutionAttempt()
+                        .markFinishedWithoutDeployment();
+            }
+        }
+
+        if (!deploymentOptionsToDeploy.isEmpty()) {
+            super.allocateSlotsAndDeploy(deploymentOptionsToDeploy);
+        }
+    }
+
+    private void decideParallelismIfNecessary(final ExecutionJobVertex jobVertex) {
+        final JobVertexID jobVertexId = jobVertex.getJobVertexId();
+        if (!adaptiveVertices.contains(jobVertexId) || !decidedVertices.add(jobVertexId)) {
+            return;
+        }
+
+        final long consumedBytes = getConsumedBytesOfNonBroadcastInputs(jobVertex);
+        final int parallelism =
+                vertexParallelismDecider.decideParallelism(
+                        consumedBytes, jobVertex.getParallelism());
+
+        log.info(
+                "Decided parallelism {} (max {}) for job vertex {} ({}) consuming {} bytes.",
+                parallelism,
+                jobVertex.getParallelism(),
+                jobVertex.getName(),
+                jobVertexId,
+                consumedBytes);
+
+        jobVertex.setNumberOfDeployedSubtasks(parallelism);
+        // the job vertex is finalized on master with the parallelism it actually ran with
+        jobVertex.getJobVertex().setParallelism(parallelism);
+    }
+
+    private static long getConsumedBytesOfNonBroadcastInputs(final ExecutionJobVertex jobVertex) {
+        final Set<IntermediateDataSetID> broadcastInputs = new HashSet<>();
+        for (JobEdge edge : jobVertex.getJobVertex().getInputs()) {
+            if (edge.isBroadcast()) {
+                broadcastInputs.add(edge.getSourceId());
+            }
+        }
+
+        long consumedBytes = 0L;
+        for (IntermediateResult input : jobVertex.getInputs()) {
+            if (broadcastInputs.contains(input.getId())) {
+                continue;
+            }
+            for (ExecutionVertex producer : input.getProducer().getTaskVertices()) {
+                final IOMetrics ioMetrics = producer.getCurrentExecutionAttempt().getIOMetrics();
+                if (ioMetrics == null) {
+                    // the producer was finished without being deployed
+                    continue;
+                }
+                for (Map.Entry<IntermediateResultPartitionID, Long> entry :
+                        ioMetrics.getNumBytesProducedOfPartitions().entrySet()) {
+                    if (entry.getKey().getIntermediateDataSetID().equals(input.getId())) {
+                        consumedBytes += entry.getValue();
+                    }
+                }
+            }
+        }
+        return consumedBytes;
+    }
+}
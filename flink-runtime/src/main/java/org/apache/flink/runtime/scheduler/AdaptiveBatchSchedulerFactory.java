@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.scheduler;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.JobManagerOptions;
+import org.apache.flink.runtime.blob.BlobWriter;
+import org.apache.flink.runtime.checkpoint.CheckpointRecoveryFactory;
+import org.apache.flink.runtime.concurrent.ComponentMainThreadExecutor;
+import org.apache.flink.runtime.concurrent.ScheduledExecutorServiceAdapter;
+import org.apache.flink.runtime.executiongraph.JobStatusListener;
+import org.apache.flink.runtime.executiongraph.failover.flip1.FailoverStrategyFactoryLoader;
+import org.apache.flink.runtime.executiongraph.failover.flip1.RestartBackoffTimeStrategy;
+import org.apache.flink.runtime.executiongraph.failover.flip1.RestartBackoffTimeStrategyFactoryLoader;
+import org.apache.flink.runtime.io.network.partition.JobMasterPartitionTracker;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSet;
+import org.apache.flink.runtime.jobgraph.JobEdge;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.jobmaster.ExecutionDeploymentTracker;
+import org.apache.flink.runtime.jobmaster.slotpool.SlotPool;
+import org.apache.flink.runtime.jobmaster.slotpool.SlotPoolService;
+import org.apache.flink.runtime.metrics.groups.JobManagerJobMetricGroup;
+import org.apache.flink.runtime.rpc.FatalErrorHandler;
+import org.apache.flink.runtime.shuffle.ShuffleMaster;
+import org.apache.flink.util.InstantiationUtil;
+
+import org.slf4j.Logger;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.apache.flink.runtime.scheduler.DefaultSchedulerComponents.createSchedulerComponents;
+
+/** Factory for {@link AdaptiveBatchScheduler}. */
+public class AdaptiveBatchSchedulerFactory implements SchedulerNGFactory {
+
+    @Override
+    public SchedulerNG createInstance(
+            final Logger log,
+            final JobGraph jobGraph,
+            final Executor ioExecutor,
+            final Configuration jobMasterConfiguration,
+            final SlotPoolService slotPoolService,
+            final ScheduledExecutorService futureExecutor,
+            final ClassLoader userCodeLoader,
+            final CheckpointRecoveryFactory checkpointRecoveryFactory,
+            final Time rpcTimeout,
+            final BlobWriter blobWriter,
+            final JobManagerJobMetricGroup jobManagerJobMetricGroup,
+            final Time slotRequestTimeout,
+            final ShuffleMaster<?> shuffleMaster,
+            final JobMasterPartitionTracker partitionTracker,
+            final ExecutionDeploymentTracker executionDeploymentTracker,
+            long initializationTimestamp,
+            final ComponentMainThreadExecutor mainThreadExecutor,
+            final FatalErrorHandler fatalErrorHandler,
+            final JobStatusListener jobStatusListener)
+            throws Exception {
+
+        final SlotPool slotPool =
+                slotPoolService
+                        .castInto(SlotPool.class)
+                        .orElseThrow(
+                                () ->
+                                        new IllegalStateException(
+                                                "The AdaptiveBatchScheduler requires a SlotPool."));
+
+        // the parallelism of the job vertices is adjusted, which must not leak into the
+        // submitted job graph
+        final JobGraph adaptiveJobGraph = InstantiationUtil.clone(jobGraph, userCodeLoader);
+        final Set<JobVertexID> adaptiveVertices =
+                initializeVertexParallelism(adaptiveJobGraph, jobMasterConfiguration);
+
+        final DefaultSchedulerComponents schedulerComponents =
+                createSchedulerComponents(
+                        adaptiveJobGraph.getJobType(),
+                        adaptiveJobGraph.isApproximateLocalRecoveryEnabled(),
+                        jobMasterConfiguration,
+                        slotPool,
+                        slotRequestTimeout);
+        final RestartBackoffTimeStrategy restartBackoffTimeStrategy =
+                RestartBackoffTimeStrategyFactoryLoader.createRestartBackoffTimeStrategyFactory(
+                                adaptiveJobGraph
+                                        .getSerializedExecutionConfig()
+                                        .deserializeValue(userCodeLoader)
+                                        .getRestartStrategy(),
+                                jobMasterConfiguration,
+                                adaptiveJobGraph.isCheckpointingEnabled())
+                        .create();
+        log.info(
+                "Using restart back off time strategy {} for {} ({}).",
+                restartBackoffTimeStrategy,
+                adaptiveJobGraph.getName(),
+                adaptiveJobGraph.getJobID());
+        log.info(
+                "Deciding the parallelism of {} job vertices of {} ({}) at runtime.",
+                adaptiveVertices.size(),
+                adaptiveJobGraph.getName(),
+                adaptiveJobGraph.getJobID());
+
+        return new AdaptiveBatchScheduler(
+                log,
+                adaptiveJobGraph,
+                ioExecutor,
+                jobMasterConfiguration,
+                schedulerComponents.getStartUpAction(),
+                futureExecutor,
+                new ScheduledExecutorServiceAdapter(futureExecutor),
+                userCodeLoader,
+                checkpointRecoveryFactory,
+                rpcTimeout,
+                blobWriter,
+                jobManagerJobMetricGroup,
+                shuffleMaster,
+                partitionTracker,
+                schedulerComponents.getSchedulingStrategyFactory(),
+                FailoverStrategyFactoryLoader.loadFailoverStrategyFactory(jobMasterConfiguration),
+                restartBackoffTimeStrategy,
+                new DefaultExecutionVertexOperations(),
+                new ExecutionVertexVersioner(),
+                schedulerComponents.getAllocatorFactory(),
+                executionDeploymentTracker,
+                initializationTimestamp,
+                mainThreadExecutor,
+                jobStatusListener,
+                adaptiveVertices,
+                VertexParallelismDecider.fromConfiguration(jobMasterConfiguration));
+    }
+
+    /**
+     * Initializes the parallelism of the job vertices whose parallelism is not set.
+     *
+     * <p>A job vertex whose inputs and outputs are all all-to-all blocking edges has its
+     * parallelism decided at runtime. It is initialized to its max parallelism, falling back to the
+     * configured max parallelism of the adaptive batch scheduler. Sources are initialized to the
+     * configured default source parallelism, and job vertices with pointwise inputs to the highest
+     * parallelism of their pointwise producers. Any other job vertex keeps its parallelism unset.
+     *
+     * @return the ids of the job vertices whose parallelism is decided at runtime
+     */
+    @VisibleForTesting
+    static Set<JobVertexID> initializeVertexParallelism(
+            JobGraph jobGraph, Configuration configuration) {
+        final int defaultMaxParallelism =
+                configuration.get(JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_MAX_PARALLELISM);
+        final int defaultSourceParallelism =
+                configuration.get(
+                        JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_DEFAULT_SOURCE_PARALLELISM);
+
+        final Set<JobVertexID> adaptiveVertices = new HashSet<>();
+        for (JobVertex jobVertex : jobGraph.getVerticesSortedTopologicallyFromSources()) {
+            if (jobVertex.getParallelism() > 0) {
+                continue;
+            }
+
+            if (jobVertex.getInputs().isEmpty()) {
+                jobVertex.setParallelism(defaultSourceParallelism);
+            } else if (isAdaptive(jobVertex)) {
+                final int maxParallelism =
+                        jobVertex.getMaxParallelism() > 0
+                                ? jobVertex.getMaxParallelism()
+                                : defaultMaxParallelism;
+                jobVertex.setParallelism(maxParallelism);
+                jobVertex.setMaxParallelism(maxParallelism);
+                adaptiveVertices.add(jobVertex.getID());
+            } else {
+                int pointwiseProducerParallelism = -1;
+                for (JobEdge edge : jobVertex.getInputs()) {
+                    if (edge.getDistributionPattern() == DistributionPattern.POINTWISE) {
+                        pointwiseProducerParallelism =
+                                Math.max(
+                                        pointwiseProducerParallelism,
+                                        edge.getSource().getProducer().getParallelism());
+                    }
+                }
+                if (pointwiseProducerParallelism > 0) {
+                    jobVertex.setParallelism(pointwiseProducerParallelism);
+                }
+            }
+        }
+        return adaptiveVertices;
+    }
+
+    private static boolean isAdaptive(JobVertex jobVertex) {
+        for (JobEdge edge : jobVertex.getInputs()) {
+            if (!isAllToAllBlocking(edge)) {
+                return false;
+            }
+        }
+        for (IntermediateDataSet dataSet : jobVertex.getProducedDataSets()) {
+            for (JobEdge edge : dataSet.getConsumers()) {
+                if (!isAllToAllBlocking(edge)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAllToAllBlocking(JobEdge edge) {
+        return edge.getDistributionPattern() == DistributionPattern.ALL_TO_ALL
+                && edge.getSource().getResultType().isBlocking();
+    }
+
+    @Override
+    public JobManagerOptions.SchedulerType getSchedulerType() {
+        return JobManagerOptions.SchedulerType.AdaptiveBatch;
+    }
+}
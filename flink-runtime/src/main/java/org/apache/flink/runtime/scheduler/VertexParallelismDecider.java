@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.scheduler;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.JobManagerOptions;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Decides the parallelism of a job vertex scheduled by the {@link AdaptiveBatchScheduler} from the
+ * amount of data its producers have produced for it.
+ */
+class VertexParallelismDecider {
+
+    private final int minParallelism;
+
+    private final long dataVolumePerTask;
+
+    @VisibleForTesting
+    VertexParallelismDecider(int minParallelism, long dataVolumePerTask) {
+        checkArgument(minParallelism > 0, "The min parallelism must be positive.");
+        checkArgument(dataVolumePerTask > 0, "The data volume per task must be positive.");
+        this.minParallelism = minParallelism;
+        this.dataVolumePerTask = dataVolumePerTask;
+    }
+
+    /**
+     * Decides the parallelism of a job vertex so that each subtask consumes about the configured
+     * data volume per task.
+     *
+     * @param consumedBytes the number of bytes consumed from the non-broadcast inputs of the vertex
+     * @param maxParallelism the upper bound of the decided parallelism
+     * @return the parallelism, between the configured min parallelism and the given max parallelism
+     */
+    int decideParallelism(long consumedBytes, int maxParallelism) {
+        checkArgument(maxParallelism > 0, "The max parallelism must be positive.");
+        final long parallelism = (consumedBytes + dataVolumePerTask - 1) / dataVolumePerTask;
+        final int lowerBound = Math.min(minParallelism, maxParallelism);
+        return (int) Math.min(maxParallelism, Math.max(lowerBound, parallelism));
+    }
+
+    static VertexParallelismDecider fromConfiguration(Configuration configuration) {
+        return new VertexParallelismDecider(
+                configuration.get(JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_MIN_PARALLELISM),
+                configuration
+                        .get(JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_DATA_VOLUME_PER_TASK)
+                        .getBytes());
+    }
+}
@@ -93,7 +93,7 @@ public class PartitionDescriptor implements Serializable {
         return numberOfSubpartitions;
     }
 
-    int getConnectionIndex() {
+    public int getConnectionIndex() {
         return connectionIndex;
     }
 
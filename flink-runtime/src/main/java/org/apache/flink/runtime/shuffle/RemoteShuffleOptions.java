@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle;
+
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Options to configure the remote shuffle service, which stores the blocking result partitions on
+ * standalone shuffle workers instead of the TaskExecutors.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RemoteShuffleOptions {
+
+    private RemoteShuffleOptions() {}
+
+    /** The addresses of the shuffle workers used by the remote shuffle service. */
+    public static final ConfigOption<List<String>> WORKERS =
+            ConfigOptions.key("remote-shuffle.workers")
+                    .stringType()
+                    .asList()
+                    .noDefaultValue()
+                    .withDescription(
+                            "The addresses of the shuffle workers which store the blocking result partitions, "
+                                    + "as a list of 'host:port' pairs, where the port is the one configured by "
+                                    + "'remote-shuffle.worker.port' on the shuffle worker.");
+
+    /** The address the shuffle worker binds its server sockets to. */
+    public static final ConfigOption<String> WORKER_BIND_HOST =
+            ConfigOptions.key("remote-shuffle.worker.bind-host")
+                    .stringType()
+                    .defaultValue("0.0.0.0")
+                    .withDescription(
+                            "The local address of the network interface that the shuffle worker binds to.");
+
+    /** The port of the shuffle worker to upload and release partitions. */
+    public static final ConfigOption<Integer> WORKER_PORT =
+            ConfigOptions.key("remote-shuffle.worker.port")
+                    .intType()
+                    .defaultValue(50100)
+                    .withDescription(
+                            "The port of the shuffle worker which the producers upload the finished partitions to.");
+
+    /** The port of the shuffle worker to read partitions from. */
+    public static final ConfigOption<Integer> WORKER_DATA_PORT =
+            ConfigOptions.key("remote-shuffle.worker.data-port")
+                    .intType()
+                    .defaultValue(0)
+                    .withDescription(
+                            "The port of the shuffle worker which the consumers read the partitions from. "
+                                    + "The default 0 uses a random free port, which is reported to the "
+                                    + "JobManager when it connects to the shuffle worker.");
+
+    /** The directories the shuffle worker stores the partitions in. */
+    public static final ConfigOption<String> WORKER_STORAGE_DIRS =
+            ConfigOptions.key("remote-shuffle.worker.storage-dirs")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "The directories the shuffle worker stores the uploaded partitions in, separated "
+                                    + "like 'io.tmp.dirs'. The temporary directories of 'io.tmp.dirs' are used "
+                                    + "if not configured.");
+
+    /** The timeout of the requests to the shuffle workers. */
+    public static final ConfigOption<Duration> CLIENT_TIMEOUT =
+            ConfigOptions.key("remote-shuffle.client.timeout")
+                    .durationType()
+                    .defaultValue(Duration.ofSeconds(60))
+                    .withDescription(
+                            "The socket timeout of the connections to the shuffle workers, which are used to "
+                                    + "upload and release partitions.");
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.io.network.ConnectionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+
+import java.net.InetSocketAddress;
+import java.util.Optional;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link NettyShuffleDescriptor} of a partition which is stored on a {@link ShuffleWorker}. The
+ * consumers read the partition from the data port of the shuffle worker like from a remote
+ * TaskExecutor, and the partition does not occupy any resources of the producing TaskExecutor.
+ */
+public class RemoteShuffleDescriptor extends NettyShuffleDescriptor {
+
+    private static final long serialVersionUID = -4227532462183960377L;
+
+    /** The address of the shuffle worker to upload the partition to. */
+    private final InetSocketAddress workerAddress;
+
+    public RemoteShuffleDescriptor(
+            ResourceID producerLocation,
+            ConnectionID workerConnectionId,
+            InetSocketAddress workerAddress,
+            ResultPartitionID resultPartitionID) {
+        super(
+                producerLocation,
+                new NetworkPartitionConnectionInfo(workerConnectionId),
+                resultPartitionID);
+        this.workerAddress = checkNotNull(workerAddress);
+    }
+
+    public InetSocketAddress getWorkerAddress() {
+        return workerAddress;
+    }
+
+    @Override
+    public Optional<ResourceID> storesLocalResourcesOn() {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean isLocalTo(ResourceID consumerLocation) {
+        // the partition is always read from the shuffle worker
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
+import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.executiongraph.PartitionInfo;
+import org.apache.flink.runtime.io.network.NettyShuffleEnvironment;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.partition.PartitionProducerStateProvider;
+import org.apache.flink.runtime.io.network.partition.ResultPartition;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.SortMergeResultPartition;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.shuffle.ShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.ShuffleEnvironment;
+import org.apache.flink.runtime.shuffle.ShuffleIOOwnerContext;
+
+import javax.net.SocketFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * {@link ShuffleEnvironment} of the remote shuffle service. It is based on a {@link
+ * NettyShuffleEnvironment}: the partitions described by a {@link RemoteShuffleDescriptor} are
+ * produced as {@link SortMergeResultPartition}s and uploaded to their shuffle worker when they are
+ * finished, all other partitions are exchanged between the task executors as usual. The input gates
+ * read the uploaded partitions from the shuffle workers like from any other remote producer.
+ */
+public class RemoteShuffleEnvironment
+        implements ShuffleEnvironment<ResultPartitionWriter, SingleInputGate> {
+
+    private final NettyShuffleEnvironment networkEnvironment;
+
+    private final Duration clientTimeout;
+
+    private final SocketFactory clientSocketFactory;
+
+    public RemoteShuffleEnvironment(
+            NettyShuffleEnvironment networkEnvironment,
+            Duration clientTimeout,
+            SocketFactory clientSocketFactory) {
+        this.networkEnvironment = checkNotNull(networkEnvironment);
+        this.clientTimeout = checkNotNull(clientTimeout);
+        this.clientSocketFactory = checkNotNull(clientSocketFactory);
+    }
+
+    @Override
+    public int start() throws IOException {
+        return networkEnvironment.start();
+    }
+
+    @Override
+    public ShuffleIOOwnerContext createShuffleIOOwnerContext(
+            String ownerName, ExecutionAttemptID executionAttemptID, MetricGroup parentGroup) {
+        return networkEnvironment.createShuffleIOOwnerContext(
+                ownerName, executionAttemptID, parentGroup);
+    }
+
+    @Override
+    public List<ResultPartitionWriter> createResultPartitionWriters(
+            ShuffleIOOwnerContext ownerContext,
+            List<ResultPartitionDeploymentDescriptor> resultPartitionDeploymentDescriptors) {
+        List<ResultPartition> partitions =
+                networkEnvironment.createResultPartitionWriters(
+                        ownerContext, resultPartitionDeploymentDescriptors);
+
+        List<ResultPartitionWriter> writers = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            ShuffleDescriptor descriptor =
+                    resultPartitionDeploymentDescriptors.get(i).getShuffleDescriptor();
+            ResultPartition partition = partitions.get(i);
+            if (descriptor instanceof RemoteShuffleDescriptor) {
+                checkState(
+                        partition instanceof SortMergeResultPartition,
+                        "Partition %s stored on a shuffle worker must be a sort-merge partition.",
+                        partition.getPartitionId());
+                writers.add(
+                        new RemoteShuffleResultPartitionWriter(
+                                (SortMergeResultPartition) partition,
+                                new ShuffleWorkerClient(
+                                        ((RemoteShuffleDescriptor) descriptor).getWorkerAddress(),
+                                        clientTimeout,
+                                        clientSocketFactory),
+                                networkEnvironment.getResultPartitionManager()));
+            } else {
+                writers.add(partition);
+            }
+        }
+        return writers;
+    }
+
+    @Override
+    public void releasePartitionsLocally(Collection<ResultPartitionID> partitionIds) {
+        networkEnvironment.releasePartitionsLocally(partitionIds);
+    }
+
+    @Override
+    public Collection<ResultPartitionID> getPartitionsOccupyingLocalResources() {
+        return networkEnvironment.getPartitionsOccupyingLocalResources();
+    }
+
+    @Override
+    public List<SingleInputGate> createInputGates(
+            ShuffleIOOwnerContext ownerContext,
+            PartitionProducerStateProvider partitionProducerStateProvider,
+            List<InputGateDeploymentDescriptor> inputGateDeploymentDescriptors) {
+        return networkEnvironment.createInputGates(
+                ownerContext, partitionProducerStateProvider, inputGateDeploymentDescriptors);
+    }
+
+    @Override
+    public boolean updatePartitionInfo(ExecutionAttemptID consumerID, PartitionInfo partitionInfo)
+            throws IOException, InterruptedException {
+        return networkEnvironment.updatePartitionInfo(consumerID, partitionInfo);
+    }
+
+    @Override
+    public void close() {
+        networkEnvironment.close();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.io.network.ConnectionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.NettyShuffleMaster;
+import org.apache.flink.runtime.shuffle.PartitionDescriptor;
+import org.apache.flink.runtime.shuffle.ProducerDescriptor;
+import org.apache.flink.runtime.shuffle.RemoteShuffleOptions;
+import org.apache.flink.runtime.shuffle.ShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.ShuffleMaster;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.NetUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.SocketFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link ShuffleMaster} of the remote shuffle service, which places the {@link
+ * ResultPartitionType#BLOCKING} partitions on the {@link ShuffleWorker}s in a round-robin fashion.
+ * All other partitions are exchanged directly between the TaskExecutors like with the {@link
+ * NettyShuffleMaster}.
+ */
+public class RemoteShuffleMaster implements ShuffleMaster<NettyShuffleDescriptor> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteShuffleMaster.class);
+
+    private static final String IO_THREAD_NAME = "remote-shuffle-io";
+
+    private final List<ShuffleWorkerClient> workers;
+
+    /**
+     * Executor for the requests to the shuffle workers, which must not block the main thread of the
+     * JobMaster.
+     */
+    private final Executor ioExecutor;
+
+    /** The shuffle workers whose data port is being requested. */
+    private final Set<ShuffleWorkerClient> pendingDataPortRequests = ConcurrentHashMap.newKeySet();
+
+    /** Index of the shuffle worker to place the next partition on. */
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    @VisibleForTesting
+    RemoteShuffleMaster(List<ShuffleWorkerClient> workers, Executor ioExecutor) {
+        checkArgument(!workers.isEmpty(), "There must be at least one shuffle worker.");
+        this.workers = new ArrayList<>(workers);
+        this.ioExecutor = checkNotNull(ioExecutor);
+
+        for (ShuffleWorkerClient worker : this.workers) {
+            requestDataPort(worker);
+        }
+    }
+
+    public static RemoteShuffleMaster fromConfiguration(Configuration configuration) {
+        List<String> addresses =
+                configuration
+                        .getOptional(RemoteShuffleOptions.WORKERS)
+                        .orElseThrow(
+                                () ->
+                                        new IllegalConfigurationException(
+                                                "The remote shuffle service requires the addresses of "
+                                                        + "the shuffle workers, configured by "
+                                                        + RemoteShuffleOptions.WORKERS.key()
+                                                        + '.'));
+        Duration timeout = configuration.get(RemoteShuffleOptions.CLIENT_TIMEOUT);
+        SocketFactory socketFactory = ShuffleWorkerClient.createSocketFactory(configuration);
+
+        List<ShuffleWorkerClient> workers = new ArrayList<>(addresses.size());
+        for (String address : addresses) {
+            workers.add(
+                    new ShuffleWorkerClient(
+                            NetUtils.parseHostPortAddress(address), timeout, socketFactory));
+        }
+
+        // a shuffle master is created per job, the idle I/O threads are terminated
+        return new RemoteShuffleMaster(
+                workers, Executors.newCachedThreadPool(new ExecutorThreadFactory(IO_THREAD_NAME)));
+    }
+
+    @Override
+    public CompletableFuture<NettyShuffleDescriptor> registerPartitionWithProducer(
+            PartitionDescriptor partitionDescriptor, ProducerDescriptor producerDescriptor) {
+        // persistent partitions are promoted to cluster partitions on the TaskExecutors
+        if (partitionDescriptor.getPartitionType() != ResultPartitionType.BLOCKING) {
+            return NettyShuffleMaster.INSTANCE.registerPartitionWithProducer(
+                    partitionDescriptor, producerDescriptor);
+        }
+
+        ResultPartitionID resultPartitionId =
+                new ResultPartitionID(
+                        partitionDescriptor.getPartitionId(),
+                        producerDescriptor.getProducerExecutionId());
+        // the partition registration must complete immediately, so the shuffle workers whose
+        // data port is not known yet are skipped while the port is requested asynchronously
+        int firstWorker = nextWorker.getAndIncrement();
+        for (int i = 0; i < workers.size(); i++) {
+            ShuffleWorkerClient worker =
+                    workers.get(Math.floorMod(firstWorker + i, workers.size()));
+            int dataPort = worker.getKnownDataPort();
+            if (dataPort < 0) {
+                requestDataPort(worker);
+                continue;
+            }
+
+            InetSocketAddress dataAddress =
+                    new InetSocketAddress(worker.getAddress().getHostString(), dataPort);
+            return CompletableFuture.completedFuture(
+                    new RemoteShuffleDescriptor(
+                            producerDescriptor.getProducerLocation(),
+                            new ConnectionID(dataAddress, partitionDescriptor.getConnectionIndex()),
+                            worker.getAddress(),
+                            resultPartitionId));
+        }
+
+        return FutureUtils.completedExceptionally(
+                new IOException(
+                        "None of the shuffle workers "
+                                + workers
+                                + " has reported its data port yet, they may be unreachable."));
+    }
+
+    /** Requests the data port of the given shuffle worker in the I/O executor, if not known. */
+    private void requestDataPort(ShuffleWorkerClient worker) {
+        if (worker.getKnownDataPort() >= 0 || !pendingDataPortRequests.add(worker)) {
+            return;
+        }
+
+        try {
+            ioExecutor.execute(
+                    () -> {
+                        try {
+                            worker.getDataPort();
+                        } catch (Throwable t) {
+                            LOG.warn(
+                                    "Failed to request the data port of shuffle worker {}.",
+                                    worker.getAddress(),
+                                    t);
+                        } finally {
+                            pendingDataPortRequests.remove(worker);
+                        }
+                    });
+        } catch (Throwable t) {
+            pendingDataPortRequests.remove(worker);
+            LOG.warn(
+                    "Failed to request the data port of shuffle worker {}.",
+                    worker.getAddress(),
+                    t);
+        }
+    }
+
+    @Override
+    public void releasePartitionExternally(ShuffleDescriptor shuffleDescriptor) {
+        if (!(shuffleDescriptor instanceof RemoteShuffleDescriptor)) {
+            return;
+        }
+
+        RemoteShuffleDescriptor descriptor = (RemoteShuffleDescriptor) shuffleDescriptor;
+        ioExecutor.execute(
+                () -> {
+                    try {
+                        getWorker(descriptor.getWorkerAddress())
+                                .releasePartition(descriptor.getResultPartitionID());
+                    } catch (Throwable t) {
+                        LOG.warn(
+                                "Failed to release partition {} on shuffle worker {}.",
+                                descriptor.getResultPartitionID(),
+                                descriptor.getWorkerAddress(),
+                                t);
+                    }
+                });
+    }
+
+    private ShuffleWorkerClient getWorker(InetSocketAddress address) {
+        for (ShuffleWorkerClient worker : workers) {
+            if (worker.getAddress().equals(address)) {
+                return worker;
+            }
+        }
+        throw new IllegalStateException("Unknown shuffle worker " + address + '.');
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.event.AbstractEvent;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
+import org.apache.flink.runtime.io.network.partition.SortMergeResultPartition;
+import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * {@link ResultPartitionWriter} of a partition which is stored on a {@link ShuffleWorker}. The
+ * records are written to a local {@link SortMergeResultPartition}, which is uploaded to the shuffle
+ * worker when it is finished and released locally afterwards.
+ */
+class RemoteShuffleResultPartitionWriter implements ResultPartitionWriter {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(RemoteShuffleResultPartitionWriter.class);
+
+    /** The local partition to produce the data. */
+    private final SortMergeResultPartition partition;
+
+    /** The client of the shuffle worker to upload the partition to. */
+    private final ShuffleWorkerClient worker;
+
+    /** The manager of the local partition, to release it after the upload. */
+    private final ResultPartitionManager partitionManager;
+
+    RemoteShuffleResultPartitionWriter(
+            SortMergeResultPartition partition,
+            ShuffleWorkerClient worker,
+            ResultPartitionManager partitionManager) {
+        this.partition = checkNotNull(partition);
+        this.worker = checkNotNull(worker);
+        this.partitionManager = checkNotNull(partitionManager);
+    }
+
+    @Override
+    public void setup() throws IOException {
+        partition.setup();
+    }
+
+    @Override
+    public ResultPartitionID getPartitionId() {
+        return partition.getPartitionId();
+    }
+
+    @Override
+    public int getNumberOfSubpartitions() {
+        return partition.getNumberOfSubpartitions();
+    }
+
+    @Override
+    public int getNumTargetKeyGroups() {
+        return partition.getNumTargetKeyGroups();
+    }
+
+    @Override
+    public void emitRecord(ByteBuffer record, int targetSubpartition) throws IOException {
+        partition.emitRecord(record, targetSubpartition);
+    }
+
+    @Override
+    public void broadcastRecord(ByteBuffer record) throws IOException {
+        partition.broadcastRecord(record);
+    }
+
+    @Override
+    public boolean isObjectExchange(int targetSubpartition) {
+        return partition.isObjectExchange(targetSubpartition);
+    }
+
+    @Override
+    public void emitObject(
+            Object record, int recordSize, TypeSerializer<?> serializer, int targetSubpartition)
+            throws IOException {
+        partition.emitObject(record, recordSize, serializer, targetSubpartition);
+    }
+
+    @Override
+    public void broadcastEvent(AbstractEvent event, boolean isPriorityEvent) throws IOException {
+        partition.broadcastEvent(event, isPriorityEvent);
+    }
+
+    @Override
+    public void setMetricGroup(TaskIOMetricGroup metrics) {
+        partition.setMetricGroup(metrics);
+    }
+
+    @Override
+    public ResultSubpartitionView createSubpartitionView(
+            int index, BufferAvailabilityListener availabilityListener) throws IOException {
+        return partition.createSubpartitionView(index, availabilityListener);
+    }
+
+    @Override
+    public void flushAll() {
+        partition.flushAll();
+    }
+
+    @Override
+    public void flush(int subpartitionIndex) {
+        partition.flush(subpartitionIndex);
+    }
+
+    @Override
+    public void fail(@Nullable Throwable throwable) {
+        partition.fail(throwable);
+    }
+
+    /**
+     * Finishes the local partition and uploads it to the shuffle worker. The consumers read the
+     * partition from the shuffle worker, so the local partition is released after the upload.
+     */
+    @Override
+    public void finish() throws IOException {
+        partition.finish();
+        checkState(partition.getResultFile() != null, "The partition produced no file.");
+
+        worker.uploadPartition(
+                getPartitionId(), partition.getResultFile(), partition.getNumDataBuffers());
+        LOG.debug("Uploaded partition {} to {}.", getPartitionId(), worker);
+
+        partitionManager.releasePartition(getPartitionId(), null);
+    }
+
+    @Override
+    public boolean isFinished() {
+        return partition.isFinished();
+    }
+
+    @Override
+    public void release(Throwable cause) {
+        partition.release(cause);
+    }
+
+    @Override
+    public boolean isReleased() {
+        return partition.isReleased();
+    }
+
+    @Override
+    public CompletableFuture<?> getAvailableFuture() {
+        return partition.getAvailableFuture();
+    }
+
+    @Override
+    public void close() throws Exception {
+        partition.close();
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteShuffleResultPartitionWriter{"
+                + "partition="
+                + partition
+                + ", worker="
+                + worker
+                + '}';
+    }
+}
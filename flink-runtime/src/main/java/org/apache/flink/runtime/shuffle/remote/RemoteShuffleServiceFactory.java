@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
+import org.apache.flink.runtime.io.network.NettyShuffleEnvironment;
+import org.apache.flink.runtime.io.network.NettyShuffleServiceFactory;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.RemoteShuffleOptions;
+import org.apache.flink.runtime.shuffle.ShuffleEnvironmentContext;
+import org.apache.flink.runtime.shuffle.ShuffleServiceFactory;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Remote shuffle service implementation, which stores the blocking partitions on standalone {@link
+ * ShuffleWorker ShuffleWorkers} instead of the producing task executors. The task executors can
+ * therefore be released as soon as their tasks are finished, without losing the produced data.
+ *
+ * <p>It is enabled by setting {@code shuffle-service-factory.class} to this class and listing the
+ * shuffle workers in {@link RemoteShuffleOptions#WORKERS}.
+ */
+public class RemoteShuffleServiceFactory
+        implements ShuffleServiceFactory<
+                NettyShuffleDescriptor, ResultPartitionWriter, SingleInputGate> {
+
+    @Override
+    public RemoteShuffleMaster createShuffleMaster(Configuration configuration) {
+        return RemoteShuffleMaster.fromConfiguration(configuration);
+    }
+
+    @Override
+    public RemoteShuffleEnvironment createShuffleEnvironment(
+            ShuffleEnvironmentContext shuffleEnvironmentContext) {
+        checkNotNull(shuffleEnvironmentContext);
+
+        // the partitions are uploaded as sort-merge partition files and the consumers always
+        // read them remotely from the shuffle workers
+        Configuration configuration =
+                new Configuration(shuffleEnvironmentContext.getConfiguration());
+        configuration.set(NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_MIN_PARALLELISM, 1);
+        ShuffleEnvironmentContext networkContext =
+                new ShuffleEnvironmentContext(
+                        configuration,
+                        shuffleEnvironmentContext.getTaskExecutorResourceId(),
+                        shuffleEnvironmentContext.getNetworkMemorySize(),
+                        false,
+                        shuffleEnvironmentContext.getHostAddress(),
+                        shuffleEnvironmentContext.getEventPublisher(),
+                        shuffleEnvironmentContext.getParentMetricGroup(),
+                        shuffleEnvironmentContext.getIoExecutor());
+
+        NettyShuffleEnvironment networkEnvironment =
+                new NettyShuffleServiceFactory().createShuffleEnvironment(networkContext);
+        return new RemoteShuffleEnvironment(
+                networkEnvironment,
+                configuration.get(RemoteShuffleOptions.CLIENT_TIMEOUT),
+                ShuffleWorkerClient.createSocketFactory(configuration));
+    }
+}
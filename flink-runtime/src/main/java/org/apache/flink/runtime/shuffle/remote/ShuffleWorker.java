@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.ConfigurationUtils;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
+import org.apache.flink.runtime.io.disk.FileChannelManager;
+import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
+import org.apache.flink.runtime.io.network.ConnectionManager;
+import org.apache.flink.runtime.io.network.TaskEventDispatcher;
+import org.apache.flink.runtime.io.network.netty.NettyConfig;
+import org.apache.flink.runtime.io.network.netty.NettyConnectionManager;
+import org.apache.flink.runtime.net.SSLUtils;
+import org.apache.flink.runtime.shuffle.RemoteShuffleOptions;
+import org.apache.flink.runtime.util.ConfigurationParserUtils;
+import org.apache.flink.runtime.util.EnvironmentInformation;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.runtime.util.JvmShutdownSafeguard;
+import org.apache.flink.runtime.util.SignalHandler;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.ShutdownHookUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ServerSocketFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Standalone process which stores the blocking result partitions of the remote shuffle service, so
+ * that the partitions outlive the TaskExecutors which produced them.
+ *
+ * <p>The producers upload their finished sort-merge partitions with a {@link ShuffleWorkerClient}.
+ * The consumers read the stored partitions with the netty based partition request protocol of the
+ * TaskExecutors, served by the data port of the shuffle worker. As on the TaskExecutors, the data
+ * is read from disk with the memory configured by {@link
+ * NettyShuffleEnvironmentOptions#NETWORK_SORT_SHUFFLE_READ_MEMORY}. The partitions are stored until
+ * they are released by the {@link RemoteShuffleMaster}.
+ *
+ * <p>If internal SSL is enabled, the port of the {@link ShuffleWorkerClient}s only accepts SSL
+ * connections. The data port uses SSL like the data connections between the TaskExecutors.
+ */
+public class ShuffleWorker extends Thread implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShuffleWorker.class);
+
+    private static final String DIR_NAME_PREFIX = "shuffle-worker";
+
+    private static final String READ_THREAD_NAME = "shuffle-worker-io";
+
+    private static final int FAILURE_EXIT_CODE = 1;
+
+    /** Indicates whether a shutdown of the shuffle worker has been requested. */
+    private final AtomicBoolean shutdownRequested = new AtomicBoolean();
+
+    /** The server socket accepting the connections of the {@link ShuffleWorkerClient}s. */
+    private final ServerSocket serverSocket;
+
+    /** The currently active connections of the clients. */
+    private final Set<ShuffleWorkerConnection> activeConnections = new HashSet<>();
+
+    /** Creates the files of the uploaded partitions in the storage directories. */
+    private final FileChannelManager fileChannelManager;
+
+    /** Buffers to read the stored partitions with, shared by all consumers. */
+    private final BatchShuffleReadBufferPool readBufferPool;
+
+    /** Threads reading the stored partitions, one per storage directory. */
+    private final ExecutorService readIOExecutor;
+
+    private final StoredPartitionManager partitionManager;
+
+    /** Serves the partition requests of the consumers. */
+    private final ConnectionManager connectionManager;
+
+    private final int dataPort;
+
+    public ShuffleWorker(Configuration configuration) throws IOException {
+        super("Shuffle Worker");
+        setDaemon(true);
+        checkNotNull(configuration);
+
+        String storageDirs = configuration.getString(RemoteShuffleOptions.WORKER_STORAGE_DIRS);
+        String[] storagePaths =
+                storageDirs != null
+                        ? ConfigurationUtils.splitPaths(storageDirs)
+                        : ConfigurationUtils.parseTempDirectories(configuration);
+        this.fileChannelManager = new FileChannelManagerImpl(storagePaths, DIR_NAME_PREFIX);
+
+        InetAddress bindAddress =
+                InetAddress.getByName(
+                        configuration.getString(RemoteShuffleOptions.WORKER_BIND_HOST));
+        int bufferSize = ConfigurationParserUtils.getPageSize(configuration);
+        // the stored partitions are read like the sort-merge partitions on the TaskExecutors
+        long readMemoryBytes =
+                configuration
+                        .get(NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_READ_MEMORY)
+                        .getBytes();
+        this.readBufferPool = new BatchShuffleReadBufferPool(readMemoryBytes, bufferSize);
+        this.readIOExecutor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, storagePaths.length),
+                        new ExecutorThreadFactory(READ_THREAD_NAME));
+        this.partitionManager =
+                new StoredPartitionManager(readBufferPool, readIOExecutor, new SimpleCounter());
+
+        // the shuffle worker serves the partition requests for all its partitions, so the netty
+        // threads are not bounded by the number of slots as on the TaskExecutors
+        NettyConfig nettyConfig =
+                new NettyConfig(
+                        bindAddress,
+                        configuration.getInteger(RemoteShuffleOptions.WORKER_DATA_PORT),
+                        bufferSize,
+                        Runtime.getRuntime().availableProcessors(),
+                        configuration);
+        // there are no tasks on the shuffle worker, so no task events are published
+        this.connectionManager =
+                new NettyConnectionManager(
+                        partitionManager, new TaskEventDispatcher(), nettyConfig);
+
+        try {
+            this.dataPort = connectionManager.start();
+            final ServerSocketFactory socketFactory;
+            if (SSLUtils.isInternalSSLEnabled(configuration)) {
+                socketFactory = SSLUtils.createSSLServerSocketFactory(configuration);
+            } else {
+                socketFactory = ServerSocketFactory.getDefault();
+            }
+            this.serverSocket =
+                    socketFactory.createServerSocket(
+                            configuration.getInteger(RemoteShuffleOptions.WORKER_PORT),
+                            0,
+                            bindAddress);
+        } catch (Throwable t) {
+            try {
+                shutdownServices();
+            } catch (Throwable shutdownThrowable) {
+                t.addSuppressed(shutdownThrowable);
+            }
+            throw new IOException("Could not start the shuffle worker.", t);
+        }
+
+        LOG.info(
+                "Started shuffle worker on {} with port {} and data port {}.",
+                bindAddress,
+                getPort(),
+                dataPort);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!shutdownRequested.get()) {
+                ShuffleWorkerConnection conn =
+                        new ShuffleWorkerConnection(serverSocket.accept(), this);
+                synchronized (activeConnections) {
+                    activeConnections.add(conn);
+                }
+                conn.start();
+            }
+        } catch (Throwable t) {
+            if (!shutdownRequested.get()) {
+                LOG.error("Shuffle worker stopped working. Shutting down", t);
+
+                try {
+                    close();
+                } catch (Throwable closeThrowable) {
+                    LOG.error("Could not properly close the shuffle worker.", closeThrowable);
+                }
+            }
+        }
+    }
+
+    /** Shuts down the shuffle worker and deletes all stored partitions. */
+    @Override
+    public void close() throws IOException {
+        if (!shutdownRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        IOUtils.closeQuietly(serverSocket);
+
+        // wake the thread up, in case it is waiting on some operation
+        interrupt();
+        if (Thread.currentThread() != this) {
+            try {
+                join();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                LOG.debug("Error while waiting for this thread to die.", ie);
+            }
+        }
+
+        synchronized (activeConnections) {
+            for (ShuffleWorkerConnection conn : activeConnections) {
+                conn.close();
+            }
+            activeConnections.clear();
+        }
+
+        shutdownServices();
+        LOG.info("Stopped shuffle worker.");
+    }
+
+    private void shutdownServices() throws IOException {
+        Throwable exception = null;
+        try {
+            connectionManager.shutdown();
+        } catch (Throwable t) {
+            exception = t;
+        }
+
+        partitionManager.releaseAllPartitions();
+        readIOExecutor.shutdownNow();
+        readBufferPool.destroy();
+
+        try {
+            fileChannelManager.close();
+        } catch (Throwable t) {
+            exception = ExceptionUtils.firstOrSuppressed(t, exception);
+        }
+
+        if (exception != null) {
+            throw new IOException("Could not shut down the shuffle worker properly.", exception);
+        }
+    }
+
+    void unregisterConnection(ShuffleWorkerConnection conn) {
+        synchronized (activeConnections) {
+            activeConnections.remove(conn);
+        }
+    }
+
+    /** Returns the port to upload and release partitions. */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /** Returns the port to read the stored partitions from. */
+    public int getDataPort() {
+        return dataPort;
+    }
+
+    StoredPartitionManager getPartitionManager() {
+        return partitionManager;
+    }
+
+    /** Returns a new path in the storage directories, without suffix, to store a partition in. */
+    String createPartitionFileBasePath() {
+        return fileChannelManager.createChannel().getPath();
+    }
+
+    @VisibleForTesting
+    int getNumberOfStoredPartitions() {
+        return partitionManager.getStoredPartitions().size();
+    }
+
+    // --------------------------------------------------------------------------------------------
+    //  Static entry point
+    // --------------------------------------------------------------------------------------------
+
+    public static void main(String[] args) {
+        // startup checks and logging
+        EnvironmentInformation.logEnvironmentInfo(LOG, "ShuffleWorker", args);
+        SignalHandler.register(LOG);
+        JvmShutdownSafeguard.installAsShutdownHook(LOG);
+
+        try {
+            Configuration configuration =
+                    ConfigurationParserUtils.loadCommonConfiguration(
+                            args, ShuffleWorker.class.getSimpleName());
+
+            ShuffleWorker shuffleWorker = new ShuffleWorker(configuration);
+            ShutdownHookUtil.addShutdownHook(
+                    shuffleWorker, ShuffleWorker.class.getSimpleName(), LOG);
+
+            shuffleWorker.start();
+            shuffleWorker.join();
+        } catch (Throwable t) {
+            LOG.error("Failed to run the shuffle worker.", t);
+            System.exit(FAILURE_EXIT_CODE);
+        }
+    }
+}
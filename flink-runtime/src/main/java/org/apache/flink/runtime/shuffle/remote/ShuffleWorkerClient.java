@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.net.SSLUtils;
+import org.apache.flink.util.function.FunctionWithException;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import javax.net.SocketFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.BUFFER_SIZE;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.GET_DATA_PORT_OPERATION;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.RELEASE_OPERATION;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.UPLOAD_OPERATION;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.readResponse;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.writeResultPartitionId;
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Client to upload partitions to and release partitions on a {@link ShuffleWorker}. Every request
+ * uses its own connection, the requests are rare compared to the reads of the partitions. The
+ * connections use SSL if internal SSL is enabled, see {@link #createSocketFactory(Configuration)}.
+ */
+public class ShuffleWorkerClient {
+
+    /** The address of the shuffle worker to upload and release partitions. */
+    private final InetSocketAddress address;
+
+    /** Connect and read timeout of the requests in milliseconds. */
+    private final int timeoutMillis;
+
+    /** Creates the sockets of the requests. */
+    private final SocketFactory socketFactory;
+
+    /** The port of the shuffle worker to read partitions from, or -1 if not known yet. */
+    private volatile int dataPort = -1;
+
+    public ShuffleWorkerClient(InetSocketAddress address, Duration timeout) {
+        this(address, timeout, SocketFactory.getDefault());
+    }
+
+    public ShuffleWorkerClient(
+            InetSocketAddress address, Duration timeout, SocketFactory socketFactory) {
+        this.address = checkNotNull(address);
+        checkArgument(!timeout.isNegative(), "The timeout must not be negative.");
+        this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+        this.socketFactory = checkNotNull(socketFactory);
+    }
+
+    /**
+     * Creates the factory of the sockets to connect to the shuffle workers, which creates SSL
+     * sockets if internal SSL is enabled in the given configuration.
+     */
+    public static SocketFactory createSocketFactory(Configuration configuration) {
+        if (!SSLUtils.isInternalSSLEnabled(configuration)) {
+            return SocketFactory.getDefault();
+        }
+        try {
+            return SSLUtils.createSSLClientSocketFactory(configuration);
+        } catch (Exception e) {
+            throw new IllegalConfigurationException(
+                    "Failed to initialize SSL for the shuffle worker client.", e);
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Returns the port of the shuffle worker to read partitions from, or -1 if it has not been
+     * requested from the shuffle worker yet. Never blocks.
+     */
+    public int getKnownDataPort() {
+        return dataPort;
+    }
+
+    /**
+     * Returns the port of the shuffle worker to read partitions from. The port is requested from
+     * the shuffle worker only once, which blocks until the shuffle worker responds.
+     */
+    public int getDataPort() throws IOException {
+        if (dataPort < 0) {
+            dataPort = sendRequest(GET_DATA_PORT_OPERATION, out -> {}, DataInputStream::readInt);
+        }
+        return dataPort;
+    }
+
+    /**
+     * Uploads the files of a finished sort-merge partition. The partition can be read from the
+     * shuffle worker once this method has returned.
+     *
+     * @param partitionId ID of the uploaded partition
+     * @param partitionedFile the files of the partition
+     * @param numDataBuffers number of data buffers (excluding events) of each subpartition
+     */
+    public void uploadPartition(
+            ResultPartitionID partitionId, PartitionedFile partitionedFile, int[] numDataBuffers)
+            throws IOException {
+        sendRequest(
+                UPLOAD_OPERATION,
+                out -> {
+                    writeResultPartitionId(out, partitionId);
+                    out.writeInt(numDataBuffers.length);
+                    out.writeInt(partitionedFile.getNumRegions());
+                    for (int numBuffers : numDataBuffers) {
+                        out.writeInt(numBuffers);
+                    }
+                    writeFile(out, partitionedFile.getIndexFilePath());
+                    writeFile(out, partitionedFile.getDataFilePath());
+                },
+                in -> null);
+    }
+
+    /** Releases a stored partition, unknown partitions are ignored by the shuffle worker. */
+    public void releasePartition(ResultPartitionID partitionId) throws IOException {
+        sendRequest(RELEASE_OPERATION, out -> writeResultPartitionId(out, partitionId), in -> null);
+    }
+
+    private static void writeFile(DataOutputStream out, Path path) throws IOException {
+        out.writeLong(Files.size(path));
+        Files.copy(path, out);
+    }
+
+    private <T> T sendRequest(
+            byte operation,
+            ThrowingConsumer<DataOutputStream, IOException> requestWriter,
+            FunctionWithException<DataInputStream, T, IOException> responseReader)
+            throws IOException {
+        try (Socket socket = socketFactory.createSocket()) {
+            socket.connect(address, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+
+            DataOutputStream out =
+                    new DataOutputStream(
+                            new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+            DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            out.writeByte(operation);
+            requestWriter.accept(out);
+            out.flush();
+
+            readResponse(in);
+            return responseReader.apply(in);
+        } catch (IOException e) {
+            throw new IOException("Request to the shuffle worker at " + address + " failed.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ShuffleWorkerClient{address=" + address + '}';
+    }
+}
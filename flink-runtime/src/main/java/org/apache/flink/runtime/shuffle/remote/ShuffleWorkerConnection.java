@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.BUFFER_SIZE;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.GET_DATA_PORT_OPERATION;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.RELEASE_OPERATION;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.RETURN_OKAY;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.UPLOAD_OPERATION;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.readBoundedInt;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.readResultPartitionId;
+import static org.apache.flink.runtime.shuffle.remote.ShuffleWorkerProtocol.writeError;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/** A connection of a {@link ShuffleWorkerClient} to the {@link ShuffleWorker}. */
+class ShuffleWorkerConnection extends Thread {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShuffleWorkerConnection.class);
+
+    /** The socket to communicate with the client. */
+    private final Socket clientSocket;
+
+    /** The shuffle worker which accepted the connection. */
+    private final ShuffleWorker shuffleWorker;
+
+    ShuffleWorkerConnection(Socket clientSocket, ShuffleWorker shuffleWorker) {
+        super("Shuffle worker connection for " + clientSocket.getRemoteSocketAddress());
+        setDaemon(true);
+
+        this.clientSocket = checkNotNull(clientSocket);
+        this.shuffleWorker = checkNotNull(shuffleWorker);
+    }
+
+    /** Main connection work method. Accepts requests until the other side closes the connection. */
+    @Override
+    public void run() {
+        try {
+            final DataInputStream in =
+                    new DataInputStream(
+                            new BufferedInputStream(clientSocket.getInputStream(), BUFFER_SIZE));
+            final DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+
+            while (true) {
+                // Read the requested operation
+                final int operation = in.read();
+                if (operation < 0) {
+                    // done, no one is asking anything from us
+                    return;
+                }
+
+                try {
+                    executeOperation(operation, in, out);
+                    out.flush();
+                } catch (SocketException e) {
+                    throw e;
+                } catch (Throwable t) {
+                    // the rest of the request can not be skipped, so the connection is closed
+                    writeError(out, t);
+                    throw t;
+                }
+            }
+        } catch (SocketException e) {
+            // this happens when the remote site closes the connection
+            LOG.debug("Socket connection closed", e);
+        } catch (Throwable t) {
+            LOG.error("Error while executing shuffle worker connection.", t);
+        } finally {
+            close();
+            shuffleWorker.unregisterConnection(this);
+        }
+    }
+
+    private void executeOperation(int operation, DataInputStream in, DataOutputStream out)
+            throws IOException {
+        switch (operation) {
+            case GET_DATA_PORT_OPERATION:
+                out.writeByte(RETURN_OKAY);
+                out.writeInt(shuffleWorker.getDataPort());
+                break;
+            case UPLOAD_OPERATION:
+                upload(in);
+                out.writeByte(RETURN_OKAY);
+                break;
+            case RELEASE_OPERATION:
+                ResultPartitionID partitionId = readResultPartitionId(in);
+                shuffleWorker.getPartitionManager().releasePartition(partitionId);
+                out.writeByte(RETURN_OKAY);
+                break;
+            default:
+                throw new IOException("Unknown operation " + operation);
+        }
+    }
+
+    private void upload(DataInputStream in) throws IOException {
+        ResultPartitionID partitionId = readResultPartitionId(in);
+        int numSubpartitions =
+                readBoundedInt(
+                        in,
+                        1,
+                        KeyGroupRangeAssignment.UPPER_BOUND_MAX_PARALLELISM,
+                        "number of subpartitions");
+        int numRegions = readBoundedInt(in, 0, Integer.MAX_VALUE, "number of regions");
+        int[] numDataBuffers = new int[numSubpartitions];
+        for (int i = 0; i < numSubpartitions; i++) {
+            numDataBuffers[i] = readBoundedInt(in, 0, Integer.MAX_VALUE, "number of buffers");
+        }
+        long indexFileSize =
+                (long) numRegions * numSubpartitions * PartitionedFile.INDEX_ENTRY_SIZE;
+
+        String basePath = shuffleWorker.createPartitionFileBasePath();
+        PartitionedFile partitionedFile =
+                new PartitionedFile(
+                        numRegions,
+                        numSubpartitions,
+                        Paths.get(basePath + PartitionedFile.DATA_FILE_SUFFIX),
+                        Paths.get(basePath + PartitionedFile.INDEX_FILE_SUFFIX),
+                        null);
+        try {
+            readFile(in, partitionedFile.getIndexFilePath(), indexFileSize, indexFileSize);
+            readFile(in, partitionedFile.getDataFilePath(), 0, Long.MAX_VALUE);
+        } catch (Throwable t) {
+            partitionedFile.deleteQuietly();
+            throw t;
+        }
+
+        shuffleWorker
+                .getPartitionManager()
+                .addPartition(partitionId, partitionedFile, numDataBuffers);
+    }
+
+    private static void readFile(DataInputStream in, Path path, long minSize, long maxSize)
+            throws IOException {
+        long remaining = in.readLong();
+        if (remaining < minSize || remaining > maxSize) {
+            throw new IOException(
+                    String.format(
+                            "Received illegal size %d of file %s, expected a size between %d "
+                                    + "and %d.",
+                            remaining, path.getFileName(), minSize, maxSize));
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Received an incomplete file.");
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    /** Closes the connection socket and lets the thread exit. */
+    void close() {
+        try {
+            clientSocket.close();
+        } catch (Throwable t) {
+            LOG.debug("Exception while closing shuffle worker connection socket.", t);
+        }
+
+        interrupt();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.Unpooled;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Definitions of the operations and return codes of the socket protocol between the {@link
+ * ShuffleWorker} and the {@link ShuffleWorkerClient}.
+ *
+ * <p>Every request starts with the operation byte and is answered with a return code, which is
+ * followed by the error message in case of an error. The connections are not authenticated, so no
+ * objects are deserialized from the socket and all lengths read from it are validated.
+ */
+final class ShuffleWorkerProtocol {
+
+    /** The buffer size in bytes for the transfer of the partition files. */
+    static final int BUFFER_SIZE = 65536; // 64 K
+
+    /** Operation to request the port to read the stored partitions from. */
+    static final byte GET_DATA_PORT_OPERATION = 0;
+
+    /** Operation to upload the files of a finished partition. */
+    static final byte UPLOAD_OPERATION = 1;
+
+    /** Operation to release a stored partition. */
+    static final byte RELEASE_OPERATION = 2;
+
+    /** Internal code to identify a successful operation. */
+    static final byte RETURN_OKAY = 0;
+
+    /** Internal code to identify an erroneous operation. */
+    static final byte RETURN_ERROR = 1;
+
+    /** The number of bytes of a serialized {@link ResultPartitionID}. */
+    static final int RESULT_PARTITION_ID_SIZE =
+            IntermediateResultPartitionID.getByteBufLength()
+                    + ExecutionAttemptID.getByteBufLength();
+
+    /** The maximum number of characters of an error message sent to the client. */
+    static final int MAX_ERROR_MESSAGE_LENGTH = 16384;
+
+    /** Writes the given partition ID as its fixed-size ID bytes. */
+    static void writeResultPartitionId(DataOutputStream out, ResultPartitionID partitionId)
+            throws IOException {
+        byte[] bytes = new byte[RESULT_PARTITION_ID_SIZE];
+        ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+        buf.clear();
+        partitionId.getPartitionId().writeTo(buf);
+        partitionId.getProducerId().writeTo(buf);
+        out.write(bytes);
+    }
+
+    /** Reads a partition ID which has been written by {@link #writeResultPartitionId}. */
+    static ResultPartitionID readResultPartitionId(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[RESULT_PARTITION_ID_SIZE];
+        in.readFully(bytes);
+        ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+        return new ResultPartitionID(
+                IntermediateResultPartitionID.fromByteBuf(buf),
+                ExecutionAttemptID.fromByteBuf(buf));
+    }
+
+    /**
+     * Reads an int which has been sent by the other side and checks that it is within the given
+     * bounds, so that it can be used to size allocations.
+     */
+    static int readBoundedInt(DataInputStream in, int min, int max, String name)
+            throws IOException {
+        int value = in.readInt();
+        if (value < min || value > max) {
+            throw new IOException(
+                    String.format(
+                            "Received illegal %s %d, expected a value between %d and %d.",
+                            name, value, min, max));
+        }
+        return value;
+    }
+
+    /**
+     * Writes the error return code, followed by the message of the given exception. Exceptions are
+     * not sent in serialized form, so that neither side deserializes objects from the socket.
+     */
+    static void writeError(DataOutputStream out, Throwable t) throws IOException {
+        String message = t.getClass().getName() + ": " + t.getMessage();
+        out.writeByte(RETURN_ERROR);
+        // the modified UTF-8 encoding takes at most 3 bytes per character
+        out.writeUTF(
+                message.length() > MAX_ERROR_MESSAGE_LENGTH
+                        ? message.substring(0, MAX_ERROR_MESSAGE_LENGTH)
+                        : message);
+        out.flush();
+    }
+
+    /**
+     * Reads the return code of an operation.
+     *
+     * @throws IOException Thrown, if the operation failed on the shuffle worker, with the error
+     *     message of the shuffle worker.
+     */
+    static void readResponse(DataInputStream in) throws IOException {
+        byte response = in.readByte();
+        if (response == RETURN_ERROR) {
+            throw new IOException(
+                    "The shuffle worker failed to execute the request: " + in.readUTF());
+        } else if (response != RETURN_OKAY) {
+            throw new IOException("Unrecognized response: " + response + '.');
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** Not intended to be instantiated. */
+    private ShuffleWorkerProtocol() {}
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
+import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.PartitionedFileSubpartitionProvider;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The partitions stored on a {@link ShuffleWorker}, which provides the views to read them for the
+ * partition requests of the consumers. As on the TaskExecutors, the views of all stored partitions
+ * are read in the shared I/O threads with the buffers of the shared {@link
+ * BatchShuffleReadBufferPool}, so neither the netty threads block on the disk nor the memory grows
+ * with the number of consumers.
+ */
+class StoredPartitionManager implements ResultPartitionProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StoredPartitionManager.class);
+
+    /** Buffer pool to read the stored partitions with. */
+    private final BatchShuffleReadBufferPool readBufferPool;
+
+    /** Executor to read the stored partitions in. */
+    private final Executor readIOExecutor;
+
+    /** Number of bytes read from the stored partitions. */
+    private final Counter numBytesRead;
+
+    private final Map<ResultPartitionID, PartitionedFileSubpartitionProvider> partitions =
+            new ConcurrentHashMap<>();
+
+    StoredPartitionManager(
+            BatchShuffleReadBufferPool readBufferPool,
+            Executor readIOExecutor,
+            Counter numBytesRead) {
+        this.readBufferPool = checkNotNull(readBufferPool);
+        this.readIOExecutor = checkNotNull(readIOExecutor);
+        this.numBytesRead = checkNotNull(numBytesRead);
+    }
+
+    /**
+     * Adds an uploaded partition. A previous upload of the same partition is replaced, which
+     * happens if the producer failed after the upload.
+     */
+    void addPartition(
+            ResultPartitionID partitionId, PartitionedFile partitionedFile, int[] numDataBuffers) {
+        PartitionedFileSubpartitionProvider previous =
+                partitions.put(
+                        checkNotNull(partitionId),
+                        new PartitionedFileSubpartitionProvider(
+                                partitionedFile,
+                                numDataBuffers,
+                                readBufferPool,
+                                readIOExecutor,
+                                numBytesRead));
+        if (previous != null) {
+            previous.release();
+        }
+
+        LOG.debug("Stored partition {} in {}.", partitionId, partitionedFile);
+    }
+
+    /**
+     * Releases a stored partition. Its files are deleted once the views which are reading the
+     * partition are released.
+     *
+     * @return whether the partition was stored
+     */
+    boolean releasePartition(ResultPartitionID partitionId) {
+        PartitionedFileSubpartitionProvider partition = partitions.remove(partitionId);
+        if (partition == null) {
+            return false;
+        }
+
+        partition.release();
+        LOG.debug("Released partition {}.", partitionId);
+        return true;
+    }
+
+    void releaseAllPartitions() {
+        for (ResultPartitionID partitionId : new ArrayList<>(partitions.keySet())) {
+            releasePartition(partitionId);
+        }
+    }
+
+    Collection<ResultPartitionID> getStoredPartitions() {
+        return new ArrayList<>(partitions.keySet());
+    }
+
+    @Override
+    public ResultSubpartitionView createSubpartitionView(
+            ResultPartitionID partitionId,
+            int index,
+            BufferAvailabilityListener availabilityListener)
+            throws IOException {
+        PartitionedFileSubpartitionProvider partition = partitions.get(partitionId);
+        if (partition == null) {
+            throw new PartitionNotFoundException(partitionId);
+        }
+
+        LOG.debug("Requesting subpartition {} of {}.", index, partitionId);
+        return partition.createSubpartitionView(index, availabilityListener);
+    }
+}
@@ -22,7 +22,6 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueElement;
-import org.apache.flink.runtime.state.heap.HeapPriorityQueueSet;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSnapshotRestoreWrapper;
 import org.apache.flink.util.FlinkRuntimeException;
@@ -93,7 +92,7 @@ public class HeapPriorityQueuesManager {
                     RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo) {
 
         final String stateName = metaInfo.getName();
-        final HeapPriorityQueueSet<T> priorityQueue =
+        final KeyGroupedInternalPriorityQueue<T> priorityQueue =
                 priorityQueueSetFactory.create(stateName, metaInfo.getElementSerializer());
 
         HeapPriorityQueueSnapshotRestoreWrapper<T> wrapper =
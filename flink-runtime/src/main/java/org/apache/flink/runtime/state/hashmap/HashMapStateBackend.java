@@ -63,6 +63,10 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * concurrently (if the TaskManager has multiple slots, or if slot-sharing is used) then the
  * aggregate state of all tasks needs to fit into that TaskManager's memory.
  *
+ * <p>For large states, the working state can be kept in serialized form in off-heap memory instead,
+ * see {@link #setUseOffHeapStateTables(boolean)}. This trades the garbage collection overhead of
+ * many state objects for the cost of serializing state on every access.
+ *
  * <h1>Configuration</h1>
  *
  * <p>As for all state backends, this backend can either be configured within the application (by
@@ -88,6 +92,12 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
      */
     private final TernaryBoolean asynchronousSnapshots;
 
+    /**
+     * Switch to keep the working state in serialized form in off-heap memory. A value of
+     * 'undefined' means not yet configured, in which case the default will be used.
+     */
+    private TernaryBoolean offHeapStateTables = TernaryBoolean.UNDEFINED;
+
     // -----------------------------------------------------------------------
 
     /**
@@ -149,6 +159,9 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
         this.asynchronousSnapshots =
                 original.asynchronousSnapshots.resolveUndefined(
                         config.get(CheckpointingOptions.ASYNC_SNAPSHOTS));
+        this.offHeapStateTables =
+                original.offHeapStateTables.resolveUndefined(
+                        config.get(CheckpointingOptions.HASHMAP_OFF_HEAP_STATE_TABLES));
     }
 
     @Override
@@ -190,6 +203,7 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
                         localRecoveryConfig,
                         priorityQueueSetFactory,
                         isUsingAsynchronousSnapshots(),
+                        isUsingOffHeapStateTables(),
                         cancelStreamRegistry)
                 .build();
     }
@@ -221,4 +235,26 @@ public class HashMapStateBackend extends AbstractStateBackend implements Configu
         return asynchronousSnapshots.getOrDefault(
                 CheckpointingOptions.ASYNC_SNAPSHOTS.defaultValue());
     }
+
+    /**
+     * Sets whether the working state is kept in serialized form in off-heap memory, instead of as
+     * objects on the JVM heap. Off-heap state tables avoid the garbage collection overhead of large
+     * states, at the cost of serializing and deserializing state on every access.
+     *
+     * @param offHeapStateTables True to keep the working state in off-heap memory.
+     */
+    public void setUseOffHeapStateTables(boolean offHeapStateTables) {
+        this.offHeapStateTables = TernaryBoolean.fromBoolean(offHeapStateTables);
+    }
+
+    /**
+     * Gets whether the working state is kept in serialized form in off-heap memory.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * CheckpointingOptions#HASHMAP_OFF_HEAP_STATE_TABLES}.
+     */
+    public boolean isUsingOffHeapStateTables() {
+        return offHeapStateTables.getOrDefault(
+                CheckpointingOptions.HASHMAP_OFF_HEAP_STATE_TABLES.defaultValue());
+    }
 }
@@ -53,7 +53,9 @@ import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTran
 import org.apache.flink.runtime.state.StateSnapshotTransformers;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.Disposable;
 import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.StateMigrationException;
 
 import org.slf4j.Logger;
@@ -367,6 +369,17 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         }
     }
 
+    @Override
+    public void dispose() {
+        super.dispose();
+
+        for (StateTable<K, ?, ?> stateTable : registeredKVStates.values()) {
+            if (stateTable instanceof Disposable) {
+                IOUtils.closeQuietly(((Disposable) stateTable)::dispose);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "HeapKeyedStateBackend";
@@ -49,11 +49,13 @@ import static org.apache.flink.runtime.state.SnapshotExecutionType.SYNCHRONOUS;
  */
 public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBuilder<K> {
     /** The configuration of local recovery. */
-    private final LocalRecoveryConfig localRecoveryConfig;
+    protected final LocalRecoveryConfig localRecoveryConfig;
     /** Factory for state that is organized as priority queue. */
-    private final HeapPriorityQueueSetFactory priorityQueueSetFactory;
+    protected final HeapPriorityQueueSetFactory priorityQueueSetFactory;
     /** Whether asynchronous snapshot is enabled. */
-    private final boolean asynchronousSnapshots;
+    protected final boolean asynchronousSnapshots;
+    /** Whether state is kept in serialized form in off-heap state tables. */
+    private final boolean offHeapStateTables;
 
     public HeapKeyedStateBackendBuilder(
             TaskKvStateRegistry kvStateRegistry,
@@ -69,6 +71,38 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
             HeapPriorityQueueSetFactory priorityQueueSetFactory,
             boolean asynchronousSnapshots,
             CloseableRegistry cancelStreamRegistry) {
+        this(
+                kvStateRegistry,
+                keySerializer,
+                userCodeClassLoader,
+                numberOfKeyGroups,
+                keyGroupRange,
+                executionConfig,
+                ttlTimeProvider,
+                stateHandles,
+                keyGroupCompressionDecorator,
+                localRecoveryConfig,
+                priorityQueueSetFactory,
+                asynchronousSnapshots,
+                false,
+                cancelStreamRegistry);
+    }
+
+    public HeapKeyedStateBackendBuilder(
+            TaskKvStateRegistry kvStateRegistry,
+            TypeSerializer<K> keySerializer,
+            ClassLoader userCodeClassLoader,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            ExecutionConfig executionConfig,
+            TtlTimeProvider ttlTimeProvider,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            LocalRecoveryConfig localRecoveryConfig,
+            HeapPriorityQueueSetFactory priorityQueueSetFactory,
+            boolean asynchronousSnapshots,
+            boolean offHeapStateTables,
+            CloseableRegistry cancelStreamRegistry) {
         super(
                 kvStateRegistry,
                 keySerializer,
@@ -83,6 +117,7 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
         this.localRecoveryConfig = localRecoveryConfig;
         this.priorityQueueSetFactory = priorityQueueSetFactory;
         this.asynchronousSnapshots = asynchronousSnapshots;
+        this.offHeapStateTables = offHeapStateTables;
     }
 
     @Override
@@ -98,14 +133,37 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
         InternalKeyContext<K> keyContext =
                 new InternalKeyContextImpl<>(keyGroupRange, numberOfKeyGroups);
 
-        final StateTableFactory<K> stateTableFactory;
-        if (asynchronousSnapshots) {
-            stateTableFactory = CopyOnWriteStateTable::new;
+        final StateTableFactory<K> stateTableFactory = createStateTableFactory();
+
+        restoreState(registeredKVStates, registeredPQStates, keyContext, stateTableFactory);
+        return createKeyedStateBackend(
+                cancelStreamRegistryForBackend,
+                registeredKVStates,
+                registeredPQStates,
+                snapshotStrategy,
+                stateTableFactory,
+                keyContext);
+    }
+
+    /** Creates the factory for the state tables that hold the key/value states of the backend. */
+    StateTableFactory<K> createStateTableFactory() {
+        if (offHeapStateTables) {
+            return OffHeapStateTable::new;
+        } else if (asynchronousSnapshots) {
+            return CopyOnWriteStateTable::new;
         } else {
-            stateTableFactory = NestedMapsStateTable::new;
+            return NestedMapsStateTable::new;
         }
+    }
 
-        restoreState(registeredKVStates, registeredPQStates, keyContext, stateTableFactory);
+    /** Creates the backend from the already restored state. */
+    HeapKeyedStateBackend<K> createKeyedStateBackend(
+            CloseableRegistry cancelStreamRegistryForBackend,
+            Map<String, StateTable<K, ?, ?>> registeredKVStates,
+            Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates,
+            HeapSnapshotStrategy<K> snapshotStrategy,
+            StateTableFactory<K> stateTableFactory,
+            InternalKeyContext<K> keyContext) {
         return new HeapKeyedStateBackend<>(
                 kvStateRegistry,
                 keySerializerProvider.currentSchemaSerializer(),
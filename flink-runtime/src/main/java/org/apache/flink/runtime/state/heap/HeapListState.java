@@ -31,6 +31,7 @@ import org.apache.flink.util.Preconditions;
 
 import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -90,14 +91,27 @@ class HeapListState<K, N, V> extends AbstractHeapMergingState<K, N, V, List<V>,
 
         final N namespace = currentNamespace;
 
+        if (stateTable instanceof OffHeapStateTable) {
+            // appends the value without reading the stored list
+            ((OffHeapStateTable<K, N, List<V>>) stateTable)
+                    .addToList(namespace, Collections.singletonList(value));
+            return;
+        }
+
         final StateTable<K, N, List<V>> map = stateTable;
         List<V> list = map.get(namespace);
 
         if (list == null) {
             list = new ArrayList<>();
+            list.add(value);
             map.put(namespace, list);
+        } else {
+            list.add(value);
+            if (!map.isStoringStateObjects()) {
+                // the table returned a copy, so the modified list has to be written back
+                map.put(namespace, list);
+            }
         }
-        list.add(value);
     }
 
     @Override
@@ -173,7 +187,16 @@ class HeapListState<K, N, V> extends AbstractHeapMergingState<K, N, V, List<V>,
     public void addAll(List<V> values) throws Exception {
         Preconditions.checkNotNull(values, "List of values to add cannot be null.");
 
-        if (!values.isEmpty()) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        if (stateTable instanceof OffHeapStateTable) {
+            for (V v : values) {
+                Preconditions.checkNotNull(v, "You cannot add null to a ListState.");
+            }
+            ((OffHeapStateTable<K, N, List<V>>) stateTable).addToList(currentNamespace, values);
+        } else {
             stateTable.transform(
                     currentNamespace,
                     values,
@@ -28,10 +28,13 @@ import org.apache.flink.queryablestate.client.state.serialization.KvStateSeriali
 import org.apache.flink.runtime.state.internal.InternalMapState;
 import org.apache.flink.util.Preconditions;
 
+import javax.annotation.Nullable;
+
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Heap-backed partitioned {@link MapState} that is snapshotted into files.
@@ -44,6 +47,9 @@ import java.util.Map;
 class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
         implements InternalMapState<K, N, UK, UV> {
 
+    /** The state table if it is off-heap, which allows accessing single entries of the maps. */
+    @Nullable private final OffHeapStateTable<K, N, Map<UK, UV>> offHeapStateTable;
+
     /**
      * Creates a new key/value state for the given hash map of key/value pairs.
      *
@@ -63,6 +69,11 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
 
         Preconditions.checkState(
                 valueSerializer instanceof MapSerializer, "Unexpected serializer type.");
+
+        this.offHeapStateTable =
+                stateTable instanceof OffHeapStateTable
+                        ? (OffHeapStateTable<K, N, Map<UK, UV>>) stateTable
+                        : null;
     }
 
     @Override
@@ -81,8 +92,13 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public UV get(UK userKey) {
 
+        if (offHeapStateTable != null) {
+            return (UV) offHeapStateTable.getFromMap(currentNamespace, userKey);
+        }
+
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
 
         if (userMap == null) {
@@ -95,6 +111,12 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
     @Override
     public void put(UK userKey, UV userValue) {
 
+        if (offHeapStateTable != null) {
+            offHeapStateTable.putIntoMap(
+                    currentNamespace, Collections.singletonMap(userKey, userValue));
+            return;
+        }
+
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
         if (userMap == null) {
             userMap = new HashMap<>();
@@ -102,11 +124,17 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
         }
 
         userMap.put(userKey, userValue);
+        writeBack(currentNamespace, userMap);
     }
 
     @Override
     public void putAll(Map<UK, UV> value) {
 
+        if (offHeapStateTable != null) {
+            offHeapStateTable.putIntoMap(currentNamespace, value);
+            return;
+        }
+
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
 
         if (userMap == null) {
@@ -115,11 +143,17 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
         }
 
         userMap.putAll(value);
+        writeBack(currentNamespace, userMap);
     }
 
     @Override
     public void remove(UK userKey) {
 
+        if (offHeapStateTable != null) {
+            offHeapStateTable.removeFromMap(currentNamespace, userKey);
+            return;
+        }
+
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
         if (userMap == null) {
             return;
@@ -129,11 +163,17 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
 
         if (userMap.isEmpty()) {
             clear();
+        } else {
+            writeBack(currentNamespace, userMap);
         }
     }
 
     @Override
     public boolean contains(UK userKey) {
+        if (offHeapStateTable != null) {
+            return offHeapStateTable.mapContains(currentNamespace, userKey);
+        }
+
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
         return userMap != null && userMap.containsKey(userKey);
     }
@@ -141,29 +181,64 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
     @Override
     public Iterable<Map.Entry<UK, UV>> entries() {
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
-        return userMap == null ? Collections.emptySet() : userMap.entrySet();
+        if (userMap == null) {
+            return Collections.emptySet();
+        }
+        if (stateTable.isStoringStateObjects()) {
+            return userMap.entrySet();
+        }
+        N namespace = currentNamespace;
+        return () ->
+                new WriteBackIterator<>(
+                        namespace, userMap, entry -> new WriteBackEntry(namespace, userMap, entry));
     }
 
     @Override
     public Iterable<UK> keys() {
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
-        return userMap == null ? Collections.emptySet() : userMap.keySet();
+        if (userMap == null) {
+            return Collections.emptySet();
+        }
+        if (stateTable.isStoringStateObjects()) {
+            return userMap.keySet();
+        }
+        N namespace = currentNamespace;
+        return () -> new WriteBackIterator<>(namespace, userMap, Map.Entry::getKey);
     }
 
     @Override
     public Iterable<UV> values() {
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
-        return userMap == null ? Collections.emptySet() : userMap.values();
+        if (userMap == null) {
+            return Collections.emptySet();
+        }
+        if (stateTable.isStoringStateObjects()) {
+            return userMap.values();
+        }
+        N namespace = currentNamespace;
+        return () -> new WriteBackIterator<>(namespace, userMap, Map.Entry::getValue);
     }
 
     @Override
     public Iterator<Map.Entry<UK, UV>> iterator() {
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
-        return userMap == null ? Collections.emptyIterator() : userMap.entrySet().iterator();
+        if (userMap == null) {
+            return Collections.emptyIterator();
+        }
+        if (stateTable.isStoringStateObjects()) {
+            return userMap.entrySet().iterator();
+        }
+        N namespace = currentNamespace;
+        return new WriteBackIterator<>(
+                namespace, userMap, entry -> new WriteBackEntry(namespace, userMap, entry));
     }
 
     @Override
     public boolean isEmpty() {
+        if (offHeapStateTable != null) {
+            return offHeapStateTable.getMapSize(currentNamespace) == 0;
+        }
+
         Map<UK, UV> userMap = stateTable.get(currentNamespace);
         return userMap == null || userMap.isEmpty();
     }
@@ -200,6 +275,113 @@ class HeapMapState<K, N, UK, UV> extends AbstractHeapState<K, N, Map<UK, UV>>
                 result.entrySet(), dupUserKeySerializer, dupUserValueSerializer);
     }
 
+    /**
+     * Puts a modified user map back into the state table if the table does not store the map object
+     * itself, see {@link StateTable#isStoringStateObjects()}.
+     */
+    private void writeBack(N namespace, Map<UK, UV> userMap) {
+        if (stateTable.isStoringStateObjects()) {
+            return;
+        }
+        if (userMap.isEmpty()) {
+            stateTable.remove(namespace);
+        } else {
+            stateTable.put(namespace, userMap);
+        }
+    }
+
+    /**
+     * Writes the removal of a user key from a copy of a user map back into the state table.
+     * Off-heap tables only apply the removal, other tables get the whole map.
+     */
+    private void writeBackRemoval(N namespace, Map<UK, UV> userMap, UK userKey) {
+        if (offHeapStateTable != null) {
+            offHeapStateTable.removeFromMap(namespace, userKey);
+        } else {
+            writeBack(namespace, userMap);
+        }
+    }
+
+    /**
+     * Writes a changed value in a copy of a user map back into the state table. Off-heap tables
+     * only apply the changed entry, other tables get the whole map.
+     */
+    private void writeBackValue(N namespace, Map<UK, UV> userMap, UK userKey, UV userValue) {
+        if (offHeapStateTable != null) {
+            offHeapStateTable.putIntoMap(namespace, Collections.singletonMap(userKey, userValue));
+        } else {
+            writeBack(namespace, userMap);
+        }
+    }
+
+    /**
+     * Iterator over the entries of a copy of a user map, which returns a view of each entry and
+     * writes removals back into the state table.
+     */
+    private class WriteBackIterator<T> implements Iterator<T> {
+
+        private final N namespace;
+        private final Map<UK, UV> userMap;
+        private final Iterator<Map.Entry<UK, UV>> iterator;
+        private final Function<Map.Entry<UK, UV>, T> view;
+        private Map.Entry<UK, UV> lastEntry;
+
+        WriteBackIterator(N namespace, Map<UK, UV> userMap, Function<Map.Entry<UK, UV>, T> view) {
+            this.namespace = namespace;
+            this.userMap = userMap;
+            this.iterator = userMap.entrySet().iterator();
+            this.view = view;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            lastEntry = iterator.next();
+            return view.apply(lastEntry);
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+            writeBackRemoval(namespace, userMap, lastEntry.getKey());
+        }
+    }
+
+    /** Entry of a copy of a user map that writes changed values back into the state table. */
+    private class WriteBackEntry implements Map.Entry<UK, UV> {
+
+        private final N namespace;
+        private final Map<UK, UV> userMap;
+        private final Map.Entry<UK, UV> entry;
+
+        WriteBackEntry(N namespace, Map<UK, UV> userMap, Map.Entry<UK, UV> entry) {
+            this.namespace = namespace;
+            this.userMap = userMap;
+            this.entry = entry;
+        }
+
+        @Override
+        public UK getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        public UV getValue() {
+            return entry.getValue();
+        }
+
+        @Override
+        public UV setValue(UV value) {
+            UV oldValue = entry.setValue(value);
+            writeBackValue(namespace, userMap, entry.getKey(), value);
+            return oldValue;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     static <UK, UV, K, N, SV, S extends State, IS extends S> IS create(
             StateDescriptor<S, SV> stateDesc,
@@ -22,9 +22,12 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.KeyExtractorFunction;
 import org.apache.flink.runtime.state.KeyGroupPartitioner;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.RegisteredPriorityQueueStateBackendMetaInfo;
 import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
 import org.apache.flink.runtime.state.StateSnapshotRestore;
+import org.apache.flink.util.CloseableIterator;
+import org.apache.flink.util.FlinkRuntimeException;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -37,14 +40,14 @@ import javax.annotation.Nonnull;
 public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueueElement>
         implements StateSnapshotRestore {
 
-    @Nonnull private final HeapPriorityQueueSet<T> priorityQueue;
+    @Nonnull private final KeyGroupedInternalPriorityQueue<T> priorityQueue;
     @Nonnull private final KeyExtractorFunction<T> keyExtractorFunction;
     @Nonnull private final RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo;
     @Nonnull private final KeyGroupRange localKeyGroupRange;
     @Nonnegative private final int totalKeyGroups;
 
     public HeapPriorityQueueSnapshotRestoreWrapper(
-            @Nonnull HeapPriorityQueueSet<T> priorityQueue,
+            @Nonnull KeyGroupedInternalPriorityQueue<T> priorityQueue,
             @Nonnull RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo,
             @Nonnull KeyExtractorFunction<T> keyExtractorFunction,
             @Nonnull KeyGroupRange localKeyGroupRange,
@@ -61,8 +64,19 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
     @Nonnull
     @Override
     public HeapPriorityQueueStateSnapshot<T> stateSnapshot() {
-        final T[] queueDump =
-                (T[]) priorityQueue.toArray(new HeapPriorityQueueElement[priorityQueue.size()]);
+        if (isTiered()) {
+            return snapshotTieredQueues();
+        }
+
+        final T[] queueDump;
+        if (priorityQueue instanceof HeapPriorityQueueSet) {
+            queueDump =
+                    (T[])
+                            ((HeapPriorityQueueSet<T>) priorityQueue)
+                                    .toArray(new HeapPriorityQueueElement[priorityQueue.size()]);
+        } else {
+            queueDump = copyElements();
+        }
         return new HeapPriorityQueueStateSnapshot<T>(
                 queueDump,
                 keyExtractorFunction,
@@ -71,6 +85,57 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
                 totalKeyGroups);
     }
 
+    /**
+     * Returns whether the queue consists of the queues of a {@link TieredPriorityQueueSetFactory}.
+     */
+    private boolean isTiered() {
+        return priorityQueue instanceof KeyGroupPartitionedPriorityQueue
+                && localKeyGroupRange.getNumberOfKeyGroups() > 0
+                && ((KeyGroupPartitionedPriorityQueue<T, ?>) priorityQueue)
+                                .getKeyGroupQueue(localKeyGroupRange.getStartKeyGroup())
+                        instanceof TieredPriorityQueueSet;
+    }
+
+    /**
+     * Snapshots the queues of a {@link TieredPriorityQueueSetFactory} in serialized form, so that
+     * neither the memory tier nor the spilled runs are deserialized.
+     */
+    private TieredPriorityQueueStateSnapshot<T> snapshotTieredQueues() {
+        final KeyGroupPartitionedPriorityQueue<T, ?> partitionedQueue =
+                (KeyGroupPartitionedPriorityQueue<T, ?>) priorityQueue;
+        final TieredPriorityQueueSet.Snapshot[] keyGroupSnapshots =
+                new TieredPriorityQueueSet.Snapshot[localKeyGroupRange.getNumberOfKeyGroups()];
+        for (int i = 0; i < keyGroupSnapshots.length; i++) {
+            keyGroupSnapshots[i] =
+                    ((TieredPriorityQueueSet<?>)
+                                    partitionedQueue.getKeyGroupQueue(
+                                            localKeyGroupRange.getStartKeyGroup() + i))
+                            .snapshot();
+        }
+        return new TieredPriorityQueueStateSnapshot<>(
+                keyGroupSnapshots,
+                keyExtractorFunction,
+                metaInfo.deepCopy(),
+                localKeyGroupRange,
+                totalKeyGroups);
+    }
+
+    /** Copies the elements of queues that do not keep their elements as objects on the heap. */
+    @SuppressWarnings("unchecked")
+    private T[] copyElements() {
+        final T[] queueDump = (T[]) new HeapPriorityQueueElement[priorityQueue.size()];
+        int index = 0;
+        try (CloseableIterator<T> iterator = priorityQueue.iterator()) {
+            while (iterator.hasNext()) {
+                queueDump[index++] = iterator.next();
+            }
+        } catch (Exception e) {
+            throw new FlinkRuntimeException(
+                    "Could not copy the elements of the priority queue.", e);
+        }
+        return queueDump;
+    }
+
     @Nonnull
     @Override
     public StateSnapshotKeyGroupReader keyGroupReader(int readVersionHint) {
@@ -83,7 +148,7 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
     }
 
     @Nonnull
-    public HeapPriorityQueueSet<T> getPriorityQueue() {
+    public KeyGroupedInternalPriorityQueue<T> getPriorityQueue() {
         return priorityQueue;
     }
 
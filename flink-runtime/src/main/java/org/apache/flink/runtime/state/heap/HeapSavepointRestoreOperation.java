@@ -23,6 +23,7 @@ import org.apache.flink.api.common.typeutils.base.ListSerializer;
 import org.apache.flink.api.common.typeutils.base.MapSerializer;
 import org.apache.flink.core.memory.DataInputDeserializer;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.ListDelimitedSerializer;
 import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
@@ -175,7 +176,7 @@ public class HeapSavepointRestoreOperation<K> implements RestoreOperation<Void>
                         .getMetaInfo()
                         .getElementSerializer()
                         .deserialize(entryKeyDeserializer);
-        HeapPriorityQueueSet<HeapPriorityQueueElement> priorityQueue =
+        KeyGroupedInternalPriorityQueue<HeapPriorityQueueElement> priorityQueue =
                 priorityQueueSnapshotRestoreWrapper.getPriorityQueue();
         priorityQueue.add(timer);
     }
@@ -24,6 +24,10 @@ import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.internal.InternalValueState;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Heap-backed partitioned {@link ValueState} that is snapshotted into files.
  *
@@ -89,6 +93,29 @@ class HeapValueState<K, N, V> extends AbstractHeapState<K, N, V>
         stateTable.put(currentNamespace, value);
     }
 
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        final Map<K, V> result = new HashMap<>(keys.size());
+        for (K key : keys) {
+            final V value = stateTable.get(key, currentNamespace);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(Map<K, V> values) {
+        for (Map.Entry<K, V> entry : values.entrySet()) {
+            if (entry.getValue() == null) {
+                stateTable.remove(entry.getKey(), currentNamespace);
+            } else {
+                stateTable.put(entry.getKey(), currentNamespace, entry.getValue());
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     static <K, N, SV, S extends State, IS extends S> IS create(
             StateDescriptor<S, SV> stateDesc,
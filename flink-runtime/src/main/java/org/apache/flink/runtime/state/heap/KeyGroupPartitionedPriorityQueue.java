@@ -197,6 +197,12 @@ public class KeyGroupPartitionedPriorityQueue<
         return keyGroupIndex;
     }
 
+    /** Returns the queue that holds the elements of the given key-group. */
+    @Nonnull
+    PQ getKeyGroupQueue(int keyGroupId) {
+        return keyGroupedHeaps[globalKeyGroupToLocalIndex(keyGroupId)];
+    }
+
     @Nonnull
     @Override
     public Set<T> getSubsetForKeyGroup(int keyGroupId) {
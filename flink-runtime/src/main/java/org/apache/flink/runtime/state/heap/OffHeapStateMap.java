@@ -0,0 +1,1864 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.api.common.typeutils.base.MapSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implementation of a {@link StateMap} that keeps all entries in serialized form in off-heap {@link
+ * MemorySegment MemorySegments}. This map does not support null values for key or namespace.
+ *
+ * <p>Entries are appended as records of the form {@code (namespace, key, state)} to a growing list
+ * of segments, and never modified in place. Updates append a new record and re-point the index,
+ * removals only drop the index slot. The index is an open-addressing hash table with linear probing
+ * that is organized in pages of primitive arrays, so that there is no per-entry object the garbage
+ * collector has to trace.
+ *
+ * <p>Asynchronous snapshots work through copy-on-write at the granularity of index pages: a
+ * snapshot shares all index pages and segments with the map, and the map copies an index page
+ * before it modifies it for the first time after the snapshot. Because records are immutable, the
+ * segments never have to be copied. Once the garbage left behind by updates and removals exceeds
+ * the live data, the map compacts its records into fresh segments. Segments that are still
+ * referenced by a running snapshot are left to be reclaimed after that snapshot is released.
+ *
+ * <p>List and map states are stored as chains of records, see {@link StateLayout}. Adding elements
+ * to a list or putting and removing entries of a map appends a record with only the added elements
+ * or entries that points to the previous record of the key and namespace, so that single-element
+ * accesses do not deserialize and serialize the whole collection. Chains are consolidated into a
+ * single record once the appended records outgrow the consolidated one, and by compaction.
+ *
+ * <p>Keys and namespaces are compared in their serialized form, so their serializers must produce a
+ * deterministic binary representation. The same holds for the user keys of map states. In contrast
+ * to {@link CopyOnWriteStateMap}, objects returned by this map are always deserialized copies.
+ * Modifications to them are not visible in the map until they are put back, see {@link
+ * StateTable#isStoringStateObjects()}.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of value.
+ */
+public class OffHeapStateMap<K, N, S> extends StateMap<K, N, S> {
+
+    /** Min capacity of the index. Must be a power of two. */
+    @VisibleForTesting static final int MINIMUM_CAPACITY = 16;
+
+    /** Max capacity of the index. Must be a power of two >= MINIMUM_CAPACITY. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** Max number of slots in one index page, which is the unit of copy-on-write. */
+    @VisibleForTesting static final int MAX_PAGE_SIZE = 1024;
+
+    /** Size of the first segment allocated by a map. Segments double in size up to the max. */
+    private static final int INITIAL_SEGMENT_SIZE = 1024;
+
+    /** Max size of the segments, larger records are stored in dedicated segments. */
+    @VisibleForTesting static final int MAX_SEGMENT_SIZE = 32 * 1024;
+
+    /** Size of a record header: namespace length, key length and state length. */
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    /** State length of a record that holds a null state. */
+    private static final int NULL_STATE_LENGTH = -1;
+
+    /** Size of the chain header at the beginning of the state of list and map records. */
+    private static final int CHAIN_HEADER_SIZE = 20;
+
+    /** Size of the header of an entry of a map record: user key length, value length and hash. */
+    private static final int MAP_ENTRY_HEADER_SIZE = 12;
+
+    /** Value length of a map entry that holds a null value. */
+    private static final int NULL_VALUE_LENGTH = -1;
+
+    /** Value length of a map entry that marks the user key as removed. */
+    private static final int REMOVED_VALUE_LENGTH = -2;
+
+    /** Min size of the records appended to a chain before the chain is consolidated. */
+    @VisibleForTesting static final int MIN_CONSOLIDATION_SIZE = 1024;
+
+    /** Index pointer that marks an empty slot. */
+    static final long EMPTY = 0L;
+
+    /**
+     * The layout of the states in the records of an {@link OffHeapStateMap}.
+     *
+     * <p>Value states are stored as they are serialized by the state serializer. The states of
+     * lists and maps start with a chain header {@code (count, baseSize, deltaSize, previous)} in
+     * big-endian byte order, followed by the payload of the record. The count is the number of
+     * elements of the list or live entries of the map, the base size is the payload size of the
+     * oldest record of the chain, the delta size is the total size of all newer records, and
+     * previous points to the next older record of the chain or is {@link #EMPTY}.
+     *
+     * <p>The payload of a list record consists of its elements as serialized by the element
+     * serializer. The payload of a map record consists of entries {@code (userKeyLength,
+     * valueLength, userKeyHash, userKey, value)}, where a negative value length marks a null value
+     * or a removed user key. Entries of newer records shadow entries of older records with the same
+     * user key. In checkpoints, chains are written in the format of the list or map serializer.
+     */
+    enum StateLayout {
+        VALUE,
+        LIST,
+        MAP;
+
+        static StateLayout of(StateDescriptor.Type stateType) {
+            switch (stateType) {
+                case LIST:
+                    return LIST;
+                case MAP:
+                    return MAP;
+                default:
+                    return VALUE;
+            }
+        }
+    }
+
+    /** The layout of the states in the records of this map. */
+    private final StateLayout stateLayout;
+
+    /** The serializer of the key. */
+    private final TypeSerializer<K> keySerializer;
+
+    /** The serializer of the namespace. */
+    private final TypeSerializer<N> namespaceSerializer;
+
+    /** The serializer that was used to write the states currently held in the segments. */
+    private TypeSerializer<S> stateSerializer;
+
+    /** Reused buffer for the serialized composite of namespace and key. */
+    private final DataOutputSerializer keyOutputView;
+
+    /** Reused buffer for serialized states. */
+    private final DataOutputSerializer stateOutputView;
+
+    /** Heap segment that wraps the shared buffer of {@link #stateOutputView} for comparisons. */
+    private MemorySegment stateOutputSegment;
+
+    /** Reused buffer for lists and maps that are read from chains of records. */
+    private final DataOutputSerializer chainOutputView;
+
+    /** Length of the serialized namespace at the beginning of {@link #keyOutputView}. */
+    private int namespaceOutputLength;
+
+    /** Heap segment that wraps the shared buffer of {@link #keyOutputView} for comparisons. */
+    private MemorySegment keyOutputSegment;
+
+    /** Reused input view for deserializing records. */
+    private final DataInputDeserializer inputView;
+
+    /** Reused buffer to copy records out of the segments for deserialization. */
+    private byte[] readBuffer;
+
+    /** Pages of the index that hold the record pointers, {@link #EMPTY} for free slots. */
+    private long[][] pointerPages;
+
+    /** Pages of the index that hold the hashes of the keys, parallel to {@link #pointerPages}. */
+    private int[][] hashPages;
+
+    /** The map version in which each index page was created or last copied. */
+    private int[] pageVersions;
+
+    /** Number of slots in an index page, a power of two. */
+    private int pageSize;
+
+    /** log2 of {@link #pageSize}. */
+    private int pageShift;
+
+    /** Number of slots in the index, a power of two. */
+    private int capacity;
+
+    /** The number of entries after which the index grows. */
+    private int threshold;
+
+    /** The number of entries in this map. */
+    private int size;
+
+    /** The segments that hold the records. Pointers refer to the position in this list. */
+    private final List<MemorySegment> segments;
+
+    /** Write position in the last segment. */
+    private int tailOffset;
+
+    /** Size of the next regular segment to allocate. */
+    private int nextSegmentSize;
+
+    /** Total number of bytes of all records appended since the last compaction. */
+    private long usedBytes;
+
+    /** Number of bytes of records that are no longer referenced by the index. */
+    private long garbageBytes;
+
+    /** Incremented with every structural modification, for fail-fast iterators. */
+    private int modCount;
+
+    /**
+     * The current version of this map. Used for copy-on-write mechanics, incremented with every
+     * snapshot.
+     */
+    private int stateMapVersion;
+
+    /** The versions of the running snapshots. */
+    private final TreeSet<Integer> snapshotVersions;
+
+    /** The highest version of a running snapshot, or 0 if no snapshot is running. */
+    private int highestRequiredSnapshotVersion;
+
+    /** Segments that were compacted away while a snapshot was still running. */
+    private final List<MemorySegment> retiredSegments;
+
+    /**
+     * Constructs a new, empty {@link OffHeapStateMap} for value states.
+     *
+     * @param keySerializer the serializer of the key.
+     * @param namespaceSerializer the serializer of the namespace.
+     * @param stateSerializer the serializer of the state.
+     */
+    OffHeapStateMap(
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            TypeSerializer<S> stateSerializer) {
+        this(keySerializer, namespaceSerializer, stateSerializer, StateLayout.VALUE);
+    }
+
+    /**
+     * Constructs a new, empty {@link OffHeapStateMap}.
+     *
+     * @param keySerializer the serializer of the key.
+     * @param namespaceSerializer the serializer of the namespace.
+     * @param stateSerializer the serializer of the state, a {@link ListSerializer} or {@link
+     *     MapSerializer} for list and map layouts.
+     * @param stateLayout the layout of the states in the records.
+     */
+    OffHeapStateMap(
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            TypeSerializer<S> stateSerializer,
+            StateLayout stateLayout) {
+        this.keySerializer = Preconditions.checkNotNull(keySerializer);
+        this.namespaceSerializer = Preconditions.checkNotNull(namespaceSerializer);
+        this.stateLayout = Preconditions.checkNotNull(stateLayout);
+        this.stateSerializer = checkStateSerializer(stateSerializer, stateLayout);
+        this.keyOutputView = new DataOutputSerializer(64);
+        this.stateOutputView = new DataOutputSerializer(128);
+        this.chainOutputView = new DataOutputSerializer(128);
+        this.inputView = new DataInputDeserializer();
+        this.readBuffer = new byte[128];
+        this.segments = new ArrayList<>();
+        this.retiredSegments = new ArrayList<>();
+        this.snapshotVersions = new TreeSet<>();
+        this.nextSegmentSize = INITIAL_SEGMENT_SIZE;
+        this.stateMapVersion = 0;
+        this.highestRequiredSnapshotVersion = 0;
+        initIndex(MINIMUM_CAPACITY);
+    }
+
+    // Public API from StateMap
+    // ------------------------------------------------------------------------------
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public S get(K key, N namespace) {
+        int slot = findSlot(serializeKeyAndNamespace(key, namespace));
+        return slot >= 0 ? readState(getPointer(slot)) : null;
+    }
+
+    @Override
+    public boolean containsKey(K key, N namespace) {
+        return findSlot(serializeKeyAndNamespace(key, namespace)) >= 0;
+    }
+
+    @Override
+    public void put(K key, N namespace, S state) {
+        int hash = serializeKeyAndNamespace(key, namespace);
+        putSerialized(hash, findSlot(hash), state);
+    }
+
+    @Override
+    public S putAndGetOld(K key, N namespace, S state) {
+        int hash = serializeKeyAndNamespace(key, namespace);
+        int slot = findSlot(hash);
+        S oldState = slot >= 0 ? readState(getPointer(slot)) : null;
+        putSerialized(hash, slot, state);
+        return oldState;
+    }
+
+    @Override
+    public void remove(K key, N namespace) {
+        int slot = findSlot(serializeKeyAndNamespace(key, namespace));
+        if (slot >= 0) {
+            removeSlot(slot);
+        }
+    }
+
+    @Override
+    public S removeAndGetOld(K key, N namespace) {
+        int slot = findSlot(serializeKeyAndNamespace(key, namespace));
+        if (slot < 0) {
+            return null;
+        }
+        S oldState = readState(getPointer(slot));
+        removeSlot(slot);
+        return oldState;
+    }
+
+    @Override
+    public <T> void transform(
+            K key, N namespace, T value, StateTransformationFunction<S, T> transformation)
+            throws Exception {
+        int hash = serializeKeyAndNamespace(key, namespace);
+        int slot = findSlot(hash);
+        S oldState = slot >= 0 ? readState(getPointer(slot)) : null;
+        putSerialized(hash, slot, transformation.apply(oldState, value));
+    }
+
+    // Lists and maps
+    // ------------------------------------------------------------------------------
+
+    /**
+     * Adds the given elements to the list state of the given key and namespace. The elements are
+     * appended as a new record of the chain of the list, without reading the list.
+     */
+    @SuppressWarnings("unchecked")
+    void addToList(K key, N namespace, List<?> elements) {
+        checkStateLayout(StateLayout.LIST);
+        int hash = serializeKeyAndNamespace(key, namespace);
+        int slot = findSlot(hash);
+        if (slot < 0 || isNullState(getPointer(slot))) {
+            putSerialized(hash, slot, (S) new ArrayList<>(elements));
+            return;
+        }
+        if (elements.isEmpty()) {
+            return;
+        }
+
+        long head = getPointer(slot);
+        stateOutputView.clear();
+        try {
+            writeChainHeaderPlaceholder();
+            TypeSerializer<Object> elementSerializer = getListElementSerializer();
+            for (Object element : elements) {
+                elementSerializer.serialize(element, stateOutputView);
+            }
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to serialize list elements.", e);
+        }
+        appendToChain(slot, hash, head, getCount(segments, head) + elements.size());
+    }
+
+    /**
+     * Returns the value of the user key in the map state of the given key and namespace, or {@code
+     * null} if there is no such value. Only the value is deserialized.
+     */
+    @Nullable
+    Object getFromMap(K key, N namespace, Object userKey) {
+        long entry = findMapEntry(key, namespace, userKey);
+        if (entry == EMPTY) {
+            return null;
+        }
+        MemorySegment segment = segments.get(segmentIndex(entry));
+        int entryOffset = segmentOffset(entry);
+        int userKeyLength = segment.getIntBigEndian(entryOffset);
+        int valueLength = segment.getIntBigEndian(entryOffset + 4);
+        return valueLength == NULL_VALUE_LENGTH
+                ? null
+                : deserialize(
+                        getMapValueSerializer(),
+                        segment,
+                        entryOffset + MAP_ENTRY_HEADER_SIZE + userKeyLength,
+                        valueLength);
+    }
+
+    /** Returns whether the map state of the given key and namespace contains the user key. */
+    boolean mapContains(K key, N namespace, Object userKey) {
+        return findMapEntry(key, namespace, userKey) != EMPTY;
+    }
+
+    /** Returns the number of entries of the map state of the given key and namespace. */
+    int getMapSize(K key, N namespace) {
+        checkStateLayout(StateLayout.MAP);
+        int slot = findSlot(serializeKeyAndNamespace(key, namespace));
+        if (slot < 0 || isNullState(getPointer(slot))) {
+            return 0;
+        }
+        return getCount(segments, getPointer(slot));
+    }
+
+    /**
+     * Puts the given entries into the map state of the given key and namespace. The entries are
+     * appended as a new record of the chain of the map, without reading the map.
+     */
+    @SuppressWarnings("unchecked")
+    void putIntoMap(K key, N namespace, Map<?, ?> entries) {
+        checkStateLayout(StateLayout.MAP);
+        int hash = serializeKeyAndNamespace(key, namespace);
+        int slot = findSlot(hash);
+        if (slot < 0 || isNullState(getPointer(slot))) {
+            putSerialized(hash, slot, (S) new HashMap<>(entries));
+            return;
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        long head = getPointer(slot);
+        int count = getCount(segments, head);
+        stateOutputView.clear();
+        try {
+            writeChainHeaderPlaceholder();
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                int entryOffset = serializeMapEntry(entry.getKey(), entry.getValue(), false);
+                if (findMapEntry(head, wrapStateOutput(), entryOffset) == EMPTY) {
+                    ++count;
+                }
+            }
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to serialize map entries.", e);
+        }
+        appendToChain(slot, hash, head, count);
+    }
+
+    /**
+     * Removes the user key from the map state of the given key and namespace. The removal is
+     * appended as a new record of the chain of the map, and the state is removed together with the
+     * last entry of the map.
+     */
+    void removeFromMap(K key, N namespace, Object userKey) {
+        checkStateLayout(StateLayout.MAP);
+        int hash = serializeKeyAndNamespace(key, namespace);
+        int slot = findSlot(hash);
+        if (slot < 0 || isNullState(getPointer(slot))) {
+            return;
+        }
+
+        long head = getPointer(slot);
+        int count = getCount(segments, head);
+        stateOutputView.clear();
+        final int entryOffset;
+        try {
+            writeChainHeaderPlaceholder();
+            entryOffset = serializeMapEntry(userKey, null, true);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to serialize user key.", e);
+        }
+        if (findMapEntry(head, wrapStateOutput(), entryOffset) != EMPTY) {
+            --count;
+        } else if (count > 0) {
+            return;
+        }
+
+        if (count == 0) {
+            removeSlot(slot);
+        } else {
+            appendToChain(slot, hash, head, count);
+        }
+    }
+
+    /**
+     * Returns the newest entry of the user key in the map state of the given key and namespace, or
+     * {@link #EMPTY} if there is no such entry or the user key was removed.
+     */
+    private long findMapEntry(K key, N namespace, Object userKey) {
+        checkStateLayout(StateLayout.MAP);
+        int slot = findSlot(serializeKeyAndNamespace(key, namespace));
+        if (slot < 0 || isNullState(getPointer(slot))) {
+            return EMPTY;
+        }
+
+        stateOutputView.clear();
+        final int entryOffset;
+        try {
+            entryOffset = serializeMapEntry(userKey, null, true);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to serialize user key.", e);
+        }
+        return findMapEntry(getPointer(slot), wrapStateOutput(), entryOffset);
+    }
+
+    // Iteration
+    // ------------------------------------------------------------------------------
+
+    @Override
+    public Stream<K> getKeys(N namespace) {
+        Iterator<StateEntry<K, N, S>> iterator =
+                new StateEntryIterator(serializeNamespace(namespace));
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .map(StateEntry::getKey);
+    }
+
+    @Override
+    public Iterator<StateEntry<K, N, S>> iterator() {
+        return new StateEntryIterator(null);
+    }
+
+    @Override
+    public InternalKvState.StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(
+            int recommendedMaxNumberOfReturnedRecords) {
+        return new StateIncrementalVisitorImpl(recommendedMaxNumberOfReturnedRecords);
+    }
+
+    @Override
+    public int sizeOfNamespace(Object namespace) {
+        @SuppressWarnings("unchecked")
+        byte[] serializedNamespace = serializeNamespace((N) namespace);
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long pointer = getPointer(slot);
+            if (pointer != EMPTY && namespaceEquals(pointer, serializedNamespace)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the state for the given key and namespace without using the reused buffers of this
+     * map, so that it can be called from other threads than the one that owns the map, e.g. for
+     * queryable state. Like for {@link CopyOnWriteStateMap}, concurrent modifications are not
+     * synchronized.
+     */
+    S getConcurrently(K key, N namespace) {
+        DataOutputSerializer outputView = new DataOutputSerializer(64);
+        try {
+            namespaceSerializer.serialize(namespace, outputView);
+            keySerializer.serialize(key, outputView);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to serialize key and namespace.", e);
+        }
+        final byte[] serializedKey = outputView.getSharedBuffer();
+        final int length = outputView.length();
+        final MemorySegment keySegment = MemorySegmentFactory.wrap(serializedKey);
+        final int hash = hashBytes(serializedKey, length);
+
+        final long[][] currentPointerPages = pointerPages;
+        final int[][] currentHashPages = hashPages;
+        final int currentPageShift = pageShift;
+        final int pageMask = (1 << currentPageShift) - 1;
+        final int mask = (currentPointerPages.length << currentPageShift) - 1;
+        int slot = hash & mask;
+        while (true) {
+            long pointer = currentPointerPages[slot >>> currentPageShift][slot & pageMask];
+            if (pointer == EMPTY) {
+                return null;
+            }
+            if (currentHashPages[slot >>> currentPageShift][slot & pageMask] == hash) {
+                MemorySegment segment = segments.get(segmentIndex(pointer));
+                int offset = segmentOffset(pointer);
+                if (segment.getInt(offset) + segment.getInt(offset + 4) == length
+                        && segment.equalTo(keySegment, offset + RECORD_HEADER_SIZE, 0, length)) {
+                    return readEntry(
+                                    segments,
+                                    pointer,
+                                    stateLayout,
+                                    new DataInputDeserializer(),
+                                    keySerializer.duplicate(),
+                                    namespaceSerializer.duplicate(),
+                                    stateSerializer.duplicate())
+                            .getState();
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Snapshotting
+    // ------------------------------------------------------------------------------
+
+    /**
+     * Creates a snapshot of this {@link OffHeapStateMap}, to be written in checkpointing. The
+     * snapshot shares index pages and segments with this map until they are modified. Users should
+     * call {@link #releaseSnapshot(StateMapSnapshot)} after using the returned object.
+     *
+     * @return a snapshot from this {@link OffHeapStateMap}, for checkpointing.
+     */
+    @Nonnull
+    @Override
+    public OffHeapStateMapSnapshot<K, N, S> stateSnapshot() {
+        return new OffHeapStateMapSnapshot<>(this);
+    }
+
+    /**
+     * Registers a new snapshot and returns the current version of this map. All index pages that
+     * are modified after this call are copied first.
+     */
+    int registerSnapshot() {
+        // we guard against concurrent modifications of highestRequiredSnapshotVersion between
+        // registration and release of the snapshot, which can happen from different threads.
+        synchronized (snapshotVersions) {
+            // increase the map version for copy-on-write and register the snapshot
+            if (++stateMapVersion < 0) {
+                // this is just a safety net against overflows, but should never happen in practice
+                // (i.e., only after 2^31 snapshots)
+                throw new IllegalStateException(
+                        "Version count overflow in OffHeapStateMap. Enforcing restart.");
+            }
+            highestRequiredSnapshotVersion = stateMapVersion;
+            snapshotVersions.add(highestRequiredSnapshotVersion);
+        }
+        return stateMapVersion;
+    }
+
+    long[][] getPointerPages() {
+        return pointerPages.clone();
+    }
+
+    MemorySegment[] getSegments() {
+        return segments.toArray(new MemorySegment[0]);
+    }
+
+    int getPageShift() {
+        return pageShift;
+    }
+
+    StateLayout getStateLayout() {
+        return stateLayout;
+    }
+
+    TypeSerializer<S> getStateSerializer() {
+        return stateSerializer;
+    }
+
+    @Override
+    public void releaseSnapshot(
+            StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> snapshotToRelease) {
+
+        Preconditions.checkArgument(
+                snapshotToRelease instanceof OffHeapStateMapSnapshot,
+                "Cannot release snapshot which is not a OffHeapStateMapSnapshot");
+
+        OffHeapStateMapSnapshot<K, N, S> snapshot =
+                (OffHeapStateMapSnapshot<K, N, S>) snapshotToRelease;
+
+        Preconditions.checkArgument(
+                snapshot.isOwner(this),
+                "Cannot release snapshot which is owned by a different state map.");
+
+        releaseSnapshot(snapshot.getSnapshotVersion());
+    }
+
+    /**
+     * Releases a snapshot for this {@link OffHeapStateMap}. This method should be called once a
+     * snapshot is no more needed, so that the map can stop copying index pages and reclaim
+     * compacted segments.
+     *
+     * @param snapshotVersion the version of the snapshot to release.
+     */
+    void releaseSnapshot(int snapshotVersion) {
+        synchronized (snapshotVersions) {
+            Preconditions.checkState(
+                    snapshotVersions.remove(snapshotVersion),
+                    "Attempt to release unknown snapshot version");
+            highestRequiredSnapshotVersion =
+                    snapshotVersions.isEmpty() ? 0 : snapshotVersions.last();
+            if (snapshotVersions.isEmpty()) {
+                freeSegments(retiredSegments);
+            }
+        }
+    }
+
+    /**
+     * Changes the serializer of the states. If the new serializer is not equal to the current one,
+     * all states are rewritten with the new serializer.
+     */
+    void updateStateSerializer(TypeSerializer<S> newStateSerializer) {
+        checkStateSerializer(newStateSerializer, stateLayout);
+        if (stateSerializer.equals(newStateSerializer)) {
+            stateSerializer = newStateSerializer;
+            return;
+        }
+
+        TypeSerializer<S> previousStateSerializer = stateSerializer;
+        for (int slot = 0; slot < capacity; slot++) {
+            long pointer = getPointer(slot);
+            if (pointer != EMPTY) {
+                stateSerializer = previousStateSerializer;
+                S state = readState(pointer);
+                stateSerializer = newStateSerializer;
+                int stateLength = serializeState(state);
+                setSlot(
+                        slot,
+                        appendRecord(
+                                segments.get(segmentIndex(pointer)),
+                                segmentOffset(pointer),
+                                state == null ? NULL_STATE_LENGTH : stateLength),
+                        getHash(slot));
+                markGarbage(pointer);
+            }
+        }
+        stateSerializer = newStateSerializer;
+        compactIfNeeded();
+    }
+
+    /**
+     * Releases the memory of this map. Segments that are still referenced by a running snapshot are
+     * left to the garbage collector.
+     */
+    void dispose() {
+        synchronized (snapshotVersions) {
+            if (snapshotVersions.isEmpty()) {
+                freeSegments(segments);
+                freeSegments(retiredSegments);
+            }
+        }
+        segments.clear();
+        retiredSegments.clear();
+        initIndex(MINIMUM_CAPACITY);
+        size = 0;
+        usedBytes = 0L;
+        garbageBytes = 0L;
+        ++modCount;
+    }
+
+    /** Returns the number of bytes held in segments by this map. */
+    @VisibleForTesting
+    long getAllocatedMemorySize() {
+        long memorySize = 0L;
+        for (MemorySegment segment : segments) {
+            memorySize += segment.size();
+        }
+        return memorySize;
+    }
+
+    @VisibleForTesting
+    int getCapacity() {
+        return capacity;
+    }
+
+    @VisibleForTesting
+    int getStateMapVersion() {
+        return stateMapVersion;
+    }
+
+    // Index
+    // ------------------------------------------------------------------------------
+
+    private void initIndex(int newCapacity) {
+        capacity = newCapacity;
+        threshold = (newCapacity >> 1) + (newCapacity >> 2); // 3/4 capacity
+        pageSize = Math.min(newCapacity, MAX_PAGE_SIZE);
+        pageShift = MathUtils.log2strict(pageSize);
+        int numPages = newCapacity / pageSize;
+        pointerPages = new long[numPages][pageSize];
+        hashPages = new int[numPages][pageSize];
+        pageVersions = new int[numPages];
+        for (int i = 0; i < numPages; i++) {
+            pageVersions[i] = stateMapVersion;
+        }
+    }
+
+    private long getPointer(int slot) {
+        return pointerPages[slot >>> pageShift][slot & (pageSize - 1)];
+    }
+
+    private int getHash(int slot) {
+        return hashPages[slot >>> pageShift][slot & (pageSize - 1)];
+    }
+
+    private void setSlot(int slot, long pointer, int hash) {
+        int page = slot >>> pageShift;
+        if (pageVersions[page] < highestRequiredSnapshotVersion) {
+            // the page is still referenced by a snapshot
+            pointerPages[page] = pointerPages[page].clone();
+            hashPages[page] = hashPages[page].clone();
+            pageVersions[page] = stateMapVersion;
+        }
+        int index = slot & (pageSize - 1);
+        pointerPages[page][index] = pointer;
+        hashPages[page][index] = hash;
+    }
+
+    /**
+     * Returns the slot of the entry for the key in {@link #keyOutputView}, or {@code -(slot + 1)}
+     * with the free slot where it would be inserted if there is no such entry.
+     */
+    private int findSlot(int hash) {
+        final int mask = capacity - 1;
+        final int length = keyOutputView.length();
+        int slot = hash & mask;
+        while (true) {
+            long pointer = getPointer(slot);
+            if (pointer == EMPTY) {
+                return -(slot + 1);
+            }
+            if (getHash(slot) == hash && keyEquals(pointer, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Stores the state for the key in {@link #keyOutputView} at the slot from findSlot. */
+    private void putSerialized(int hash, int slot, S state) {
+        if (slot >= 0) {
+            long oldPointer = getPointer(slot);
+            setSlot(slot, appendRecord(state), hash);
+            markGarbage(oldPointer);
+            compactIfNeeded();
+        } else {
+            if (size >= threshold && capacity < MAXIMUM_CAPACITY) {
+                doubleCapacity();
+                slot = findSlot(hash);
+            } else if (size == capacity - 1) {
+                throw new IllegalStateException(
+                        "Maximum capacity of OffHeapStateMap is reached and the job cannot "
+                                + "continue. Please consider scaling-out your job.");
+            }
+            setSlot(-(slot + 1), appendRecord(state), hash);
+            ++size;
+            ++modCount;
+        }
+    }
+
+    /** Removes the entry at the given slot, shifting back following entries of the probe chain. */
+    private void removeSlot(int slot) {
+        markGarbage(getPointer(slot));
+
+        final int mask = capacity - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        long pointer;
+        while ((pointer = getPointer(next)) != EMPTY) {
+            int hash = getHash(next);
+            int home = hash & mask;
+            // the entry may move into the hole if the hole lies between its home slot and its
+            // current slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                setSlot(hole, pointer, hash);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        setSlot(hole, EMPTY, 0);
+
+        --size;
+        ++modCount;
+        compactIfNeeded();
+    }
+
+    /** Doubles the capacity of the index and re-inserts all entries. */
+    private void doubleCapacity() {
+        final long[][] oldPointerPages = pointerPages;
+        final int[][] oldHashPages = hashPages;
+        final int oldCapacity = capacity;
+        final int oldPageShift = pageShift;
+        final int oldPageMask = pageSize - 1;
+
+        initIndex(oldCapacity << 1);
+        final int mask = capacity - 1;
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            long pointer = oldPointerPages[oldSlot >>> oldPageShift][oldSlot & oldPageMask];
+            if (pointer == EMPTY) {
+                continue;
+            }
+            int hash = oldHashPages[oldSlot >>> oldPageShift][oldSlot & oldPageMask];
+            int slot = hash & mask;
+            while (getPointer(slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            setSlot(slot, pointer, hash);
+        }
+        ++modCount;
+    }
+
+    /**
+     * Copies all live records to fresh segments, which drops the garbage of the old segments. The
+     * entries keep their slots, so this is not a structural modification.
+     */
+    private void compact() {
+        final MemorySegment[] oldSegments = getSegments();
+        final List<MemorySegment> oldSegmentList = Arrays.asList(oldSegments);
+        segments.clear();
+        tailOffset = 0;
+        nextSegmentSize = INITIAL_SEGMENT_SIZE;
+        usedBytes = 0L;
+        garbageBytes = 0L;
+
+        for (int slot = 0; slot < capacity; slot++) {
+            long pointer = getPointer(slot);
+            if (pointer != EMPTY) {
+                setSlot(slot, copyRecord(oldSegmentList, pointer), getHash(slot));
+            }
+        }
+
+        synchronized (snapshotVersions) {
+            for (MemorySegment segment : oldSegments) {
+                if (snapshotVersions.isEmpty()) {
+                    segment.free();
+                } else {
+                    retiredSegments.add(segment);
+                }
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (garbageBytes > MAX_SEGMENT_SIZE && garbageBytes > usedBytes - garbageBytes) {
+            compact();
+        }
+    }
+
+    // Records
+    // ------------------------------------------------------------------------------
+
+    /**
+     * Serializes the given key and namespace into {@link #keyOutputView} and returns the hash of
+     * the serialized bytes.
+     */
+    private int serializeKeyAndNamespace(K key, N namespace) {
+        keyOutputView.clear();
+        try {
+            namespaceSerializer.serialize(namespace, keyOutputView);
+            namespaceOutputLength = keyOutputView.length();
+            keySerializer.serialize(key, keyOutputView);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to serialize key and namespace.", e);
+        }
+        byte[] buffer = keyOutputView.getSharedBuffer();
+        if (keyOutputSegment == null || keyOutputSegment.getArray() != buffer) {
+            keyOutputSegment = MemorySegmentFactory.wrap(buffer);
+        }
+        return hashBytes(buffer, keyOutputView.length());
+    }
+
+    private byte[] serializeNamespace(N namespace) {
+        DataOutputSerializer outputView = new DataOutputSerializer(32);
+        try {
+            namespaceSerializer.serialize(namespace, outputView);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to serialize namespace.", e);
+        }
+        return outputView.getCopyOfBuffer();
+    }
+
+    private static int hashBytes(byte[] bytes, int length) {
+        return hashBytes(bytes, 0, length);
+    }
+
+    private static int hashBytes(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return MathUtils.bitMix(hash);
+    }
+
+    private boolean keyEquals(long pointer, int length) {
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        return segment.getInt(offset) + segment.getInt(offset + 4) == length
+                && segment.equalTo(keyOutputSegment, offset + RECORD_HEADER_SIZE, 0, length);
+    }
+
+    private boolean namespaceEquals(long pointer, byte[] serializedNamespace) {
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        return namespaceEquals(segment, offset, serializedNamespace);
+    }
+
+    private static boolean namespaceEquals(
+            MemorySegment segment, int offset, byte[] serializedNamespace) {
+        if (segment.getInt(offset) != serializedNamespace.length) {
+            return false;
+        }
+        int namespaceOffset = offset + RECORD_HEADER_SIZE;
+        for (int i = 0; i < serializedNamespace.length; i++) {
+            if (segment.get(namespaceOffset + i) != serializedNamespace[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Appends a record for the key in {@link #keyOutputView} and the given state. */
+    private long appendRecord(S state) {
+        int stateLength = serializeState(state);
+        return appendRecord(state == null ? NULL_STATE_LENGTH : stateLength);
+    }
+
+    /**
+     * Appends a record for the key in {@link #keyOutputView} and the state in {@link
+     * #stateOutputView}, with the given state length in the record header.
+     */
+    private long appendRecord(int stateLength) {
+        int keyAndNamespaceLength = keyOutputView.length();
+        long pointer =
+                allocate(RECORD_HEADER_SIZE + keyAndNamespaceLength + stateOutputView.length());
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        segment.putInt(offset, namespaceOutputLength);
+        segment.putInt(offset + 4, keyAndNamespaceLength - namespaceOutputLength);
+        segment.putInt(offset + 8, stateLength);
+        segment.put(
+                offset + RECORD_HEADER_SIZE,
+                keyOutputView.getSharedBuffer(),
+                0,
+                keyAndNamespaceLength);
+        segment.put(
+                offset + RECORD_HEADER_SIZE + keyAndNamespaceLength,
+                stateOutputView.getSharedBuffer(),
+                0,
+                stateOutputView.length());
+        return pointer;
+    }
+
+    /**
+     * Appends a record with the key and namespace of the record at the given offset of the segment
+     * and the state in {@link #stateOutputView}, with the given state length in the record header.
+     */
+    private long appendRecord(MemorySegment existingSegment, int existingOffset, int stateLength) {
+        int namespaceLength = existingSegment.getInt(existingOffset);
+        int keyLength = existingSegment.getInt(existingOffset + 4);
+
+        long pointer =
+                allocate(
+                        RECORD_HEADER_SIZE
+                                + namespaceLength
+                                + keyLength
+                                + stateOutputView.length());
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        segment.putInt(offset, namespaceLength);
+        segment.putInt(offset + 4, keyLength);
+        segment.putInt(offset + 8, stateLength);
+        existingSegment.copyTo(
+                existingOffset + RECORD_HEADER_SIZE,
+                segment,
+                offset + RECORD_HEADER_SIZE,
+                namespaceLength + keyLength);
+        segment.put(
+                offset + RECORD_HEADER_SIZE + namespaceLength + keyLength,
+                stateOutputView.getSharedBuffer(),
+                0,
+                stateOutputView.length());
+        return pointer;
+    }
+
+    /**
+     * Copies a record from the given segments to the segments of this map. Chains of list and map
+     * records are consolidated into a single record.
+     */
+    private long copyRecord(List<MemorySegment> sourceSegments, long sourcePointer) {
+        MemorySegment sourceSegment = sourceSegments.get(segmentIndex(sourcePointer));
+        int sourceOffset = segmentOffset(sourcePointer);
+        if (previousPointer(sourceSegments, sourcePointer, stateLayout) != EMPTY) {
+            int stateLength = serializeConsolidatedState(sourceSegments, sourcePointer);
+            return appendRecord(sourceSegment, sourceOffset, stateLength);
+        }
+
+        int recordSize = recordSize(sourceSegment, sourceOffset);
+        long pointer = allocate(recordSize);
+        sourceSegment.copyTo(
+                sourceOffset,
+                segments.get(segmentIndex(pointer)),
+                segmentOffset(pointer),
+                recordSize);
+        return pointer;
+    }
+
+    private int serializeState(S state) {
+        stateOutputView.clear();
+        if (state != null) {
+            try {
+                switch (stateLayout) {
+                    case LIST:
+                        serializeList((List<?>) state);
+                        break;
+                    case MAP:
+                        serializeMap((Map<?, ?>) state);
+                        break;
+                    default:
+                        stateSerializer.serialize(state, stateOutputView);
+                }
+            } catch (IOException e) {
+                throw new FlinkRuntimeException("Failed to serialize state.", e);
+            }
+        }
+        return stateOutputView.length();
+    }
+
+    private void serializeList(List<?> list) throws IOException {
+        TypeSerializer<Object> elementSerializer = getListElementSerializer();
+        writeChainHeaderPlaceholder();
+        for (Object element : list) {
+            elementSerializer.serialize(element, stateOutputView);
+        }
+        writeChainHeader(list.size(), stateOutputView.length() - CHAIN_HEADER_SIZE, 0, EMPTY);
+    }
+
+    private void serializeMap(Map<?, ?> map) throws IOException {
+        writeChainHeaderPlaceholder();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            serializeMapEntry(entry.getKey(), entry.getValue(), false);
+        }
+        writeChainHeader(map.size(), stateOutputView.length() - CHAIN_HEADER_SIZE, 0, EMPTY);
+    }
+
+    /**
+     * Appends an entry of a map record to {@link #stateOutputView} and returns the offset of the
+     * entry in the buffer.
+     */
+    private int serializeMapEntry(Object userKey, @Nullable Object userValue, boolean removed)
+            throws IOException {
+        final int entryOffset = stateOutputView.length();
+        stateOutputView.writeInt(0);
+        stateOutputView.writeInt(0);
+        stateOutputView.writeInt(0);
+        getMapKeySerializer().serialize(userKey, stateOutputView);
+        final int userKeyLength = stateOutputView.length() - entryOffset - MAP_ENTRY_HEADER_SIZE;
+
+        final int valueLength;
+        if (removed) {
+            valueLength = REMOVED_VALUE_LENGTH;
+        } else if (userValue == null) {
+            valueLength = NULL_VALUE_LENGTH;
+        } else {
+            getMapValueSerializer().serialize(userValue, stateOutputView);
+            valueLength =
+                    stateOutputView.length() - entryOffset - MAP_ENTRY_HEADER_SIZE - userKeyLength;
+        }
+
+        final int endOffset = stateOutputView.length();
+        stateOutputView.setPosition(entryOffset);
+        stateOutputView.writeInt(userKeyLength);
+        stateOutputView.writeInt(valueLength);
+        stateOutputView.writeInt(
+                hashBytes(
+                        stateOutputView.getSharedBuffer(),
+                        entryOffset + MAP_ENTRY_HEADER_SIZE,
+                        userKeyLength));
+        stateOutputView.setPositionUnsafe(endOffset);
+        return entryOffset;
+    }
+
+    private void writeChainHeaderPlaceholder() throws IOException {
+        stateOutputView.writeInt(0);
+        stateOutputView.writeInt(0);
+        stateOutputView.writeInt(0);
+        stateOutputView.writeLong(EMPTY);
+    }
+
+    /** Writes the chain header at the beginning of {@link #stateOutputView}. */
+    private void writeChainHeader(int count, int baseSize, int deltaSize, long previous)
+            throws IOException {
+        final int endOffset = stateOutputView.length();
+        stateOutputView.setPosition(0);
+        stateOutputView.writeInt(count);
+        stateOutputView.writeInt(baseSize);
+        stateOutputView.writeInt(deltaSize);
+        stateOutputView.writeLong(previous);
+        stateOutputView.setPositionUnsafe(endOffset);
+    }
+
+    /**
+     * Serializes the list or map of the chain that starts at the given record as the state of a
+     * single record into {@link #stateOutputView}, and returns the length of the state.
+     */
+    private int serializeConsolidatedState(List<MemorySegment> sourceSegments, long pointer) {
+        stateOutputView.clear();
+        try {
+            writeChainHeaderPlaceholder();
+            if (stateLayout == StateLayout.LIST) {
+                long[] chain = chainPointers(sourceSegments, pointer, stateLayout);
+                for (int i = chain.length - 1; i >= 0; i--) {
+                    MemorySegment segment = sourceSegments.get(segmentIndex(chain[i]));
+                    int offset = segmentOffset(chain[i]);
+                    segment.get(
+                            stateOutputView,
+                            stateOffset(segment, offset) + CHAIN_HEADER_SIZE,
+                            segment.getInt(offset + 8) - CHAIN_HEADER_SIZE);
+                }
+            } else {
+                forEachLiveMapEntry(
+                        sourceSegments,
+                        pointer,
+                        (segment, entryOffset) ->
+                                segment.get(
+                                        stateOutputView,
+                                        entryOffset,
+                                        mapEntrySize(segment, entryOffset)));
+            }
+            writeChainHeader(
+                    getCount(sourceSegments, pointer),
+                    stateOutputView.length() - CHAIN_HEADER_SIZE,
+                    0,
+                    EMPTY);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to consolidate state.", e);
+        }
+        return stateOutputView.length();
+    }
+
+    /**
+     * Appends the record in {@link #stateOutputView}, which starts with a placeholder for the chain
+     * header, as the new head of the chain at the given slot. The chain is consolidated once the
+     * appended records outgrow its oldest record.
+     */
+    private void appendToChain(int slot, int hash, long head, int count) {
+        MemorySegment headSegment = segments.get(segmentIndex(head));
+        int headStateOffset = stateOffset(headSegment, segmentOffset(head));
+        int baseSize = headSegment.getIntBigEndian(headStateOffset + 4);
+        int deltaSize =
+                headSegment.getIntBigEndian(headStateOffset + 8)
+                        + RECORD_HEADER_SIZE
+                        + keyOutputView.length()
+                        + stateOutputView.length();
+        try {
+            writeChainHeader(count, baseSize, deltaSize, head);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to serialize state.", e);
+        }
+        setSlot(slot, appendRecord(stateOutputView.length()), hash);
+
+        if (deltaSize > Math.max(baseSize, MIN_CONSOLIDATION_SIZE)) {
+            consolidate(slot, hash);
+        }
+    }
+
+    /** Rewrites the chain of the list or map at the given slot as a single record. */
+    private void consolidate(int slot, int hash) {
+        long head = getPointer(slot);
+        int stateLength = serializeConsolidatedState(segments, head);
+        setSlot(
+                slot,
+                appendRecord(segments.get(segmentIndex(head)), segmentOffset(head), stateLength),
+                hash);
+        markGarbage(head);
+        compactIfNeeded();
+    }
+
+    /**
+     * Returns the newest entry of the map chain that starts at the given record with the user key
+     * of the entry at the given offset of the segment, or {@link #EMPTY} if there is no such entry
+     * or the user key was removed.
+     */
+    private long findMapEntry(long head, MemorySegment userKeySegment, int userKeyEntryOffset) {
+        for (long pointer = head;
+                pointer != EMPTY;
+                pointer = previousPointer(segments, pointer, stateLayout)) {
+            MemorySegment segment = segments.get(segmentIndex(pointer));
+            int offset = segmentOffset(pointer);
+            int stateOffset = stateOffset(segment, offset);
+            int endOffset = stateOffset + segment.getInt(offset + 8);
+            int entryOffset = stateOffset + CHAIN_HEADER_SIZE;
+            while (entryOffset < endOffset) {
+                if (userKeyEquals(segment, entryOffset, userKeySegment, userKeyEntryOffset)) {
+                    return segment.getIntBigEndian(entryOffset + 4) == REMOVED_VALUE_LENGTH
+                            ? EMPTY
+                            : toPointer(segmentIndex(pointer), entryOffset);
+                }
+                entryOffset += mapEntrySize(segment, entryOffset);
+            }
+        }
+        return EMPTY;
+    }
+
+    private MemorySegment wrapStateOutput() {
+        byte[] buffer = stateOutputView.getSharedBuffer();
+        if (stateOutputSegment == null || stateOutputSegment.getArray() != buffer) {
+            stateOutputSegment = MemorySegmentFactory.wrap(buffer);
+        }
+        return stateOutputSegment;
+    }
+
+    private S readState(long pointer) {
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        int stateLength = segment.getInt(offset + 8);
+        if (stateLength == NULL_STATE_LENGTH) {
+            return null;
+        }
+        if (stateLayout == StateLayout.VALUE) {
+            return deserialize(stateSerializer, segment, stateOffset(segment, offset), stateLength);
+        }
+
+        chainOutputView.clear();
+        try {
+            writeState(segments, pointer, stateLayout, chainOutputView);
+            inputView.setBuffer(chainOutputView.getSharedBuffer(), 0, chainOutputView.length());
+            return stateSerializer.deserialize(inputView);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to deserialize state.", e);
+        }
+    }
+
+    private <T> T deserialize(
+            TypeSerializer<T> serializer, MemorySegment segment, int offset, int length) {
+        if (readBuffer.length < length) {
+            readBuffer = new byte[Math.max(length, readBuffer.length << 1)];
+        }
+        segment.get(offset, readBuffer, 0, length);
+        inputView.setBuffer(readBuffer, 0, length);
+        try {
+            return serializer.deserialize(inputView);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to deserialize state.", e);
+        }
+    }
+
+    private boolean isNullState(long pointer) {
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        return segment.getInt(segmentOffset(pointer) + 8) == NULL_STATE_LENGTH;
+    }
+
+    /** Marks the given record, and the older records of its chain, as garbage. */
+    private void markGarbage(long pointer) {
+        for (long current = pointer;
+                current != EMPTY;
+                current = previousPointer(segments, current, stateLayout)) {
+            MemorySegment segment = segments.get(segmentIndex(current));
+            garbageBytes += recordSize(segment, segmentOffset(current));
+        }
+    }
+
+    /** Reserves space for a record of the given size and returns the pointer to it. */
+    private long allocate(int recordSize) {
+        MemorySegment tail = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (tail == null || tailOffset + recordSize > tail.size()) {
+            int segmentSize = Math.max(recordSize, nextSegmentSize);
+            segments.add(MemorySegmentFactory.allocateUnpooledOffHeapMemory(segmentSize));
+            tailOffset = 0;
+            nextSegmentSize = Math.min(nextSegmentSize << 1, MAX_SEGMENT_SIZE);
+        }
+        long pointer = toPointer(segments.size() - 1, tailOffset);
+        tailOffset += recordSize;
+        usedBytes += recordSize;
+        return pointer;
+    }
+
+    private static void freeSegments(List<MemorySegment> segmentsToFree) {
+        for (MemorySegment segment : segmentsToFree) {
+            segment.free();
+        }
+        segmentsToFree.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeSerializer<Object> getListElementSerializer() {
+        return ((ListSerializer<Object>) (TypeSerializer<?>) stateSerializer)
+                .getElementSerializer();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeSerializer<Object> getMapKeySerializer() {
+        return ((MapSerializer<Object, Object>) (TypeSerializer<?>) stateSerializer)
+                .getKeySerializer();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeSerializer<Object> getMapValueSerializer() {
+        return ((MapSerializer<Object, Object>) (TypeSerializer<?>) stateSerializer)
+                .getValueSerializer();
+    }
+
+    private void checkStateLayout(StateLayout expectedStateLayout) {
+        Preconditions.checkState(
+                stateLayout == expectedStateLayout,
+                "Expected a state map with %s layout, but the layout is %s.",
+                expectedStateLayout,
+                stateLayout);
+    }
+
+    private static <S> TypeSerializer<S> checkStateSerializer(
+            TypeSerializer<S> stateSerializer, StateLayout stateLayout) {
+        Preconditions.checkNotNull(stateSerializer);
+        Preconditions.checkArgument(
+                stateLayout != StateLayout.LIST || stateSerializer instanceof ListSerializer,
+                "List states require a ListSerializer, but got %s.",
+                stateSerializer);
+        Preconditions.checkArgument(
+                stateLayout != StateLayout.MAP || stateSerializer instanceof MapSerializer,
+                "Map states require a MapSerializer, but got %s.",
+                stateSerializer);
+        return stateSerializer;
+    }
+
+    /**
+     * Writes the namespace, key and state of the given record in the format of {@link
+     * StateMapSnapshot#writeState}. The bytes of the record are copied as they are, only null
+     * states are serialized with the given serializer.
+     */
+    static <S> void writeRecord(
+            List<MemorySegment> segments,
+            long pointer,
+            StateLayout stateLayout,
+            TypeSerializer<S> stateSerializer,
+            DataOutputView outputView)
+            throws IOException {
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        int keyAndNamespaceLength = segment.getInt(offset) + segment.getInt(offset + 4);
+        segment.get(outputView, offset + RECORD_HEADER_SIZE, keyAndNamespaceLength);
+        if (segment.getInt(offset + 8) == NULL_STATE_LENGTH) {
+            stateSerializer.serialize(null, outputView);
+        } else {
+            writeState(segments, pointer, stateLayout, outputView);
+        }
+    }
+
+    /**
+     * Writes the non-null state of the given record in the format of the state serializer. The
+     * chain of a list or map record is written as a single list or map.
+     */
+    static void writeState(
+            List<MemorySegment> segments,
+            long pointer,
+            StateLayout stateLayout,
+            DataOutputView outputView)
+            throws IOException {
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        int stateOffset = stateOffset(segment, offset);
+        switch (stateLayout) {
+            case LIST:
+                outputView.writeInt(getCount(segments, pointer));
+                long[] chain = chainPointers(segments, pointer, stateLayout);
+                for (int i = chain.length - 1; i >= 0; i--) {
+                    MemorySegment chainSegment = segments.get(segmentIndex(chain[i]));
+                    int chainOffset = segmentOffset(chain[i]);
+                    chainSegment.get(
+                            outputView,
+                            stateOffset(chainSegment, chainOffset) + CHAIN_HEADER_SIZE,
+                            chainSegment.getInt(chainOffset + 8) - CHAIN_HEADER_SIZE);
+                }
+                break;
+            case MAP:
+                // the format of the MapSerializer: the number of entries, followed by the user
+                // key, a null flag and the value of every entry
+                outputView.writeInt(getCount(segments, pointer));
+                forEachLiveMapEntry(
+                        segments,
+                        pointer,
+                        (entrySegment, entryOffset) -> {
+                            int userKeyLength = entrySegment.getIntBigEndian(entryOffset);
+                            int valueLength = entrySegment.getIntBigEndian(entryOffset + 4);
+                            entrySegment.get(
+                                    outputView, entryOffset + MAP_ENTRY_HEADER_SIZE, userKeyLength);
+                            outputView.writeBoolean(valueLength == NULL_VALUE_LENGTH);
+                            if (valueLength != NULL_VALUE_LENGTH) {
+                                entrySegment.get(
+                                        outputView,
+                                        entryOffset + MAP_ENTRY_HEADER_SIZE + userKeyLength,
+                                        valueLength);
+                            }
+                        });
+                break;
+            default:
+                segment.get(outputView, stateOffset, segment.getInt(offset + 8));
+        }
+    }
+
+    /**
+     * Calls the consumer for the entries of the map chain that starts at the given record, except
+     * for entries that are shadowed by a newer entry with the same user key and entries that mark
+     * the removal of a user key.
+     */
+    private static void forEachLiveMapEntry(
+            List<MemorySegment> segments, long pointer, MapEntryConsumer consumer)
+            throws IOException {
+        // the user keys within a record are unique, so only chains need to be deduplicated
+        UserKeySet visitedUserKeys =
+                previousPointer(segments, pointer, StateLayout.MAP) != EMPTY
+                        ? new UserKeySet()
+                        : null;
+        for (long current = pointer;
+                current != EMPTY;
+                current = previousPointer(segments, current, StateLayout.MAP)) {
+            MemorySegment segment = segments.get(segmentIndex(current));
+            int offset = segmentOffset(current);
+            int stateOffset = stateOffset(segment, offset);
+            int endOffset = stateOffset + segment.getInt(offset + 8);
+            int entryOffset = stateOffset + CHAIN_HEADER_SIZE;
+            while (entryOffset < endOffset) {
+                if ((visitedUserKeys == null || visitedUserKeys.add(segment, entryOffset))
+                        && segment.getIntBigEndian(entryOffset + 4) != REMOVED_VALUE_LENGTH) {
+                    consumer.accept(segment, entryOffset);
+                }
+                entryOffset += mapEntrySize(segment, entryOffset);
+            }
+        }
+    }
+
+    /** Returns the records of the chain that starts at the given record, newest first. */
+    static long[] chainPointers(List<MemorySegment> segments, long pointer, StateLayout layout) {
+        int length = 0;
+        for (long current = pointer;
+                current != EMPTY;
+                current = previousPointer(segments, current, layout)) {
+            ++length;
+        }
+        long[] chain = new long[length];
+        int index = 0;
+        for (long current = pointer;
+                current != EMPTY;
+                current = previousPointer(segments, current, layout)) {
+            chain[index++] = current;
+        }
+        return chain;
+    }
+
+    /** Returns the next older record of the chain of the given record, or {@link #EMPTY}. */
+    static long previousPointer(List<MemorySegment> segments, long pointer, StateLayout layout) {
+        if (layout == StateLayout.VALUE) {
+            return EMPTY;
+        }
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        if (segment.getInt(offset + 8) == NULL_STATE_LENGTH) {
+            return EMPTY;
+        }
+        return segment.getLongBigEndian(stateOffset(segment, offset) + 12);
+    }
+
+    /** Returns the number of elements or entries of the given list or map record. */
+    private static int getCount(List<MemorySegment> segments, long pointer) {
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        return segment.getIntBigEndian(stateOffset(segment, segmentOffset(pointer)));
+    }
+
+    private static int stateOffset(MemorySegment segment, int offset) {
+        return offset + RECORD_HEADER_SIZE + segment.getInt(offset) + segment.getInt(offset + 4);
+    }
+
+    private static int mapEntrySize(MemorySegment segment, int entryOffset) {
+        return MAP_ENTRY_HEADER_SIZE
+                + segment.getIntBigEndian(entryOffset)
+                + Math.max(segment.getIntBigEndian(entryOffset + 4), 0);
+    }
+
+    private static boolean userKeyEquals(
+            MemorySegment segment1, int entryOffset1, MemorySegment segment2, int entryOffset2) {
+        int userKeyLength = segment1.getIntBigEndian(entryOffset1);
+        return segment1.getIntBigEndian(entryOffset1 + 8)
+                        == segment2.getIntBigEndian(entryOffset2 + 8)
+                && userKeyLength == segment2.getIntBigEndian(entryOffset2)
+                && segment1.equalTo(
+                        segment2,
+                        entryOffset1 + MAP_ENTRY_HEADER_SIZE,
+                        entryOffset2 + MAP_ENTRY_HEADER_SIZE,
+                        userKeyLength);
+    }
+
+    static int recordSize(MemorySegment segment, int offset) {
+        return RECORD_HEADER_SIZE
+                + segment.getInt(offset)
+                + segment.getInt(offset + 4)
+                + Math.max(segment.getInt(offset + 8), 0);
+    }
+
+    static long toPointer(int segmentIndex, int offset) {
+        return ((long) (segmentIndex + 1) << 32) | (offset & 0xffffffffL);
+    }
+
+    static int segmentIndex(long pointer) {
+        return (int) (pointer >>> 32) - 1;
+    }
+
+    static int segmentOffset(long pointer) {
+        return (int) pointer;
+    }
+
+    /** Consumer of the entries of map records. */
+    @FunctionalInterface
+    private interface MapEntryConsumer {
+        void accept(MemorySegment segment, int entryOffset) throws IOException;
+    }
+
+    /**
+     * Open-addressing hash set of the user keys of map entries, which are referenced by the
+     * position of the entry.
+     */
+    private static final class UserKeySet {
+
+        private MemorySegment[] entrySegments = new MemorySegment[16];
+        private int[] entryOffsets = new int[16];
+        private int size;
+
+        /** Adds the user key of the given entry and returns whether it was not contained yet. */
+        boolean add(MemorySegment segment, int entryOffset) {
+            if (size >= (entrySegments.length >> 1) + (entrySegments.length >> 2)) {
+                grow();
+            }
+            final int mask = entrySegments.length - 1;
+            int slot = segment.getIntBigEndian(entryOffset + 8) & mask;
+            while (entrySegments[slot] != null) {
+                if (userKeyEquals(entrySegments[slot], entryOffsets[slot], segment, entryOffset)) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            entrySegments[slot] = segment;
+            entryOffsets[slot] = entryOffset;
+            ++size;
+            return true;
+        }
+
+        private void grow() {
+            final MemorySegment[] oldEntrySegments = entrySegments;
+            final int[] oldEntryOffsets = entryOffsets;
+            entrySegments = new MemorySegment[oldEntrySegments.length << 1];
+            entryOffsets = new int[oldEntryOffsets.length << 1];
+            final int mask = entrySegments.length - 1;
+            for (int i = 0; i < oldEntrySegments.length; i++) {
+                if (oldEntrySegments[i] == null) {
+                    continue;
+                }
+                int slot = oldEntrySegments[i].getIntBigEndian(oldEntryOffsets[i] + 8) & mask;
+                while (entrySegments[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                entrySegments[slot] = oldEntrySegments[i];
+                entryOffsets[slot] = oldEntryOffsets[i];
+            }
+        }
+    }
+
+    // StateEntry
+    // ------------------------------------------------------------------------------
+
+    /** Reads the entry of the given record. */
+    static <K, N, S> StateEntry<K, N, S> readEntry(
+            List<MemorySegment> segments,
+            long pointer,
+            StateLayout stateLayout,
+            DataInputDeserializer inputView,
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            TypeSerializer<S> stateSerializer) {
+        MemorySegment segment = segments.get(segmentIndex(pointer));
+        int offset = segmentOffset(pointer);
+        int keyAndNamespaceLength = segment.getInt(offset) + segment.getInt(offset + 4);
+        int stateLength = segment.getInt(offset + 8);
+        try {
+            if (stateLayout == StateLayout.VALUE || stateLength == NULL_STATE_LENGTH) {
+                byte[] record = new byte[keyAndNamespaceLength + Math.max(stateLength, 0)];
+                segment.get(offset + RECORD_HEADER_SIZE, record, 0, record.length);
+                inputView.setBuffer(record);
+            } else {
+                DataOutputSerializer outputView =
+                        new DataOutputSerializer(keyAndNamespaceLength + stateLength);
+                segment.get(outputView, offset + RECORD_HEADER_SIZE, keyAndNamespaceLength);
+                writeState(segments, pointer, stateLayout, outputView);
+                inputView.setBuffer(outputView.getSharedBuffer(), 0, outputView.length());
+            }
+
+            N namespace = namespaceSerializer.deserialize(inputView);
+            K key = keySerializer.deserialize(inputView);
+            S state =
+                    stateLength == NULL_STATE_LENGTH
+                            ? null
+                            : stateSerializer.deserialize(inputView);
+            return new StateEntry.SimpleStateEntry<>(key, namespace, state);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Failed to deserialize state entry.", e);
+        }
+    }
+
+    // Iterators
+    // ------------------------------------------------------------------------------
+
+    /**
+     * Iterator over state entries in a {@link OffHeapStateMap} which does not tolerate concurrent
+     * structural modifications. If a serialized namespace is given, only entries of that namespace
+     * are deserialized and returned.
+     */
+    class StateEntryIterator implements Iterator<StateEntry<K, N, S>> {
+
+        @Nullable private final byte[] serializedNamespace;
+        private final int expectedModCount;
+        private final DataInputDeserializer entryInputView;
+        private int nextSlot;
+
+        StateEntryIterator(@Nullable byte[] serializedNamespace) {
+            this.serializedNamespace = serializedNamespace;
+            this.expectedModCount = modCount;
+            this.entryInputView = new DataInputDeserializer();
+            this.nextSlot = 0;
+            advance();
+        }
+
+        private void advance() {
+            while (nextSlot < capacity) {
+                long pointer = getPointer(nextSlot);
+                if (pointer != EMPTY
+                        && (serializedNamespace == null
+                                || namespaceEquals(pointer, serializedNamespace))) {
+                    return;
+                }
+                nextSlot++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < capacity;
+        }
+
+        @Override
+        public StateEntry<K, N, S> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long pointer = getPointer(nextSlot++);
+            StateEntry<K, N, S> entry =
+                    readEntry(
+                            segments,
+                            pointer,
+                            stateLayout,
+                            entryInputView,
+                            keySerializer,
+                            namespaceSerializer,
+                            stateSerializer);
+            advance();
+            return entry;
+        }
+    }
+
+    /**
+     * Incremental visitor over state entries in a {@link OffHeapStateMap}. The visitor walks the
+     * home slots of the entries with a cursor that is incremented in reversed bit order. A home
+     * slot of the index splits into the slot itself and the slot one old capacity higher when the
+     * index grows. If the split slot was visited, both of them are behind the cursor in the
+     * reversed bit order of the grown index, and otherwise both are ahead of it. Therefore, the
+     * visitor stays valid when the map is modified or grows during the visit. Every entry that
+     * exists during the whole visit is returned, entries that are inserted during the visit may be
+     * returned or not.
+     */
+    class StateIncrementalVisitorImpl implements InternalKvState.StateIncrementalVisitor<K, N, S> {
+
+        private final int recommendedMaxNumberOfReturnedRecords;
+        private final DataInputDeserializer entryInputView;
+        private final Collection<StateEntry<K, N, S>> entriesToReturn;
+        private int cursor;
+        private boolean finished;
+
+        StateIncrementalVisitorImpl(int recommendedMaxNumberOfReturnedRecords) {
+            this.recommendedMaxNumberOfReturnedRecords = recommendedMaxNumberOfReturnedRecords;
+            this.entryInputView = new DataInputDeserializer();
+            this.entriesToReturn = new ArrayList<>(5);
+            this.cursor = 0;
+            this.finished = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!finished && !hasEntriesWithHomeSlot(cursor & (capacity - 1))) {
+                advance();
+            }
+            return !finished;
+        }
+
+        @Override
+        public Collection<StateEntry<K, N, S>> nextEntries() {
+            if (!hasNext()) {
+                return null;
+            }
+
+            entriesToReturn.clear();
+            while (!finished && entriesToReturn.size() < recommendedMaxNumberOfReturnedRecords) {
+                final int mask = capacity - 1;
+                final int homeSlot = cursor & mask;
+                for (int slot = homeSlot; getPointer(slot) != EMPTY; slot = (slot + 1) & mask) {
+                    if ((getHash(slot) & mask) == homeSlot) {
+                        entriesToReturn.add(
+                                readEntry(
+                                        segments,
+                                        getPointer(slot),
+                                        stateLayout,
+                                        entryInputView,
+                                        keySerializer,
+                                        namespaceSerializer,
+                                        stateSerializer));
+                    }
+                }
+                advance();
+            }
+            return entriesToReturn;
+        }
+
+        /**
+         * Entries with the given home slot are stored in the run of occupied slots that starts at
+         * the home slot.
+         */
+        private boolean hasEntriesWithHomeSlot(int homeSlot) {
+            final int mask = capacity - 1;
+            for (int slot = homeSlot; getPointer(slot) != EMPTY; slot = (slot + 1) & mask) {
+                if ((getHash(slot) & mask) == homeSlot) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Increments the reversed bits of the cursor, the visit is finished when it wraps. */
+        private void advance() {
+            int reversed = Integer.reverse(cursor | ~(capacity - 1));
+            cursor = Integer.reverse(reversed + 1);
+            finished = cursor == 0;
+        }
+
+        @Override
+        public void remove(StateEntry<K, N, S> stateEntry) {
+            OffHeapStateMap.this.remove(stateEntry.getKey(), stateEntry.getNamespace());
+        }
+
+        @Override
+        public void update(StateEntry<K, N, S> stateEntry, S newValue) {
+            OffHeapStateMap.this.put(stateEntry.getKey(), stateEntry.getNamespace(), newValue);
+        }
+    }
+}
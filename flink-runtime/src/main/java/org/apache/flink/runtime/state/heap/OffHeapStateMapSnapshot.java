@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.apache.flink.runtime.state.heap.OffHeapStateMap.readEntry;
+
+/**
+ * This class represents the snapshot of an {@link OffHeapStateMap}.
+ *
+ * <p>The snapshot holds the index pages and the segments of the map at the time the snapshot was
+ * created. The map copies index pages before modifying them as long as the snapshot is not
+ * released, and records in the segments are never modified, so the snapshot stays consistent while
+ * the map continues to be used. Without a {@link StateSnapshotTransformer}, the serialized records
+ * are written to the checkpoint as they are, without deserializing them. Chains of list and map
+ * records are written as a single list or map.
+ *
+ * <p>IMPORTANT: Please notice that snapshot integrity of entries in this class rely on proper
+ * copy-on-write semantics through the {@link OffHeapStateMap} that created the snapshot object, but
+ * all objects in this snapshot must be considered as READ-ONLY! The reason is that the objects held
+ * by this class may or may not be shared with the map itself.
+ *
+ * @param <K> type of key
+ * @param <N> type of namespace
+ * @param <S> type of state
+ */
+@Internal
+public class OffHeapStateMapSnapshot<K, N, S>
+        extends StateMapSnapshot<K, N, S, OffHeapStateMap<K, N, S>> {
+
+    /** Version of the {@link OffHeapStateMap} when this snapshot was created. */
+    private final int snapshotVersion;
+
+    /** The index pages of the map as by the time this snapshot was created. */
+    @Nonnull private final long[][] pointerPages;
+
+    /** log2 of the number of slots in an index page. */
+    private final int pageShift;
+
+    /** The segments of the map as by the time this snapshot was created. */
+    @Nonnull private final List<MemorySegment> segments;
+
+    /** The layout of the states in the records of the map. */
+    @Nonnull private final OffHeapStateMap.StateLayout stateLayout;
+
+    /** The number of entries in this snapshot. */
+    @Nonnegative private final int numberOfEntriesInSnapshotData;
+
+    /** Whether this snapshot has been released. */
+    private boolean released;
+
+    /**
+     * Creates a new {@link OffHeapStateMapSnapshot}.
+     *
+     * @param owningStateMap the {@link OffHeapStateMap} for which this object represents a
+     *     snapshot.
+     */
+    OffHeapStateMapSnapshot(OffHeapStateMap<K, N, S> owningStateMap) {
+        super(owningStateMap);
+
+        this.snapshotVersion = owningStateMap.registerSnapshot();
+        this.pointerPages = owningStateMap.getPointerPages();
+        this.pageShift = owningStateMap.getPageShift();
+        this.segments = Arrays.asList(owningStateMap.getSegments());
+        this.stateLayout = owningStateMap.getStateLayout();
+        this.numberOfEntriesInSnapshotData = owningStateMap.size();
+        this.released = false;
+    }
+
+    @Override
+    public void release() {
+        if (!released) {
+            owningStateMap.releaseSnapshot(this);
+            released = true;
+        }
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Returns the internal version of the {@link OffHeapStateMap} when this snapshot was created.
+     * This value must be used to tell the {@link OffHeapStateMap} when to release this snapshot.
+     */
+    int getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    @Override
+    public Iterator<StateEntry<K, N, S>> getIterator(
+            @Nonnull TypeSerializer<K> keySerializer,
+            @Nonnull TypeSerializer<N> namespaceSerializer,
+            @Nonnull TypeSerializer<S> stateSerializer,
+            @Nullable final StateSnapshotTransformer<S> stateSnapshotTransformer) {
+        return new SnapshotIterator(
+                keySerializer, namespaceSerializer, stateSerializer, stateSnapshotTransformer);
+    }
+
+    @Override
+    public void writeState(
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            TypeSerializer<S> stateSerializer,
+            @Nonnull DataOutputView dov,
+            @Nullable StateSnapshotTransformer<S> stateSnapshotTransformer)
+            throws IOException {
+        if (stateSnapshotTransformer == null) {
+            dov.writeInt(numberOfEntriesInSnapshotData);
+            for (long[] page : pointerPages) {
+                for (long pointer : page) {
+                    if (pointer != OffHeapStateMap.EMPTY) {
+                        OffHeapStateMap.writeRecord(
+                                segments, pointer, stateLayout, stateSerializer, dov);
+                    }
+                }
+            }
+        } else {
+            // the transformer can drop entries, so we only know the number of entries after all
+            // of them have been transformed
+            List<StateEntry<K, N, S>> transformedEntries = new ArrayList<>();
+            Iterator<StateEntry<K, N, S>> iterator =
+                    getIterator(
+                            keySerializer,
+                            namespaceSerializer,
+                            stateSerializer,
+                            stateSnapshotTransformer);
+            while (iterator.hasNext()) {
+                transformedEntries.add(iterator.next());
+            }
+
+            dov.writeInt(transformedEntries.size());
+            for (StateEntry<K, N, S> entry : transformedEntries) {
+                namespaceSerializer.serialize(entry.getNamespace(), dov);
+                keySerializer.serialize(entry.getKey(), dov);
+                stateSerializer.serialize(entry.getState(), dov);
+            }
+        }
+    }
+
+    /**
+     * Iterator over the entries of this snapshot, which deserializes the entries and optionally
+     * applies a {@link StateSnapshotTransformer}.
+     */
+    private class SnapshotIterator implements Iterator<StateEntry<K, N, S>> {
+
+        private final TypeSerializer<K> keySerializer;
+        private final TypeSerializer<N> namespaceSerializer;
+        private final TypeSerializer<S> stateSerializer;
+        @Nullable private final StateSnapshotTransformer<S> stateSnapshotTransformer;
+        private final DataInputDeserializer inputView;
+        private final int pageMask;
+        private int nextSlot;
+        private StateEntry<K, N, S> nextEntry;
+
+        SnapshotIterator(
+                TypeSerializer<K> keySerializer,
+                TypeSerializer<N> namespaceSerializer,
+                TypeSerializer<S> stateSerializer,
+                @Nullable StateSnapshotTransformer<S> stateSnapshotTransformer) {
+            this.keySerializer = keySerializer;
+            this.namespaceSerializer = namespaceSerializer;
+            this.stateSerializer = stateSerializer;
+            this.stateSnapshotTransformer = stateSnapshotTransformer;
+            this.inputView = new DataInputDeserializer();
+            this.pageMask = (1 << pageShift) - 1;
+            this.nextSlot = 0;
+            this.nextEntry = advance();
+        }
+
+        private StateEntry<K, N, S> advance() {
+            int numberOfSlots = pointerPages.length << pageShift;
+            while (nextSlot < numberOfSlots) {
+                long pointer = pointerPages[nextSlot >>> pageShift][nextSlot & pageMask];
+                nextSlot++;
+                if (pointer == OffHeapStateMap.EMPTY) {
+                    continue;
+                }
+
+                StateEntry<K, N, S> entry =
+                        readEntry(
+                                segments,
+                                pointer,
+                                stateLayout,
+                                inputView,
+                                keySerializer,
+                                namespaceSerializer,
+                                stateSerializer);
+                if (stateSnapshotTransformer == null) {
+                    return entry;
+                }
+
+                S transformedState = stateSnapshotTransformer.filterOrTransform(entry.getState());
+                if (transformedState != null) {
+                    return new StateEntry.SimpleStateEntry<>(
+                            entry.getKey(), entry.getNamespace(), transformedState);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        @Override
+        public StateEntry<K, N, S> next() {
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            StateEntry<K, N, S> entry = nextEntry;
+            nextEntry = advance();
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.util.Disposable;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This implementation of {@link StateTable} uses {@link OffHeapStateMap}, which keeps the state in
+ * serialized form in off-heap memory. This implementation supports asynchronous snapshots.
+ *
+ * <p>For list and map state, the table offers operations that add elements to a list and access
+ * single entries of a map without deserializing the whole collection.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of state.
+ */
+public class OffHeapStateTable<K, N, S> extends StateTable<K, N, S> implements Disposable {
+
+    /**
+     * Constructs a new {@code OffHeapStateTable}.
+     *
+     * @param keyContext the key context.
+     * @param metaInfo the meta information, including the type serializers of the state.
+     * @param keySerializer the serializer of the key.
+     */
+    OffHeapStateTable(
+            InternalKeyContext<K> keyContext,
+            RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo,
+            TypeSerializer<K> keySerializer) {
+        super(keyContext, metaInfo, keySerializer);
+    }
+
+    @Override
+    protected OffHeapStateMap<K, N, S> createStateMap() {
+        return new OffHeapStateMap<>(
+                getKeySerializer(),
+                getNamespaceSerializer(),
+                getStateSerializer(),
+                OffHeapStateMap.StateLayout.of(metaInfo.getStateType()));
+    }
+
+    @Override
+    public boolean isStoringStateObjects() {
+        return false;
+    }
+
+    // Lists and maps -----------------------------------------------------------------------------
+
+    /**
+     * Adds the given elements to the list state of the composite of active key and given namespace,
+     * without reading the list.
+     *
+     * @param namespace the namespace. Not null.
+     * @param elements the elements to add.
+     */
+    public void addToList(N namespace, List<?> elements) {
+        getCurrentStateMap(namespace).addToList(keyContext.getCurrentKey(), namespace, elements);
+    }
+
+    /**
+     * Returns the value of the user key in the map state of the composite of active key and given
+     * namespace.
+     *
+     * @param namespace the namespace. Not null.
+     * @param userKey the user key.
+     * @return the value of the user key, or {@code null} if there is no such value.
+     */
+    @Nullable
+    public Object getFromMap(N namespace, Object userKey) {
+        return getCurrentStateMap(namespace)
+                .getFromMap(keyContext.getCurrentKey(), namespace, userKey);
+    }
+
+    /**
+     * Returns whether the map state of the composite of active key and given namespace contains the
+     * user key.
+     *
+     * @param namespace the namespace. Not null.
+     * @param userKey the user key.
+     * @return {@code true} if the map contains the user key, {@code false} otherwise.
+     */
+    public boolean mapContains(N namespace, Object userKey) {
+        return getCurrentStateMap(namespace)
+                .mapContains(keyContext.getCurrentKey(), namespace, userKey);
+    }
+
+    /**
+     * Returns the number of entries of the map state of the composite of active key and given
+     * namespace.
+     *
+     * @param namespace the namespace. Not null.
+     * @return the number of entries, 0 if there is no map.
+     */
+    public int getMapSize(N namespace) {
+        return getCurrentStateMap(namespace).getMapSize(keyContext.getCurrentKey(), namespace);
+    }
+
+    /**
+     * Puts the given entries into the map state of the composite of active key and given namespace,
+     * without reading the map.
+     *
+     * @param namespace the namespace. Not null.
+     * @param entries the entries to put.
+     */
+    public void putIntoMap(N namespace, Map<?, ?> entries) {
+        getCurrentStateMap(namespace).putIntoMap(keyContext.getCurrentKey(), namespace, entries);
+    }
+
+    /**
+     * Removes the user key from the map state of the composite of active key and given namespace.
+     * The state is removed together with the last entry of the map.
+     *
+     * @param namespace the namespace. Not null.
+     * @param userKey the user key to remove.
+     */
+    public void removeFromMap(N namespace, Object userKey) {
+        getCurrentStateMap(namespace).removeFromMap(keyContext.getCurrentKey(), namespace, userKey);
+    }
+
+    private OffHeapStateMap<K, N, S> getCurrentStateMap(N namespace) {
+        Preconditions.checkNotNull(
+                keyContext.getCurrentKey(),
+                "No key set. This method should not be called outside of a keyed context.");
+        Preconditions.checkNotNull(namespace, "Provided namespace is null.");
+        return (OffHeapStateMap<K, N, S>) getMapForKeyGroup(keyContext.getCurrentKeyGroupIndex());
+    }
+
+    // For queryable state ------------------------------------------------------------------------
+
+    /**
+     * Returns the state for the composite of active key and given namespace. This method is called
+     * concurrently to the task thread, so it must not use the reused buffers of the state maps.
+     *
+     * @param key the key. Not null.
+     * @param namespace the namespace. Not null.
+     * @return the state of the mapping with the specified key/namespace composite key, or {@code
+     *     null} if no mapping for the specified key is found.
+     */
+    @Override
+    public S get(K key, N namespace) {
+        Preconditions.checkNotNull(
+                key, "No key set. This method should not be called outside of a keyed context.");
+        Preconditions.checkNotNull(namespace, "Provided namespace is null.");
+        int keyGroup =
+                KeyGroupRangeAssignment.assignToKeyGroup(key, keyContext.getNumberOfKeyGroups());
+        OffHeapStateMap<K, N, S> stateMap = (OffHeapStateMap<K, N, S>) getMapForKeyGroup(keyGroup);
+        return stateMap != null ? stateMap.getConcurrently(key, namespace) : null;
+    }
+
+    @Override
+    public void setMetaInfo(RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo) {
+        super.setMetaInfo(metaInfo);
+        for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
+            ((OffHeapStateMap<K, N, S>) stateMap).updateStateSerializer(getStateSerializer());
+        }
+    }
+
+    @Override
+    public void dispose() {
+        for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
+            ((OffHeapStateMap<K, N, S>) stateMap).dispose();
+        }
+    }
+
+    // Snapshotting
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a snapshot of this {@link OffHeapStateTable}, to be written in checkpointing.
+     *
+     * @return a snapshot from this {@link OffHeapStateTable}, for checkpointing.
+     */
+    @Nonnull
+    @Override
+    public OffHeapStateTableSnapshot<K, N, S> stateSnapshot() {
+        return new OffHeapStateTableSnapshot<>(
+                this,
+                getKeySerializer().duplicate(),
+                getNamespaceSerializer().duplicate(),
+                getStateSerializer().duplicate(),
+                getMetaInfo()
+                        .getStateSnapshotTransformFactory()
+                        .createForDeserializedState()
+                        .orElse(null));
+    }
+
+    List<OffHeapStateMapSnapshot<K, N, S>> getStateMapSnapshotList() {
+        List<OffHeapStateMapSnapshot<K, N, S>> snapshotList =
+                new ArrayList<>(keyGroupedStateMaps.length);
+        for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
+            snapshotList.add(((OffHeapStateMap<K, N, S>) stateMap).stateSnapshot());
+        }
+        return snapshotList;
+    }
+}
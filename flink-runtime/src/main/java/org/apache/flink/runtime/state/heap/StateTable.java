@@ -116,6 +116,18 @@ public abstract class StateTable<K, N, S>
         return size() == 0;
     }
 
+    /**
+     * Returns whether this {@link StateTable} stores the state objects that are put into it. If so,
+     * in-place modifications of a state object returned by this table are visible in the table.
+     * Otherwise, the table returns copies and modified state must be put back into the table.
+     *
+     * @return {@code true} if this table holds references to the state objects, {@code false} if it
+     *     returns copies.
+     */
+    public boolean isStoringStateObjects() {
+        return true;
+    }
+
     /**
      * Returns the total number of entries in this {@link StateTable}. This is the sum of both
      * sub-tables.
@@ -222,9 +234,34 @@ public abstract class StateTable<K, N, S>
      *     null} if no mapping for the specified key is found.
      */
     public S get(K key, N namespace) {
-        int keyGroup =
-                KeyGroupRangeAssignment.assignToKeyGroup(key, keyContext.getNumberOfKeyGroups());
-        return get(key, keyGroup, namespace);
+        return get(key, assignToKeyGroup(key), namespace);
+    }
+
+    /**
+     * Maps the composite of the given key and namespace to the specified state, independent of the
+     * active key.
+     *
+     * @param key the key. Not null.
+     * @param namespace the namespace. Not null.
+     * @param state the state. Can be null.
+     */
+    public void put(K key, N namespace, S state) {
+        put(key, assignToKeyGroup(key), namespace, state);
+    }
+
+    /**
+     * Removes the mapping for the composite of the given key and namespace, independent of the
+     * active key.
+     *
+     * @param key the key. Not null.
+     * @param namespace the namespace of the mapping to remove. Not null.
+     */
+    public void remove(K key, N namespace) {
+        remove(key, assignToKeyGroup(key), namespace);
+    }
+
+    private int assignToKeyGroup(K key) {
+        return KeyGroupRangeAssignment.assignToKeyGroup(key, keyContext.getNumberOfKeyGroups());
     }
 
     public Stream<K> getKeys(N namespace) {
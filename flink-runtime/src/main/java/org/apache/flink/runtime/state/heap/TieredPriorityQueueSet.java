@@ -0,0 +1,1396 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.state.InternalPriorityQueue;
+import org.apache.flink.util.CloseableIterator;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.MathUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A priority queue with set semantics for the elements of a single key-group, which keeps the
+ * elements in serialized form outside of the Java heap. The lexicographic order of the serialized
+ * elements must be aligned with their priority order, as it is the case for the serializers of
+ * timers.
+ *
+ * <p>The elements are kept in two tiers:
+ *
+ * <ul>
+ *   <li>The memory tier stores the serialized elements in off-heap pages that are provided by the
+ *       {@link TieredPriorityQueueSetFactory}. The records are indexed by a binary heap and an
+ *       open-addressing hash table over primitive arrays, so that the tier does not hold a Java
+ *       object per element.
+ *   <li>When the memory of the factory is exhausted, the larger half of the memory tier is spilled
+ *       to a sorted run on local disk. The run is consumed sequentially from its head, and
+ *       membership queries are answered by a sparse index over the run. Elements that are removed
+ *       from the run before its head reaches them are remembered as tombstone records in the memory
+ *       tier.
+ * </ul>
+ *
+ * <p>The memory tier and the run never contain the same element. All elements in the run are
+ * greater than or equal to the head of the run, tombstones only exist for elements behind the head
+ * of the run, and spilling never changes the head of the queue.
+ *
+ * @param <E> the type of the contained elements in the queue.
+ */
+public class TieredPriorityQueueSet<E>
+        implements InternalPriorityQueue<E>, HeapPriorityQueueElement {
+
+    /**
+     * Size of the header of a record in the memory tier: the length of the serialized element, the
+     * index of the record in the heap, and the hash of the serialized element.
+     */
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    private static final int LENGTH_OFFSET = 0;
+
+    private static final int HEAP_INDEX_OFFSET = 4;
+
+    private static final int HASH_OFFSET = 8;
+
+    /** Heap index of a record that marks a removed element of the run. */
+    private static final int TOMBSTONE = -1;
+
+    /** Marks an empty slot of the hash table. */
+    private static final long EMPTY_SLOT = -1L;
+
+    private static final int MIN_CAPACITY = 16;
+
+    /** Provides the memory pages and spill files of this queue. */
+    @Nonnull private final TieredPriorityQueueSetFactory owner;
+
+    /**
+     * Serializer for the contained elements. The lexicographical order of the bytes of serialized
+     * objects must be aligned with their logical order.
+     */
+    @Nonnull private final TypeSerializer<E> byteOrderProducingSerializer;
+
+    @Nonnull private final DataOutputSerializer outputView;
+
+    @Nonnull private final DataInputDeserializer inputView;
+
+    /** Wraps the buffer of {@link #outputView} to compare serialized elements with records. */
+    @Nullable private MemorySegment serializedElement;
+
+    /** Buffer to deserialize records of the memory tier. */
+    @Nonnull private byte[] readBuffer;
+
+    /** The pages that hold the records of the memory tier. */
+    @Nonnull private final List<MemorySegment> pages;
+
+    /** The offset for the next record in the last page. */
+    private int writeOffset;
+
+    /** The size of all pages of the memory tier. */
+    private long memorySize;
+
+    /** The size of the records in the pages that have been removed. */
+    private long garbageSize;
+
+    /** Binary min-heap of the pointers to the records of the elements in the memory tier. */
+    @Nonnull private long[] heap;
+
+    private int heapSize;
+
+    /** Hash table with linear probing of the pointers to all records, including tombstones. */
+    @Nonnull private long[] table;
+
+    private int tableSize;
+
+    private int numTombstones;
+
+    /** The spilled elements of this queue, or null if there are none. */
+    @Nullable private SpilledRun run;
+
+    /** The deserialized head element, or null if it has not been deserialized yet. */
+    @Nullable private E cachedHead;
+
+    /** Index for management as element in a {@link KeyGroupPartitionedPriorityQueue}. */
+    private int internalIndex;
+
+    TieredPriorityQueueSet(
+            @Nonnull TieredPriorityQueueSetFactory owner,
+            @Nonnull TypeSerializer<E> byteOrderProducingSerializer) {
+        this.owner = owner;
+        this.byteOrderProducingSerializer = byteOrderProducingSerializer;
+        this.outputView = new DataOutputSerializer(128);
+        this.inputView = new DataInputDeserializer();
+        this.readBuffer = new byte[128];
+        this.pages = new ArrayList<>();
+        this.heap = new long[MIN_CAPACITY];
+        this.table = newTable(MIN_CAPACITY);
+        this.internalIndex = HeapPriorityQueueElement.NOT_CONTAINED;
+    }
+
+    @Nullable
+    @Override
+    public E poll() {
+        final E head = peek();
+        if (head == null) {
+            return null;
+        }
+
+        if (isRunHeadFirst()) {
+            advanceRun();
+        } else {
+            final long pointer = heap[0];
+            removeFromTable(findSlotOfRecord(pointer));
+            removeFromHeap(0);
+            releaseRecord(pointer);
+        }
+        cachedHead = null;
+        return head;
+    }
+
+    @Nullable
+    @Override
+    public E peek() {
+        if (cachedHead == null) {
+            if (isRunHeadFirst()) {
+                cachedHead = deserialize(run.head, 0, run.headLength);
+            } else if (heapSize > 0) {
+                final long pointer = heap[0];
+                cachedHead = deserialize(pageOf(pointer), dataOffsetOf(pointer), lengthOf(pointer));
+            }
+        }
+        return cachedHead;
+    }
+
+    @Override
+    public boolean add(@Nonnull E toAdd) {
+        final int length = serialize(toAdd);
+        final int hash = hash(serializedElement, 0, length);
+        final int slot = findSlot(hash, serializedElement, length);
+
+        if (slot >= 0) {
+            if (heapIndexOf(table[slot]) == TOMBSTONE) {
+                // the element is still contained in the run, behind its head
+                removeTombstone(slot);
+            }
+            return false;
+        }
+
+        int runComparison = -1;
+        if (run != null) {
+            runComparison = serializedElement.compare(run.head, 0, 0, length, run.headLength);
+            if (runComparison == 0 || (runComparison > 0 && runContains(length))) {
+                return false;
+            }
+        }
+
+        final long pointer = storeSerializedElement(length, hash, 0);
+        insertIntoTable(pointer, hash, slot);
+        insertIntoHeap(pointer);
+
+        final boolean headChanged = heap[0] == pointer && runComparison < 0;
+        if (headChanged) {
+            cachedHead = null;
+        }
+        owner.spillIfNecessary();
+        return headChanged;
+    }
+
+    @Override
+    public boolean remove(@Nonnull E toRemove) {
+        final int length = serialize(toRemove);
+        final int hash = hash(serializedElement, 0, length);
+        final int slot = findSlot(hash, serializedElement, length);
+
+        if (slot >= 0) {
+            final long pointer = table[slot];
+            final int heapIndex = heapIndexOf(pointer);
+            if (heapIndex == TOMBSTONE) {
+                return false;
+            }
+
+            final boolean headChanged = heapIndex == 0 && !isRunHeadFirst();
+            removeFromTable(slot);
+            removeFromHeap(heapIndex);
+            releaseRecord(pointer);
+            if (headChanged) {
+                cachedHead = null;
+            }
+            return headChanged;
+        }
+
+        if (run == null) {
+            return false;
+        }
+
+        final int runComparison = serializedElement.compare(run.head, 0, 0, length, run.headLength);
+        if (runComparison == 0) {
+            final boolean headChanged = isRunHeadFirst();
+            advanceRun();
+            if (headChanged) {
+                cachedHead = null;
+            }
+            return headChanged;
+        } else if (runComparison > 0 && runContains(length)) {
+            insertIntoTable(storeSerializedElement(length, hash, TOMBSTONE), hash, slot);
+            numTombstones++;
+            owner.spillIfNecessary();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        final long runSize = run != null ? run.numUnconsumedRecords : 0L;
+        return (int) (heapSize + runSize - numTombstones);
+    }
+
+    @Override
+    public void addAll(@Nullable Collection<? extends E> toAdd) {
+        if (toAdd == null) {
+            return;
+        }
+
+        for (E element : toAdd) {
+            add(element);
+        }
+    }
+
+    /**
+     * Returns an iterator over a copy of the elements of this queue. The iterator does not reflect
+     * later modifications of the queue.
+     */
+    @Nonnull
+    @Override
+    public CloseableIterator<E> iterator() {
+        final List<E> elements = new ArrayList<>(size());
+        for (int i = 0; i < heapSize; i++) {
+            final long pointer = heap[i];
+            elements.add(deserialize(pageOf(pointer), dataOffsetOf(pointer), lengthOf(pointer)));
+        }
+
+        if (run != null) {
+            try {
+                run.readUnconsumedRecords(
+                        (segment, length) -> {
+                            final int slot = findSlot(hash(segment, 0, length), segment, length);
+                            if (slot < 0) {
+                                elements.add(deserialize(segment, 0, length));
+                            }
+                        });
+            } catch (IOException e) {
+                throw new FlinkRuntimeException("Could not read the spilled elements.", e);
+            }
+        }
+        return CloseableIterator.adapterForIterator(elements.iterator());
+    }
+
+    /**
+     * Takes a snapshot of the elements of this queue in serialized form. The snapshot copies the
+     * pages of the memory tier and pins the file of the run, so that the elements can be written
+     * asynchronously without deserializing them. The snapshot must be released after use.
+     */
+    @Nonnull
+    Snapshot snapshot() {
+        final MemorySegment[] pageCopies = new MemorySegment[pages.size()];
+        for (int i = 0; i < pageCopies.length; i++) {
+            final MemorySegment page = pages.get(i);
+            final int usedSize = i == pageCopies.length - 1 ? writeOffset : page.size();
+            final byte[] copy = new byte[usedSize];
+            page.get(0, copy, 0, usedSize);
+            pageCopies[i] = MemorySegmentFactory.wrap(copy);
+        }
+
+        final long[] records = new long[tableSize];
+        int numRecords = 0;
+        for (long pointer : table) {
+            if (pointer != EMPTY_SLOT) {
+                records[numRecords++] = pointer;
+            }
+        }
+        return new Snapshot(pageCopies, records, size(), run != null ? run.pin() : null);
+    }
+
+    @Override
+    public int getInternalIndex() {
+        return internalIndex;
+    }
+
+    @Override
+    public void setInternalIndex(int newIndex) {
+        this.internalIndex = newIndex;
+    }
+
+    /** Returns the size of the pages that hold the memory tier of this queue. */
+    long getMemorySize() {
+        return memorySize;
+    }
+
+    @VisibleForTesting
+    int getNumberOfElementsInMemory() {
+        return heapSize;
+    }
+
+    @VisibleForTesting
+    long getNumberOfSpilledElements() {
+        return run != null ? run.numUnconsumedRecords - numTombstones : 0L;
+    }
+
+    /**
+     * Spills the larger half of the memory tier into a sorted run on disk, which is merged with the
+     * current run. This does not change the head of the queue.
+     */
+    void spill() {
+        if (heapSize < 2) {
+            return;
+        }
+
+        // sort the records by draining the heap; a sorted array is a valid heap again
+        final int numRecords = heapSize;
+        final long[] sortedRecords = new long[numRecords];
+        for (int i = 0; i < numRecords; i++) {
+            sortedRecords[i] = heap[0];
+            removeFromHeap(0);
+        }
+        final int numKeptRecords = numRecords / 2;
+        if (heap.length < numKeptRecords) {
+            heap = new long[MathUtils.roundUpToPowerOfTwo(numKeptRecords)];
+        }
+        for (int i = 0; i < numKeptRecords; i++) {
+            heap[i] = sortedRecords[i];
+            setHeapIndex(sortedRecords[i], i);
+        }
+        heapSize = numKeptRecords;
+
+        try {
+            run = mergeIntoNewRun(sortedRecords, numKeptRecords, numRecords);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Could not spill the elements of the queue.", e);
+        }
+
+        // tombstones have been applied by the merge, only the kept records remain in memory
+        table = newTable(tableCapacityFor(numKeptRecords));
+        tableSize = 0;
+        numTombstones = 0;
+        for (int i = 0; i < heapSize; i++) {
+            placeInTable(heap[i]);
+        }
+        tableSize = heapSize;
+        compact();
+    }
+
+    /** Releases the memory and the spill file of this queue. */
+    void close() {
+        owner.releasePages(pages);
+        pages.clear();
+        writeOffset = 0;
+        memorySize = 0L;
+        garbageSize = 0L;
+        heap = new long[MIN_CAPACITY];
+        heapSize = 0;
+        table = newTable(MIN_CAPACITY);
+        tableSize = 0;
+        numTombstones = 0;
+        IOUtils.closeQuietly(run);
+        run = null;
+        cachedHead = null;
+    }
+
+    // ------------------------------------------------------------------------
+    //  Serialization
+    // ------------------------------------------------------------------------
+
+    /** Serializes the element into {@link #serializedElement} and returns its length. */
+    private int serialize(E element) {
+        outputView.clear();
+        try {
+            byteOrderProducingSerializer.serialize(element, outputView);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Error while serializing the element.", e);
+        }
+
+        final byte[] buffer = outputView.getSharedBuffer();
+        if (serializedElement == null || serializedElement.getArray() != buffer) {
+            serializedElement = MemorySegmentFactory.wrap(buffer);
+        }
+        return outputView.length();
+    }
+
+    private E deserialize(MemorySegment segment, int offset, int length) {
+        if (readBuffer.length < length) {
+            readBuffer = new byte[Math.max(length, 2 * readBuffer.length)];
+        }
+        segment.get(offset, readBuffer, 0, length);
+        inputView.setBuffer(readBuffer, 0, length);
+        try {
+            return byteOrderProducingSerializer.deserialize(inputView);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Error while deserializing the element.", e);
+        }
+    }
+
+    private static int hash(MemorySegment segment, int offset, int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + segment.get(offset + i);
+        }
+        return MathUtils.murmurHash(hash);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Records in the memory pages
+    // ------------------------------------------------------------------------
+
+    private MemorySegment pageOf(long pointer) {
+        return pages.get((int) (pointer >>> 32));
+    }
+
+    private static int recordOffsetOf(long pointer) {
+        return (int) pointer;
+    }
+
+    private static int dataOffsetOf(long pointer) {
+        return recordOffsetOf(pointer) + RECORD_HEADER_SIZE;
+    }
+
+    private int lengthOf(long pointer) {
+        return pageOf(pointer).getInt(recordOffsetOf(pointer) + LENGTH_OFFSET);
+    }
+
+    private int heapIndexOf(long pointer) {
+        return pageOf(pointer).getInt(recordOffsetOf(pointer) + HEAP_INDEX_OFFSET);
+    }
+
+    private void setHeapIndex(long pointer, int heapIndex) {
+        pageOf(pointer).putInt(recordOffsetOf(pointer) + HEAP_INDEX_OFFSET, heapIndex);
+    }
+
+    private int hashOf(long pointer) {
+        return pageOf(pointer).getInt(recordOffsetOf(pointer) + HASH_OFFSET);
+    }
+
+    private int compareRecords(long pointer, long otherPointer) {
+        return pageOf(pointer)
+                .compare(
+                        pageOf(otherPointer),
+                        dataOffsetOf(pointer),
+                        dataOffsetOf(otherPointer),
+                        lengthOf(pointer),
+                        lengthOf(otherPointer));
+    }
+
+    /** Copies the current {@link #serializedElement} into a new record. */
+    private long storeSerializedElement(int length, int hash, int heapIndex) {
+        final long pointer = allocateRecord(length);
+        final MemorySegment page = pageOf(pointer);
+        final int offset = recordOffsetOf(pointer);
+        page.putInt(offset + LENGTH_OFFSET, length);
+        page.putInt(offset + HEAP_INDEX_OFFSET, heapIndex);
+        page.putInt(offset + HASH_OFFSET, hash);
+        serializedElement.copyTo(0, page, offset + RECORD_HEADER_SIZE, length);
+        return pointer;
+    }
+
+    private long allocateRecord(int length) {
+        final int recordSize = RECORD_HEADER_SIZE + length;
+        if (pages.isEmpty() || pages.get(pages.size() - 1).size() - writeOffset < recordSize) {
+            final MemorySegment page = owner.allocatePage(recordSize);
+            pages.add(page);
+            memorySize += page.size();
+            writeOffset = 0;
+        }
+
+        final long pointer = ((long) (pages.size() - 1) << 32) | writeOffset;
+        writeOffset += recordSize;
+        return pointer;
+    }
+
+    private void releaseRecord(long pointer) {
+        if (tableSize == 0) {
+            // nothing is left in memory, give all pages back
+            owner.releasePages(pages);
+            pages.clear();
+            writeOffset = 0;
+            memorySize = 0L;
+            garbageSize = 0L;
+            if (table.length > MIN_CAPACITY) {
+                table = newTable(MIN_CAPACITY);
+            }
+            return;
+        }
+
+        garbageSize += RECORD_HEADER_SIZE + lengthOf(pointer);
+        if (pages.size() > 1 && garbageSize > memorySize / 2) {
+            compact();
+        }
+    }
+
+    /** Copies all records into new pages, leaving out the removed records. */
+    private void compact() {
+        final List<MemorySegment> oldPages = new ArrayList<>(pages);
+        final MemorySegment[] oldPagesByIndex = oldPages.toArray(new MemorySegment[0]);
+        pages.clear();
+        writeOffset = 0;
+        memorySize = 0L;
+        garbageSize = 0L;
+
+        for (int slot = 0; slot < table.length; slot++) {
+            final long oldPointer = table[slot];
+            if (oldPointer == EMPTY_SLOT) {
+                continue;
+            }
+
+            final MemorySegment oldPage = oldPagesByIndex[(int) (oldPointer >>> 32)];
+            final int oldOffset = recordOffsetOf(oldPointer);
+            final int length = oldPage.getInt(oldOffset + LENGTH_OFFSET);
+            final long pointer = allocateRecord(length);
+            oldPage.copyTo(
+                    oldOffset,
+                    pageOf(pointer),
+                    recordOffsetOf(pointer),
+                    RECORD_HEADER_SIZE + length);
+            table[slot] = pointer;
+
+            final int heapIndex = heapIndexOf(pointer);
+            if (heapIndex != TOMBSTONE) {
+                heap[heapIndex] = pointer;
+            }
+        }
+        owner.releasePages(oldPages);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Hash table
+    // ------------------------------------------------------------------------
+
+    private static long[] newTable(int capacity) {
+        final long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY_SLOT);
+        return table;
+    }
+
+    private static int tableCapacityFor(int numRecords) {
+        return Math.max(MIN_CAPACITY, MathUtils.roundUpToPowerOfTwo(4 * numRecords));
+    }
+
+    /**
+     * Returns the slot of the record with the given serialized element, or {@code -(slot + 1)} with
+     * the empty slot where the record would be inserted.
+     */
+    private int findSlot(int hash, MemorySegment segment, int length) {
+        return findSlot(hash, segment, 0, length);
+    }
+
+    private int findSlot(int hash, MemorySegment segment, int offset, int length) {
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        long pointer;
+        while ((pointer = table[slot]) != EMPTY_SLOT) {
+            if (hashOf(pointer) == hash
+                    && lengthOf(pointer) == length
+                    && pageOf(pointer).equalTo(segment, dataOffsetOf(pointer), offset, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -(slot + 1);
+    }
+
+    private int findSlotOfRecord(long pointer) {
+        final int mask = table.length - 1;
+        int slot = hashOf(pointer) & mask;
+        while (table[slot] != pointer) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Inserts the record into the empty slot that was returned by a failed lookup. */
+    private void insertIntoTable(long pointer, int hash, int lookupResult) {
+        if (2 * (tableSize + 1) > table.length) {
+            final long[] oldTable = table;
+            table = newTable(2 * oldTable.length);
+            for (long oldPointer : oldTable) {
+                if (oldPointer != EMPTY_SLOT) {
+                    placeInTable(oldPointer);
+                }
+            }
+            placeInTable(pointer);
+        } else {
+            table[-(lookupResult + 1)] = pointer;
+        }
+        tableSize++;
+    }
+
+    /** Puts the record into the first empty slot of its cluster, without checking for equality. */
+    private void placeInTable(long pointer) {
+        final int mask = table.length - 1;
+        int slot = hashOf(pointer) & mask;
+        while (table[slot] != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = pointer;
+    }
+
+    /** Removes the record in the slot by shifting back the following records of its cluster. */
+    private void removeFromTable(int slot) {
+        final int mask = table.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        long pointer;
+        while ((pointer = table[next]) != EMPTY_SLOT) {
+            final int idealSlot = hashOf(pointer) & mask;
+            if (((next - idealSlot) & mask) >= ((next - hole) & mask)) {
+                table[hole] = pointer;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = EMPTY_SLOT;
+        tableSize--;
+    }
+
+    private void removeTombstone(int slot) {
+        final long pointer = table[slot];
+        numTombstones--;
+        removeFromTable(slot);
+        releaseRecord(pointer);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Heap
+    // ------------------------------------------------------------------------
+
+    private void insertIntoHeap(long pointer) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * heap.length);
+        }
+        heap[heapSize] = pointer;
+        setHeapIndex(pointer, heapSize);
+        siftUp(heapSize++);
+    }
+
+    private void removeFromHeap(int index) {
+        final int lastIndex = --heapSize;
+        if (index != lastIndex) {
+            final long last = heap[lastIndex];
+            heap[index] = last;
+            setHeapIndex(last, index);
+            siftDown(index);
+            siftUp(heapIndexOf(last));
+        }
+        if (heapSize > MIN_CAPACITY && 4 * heapSize < heap.length) {
+            heap = Arrays.copyOf(heap, heap.length / 2);
+        }
+    }
+
+    private void siftUp(int index) {
+        final long pointer = heap[index];
+        while (index > 0) {
+            final int parentIndex = (index - 1) >>> 1;
+            final long parent = heap[parentIndex];
+            if (compareRecords(parent, pointer) <= 0) {
+                break;
+            }
+            heap[index] = parent;
+            setHeapIndex(parent, index);
+            index = parentIndex;
+        }
+        heap[index] = pointer;
+        setHeapIndex(pointer, index);
+    }
+
+    private void siftDown(int index) {
+        final long pointer = heap[index];
+        while (true) {
+            int childIndex = 2 * index + 1;
+            if (childIndex >= heapSize) {
+                break;
+            }
+            if (childIndex + 1 < heapSize
+                    && compareRecords(heap[childIndex + 1], heap[childIndex]) < 0) {
+                childIndex++;
+            }
+            final long child = heap[childIndex];
+            if (compareRecords(pointer, child) <= 0) {
+                break;
+            }
+            heap[index] = child;
+            setHeapIndex(child, index);
+            index = childIndex;
+        }
+        heap[index] = pointer;
+        setHeapIndex(pointer, index);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Spilled run
+    // ------------------------------------------------------------------------
+
+    /** Returns whether the head of the run is the head of the queue. */
+    private boolean isRunHeadFirst() {
+        if (run == null) {
+            return false;
+        }
+        if (heapSize == 0) {
+            return true;
+        }
+        final long pointer = heap[0];
+        return pageOf(pointer)
+                        .compare(
+                                run.head,
+                                dataOffsetOf(pointer),
+                                0,
+                                lengthOf(pointer),
+                                run.headLength)
+                > 0;
+    }
+
+    /** Returns whether the run contains the current {@link #serializedElement}. */
+    private boolean runContains(int length) {
+        try {
+            return run.contains(serializedElement, length);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Could not read the spilled elements.", e);
+        }
+    }
+
+    /** Moves the run to the next element that has not been removed, or drops the consumed run. */
+    private void advanceRun() {
+        try {
+            while (run.next()) {
+                final int slot =
+                        findSlot(hash(run.head, 0, run.headLength), run.head, run.headLength);
+                if (slot < 0) {
+                    return;
+                }
+                removeTombstone(slot);
+            }
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Could not read the spilled elements.", e);
+        }
+        IOUtils.closeQuietly(run);
+        run = null;
+    }
+
+    /**
+     * Writes the records in the given range of the sorted records, merged with the unconsumed
+     * elements of the current run, into a new run.
+     */
+    private SpilledRun mergeIntoNewRun(long[] sortedRecords, int from, int to) throws IOException {
+        final File file = owner.createSpillFile();
+        final SpilledRun newRun;
+        try (SpilledRun.Writer writer = new SpilledRun.Writer(file)) {
+            // the tombstones are left in memory during the merge, they are dropped afterwards
+            boolean runHasHead = run != null;
+            int index = from;
+            while (index < to || runHasHead) {
+                final long pointer = index < to ? sortedRecords[index] : EMPTY_SLOT;
+                if (!runHasHead
+                        || (pointer != EMPTY_SLOT
+                                && pageOf(pointer)
+                                                .compare(
+                                                        run.head,
+                                                        dataOffsetOf(pointer),
+                                                        0,
+                                                        lengthOf(pointer),
+                                                        run.headLength)
+                                        < 0)) {
+                    writer.write(pageOf(pointer), dataOffsetOf(pointer), lengthOf(pointer));
+                    index++;
+                } else {
+                    writer.write(run.head, 0, run.headLength);
+                    runHasHead = nextRemainingInRun();
+                }
+            }
+            newRun = writer.finish();
+        } catch (Throwable t) {
+            Files.deleteIfExists(file.toPath());
+            throw t;
+        }
+
+        IOUtils.closeQuietly(run);
+        newRun.next();
+        return newRun;
+    }
+
+    /** Moves the run to the next element that has no tombstone, without removing tombstones. */
+    private boolean nextRemainingInRun() throws IOException {
+        while (run.next()) {
+            if (findSlot(hash(run.head, 0, run.headLength), run.head, run.headLength) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Callback for the records of a {@link SpilledRun}. */
+    @FunctionalInterface
+    private interface RecordConsumer {
+        void accept(MemorySegment segment, int length);
+    }
+
+    /**
+     * A sorted run of serialized elements in a file. Each record consists of the length of the
+     * serialized element and its bytes. The run keeps the first record of every {@link
+     * #INDEX_INTERVAL} records in memory to find records without scanning the file.
+     */
+    private static final class SpilledRun implements Closeable {
+
+        private static final int INDEX_INTERVAL = 64;
+
+        private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+        private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+        private final File file;
+
+        private final FileChannel channel;
+
+        private final long fileSize;
+
+        private final long[] indexOffsets;
+
+        private final MemorySegment[] indexKeys;
+
+        private final ByteBuffer readBuffer;
+
+        /** The position of the read buffer in the file. */
+        private long readBufferOffset;
+
+        /** The position of the record after the head in the file. */
+        private long nextRecordOffset;
+
+        /** The number of records that have not been consumed, including the head. */
+        private long numUnconsumedRecords;
+
+        /** The serialized head element, valid for {@link #headLength} bytes. */
+        private MemorySegment head;
+
+        private int headLength;
+
+        private byte[] blockBuffer;
+
+        private MemorySegment block;
+
+        /** The number of snapshots that still read the file, guarded by this run. */
+        private int numPins;
+
+        /** Whether the run has been closed, guarded by this run. */
+        private boolean closed;
+
+        private SpilledRun(
+                File file,
+                long fileSize,
+                long numRecords,
+                long[] indexOffsets,
+                MemorySegment[] indexKeys)
+                throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.fileSize = fileSize;
+            this.numUnconsumedRecords = numRecords;
+            this.indexOffsets = indexOffsets;
+            this.indexKeys = indexKeys;
+            this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            this.readBuffer.limit(0);
+            this.head = MemorySegmentFactory.wrap(new byte[128]);
+            this.headLength = -1;
+            this.blockBuffer = new byte[0];
+            this.block = MemorySegmentFactory.wrap(blockBuffer);
+        }
+
+        /** Moves to the next record, or returns false if all records have been consumed. */
+        boolean next() throws IOException {
+            if (headLength >= 0) {
+                numUnconsumedRecords--;
+            }
+            if (numUnconsumedRecords == 0) {
+                headLength = -1;
+                return false;
+            }
+
+            ensureBuffered(nextRecordOffset, Integer.BYTES);
+            final int length = readBuffer.getInt((int) (nextRecordOffset - readBufferOffset));
+            if (head.size() < length) {
+                head = MemorySegmentFactory.wrap(new byte[Math.max(length, 2 * head.size())]);
+            }
+
+            final long dataOffset = nextRecordOffset + Integer.BYTES;
+            if (length <= READ_BUFFER_SIZE) {
+                ensureBuffered(dataOffset, length);
+                head.put(0, readBuffer.array(), (int) (dataOffset - readBufferOffset), length);
+            } else {
+                readFully(ByteBuffer.wrap(head.getArray(), 0, length), dataOffset);
+            }
+            headLength = length;
+            nextRecordOffset = dataOffset + length;
+            return true;
+        }
+
+        /** Returns whether the run contains the given element at or behind its head. */
+        boolean contains(MemorySegment element, int length) throws IOException {
+            // find the last index entry that is not greater than the element
+            int low = 0;
+            int high = indexKeys.length - 1;
+            int blockIndex = -1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final MemorySegment key = indexKeys[mid];
+                final int comparison = key.compare(element, 0, 0, key.size(), length);
+                if (comparison == 0) {
+                    return true;
+                } else if (comparison < 0) {
+                    blockIndex = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (blockIndex < 0) {
+                return false;
+            }
+
+            final long blockStart = indexOffsets[blockIndex];
+            final long blockEnd =
+                    blockIndex + 1 < indexOffsets.length ? indexOffsets[blockIndex + 1] : fileSize;
+            final int blockSize = (int) (blockEnd - blockStart);
+            if (blockBuffer.length < blockSize) {
+                blockBuffer = new byte[blockSize];
+                block = MemorySegmentFactory.wrap(blockBuffer);
+            }
+            readFully(ByteBuffer.wrap(blockBuffer, 0, blockSize), blockStart);
+
+            int offset = 0;
+            while (offset < blockSize) {
+                final int recordLength = block.getIntBigEndian(offset);
+                final int comparison =
+                        block.compare(element, offset + Integer.BYTES, 0, recordLength, length);
+                if (comparison == 0) {
+                    return true;
+                } else if (comparison > 0) {
+                    return false;
+                }
+                offset += Integer.BYTES + recordLength;
+            }
+            return false;
+        }
+
+        /** Reads all unconsumed records, starting with the head. */
+        void readUnconsumedRecords(RecordConsumer consumer) throws IOException {
+            if (headLength < 0) {
+                return;
+            }
+            consumer.accept(head, headLength);
+
+            try (RecordReader reader =
+                    new RecordReader(file, nextRecordOffset, numUnconsumedRecords - 1)) {
+                while (reader.next()) {
+                    consumer.accept(reader.record, reader.length);
+                }
+            }
+        }
+
+        /**
+         * Pins the unconsumed records for a snapshot. The file is kept until the returned pin is
+         * released, even if the run is closed before.
+         */
+        synchronized RunPin pin() {
+            checkState(!closed, "The run has been closed.");
+            numPins++;
+            final byte[] headCopy = new byte[headLength];
+            head.get(0, headCopy, 0, headLength);
+            return new RunPin(this, headCopy, nextRecordOffset, numUnconsumedRecords);
+        }
+
+        private synchronized void unpin() throws IOException {
+            if (--numPins == 0 && closed) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+
+        private void ensureBuffered(long offset, int length) throws IOException {
+            if (offset >= readBufferOffset
+                    && offset + length <= readBufferOffset + readBuffer.limit()) {
+                return;
+            }
+            readBuffer.clear();
+            readBuffer.limit((int) Math.min(READ_BUFFER_SIZE, fileSize - offset));
+            readFully(readBuffer, offset);
+            readBuffer.flip();
+            readBufferOffset = offset;
+        }
+
+        private void readFully(ByteBuffer target, long position) throws IOException {
+            while (target.hasRemaining()) {
+                final int read = channel.read(target, position);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of spill file " + file + '.');
+                }
+                position += read;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                synchronized (this) {
+                    closed = true;
+                    if (numPins == 0) {
+                        Files.deleteIfExists(file.toPath());
+                    }
+                }
+            }
+        }
+
+        /** Writes a sorted run. The records must be written in ascending order. */
+        private static final class Writer implements Closeable {
+
+            private final File file;
+
+            private final DataOutputStream out;
+
+            private final List<Long> indexOffsets = new ArrayList<>();
+
+            private final List<MemorySegment> indexKeys = new ArrayList<>();
+
+            private long numRecords;
+
+            private long size;
+
+            private Writer(File file) throws IOException {
+                this.file = file;
+                this.out =
+                        new DataOutputStream(
+                                new BufferedOutputStream(
+                                        new FileOutputStream(file), WRITE_BUFFER_SIZE));
+            }
+
+            void write(MemorySegment segment, int offset, int length) throws IOException {
+                if (numRecords % INDEX_INTERVAL == 0) {
+                    indexOffsets.add(size);
+                    final byte[] key = new byte[length];
+                    segment.get(offset, key, 0, length);
+                    indexKeys.add(MemorySegmentFactory.wrap(key));
+                }
+                out.writeInt(length);
+                segment.get(out, offset, length);
+                numRecords++;
+                size += Integer.BYTES + length;
+            }
+
+            SpilledRun finish() throws IOException {
+                out.close();
+                final long[] offsets = new long[indexOffsets.size()];
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = indexOffsets.get(i);
+                }
+                return new SpilledRun(
+                        file, size, numRecords, offsets, indexKeys.toArray(new MemorySegment[0]));
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        }
+    }
+
+    /** The unconsumed records of a {@link SpilledRun} at the time of a snapshot. */
+    private static final class RunPin implements Closeable {
+
+        private final SpilledRun run;
+
+        private final byte[] head;
+
+        private final long nextRecordOffset;
+
+        private final long numRecords;
+
+        private boolean released;
+
+        private RunPin(SpilledRun run, byte[] head, long nextRecordOffset, long numRecords) {
+            this.run = run;
+            this.head = head;
+            this.nextRecordOffset = nextRecordOffset;
+            this.numRecords = numRecords;
+        }
+
+        /** Opens a reader for the records behind the head. */
+        RecordReader openReader() throws IOException {
+            return new RecordReader(run.file, nextRecordOffset, numRecords - 1);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!released) {
+                released = true;
+                run.unpin();
+            }
+        }
+    }
+
+    /** Reads a number of records of a run file sequentially, starting at an offset. */
+    private static final class RecordReader implements Closeable {
+
+        private final FileInputStream fileIn;
+
+        private final DataInputStream in;
+
+        private long numRemainingRecords;
+
+        /** The current record, valid for {@link #length} bytes. */
+        private MemorySegment record;
+
+        private int length;
+
+        private RecordReader(File file, long offset, long numRecords) throws IOException {
+            this.fileIn = new FileInputStream(file);
+            try {
+                fileIn.getChannel().position(offset);
+            } catch (IOException e) {
+                fileIn.close();
+                throw e;
+            }
+            this.in =
+                    new DataInputStream(
+                            new BufferedInputStream(fileIn, SpilledRun.READ_BUFFER_SIZE));
+            this.numRemainingRecords = numRecords;
+            this.record = MemorySegmentFactory.wrap(new byte[128]);
+            this.length = -1;
+        }
+
+        /** Moves to the next record, or returns false if all records have been read. */
+        boolean next() throws IOException {
+            if (numRemainingRecords <= 0) {
+                return false;
+            }
+            numRemainingRecords--;
+            length = in.readInt();
+            if (record.size() < length) {
+                record = MemorySegmentFactory.wrap(new byte[Math.max(length, 2 * record.size())]);
+            }
+            in.readFully(record.getArray(), 0, length);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            fileIn.close();
+        }
+    }
+
+    /**
+     * A snapshot of the elements of a {@link TieredPriorityQueueSet} in serialized form. It holds
+     * copies of the pages and of the records in the hash table, and a pin of the unconsumed records
+     * of the run. The elements are read from the copies and from the run file, filtering the run by
+     * the tombstones of the memory tier.
+     */
+    static final class Snapshot implements Closeable {
+
+        private final MemorySegment[] pages;
+
+        private final long[] records;
+
+        private final int size;
+
+        @Nullable private final RunPin runPin;
+
+        private Snapshot(MemorySegment[] pages, long[] records, int size, @Nullable RunPin runPin) {
+            this.pages = pages;
+            this.records = records;
+            this.size = size;
+            this.runPin = runPin;
+        }
+
+        /** Returns the number of elements in the snapshot. */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns an iterator over the serialized elements. The iterator must be closed to close
+         * the run file.
+         */
+        CloseableIterator<byte[]> serializedElements() throws IOException {
+            final List<byte[]> elementsInMemory = new ArrayList<>(records.length);
+            final List<MemorySegment> tombstones = new ArrayList<>();
+            for (long pointer : records) {
+                final MemorySegment page = pages[(int) (pointer >>> 32)];
+                final int offset = recordOffsetOf(pointer);
+                final int length = page.getInt(offset + LENGTH_OFFSET);
+                final byte[] element = new byte[length];
+                page.get(offset + RECORD_HEADER_SIZE, element, 0, length);
+                if (page.getInt(offset + HEAP_INDEX_OFFSET) == TOMBSTONE) {
+                    tombstones.add(MemorySegmentFactory.wrap(element));
+                } else {
+                    elementsInMemory.add(element);
+                }
+            }
+
+            if (runPin == null) {
+                return CloseableIterator.adapterForIterator(elementsInMemory.iterator());
+            }
+
+            tombstones.sort((a, b) -> a.compare(b, 0, 0, a.size(), b.size()));
+            return new SnapshotIterator(elementsInMemory.iterator(), runPin, tombstones);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (runPin != null) {
+                runPin.close();
+            }
+        }
+    }
+
+    /**
+     * Iterator over the serialized elements of a {@link Snapshot}, which returns the elements of
+     * the memory tier first and then the records of the run that have no tombstone. The sorted
+     * tombstones are merged with the sorted records of the run.
+     */
+    private static final class SnapshotIterator implements CloseableIterator<byte[]> {
+
+        private final Iterator<byte[]> elementsInMemory;
+
+        private final RunPin runPin;
+
+        private final List<MemorySegment> sortedTombstones;
+
+        private int tombstoneIndex;
+
+        private boolean runHeadReturned;
+
+        @Nullable private RecordReader runReader;
+
+        @Nullable private byte[] nextElement;
+
+        private SnapshotIterator(
+                Iterator<byte[]> elementsInMemory,
+                RunPin runPin,
+                List<MemorySegment> sortedTombstones) {
+            this.elementsInMemory = elementsInMemory;
+            this.runPin = runPin;
+            this.sortedTombstones = sortedTombstones;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextElement == null) {
+                try {
+                    nextElement = advance();
+                } catch (IOException e) {
+                    throw new FlinkRuntimeException("Could not read the spilled elements.", e);
+                }
+            }
+            return nextElement != null;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final byte[] element = nextElement;
+            nextElement = null;
+            return element;
+        }
+
+        @Nullable
+        private byte[] advance() throws IOException {
+            if (elementsInMemory.hasNext()) {
+                return elementsInMemory.next();
+            }
+            if (!runHeadReturned) {
+                runHeadReturned = true;
+                final MemorySegment head = MemorySegmentFactory.wrap(runPin.head);
+                if (!isTombstone(head, runPin.head.length)) {
+                    return runPin.head;
+                }
+            }
+            if (runReader == null) {
+                runReader = runPin.openReader();
+            }
+            while (runReader.next()) {
+                if (!isTombstone(runReader.record, runReader.length)) {
+                    final byte[] element = new byte[runReader.length];
+                    runReader.record.get(0, element, 0, runReader.length);
+                    return element;
+                }
+            }
+            return null;
+        }
+
+        /** Skips the tombstones before the given record and checks if the next one matches it. */
+        private boolean isTombstone(MemorySegment record, int length) {
+            while (tombstoneIndex < sortedTombstones.size()) {
+                final MemorySegment tombstone = sortedTombstones.get(tombstoneIndex);
+                final int comparison = tombstone.compare(record, 0, 0, tombstone.size(), length);
+                if (comparison > 0) {
+                    return false;
+                }
+                tombstoneIndex++;
+                if (comparison == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (runReader != null) {
+                runReader.close();
+            }
+        }
+    }
+}
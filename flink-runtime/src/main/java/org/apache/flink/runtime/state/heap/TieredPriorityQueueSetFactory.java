@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.state.KeyExtractorFunction;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.Keyed;
+import org.apache.flink.runtime.state.PriorityComparable;
+import org.apache.flink.runtime.state.PriorityComparator;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Factory for priority queues that keep their elements in serialized form in off-heap memory and
+ * spill them to local disk when the memory is exhausted. The queues are partitioned by key-group,
+ * with a {@link TieredPriorityQueueSet} per key-group.
+ *
+ * <p>All queues of a factory share its memory budget, which applies to the off-heap pages that hold
+ * the serialized elements. When the queues exceed the budget, the factory spills the larger half of
+ * the elements of the biggest queues, which are the elements that are due last.
+ *
+ * <p>The pages are allocated as native memory outside of the managed memory of the slot, so the
+ * budget has to be covered by the task off-heap memory of the TaskManager. A queue cannot be
+ * spilled in the middle of an operation, so it may exceed the budget by a few pages until the
+ * operation is finished and the queues are spilled.
+ *
+ * <p>The factory must be closed to release the memory and the spill files of its queues.
+ */
+public class TieredPriorityQueueSetFactory extends HeapPriorityQueueSetFactory
+        implements Closeable {
+
+    @VisibleForTesting static final int DEFAULT_PAGE_SIZE = 16 * 1024;
+
+    private static final Runnable NO_CLEANUP = () -> {};
+
+    @Nonnull private final KeyGroupRange keyGroupRange;
+
+    @Nonnegative private final int totalKeyGroups;
+
+    /** The maximum size of the pages that are used by the queues. */
+    private final long memoryBudget;
+
+    private final int pageSize;
+
+    /** The directory for the spill files of the queues. */
+    @Nonnull private final File spillDirectory;
+
+    /** The queues of all key-groups and states that have been created by this factory. */
+    private final List<TieredPriorityQueueSet<?>> queueSets = new ArrayList<>();
+
+    /** Pages of the default size that are not used by any queue. */
+    private final ArrayDeque<MemorySegment> freePages = new ArrayDeque<>();
+
+    /** The size of all pages that are used by the queues. */
+    private long usedMemory;
+
+    /** The used memory above which the queues are spilled, at least the memory budget. */
+    private long spillThreshold;
+
+    private boolean closed;
+
+    public TieredPriorityQueueSetFactory(
+            @Nonnull KeyGroupRange keyGroupRange,
+            @Nonnegative int totalKeyGroups,
+            long memoryBudget,
+            @Nonnull File spillDirectory) {
+        this(keyGroupRange, totalKeyGroups, memoryBudget, spillDirectory, DEFAULT_PAGE_SIZE);
+    }
+
+    @VisibleForTesting
+    TieredPriorityQueueSetFactory(
+            @Nonnull KeyGroupRange keyGroupRange,
+            @Nonnegative int totalKeyGroups,
+            long memoryBudget,
+            @Nonnull File spillDirectory,
+            int pageSize) {
+        super(keyGroupRange, totalKeyGroups, 128);
+        checkArgument(memoryBudget >= 0, "The memory budget must not be negative.");
+        checkArgument(pageSize > 0, "The page size must be positive.");
+        this.keyGroupRange = keyGroupRange;
+        this.totalKeyGroups = totalKeyGroups;
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+        this.pageSize = pageSize;
+        this.spillThreshold = memoryBudget;
+    }
+
+    @Nonnull
+    @Override
+    public <T extends HeapPriorityQueueElement & PriorityComparable<? super T> & Keyed<?>>
+            KeyGroupedInternalPriorityQueue<T> create(
+                    @Nonnull String stateName,
+                    @Nonnull TypeSerializer<T> byteOrderedElementSerializer) {
+
+        final TypeSerializer<T> serializer = byteOrderedElementSerializer.duplicate();
+        return new KeyGroupPartitionedPriorityQueue<T, TieredPriorityQueueSet<T>>(
+                KeyExtractorFunction.forKeyedObjects(),
+                PriorityComparator.forPriorityComparableObjects(),
+                (keyGroupId, numKeyGroups, keyExtractor, elementComparator) ->
+                        createQueueSet(serializer),
+                keyGroupRange,
+                totalKeyGroups);
+    }
+
+    @VisibleForTesting
+    <T> TieredPriorityQueueSet<T> createQueueSet(TypeSerializer<T> byteOrderedElementSerializer) {
+        checkState(!closed, "The priority queue factory has been closed.");
+        final TieredPriorityQueueSet<T> queueSet =
+                new TieredPriorityQueueSet<>(this, byteOrderedElementSerializer);
+        queueSets.add(queueSet);
+        return queueSet;
+    }
+
+    /** Returns the size of all pages that are used by the queues. */
+    @VisibleForTesting
+    long getUsedMemory() {
+        return usedMemory;
+    }
+
+    /** Provides a page of at least the given size to a queue. */
+    MemorySegment allocatePage(int minSize) {
+        checkState(!closed, "The priority queue factory has been closed.");
+        MemorySegment page = minSize <= pageSize ? freePages.poll() : null;
+        if (page == null) {
+            page =
+                    MemorySegmentFactory.allocateOffHeapUnsafeMemory(
+                            Math.max(minSize, pageSize), this, NO_CLEANUP);
+        }
+        usedMemory += page.size();
+        return page;
+    }
+
+    /** Takes back the pages of a queue. */
+    void releasePages(Collection<MemorySegment> pages) {
+        for (MemorySegment page : pages) {
+            usedMemory -= page.size();
+            if (!closed
+                    && page.size() == pageSize
+                    && usedMemory + (freePages.size() + 1L) * pageSize <= memoryBudget) {
+                freePages.add(page);
+            } else {
+                page.free();
+            }
+        }
+        spillThreshold = Math.max(memoryBudget, Math.min(spillThreshold, usedMemory));
+    }
+
+    File createSpillFile() throws IOException {
+        Files.createDirectories(spillDirectory.toPath());
+        return File.createTempFile("timers-", ".run", spillDirectory);
+    }
+
+    /**
+     * Spills the biggest queues until the used memory is within the budget. Spilling is only
+     * attempted again once the queues have allocated more memory, if this could not be met.
+     */
+    void spillIfNecessary() {
+        if (usedMemory <= spillThreshold) {
+            return;
+        }
+
+        while (usedMemory > memoryBudget) {
+            TieredPriorityQueueSet<?> biggestQueueSet = null;
+            for (TieredPriorityQueueSet<?> queueSet : queueSets) {
+                if (queueSet.getNumberOfElementsInMemory() > 1
+                        && (biggestQueueSet == null
+                                || queueSet.getMemorySize() > biggestQueueSet.getMemorySize())) {
+                    biggestQueueSet = queueSet;
+                }
+            }
+
+            final long usedMemoryBeforeSpilling = usedMemory;
+            if (biggestQueueSet != null) {
+                biggestQueueSet.spill();
+            }
+            if (usedMemory >= usedMemoryBeforeSpilling) {
+                break;
+            }
+        }
+        spillThreshold = Math.max(memoryBudget, usedMemory);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (TieredPriorityQueueSet<?> queueSet : queueSets) {
+            queueSet.close();
+        }
+        queueSets.clear();
+        for (MemorySegment page : freePages) {
+            page.free();
+        }
+        freePages.clear();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.runtime.state.KeyExtractorFunction;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.RegisteredPriorityQueueStateBackendMetaInfo;
+import org.apache.flink.util.CloseableIterator;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class represents the snapshot of the queues of a {@link TieredPriorityQueueSetFactory}. It
+ * holds a {@link TieredPriorityQueueSet.Snapshot} per key-group, which keeps the elements in
+ * serialized form, so that they are written without deserializing them.
+ *
+ * @param <T> type of the state elements.
+ */
+public class TieredPriorityQueueStateSnapshot<T> extends HeapPriorityQueueStateSnapshot<T> {
+
+    /** The snapshots of the queues, indexed by the key-group relative to the first key-group. */
+    @Nonnull private final TieredPriorityQueueSet.Snapshot[] keyGroupSnapshots;
+
+    /** The key-group range covered by this snapshot. */
+    @Nonnull private final KeyGroupRange keyGroupRange;
+
+    @SuppressWarnings("unchecked")
+    TieredPriorityQueueStateSnapshot(
+            @Nonnull TieredPriorityQueueSet.Snapshot[] keyGroupSnapshots,
+            @Nonnull KeyExtractorFunction<T> keyExtractor,
+            @Nonnull RegisteredPriorityQueueStateBackendMetaInfo<T> metaInfo,
+            @Nonnull KeyGroupRange keyGroupRange,
+            @Nonnegative int totalKeyGroups) {
+
+        super(
+                (T[]) new HeapPriorityQueueElement[0],
+                keyExtractor,
+                metaInfo,
+                keyGroupRange,
+                totalKeyGroups);
+        this.keyGroupSnapshots = keyGroupSnapshots;
+        this.keyGroupRange = keyGroupRange;
+    }
+
+    @Nonnull
+    @Override
+    public StateKeyGroupWriter getKeyGroupWriter() {
+        return (dov, keyGroupId) -> {
+            final TieredPriorityQueueSet.Snapshot snapshot = getSnapshot(keyGroupId);
+            dov.writeInt(snapshot.size());
+            try (CloseableIterator<byte[]> iterator = snapshot.serializedElements()) {
+                while (iterator.hasNext()) {
+                    dov.write(iterator.next());
+                }
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Could not write the elements of the priority queue.", e);
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the elements of the key-group in the serialized form of the element
+     * serializer. The iterator must be closed.
+     */
+    public CloseableIterator<byte[]> getSerializedIteratorForKeyGroup(int keyGroupId) {
+        try {
+            return getSnapshot(keyGroupId).serializedElements();
+        } catch (IOException e) {
+            throw new FlinkRuntimeException(
+                    "Could not read the elements of the priority queue.", e);
+        }
+    }
+
+    @Override
+    public Iterator<T> getIteratorForKeyGroup(int keyGroupId) {
+        final TypeSerializer<T> elementSerializer =
+                getMetaInfo().getElementSerializer().duplicate();
+        final DataInputDeserializer inputView = new DataInputDeserializer();
+        final List<T> elements = new ArrayList<>(getSnapshot(keyGroupId).size());
+        try (CloseableIterator<byte[]> iterator = getSerializedIteratorForKeyGroup(keyGroupId)) {
+            while (iterator.hasNext()) {
+                inputView.setBuffer(iterator.next());
+                elements.add(elementSerializer.deserialize(inputView));
+            }
+        } catch (Exception e) {
+            throw new FlinkRuntimeException(
+                    "Could not read the elements of the priority queue.", e);
+        }
+        return elements.iterator();
+    }
+
+    private TieredPriorityQueueSet.Snapshot getSnapshot(int keyGroupId) {
+        return keyGroupSnapshots[keyGroupId - keyGroupRange.getStartKeyGroup()];
+    }
+
+    @Override
+    public void release() {
+        for (TieredPriorityQueueSet.Snapshot snapshot : keyGroupSnapshots) {
+            IOUtils.closeQuietly(snapshot);
+        }
+    }
+}
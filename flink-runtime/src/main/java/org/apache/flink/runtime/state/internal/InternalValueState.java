@@ -19,6 +19,13 @@
 package org.apache.flink.runtime.state.internal;
 
 import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The peer to the {@link ValueState} in the internal state type hierarchy.
@@ -29,4 +36,53 @@ import org.apache.flink.api.common.state.ValueState;
  * @param <N> The type of the namespace
  * @param <T> The type of elements in the list
  */
-public interface InternalValueState<K, N, T> extends InternalKvState<K, N, T>, ValueState<T> {}
+public interface InternalValueState<K, N, T> extends InternalKvState<K, N, T>, ValueState<T> {
+
+    /**
+     * Returns the values of the given keys under the current namespace, independent of the current
+     * key. This allows backends to fetch the state of many keys in one batch, e.g. at the end of a
+     * mini-batch.
+     *
+     * <p>Unlike {@link #value()}, keys without a value are not contained in the returned map, and
+     * no default value is returned for them.
+     *
+     * @param keys The keys to look up.
+     * @return The values of the keys which have a value under the current namespace.
+     * @throws IOException Thrown if the system cannot access the state.
+     */
+    Map<K, T> getAll(Collection<K> keys) throws IOException;
+
+    /**
+     * Updates the values of the given keys under the current namespace, independent of the current
+     * key. A {@code null} value removes the value of its key, like {@link #update(Object)} with
+     * {@code null}.
+     *
+     * @param values The new values of the keys.
+     * @throws IOException Thrown if the system cannot access the state.
+     */
+    void putAll(Map<K, T> values) throws IOException;
+
+    /**
+     * Reads the value of the given key under the current namespace, independent of the current key.
+     * Backends which have to go to disk for a read may serve it from another thread, so that the
+     * caller can keep several reads in flight. The key and namespace are captured when this method
+     * is called.
+     *
+     * <p>The returned future may be completed by any thread. Like {@link #getAll(Collection)}, it
+     * is completed with {@code null} instead of the default value if the key has no value. Callers
+     * must not modify the state of the key before the future is completed.
+     *
+     * <p>The default implementation reads the value synchronously.
+     *
+     * @param key The key to look up.
+     * @return The future value of the key.
+     */
+    default CompletableFuture<T> asyncValue(K key) {
+        try {
+            return CompletableFuture.completedFuture(
+                    getAll(Collections.singletonList(key)).get(key));
+        } catch (Throwable t) {
+            return FutureUtils.completedExceptionally(t);
+        }
+    }
+}
@@ -24,6 +24,10 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class wraps value state with TTL logic.
@@ -51,6 +55,52 @@ class TtlValueState<K, N, T>
         original.update(wrapWithTs(value));
     }
 
+    @Override
+    public Map<K, T> getAll(Collection<K> keys) throws IOException {
+        accessCallback.run();
+        Map<K, TtlValue<T>> ttlValues = original.getAll(keys);
+        Map<K, T> result = new HashMap<>(ttlValues.size());
+        // expired values are cleared and renewed timestamps written back in one batch
+        Map<K, TtlValue<T>> updates = new HashMap<>();
+        for (Map.Entry<K, TtlValue<T>> entry : ttlValues.entrySet()) {
+            TtlValue<T> ttlValue = entry.getValue();
+            if (expired(ttlValue)) {
+                updates.put(entry.getKey(), null);
+                if (!returnExpired) {
+                    continue;
+                }
+            } else if (updateTsOnRead) {
+                updates.put(entry.getKey(), rewrapWithNewTs(ttlValue));
+            }
+            result.put(entry.getKey(), ttlValue.getUserValue());
+        }
+        if (!updates.isEmpty()) {
+            original.putAll(updates);
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(Map<K, T> values) throws IOException {
+        accessCallback.run();
+        Map<K, TtlValue<T>> ttlValues = new HashMap<>(values.size());
+        for (Map.Entry<K, T> entry : values.entrySet()) {
+            T value = entry.getValue();
+            ttlValues.put(entry.getKey(), value == null ? null : wrapWithTs(value));
+        }
+        original.putAll(ttlValues);
+    }
+
+    /**
+     * Expired values are hidden, but not cleaned up by asynchronous reads, because the state must
+     * not be modified before the read is completed.
+     */
+    @Override
+    public CompletableFuture<T> asyncValue(K key) {
+        accessCallback.run();
+        return original.asyncValue(key).thenApply(this::getUnexpired);
+    }
+
     @Nullable
     @Override
     public TtlValue<T> getUnexpiredOrNull(@Nonnull TtlValue<T> ttlValue) {
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.taskmanager;
 
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
@@ -140,6 +141,20 @@ public class ConsumableNotifyingResultPartitionWriterDecorator {
             notifyPipelinedConsumers();
         }
 
+        @Override
+        public boolean isObjectExchange(int targetSubpartition) {
+            return partitionWriter.isObjectExchange(targetSubpartition);
+        }
+
+        @Override
+        public void emitObject(
+                Object record, int recordSize, TypeSerializer<?> serializer, int targetSubpartition)
+                throws IOException {
+            partitionWriter.emitObject(record, recordSize, serializer, targetSubpartition);
+
+            notifyPipelinedConsumers();
+        }
+
         @Override
         public void broadcastEvent(AbstractEvent event, boolean isPriorityEvent)
                 throws IOException {
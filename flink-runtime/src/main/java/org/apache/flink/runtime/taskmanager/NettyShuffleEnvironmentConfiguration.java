@@ -24,6 +24,7 @@ import org.apache.flink.configuration.MemorySize;
 import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
 import org.apache.flink.runtime.io.network.netty.NettyConfig;
 import org.apache.flink.runtime.io.network.partition.BoundedBlockingSubpartitionType;
+import org.apache.flink.runtime.throughput.BufferDebloatConfiguration;
 import org.apache.flink.runtime.util.ConfigurationParserUtils;
 import org.apache.flink.util.Preconditions;
 
@@ -67,6 +68,8 @@ public class NettyShuffleEnvironmentConfiguration {
 
     private final int sortShuffleMinParallelism;
 
+    private final long sortShuffleReadMemoryBytes;
+
     private final Duration requestSegmentsTimeout;
 
     private final boolean isNetworkDetailedMetrics;
@@ -81,8 +84,14 @@ public class NettyShuffleEnvironmentConfiguration {
 
     private final String compressionCodec;
 
+    private final String blockingShuffleCompressionCodec;
+
+    private final int compressionZstdLevel;
+
     private final int maxBuffersPerChannel;
 
+    private final BufferDebloatConfiguration debloatConfiguration;
+
     public NettyShuffleEnvironmentConfiguration(
             int numNetworkBuffers,
             int networkBufferSize,
@@ -97,9 +106,13 @@ public class NettyShuffleEnvironmentConfiguration {
             BoundedBlockingSubpartitionType blockingSubpartitionType,
             boolean blockingShuffleCompressionEnabled,
             String compressionCodec,
+            String blockingShuffleCompressionCodec,
+            int compressionZstdLevel,
             int maxBuffersPerChannel,
             int sortShuffleMinBuffers,
-            int sortShuffleMinParallelism) {
+            int sortShuffleMinParallelism,
+            long sortShuffleReadMemoryBytes,
+            BufferDebloatConfiguration debloatConfiguration) {
 
         this.numNetworkBuffers = numNetworkBuffers;
         this.networkBufferSize = networkBufferSize;
@@ -114,9 +127,14 @@ public class NettyShuffleEnvironmentConfiguration {
         this.blockingSubpartitionType = Preconditions.checkNotNull(blockingSubpartitionType);
         this.blockingShuffleCompressionEnabled = blockingShuffleCompressionEnabled;
         this.compressionCodec = Preconditions.checkNotNull(compressionCodec);
+        this.blockingShuffleCompressionCodec =
+                Preconditions.checkNotNull(blockingShuffleCompressionCodec);
+        this.compressionZstdLevel = compressionZstdLevel;
         this.maxBuffersPerChannel = maxBuffersPerChannel;
         this.sortShuffleMinBuffers = sortShuffleMinBuffers;
         this.sortShuffleMinParallelism = sortShuffleMinParallelism;
+        this.sortShuffleReadMemoryBytes = sortShuffleReadMemoryBytes;
+        this.debloatConfiguration = Preconditions.checkNotNull(debloatConfiguration);
     }
 
     // ------------------------------------------------------------------------
@@ -153,6 +171,10 @@ public class NettyShuffleEnvironmentConfiguration {
         return sortShuffleMinParallelism;
     }
 
+    public long sortShuffleReadMemoryBytes() {
+        return sortShuffleReadMemoryBytes;
+    }
+
     public Duration getRequestSegmentsTimeout() {
         return requestSegmentsTimeout;
     }
@@ -181,14 +203,30 @@ public class NettyShuffleEnvironmentConfiguration {
         return nettyConfig != null && nettyConfig.getSSLEnabled();
     }
 
+    public boolean isPipelinedShuffleCompressionEnabled() {
+        return nettyConfig != null && nettyConfig.isPipelinedShuffleCompressionEnabled();
+    }
+
     public String getCompressionCodec() {
         return compressionCodec;
     }
 
+    public String getBlockingShuffleCompressionCodec() {
+        return blockingShuffleCompressionCodec;
+    }
+
+    public int getCompressionZstdLevel() {
+        return compressionZstdLevel;
+    }
+
     public int getMaxBuffersPerChannel() {
         return maxBuffersPerChannel;
     }
 
+    public BufferDebloatConfiguration getDebloatConfiguration() {
+        return debloatConfiguration;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -246,6 +284,10 @@ public class NettyShuffleEnvironmentConfiguration {
         int sortShuffleMinParallelism =
                 configuration.getInteger(
                         NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_MIN_PARALLELISM);
+        long sortShuffleReadMemoryBytes =
+                configuration
+                        .get(NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_READ_MEMORY)
+                        .getBytes();
 
         boolean isNetworkDetailedMetrics =
                 configuration.getBoolean(NettyShuffleEnvironmentOptions.NETWORK_DETAILED_METRICS);
@@ -266,6 +308,16 @@ public class NettyShuffleEnvironmentConfiguration {
                         NettyShuffleEnvironmentOptions.BLOCKING_SHUFFLE_COMPRESSION_ENABLED);
         String compressionCodec =
                 configuration.getString(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_CODEC);
+        String blockingShuffleCompressionCodec =
+                configuration
+                        .getOptional(
+                                NettyShuffleEnvironmentOptions.BLOCKING_SHUFFLE_COMPRESSION_CODEC)
+                        .orElse(compressionCodec);
+        int compressionZstdLevel =
+                configuration.get(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_ZSTD_LEVEL);
+
+        BufferDebloatConfiguration debloatConfiguration =
+                BufferDebloatConfiguration.fromConfiguration(configuration);
 
         return new NettyShuffleEnvironmentConfiguration(
                 numberOfNetworkBuffers,
@@ -281,9 +333,13 @@ public class NettyShuffleEnvironmentConfiguration {
                 blockingSubpartitionType,
                 blockingShuffleCompressionEnabled,
                 compressionCodec,
+                blockingShuffleCompressionCodec,
+                compressionZstdLevel,
                 maxBuffersPerChannel,
                 sortShuffleMinBuffers,
-                sortShuffleMinParallelism);
+                sortShuffleMinParallelism,
+                sortShuffleReadMemoryBytes,
+                debloatConfiguration);
     }
 
     /**
@@ -416,9 +472,13 @@ public class NettyShuffleEnvironmentConfiguration {
         result = 31 * result + Arrays.hashCode(tempDirs);
         result = 31 * result + (blockingShuffleCompressionEnabled ? 1 : 0);
         result = 31 * result + Objects.hashCode(compressionCodec);
+        result = 31 * result + Objects.hashCode(blockingShuffleCompressionCodec);
+        result = 31 * result + compressionZstdLevel;
         result = 31 * result + maxBuffersPerChannel;
         result = 31 * result + sortShuffleMinBuffers;
         result = 31 * result + sortShuffleMinParallelism;
+        result = 31 * result + Long.hashCode(sortShuffleReadMemoryBytes);
+        result = 31 * result + debloatConfiguration.hashCode();
         return result;
     }
 
@@ -440,6 +500,7 @@ public class NettyShuffleEnvironmentConfiguration {
                     && this.floatingNetworkBuffersPerGate == that.floatingNetworkBuffersPerGate
                     && this.sortShuffleMinBuffers == that.sortShuffleMinBuffers
                     && this.sortShuffleMinParallelism == that.sortShuffleMinParallelism
+                    && this.sortShuffleReadMemoryBytes == that.sortShuffleReadMemoryBytes
                     && this.requestSegmentsTimeout.equals(that.requestSegmentsTimeout)
                     && (nettyConfig != null
                             ? nettyConfig.equals(that.nettyConfig)
@@ -448,7 +509,12 @@ public class NettyShuffleEnvironmentConfiguration {
                     && this.blockingShuffleCompressionEnabled
                             == that.blockingShuffleCompressionEnabled
                     && this.maxBuffersPerChannel == that.maxBuffersPerChannel
-                    && Objects.equals(this.compressionCodec, that.compressionCodec);
+                    && Objects.equals(this.compressionCodec, that.compressionCodec)
+                    && Objects.equals(
+                            this.blockingShuffleCompressionCodec,
+                            that.blockingShuffleCompressionCodec)
+                    && this.compressionZstdLevel == that.compressionZstdLevel
+                    && this.debloatConfiguration.equals(that.debloatConfiguration);
         }
     }
 
@@ -477,12 +543,20 @@ public class NettyShuffleEnvironmentConfiguration {
                 + blockingShuffleCompressionEnabled
                 + ", compressionCodec="
                 + compressionCodec
+                + ", blockingShuffleCompressionCodec="
+                + blockingShuffleCompressionCodec
+                + ", compressionZstdLevel="
+                + compressionZstdLevel
                 + ", maxBuffersPerChannel="
                 + maxBuffersPerChannel
                 + ", sortShuffleMinBuffers="
                 + sortShuffleMinBuffers
                 + ", sortShuffleMinParallelism="
                 + sortShuffleMinParallelism
+                + ", sortShuffleReadMemoryBytes="
+                + sortShuffleReadMemoryBytes
+                + ", debloatConfiguration="
+                + debloatConfiguration
                 + '}';
     }
 }
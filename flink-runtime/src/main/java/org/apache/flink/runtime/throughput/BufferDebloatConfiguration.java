@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.throughput;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
+import org.apache.flink.runtime.util.ConfigurationParserUtils;
+import org.apache.flink.util.MathUtils;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/** Configuration of buffer debloating, see {@link BufferDebloater}. */
+public final class BufferDebloatConfiguration {
+
+    private final boolean enabled;
+
+    private final Duration targetTotalTime;
+
+    private final Duration period;
+
+    private final int minBufferSize;
+
+    private final int maxBufferSize;
+
+    private final int numberOfSamples;
+
+    private final int thresholdPercentages;
+
+    public BufferDebloatConfiguration(
+            boolean enabled,
+            Duration targetTotalTime,
+            Duration period,
+            int minBufferSize,
+            int maxBufferSize,
+            int numberOfSamples,
+            int thresholdPercentages) {
+        checkArgument(!targetTotalTime.isNegative(), "The target time must not be negative.");
+        checkArgument(!period.isNegative() && !period.isZero(), "The period must be positive.");
+        checkArgument(
+                minBufferSize > 0 && minBufferSize <= maxBufferSize,
+                "The minimum buffer size must be positive and not larger than the maximum buffer size.");
+        checkArgument(numberOfSamples > 0, "The number of samples must be positive.");
+        checkArgument(
+                thresholdPercentages >= 0 && thresholdPercentages <= 100,
+                "The threshold must be between 0 and 100 percent.");
+        this.enabled = enabled;
+        this.targetTotalTime = checkNotNull(targetTotalTime);
+        this.period = checkNotNull(period);
+        this.minBufferSize = minBufferSize;
+        this.maxBufferSize = maxBufferSize;
+        this.numberOfSamples = numberOfSamples;
+        this.thresholdPercentages = thresholdPercentages;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Duration getTargetTotalTime() {
+        return targetTotalTime;
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+
+    public int getMinBufferSize() {
+        return minBufferSize;
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public int getNumberOfSamples() {
+        return numberOfSamples;
+    }
+
+    public int getThresholdPercentages() {
+        return thresholdPercentages;
+    }
+
+    public static BufferDebloatConfiguration fromConfiguration(Configuration configuration) {
+        int maxBufferSize = ConfigurationParserUtils.getPageSize(configuration);
+        int minBufferSize =
+                Math.min(
+                        MathUtils.checkedDownCast(
+                                configuration
+                                        .get(
+                                                NettyShuffleEnvironmentOptions
+                                                        .BUFFER_DEBLOAT_MIN_BUFFER_SIZE)
+                                        .getBytes()),
+                        maxBufferSize);
+
+        return new BufferDebloatConfiguration(
+                configuration.get(NettyShuffleEnvironmentOptions.BUFFER_DEBLOAT_ENABLED),
+                configuration.get(NettyShuffleEnvironmentOptions.BUFFER_DEBLOAT_TARGET),
+                configuration.get(NettyShuffleEnvironmentOptions.BUFFER_DEBLOAT_PERIOD),
+                minBufferSize,
+                maxBufferSize,
+                configuration.get(NettyShuffleEnvironmentOptions.BUFFER_DEBLOAT_SAMPLES),
+                configuration.get(
+                        NettyShuffleEnvironmentOptions.BUFFER_DEBLOAT_THRESHOLD_PERCENTAGES));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BufferDebloatConfiguration that = (BufferDebloatConfiguration) o;
+        return enabled == that.enabled
+                && minBufferSize == that.minBufferSize
+                && maxBufferSize == that.maxBufferSize
+                && numberOfSamples == that.numberOfSamples
+                && thresholdPercentages == that.thresholdPercentages
+                && targetTotalTime.equals(that.targetTotalTime)
+                && period.equals(that.period);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                enabled,
+                targetTotalTime,
+                period,
+                minBufferSize,
+                maxBufferSize,
+                numberOfSamples,
+                thresholdPercentages);
+    }
+
+    @Override
+    public String toString() {
+        return "BufferDebloatConfiguration{"
+                + "enabled="
+                + enabled
+                + ", targetTotalTime="
+                + targetTotalTime
+                + ", period="
+                + period
+                + ", minBufferSize="
+                + minBufferSize
+                + ", maxBufferSize="
+                + maxBufferSize
+                + ", numberOfSamples="
+                + numberOfSamples
+                + ", thresholdPercentages="
+                + thresholdPercentages
+                + '}';
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.throughput;
+
+import java.util.OptionalInt;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Calculates the buffer size of an input gate from the throughput of its task, so that the buffered
+ * in-flight data of the gate can be consumed within a target time.
+ *
+ * <p>The desired buffer size is the amount of data that can be consumed within the target time,
+ * divided by the number of buffers in use. To smooth out fluctuations of the measured throughput,
+ * the buffer size follows the desired buffer size as an exponential moving average. A new buffer
+ * size is only announced if it differs noticeably from the previous one.
+ *
+ * <p>The buffer size is calculated by the task thread and read by metrics from other threads.
+ */
+public class BufferDebloater {
+
+    private static final long MILLIS_IN_SECOND = 1000;
+
+    private final long targetTotalTimeMillis;
+
+    private final int minBufferSize;
+
+    private final int maxBufferSize;
+
+    /** The weight of the latest desired buffer size in the moving average. */
+    private final double alpha;
+
+    private final double thresholdFactor;
+
+    /** The exponential moving average of the desired buffer size. */
+    private double bufferSizeAverage;
+
+    private volatile int lastBufferSize;
+
+    private volatile long lastEstimatedTimeToConsumeBuffersMs;
+
+    private volatile long lastEstimatedInFlightDataBytes;
+
+    public BufferDebloater(BufferDebloatConfiguration configuration) {
+        checkNotNull(configuration);
+        this.targetTotalTimeMillis = configuration.getTargetTotalTime().toMillis();
+        this.minBufferSize = configuration.getMinBufferSize();
+        this.maxBufferSize = configuration.getMaxBufferSize();
+        this.alpha = 2.0 / (configuration.getNumberOfSamples() + 1);
+        this.thresholdFactor = configuration.getThresholdPercentages() / 100.0;
+        this.bufferSizeAverage = maxBufferSize;
+        this.lastBufferSize = maxBufferSize;
+    }
+
+    /**
+     * Recalculates the buffer size.
+     *
+     * @param currentThroughput the throughput of the task in bytes per second
+     * @param buffersInUse the number of buffers of the gate which are in flight
+     * @return the new buffer size, or empty if it does not differ enough from the last one
+     */
+    public OptionalInt recalculateBufferSize(long currentThroughput, int buffersInUse) {
+        int actualBuffersInUse = Math.max(1, buffersInUse);
+        long desiredTotalBufferSize = currentThroughput * targetTotalTimeMillis / MILLIS_IN_SECOND;
+        long desiredBufferSize =
+                Math.max(
+                        minBufferSize,
+                        Math.min(maxBufferSize, desiredTotalBufferSize / actualBuffersInUse));
+
+        bufferSizeAverage = alpha * desiredBufferSize + (1 - alpha) * bufferSizeAverage;
+        int newBufferSize =
+                (int) Math.max(minBufferSize, Math.min(maxBufferSize, bufferSizeAverage));
+
+        boolean skipUpdate = skipUpdate(newBufferSize);
+        if (!skipUpdate) {
+            lastBufferSize = newBufferSize;
+        }
+
+        lastEstimatedInFlightDataBytes = (long) lastBufferSize * actualBuffersInUse;
+        lastEstimatedTimeToConsumeBuffersMs =
+                lastEstimatedInFlightDataBytes * MILLIS_IN_SECOND / Math.max(1, currentThroughput);
+
+        return skipUpdate ? OptionalInt.empty() : OptionalInt.of(newBufferSize);
+    }
+
+    private boolean skipUpdate(int newBufferSize) {
+        if (newBufferSize == lastBufferSize) {
+            return true;
+        }
+        // always reach the bounds, the threshold would prevent that for small differences
+        if (newBufferSize == minBufferSize || newBufferSize == maxBufferSize) {
+            return false;
+        }
+        return Math.abs(newBufferSize - lastBufferSize) < lastBufferSize * thresholdFactor;
+    }
+
+    /** Returns the last announced buffer size. */
+    public int getLastBufferSize() {
+        return lastBufferSize;
+    }
+
+    /** Returns the estimated time to consume the in-flight data as of the last recalculation. */
+    public long getEstimatedTimeToConsumeBuffersMs() {
+        return lastEstimatedTimeToConsumeBuffersMs;
+    }
+
+    /** Returns the estimated size of the in-flight data as of the last recalculation. */
+    public long getEstimatedInFlightDataBytes() {
+        return lastEstimatedInFlightDataBytes;
+    }
+}
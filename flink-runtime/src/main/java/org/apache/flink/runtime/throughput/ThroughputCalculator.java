@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.throughput;
+
+import org.apache.flink.util.clock.Clock;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Measures the throughput of a consumer, i.e. the number of bytes it consumes per second.
+ *
+ * <p>Time in which the consumer is idle because no data is available can be excluded from the
+ * measurement via {@link #pauseMeasurement()}. Otherwise, a slow producer would make the consumer
+ * look slow as well. The measurement is resumed by {@link #resumeMeasurement()} or automatically
+ * when data is consumed again.
+ *
+ * <p>This class is not thread safe.
+ */
+public class ThroughputCalculator {
+
+    private static final long NOT_TRACKED = -1;
+
+    private static final long MILLIS_IN_SECOND = 1000;
+
+    private final Clock clock;
+
+    /** The bytes consumed since the last calculation. */
+    private long currentAccumulatedDataSize;
+
+    /** The measured time since the last calculation, excluding the paused time. */
+    private long currentMeasurementTime;
+
+    /** The start of the currently running measurement, or {@link #NOT_TRACKED} if paused. */
+    private long measurementStartTime = NOT_TRACKED;
+
+    /** The throughput in bytes per second as of the last calculation. */
+    private long currentThroughput;
+
+    public ThroughputCalculator(Clock clock) {
+        this.clock = checkNotNull(clock);
+    }
+
+    /** Accounts the consumed bytes, resuming the measurement if it was paused. */
+    public void incomingDataSize(long receivedDataSize) {
+        resumeMeasurement();
+        currentAccumulatedDataSize += receivedDataSize;
+    }
+
+    /** Excludes the following time from the measurement until it is resumed. */
+    public void pauseMeasurement() {
+        if (measurementStartTime != NOT_TRACKED) {
+            currentMeasurementTime += clock.absoluteTimeMillis() - measurementStartTime;
+            measurementStartTime = NOT_TRACKED;
+        }
+    }
+
+    /** Includes the following time in the measurement. */
+    public void resumeMeasurement() {
+        if (measurementStartTime == NOT_TRACKED) {
+            measurementStartTime = clock.absoluteTimeMillis();
+        }
+    }
+
+    /**
+     * Calculates the throughput since the last calculation and starts a new measurement.
+     *
+     * @return the throughput in bytes per second, or the previous throughput if no time has been
+     *     measured since the last calculation.
+     */
+    public long calculateThroughput() {
+        if (measurementStartTime != NOT_TRACKED) {
+            long now = clock.absoluteTimeMillis();
+            currentMeasurementTime += now - measurementStartTime;
+            measurementStartTime = now;
+        }
+
+        long throughput = calculateThroughput(currentAccumulatedDataSize, currentMeasurementTime);
+        currentAccumulatedDataSize = 0;
+        currentMeasurementTime = 0;
+        return throughput;
+    }
+
+    private long calculateThroughput(long dataSize, long time) {
+        checkArgument(dataSize >= 0, "Size of data should be non negative");
+        checkArgument(time >= 0, "Time should be non negative");
+
+        if (time > 0) {
+            currentThroughput = dataSize * MILLIS_IN_SECOND / time;
+        }
+        return currentThroughput;
+    }
+}
@@ -25,13 +25,49 @@ import java.nio.ByteBuffer;
 
 import static org.apache.flink.runtime.io.compression.Lz4BlockCompressionFactory.HEADER_LENGTH;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /** Tests for block compression. */
 public class BlockCompressionTest {
 
     @Test
     public void testLz4() {
-        BlockCompressionFactory factory = new Lz4BlockCompressionFactory();
+        runTests(new Lz4BlockCompressionFactory());
+    }
+
+    @Test
+    public void testZstd() {
+        runTests(new ZstdBlockCompressionFactory());
+        runTests(new ZstdBlockCompressionFactory(1));
+        runTests(new ZstdBlockCompressionFactory(19));
+    }
+
+    @Test
+    public void testSnappy() {
+        runTests(new SnappyBlockCompressionFactory());
+    }
+
+    @Test
+    public void testCreateFactoryByName() {
+        assertTrue(
+                BlockCompressionFactory.createBlockCompressionFactory("lz4")
+                        instanceof Lz4BlockCompressionFactory);
+        assertTrue(
+                BlockCompressionFactory.createBlockCompressionFactory("SNAPPY")
+                        instanceof SnappyBlockCompressionFactory);
+
+        BlockCompressionFactory zstdFactory =
+                BlockCompressionFactory.createBlockCompressionFactory("ZSTD", 9);
+        assertTrue(zstdFactory instanceof ZstdBlockCompressionFactory);
+        assertEquals(9, ((ZstdBlockCompressionFactory) zstdFactory).getLevel());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidZstdLevel() {
+        new ZstdBlockCompressionFactory(0);
+    }
+
+    private void runTests(BlockCompressionFactory factory) {
         runArrayTest(factory, 32768);
         runArrayTest(factory, 16);
 
@@ -39,6 +75,9 @@ public class BlockCompressionTest {
         runByteBufferTest(factory, false, 16);
         runByteBufferTest(factory, true, 32768);
         runByteBufferTest(factory, true, 16);
+
+        runMixedByteBufferTest(factory, true, 32768);
+        runMixedByteBufferTest(factory, false, 32768);
     }
 
     private void runArrayTest(BlockCompressionFactory factory, int originalLen) {
@@ -166,4 +205,43 @@ public class BlockCompressionTest {
             assertEquals((byte) i, decompressedData.get());
         }
     }
+
+    /** Compresses from and decompresses to a different kind of buffer than the compressed data. */
+    private void runMixedByteBufferTest(
+            BlockCompressionFactory factory, boolean isDirect, int originalLen) {
+        BlockCompressor compressor = factory.getCompressor();
+        BlockDecompressor decompressor = factory.getDecompressor();
+
+        ByteBuffer data =
+                isDirect
+                        ? ByteBuffer.allocateDirect(originalLen)
+                        : ByteBuffer.allocate(originalLen);
+        for (int i = 0; i < originalLen; i++) {
+            data.put((byte) i);
+        }
+        data.flip();
+
+        int maxCompressedLen = compressor.getMaxCompressedSize(originalLen);
+        ByteBuffer compressedData =
+                isDirect
+                        ? ByteBuffer.allocate(maxCompressedLen)
+                        : ByteBuffer.allocateDirect(maxCompressedLen);
+        int compressedLen = compressor.compress(data, 0, originalLen, compressedData, 0);
+        assertEquals(compressedLen, compressedData.position());
+        compressedData.flip();
+
+        ByteBuffer decompressedData =
+                isDirect
+                        ? ByteBuffer.allocateDirect(originalLen)
+                        : ByteBuffer.allocate(originalLen);
+        int decompressedLen =
+                decompressor.decompress(compressedData, 0, compressedLen, decompressedData, 0);
+        assertEquals(originalLen, decompressedLen);
+        assertEquals(decompressedLen, decompressedData.position());
+        decompressedData.flip();
+
+        for (int i = 0; i < decompressedLen; i++) {
+            assertEquals((byte) i, decompressedData.get());
+        }
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk;
+
+import org.apache.flink.core.memory.MemorySegment;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link BatchShuffleReadBufferPool}. */
+public class BatchShuffleReadBufferPoolTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalTotalBytes() {
+        new BatchShuffleReadBufferPool(1024, 2048);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalBufferSize() {
+        new BatchShuffleReadBufferPool(1024, 0);
+    }
+
+    @Test
+    public void testRequestBuffers() {
+        BatchShuffleReadBufferPool bufferPool = new BatchShuffleReadBufferPool(10 * 1024, 1024);
+        try {
+            assertEquals(10, bufferPool.getNumTotalBuffers());
+            assertEquals(10, bufferPool.getNumBuffersPerRequest());
+
+            List<MemorySegment> buffers = bufferPool.requestBuffers();
+            assertEquals(10, buffers.size());
+            assertEquals(0, bufferPool.getNumAvailableBuffers());
+            assertTrue(bufferPool.requestBuffers().isEmpty());
+
+            bufferPool.recycle(buffers.remove(0));
+            assertEquals(1, bufferPool.getNumAvailableBuffers());
+            bufferPool.recycle(buffers);
+            assertEquals(10, bufferPool.getNumAvailableBuffers());
+        } finally {
+            bufferPool.destroy();
+        }
+    }
+
+    @Test
+    public void testNumBuffersPerRequestIsLimited() {
+        int bufferSize = 1024 * 1024;
+        BatchShuffleReadBufferPool bufferPool =
+                new BatchShuffleReadBufferPool(8L * bufferSize, bufferSize);
+        try {
+            assertEquals(4, bufferPool.getNumBuffersPerRequest());
+
+            List<MemorySegment> buffers = new ArrayList<>(bufferPool.requestBuffers());
+            assertEquals(4, buffers.size());
+            buffers.addAll(bufferPool.requestBuffers());
+            assertEquals(8, buffers.size());
+
+            bufferPool.recycle(buffers);
+        } finally {
+            bufferPool.destroy();
+        }
+    }
+
+    @Test
+    public void testRecycleAfterDestroy() {
+        BatchShuffleReadBufferPool bufferPool = new BatchShuffleReadBufferPool(10 * 1024, 1024);
+        List<MemorySegment> buffers = bufferPool.requestBuffers();
+        bufferPool.destroy();
+        assertTrue(bufferPool.isDestroyed());
+
+        bufferPool.recycle(buffers);
+        assertEquals(0, bufferPool.getNumAvailableBuffers());
+        for (MemorySegment buffer : buffers) {
+            assertTrue(buffer.isFreed());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRequestBuffersAfterDestroy() {
+        BatchShuffleReadBufferPool bufferPool = new BatchShuffleReadBufferPool(10 * 1024, 1024);
+        bufferPool.destroy();
+        bufferPool.requestBuffers();
+    }
+}
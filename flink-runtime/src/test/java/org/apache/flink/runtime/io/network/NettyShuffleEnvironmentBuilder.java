@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network;
 
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.concurrent.Executors;
@@ -26,6 +27,7 @@ import org.apache.flink.runtime.io.network.partition.BoundedBlockingSubpartition
 import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
 import org.apache.flink.runtime.metrics.groups.UnregisteredMetricGroups;
 import org.apache.flink.runtime.taskmanager.NettyShuffleEnvironmentConfiguration;
+import org.apache.flink.runtime.throughput.BufferDebloatConfiguration;
 import org.apache.flink.runtime.util.EnvironmentInformation;
 
 import java.time.Duration;
@@ -58,12 +60,22 @@ public class NettyShuffleEnvironmentBuilder {
 
     private int sortShuffleMinParallelism = Integer.MAX_VALUE;
 
+    private long sortShuffleReadMemoryBytes =
+            NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_READ_MEMORY
+                    .defaultValue()
+                    .getBytes();
+
     private int maxBuffersPerChannel = Integer.MAX_VALUE;
 
     private boolean blockingShuffleCompressionEnabled = false;
 
     private String compressionCodec = "LZ4";
 
+    private String blockingShuffleCompressionCodec;
+
+    private int compressionZstdLevel =
+            NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_ZSTD_LEVEL.defaultValue();
+
     private ResourceID taskManagerLocation = ResourceID.generate();
 
     private NettyConfig nettyConfig;
@@ -75,6 +87,8 @@ public class NettyShuffleEnvironmentBuilder {
 
     private Executor ioExecutor = Executors.directExecutor();
 
+    private boolean bufferDebloatEnabled = false;
+
     public NettyShuffleEnvironmentBuilder setTaskManagerLocation(ResourceID taskManagerLocation) {
         this.taskManagerLocation = taskManagerLocation;
         return this;
@@ -130,6 +144,12 @@ public class NettyShuffleEnvironmentBuilder {
         return this;
     }
 
+    public NettyShuffleEnvironmentBuilder setSortShuffleReadMemoryBytes(
+            long sortShuffleReadMemoryBytes) {
+        this.sortShuffleReadMemoryBytes = sortShuffleReadMemoryBytes;
+        return this;
+    }
+
     public NettyShuffleEnvironmentBuilder setBlockingShuffleCompressionEnabled(
             boolean blockingShuffleCompressionEnabled) {
         this.blockingShuffleCompressionEnabled = blockingShuffleCompressionEnabled;
@@ -141,6 +161,17 @@ public class NettyShuffleEnvironmentBuilder {
         return this;
     }
 
+    public NettyShuffleEnvironmentBuilder setBlockingShuffleCompressionCodec(
+            String blockingShuffleCompressionCodec) {
+        this.blockingShuffleCompressionCodec = blockingShuffleCompressionCodec;
+        return this;
+    }
+
+    public NettyShuffleEnvironmentBuilder setCompressionZstdLevel(int compressionZstdLevel) {
+        this.compressionZstdLevel = compressionZstdLevel;
+        return this;
+    }
+
     public NettyShuffleEnvironmentBuilder setNettyConfig(NettyConfig nettyConfig) {
         this.nettyConfig = nettyConfig;
         return this;
@@ -157,6 +188,11 @@ public class NettyShuffleEnvironmentBuilder {
         return this;
     }
 
+    public NettyShuffleEnvironmentBuilder setBufferDebloatEnabled(boolean bufferDebloatEnabled) {
+        this.bufferDebloatEnabled = bufferDebloatEnabled;
+        return this;
+    }
+
     public NettyShuffleEnvironmentBuilder setIoExecutor(Executor ioExecutor) {
         this.ioExecutor = ioExecutor;
         return this;
@@ -178,9 +214,22 @@ public class NettyShuffleEnvironmentBuilder {
                         BoundedBlockingSubpartitionType.AUTO,
                         blockingShuffleCompressionEnabled,
                         compressionCodec,
+                        blockingShuffleCompressionCodec != null
+                                ? blockingShuffleCompressionCodec
+                                : compressionCodec,
+                        compressionZstdLevel,
                         maxBuffersPerChannel,
                         sortShuffleMinBuffers,
-                        sortShuffleMinParallelism),
+                        sortShuffleMinParallelism,
+                        sortShuffleReadMemoryBytes,
+                        new BufferDebloatConfiguration(
+                                bufferDebloatEnabled,
+                                Duration.ofSeconds(1),
+                                Duration.ofMillis(200),
+                                Math.min(256, bufferSize),
+                                bufferSize,
+                                20,
+                                25)),
                 taskManagerLocation,
                 new TaskEventDispatcher(),
                 resultPartitionManager,
@@ -70,6 +70,33 @@ public class BufferBuilderAndConsumerTest {
         assertContent(bufferConsumer, intsToWrite);
     }
 
+    @Test
+    public void trimLimitsTheCapacity() {
+        BufferBuilder bufferBuilder = createBufferBuilder();
+        BufferConsumer bufferConsumer = bufferBuilder.createBufferConsumer();
+
+        bufferBuilder.appendAndCommit(toByteBuffer(1, 2));
+        bufferBuilder.trim(3 * Integer.BYTES);
+        assertEquals(3 * Integer.BYTES, bufferBuilder.getMaxCapacity());
+
+        assertEquals(Integer.BYTES, bufferBuilder.appendAndCommit(toByteBuffer(3, 4)));
+        assertTrue(bufferBuilder.isFull());
+        assertContent(bufferConsumer, 1, 2, 3);
+    }
+
+    @Test
+    public void trimNeverDropsWrittenData() {
+        BufferBuilder bufferBuilder = createBufferBuilder();
+
+        bufferBuilder.appendAndCommit(toByteBuffer(1, 2));
+        bufferBuilder.trim(1);
+        assertEquals(2 * Integer.BYTES, bufferBuilder.getMaxCapacity());
+        assertTrue(bufferBuilder.isFull());
+
+        bufferBuilder.trim(Integer.MAX_VALUE);
+        assertEquals(BUFFER_SIZE, bufferBuilder.getMaxCapacity());
+    }
+
     @Test
     public void multipleAppends() {
         BufferBuilder bufferBuilder = createBufferBuilder();
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
+import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
+import org.apache.flink.runtime.plugable.DeserializationDelegate;
+import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link ObjectBuffer} and {@link ObjectBufferBuilder}. */
+public class ObjectBufferTest extends TestLogger {
+
+    private static final int RECORD_SIZE = ObjectBufferBuilder.MIN_RECORD_SIZE;
+
+    private static final int BUFFER_SIZE = 4 * RECORD_SIZE;
+
+    @Test
+    public void testConsumerSeesAppendedRecords() {
+        ObjectBufferBuilder builder = createObjectBufferBuilder();
+        BufferConsumer consumer = builder.createBufferConsumer();
+
+        String first = "first";
+        builder.append(first, RECORD_SIZE);
+        ObjectBuffer buffer = (ObjectBuffer) consumer.build();
+        assertEquals(1, buffer.readableBytes());
+        assertSame(first, buffer.nextRecord());
+        assertEquals(0, buffer.readableBytes());
+        buffer.recycleBuffer();
+
+        builder.append("second", RECORD_SIZE);
+        builder.append("third", RECORD_SIZE);
+        assertEquals(3, builder.finish());
+        buffer = (ObjectBuffer) consumer.build();
+        assertEquals(Arrays.asList("second", "third"), readAll(buffer));
+        assertTrue(consumer.isFinished());
+        buffer.recycleBuffer();
+        consumer.close();
+    }
+
+    @Test
+    public void testCapacityIsBoundedByNetworkBuffer() {
+        ObjectBufferBuilder builder = createObjectBufferBuilder();
+        for (int i = 0; i < BUFFER_SIZE / RECORD_SIZE; i++) {
+            assertFalse(builder.isFull());
+            // tiny records count as the minimum record size
+            builder.append(String.valueOf(i), 1);
+        }
+        assertTrue(builder.isFull());
+    }
+
+    @Test
+    public void testCapacityIsBoundedBySerializedSize() {
+        ObjectBufferBuilder builder = createObjectBufferBuilder();
+        BufferConsumer consumer = builder.createBufferConsumer();
+
+        builder.append("first", BUFFER_SIZE / 2);
+        assertFalse(builder.isFull());
+        builder.append("second", BUFFER_SIZE / 4);
+        assertFalse(builder.isFull());
+        builder.append("third", BUFFER_SIZE / 4);
+        assertTrue(builder.isFull());
+
+        ObjectBuffer buffer = (ObjectBuffer) consumer.build();
+        assertEquals(3, buffer.readableBytes());
+        assertEquals(BUFFER_SIZE, buffer.getOccupiedBytes());
+        ObjectBuffer slice = buffer.readOnlySlice(1, 1);
+        assertEquals(BUFFER_SIZE / 4, slice.getOccupiedBytes());
+        buffer.recycleBuffer();
+        consumer.close();
+    }
+
+    @Test
+    public void testRecordLargerThanNetworkBuffer() {
+        ObjectBufferBuilder builder = createObjectBufferBuilder();
+        builder.append("large", 2 * BUFFER_SIZE);
+        assertTrue(builder.isFull());
+    }
+
+    @Test
+    public void testOccupiedBytesOfSlices() {
+        ObjectBufferBuilder builder = createObjectBufferBuilder();
+        BufferConsumer consumer = builder.createBufferConsumer();
+
+        builder.append("first", RECORD_SIZE);
+        Buffer buffer = consumer.build();
+        assertEquals(
+                ObjectBufferBuilder.MIN_RECORD_SIZE, ((ObjectBuffer) buffer).getOccupiedBytes());
+        buffer.recycleBuffer();
+
+        while (!builder.isFull()) {
+            builder.append("next", RECORD_SIZE);
+        }
+        buffer = consumer.build();
+        assertEquals(
+                BUFFER_SIZE - ObjectBufferBuilder.MIN_RECORD_SIZE,
+                ((ObjectBuffer) buffer).getOccupiedBytes());
+        buffer.recycleBuffer();
+        consumer.close();
+    }
+
+    @Test
+    public void testNetworkBufferIsRecycledWithLastSlice() throws Exception {
+        NetworkBufferPool globalPool = new NetworkBufferPool(1, BUFFER_SIZE);
+        try {
+            BufferPool localPool = globalPool.createBufferPool(1, 1);
+            ObjectBufferBuilder builder =
+                    new ObjectBufferBuilder(
+                            localPool.requestBufferBuilder(), StringSerializer.INSTANCE);
+            BufferConsumer consumer = builder.createBufferConsumer();
+            builder.append("record", RECORD_SIZE);
+            builder.finish();
+
+            Buffer buffer = consumer.build();
+            consumer.close();
+            assertEquals(0, localPool.getNumberOfAvailableMemorySegments());
+            assertFalse(buffer.isRecycled());
+
+            buffer.recycleBuffer();
+            assertTrue(buffer.isRecycled());
+            assertEquals(1, localPool.getNumberOfAvailableMemorySegments());
+        } finally {
+            globalPool.destroyAllBufferPools();
+            globalPool.destroy();
+        }
+    }
+
+    @Test
+    public void testDeserializeObjectAndSerializedBuffers() throws Exception {
+        ObjectBufferBuilder builder = createObjectBufferBuilder();
+        BufferConsumer consumer = builder.createBufferConsumer();
+        builder.append("a", RECORD_SIZE);
+        builder.append("b", RECORD_SIZE);
+        builder.append("c", RECORD_SIZE);
+        builder.finish();
+
+        ObjectBuffer buffer = (ObjectBuffer) consumer.build();
+        consumer.close();
+        assertEquals("a", buffer.nextRecord());
+        // only the unread records are serialized
+        Buffer serialized = buffer.serialize();
+
+        RecordDeserializer<DeserializationDelegate<String>> deserializer =
+                new SpillingAdaptiveSpanningRecordDeserializer<>(
+                        new String[] {System.getProperty("java.io.tmpdir")});
+        DeserializationDelegate<String> delegate =
+                new NonReusingDeserializationDelegate<>(StringSerializer.INSTANCE);
+        List<String> records = new ArrayList<>();
+
+        deserializer.setNextBuffer(buffer);
+        readAll(deserializer, delegate, records);
+        deserializer.setNextBuffer(serialized);
+        readAll(deserializer, delegate, records);
+
+        assertEquals(Arrays.asList("b", "c", "b", "c"), records);
+        assertTrue(buffer.isRecycled());
+        assertTrue(serialized.isRecycled());
+    }
+
+    private static void readAll(
+            RecordDeserializer<DeserializationDelegate<String>> deserializer,
+            DeserializationDelegate<String> delegate,
+            List<String> records)
+            throws Exception {
+        DeserializationResult result;
+        do {
+            result = deserializer.getNextRecord(delegate);
+            assertTrue(result.isFullRecord());
+            records.add(delegate.getInstance());
+        } while (!result.isBufferConsumed());
+    }
+
+    private static List<Object> readAll(ObjectBuffer buffer) {
+        List<Object> records = new ArrayList<>();
+        while (buffer.readableBytes() > 0) {
+            records.add(buffer.nextRecord());
+        }
+        return records;
+    }
+
+    private static ObjectBufferBuilder createObjectBufferBuilder() {
+        return new ObjectBufferBuilder(
+                BufferBuilderTestUtils.createBufferBuilder(BUFFER_SIZE), StringSerializer.INSTANCE);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.apache.flink.runtime.io.network.netty.AdaptiveBufferCompressor.MIN_NUM_UNCOMPRESSED_BUFFERS;
+import static org.apache.flink.runtime.io.network.netty.AdaptiveBufferCompressor.NUM_SAMPLE_BUFFERS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link AdaptiveBufferCompressor}. */
+public class AdaptiveBufferCompressorTest {
+
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    private static final String CODEC = "LZ4";
+
+    private static final int NUM_SEGMENTS = 2;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testCompressCompressibleData() {
+        AdaptiveBufferCompressor compressor = createCompressor(0.8f, 0L);
+        BufferDecompressor decompressor = new BufferDecompressor(BUFFER_SIZE, CODEC);
+
+        for (int i = 0; i < 2 * NUM_SAMPLE_BUFFERS; i++) {
+            byte[] data = createCompressibleData();
+            Buffer buffer = compressor.compressIfPaysOff(createBuffer(data));
+            assertTrue(buffer.isCompressed());
+            assertTrue(buffer.getSize() < data.length);
+
+            Buffer decompressed = decompressor.decompressToIntermediateBuffer(buffer);
+            assertArrayEquals(data, toArray(decompressed));
+            decompressed.recycleBuffer();
+            buffer.recycleBuffer();
+        }
+        assertTrue(compressor.isCompressing());
+    }
+
+    @Test
+    public void testSwitchOffForIncompressibleData() {
+        AdaptiveBufferCompressor compressor = createCompressor(0.8f, 0L);
+
+        sendBuffers(compressor, NUM_SAMPLE_BUFFERS, false);
+        assertFalse(compressor.isCompressing());
+
+        // the compressible buffers are sent uncompressed until the next sample
+        for (int i = 0; i < MIN_NUM_UNCOMPRESSED_BUFFERS; i++) {
+            Buffer buffer = compressor.compressIfPaysOff(createBuffer(createCompressibleData()));
+            assertFalse(buffer.isCompressed());
+            buffer.recycleBuffer();
+        }
+        assertTrue(compressor.isCompressing());
+
+        sendBuffers(compressor, NUM_SAMPLE_BUFFERS, true);
+        assertTrue(compressor.isCompressing());
+    }
+
+    @Test
+    public void testSwitchOffForSlowCompression() {
+        AdaptiveBufferCompressor compressor = createCompressor(0.8f, Long.MAX_VALUE);
+
+        sendBuffers(compressor, NUM_SAMPLE_BUFFERS, true);
+        assertFalse(compressor.isCompressing());
+    }
+
+    @Test
+    public void testUncompressedTimeGrowsWhileNotPayingOff() {
+        AdaptiveBufferCompressor compressor = createCompressor(0.8f, 0L);
+
+        sendBuffers(compressor, NUM_SAMPLE_BUFFERS, false);
+        assertFalse(compressor.isCompressing());
+        sendBuffers(compressor, MIN_NUM_UNCOMPRESSED_BUFFERS, false);
+        assertTrue(compressor.isCompressing());
+
+        // the second sample in a row which does not pay off doubles the uncompressed buffers
+        sendBuffers(compressor, NUM_SAMPLE_BUFFERS, false);
+        sendBuffers(compressor, MIN_NUM_UNCOMPRESSED_BUFFERS, false);
+        assertFalse(compressor.isCompressing());
+        sendBuffers(compressor, MIN_NUM_UNCOMPRESSED_BUFFERS, false);
+        assertTrue(compressor.isCompressing());
+    }
+
+    @Test
+    public void testSendUncompressedWhileAllSegmentsInFlight() {
+        NetworkBufferCompressor networkBufferCompressor = createNetworkBufferCompressor(0.8f, 0L);
+        AdaptiveBufferCompressor compressor =
+                new AdaptiveBufferCompressor(networkBufferCompressor, new InputChannelID());
+
+        Buffer[] inFlight = new Buffer[NUM_SEGMENTS];
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            inFlight[i] = compressor.compressIfPaysOff(createBuffer(createCompressibleData()));
+            assertTrue(inFlight[i].isCompressed());
+        }
+        assertFalse(networkBufferCompressor.hasAvailableSegment());
+
+        Buffer buffer = compressor.compressIfPaysOff(createBuffer(createCompressibleData()));
+        assertFalse(buffer.isCompressed());
+        buffer.recycleBuffer();
+
+        inFlight[0].recycleBuffer();
+        buffer = compressor.compressIfPaysOff(createBuffer(createCompressibleData()));
+        assertTrue(buffer.isCompressed());
+        assertTrue(compressor.isCompressing());
+
+        // the segments of a released reader are freed when they are recycled
+        networkBufferCompressor.removeSegments(NUM_SEGMENTS);
+        MemorySegment segment = buffer.getMemorySegment();
+        buffer.recycleBuffer();
+        assertTrue(segment.isFreed());
+        assertFalse(networkBufferCompressor.hasAvailableSegment());
+        inFlight[1].recycleBuffer();
+    }
+
+    @Test
+    public void testEventsAreNotCompressed() {
+        AdaptiveBufferCompressor compressor = createCompressor(0.8f, 0L);
+
+        MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE);
+        Buffer event =
+                new NetworkBuffer(
+                        segment, MemorySegment::free, Buffer.DataType.EVENT_BUFFER, BUFFER_SIZE);
+        assertSame(event, compressor.compressIfPaysOff(event));
+        event.recycleBuffer();
+    }
+
+    private void sendBuffers(
+            AdaptiveBufferCompressor compressor, int numBuffers, boolean compressible) {
+        for (int i = 0; i < numBuffers; i++) {
+            byte[] data = compressible ? createCompressibleData() : createRandomData();
+            compressor.compressIfPaysOff(createBuffer(data)).recycleBuffer();
+        }
+    }
+
+    private static AdaptiveBufferCompressor createCompressor(
+            float maxCompressionRatio, long minCompressionBytesPerSecond) {
+        return new AdaptiveBufferCompressor(
+                createNetworkBufferCompressor(maxCompressionRatio, minCompressionBytesPerSecond),
+                new InputChannelID());
+    }
+
+    private static NetworkBufferCompressor createNetworkBufferCompressor(
+            float maxCompressionRatio, long minCompressionBytesPerSecond) {
+        NetworkBufferCompressor compressor =
+                new NetworkBufferCompressor(
+                        BUFFER_SIZE, CODEC, 3, maxCompressionRatio, minCompressionBytesPerSecond);
+        compressor.addSegments(NUM_SEGMENTS);
+        return compressor;
+    }
+
+    private static byte[] createCompressibleData() {
+        byte[] data = new byte[BUFFER_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i / 64);
+        }
+        return data;
+    }
+
+    private byte[] createRandomData() {
+        byte[] data = new byte[BUFFER_SIZE];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static Buffer createBuffer(byte[] data) {
+        MemorySegment segment = MemorySegmentFactory.wrap(data.clone());
+        return new NetworkBuffer(
+                segment, MemorySegment::free, Buffer.DataType.DATA_BUFFER, data.length);
+    }
+
+    private static byte[] toArray(Buffer buffer) {
+        byte[] data = new byte[buffer.getSize()];
+        buffer.getNioBufferReadable().get(data);
+        return data;
+    }
+}
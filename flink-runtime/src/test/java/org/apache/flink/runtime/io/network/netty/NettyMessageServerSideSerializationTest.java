@@ -66,6 +66,7 @@ public class NettyMessageServerSideSerializationTest extends TestLogger {
                         new ResultPartitionID(),
                         random.nextInt(),
                         new InputChannelID(),
+                        random.nextInt(),
                         random.nextInt());
 
         NettyMessage.PartitionRequest actual = encodeAndDecode(expected, channel);
@@ -74,6 +75,7 @@ public class NettyMessageServerSideSerializationTest extends TestLogger {
         assertEquals(expected.queueIndex, actual.queueIndex);
         assertEquals(expected.receiverId, actual.receiverId);
         assertEquals(expected.credit, actual.credit);
+        assertEquals(expected.numberOfSubpartitions, actual.numberOfSubpartitions);
     }
 
     @Test
@@ -118,6 +120,17 @@ public class NettyMessageServerSideSerializationTest extends TestLogger {
         assertEquals(expected.receiverId, actual.receiverId);
     }
 
+    @Test
+    public void testNewBufferSize() {
+        NettyMessage.NewBufferSize expected =
+                new NettyMessage.NewBufferSize(
+                        random.nextInt(Integer.MAX_VALUE) + 1, new InputChannelID());
+        NettyMessage.NewBufferSize actual = encodeAndDecode(expected, channel);
+
+        assertEquals(expected.bufferSize, actual.bufferSize);
+        assertEquals(expected.receiverId, actual.receiverId);
+    }
+
     @Test
     public void testResumeConsumption() {
         NettyMessage.ResumeConsumption expected =
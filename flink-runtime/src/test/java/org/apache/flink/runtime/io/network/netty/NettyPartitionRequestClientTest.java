@@ -24,11 +24,13 @@ import org.apache.flink.runtime.io.network.NetworkClientHandler;
 import org.apache.flink.runtime.io.network.PartitionRequestClient;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.netty.NettyMessage.NewBufferSize;
 import org.apache.flink.runtime.io.network.netty.NettyMessage.PartitionRequest;
 import org.apache.flink.runtime.io.network.netty.NettyMessage.ResumeConsumption;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelBuilder;
 import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
 import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGateBuilder;
 import org.apache.flink.util.NetUtils;
 
 import org.apache.flink.shaded.netty4.io.netty.channel.Channel;
@@ -196,6 +198,88 @@ public class NettyPartitionRequestClientTest {
         }
     }
 
+    @Test
+    public void testBufferSizeAnnouncedBeforePartitionRequest() throws Exception {
+        final CreditBasedPartitionRequestClientHandler handler =
+                new CreditBasedPartitionRequestClientHandler();
+        final EmbeddedChannel channel = new EmbeddedChannel(handler);
+        final PartitionRequestClient client = createPartitionRequestClient(channel, handler);
+
+        final NetworkBufferPool networkBufferPool = new NetworkBufferPool(10, 32);
+        final SingleInputGate inputGate = createSingleInputGate(1, networkBufferPool);
+        final RemoteInputChannel inputChannel = createRemoteInputChannel(inputGate, client);
+
+        try {
+            final BufferPool bufferPool = networkBufferPool.createBufferPool(6, 6);
+            inputGate.setBufferPool(bufferPool);
+            inputGate.setupChannels();
+
+            // the size is announced before the partition is requested
+            inputChannel.announceBufferSize(16);
+            inputChannel.requestSubpartition(0);
+            channel.runPendingTasks();
+
+            Object readFromOutbound = channel.readOutbound();
+            assertThat(readFromOutbound, instanceOf(PartitionRequest.class));
+
+            readFromOutbound = channel.readOutbound();
+            assertThat(readFromOutbound, instanceOf(NewBufferSize.class));
+            assertEquals(
+                    inputChannel.getInputChannelId(),
+                    ((NewBufferSize) readFromOutbound).receiverId);
+            assertEquals(16, ((NewBufferSize) readFromOutbound).bufferSize);
+
+            assertNull(channel.readOutbound());
+        } finally {
+            // Release all the buffer resources
+            inputGate.close();
+
+            networkBufferPool.destroyAllBufferPools();
+            networkBufferPool.destroy();
+        }
+    }
+
+    @Test
+    public void testRequestSubpartitionRange() throws Exception {
+        final CreditBasedPartitionRequestClientHandler handler =
+                new CreditBasedPartitionRequestClientHandler();
+        final EmbeddedChannel channel = new EmbeddedChannel(handler);
+        final PartitionRequestClient client = createPartitionRequestClient(channel, handler);
+
+        final NetworkBufferPool networkBufferPool = new NetworkBufferPool(10, 32);
+        final SingleInputGate inputGate =
+                new SingleInputGateBuilder()
+                        .setConsumedSubpartitionIndex(2)
+                        .setNumberOfConsumedSubpartitions(3)
+                        .setSegmentProvider(networkBufferPool)
+                        .build();
+        final RemoteInputChannel inputChannel = createRemoteInputChannel(inputGate, client);
+
+        try {
+            final BufferPool bufferPool = networkBufferPool.createBufferPool(6, 6);
+            inputGate.setBufferPool(bufferPool);
+            inputGate.setupChannels();
+            inputChannel.requestSubpartition(2);
+            channel.runPendingTasks();
+
+            // the whole range is requested through the single channel
+            final Object readFromOutbound = channel.readOutbound();
+            assertThat(readFromOutbound, instanceOf(PartitionRequest.class));
+            final PartitionRequest request = (PartitionRequest) readFromOutbound;
+            assertEquals(inputChannel.getInputChannelId(), request.receiverId);
+            assertEquals(2, request.queueIndex);
+            assertEquals(3, request.numberOfSubpartitions);
+
+            assertNull(channel.readOutbound());
+        } finally {
+            // Release all the buffer resources
+            inputGate.close();
+
+            networkBufferPool.destroyAllBufferPools();
+            networkBufferPool.destroy();
+        }
+    }
+
     private NettyPartitionRequestClient createPartitionRequestClient(
             Channel tcpChannel, NetworkClientHandler clientHandler) throws Exception {
         int port = NetUtils.getAvailablePort();
@@ -174,15 +174,17 @@ public class JobMasterPartitionTrackerImplTest extends TestLogger {
                 AbstractPartitionTrackerTest.createResultPartitionDeploymentDescriptor(
                         resultPartitionId2, false));
 
+        // the partitions are not bound to the producing task executors
+        assertThat(partitionTracker.isTrackingPartitionsFor(taskExecutorId1), is(false));
+        assertThat(partitionTracker.isTrackingPartitionsFor(taskExecutorId2), is(false));
+        assertThat(partitionTracker.isPartitionTracked(resultPartitionId1), is(true));
+
         {
             partitionTracker.stopTrackingAndReleasePartitionsFor(taskExecutorId1);
 
             assertEquals(0, taskExecutorReleaseCalls.size());
-
-            assertEquals(1, shuffleMaster.externallyReleasedPartitions.size());
-            assertEquals(resultPartitionId1, shuffleMaster.externallyReleasedPartitions.remove());
-
-            assertThat(partitionTracker.isTrackingPartitionsFor(taskExecutorId1), is(false));
+            assertEquals(0, shuffleMaster.externallyReleasedPartitions.size());
+            assertThat(partitionTracker.isPartitionTracked(resultPartitionId1), is(true));
         }
 
         {
@@ -194,10 +196,48 @@ public class JobMasterPartitionTrackerImplTest extends TestLogger {
             assertEquals(1, shuffleMaster.externallyReleasedPartitions.size());
             assertEquals(resultPartitionId2, shuffleMaster.externallyReleasedPartitions.remove());
 
-            assertThat(partitionTracker.isTrackingPartitionsFor(taskExecutorId2), is(false));
+            assertThat(partitionTracker.isPartitionTracked(resultPartitionId2), is(false));
+        }
+
+        {
+            partitionTracker.stopTrackingAndReleaseExternalPartitions();
+
+            assertEquals(0, taskExecutorReleaseCalls.size());
+
+            assertEquals(1, shuffleMaster.externallyReleasedPartitions.size());
+            assertEquals(resultPartitionId1, shuffleMaster.externallyReleasedPartitions.remove());
+
+            assertThat(partitionTracker.isPartitionTracked(resultPartitionId1), is(false));
         }
     }
 
+    @Test
+    public void testExternalPartitionsSurviveTaskExecutorDisconnect() {
+        final TestingShuffleMaster shuffleMaster = new TestingShuffleMaster();
+        final JobMasterPartitionTracker partitionTracker =
+                new JobMasterPartitionTrackerImpl(
+                        new JobID(), shuffleMaster, ignored -> Optional.empty());
+
+        final ResourceID taskExecutorId = ResourceID.generate();
+        final ResultPartitionID localPartitionId = new ResultPartitionID();
+        final ResultPartitionID externalPartitionId = new ResultPartitionID();
+
+        partitionTracker.startTrackingPartition(
+                taskExecutorId,
+                AbstractPartitionTrackerTest.createResultPartitionDeploymentDescriptor(
+                        localPartitionId, true));
+        partitionTracker.startTrackingPartition(
+                taskExecutorId,
+                AbstractPartitionTrackerTest.createResultPartitionDeploymentDescriptor(
+                        externalPartitionId, false));
+
+        partitionTracker.stopTrackingPartitionsFor(taskExecutorId);
+
+        assertThat(partitionTracker.isPartitionTracked(localPartitionId), is(false));
+        assertThat(partitionTracker.isPartitionTracked(externalPartitionId), is(true));
+        assertThat(shuffleMaster.externallyReleasedPartitions, is(empty()));
+    }
+
     @Test
     public void testStopTrackingIssuesNoReleaseCalls() {
         final TestingShuffleMaster shuffleMaster = new TestingShuffleMaster();
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
@@ -57,6 +58,16 @@ public class MockResultPartitionWriter implements ResultPartitionWriter {
     @Override
     public void broadcastRecord(ByteBuffer record) throws IOException {}
 
+    @Override
+    public boolean isObjectExchange(int targetSubpartition) {
+        return false;
+    }
+
+    @Override
+    public void emitObject(
+            Object record, int recordSize, TypeSerializer<?> serializer, int targetSubpartition)
+            throws IOException {}
+
     @Override
     public void broadcastEvent(AbstractEvent event, boolean isPriorityEvent) throws IOException {}
 
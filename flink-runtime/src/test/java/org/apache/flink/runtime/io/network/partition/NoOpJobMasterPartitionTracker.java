@@ -56,6 +56,9 @@ public enum NoOpJobMasterPartitionTracker implements JobMasterPartitionTracker {
     @Override
     public void stopTrackingAndReleaseOrPromotePartitionsFor(ResourceID producingTaskExecutorId) {}
 
+    @Override
+    public void stopTrackingAndReleaseExternalPartitions() {}
+
     @Override
     public boolean isTrackingPartitionsFor(ResourceID producingTaskExecutorId) {
         return false;
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
@@ -30,6 +31,8 @@ import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBufferBuilder;
 import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
 
 import org.junit.After;
@@ -55,6 +58,7 @@ import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -397,6 +401,59 @@ public class PipelinedSubpartitionWithReadViewTest {
         assertNoNextBuffer(readView);
     }
 
+    @Test
+    public void testBarrierOvertakingObjectBuffer() throws Exception {
+        final RecordingChannelStateWriter channelStateWriter = new RecordingChannelStateWriter();
+        subpartition.setChannelStateWriter(channelStateWriter);
+
+        ObjectBufferBuilder objectBufferBuilder =
+                new ObjectBufferBuilder(createBufferBuilder(), IntSerializer.INSTANCE);
+        subpartition.add(objectBufferBuilder.createBufferConsumer());
+        objectBufferBuilder.append(1, Integer.BYTES);
+        objectBufferBuilder.append(2, Integer.BYTES);
+
+        CheckpointOptions options =
+                CheckpointOptions.unaligned(
+                        new CheckpointStorageLocationReference(new byte[] {0, 1, 2}));
+        channelStateWriter.start(0, options);
+        subpartition.add(
+                EventSerializer.toBufferConsumer(new CheckpointBarrier(0, 0, options), true));
+
+        // the in-flight records are persisted in serialized form
+        final List<Buffer> inflight =
+                channelStateWriter.getAddedOutput().get(subpartition.getSubpartitionInfo());
+        assertEquals(1, inflight.size());
+        assertThat(inflight.get(0), not(instanceOf(ObjectBuffer.class)));
+        assertEquals(2 * (Integer.BYTES + Integer.BYTES), inflight.get(0).getSize());
+        inflight.forEach(Buffer::recycleBuffer);
+
+        assertFalse(readView.getNextBuffer().buffer().isBuffer());
+        objectBufferBuilder.finish();
+        Buffer buffer = readView.getNextBuffer().buffer();
+        assertThat(buffer, instanceOf(ObjectBuffer.class));
+        assertEquals(1, ((ObjectBuffer) buffer).nextRecord());
+        assertEquals(2, ((ObjectBuffer) buffer).nextRecord());
+        buffer.recycleBuffer();
+    }
+
+    @Test
+    public void testStatisticsOfObjectBuffer() throws Exception {
+        ObjectBufferBuilder objectBufferBuilder =
+                new ObjectBufferBuilder(createBufferBuilder(), IntSerializer.INSTANCE);
+        subpartition.add(objectBufferBuilder.createBufferConsumer());
+        objectBufferBuilder.append(1, 100);
+        objectBufferBuilder.append(2, 200);
+        objectBufferBuilder.finish();
+
+        Buffer buffer = readView.getNextBuffer().buffer();
+        assertThat(buffer, instanceOf(ObjectBuffer.class));
+        buffer.recycleBuffer();
+
+        // object buffers are counted with the estimated serialized size of their records
+        assertEquals(1, subpartition.getTotalNumberOfBuffers());
+        assertEquals(300, subpartition.getTotalNumberOfBytes());
+    }
+
     @Test
     public void testAvailabilityAfterPriority() throws Exception {
         subpartition.setChannelStateWriter(ChannelStateWriter.NO_OP);
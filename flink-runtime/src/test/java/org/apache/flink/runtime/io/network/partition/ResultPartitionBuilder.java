@@ -18,6 +18,10 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.concurrent.Executors;
+import org.apache.flink.runtime.io.compression.ZstdBlockCompressionFactory;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.disk.NoOpFileChannelManager;
 import org.apache.flink.runtime.io.network.NettyShuffleEnvironment;
@@ -27,6 +31,7 @@ import org.apache.flink.util.function.SupplierWithException;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 /** Utility class to encapsulate the logic of building a {@link ResultPartition} instance. */
 public class ResultPartitionBuilder {
@@ -72,6 +77,12 @@ public class ResultPartitionBuilder {
 
     private String compressionCodec = "LZ4";
 
+    private int compressionZstdLevel = ZstdBlockCompressionFactory.DEFAULT_LEVEL;
+
+    private BatchShuffleReadBufferPool batchShuffleReadBufferPool;
+
+    private Executor batchShuffleReadIOExecutor = Executors.directExecutor();
+
     public ResultPartitionBuilder setResultPartitionIndex(int partitionIndex) {
         this.partitionIndex = partitionIndex;
         return this;
@@ -164,6 +175,18 @@ public class ResultPartitionBuilder {
         return this;
     }
 
+    public ResultPartitionBuilder setBatchShuffleReadBufferPool(
+            BatchShuffleReadBufferPool batchShuffleReadBufferPool) {
+        this.batchShuffleReadBufferPool = batchShuffleReadBufferPool;
+        return this;
+    }
+
+    public ResultPartitionBuilder setBatchShuffleReadIOExecutor(
+            Executor batchShuffleReadIOExecutor) {
+        this.batchShuffleReadIOExecutor = batchShuffleReadIOExecutor;
+        return this;
+    }
+
     public ResultPartitionBuilder setCompressionCodec(String compressionCodec) {
         this.compressionCodec = compressionCodec;
         return this;
@@ -193,10 +216,18 @@ public class ResultPartitionBuilder {
                         networkBufferSize,
                         blockingShuffleCompressionEnabled,
                         compressionCodec,
+                        compressionZstdLevel,
                         maxBuffersPerChannel,
                         sortShuffleMinBuffers,
                         sortShuffleMinParallelism,
-                        sslEnabled);
+                        sslEnabled,
+                        batchShuffleReadBufferPool != null
+                                ? batchShuffleReadBufferPool
+                                : new BatchShuffleReadBufferPool(
+                                        (long) sortShuffleMinBuffers * networkBufferSize,
+                                        networkBufferSize),
+                        batchShuffleReadIOExecutor,
+                        new SimpleCounter());
 
         SupplierWithException<BufferPool, IOException> factory =
                 bufferPoolFactory.orElseGet(
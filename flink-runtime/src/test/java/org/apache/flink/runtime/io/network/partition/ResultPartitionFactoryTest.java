@@ -17,7 +17,11 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.concurrent.Executors;
 import org.apache.flink.runtime.deployment.ResultPartitionDeploymentDescriptor;
+import org.apache.flink.runtime.io.compression.ZstdBlockCompressionFactory;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
@@ -128,10 +132,14 @@ public class ResultPartitionFactoryTest extends TestLogger {
                         SEGMENT_SIZE,
                         false,
                         "LZ4",
+                        ZstdBlockCompressionFactory.DEFAULT_LEVEL,
                         Integer.MAX_VALUE,
                         10,
                         sortShuffleMinParallelism,
-                        false);
+                        false,
+                        new BatchShuffleReadBufferPool(10 * SEGMENT_SIZE, SEGMENT_SIZE),
+                        Executors.directExecutor(),
+                        new SimpleCounter());
 
         final ResultPartitionDeploymentDescriptor descriptor =
                 new ResultPartitionDeploymentDescriptor(
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.runtime.checkpoint.channel.ResultSubpartitionInfo;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
@@ -29,6 +30,7 @@ import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.taskmanager.ConsumableNotifyingResultPartitionWriterDecorator;
 import org.apache.flink.runtime.taskmanager.NoOpTaskActions;
 import org.apache.flink.runtime.taskmanager.TaskActions;
@@ -629,6 +631,49 @@ public class ResultPartitionTest {
         }
     }
 
+    @Test
+    public void testEmitObjectToLocalConsumer() throws Exception {
+        BufferWritingResultPartition partition =
+                createResultPartition(ResultPartitionType.PIPELINED);
+        ResultSubpartitionView readView =
+                partition.createSubpartitionView(
+                        0,
+                        new NoOpBufferAvailablityListener() {
+                            @Override
+                            public boolean supportsObjectBuffers() {
+                                return true;
+                            }
+                        });
+        assertTrue(partition.isObjectExchange(0));
+        assertFalse(partition.isObjectExchange(1));
+
+        partition.emitObject(1, 8, IntSerializer.INSTANCE, 0);
+        partition.emitObject(2, 8, IntSerializer.INSTANCE, 0);
+        // serialized records finish the object buffer
+        partition.emitRecord(ByteBuffer.allocate(4), 0);
+        partition.emitObject(3, 8, IntSerializer.INSTANCE, 0);
+        partition.flush(0);
+
+        Buffer buffer = readView.getNextBuffer().buffer();
+        assertThat(buffer, Matchers.instanceOf(ObjectBuffer.class));
+        assertEquals(1, ((ObjectBuffer) buffer).nextRecord());
+        assertEquals(2, ((ObjectBuffer) buffer).nextRecord());
+        assertEquals(0, buffer.readableBytes());
+        buffer.recycleBuffer();
+
+        buffer = readView.getNextBuffer().buffer();
+        assertFalse(buffer instanceof ObjectBuffer);
+        assertEquals(4, buffer.readableBytes());
+        buffer.recycleBuffer();
+
+        buffer = readView.getNextBuffer().buffer();
+        assertEquals(3, ((ObjectBuffer) buffer).nextRecord());
+        buffer.recycleBuffer();
+
+        readView.releaseAllResources();
+        partition.release();
+    }
+
     private static class TestResultPartitionConsumableNotifier
             implements ResultPartitionConsumableNotifier {
         private JobID jobID;
@@ -20,6 +20,11 @@ package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.concurrent.Executors;
+import org.apache.flink.runtime.concurrent.ManuallyTriggeredScheduledExecutor;
+import org.apache.flink.runtime.io.disk.BatchShuffleReadBufferPool;
 import org.apache.flink.runtime.io.disk.FileChannelManager;
 import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
@@ -37,10 +42,16 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.flink.runtime.io.network.buffer.Buffer.DataType;
 import static org.junit.Assert.assertEquals;
@@ -61,6 +72,10 @@ public class SortMergeResultPartitionTest {
 
     private NetworkBufferPool globalPool;
 
+    private BatchShuffleReadBufferPool readBufferPool;
+
+    private Counter numBytesReadCounter;
+
     @Rule public final TemporaryFolder tmpFolder = new TemporaryFolder();
 
     @Before
@@ -68,12 +83,15 @@ public class SortMergeResultPartitionTest {
         fileChannelManager =
                 new FileChannelManagerImpl(new String[] {tmpFolder.getRoot().getPath()}, "testing");
         globalPool = new NetworkBufferPool(totalBuffers, bufferSize);
+        readBufferPool = new BatchShuffleReadBufferPool(totalBuffers * bufferSize, bufferSize);
+        numBytesReadCounter = new SimpleCounter();
     }
 
     @After
     public void shutdown() throws Exception {
         fileChannelManager.close();
         globalPool.destroy();
+        readBufferPool.destroy();
     }
 
     @Test
@@ -149,6 +167,59 @@ public class SortMergeResultPartitionTest {
 
         PartitionSortedBufferTest.checkWriteReadResult(
                 numSubpartitions, numBytesWritten, numBytesRead, dataWritten, buffersRead);
+        assertEquals(Arrays.stream(numBytesRead).sum(), numBytesReadCounter.getCount());
+        assertEquals(readBufferPool.getNumTotalBuffers(), readBufferPool.getNumAvailableBuffers());
+    }
+
+    @Test
+    public void testReadSubpartitionsConcurrently() throws Exception {
+        int numSubpartitions = 10;
+        int numBuffers = 100;
+        BufferPool bufferPool = globalPool.createBufferPool(numBuffers, numBuffers);
+        SortMergeResultPartition partition =
+                createSortMergedPartition(numSubpartitions, bufferPool);
+
+        int numRecordsPerSubpartition = 200;
+        for (int i = 0; i < numRecordsPerSubpartition; ++i) {
+            for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+                ByteBuffer record = ByteBuffer.allocate(bufferSize);
+                record.putInt(0, subpartition);
+                partition.emitRecord(record, subpartition);
+            }
+        }
+        partition.finish();
+        partition.close();
+
+        ResultSubpartitionView[] views = new ResultSubpartitionView[numSubpartitions];
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            views[subpartition] = partition.createSubpartitionView(subpartition, listener);
+        }
+
+        // consume the subpartitions in an interleaved way to read through the shared channels
+        int[] numDataBuffersRead = new int[numSubpartitions];
+        boolean hasAvailable = true;
+        while (hasAvailable) {
+            hasAvailable = false;
+            for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+                if (!views[subpartition].isAvailable(Integer.MAX_VALUE)) {
+                    continue;
+                }
+                hasAvailable = true;
+
+                Buffer buffer = views[subpartition].getNextBuffer().buffer();
+                if (buffer.isBuffer()) {
+                    assertEquals(subpartition, buffer.getNioBufferReadable().getInt(0));
+                    ++numDataBuffersRead[subpartition];
+                }
+                buffer.recycleBuffer();
+            }
+        }
+
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            assertEquals(numRecordsPerSubpartition, numDataBuffersRead[subpartition]);
+            views[subpartition].releaseAllResources();
+        }
+        assertEquals(readBufferPool.getNumTotalBuffers(), readBufferPool.getNumAvailableBuffers());
     }
 
     private void recordDataWritten(
@@ -314,8 +385,84 @@ public class SortMergeResultPartitionTest {
         }
     }
 
+    @Test
+    public void testReadSubpartitionsInFileOffsetOrder() throws Exception {
+        int numSubpartitions = 5;
+        BufferPool bufferPool = globalPool.createBufferPool(10, 10);
+        ManuallyTriggeredScheduledExecutor ioExecutor = new ManuallyTriggeredScheduledExecutor();
+        SortMergeResultPartition partition =
+                createSortMergedPartition(numSubpartitions, bufferPool, ioExecutor);
+
+        for (int subpartition = numSubpartitions - 1; subpartition >= 0; --subpartition) {
+            partition.emitRecord(ByteBuffer.allocate(bufferSize / 2), subpartition);
+        }
+        partition.finish();
+        partition.close();
+
+        // create the readers in the reverse order of the data of their subpartitions in the file
+        List<Integer> subpartitionsRead = new ArrayList<>();
+        ResultSubpartitionView[] views = new ResultSubpartitionView[numSubpartitions];
+        for (int subpartition = numSubpartitions - 1; subpartition >= 0; --subpartition) {
+            int index = subpartition;
+            views[subpartition] =
+                    partition.createSubpartitionView(
+                            subpartition, () -> subpartitionsRead.add(index));
+        }
+        assertEquals(1, ioExecutor.numQueuedRunnables());
+        ioExecutor.triggerAll();
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), subpartitionsRead);
+        for (ResultSubpartitionView view : views) {
+            while (view.isAvailable(Integer.MAX_VALUE)) {
+                view.getNextBuffer().buffer().recycleBuffer();
+            }
+            view.releaseAllResources();
+        }
+        assertEquals(readBufferPool.getNumTotalBuffers(), readBufferPool.getNumAvailableBuffers());
+    }
+
+    @Test
+    public void testReadFailureIsReportedToConsumer() throws Exception {
+        BufferPool bufferPool = globalPool.createBufferPool(10, 10);
+        ManuallyTriggeredScheduledExecutor ioExecutor = new ManuallyTriggeredScheduledExecutor();
+        SortMergeResultPartition partition = createSortMergedPartition(2, bufferPool, ioExecutor);
+
+        partition.emitRecord(ByteBuffer.allocate(bufferSize), 0);
+        partition.finish();
+        partition.close();
+
+        // the index still points to the data, so reading the truncated data file fails
+        try (FileChannel dataFile =
+                FileChannel.open(
+                        partition.getResultFile().getDataFilePath(), StandardOpenOption.WRITE)) {
+            dataFile.truncate(0);
+        }
+
+        AtomicInteger numNotifications = new AtomicInteger();
+        ResultSubpartitionView view =
+                partition.createSubpartitionView(0, numNotifications::incrementAndGet);
+        ioExecutor.triggerAll();
+
+        assertEquals(1, numNotifications.get());
+        // the failed reader must stay available, otherwise the failure is never sent
+        assertTrue(view.isAvailable(0));
+        assertNull(view.getNextBuffer());
+        assertTrue(view.isReleased());
+        assertTrue(view.getFailureCause() instanceof IOException);
+        assertEquals(0, ioExecutor.numQueuedRunnables());
+
+        view.releaseAllResources();
+        assertEquals(readBufferPool.getNumTotalBuffers(), readBufferPool.getNumAvailableBuffers());
+    }
+
     private SortMergeResultPartition createSortMergedPartition(
             int numSubpartitions, BufferPool bufferPool) throws IOException {
+        return createSortMergedPartition(numSubpartitions, bufferPool, Executors.directExecutor());
+    }
+
+    private SortMergeResultPartition createSortMergedPartition(
+            int numSubpartitions, BufferPool bufferPool, Executor readIOExecutor)
+            throws IOException {
         SortMergeResultPartition sortMergedResultPartition =
                 new SortMergeResultPartition(
                         "SortMergedResultPartitionTest",
@@ -327,6 +474,9 @@ public class SortMergeResultPartitionTest {
                         bufferSize,
                         new ResultPartitionManager(),
                         fileChannelManager.createChannel().getPath(),
+                        readBufferPool,
+                        readIOExecutor,
+                        numBytesReadCounter,
                         null,
                         () -> bufferPool);
         sortMergedResultPartition.setup();
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
+import org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link SubpartitionRangeView}. */
+public class SubpartitionRangeViewTest {
+
+    @ClassRule public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+    private static final int NUM_SUBPARTITIONS = 4;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    @Test
+    public void testReadSubpartitionRange() throws Exception {
+        testReadSubpartitionRange(true);
+    }
+
+    @Test
+    public void testReadSubpartitionRangeOfFileRegions() throws Exception {
+        testReadSubpartitionRange(false);
+    }
+
+    private static void testReadSubpartitionRange(boolean sslEnabled) throws Exception {
+        final ResultPartition partition = createPartitionWithData(sslEnabled);
+        final ResultPartitionManager partitionManager = new ResultPartitionManager();
+        partitionManager.registerResultPartition(partition);
+        final CountingAvailabilityListener listener = new CountingAvailabilityListener();
+
+        final ResultSubpartitionView view =
+                partitionManager.createSubpartitionRangeView(
+                        partition.getPartitionId(), 1, 2, listener);
+
+        final List<BufferAndBacklog> buffers = new ArrayList<>();
+        for (int i = 0; i < 10 && !isEndOfData(buffers); i++) {
+            final BufferAndBacklog next = view.getNextBuffer();
+            if (next != null) {
+                buffers.add(next);
+            }
+        }
+
+        // the buffers of both subpartitions followed by a single end of partition event
+        assertEquals(6, buffers.size());
+        for (int i = 0; i < buffers.size(); i++) {
+            final BufferAndBacklog next = buffers.get(i);
+            final int expectedSize = i < 2 ? 2 * BUFFER_SIZE / 4 : 3 * BUFFER_SIZE / 4;
+            assertEquals(i, next.getSequenceNumber());
+            assertEquals(i < 5, next.buffer().isBuffer());
+            if (next.buffer().isBuffer()) {
+                assertEquals(expectedSize, next.buffer().getSize());
+            }
+            next.buffer().recycleBuffer();
+        }
+        // the consumer is notified to check the availability of the next subpartition
+        assertTrue(listener.numNotifications > 0);
+        assertFalse(view.isReleased());
+
+        view.releaseAllResources();
+        assertTrue(view.isReleased());
+        partition.release();
+    }
+
+    @Test
+    public void testSingleSubpartitionRange() throws Exception {
+        final ResultPartition partition = createPartitionWithData(true);
+        final ResultPartitionManager partitionManager = new ResultPartitionManager();
+        partitionManager.registerResultPartition(partition);
+
+        final ResultSubpartitionView view =
+                partitionManager.createSubpartitionRangeView(
+                        partition.getPartitionId(), 0, 1, new NoOpBufferAvailablityListener());
+
+        final BufferAndBacklog data = view.getNextBuffer();
+        assertNotNull(data);
+        assertTrue(data.buffer().isBuffer());
+        data.buffer().recycleBuffer();
+
+        // the end of partition event of the last subpartition of the range is not swallowed
+        final BufferAndBacklog event = view.getNextBuffer();
+        assertNotNull(event);
+        assertFalse(event.buffer().isBuffer());
+        event.buffer().recycleBuffer();
+
+        view.releaseAllResources();
+        partition.release();
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static boolean isEndOfData(List<BufferAndBacklog> buffers) {
+        return !buffers.isEmpty() && !buffers.get(buffers.size() - 1).buffer().isBuffer();
+    }
+
+    /**
+     * Creates a finished partition whose subpartition {@code i} holds {@code i + 1} buffers of
+     * {@code (i + 1) / 4} of the buffer size.
+     */
+    private static ResultPartition createPartitionWithData(boolean sslEnabled) throws IOException {
+        final BufferWritingResultPartition partition =
+                (BufferWritingResultPartition)
+                        new ResultPartitionBuilder()
+                                .setResultPartitionType(ResultPartitionType.BLOCKING)
+                                .setBoundedBlockingSubpartitionType(
+                                        BoundedBlockingSubpartitionType.FILE)
+                                .setSSLEnabled(sslEnabled)
+                                .setFileChannelManager(
+                                        new FileChannelManagerImpl(
+                                                new String[] {TMP_FOLDER.newFolder().toString()},
+                                                "data"))
+                                .setNumberOfSubpartitions(NUM_SUBPARTITIONS)
+                                .setNetworkBufferSize(BUFFER_SIZE)
+                                .build();
+
+        final ResultSubpartition[] subpartitions = partition.getAllPartitions();
+        for (int i = 0; i < NUM_SUBPARTITIONS; i++) {
+            for (int j = 0; j <= i; j++) {
+                subpartitions[i].add(
+                        BufferBuilderTestUtils.createFilledFinishedBufferConsumer(
+                                (i + 1) * BUFFER_SIZE / 4));
+            }
+            subpartitions[i].finish();
+        }
+        return partition;
+    }
+}
@@ -34,6 +34,7 @@ public class TestingJobMasterPartitionTracker implements JobMasterPartitionTrack
     private Consumer<ResourceID> stopTrackingAllPartitionsConsumer = ignored -> {};
     private Consumer<ResourceID> stopTrackingAndReleaseAllPartitionsConsumer = ignored -> {};
     private Consumer<ResourceID> stopTrackingAndReleaseOrPromotePartitionsConsumer = ignored -> {};
+    private Runnable stopTrackingAndReleaseExternalPartitionsRunnable = () -> {};
     private BiConsumer<ResourceID, ResultPartitionDeploymentDescriptor>
             startTrackingPartitionsConsumer = (ignoredA, ignoredB) -> {};
     private Consumer<Collection<ResultPartitionID>> stopTrackingAndReleasePartitionsConsumer =
@@ -73,6 +74,12 @@ public class TestingJobMasterPartitionTracker implements JobMasterPartitionTrack
                 stopTrackingAndReleaseOrPromotePartitionsConsumer;
     }
 
+    public void setStopTrackingAndReleaseExternalPartitionsRunnable(
+            Runnable stopTrackingAndReleaseExternalPartitionsRunnable) {
+        this.stopTrackingAndReleaseExternalPartitionsRunnable =
+                stopTrackingAndReleaseExternalPartitionsRunnable;
+    }
+
     public void setStopTrackingAndReleasePartitionsConsumer(
             Consumer<Collection<ResultPartitionID>> stopTrackingAndReleasePartitionsConsumer) {
         this.stopTrackingAndReleasePartitionsConsumer = stopTrackingAndReleasePartitionsConsumer;
@@ -120,6 +127,11 @@ public class TestingJobMasterPartitionTracker implements JobMasterPartitionTrack
         stopTrackingAndReleaseOrPromotePartitionsConsumer.accept(producingTaskExecutorId);
     }
 
+    @Override
+    public void stopTrackingAndReleaseExternalPartitions() {
+        stopTrackingAndReleaseExternalPartitionsRunnable.run();
+    }
+
     @Override
     public boolean isTrackingPartitionsFor(ResourceID producingTaskExecutorId) {
         return isTrackingPartitionsForFunction.apply(producingTaskExecutorId);
@@ -25,6 +25,7 @@ import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.io.disk.NoOpFileChannelManager;
 import org.apache.flink.runtime.io.network.TaskEventDispatcher;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils;
@@ -61,6 +62,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -313,6 +315,82 @@ public class LocalInputChannelTest {
         ch.getNextBuffer();
     }
 
+    @Test
+    public void testBufferSizeAnnouncedBeforePartitionRequest() throws Exception {
+        ResultSubpartitionView view = mock(ResultSubpartitionView.class);
+        ResultPartitionManager partitionManager = mock(ResultPartitionManager.class);
+        when(partitionManager.createSubpartitionView(
+                        any(ResultPartitionID.class),
+                        anyInt(),
+                        any(BufferAvailabilityListener.class)))
+                .thenReturn(view);
+
+        LocalInputChannel channel =
+                createLocalInputChannel(createSingleInputGate(1), partitionManager);
+
+        // the size is announced before the view is created
+        channel.announceBufferSize(16);
+        channel.requestSubpartition(0);
+        verify(view).notifyNewBufferSize(16);
+
+        channel.announceBufferSize(32);
+        verify(view).notifyNewBufferSize(32);
+    }
+
+    /**
+     * Tests that a channel of a gate consuming a range of subpartitions reads the whole range
+     * through a single view, followed by a single end of partition event.
+     */
+    @Test
+    public void testRequestSubpartitionRange() throws Exception {
+        BufferWritingResultPartition partition =
+                (BufferWritingResultPartition)
+                        new ResultPartitionBuilder()
+                                .setResultPartitionType(ResultPartitionType.PIPELINED)
+                                .setNumberOfSubpartitions(3)
+                                .build();
+        ResultSubpartition[] subpartitions = partition.getAllPartitions();
+        for (int i = 0; i < subpartitions.length; i++) {
+            subpartitions[i].add(BufferBuilderTestUtils.createFilledFinishedBufferConsumer(i + 1));
+            subpartitions[i].finish();
+        }
+        ResultPartitionManager partitionManager = new ResultPartitionManager();
+        partitionManager.registerResultPartition(partition);
+
+        SingleInputGate inputGate =
+                new SingleInputGateBuilder()
+                        .setConsumedSubpartitionIndex(1)
+                        .setNumberOfConsumedSubpartitions(2)
+                        .build();
+        LocalInputChannel channel =
+                InputChannelBuilder.newBuilder()
+                        .setPartitionId(partition.getPartitionId())
+                        .setPartitionManager(partitionManager)
+                        .buildLocalChannel(inputGate);
+        inputGate.setInputChannels(channel);
+        channel.requestSubpartition(1);
+
+        List<Buffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 10 && !isEndOfPartition(buffers); i++) {
+            channel.getNextBuffer().ifPresent(next -> buffers.add(next.buffer()));
+        }
+
+        assertThat(buffers.size(), Matchers.is(3));
+        assertThat(buffers.get(0).getSize(), Matchers.is(2));
+        assertThat(buffers.get(1).getSize(), Matchers.is(3));
+        assertThat(
+                EventSerializer.fromBuffer(buffers.get(2), getClass().getClassLoader()),
+                Matchers.is(EndOfPartitionEvent.INSTANCE));
+
+        buffers.forEach(Buffer::recycleBuffer);
+        channel.releaseAllResources();
+        partition.release();
+    }
+
+    private static boolean isEndOfPartition(List<Buffer> buffers) {
+        return !buffers.isEmpty() && !buffers.get(buffers.size() - 1).isBuffer();
+    }
+
     /**
      * Tests that {@link LocalInputChannel#requestSubpartition(int)} throws {@link
      * PartitionNotFoundException} if the result partition was not registered in {@link
@@ -33,6 +33,8 @@ import org.apache.flink.runtime.io.network.TestingPartitionRequestClient;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.Buffer.DataType;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferListener.NotificationResult;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
@@ -41,6 +43,7 @@ import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.PartitionProducerStateProvider;
 import org.apache.flink.runtime.io.network.partition.ProducerFailedException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel.BufferAndAvailability;
 import org.apache.flink.runtime.io.network.util.TestBufferFactory;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
@@ -146,6 +149,43 @@ public class RemoteInputChannelTest {
         }
     }
 
+    @Test
+    public void testDecompressPipelinedBufferOnReceive() throws Exception {
+        final int bufferSize = TestBufferFactory.BUFFER_SIZE;
+        final NetworkBufferPool networkBufferPool = new NetworkBufferPool(1, bufferSize);
+        try {
+            SingleInputGate inputGate =
+                    new SingleInputGateBuilder()
+                            .setResultPartitionType(ResultPartitionType.PIPELINED)
+                            .setBufferDecompressor(new BufferDecompressor(bufferSize, "LZ4"))
+                            .setBufferPoolFactory(networkBufferPool.createBufferPool(1, 1))
+                            .build();
+            inputGate.setup();
+            RemoteInputChannel channel =
+                    InputChannelBuilder.newBuilder()
+                            .setConnectionManager(
+                                    new TestVerifyConnectionManager(
+                                            new TestVerifyPartitionRequestClient()))
+                            .buildRemoteChannel(inputGate);
+            channel.requestSubpartition(0);
+
+            Buffer compressedBuffer =
+                    new BufferCompressor(bufferSize, "LZ4")
+                            .compressToOriginalBuffer(createBuffer(bufferSize));
+            assertTrue(compressedBuffer.isCompressed());
+            channel.onBuffer(compressedBuffer, 0, -1);
+
+            // the in-flight data of the channel is never compressed
+            Optional<BufferAndAvailability> next = channel.getNextBuffer();
+            assertTrue(next.isPresent());
+            assertFalse(next.get().buffer().isCompressed());
+            assertEquals(bufferSize, next.get().buffer().getSize());
+            next.get().buffer().recycleBuffer();
+        } finally {
+            networkBufferPool.destroy();
+        }
+    }
+
     @Test
     public void testExceptionOnReordering() throws Exception {
         // Setup
@@ -28,6 +28,9 @@ import org.apache.flink.runtime.io.network.partition.PartitionProducerStateProvi
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.taskmanager.NettyShuffleEnvironmentConfiguration;
+import org.apache.flink.runtime.throughput.BufferDebloater;
+import org.apache.flink.runtime.throughput.ThroughputCalculator;
+import org.apache.flink.util.clock.SystemClock;
 import org.apache.flink.util.function.SupplierWithException;
 
 import javax.annotation.Nullable;
@@ -50,6 +53,8 @@ public class SingleInputGateBuilder {
 
     private int consumedSubpartitionIndex = 0;
 
+    private int numberOfConsumedSubpartitions = 1;
+
     private int gateIndex = 0;
 
     private int numberOfChannels = 1;
@@ -63,6 +68,8 @@ public class SingleInputGateBuilder {
 
     private ChannelStateWriter channelStateWriter = ChannelStateWriter.NO_OP;
 
+    @Nullable private BufferDebloater bufferDebloater = null;
+
     @Nullable
     private BiFunction<InputChannelBuilder, SingleInputGate, InputChannel> channelFactory = null;
 
@@ -88,6 +95,12 @@ public class SingleInputGateBuilder {
         return this;
     }
 
+    public SingleInputGateBuilder setNumberOfConsumedSubpartitions(
+            int numberOfConsumedSubpartitions) {
+        this.numberOfConsumedSubpartitions = numberOfConsumedSubpartitions;
+        return this;
+    }
+
     public SingleInputGateBuilder setSingleInputGateIndex(int gateIndex) {
         this.gateIndex = gateIndex;
         return this;
@@ -133,6 +146,11 @@ public class SingleInputGateBuilder {
         return this;
     }
 
+    public SingleInputGateBuilder setBufferDebloater(@Nullable BufferDebloater bufferDebloater) {
+        this.bufferDebloater = bufferDebloater;
+        return this;
+    }
+
     public SingleInputGateBuilder setChannelStateWriter(ChannelStateWriter channelStateWriter) {
         this.channelStateWriter = channelStateWriter;
         return this;
@@ -146,12 +164,15 @@ public class SingleInputGateBuilder {
                         intermediateDataSetID,
                         partitionType,
                         consumedSubpartitionIndex,
+                        numberOfConsumedSubpartitions,
                         numberOfChannels,
                         partitionProducerStateProvider,
                         bufferPoolFactory,
                         bufferDecompressor,
                         segmentProvider,
-                        bufferSize);
+                        bufferSize,
+                        new ThroughputCalculator(SystemClock.getInstance()),
+                        bufferDebloater);
         if (channelFactory != null) {
             gate.setInputChannels(
                     IntStream.range(0, numberOfChannels)
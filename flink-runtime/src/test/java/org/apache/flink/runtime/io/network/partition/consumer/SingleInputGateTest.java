@@ -59,6 +59,8 @@ import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
 import org.apache.flink.runtime.shuffle.ShuffleDescriptor;
 import org.apache.flink.runtime.shuffle.UnknownShuffleDescriptor;
+import org.apache.flink.runtime.throughput.BufferDebloatConfiguration;
+import org.apache.flink.runtime.throughput.BufferDebloater;
 
 import org.apache.flink.shaded.guava18.com.google.common.io.Closer;
 
@@ -67,6 +69,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -494,6 +497,61 @@ public class SingleInputGateTest extends InputGateTestBase {
         assertEquals(IllegalStateException.class, asyncException.get().getClass());
     }
 
+    /**
+     * Tests that a gate consuming a range of subpartitions creates a single channel for each
+     * consumed partition, which reads the whole range.
+     */
+    @Test
+    public void testCreateInputChannelsForSubpartitionRange() throws Exception {
+        IntermediateResultPartitionID[] partitionIds =
+                new IntermediateResultPartitionID[] {
+                    new IntermediateResultPartitionID(), new IntermediateResultPartitionID()
+                };
+        ShuffleDescriptor[] channelDescs =
+                new ShuffleDescriptor[] {
+                    new UnknownShuffleDescriptor(
+                            new ResultPartitionID(partitionIds[0], new ExecutionAttemptID())),
+                    new UnknownShuffleDescriptor(
+                            new ResultPartitionID(partitionIds[1], new ExecutionAttemptID()))
+                };
+        InputGateDeploymentDescriptor gateDesc =
+                new InputGateDeploymentDescriptor(
+                        new IntermediateDataSetID(),
+                        ResultPartitionType.BLOCKING,
+                        1,
+                        4,
+                        channelDescs);
+
+        final NettyShuffleEnvironment netEnv = createNettyShuffleEnvironment();
+        SingleInputGate gate =
+                new SingleInputGateFactory(
+                                ResourceID.generate(),
+                                netEnv.getConfiguration(),
+                                netEnv.getConnectionManager(),
+                                netEnv.getResultPartitionManager(),
+                                new TaskEventDispatcher(),
+                                netEnv.getNetworkBufferPool())
+                        .create(
+                                "TestTask",
+                                0,
+                                gateDesc,
+                                SingleInputGateBuilder.NO_OP_PRODUCER_CHECKER,
+                                InputChannelTestUtils.newUnregisteredInputChannelMetrics());
+
+        try (Closer closer = Closer.create()) {
+            closer.register(netEnv::close);
+            closer.register(gate::close);
+
+            assertEquals(4, gate.getNumberOfConsumedSubpartitions());
+            assertEquals(2, gate.getNumberOfInputChannels());
+            for (int channelIndex = 0; channelIndex < 2; channelIndex++) {
+                InputChannel channel = gate.getChannel(channelIndex);
+                assertEquals(partitionIds[channelIndex], channel.getPartitionId().getPartitionId());
+                assertEquals(channel, gate.getInputChannels().get(partitionIds[channelIndex]));
+            }
+        }
+    }
+
     /** Tests request back off configuration is correctly forwarded to the channels. */
     @Test
     public void testRequestBackoffConfiguration() throws Exception {
@@ -819,6 +877,67 @@ public class SingleInputGateTest extends InputGateTestBase {
         }
     }
 
+    /**
+     * Tests that the buffer size recalculated by {@link SingleInputGate#triggerDebloating()} limits
+     * the size of the buffers emitted by a local producer.
+     */
+    @Test
+    public void testDebloatedBufferSizeIsAnnouncedToLocalProducer() throws Exception {
+        final int minBufferSize = 128;
+        final NettyShuffleEnvironment network = createNettyShuffleEnvironment();
+
+        final BufferWritingResultPartition resultPartition =
+                (BufferWritingResultPartition)
+                        new ResultPartitionBuilder()
+                                .setResultPartitionManager(network.getResultPartitionManager())
+                                .setupBufferPoolFactoryFromNettyShuffleEnvironment(network)
+                                .build();
+
+        final SingleInputGate inputGate =
+                new SingleInputGateBuilder()
+                        .setBufferDebloater(
+                                new BufferDebloater(
+                                        new BufferDebloatConfiguration(
+                                                true,
+                                                Duration.ofSeconds(1),
+                                                Duration.ofMillis(200),
+                                                minBufferSize,
+                                                network.getConfiguration().networkBufferSize(),
+                                                1,
+                                                25)))
+                        .setupBufferPoolFactory(network)
+                        .build();
+        final InputChannel localChannel =
+                InputChannelBuilder.newBuilder()
+                        .setPartitionId(resultPartition.getPartitionId())
+                        .setupFromNettyShuffleEnvironment(network)
+                        .setConnectionManager(new TestingConnectionManager())
+                        .buildLocalChannel(inputGate);
+
+        try (Closer closer = Closer.create()) {
+            closer.register(network::close);
+            closer.register(inputGate::close);
+            closer.register(resultPartition::release);
+
+            resultPartition.setup();
+            setupInputGate(inputGate, localChannel);
+
+            // nothing has been consumed yet, so the buffer size drops to the minimum
+            inputGate.triggerDebloating();
+            assertEquals(minBufferSize, inputGate.getBufferDebloater().getLastBufferSize());
+
+            resultPartition.emitRecord(ByteBuffer.allocate(3 * minBufferSize), 0);
+            resultPartition.flushAll();
+
+            for (int i = 0; i < 3; i++) {
+                Optional<BufferOrEvent> bufferOrEvent = inputGate.pollNext();
+                assertTrue(bufferOrEvent.isPresent());
+                assertEquals(minBufferSize, bufferOrEvent.get().getBuffer().getSize());
+                bufferOrEvent.get().getBuffer().recycleBuffer();
+            }
+        }
+    }
+
     /**
      * Tests that if the {@link PartitionNotFoundException} is set onto one {@link InputChannel},
      * then it would be thrown directly via {@link SingleInputGate#getNext()}. So we could confirm
@@ -23,6 +23,7 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.JobManagerOptions;
 import org.apache.flink.configuration.SchedulerExecutionMode;
 import org.apache.flink.runtime.jobgraph.JobType;
+import org.apache.flink.runtime.scheduler.AdaptiveBatchSchedulerFactory;
 import org.apache.flink.runtime.scheduler.DefaultSchedulerFactory;
 import org.apache.flink.runtime.scheduler.adaptive.AdaptiveSchedulerFactory;
 import org.apache.flink.util.TestLogger;
@@ -71,4 +72,42 @@ public class DefaultSlotPoolServiceSchedulerFactoryTest extends TestLogger {
                 defaultSlotPoolServiceSchedulerFactory.getSchedulerType(),
                 is(JobManagerOptions.SchedulerType.Adaptive));
     }
+
+    @Test
+    public void testAdaptiveBatchSchedulerForBatchJob() {
+        final Configuration configuration = new Configuration();
+        configuration.set(
+                JobManagerOptions.SCHEDULER, JobManagerOptions.SchedulerType.AdaptiveBatch);
+        configuration.set(ClusterOptions.ENABLE_DECLARATIVE_RESOURCE_MANAGEMENT, true);
+
+        final DefaultSlotPoolServiceSchedulerFactory defaultSlotPoolServiceSchedulerFactory =
+                DefaultSlotPoolServiceSchedulerFactory.fromConfiguration(
+                        configuration, JobType.BATCH);
+
+        assertThat(
+                defaultSlotPoolServiceSchedulerFactory.getSchedulerNGFactory(),
+                is(instanceOf(AdaptiveBatchSchedulerFactory.class)));
+        assertThat(
+                defaultSlotPoolServiceSchedulerFactory.getSchedulerType(),
+                is(JobManagerOptions.SchedulerType.AdaptiveBatch));
+    }
+
+    @Test
+    public void testFallsBackToDefaultSchedulerIfStreamingJobWithAdaptiveBatchScheduler() {
+        final Configuration configuration = new Configuration();
+        configuration.set(
+                JobManagerOptions.SCHEDULER, JobManagerOptions.SchedulerType.AdaptiveBatch);
+        configuration.set(ClusterOptions.ENABLE_DECLARATIVE_RESOURCE_MANAGEMENT, true);
+
+        final DefaultSlotPoolServiceSchedulerFactory defaultSlotPoolServiceSchedulerFactory =
+                DefaultSlotPoolServiceSchedulerFactory.fromConfiguration(
+                        configuration, JobType.STREAMING);
+
+        assertThat(
+                defaultSlotPoolServiceSchedulerFactory.getSchedulerNGFactory(),
+                is(instanceOf(DefaultSchedulerFactory.class)));
+        assertThat(
+                defaultSlotPoolServiceSchedulerFactory.getSchedulerType(),
+                is(JobManagerOptions.SchedulerType.Ng));
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.scheduler;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.JobManagerOptions;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobGraphTestUtils;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.testtasks.NoOpInvokable;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/** Tests for {@link AdaptiveBatchSchedulerFactory}. */
+public class AdaptiveBatchSchedulerFactoryTest extends TestLogger {
+
+    @Test
+    public void testInitializeVertexParallelism() throws Exception {
+        final JobVertex source = createJobVertex("source");
+        final JobVertex aggregate = createJobVertex("aggregate");
+        final JobVertex join = createJobVertex("join");
+        final JobVertex map = createJobVertex("map");
+        final JobVertex sink = createJobVertex("sink");
+
+        aggregate.connectNewDataSetAsInput(
+                source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.BLOCKING);
+        aggregate.setMaxParallelism(64);
+        join.connectNewDataSetAsInput(
+                aggregate, DistributionPattern.ALL_TO_ALL, ResultPartitionType.BLOCKING);
+        join.connectNewDataSetAsInput(
+                        source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.BLOCKING)
+                .setBroadcast(true);
+        sink.connectNewDataSetAsInput(
+                join, DistributionPattern.POINTWISE, ResultPartitionType.BLOCKING);
+        map.connectNewDataSetAsInput(
+                source, DistributionPattern.POINTWISE, ResultPartitionType.BLOCKING);
+
+        final Configuration configuration = new Configuration();
+        configuration.set(JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_MAX_PARALLELISM, 32);
+        configuration.set(JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_DEFAULT_SOURCE_PARALLELISM, 4);
+
+        final JobGraph jobGraph =
+                JobGraphTestUtils.batchJobGraph(source, aggregate, join, map, sink);
+        final Set<JobVertexID> adaptiveVertices =
+                AdaptiveBatchSchedulerFactory.initializeVertexParallelism(jobGraph, configuration);
+
+        // the join has a pointwise output, so only the aggregate is adaptive
+        assertThat(adaptiveVertices, containsInAnyOrder(aggregate.getID()));
+        assertEquals(4, source.getParallelism());
+        assertEquals(64, aggregate.getParallelism());
+        assertEquals(64, aggregate.getMaxParallelism());
+        assertEquals(ExecutionConfig.PARALLELISM_DEFAULT, join.getParallelism());
+        assertEquals(4, map.getParallelism());
+        assertEquals(ExecutionConfig.PARALLELISM_DEFAULT, sink.getParallelism());
+    }
+
+    @Test
+    public void testVertexWithConfiguredParallelismIsNotAdaptive() throws Exception {
+        final JobVertex source = createJobVertex("source");
+        final JobVertex sink = createJobVertex("sink");
+        sink.connectNewDataSetAsInput(
+                source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.BLOCKING);
+        sink.setParallelism(3);
+
+        final Set<JobVertexID> adaptiveVertices =
+                AdaptiveBatchSchedulerFactory.initializeVertexParallelism(
+                        JobGraphTestUtils.batchJobGraph(source, sink), new Configuration());
+
+        assertEquals(Collections.emptySet(), adaptiveVertices);
+        assertEquals(1, source.getParallelism());
+        assertEquals(3, sink.getParallelism());
+    }
+
+    private static JobVertex createJobVertex(String name) {
+        final JobVertex jobVertex = new JobVertex(name);
+        jobVertex.setInvokableClass(NoOpInvokable.class);
+        return jobVertex;
+    }
+}
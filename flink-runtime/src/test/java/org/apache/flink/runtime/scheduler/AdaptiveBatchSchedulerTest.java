@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.scheduler;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.JobStatus;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.JobManagerOptions;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.concurrent.ComponentMainThreadExecutorServiceAdapter;
+import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
+import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor;
+import org.apache.flink.runtime.execution.ExecutionState;
+import org.apache.flink.runtime.executiongraph.Execution;
+import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.ExecutionVertex;
+import org.apache.flink.runtime.executiongraph.IOMetrics;
+import org.apache.flink.runtime.executiongraph.utils.SimpleAckingTaskManagerGateway;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobGraphTestUtils;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.scheduler.strategy.ExecutionVertexID;
+import org.apache.flink.runtime.taskmanager.TaskExecutionState;
+import org.apache.flink.runtime.testtasks.NoOpInvokable;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/** Tests for {@link AdaptiveBatchScheduler}. */
+public class AdaptiveBatchSchedulerTest extends TestLogger {
+
+    private static final int SOURCE_PARALLELISM = 2;
+
+    private static final int MAX_PARALLELISM = 8;
+
+    private static final long DATA_VOLUME_PER_TASK = MemorySize.ofMebiBytes(1).getBytes();
+
+    private TestExecutionVertexOperationsDecorator executionVertexOperations;
+
+    private TestExecutionSlotAllocatorFactory executionSlotAllocatorFactory;
+
+    private List<TaskDeploymentDescriptor> submittedTasks;
+
+    @Before
+    public void setUp() {
+        executionVertexOperations =
+                new TestExecutionVertexOperationsDecorator(new DefaultExecutionVertexOperations());
+
+        submittedTasks = new ArrayList<>();
+        final SimpleAckingTaskManagerGateway taskManagerGateway =
+                new SimpleAckingTaskManagerGateway();
+        taskManagerGateway.setSubmitConsumer(submittedTasks::add);
+
+        executionSlotAllocatorFactory = new TestExecutionSlotAllocatorFactory();
+        executionSlotAllocatorFactory
+                .getTestExecutionSlotAllocator()
+                .getLogicalSlotBuilder()
+                .setTaskManagerGateway(taskManagerGateway);
+    }
+
+    @Test
+    public void testDeploysSubtasksBelowDecidedParallelism() throws Exception {
+        final JobVertex source = createJobVertex("source", SOURCE_PARALLELISM);
+        final JobVertex sink = createJobVertex("sink", ExecutionConfig.PARALLELISM_DEFAULT);
+        sink.connectNewDataSetAsInput(
+                source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.BLOCKING);
+
+        final AdaptiveBatchScheduler scheduler =
+                createScheduler(JobGraphTestUtils.batchJobGraph(source, sink));
+        scheduler.startScheduling();
+
+        // the sources produce 2.5 times the data volume of a task
+        finishSubtasks(scheduler, source, 5 * DATA_VOLUME_PER_TASK / 4);
+
+        final ExecutionJobVertex sinkVertex = scheduler.getExecutionJobVertex(sink.getID());
+        assertEquals(MAX_PARALLELISM, sinkVertex.getParallelism());
+        assertEquals(3, sinkVertex.getNumberOfDeployedSubtasks());
+
+        final List<ExecutionVertexID> deployedSinkSubtasks = new ArrayList<>();
+        for (ExecutionVertexID executionVertexId :
+                executionVertexOperations.getDeployedVertices()) {
+            if (executionVertexId.getJobVertexId().equals(sink.getID())) {
+                deployedSinkSubtasks.add(executionVertexId);
+            }
+        }
+        assertThat(
+                deployedSinkSubtasks,
+                containsInAnyOrder(
+                        new ExecutionVertexID(sink.getID(), 0),
+                        new ExecutionVertexID(sink.getID(), 1),
+                        new ExecutionVertexID(sink.getID(), 2)));
+
+        // the remaining subtasks are finished without being deployed
+        for (int subtask = 3; subtask < MAX_PARALLELISM; subtask++) {
+            assertEquals(
+                    ExecutionState.FINISHED,
+                    sinkVertex.getTaskVertices()[subtask].getExecutionState());
+        }
+
+        finishSubtasks(scheduler, sink, 0L);
+        assertEquals(JobStatus.FINISHED, scheduler.requestJobStatus());
+    }
+
+    @Test
+    public void testDeployedSubtasksConsumeSubpartitionRanges() throws Exception {
+        final JobVertex source = createJobVertex("source", SOURCE_PARALLELISM);
+        final JobVertex broadcastSource = createJobVertex("broadcast source", 1);
+        final JobVertex sink = createJobVertex("sink", ExecutionConfig.PARALLELISM_DEFAULT);
+        sink.connectNewDataSetAsInput(
+                source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.BLOCKING);
+        sink.connectNewDataSetAsInput(
+                        broadcastSource,
+                        DistributionPattern.ALL_TO_ALL,
+                        ResultPartitionType.BLOCKING)
+                .setBroadcast(true);
+
+        final AdaptiveBatchScheduler scheduler =
+                createScheduler(JobGraphTestUtils.batchJobGraph(source, broadcastSource, sink));
+        scheduler.startScheduling();
+
+        // the broadcast data does not count towards the data volume of the sink
+        finishSubtasks(scheduler, broadcastSource, 10 * DATA_VOLUME_PER_TASK);
+        finishSubtasks(scheduler, source, 5 * DATA_VOLUME_PER_TASK / 4);
+
+        final List<TaskDeploymentDescriptor> sinkTasks = new ArrayList<>();
+        for (TaskDeploymentDescriptor tdd : submittedTasks) {
+            if (!tdd.getInputGates().isEmpty()) {
+                sinkTasks.add(tdd);
+            }
+        }
+        sinkTasks.sort(Comparator.comparingInt(TaskDeploymentDescriptor::getSubtaskIndex));
+        assertEquals(3, sinkTasks.size());
+
+        // the subpartition ranges are the key group ranges of the deployed subtasks
+        final int[][] expectedRanges = {{0, 3}, {3, 3}, {6, 2}};
+        for (int subtask = 0; subtask < sinkTasks.size(); subtask++) {
+            final List<InputGateDeploymentDescriptor> inputGates =
+                    sinkTasks.get(subtask).getInputGates();
+            assertEquals(2, inputGates.size());
+
+            final InputGateDeploymentDescriptor inputGate = inputGates.get(0);
+            assertEquals(SOURCE_PARALLELISM, inputGate.getShuffleDescriptors().length);
+            assertEquals(expectedRanges[subtask][0], inputGate.getConsumedSubpartitionIndex());
+            assertEquals(expectedRanges[subtask][1], inputGate.getNumberOfConsumedSubpartitions());
+
+            final InputGateDeploymentDescriptor broadcastInputGate = inputGates.get(1);
+            assertEquals(subtask, broadcastInputGate.getConsumedSubpartitionIndex());
+            assertEquals(1, broadcastInputGate.getNumberOfConsumedSubpartitions());
+        }
+    }
+
+    private AdaptiveBatchScheduler createScheduler(JobGraph jobGraph) throws Exception {
+        final Configuration configuration = new Configuration();
+        configuration.set(
+                JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_MAX_PARALLELISM, MAX_PARALLELISM);
+        configuration.set(
+                JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_DATA_VOLUME_PER_TASK,
+                new MemorySize(DATA_VOLUME_PER_TASK));
+
+        return SchedulerTestingUtils.newSchedulerBuilder(
+                        jobGraph, ComponentMainThreadExecutorServiceAdapter.forMainThread())
+                .setLogger(log)
+                .setJobMasterConfiguration(configuration)
+                .setExecutionVertexOperations(executionVertexOperations)
+                .setExecutionSlotAllocatorFactory(executionSlotAllocatorFactory)
+                .buildAdaptiveBatchScheduler();
+    }
+
+    /**
+     * Finishes the deployed subtasks of the given job vertex, reporting the given number of bytes
+     * produced into each of their result partitions.
+     */
+    private static void finishSubtasks(
+            AdaptiveBatchScheduler scheduler, JobVertex jobVertex, long numBytesProduced) {
+        for (ExecutionVertex executionVertex :
+                scheduler.getExecutionJobVertex(jobVertex.getID()).getTaskVertices()) {
+            final Execution execution = executionVertex.getCurrentExecutionAttempt();
+            if (execution.getState() == ExecutionState.FINISHED) {
+                continue;
+            }
+
+            final Map<IntermediateResultPartitionID, Long> numBytesProducedOfPartitions =
+                    new HashMap<>();
+            for (IntermediateResultPartitionID partitionId :
+                    executionVertex.getProducedPartitions().keySet()) {
+                numBytesProducedOfPartitions.put(partitionId, numBytesProduced);
+            }
+            final IOMetrics ioMetrics =
+                    new IOMetrics(
+                            new MeterView(new SimpleCounter()),
+                            new MeterView(new SimpleCounter()),
+                            new MeterView(new SimpleCounter()),
+                            new MeterView(new SimpleCounter()),
+                            numBytesProducedOfPartitions);
+
+            scheduler.updateTaskExecutionState(
+                    new TaskExecutionState(
+                            execution.getAttemptId(),
+                            ExecutionState.FINISHED,
+                            null,
+                            null,
+                            ioMetrics));
+        }
+    }
+
+    private static JobVertex createJobVertex(String name, int parallelism) {
+        final JobVertex jobVertex = new JobVertex(name);
+        jobVertex.setParallelism(parallelism);
+        jobVertex.setInvokableClass(NoOpInvokable.class);
+        return jobVertex;
+    }
+}
@@ -78,6 +78,7 @@ import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
@@ -549,5 +550,38 @@ public class SchedulerTestingUtils {
                     mainThreadExecutor,
                     jobStatusListener);
         }
+
+        public AdaptiveBatchScheduler buildAdaptiveBatchScheduler() throws Exception {
+            final Set<JobVertexID> adaptiveVertices =
+                    AdaptiveBatchSchedulerFactory.initializeVertexParallelism(
+                            jobGraph, jobMasterConfiguration);
+            return new AdaptiveBatchScheduler(
+                    log,
+                    jobGraph,
+                    ioExecutor,
+                    jobMasterConfiguration,
+                    componentMainThreadExecutor -> {},
+                    futureExecutor,
+                    delayExecutor,
+                    userCodeLoader,
+                    checkpointRecoveryFactory,
+                    rpcTimeout,
+                    blobWriter,
+                    jobManagerJobMetricGroup,
+                    shuffleMaster,
+                    partitionTracker,
+                    schedulingStrategyFactory,
+                    failoverStrategyFactory,
+                    restartBackoffTimeStrategy,
+                    executionVertexOperations,
+                    executionVertexVersioner,
+                    executionSlotAllocatorFactory,
+                    new DefaultExecutionDeploymentTracker(),
+                    System.currentTimeMillis(),
+                    mainThreadExecutor,
+                    jobStatusListener,
+                    adaptiveVertices,
+                    VertexParallelismDecider.fromConfiguration(jobMasterConfiguration));
+        }
     }
 }
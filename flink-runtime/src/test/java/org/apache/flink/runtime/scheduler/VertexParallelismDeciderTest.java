@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.runtime.scheduler;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.JobManagerOptions;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests for {@link VertexParallelismDecider}. */
+public class VertexParallelismDeciderTest extends TestLogger {
+
+    private static final long DATA_VOLUME_PER_TASK = 1024L;
+
+    private final VertexParallelismDecider decider =
+            new VertexParallelismDecider(2, DATA_VOLUME_PER_TASK);
+
+    @Test
+    public void testDecideParallelismFromConsumedBytes() {
+        assertEquals(3, decider.decideParallelism(3 * DATA_VOLUME_PER_TASK, 10));
+        assertEquals(4, decider.decideParallelism(3 * DATA_VOLUME_PER_TASK + 1, 10));
+    }
+
+    @Test
+    public void testParallelismIsBoundedByMinParallelism() {
+        assertEquals(2, decider.decideParallelism(0L, 10));
+        assertEquals(2, decider.decideParallelism(DATA_VOLUME_PER_TASK, 10));
+    }
+
+    @Test
+    public void testParallelismIsBoundedByMaxParallelism() {
+        assertEquals(10, decider.decideParallelism(100 * DATA_VOLUME_PER_TASK, 10));
+        // the max parallelism takes precedence over the min parallelism
+        assertEquals(1, decider.decideParallelism(0L, 1));
+    }
+
+    @Test
+    public void testFromConfiguration() {
+        final Configuration configuration = new Configuration();
+        configuration.set(JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_MIN_PARALLELISM, 3);
+        configuration.set(
+                JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_DATA_VOLUME_PER_TASK,
+                MemorySize.ofMebiBytes(1));
+
+        final VertexParallelismDecider configuredDecider =
+                VertexParallelismDecider.fromConfiguration(configuration);
+
+        assertEquals(3, configuredDecider.decideParallelism(0L, 10));
+        assertEquals(5, configuredDecider.decideParallelism(5 * 1024 * 1024, 10));
+    }
+}
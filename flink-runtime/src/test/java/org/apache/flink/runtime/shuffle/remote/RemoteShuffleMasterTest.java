@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.concurrent.ManuallyTriggeredScheduledExecutor;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.PartitionedFileWriter;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.PartitionDescriptor;
+import org.apache.flink.runtime.shuffle.PartitionDescriptorBuilder;
+import org.apache.flink.runtime.shuffle.ProducerDescriptor;
+import org.apache.flink.runtime.shuffle.RemoteShuffleOptions;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for the {@link RemoteShuffleMaster}. */
+public class RemoteShuffleMasterTest extends TestLogger {
+
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ShuffleWorker shuffleWorker;
+
+    private ShuffleWorkerClient client;
+
+    @Before
+    public void setup() throws IOException {
+        shuffleWorker = startShuffleWorker();
+        client = createClient(shuffleWorker);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        if (shuffleWorker != null) {
+            shuffleWorker.close();
+        }
+    }
+
+    @Test
+    public void testBlockingPartitionIsStoredOnShuffleWorker() throws Exception {
+        RemoteShuffleMaster shuffleMaster =
+                new RemoteShuffleMaster(Collections.singletonList(client), Runnable::run);
+        ResourceID producerLocation = ResourceID.generate();
+
+        NettyShuffleDescriptor descriptor =
+                registerPartition(shuffleMaster, ResultPartitionType.BLOCKING, producerLocation);
+
+        assertThat(descriptor, instanceOf(RemoteShuffleDescriptor.class));
+        assertFalse(descriptor.storesLocalResourcesOn().isPresent());
+        assertFalse(descriptor.isLocalTo(producerLocation));
+        assertEquals(
+                shuffleWorker.getDataPort(), descriptor.getConnectionId().getAddress().getPort());
+        assertEquals(
+                client.getAddress(), ((RemoteShuffleDescriptor) descriptor).getWorkerAddress());
+    }
+
+    @Test
+    public void testPipelinedPartitionIsNotStoredOnShuffleWorker() throws Exception {
+        RemoteShuffleMaster shuffleMaster =
+                new RemoteShuffleMaster(Collections.singletonList(client), Runnable::run);
+        ResourceID producerLocation = ResourceID.generate();
+
+        NettyShuffleDescriptor descriptor =
+                registerPartition(shuffleMaster, ResultPartitionType.PIPELINED, producerLocation);
+
+        assertThat(descriptor, not(instanceOf(RemoteShuffleDescriptor.class)));
+        assertTrue(descriptor.isLocalTo(producerLocation));
+    }
+
+    @Test
+    public void testPartitionsAreSpreadOverShuffleWorkers() throws Exception {
+        try (ShuffleWorker otherShuffleWorker = startShuffleWorker()) {
+            ShuffleWorkerClient otherClient = createClient(otherShuffleWorker);
+            RemoteShuffleMaster shuffleMaster =
+                    new RemoteShuffleMaster(Arrays.asList(client, otherClient), Runnable::run);
+
+            RemoteShuffleDescriptor first =
+                    (RemoteShuffleDescriptor)
+                            registerPartition(
+                                    shuffleMaster,
+                                    ResultPartitionType.BLOCKING,
+                                    ResourceID.generate());
+            RemoteShuffleDescriptor second =
+                    (RemoteShuffleDescriptor)
+                            registerPartition(
+                                    shuffleMaster,
+                                    ResultPartitionType.BLOCKING,
+                                    ResourceID.generate());
+
+            assertEquals(client.getAddress(), first.getWorkerAddress());
+            assertEquals(otherClient.getAddress(), second.getWorkerAddress());
+            assertEquals(
+                    otherShuffleWorker.getDataPort(),
+                    second.getConnectionId().getAddress().getPort());
+        }
+    }
+
+    @Test
+    public void testReleasePartitionExternally() throws Exception {
+        RemoteShuffleMaster shuffleMaster =
+                new RemoteShuffleMaster(Collections.singletonList(client), Runnable::run);
+        NettyShuffleDescriptor descriptor =
+                registerPartition(
+                        shuffleMaster, ResultPartitionType.BLOCKING, ResourceID.generate());
+        ResultPartitionID partitionId = descriptor.getResultPartitionID();
+
+        PartitionedFile partitionedFile =
+                new PartitionedFileWriter(1, 640, temporaryFolder.newFile().getPath()).finish();
+        client.uploadPartition(partitionId, partitionedFile, new int[] {0});
+        assertEquals(1, shuffleWorker.getNumberOfStoredPartitions());
+
+        shuffleMaster.releasePartitionExternally(descriptor);
+        assertEquals(0, shuffleWorker.getNumberOfStoredPartitions());
+    }
+
+    @Test
+    public void testDataPortIsRequestedAsynchronously() throws Exception {
+        ManuallyTriggeredScheduledExecutor ioExecutor = new ManuallyTriggeredScheduledExecutor();
+        RemoteShuffleMaster shuffleMaster =
+                new RemoteShuffleMaster(Collections.singletonList(client), ioExecutor);
+
+        // the registration completes immediately, even though the data port is not known yet
+        CompletableFuture<NettyShuffleDescriptor> registration =
+                registerPartitionAsync(shuffleMaster, ResultPartitionType.BLOCKING);
+        assertTrue(registration.isCompletedExceptionally());
+        assertEquals(1, ioExecutor.numQueuedRunnables());
+
+        ioExecutor.triggerAll();
+        assertEquals(shuffleWorker.getDataPort(), client.getKnownDataPort());
+        assertEquals(
+                shuffleWorker.getDataPort(),
+                registerPartitionAsync(shuffleMaster, ResultPartitionType.BLOCKING)
+                        .get()
+                        .getConnectionId()
+                        .getAddress()
+                        .getPort());
+    }
+
+    @Test
+    public void testUnreachableShuffleWorkerIsSkipped() throws Exception {
+        ShuffleWorker stoppedShuffleWorker = startShuffleWorker();
+        ShuffleWorkerClient stoppedClient = createClient(stoppedShuffleWorker);
+        stoppedShuffleWorker.close();
+
+        RemoteShuffleMaster shuffleMaster =
+                new RemoteShuffleMaster(Arrays.asList(stoppedClient, client), Runnable::run);
+
+        for (int i = 0; i < 2; i++) {
+            RemoteShuffleDescriptor descriptor =
+                    (RemoteShuffleDescriptor)
+                            registerPartition(
+                                    shuffleMaster,
+                                    ResultPartitionType.BLOCKING,
+                                    ResourceID.generate());
+            assertEquals(client.getAddress(), descriptor.getWorkerAddress());
+        }
+    }
+
+    @Test(expected = IllegalConfigurationException.class)
+    public void testShuffleWorkersMustBeConfigured() {
+        RemoteShuffleMaster.fromConfiguration(new Configuration());
+    }
+
+    private ShuffleWorker startShuffleWorker() throws IOException {
+        Configuration configuration = new Configuration();
+        configuration.set(RemoteShuffleOptions.WORKER_BIND_HOST, "localhost");
+        configuration.set(RemoteShuffleOptions.WORKER_PORT, 0);
+        configuration.set(
+                RemoteShuffleOptions.WORKER_STORAGE_DIRS,
+                temporaryFolder.newFolder().getAbsolutePath());
+
+        ShuffleWorker worker = new ShuffleWorker(configuration);
+        worker.start();
+        return worker;
+    }
+
+    private static ShuffleWorkerClient createClient(ShuffleWorker worker) {
+        return new ShuffleWorkerClient(
+                new InetSocketAddress("localhost", worker.getPort()), Duration.ofSeconds(10));
+    }
+
+    private static NettyShuffleDescriptor registerPartition(
+            RemoteShuffleMaster shuffleMaster,
+            ResultPartitionType partitionType,
+            ResourceID producerLocation)
+            throws Exception {
+        return registerPartitionAsync(shuffleMaster, partitionType, producerLocation).get();
+    }
+
+    private static CompletableFuture<NettyShuffleDescriptor> registerPartitionAsync(
+            RemoteShuffleMaster shuffleMaster, ResultPartitionType partitionType) {
+        return registerPartitionAsync(shuffleMaster, partitionType, ResourceID.generate());
+    }
+
+    private static CompletableFuture<NettyShuffleDescriptor> registerPartitionAsync(
+            RemoteShuffleMaster shuffleMaster,
+            ResultPartitionType partitionType,
+            ResourceID producerLocation) {
+        PartitionDescriptor partitionDescriptor =
+                PartitionDescriptorBuilder.newBuilder().setPartitionType(partitionType).build();
+        ProducerDescriptor producerDescriptor =
+                new ProducerDescriptor(
+                        producerLocation,
+                        new ExecutionAttemptID(),
+                        InetAddress.getLoopbackAddress(),
+                        10000);
+        return shuffleMaster.registerPartitionWithProducer(partitionDescriptor, producerDescriptor);
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.api.common.time.Deadline;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.SecurityOptions;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+import org.apache.flink.runtime.io.network.partition.NoOpBufferAvailablityListener;
+import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.PartitionedFileWriter;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
+import org.apache.flink.runtime.net.SSLUtilsTest;
+import org.apache.flink.runtime.shuffle.RemoteShuffleOptions;
+import org.apache.flink.runtime.testutils.CommonTestUtils;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.net.SocketFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for the {@link ShuffleWorker} and the {@link ShuffleWorkerClient}. */
+public class ShuffleWorkerTest extends TestLogger {
+
+    private static final int NUM_SUBPARTITIONS = 2;
+
+    private static final int NUM_BUFFERS_PER_SUBPARTITION = 10;
+
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File storageDir;
+
+    private ShuffleWorker shuffleWorker;
+
+    private ShuffleWorkerClient client;
+
+    @Before
+    public void setup() throws IOException {
+        storageDir = temporaryFolder.newFolder();
+        shuffleWorker = startShuffleWorker(storageDir.getAbsolutePath());
+        client =
+                new ShuffleWorkerClient(
+                        new InetSocketAddress("localhost", shuffleWorker.getPort()),
+                        Duration.ofSeconds(10));
+    }
+
+    @After
+    public void teardown() throws IOException {
+        if (shuffleWorker != null) {
+            shuffleWorker.close();
+        }
+    }
+
+    @Test
+    public void testGetDataPort() throws IOException {
+        assertTrue(shuffleWorker.getDataPort() > 0);
+        assertEquals(shuffleWorker.getDataPort(), client.getDataPort());
+    }
+
+    @Test
+    public void testUploadAndReadPartition() throws Exception {
+        ResultPartitionID partitionId = new ResultPartitionID();
+        client.uploadPartition(partitionId, createPartitionedFile(), createNumDataBuffers());
+        assertEquals(1, shuffleWorker.getNumberOfStoredPartitions());
+
+        // the views are read concurrently by the read threads of the shuffle worker
+        ResultSubpartitionView[] views = new ResultSubpartitionView[NUM_SUBPARTITIONS];
+        for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+            views[subpartition] =
+                    shuffleWorker
+                            .getPartitionManager()
+                            .createSubpartitionView(
+                                    partitionId, subpartition, new NoOpBufferAvailablityListener());
+        }
+
+        for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+            ResultSubpartitionView view = views[subpartition];
+            for (int i = 0; i < NUM_BUFFERS_PER_SUBPARTITION; i++) {
+                CommonTestUtils.waitUntilCondition(
+                        () -> view.isAvailable(1), Deadline.fromNow(Duration.ofMinutes(1)));
+                BufferAndBacklog bufferAndBacklog = view.getNextBuffer();
+                Buffer buffer = bufferAndBacklog.buffer();
+                assertTrue(buffer.isBuffer());
+                assertEquals(
+                        NUM_BUFFERS_PER_SUBPARTITION - i - 1, bufferAndBacklog.buffersInBacklog());
+                assertEquals(
+                        subpartition * NUM_BUFFERS_PER_SUBPARTITION + i,
+                        buffer.getNioBufferReadable().getInt());
+                buffer.recycleBuffer();
+            }
+            assertNull(view.getNextBuffer());
+            assertNull(view.getFailureCause());
+            view.releaseAllResources();
+        }
+    }
+
+    @Test
+    public void testReleasedPartitionIsDeletedAfterItsViews() throws Exception {
+        ResultPartitionID partitionId = new ResultPartitionID();
+        client.uploadPartition(partitionId, createPartitionedFile(), createNumDataBuffers());
+        ResultSubpartitionView view =
+                shuffleWorker
+                        .getPartitionManager()
+                        .createSubpartitionView(
+                                partitionId, 0, new NoOpBufferAvailablityListener());
+
+        client.releasePartition(partitionId);
+        assertEquals(0, shuffleWorker.getNumberOfStoredPartitions());
+        // the data and the index file are kept for the view
+        assertEquals(2L, countStoredFiles());
+
+        view.releaseAllResources();
+        assertEquals(0L, countStoredFiles());
+    }
+
+    @Test
+    public void testReleasePartition() throws IOException {
+        ResultPartitionID partitionId = new ResultPartitionID();
+        client.uploadPartition(partitionId, createPartitionedFile(), createNumDataBuffers());
+
+        client.releasePartition(partitionId);
+        assertEquals(0, shuffleWorker.getNumberOfStoredPartitions());
+
+        try {
+            shuffleWorker
+                    .getPartitionManager()
+                    .createSubpartitionView(partitionId, 0, new NoOpBufferAvailablityListener());
+            fail("Expected a PartitionNotFoundException.");
+        } catch (PartitionNotFoundException expected) {
+            // expected
+        }
+
+        // releasing an unknown partition is a no-op
+        client.releasePartition(new ResultPartitionID());
+    }
+
+    @Test
+    public void testRejectUploadWithIllegalNumberOfSubpartitions() throws IOException {
+        try (Socket socket = new Socket("localhost", shuffleWorker.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeByte(ShuffleWorkerProtocol.UPLOAD_OPERATION);
+            ShuffleWorkerProtocol.writeResultPartitionId(out, new ResultPartitionID());
+            // must not be used to allocate the buffer counts of the subpartitions
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+
+            ShuffleWorkerProtocol.readResponse(new DataInputStream(socket.getInputStream()));
+            fail("Expected the upload to be rejected.");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("number of subpartitions"));
+        }
+        assertEquals(0, shuffleWorker.getNumberOfStoredPartitions());
+
+        // the shuffle worker still accepts valid requests
+        client.uploadPartition(
+                new ResultPartitionID(), createPartitionedFile(), createNumDataBuffers());
+        assertEquals(1, shuffleWorker.getNumberOfStoredPartitions());
+    }
+
+    @Test
+    public void testResultPartitionIdRoundTrip() throws IOException {
+        ResultPartitionID partitionId = new ResultPartitionID();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ShuffleWorkerProtocol.writeResultPartitionId(new DataOutputStream(bytes), partitionId);
+
+        assertEquals(ShuffleWorkerProtocol.RESULT_PARTITION_ID_SIZE, bytes.size());
+        assertEquals(
+                partitionId,
+                ShuffleWorkerProtocol.readResultPartitionId(
+                        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    @Test
+    public void testPartitionsAreDeletedOnClose() throws IOException {
+        String storageDir = temporaryFolder.newFolder().getAbsolutePath();
+        try (ShuffleWorker worker = startShuffleWorker(storageDir)) {
+            new ShuffleWorkerClient(
+                            new InetSocketAddress("localhost", worker.getPort()),
+                            Duration.ofSeconds(10))
+                    .uploadPartition(
+                            new ResultPartitionID(),
+                            createPartitionedFile(),
+                            createNumDataBuffers());
+            assertEquals(1, worker.getNumberOfStoredPartitions());
+        }
+
+        // the storage directory of the shuffle worker is deleted with all partitions
+        assertEquals(0, checkNotNull(new File(storageDir).list()).length);
+    }
+
+    @Test
+    public void testSslConnection() throws Exception {
+        Configuration sslConfiguration =
+                SSLUtilsTest.createInternalSslConfigWithKeyAndTrustStores(
+                        SecurityOptions.SSL_PROVIDER.defaultValue());
+        try (ShuffleWorker worker =
+                startShuffleWorker(
+                        sslConfiguration, temporaryFolder.newFolder().getAbsolutePath())) {
+            InetSocketAddress address = new InetSocketAddress("localhost", worker.getPort());
+            ShuffleWorkerClient sslClient =
+                    new ShuffleWorkerClient(
+                            address,
+                            Duration.ofSeconds(10),
+                            ShuffleWorkerClient.createSocketFactory(sslConfiguration));
+
+            ResultPartitionID partitionId = new ResultPartitionID();
+            sslClient.uploadPartition(partitionId, createPartitionedFile(), createNumDataBuffers());
+            assertEquals(1, worker.getNumberOfStoredPartitions());
+            assertEquals(worker.getDataPort(), sslClient.getDataPort());
+            sslClient.releasePartition(partitionId);
+            assertEquals(0, worker.getNumberOfStoredPartitions());
+
+            // clients without SSL are rejected
+            try {
+                new ShuffleWorkerClient(address, Duration.ofSeconds(10)).getDataPort();
+                fail("Expected the request without SSL to fail.");
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testSocketFactoryWithoutSsl() {
+        assertSame(
+                SocketFactory.getDefault(),
+                ShuffleWorkerClient.createSocketFactory(new Configuration()));
+    }
+
+    private static ShuffleWorker startShuffleWorker(String storageDir) throws IOException {
+        return startShuffleWorker(new Configuration(), storageDir);
+    }
+
+    private static ShuffleWorker startShuffleWorker(Configuration configuration, String storageDir)
+            throws IOException {
+        configuration.set(RemoteShuffleOptions.WORKER_BIND_HOST, "localhost");
+        configuration.set(RemoteShuffleOptions.WORKER_PORT, 0);
+        configuration.set(RemoteShuffleOptions.WORKER_STORAGE_DIRS, storageDir);
+
+        ShuffleWorker worker = new ShuffleWorker(configuration);
+        worker.start();
+        return worker;
+    }
+
+    private long countStoredFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(storageDir.toPath())) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private PartitionedFile createPartitionedFile() throws IOException {
+        PartitionedFileWriter fileWriter =
+                new PartitionedFileWriter(
+                        NUM_SUBPARTITIONS, 1024, temporaryFolder.newFile().getPath());
+        fileWriter.startNewRegion();
+        for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+            for (int i = 0; i < NUM_BUFFERS_PER_SUBPARTITION; i++) {
+                ByteBuffer data = ByteBuffer.allocate(64);
+                data.putInt(subpartition * NUM_BUFFERS_PER_SUBPARTITION + i);
+                fileWriter.writeBuffer(
+                        new NetworkBuffer(
+                                MemorySegmentFactory.wrap(data.array()),
+                                (ignored) -> {},
+                                Buffer.DataType.DATA_BUFFER,
+                                data.capacity()),
+                        subpartition);
+            }
+        }
+        return fileWriter.finish();
+    }
+
+    private static int[] createNumDataBuffers() {
+        int[] numDataBuffers = new int[NUM_SUBPARTITIONS];
+        for (int subpartition = 0; subpartition < NUM_SUBPARTITIONS; subpartition++) {
+            numDataBuffers[subpartition] = NUM_BUFFERS_PER_SUBPARTITION;
+        }
+        return numDataBuffers;
+    }
+}
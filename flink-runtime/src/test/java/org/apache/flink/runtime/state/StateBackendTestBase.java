@@ -94,6 +94,7 @@ import org.junit.rules.ExpectedException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -1692,6 +1693,102 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
         backend.dispose();
     }
 
+    /**
+     * Tests {@link InternalValueState#getAll(Collection)} and {@link
+     * InternalValueState#putAll(Map)}, which access the state of keys other than the current key.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValueStateGetAllAndPutAll() throws Exception {
+        CheckpointableKeyedStateBackend<Integer> backend =
+                createKeyedBackend(IntSerializer.INSTANCE);
+        try {
+            ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+            ValueStateDescriptor<String> ttlKvId =
+                    new ValueStateDescriptor<>("ttl-id", String.class);
+            ttlKvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.days(1)).build());
+
+            for (ValueStateDescriptor<String> descriptor : Arrays.asList(kvId, ttlKvId)) {
+                InternalValueState<Integer, VoidNamespace, String> state =
+                        (InternalValueState<Integer, VoidNamespace, String>)
+                                backend.getPartitionedState(
+                                        VoidNamespace.INSTANCE,
+                                        VoidNamespaceSerializer.INSTANCE,
+                                        descriptor);
+
+                backend.setCurrentKey(1);
+                state.update("1");
+                backend.setCurrentKey(2);
+                state.update("2");
+
+                Map<Integer, String> updates = new HashMap<>();
+                updates.put(1, null);
+                updates.put(3, "3");
+                updates.put(4, "4");
+                state.putAll(updates);
+
+                // the current key is not changed by accessing other keys
+                assertEquals("2", state.value());
+
+                Map<Integer, String> expected = new HashMap<>();
+                expected.put(2, "2");
+                expected.put(3, "3");
+                expected.put(4, "4");
+                assertEquals(expected, state.getAll(Arrays.asList(1, 2, 3, 4, 5)));
+                assertEquals(Collections.emptyMap(), state.getAll(Collections.emptyList()));
+
+                backend.setCurrentKey(1);
+                assertNull(state.value());
+                backend.setCurrentKey(4);
+                assertEquals("4", state.value());
+            }
+        } finally {
+            IOUtils.closeQuietly(backend);
+            backend.dispose();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValueStateAsyncValue() throws Exception {
+        CheckpointableKeyedStateBackend<Integer> backend =
+                createKeyedBackend(IntSerializer.INSTANCE);
+        try {
+            ValueStateDescriptor<String> kvId =
+                    new ValueStateDescriptor<>("id", String.class, "default");
+            ValueStateDescriptor<String> ttlKvId =
+                    new ValueStateDescriptor<>("ttl-id", String.class);
+            ttlKvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.days(1)).build());
+
+            for (ValueStateDescriptor<String> descriptor : Arrays.asList(kvId, ttlKvId)) {
+                InternalValueState<Integer, VoidNamespace, String> state =
+                        (InternalValueState<Integer, VoidNamespace, String>)
+                                backend.getPartitionedState(
+                                        VoidNamespace.INSTANCE,
+                                        VoidNamespaceSerializer.INSTANCE,
+                                        descriptor);
+
+                backend.setCurrentKey(1);
+                state.update("1");
+
+                CompletableFuture<String> present = state.asyncValue(1);
+                // the default value is not applied to absent keys
+                CompletableFuture<String> absent = state.asyncValue(2);
+
+                // the current key does not affect pending reads
+                backend.setCurrentKey(3);
+                assertEquals("1", present.get());
+                assertNull(absent.get());
+
+                state.update("3");
+                assertEquals("3", state.asyncValue(3).get());
+            }
+        } finally {
+            IOUtils.closeQuietly(backend);
+            backend.dispose();
+        }
+    }
+
     @Test
     @SuppressWarnings("unchecked,rawtypes")
     public void testListState() throws Exception {
@@ -0,0 +1,474 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.MapSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.runtime.state.testutils.StateEntryMatcher.entry;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertThat;
+
+/** Test for {@link OffHeapStateMap}. */
+public class OffHeapStateMapTest extends TestLogger {
+
+    /** Testing the basic map operations. */
+    @Test
+    public void testPutGetRemoveContainsTransform() throws Exception {
+        final OffHeapStateMap<Integer, Integer, Long> stateMap = createLongStateMap();
+
+        Assert.assertEquals(0, stateMap.size());
+        Assert.assertNull(stateMap.get(1, 1));
+        Assert.assertFalse(stateMap.containsKey(1, 1));
+
+        stateMap.put(1, 1, 41L);
+        stateMap.put(2, 1, null);
+        stateMap.put(1, 2, 43L);
+
+        Assert.assertEquals(3, stateMap.size());
+        Assert.assertEquals(Long.valueOf(41L), stateMap.get(1, 1));
+        Assert.assertNull(stateMap.get(2, 1));
+        Assert.assertTrue(stateMap.containsKey(2, 1));
+        Assert.assertEquals(Long.valueOf(43L), stateMap.get(1, 2));
+
+        Assert.assertEquals(Long.valueOf(41L), stateMap.putAndGetOld(1, 1, 42L));
+        Assert.assertEquals(Long.valueOf(42L), stateMap.get(1, 1));
+
+        stateMap.transform(1, 1, 5L, (previousState, value) -> previousState + value);
+        Assert.assertEquals(Long.valueOf(47L), stateMap.get(1, 1));
+
+        stateMap.transform(3, 1, 5L, (previousState, value) -> previousState == null ? value : -1L);
+        Assert.assertEquals(Long.valueOf(5L), stateMap.get(3, 1));
+
+        Assert.assertEquals(3, stateMap.sizeOfNamespace(1));
+        Assert.assertEquals(1, stateMap.sizeOfNamespace(2));
+        assertThat(stateMap.getKeys(1).collect(Collectors.toList()), containsInAnyOrder(1, 2, 3));
+
+        Assert.assertEquals(Long.valueOf(47L), stateMap.removeAndGetOld(1, 1));
+        Assert.assertFalse(stateMap.containsKey(1, 1));
+        stateMap.remove(1, 2);
+        Assert.assertFalse(stateMap.containsKey(1, 2));
+        Assert.assertNull(stateMap.removeAndGetOld(4, 4));
+
+        Assert.assertEquals(2, stateMap.size());
+        stateMap.dispose();
+    }
+
+    /**
+     * This test does random modifications on the state map, and compares the result with a {@link
+     * HashMap}, including growth of the index and compaction of the segments.
+     */
+    @Test
+    public void testRandomModifications() {
+        final OffHeapStateMap<Integer, Integer, String> stateMap =
+                new OffHeapStateMap<>(
+                        IntSerializer.INSTANCE, IntSerializer.INSTANCE, StringSerializer.INSTANCE);
+        final Map<Integer, String> referenceMap = new HashMap<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                Assert.assertEquals(referenceMap.remove(key), stateMap.removeAndGetOld(key, 0));
+            } else {
+                String value = randomString(random);
+                Assert.assertEquals(
+                        referenceMap.put(key, value), stateMap.putAndGetOld(key, 0, value));
+            }
+        }
+
+        Assert.assertEquals(referenceMap.size(), stateMap.size());
+        for (Map.Entry<Integer, String> referenceEntry : referenceMap.entrySet()) {
+            Assert.assertEquals(
+                    referenceEntry.getValue(), stateMap.get(referenceEntry.getKey(), 0));
+        }
+
+        int count = 0;
+        for (StateEntry<Integer, Integer, String> stateEntry : stateMap) {
+            Assert.assertEquals(referenceMap.get(stateEntry.getKey()), stateEntry.getState());
+            ++count;
+        }
+        Assert.assertEquals(referenceMap.size(), count);
+
+        // garbage from overwritten records must not keep growing the allocated memory
+        Assert.assertTrue(stateMap.getAllocatedMemorySize() < 4 * 1024 * 1024);
+        stateMap.dispose();
+    }
+
+    /** This tests that a snapshot is not affected by modifications made after its creation. */
+    @Test
+    public void testSnapshotIsolation() throws Exception {
+        final OffHeapStateMap<Integer, Integer, Long> stateMap = createLongStateMap();
+
+        for (int i = 0; i < 1_000; i++) {
+            stateMap.put(i, 1, (long) i);
+        }
+
+        OffHeapStateMapSnapshot<Integer, Integer, Long> snapshot = stateMap.stateSnapshot();
+
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 2 == 0) {
+                stateMap.remove(i, 1);
+            } else {
+                stateMap.put(i, 1, -1L);
+            }
+        }
+        for (int i = 1_000; i < 5_000; i++) {
+            stateMap.put(i, 1, (long) i);
+        }
+
+        Iterator<StateEntry<Integer, Integer, Long>> iterator =
+                snapshot.getIterator(
+                        IntSerializer.INSTANCE,
+                        IntSerializer.INSTANCE,
+                        LongSerializer.INSTANCE,
+                        null);
+        Map<Integer, Long> snapshotContent = new HashMap<>();
+        while (iterator.hasNext()) {
+            StateEntry<Integer, Integer, Long> stateEntry = iterator.next();
+            snapshotContent.put(stateEntry.getKey(), stateEntry.getState());
+        }
+        Assert.assertEquals(1_000, snapshotContent.size());
+        for (int i = 0; i < 1_000; i++) {
+            Assert.assertEquals(Long.valueOf(i), snapshotContent.get(i));
+        }
+
+        DataOutputSerializer outputView = new DataOutputSerializer(128);
+        snapshot.writeState(
+                IntSerializer.INSTANCE,
+                IntSerializer.INSTANCE,
+                LongSerializer.INSTANCE,
+                outputView,
+                null);
+
+        DataInputDeserializer inputView = new DataInputDeserializer(outputView.getCopyOfBuffer());
+        int numberOfEntries = inputView.readInt();
+        Assert.assertEquals(1_000, numberOfEntries);
+        for (int i = 0; i < numberOfEntries; i++) {
+            Assert.assertEquals(Integer.valueOf(1), IntSerializer.INSTANCE.deserialize(inputView));
+            int key = IntSerializer.INSTANCE.deserialize(inputView);
+            Assert.assertEquals(Long.valueOf(key), LongSerializer.INSTANCE.deserialize(inputView));
+        }
+
+        snapshot.release();
+        Assert.assertTrue(snapshot.isReleased());
+        Assert.assertEquals(4_500, stateMap.size());
+        stateMap.dispose();
+    }
+
+    /** This tests the snapshot iterator with a transformer that drops and modifies entries. */
+    @Test
+    public void testIteratingOverSnapshotWithTransform() {
+        final OffHeapStateMap<Integer, Integer, Long> stateMap = createLongStateMap();
+
+        stateMap.put(1, 1, 10L);
+        stateMap.put(2, 1, 11L);
+        stateMap.put(3, 1, 12L);
+        stateMap.put(4, 1, 13L);
+        stateMap.put(5, 1, 14L);
+
+        OffHeapStateMapSnapshot<Integer, Integer, Long> snapshot = stateMap.stateSnapshot();
+
+        Iterator<StateEntry<Integer, Integer, Long>> iterator =
+                snapshot.getIterator(
+                        IntSerializer.INSTANCE,
+                        IntSerializer.INSTANCE,
+                        LongSerializer.INSTANCE,
+                        value -> value == 12L ? null : value + 2L);
+        assertThat(
+                () -> iterator,
+                containsInAnyOrder(
+                        entry(1, 1, 12L), entry(2, 1, 13L), entry(4, 1, 15L), entry(5, 1, 16L)));
+
+        snapshot.release();
+        stateMap.dispose();
+    }
+
+    /** This tests that stored states are re-encoded when the state serializer changes. */
+    @Test
+    public void testUpdateStateSerializer() {
+        final OffHeapStateMap<Integer, Integer, Long> stateMap = createLongStateMap();
+
+        for (int i = 0; i < 100; i++) {
+            stateMap.put(i, 1, (long) i);
+        }
+
+        stateMap.updateStateSerializer(new LongSerializer());
+
+        Assert.assertEquals(100, stateMap.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(Long.valueOf(i), stateMap.get(i, 1));
+        }
+        stateMap.dispose();
+    }
+
+    /** This tests that the incremental visitor sees all entries and supports updates. */
+    @Test
+    public void testStateIncrementalVisitor() {
+        final OffHeapStateMap<Integer, Integer, Long> stateMap = createLongStateMap();
+
+        for (int i = 0; i < 1_000; i++) {
+            stateMap.put(i, 1, (long) i);
+        }
+
+        StateIncrementalVisitor<Integer, Integer, Long> visitor =
+                stateMap.getStateIncrementalVisitor(10);
+        List<Integer> visitedKeys = new ArrayList<>();
+        while (visitor.hasNext()) {
+            for (StateEntry<Integer, Integer, Long> stateEntry : visitor.nextEntries()) {
+                visitedKeys.add(stateEntry.getKey());
+                if (stateEntry.getKey() % 2 == 0) {
+                    visitor.remove(stateEntry);
+                } else {
+                    visitor.update(stateEntry, stateEntry.getState() + 1L);
+                }
+            }
+        }
+
+        Assert.assertEquals(1_000, visitedKeys.size());
+        Assert.assertEquals(500, stateMap.size());
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 2 == 0) {
+                Assert.assertFalse(stateMap.containsKey(i, 1));
+            } else {
+                Assert.assertEquals(Long.valueOf(i + 1L), stateMap.get(i, 1));
+            }
+        }
+        stateMap.dispose();
+    }
+
+    /**
+     * This tests that the incremental visitor returns all entries that exist during the whole
+     * visit, while new keys are inserted and the index grows.
+     */
+    @Test
+    public void testStateIncrementalVisitorWithGrowingIndex() {
+        final OffHeapStateMap<Integer, Integer, Long> stateMap = createLongStateMap();
+
+        for (int i = 0; i < 100; i++) {
+            stateMap.put(i, 1, (long) i);
+        }
+        final int initialCapacity = stateMap.getCapacity();
+
+        StateIncrementalVisitor<Integer, Integer, Long> visitor =
+                stateMap.getStateIncrementalVisitor(5);
+        Set<Integer> visitedKeys = new HashSet<>();
+        int nextKey = 100;
+        while (visitor.hasNext()) {
+            for (StateEntry<Integer, Integer, Long> stateEntry : visitor.nextEntries()) {
+                visitedKeys.add(stateEntry.getKey());
+                if (stateEntry.getKey() % 3 == 0) {
+                    visitor.remove(stateEntry);
+                } else {
+                    visitor.update(stateEntry, stateEntry.getState() + 1L);
+                }
+            }
+            for (int i = 0; i < 20; i++) {
+                stateMap.put(nextKey, 1, (long) nextKey);
+                nextKey++;
+            }
+        }
+
+        Assert.assertTrue(stateMap.getCapacity() > initialCapacity);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(visitedKeys.contains(i));
+            if (i % 3 == 0) {
+                Assert.assertFalse(stateMap.containsKey(i, 1));
+            } else {
+                Assert.assertEquals(Long.valueOf(i + 1L), stateMap.get(i, 1));
+            }
+        }
+        stateMap.dispose();
+    }
+
+    /**
+     * This tests appending to lists against a reference, including consolidation of the chains of
+     * appended records, compaction and snapshots in the format of the list serializer.
+     */
+    @Test
+    public void testListAppendRecords() throws Exception {
+        final ListSerializer<Long> listSerializer = new ListSerializer<>(LongSerializer.INSTANCE);
+        final OffHeapStateMap<Integer, Integer, List<Long>> stateMap =
+                new OffHeapStateMap<>(
+                        IntSerializer.INSTANCE,
+                        IntSerializer.INSTANCE,
+                        listSerializer,
+                        OffHeapStateMap.StateLayout.LIST);
+        final Map<Integer, List<Long>> referenceMap = new HashMap<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(100);
+            int operation = random.nextInt(20);
+            if (operation == 0) {
+                Assert.assertEquals(referenceMap.remove(key), stateMap.removeAndGetOld(key, 0));
+            } else if (operation == 1) {
+                List<Long> list = Arrays.asList((long) i, (long) -i);
+                referenceMap.put(key, new ArrayList<>(list));
+                stateMap.put(key, 0, list);
+            } else {
+                List<Long> elements = new ArrayList<>();
+                for (int j = random.nextInt(3); j >= 0; j--) {
+                    elements.add(random.nextLong());
+                }
+                referenceMap.computeIfAbsent(key, k -> new ArrayList<>()).addAll(elements);
+                stateMap.addToList(key, 0, elements);
+            }
+        }
+
+        OffHeapStateMapSnapshot<Integer, Integer, List<Long>> snapshot = stateMap.stateSnapshot();
+        stateMap.addToList(0, 0, Collections.singletonList(-1L));
+
+        Assert.assertEquals(referenceMap.size(), stateMap.size());
+        for (Map.Entry<Integer, List<Long>> referenceEntry : referenceMap.entrySet()) {
+            Assert.assertEquals(
+                    referenceEntry.getValue(),
+                    stateMap.get(referenceEntry.getKey(), 0)
+                            .subList(0, referenceEntry.getValue().size()));
+        }
+
+        DataOutputSerializer outputView = new DataOutputSerializer(128);
+        snapshot.writeState(
+                IntSerializer.INSTANCE, IntSerializer.INSTANCE, listSerializer, outputView, null);
+
+        DataInputDeserializer inputView = new DataInputDeserializer(outputView.getCopyOfBuffer());
+        int numberOfEntries = inputView.readInt();
+        Assert.assertEquals(referenceMap.size(), numberOfEntries);
+        for (int i = 0; i < numberOfEntries; i++) {
+            Assert.assertEquals(Integer.valueOf(0), IntSerializer.INSTANCE.deserialize(inputView));
+            int key = IntSerializer.INSTANCE.deserialize(inputView);
+            Assert.assertEquals(referenceMap.get(key), listSerializer.deserialize(inputView));
+        }
+
+        snapshot.release();
+        stateMap.dispose();
+    }
+
+    /**
+     * This tests point accesses to maps against a reference, including null values, removed user
+     * keys, consolidation of the chains of appended records and snapshots in the format of the map
+     * serializer.
+     */
+    @Test
+    public void testMapEntryRecords() throws Exception {
+        final MapSerializer<Integer, String> mapSerializer =
+                new MapSerializer<>(IntSerializer.INSTANCE, StringSerializer.INSTANCE);
+        final OffHeapStateMap<Integer, Integer, Map<Integer, String>> stateMap =
+                new OffHeapStateMap<>(
+                        IntSerializer.INSTANCE,
+                        IntSerializer.INSTANCE,
+                        mapSerializer,
+                        OffHeapStateMap.StateLayout.MAP);
+        final Map<Integer, Map<Integer, String>> referenceMap = new HashMap<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(50);
+            int userKey = random.nextInt(100);
+            Map<Integer, String> referenceUserMap = referenceMap.get(key);
+            int operation = random.nextInt(10);
+            if (operation == 0) {
+                Assert.assertEquals(referenceMap.remove(key), stateMap.removeAndGetOld(key, 0));
+            } else if (operation < 4) {
+                if (referenceUserMap != null) {
+                    referenceUserMap.remove(userKey);
+                    if (referenceUserMap.isEmpty()) {
+                        referenceMap.remove(key);
+                    }
+                }
+                stateMap.removeFromMap(key, 0, userKey);
+            } else {
+                String value = random.nextInt(10) == 0 ? null : randomString(random);
+                referenceMap.computeIfAbsent(key, k -> new HashMap<>()).put(userKey, value);
+                stateMap.putIntoMap(key, 0, Collections.singletonMap(userKey, value));
+            }
+
+            referenceUserMap = referenceMap.get(key);
+            Assert.assertEquals(
+                    referenceUserMap != null && referenceUserMap.containsKey(userKey),
+                    stateMap.mapContains(key, 0, userKey));
+            Assert.assertEquals(
+                    referenceUserMap == null ? null : referenceUserMap.get(userKey),
+                    stateMap.getFromMap(key, 0, userKey));
+            Assert.assertEquals(
+                    referenceUserMap == null ? 0 : referenceUserMap.size(),
+                    stateMap.getMapSize(key, 0));
+        }
+
+        Assert.assertEquals(referenceMap.size(), stateMap.size());
+        for (Map.Entry<Integer, Map<Integer, String>> referenceEntry : referenceMap.entrySet()) {
+            Assert.assertEquals(
+                    referenceEntry.getValue(), stateMap.get(referenceEntry.getKey(), 0));
+        }
+
+        OffHeapStateMapSnapshot<Integer, Integer, Map<Integer, String>> snapshot =
+                stateMap.stateSnapshot();
+        DataOutputSerializer outputView = new DataOutputSerializer(128);
+        snapshot.writeState(
+                IntSerializer.INSTANCE, IntSerializer.INSTANCE, mapSerializer, outputView, null);
+
+        DataInputDeserializer inputView = new DataInputDeserializer(outputView.getCopyOfBuffer());
+        int numberOfEntries = inputView.readInt();
+        Assert.assertEquals(referenceMap.size(), numberOfEntries);
+        for (int i = 0; i < numberOfEntries; i++) {
+            Assert.assertEquals(Integer.valueOf(0), IntSerializer.INSTANCE.deserialize(inputView));
+            int key = IntSerializer.INSTANCE.deserialize(inputView);
+            Assert.assertEquals(referenceMap.get(key), mapSerializer.deserialize(inputView));
+        }
+
+        snapshot.release();
+        stateMap.dispose();
+    }
+
+    private static OffHeapStateMap<Integer, Integer, Long> createLongStateMap() {
+        return new OffHeapStateMap<>(
+                IntSerializer.INSTANCE, IntSerializer.INSTANCE, LongSerializer.INSTANCE);
+    }
+
+    private static String randomString(Random random) {
+        char[] chars = new char[random.nextInt(64)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
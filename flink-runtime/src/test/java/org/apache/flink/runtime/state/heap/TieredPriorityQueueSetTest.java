@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.runtime.state.InternalPriorityQueue;
+import org.apache.flink.runtime.state.InternalPriorityQueueTestBase;
+import org.apache.flink.util.CloseableIterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test of {@link KeyGroupPartitionedPriorityQueue} powered by a {@link TieredPriorityQueueSet}. The
+ * memory budget is small enough that the queues spill most of their elements.
+ */
+public class TieredPriorityQueueSetTest extends InternalPriorityQueueTestBase {
+
+    private static final int PAGE_SIZE = 256;
+
+    private static final long MEMORY_BUDGET = 4 * PAGE_SIZE;
+
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File spillDirectory;
+
+    private TieredPriorityQueueSetFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        spillDirectory = temporaryFolder.newFolder();
+        factory =
+                new TieredPriorityQueueSetFactory(
+                        KEY_GROUP_RANGE,
+                        KEY_GROUP_RANGE.getNumberOfKeyGroups(),
+                        MEMORY_BUDGET,
+                        spillDirectory,
+                        PAGE_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        factory.close();
+        assertEquals(0L, factory.getUsedMemory());
+    }
+
+    @Override
+    protected InternalPriorityQueue<TestElement> newPriorityQueue(int initialCapacity) {
+        return new KeyGroupPartitionedPriorityQueue<
+                TestElement, TieredPriorityQueueSet<TestElement>>(
+                KEY_EXTRACTOR_FUNCTION,
+                TEST_ELEMENT_PRIORITY_COMPARATOR,
+                (keyGroupId, numKeyGroups, keyExtractorFunction, elementComparator) ->
+                        factory.createQueueSet(TestElementSerializer.INSTANCE),
+                KEY_GROUP_RANGE,
+                KEY_GROUP_RANGE.getNumberOfKeyGroups());
+    }
+
+    @Override
+    protected boolean testSetSemanticsAgainstDuplicateElements() {
+        return true;
+    }
+
+    @Test
+    public void testSpilledElementsKeepSetSemanticsAndOrder() {
+        final TieredPriorityQueueSet<TestElement> queueSet =
+                factory.createQueueSet(TestElementSerializer.INSTANCE);
+        final TreeSet<TestElement> expected = new TreeSet<>(TEST_ELEMENT_COMPARATOR);
+        final Random random = new Random(42L);
+
+        for (int i = 0; i < 2000; i++) {
+            final TestElement element = new TestElement(random.nextInt(100), random.nextInt(1000));
+            final int sizeBefore = queueSet.size();
+            queueSet.add(element);
+            assertEquals(expected.add(element) ? sizeBefore + 1 : sizeBefore, queueSet.size());
+        }
+        assertTrue(queueSet.getNumberOfSpilledElements() > 0);
+        assertTrue(factory.getUsedMemory() <= MEMORY_BUDGET + PAGE_SIZE);
+
+        // the greatest elements are spilled, removing them leaves tombstones in memory
+        final List<TestElement> removed = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            final TestElement element = expected.pollLast();
+            assertFalse(queueSet.remove(element));
+            removed.add(element);
+        }
+        assertFalse(queueSet.remove(removed.get(0)));
+
+        Collections.shuffle(removed, random);
+        for (TestElement element : removed.subList(0, 100)) {
+            assertFalse(queueSet.add(element));
+            expected.add(element);
+        }
+        assertFalse(queueSet.add(removed.get(0)));
+        assertEquals(expected.size(), queueSet.size());
+
+        for (TestElement element : expected) {
+            assertEquals(element, queueSet.peek());
+            assertEquals(element, queueSet.poll());
+        }
+        assertNull(queueSet.poll());
+        assertTrue(queueSet.isEmpty());
+        assertEquals(0L, factory.getUsedMemory());
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testRandomOperationsMatchSortedSet() {
+        final TieredPriorityQueueSet<TestElement> queueSet =
+                factory.createQueueSet(TestElementSerializer.INSTANCE);
+        final TreeSet<TestElement> expected = new TreeSet<>(TEST_ELEMENT_COMPARATOR);
+        final Random random = new Random(7L);
+        boolean spilled = false;
+
+        for (int i = 0; i < 20000; i++) {
+            final TestElement element = new TestElement(random.nextInt(20), random.nextInt(500));
+            final TestElement head = expected.isEmpty() ? null : expected.first();
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    expected.add(element);
+                    assertEquals(
+                            !element.equals(head) && element.equals(expected.first()),
+                            queueSet.add(element));
+                    break;
+                case 2:
+                    expected.remove(element);
+                    assertEquals(element.equals(head), queueSet.remove(element));
+                    break;
+                default:
+                    assertEquals(expected.pollFirst(), queueSet.poll());
+            }
+            assertEquals(expected.size(), queueSet.size());
+            assertEquals(expected.isEmpty() ? null : expected.first(), queueSet.peek());
+            spilled |= queueSet.getNumberOfSpilledElements() > 0;
+        }
+        assertTrue(spilled);
+    }
+
+    @Test
+    public void testCloseReleasesMemoryAndSpillFiles() {
+        final InternalPriorityQueue<TestElement> priorityQueue = newPriorityQueue(1);
+        for (int i = 0; i < 1000; i++) {
+            priorityQueue.add(new TestElement(i, i));
+        }
+        assertTrue(factory.getUsedMemory() > 0L);
+        assertTrue(spillDirectory.list().length > 0);
+
+        factory.close();
+
+        assertEquals(0L, factory.getUsedMemory());
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void testUsedMemoryStaysWithinBudget() {
+        final TieredPriorityQueueSet<TestElement> queueSet =
+                factory.createQueueSet(TestElementSerializer.INSTANCE);
+        final TreeSet<TestElement> expected = new TreeSet<>(TEST_ELEMENT_COMPARATOR);
+        final Random random = new Random(42L);
+        for (int i = 0; i < 2000; i++) {
+            final TestElement element = new TestElement(random.nextInt(100), random.nextInt(1000));
+            queueSet.add(element);
+            expected.add(element);
+            // an operation may allocate a page before the queues are spilled
+            assertTrue(factory.getUsedMemory() <= MEMORY_BUDGET + PAGE_SIZE);
+        }
+        assertTrue(queueSet.getNumberOfSpilledElements() > 0);
+
+        for (TestElement element : expected) {
+            assertEquals(element, queueSet.poll());
+        }
+        assertTrue(queueSet.isEmpty());
+    }
+
+    @Test
+    public void testPeekDeserializesHeadOnce() {
+        final CountingSerializer serializer = new CountingSerializer();
+        final TieredPriorityQueueSet<TestElement> queueSet = factory.createQueueSet(serializer);
+        queueSet.add(new TestElement(1, 10));
+        queueSet.add(new TestElement(2, 20));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(new TestElement(1, 10), queueSet.peek());
+        }
+        assertEquals(1, serializer.numDeserializations);
+
+        // adding an element that is not the new head keeps the deserialized head
+        queueSet.add(new TestElement(3, 30));
+        assertEquals(new TestElement(1, 10), queueSet.peek());
+        assertEquals(1, serializer.numDeserializations);
+
+        queueSet.add(new TestElement(4, 5));
+        assertEquals(new TestElement(4, 5), queueSet.peek());
+        assertEquals(2, serializer.numDeserializations);
+    }
+
+    @Test
+    public void testSnapshotCopiesSerializedElementsAndPinsRun() throws Exception {
+        final TieredPriorityQueueSet<TestElement> queueSet =
+                factory.createQueueSet(TestElementSerializer.INSTANCE);
+        final TreeSet<TestElement> expected = new TreeSet<>(TEST_ELEMENT_COMPARATOR);
+        final Random random = new Random(42L);
+        for (int i = 0; i < 2000; i++) {
+            final TestElement element = new TestElement(random.nextInt(100), random.nextInt(1000));
+            queueSet.add(element);
+            expected.add(element);
+        }
+        // removing spilled elements leaves tombstones in memory
+        for (int i = 0; i < 100; i++) {
+            queueSet.remove(expected.pollLast());
+        }
+        assertTrue(queueSet.getNumberOfSpilledElements() > 0);
+
+        final TieredPriorityQueueSet.Snapshot snapshot = queueSet.snapshot();
+        assertEquals(expected.size(), snapshot.size());
+
+        // modifications after the snapshot replace the run, closing releases it
+        for (int i = 0; i < 100; i++) {
+            queueSet.poll();
+        }
+        queueSet.add(new TestElement(-1, -1));
+        factory.close();
+        assertTrue(spillDirectory.list().length > 0);
+
+        final List<TestElement> snapshotElements = new ArrayList<>();
+        final DataInputDeserializer inputView = new DataInputDeserializer();
+        try (CloseableIterator<byte[]> iterator = snapshot.serializedElements()) {
+            while (iterator.hasNext()) {
+                inputView.setBuffer(iterator.next());
+                snapshotElements.add(TestElementSerializer.INSTANCE.deserialize(inputView));
+            }
+        }
+        snapshotElements.sort(TEST_ELEMENT_COMPARATOR);
+        assertEquals(new ArrayList<>(expected), snapshotElements);
+
+        snapshot.close();
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    /** Serializer that counts the deserialized elements. */
+    private static final class CountingSerializer extends TestElementSerializer {
+
+        private int numDeserializations;
+
+        @Override
+        public TestElement deserialize(DataInputView source) throws IOException {
+            numDeserializations++;
+            return super.deserialize(source);
+        }
+    }
+}
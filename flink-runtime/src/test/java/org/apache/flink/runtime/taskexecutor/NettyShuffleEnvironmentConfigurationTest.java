@@ -76,4 +76,25 @@ public class NettyShuffleEnvironmentConfigurationTest extends TestLogger {
         assertEquals(networkConfig.networkBuffersPerChannel(), 10);
         assertEquals(networkConfig.floatingNetworkBuffersPerGate(), 100);
     }
+
+    @Test
+    public void testBlockingShuffleCompressionCodec() {
+        final Configuration config = new Configuration();
+        config.set(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_CODEC, "SNAPPY");
+        config.set(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_ZSTD_LEVEL, 9);
+
+        NettyShuffleEnvironmentConfiguration networkConfig =
+                NettyShuffleEnvironmentConfiguration.fromConfiguration(
+                        config, MEM_SIZE_PARAM, false, InetAddress.getLoopbackAddress());
+        assertEquals("SNAPPY", networkConfig.getCompressionCodec());
+        assertEquals("SNAPPY", networkConfig.getBlockingShuffleCompressionCodec());
+        assertEquals(9, networkConfig.getCompressionZstdLevel());
+
+        config.set(NettyShuffleEnvironmentOptions.BLOCKING_SHUFFLE_COMPRESSION_CODEC, "ZSTD");
+        networkConfig =
+                NettyShuffleEnvironmentConfiguration.fromConfiguration(
+                        config, MEM_SIZE_PARAM, false, InetAddress.getLoopbackAddress());
+        assertEquals("SNAPPY", networkConfig.getCompressionCodec());
+        assertEquals("ZSTD", networkConfig.getBlockingShuffleCompressionCodec());
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.throughput;
+
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.OptionalInt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/** Tests for {@link BufferDebloater}. */
+public class BufferDebloaterTest extends TestLogger {
+
+    private static final int MIN_BUFFER_SIZE = 100;
+
+    private static final int MAX_BUFFER_SIZE = 32 * 1024;
+
+    @Test
+    public void testBufferSizeFollowsThroughput() {
+        // a single sample disables the averaging
+        BufferDebloater debloater = createDebloater(1, 25);
+
+        // 10 buffers should be consumed within 1 second at 10000 bytes per second
+        assertEquals(OptionalInt.of(1000), debloater.recalculateBufferSize(10_000, 10));
+        assertEquals(1000, debloater.getLastBufferSize());
+        assertEquals(10_000, debloater.getEstimatedInFlightDataBytes());
+        assertEquals(1000, debloater.getEstimatedTimeToConsumeBuffersMs());
+
+        assertEquals(OptionalInt.of(2000), debloater.recalculateBufferSize(20_000, 10));
+    }
+
+    @Test
+    public void testBufferSizeIsBounded() {
+        BufferDebloater debloater = createDebloater(1, 25);
+
+        assertEquals(OptionalInt.of(MIN_BUFFER_SIZE), debloater.recalculateBufferSize(0, 10));
+        assertEquals(
+                OptionalInt.of(MAX_BUFFER_SIZE),
+                debloater.recalculateBufferSize(Long.MAX_VALUE / 1000, 1));
+    }
+
+    @Test
+    public void testSmallChangesAreSkipped() {
+        BufferDebloater debloater = createDebloater(1, 25);
+
+        assertEquals(OptionalInt.of(1000), debloater.recalculateBufferSize(10_000, 10));
+        assertFalse(debloater.recalculateBufferSize(12_000, 10).isPresent());
+        assertEquals(1000, debloater.getLastBufferSize());
+        assertEquals(OptionalInt.of(1300), debloater.recalculateBufferSize(13_000, 10));
+    }
+
+    @Test
+    public void testBufferSizeIsAveraged() {
+        // alpha = 2 / (3 + 1) = 0.5
+        BufferDebloater debloater = createDebloater(3, 0);
+
+        assertEquals(
+                OptionalInt.of((MAX_BUFFER_SIZE + 1000) / 2),
+                debloater.recalculateBufferSize(10_000, 10));
+        assertEquals(
+                OptionalInt.of(((MAX_BUFFER_SIZE + 1000) / 2 + 1000) / 2),
+                debloater.recalculateBufferSize(10_000, 10));
+    }
+
+    private static BufferDebloater createDebloater(int numberOfSamples, int thresholdPercentages) {
+        return new BufferDebloater(
+                new BufferDebloatConfiguration(
+                        true,
+                        Duration.ofSeconds(1),
+                        Duration.ofMillis(200),
+                        MIN_BUFFER_SIZE,
+                        MAX_BUFFER_SIZE,
+                        numberOfSamples,
+                        thresholdPercentages));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.state.changelog.fs.StateChangeUploader.UploadResult;
+import org.apache.flink.state.changelog.fs.StateChangeUploader.UploadTask;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.IOUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Collects the {@link StateChangeSet change sets} of all writers sharing it and uploads them in
+ * batches. A batch is uploaded once the persist delay has passed since its first change set was
+ * added, or once its size reaches the size threshold, whichever comes first. Failed uploads are
+ * retried by a {@link RetryingExecutor}.
+ */
+@ThreadSafe
+class BatchingStateChangeUploader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchingStateChangeUploader.class);
+
+    private final long persistDelayMillis;
+
+    private final long sizeThresholdBytes;
+
+    private final StateChangeUploader delegate;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final RetryingExecutor retryingExecutor;
+
+    private final Object lock = new Object();
+
+    /** Change sets waiting for the next batch. */
+    @GuardedBy("lock")
+    private final List<UploadTask> scheduled = new ArrayList<>();
+
+    /** Change sets of the batches which are being uploaded. */
+    @GuardedBy("lock")
+    private final Set<UploadTask> uploading = new HashSet<>();
+
+    @GuardedBy("lock")
+    private long scheduledBytes;
+
+    @GuardedBy("lock")
+    @Nullable
+    private ScheduledFuture<?> scheduledUpload;
+
+    @GuardedBy("lock")
+    private boolean closed;
+
+    BatchingStateChangeUploader(
+            long persistDelayMillis,
+            long sizeThresholdBytes,
+            StateChangeUploader delegate,
+            ScheduledExecutorService scheduler,
+            RetryingExecutor retryingExecutor) {
+        checkArgument(persistDelayMillis >= 0, "The persist delay must not be negative.");
+        checkArgument(sizeThresholdBytes > 0, "The size threshold must be positive.");
+        this.persistDelayMillis = persistDelayMillis;
+        this.sizeThresholdBytes = sizeThresholdBytes;
+        this.delegate = checkNotNull(delegate);
+        this.scheduler = checkNotNull(scheduler);
+        this.retryingExecutor = checkNotNull(retryingExecutor);
+    }
+
+    /** Schedules the upload of the given change set and returns the future of its result. */
+    CompletableFuture<UploadResult> upload(StateChangeSet changeSet) {
+        UploadTask task = new UploadTask(changeSet);
+        synchronized (lock) {
+            checkState(!closed, "The uploader is closed.");
+            scheduled.add(task);
+            scheduledBytes += changeSet.getSize();
+            try {
+                if (scheduledBytes >= sizeThresholdBytes) {
+                    cancelScheduledUpload();
+                    scheduler.execute(this::drainAndUpload);
+                } else if (scheduledUpload == null) {
+                    scheduledUpload =
+                            scheduler.schedule(
+                                    this::drainAndUpload,
+                                    persistDelayMillis,
+                                    TimeUnit.MILLISECONDS);
+                }
+            } catch (RejectedExecutionException e) {
+                scheduled.remove(task);
+                scheduledBytes -= changeSet.getSize();
+                task.fail(e);
+            }
+        }
+        return task.getResult();
+    }
+
+    private void drainAndUpload() {
+        List<UploadTask> batch;
+        synchronized (lock) {
+            cancelScheduledUpload();
+            if (closed || scheduled.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(scheduled);
+            scheduled.clear();
+            scheduledBytes = 0L;
+            uploading.addAll(batch);
+        }
+
+        LOG.debug("Uploading a batch of {} change sets", batch.size());
+        retryingExecutor.execute(
+                () -> {
+                    delegate.upload(batch);
+                    finish(batch);
+                },
+                failure -> {
+                    batch.forEach(task -> task.fail(failure));
+                    finish(batch);
+                });
+    }
+
+    private void finish(List<UploadTask> batch) {
+        synchronized (lock) {
+            batch.forEach(uploading::remove);
+        }
+    }
+
+    @GuardedBy("lock")
+    private void cancelScheduledUpload() {
+        if (scheduledUpload != null) {
+            scheduledUpload.cancel(false);
+            scheduledUpload = null;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        List<UploadTask> pending;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancelScheduledUpload();
+            pending = new ArrayList<>(scheduled);
+            pending.addAll(uploading);
+            scheduled.clear();
+            uploading.clear();
+        }
+
+        scheduler.shutdownNow();
+        retryingExecutor.close();
+        FlinkRuntimeException cause = new FlinkRuntimeException("The uploader has been closed.");
+        pending.forEach(task -> task.fail(cause));
+        IOUtils.closeQuietly(delegate);
+    }
+}
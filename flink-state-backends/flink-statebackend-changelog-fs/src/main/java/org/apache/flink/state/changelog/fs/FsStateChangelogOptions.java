@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.annotation.Experimental;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.MemorySize;
+
+import java.time.Duration;
+
+/** Configuration options for the {@link FsStateChangelogWriterFactory}. */
+@Experimental
+public class FsStateChangelogOptions {
+
+    /** Directory to which the state changes are uploaded. */
+    public static final ConfigOption<String> BASE_PATH =
+            ConfigOptions.key("dstl.dfs.base-path")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription("Base path to store the uploaded state changes.");
+
+    /** Maximum time a state change waits for other changes to be uploaded together. */
+    public static final ConfigOption<Duration> PERSIST_DELAY =
+            ConfigOptions.key("dstl.dfs.batch.persist-delay")
+                    .durationType()
+                    .defaultValue(Duration.ofMillis(10))
+                    .withDescription(
+                            "Delay before uploading the state changes requested to be persisted. "
+                                    + "Changes of all tasks of a TaskManager requested during this "
+                                    + "time are uploaded to the same file.");
+
+    /** Size of the pending state changes that triggers an upload without waiting. */
+    public static final ConfigOption<MemorySize> PERSIST_SIZE_THRESHOLD =
+            ConfigOptions.key("dstl.dfs.batch.persist-size-threshold")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("10mb"))
+                    .withDescription(
+                            "Size of the state changes requested to be persisted after which they "
+                                    + "are uploaded without waiting for the persist delay.");
+
+    /** Number of threads uploading the state changes. */
+    public static final ConfigOption<Integer> NUM_UPLOAD_THREADS =
+            ConfigOptions.key("dstl.dfs.upload.num-threads")
+                    .intType()
+                    .defaultValue(5)
+                    .withDescription("Number of threads to use for the upload of state changes.");
+
+    /** Number of attempts to upload a batch of state changes. */
+    public static final ConfigOption<Integer> UPLOAD_MAX_ATTEMPTS =
+            ConfigOptions.key("dstl.dfs.upload.max-attempts")
+                    .intType()
+                    .defaultValue(3)
+                    .withDescription(
+                            "Maximum number of attempts to upload a batch of state changes, "
+                                    + "including the first one. The checkpoints which include the "
+                                    + "batch fail if all attempts fail.");
+
+    /** Delay between two attempts to upload a batch of state changes. */
+    public static final ConfigOption<Duration> UPLOAD_RETRY_DELAY =
+            ConfigOptions.key("dstl.dfs.upload.retry-delay")
+                    .durationType()
+                    .defaultValue(Duration.ofMillis(500))
+                    .withDescription(
+                            "Delay before the upload of a batch of state changes is retried "
+                                    + "after a failure.");
+}
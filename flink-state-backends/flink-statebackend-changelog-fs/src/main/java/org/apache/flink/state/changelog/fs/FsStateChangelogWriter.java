@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.changelog.SequenceNumber;
+import org.apache.flink.runtime.state.changelog.StateChange;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandleStreamImpl;
+import org.apache.flink.runtime.state.changelog.StateChangelogWriter;
+import org.apache.flink.state.changelog.fs.StateChangeUploader.UploadResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.stream.Collectors.toList;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A {@link StateChangelogWriter} which uploads the appended changes with a {@link
+ * BatchingStateChangeUploader}, possibly sharing the uploaded files with other writers.
+ *
+ * <p>Appended changes are grouped into {@link StateChangeSet change sets}. The current change set
+ * is closed whenever {@link #lastAppendedSequenceNumber()} or {@link #persist(SequenceNumber)} is
+ * called, so sequence numbers obtained from the former are always change set boundaries. Each
+ * change set is uploaded at most once, unless its upload failed or it was {@link
+ * #reset(SequenceNumber, SequenceNumber) reset}. Change sets are kept in memory until they are
+ * {@link #truncate(SequenceNumber) truncated}, so they can be uploaded again if needed.
+ */
+@NotThreadSafe
+class FsStateChangelogWriter implements StateChangelogWriter<StateChangelogHandleStreamImpl> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FsStateChangelogWriter.class);
+
+    private final UUID logId;
+
+    private final KeyGroupRange keyGroupRange;
+
+    private final BatchingStateChangeUploader uploader;
+
+    /** Closed change sets, by the sequence number of their last change. */
+    private final NavigableMap<SequenceNumber, StateChangeSet> changeSets = new TreeMap<>();
+
+    /** Uploads of the closed change sets, by the sequence number of their last change. */
+    private final NavigableMap<SequenceNumber, CompletableFuture<UploadResult>> uploads =
+            new TreeMap<>();
+
+    /** Changes appended since the last change set was closed. */
+    private final List<StateChange> activeChanges = new ArrayList<>();
+
+    private SequenceNumber lastAppendedSequenceNumber = SequenceNumber.of(0L);
+
+    private boolean closed;
+
+    FsStateChangelogWriter(
+            UUID logId, KeyGroupRange keyGroupRange, BatchingStateChangeUploader uploader) {
+        this.logId = checkNotNull(logId);
+        this.keyGroupRange = checkNotNull(keyGroupRange);
+        this.uploader = checkNotNull(uploader);
+    }
+
+    @Override
+    public void append(int keyGroup, byte[] value) {
+        checkState(!closed, "LogWriter is closed");
+        LOG.trace("append to {}: keyGroup={} {} bytes", logId, keyGroup, value.length);
+        activeChanges.add(new StateChange(keyGroup, value));
+        lastAppendedSequenceNumber = lastAppendedSequenceNumber.next();
+    }
+
+    @Override
+    public SequenceNumber lastAppendedSequenceNumber() {
+        rollover();
+        return lastAppendedSequenceNumber;
+    }
+
+    @Override
+    public CompletableFuture<StateChangelogHandleStreamImpl> persist(SequenceNumber from) {
+        checkNotNull(from);
+        checkState(!closed, "LogWriter is closed");
+        LOG.debug("persist {} starting from sqn {}", logId, from);
+        rollover();
+
+        List<CompletableFuture<UploadResult>> results = new ArrayList<>();
+        for (StateChangeSet changeSet : changeSets.tailMap(from, true).values()) {
+            CompletableFuture<UploadResult> upload = uploads.get(changeSet.getSequenceNumber());
+            if (upload == null || upload.isCompletedExceptionally()) {
+                upload = uploader.upload(changeSet);
+                uploads.put(changeSet.getSequenceNumber(), upload);
+            }
+            results.add(upload);
+        }
+
+        return FutureUtils.combineAll(results)
+                .thenApply(
+                        uploaded ->
+                                new StateChangelogHandleStreamImpl(
+                                        uploaded.stream()
+                                                .map(UploadResult::toHandleAndOffset)
+                                                .collect(toList()),
+                                        keyGroupRange));
+    }
+
+    @Override
+    public void truncate(SequenceNumber to) {
+        LOG.debug("truncate {} to sqn {}", logId, to);
+        rollover();
+        changeSets.headMap(to, false).clear();
+        uploads.headMap(to, false).clear();
+    }
+
+    @Override
+    public void confirm(SequenceNumber from, SequenceNumber to) {
+        // the uploaded files are shared and released via the SharedStateRegistry of the JM
+        LOG.debug("confirm {} from sqn {} to {}", logId, from, to);
+    }
+
+    @Override
+    public void reset(SequenceNumber from, SequenceNumber to) {
+        // the files of an aborted checkpoint might be discarded, so upload the changes again
+        LOG.debug("reset {} from sqn {} to {}", logId, from, to);
+        uploads.subMap(from, true, to, false).clear();
+    }
+
+    @Override
+    public void close() {
+        checkState(!closed);
+        closed = true;
+        activeChanges.clear();
+        changeSets.clear();
+        uploads.clear();
+    }
+
+    private void rollover() {
+        if (!activeChanges.isEmpty()) {
+            changeSets.put(
+                    lastAppendedSequenceNumber,
+                    new StateChangeSet(
+                            logId, lastAppendedSequenceNumber, new ArrayList<>(activeChanges)));
+            activeChanges.clear();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.annotation.Experimental;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.jobgraph.OperatorID;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandleStreamImpl;
+import org.apache.flink.runtime.state.changelog.StateChangelogWriterFactory;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.apache.flink.state.changelog.fs.FsStateChangelogOptions.BASE_PATH;
+import static org.apache.flink.state.changelog.fs.FsStateChangelogOptions.NUM_UPLOAD_THREADS;
+import static org.apache.flink.state.changelog.fs.FsStateChangelogOptions.PERSIST_DELAY;
+import static org.apache.flink.state.changelog.fs.FsStateChangelogOptions.PERSIST_SIZE_THRESHOLD;
+import static org.apache.flink.state.changelog.fs.FsStateChangelogOptions.UPLOAD_MAX_ATTEMPTS;
+import static org.apache.flink.state.changelog.fs.FsStateChangelogOptions.UPLOAD_RETRY_DELAY;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link StateChangelogWriterFactory} which durably persists state changes to a {@link
+ * org.apache.flink.core.fs.FileSystem}, e.g. a DFS.
+ *
+ * <p>All writers created by the factory share a {@link BatchingStateChangeUploader}. A single
+ * factory per TaskManager therefore uploads the changes of all its tasks to a few shared files
+ * instead of one file per task and checkpoint. The changes can be read back with the {@link
+ * StateChangeFormat}.
+ */
+@Experimental
+public class FsStateChangelogWriterFactory
+        implements StateChangelogWriterFactory<StateChangelogHandleStreamImpl> {
+
+    private final BatchingStateChangeUploader uploader;
+
+    public FsStateChangelogWriterFactory(ReadableConfig config) throws IOException {
+        this(createUploader(config));
+    }
+
+    @VisibleForTesting
+    FsStateChangelogWriterFactory(BatchingStateChangeUploader uploader) {
+        this.uploader = checkNotNull(uploader);
+    }
+
+    @Override
+    public FsStateChangelogWriter createWriter(OperatorID operatorID, KeyGroupRange keyGroupRange) {
+        return new FsStateChangelogWriter(UUID.randomUUID(), keyGroupRange, uploader);
+    }
+
+    @Override
+    public void close() throws Exception {
+        uploader.close();
+    }
+
+    private static BatchingStateChangeUploader createUploader(ReadableConfig config)
+            throws IOException {
+        String basePath =
+                config.getOptional(BASE_PATH)
+                        .orElseThrow(
+                                () ->
+                                        new IllegalConfigurationException(
+                                                "The base path to store state changes must be configured via "
+                                                        + BASE_PATH.key()
+                                                        + "."));
+        return new BatchingStateChangeUploader(
+                config.get(PERSIST_DELAY).toMillis(),
+                config.get(PERSIST_SIZE_THRESHOLD).getBytes(),
+                new StateChangeFsUploader(new Path(basePath)),
+                Executors.newSingleThreadScheduledExecutor(
+                        new ExecutorThreadFactory("ChangelogUploadScheduler")),
+                new RetryingExecutor(
+                        Executors.newScheduledThreadPool(
+                                config.get(NUM_UPLOAD_THREADS),
+                                new ExecutorThreadFactory("ChangelogUploader")),
+                        config.get(UPLOAD_MAX_ATTEMPTS),
+                        config.get(UPLOAD_RETRY_DELAY).toMillis()));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.util.function.RunnableWithException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Runs actions in the background and retries them with a fixed delay until they succeed or the
+ * maximum number of attempts is reached.
+ */
+class RetryingExecutor implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetryingExecutor.class);
+
+    private final ScheduledExecutorService executor;
+
+    private final int maxAttempts;
+
+    private final long retryDelayMillis;
+
+    RetryingExecutor(ScheduledExecutorService executor, int maxAttempts, long retryDelayMillis) {
+        checkArgument(maxAttempts > 0, "The number of attempts must be positive.");
+        checkArgument(retryDelayMillis >= 0, "The retry delay must not be negative.");
+        this.executor = checkNotNull(executor);
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Runs the given action in the background until it succeeds. If the last attempt fails, or the
+     * action can't be scheduled anymore, the failure is passed to the given handler.
+     */
+    void execute(RunnableWithException action, Consumer<Throwable> failureHandler) {
+        try {
+            executor.execute(() -> attempt(action, failureHandler, 1));
+        } catch (RejectedExecutionException e) {
+            failureHandler.accept(e);
+        }
+    }
+
+    private void attempt(
+            RunnableWithException action, Consumer<Throwable> failureHandler, int attempt) {
+        try {
+            action.run();
+        } catch (Throwable t) {
+            if (attempt >= maxAttempts) {
+                LOG.warn("Attempt {} of {} failed, giving up", attempt, maxAttempts, t);
+                failureHandler.accept(t);
+                return;
+            }
+            LOG.info("Attempt {} of {} failed, retrying", attempt, maxAttempts, t);
+            try {
+                executor.schedule(
+                        () -> attempt(action, failureHandler, attempt + 1),
+                        retryDelayMillis,
+                        TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                e.addSuppressed(t);
+                failureHandler.accept(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.changelog.StateChange;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandleStreamImpl.StateChangeStreamReader;
+import org.apache.flink.util.CloseableIterator;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serialization format of a {@link StateChangeSet}. The changes are grouped by key group, keeping
+ * the order of the changes within each key group:
+ *
+ * <pre>
+ * number of key groups
+ * for each key group:
+ *     key group, number of changes
+ *     for each change: length, bytes
+ * </pre>
+ */
+public class StateChangeFormat implements StateChangeStreamReader {
+
+    static void write(DataOutputView out, StateChangeSet changeSet) throws IOException {
+        Map<Integer, List<StateChange>> changesByKeyGroup = new TreeMap<>();
+        for (StateChange change : changeSet.getChanges()) {
+            changesByKeyGroup
+                    .computeIfAbsent(change.getKeyGroup(), unused -> new ArrayList<>())
+                    .add(change);
+        }
+
+        out.writeInt(changesByKeyGroup.size());
+        for (Map.Entry<Integer, List<StateChange>> entry : changesByKeyGroup.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (StateChange change : entry.getValue()) {
+                out.writeInt(change.getChange().length);
+                out.write(change.getChange());
+            }
+        }
+    }
+
+    @Override
+    public CloseableIterator<StateChange> read(StreamStateHandle handle, long offset)
+            throws IOException {
+        List<StateChange> changes = new ArrayList<>();
+        try (FSDataInputStream stream = handle.openInputStream()) {
+            stream.seek(offset);
+            DataInputView in = new DataInputViewStreamWrapper(new BufferedInputStream(stream));
+            int numKeyGroups = in.readInt();
+            for (int i = 0; i < numKeyGroups; i++) {
+                int keyGroup = in.readInt();
+                int numChanges = in.readInt();
+                for (int j = 0; j < numChanges; j++) {
+                    byte[] change = new byte[in.readInt()];
+                    in.readFully(change);
+                    changes.add(new StateChange(keyGroup, change));
+                }
+            }
+        }
+        return CloseableIterator.fromList(changes, change -> {});
+    }
+}
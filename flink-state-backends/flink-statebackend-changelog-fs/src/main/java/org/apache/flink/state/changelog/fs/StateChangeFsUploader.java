@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link StateChangeUploader} which writes each batch of change sets to a new file in a {@link
+ * FileSystem}. The change sets share the file and are located by their offsets in it.
+ */
+class StateChangeFsUploader implements StateChangeUploader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StateChangeFsUploader.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final Path basePath;
+
+    private final FileSystem fileSystem;
+
+    StateChangeFsUploader(Path basePath) throws IOException {
+        this.basePath = checkNotNull(basePath);
+        this.fileSystem = basePath.getFileSystem();
+    }
+
+    @Override
+    public void upload(Collection<UploadTask> tasks) throws IOException {
+        DataOutputSerializer out = new DataOutputSerializer(INITIAL_BUFFER_SIZE);
+        List<Long> offsets = new ArrayList<>(tasks.size());
+        for (UploadTask task : tasks) {
+            offsets.add((long) out.length());
+            StateChangeFormat.write(out, task.getChangeSet());
+        }
+
+        Path path = new Path(basePath, UUID.randomUUID().toString());
+        LOG.debug("Uploading {} change sets ({} bytes) to {}", tasks.size(), out.length(), path);
+        try (FSDataOutputStream stream =
+                fileSystem.create(path, FileSystem.WriteMode.NO_OVERWRITE)) {
+            stream.write(out.getSharedBuffer(), 0, out.length());
+        } catch (IOException e) {
+            try {
+                fileSystem.delete(path, false);
+            } catch (IOException deleteException) {
+                e.addSuppressed(deleteException);
+            }
+            throw e;
+        }
+
+        FileStateHandle handle = new FileStateHandle(path, out.length());
+        Iterator<Long> offsetIterator = offsets.iterator();
+        for (UploadTask task : tasks) {
+            task.complete(new UploadResult(handle, offsetIterator.next()));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.runtime.state.changelog.SequenceNumber;
+import org.apache.flink.runtime.state.changelog.StateChange;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * State changes of a single {@link FsStateChangelogWriter} which are uploaded together. A change
+ * set is identified by the {@link SequenceNumber} of its last change.
+ */
+class StateChangeSet {
+
+    private final UUID logId;
+
+    private final SequenceNumber sequenceNumber;
+
+    private final List<StateChange> changes;
+
+    private final long size;
+
+    StateChangeSet(UUID logId, SequenceNumber sequenceNumber, List<StateChange> changes) {
+        this.logId = checkNotNull(logId);
+        this.sequenceNumber = checkNotNull(sequenceNumber);
+        this.changes = checkNotNull(changes);
+        long size = 0L;
+        for (StateChange change : changes) {
+            size += change.getChange().length;
+        }
+        this.size = size;
+    }
+
+    public UUID getLogId() {
+        return logId;
+    }
+
+    public SequenceNumber getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public List<StateChange> getChanges() {
+        return changes;
+    }
+
+    /** Returns the total size of the changes in bytes. */
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "logId=%s, sequenceNumber=%s, changes=%d, size=%d",
+                logId, sequenceNumber, changes.size(), size);
+    }
+}
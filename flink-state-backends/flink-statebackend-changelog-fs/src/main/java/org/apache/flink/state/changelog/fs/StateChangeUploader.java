@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.StreamStateHandle;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/** Uploads batches of {@link StateChangeSet change sets} to durable storage. */
+interface StateChangeUploader extends AutoCloseable {
+
+    /**
+     * Uploads the change sets of the given tasks and completes the tasks on success. Must not
+     * complete any of the tasks if an exception is thrown, so the upload can be retried.
+     */
+    void upload(Collection<UploadTask> tasks) throws IOException;
+
+    @Override
+    default void close() throws Exception {}
+
+    /** A {@link StateChangeSet} to upload and the future of its {@link UploadResult}. */
+    final class UploadTask {
+
+        private final StateChangeSet changeSet;
+
+        private final CompletableFuture<UploadResult> result = new CompletableFuture<>();
+
+        UploadTask(StateChangeSet changeSet) {
+            this.changeSet = checkNotNull(changeSet);
+        }
+
+        public StateChangeSet getChangeSet() {
+            return changeSet;
+        }
+
+        public CompletableFuture<UploadResult> getResult() {
+            return result;
+        }
+
+        public void complete(UploadResult uploadResult) {
+            result.complete(uploadResult);
+        }
+
+        public void fail(Throwable cause) {
+            result.completeExceptionally(cause);
+        }
+    }
+
+    /** Location of an uploaded {@link StateChangeSet}. */
+    final class UploadResult {
+
+        private final StreamStateHandle streamStateHandle;
+
+        private final long offset;
+
+        UploadResult(StreamStateHandle streamStateHandle, long offset) {
+            this.streamStateHandle = checkNotNull(streamStateHandle);
+            this.offset = offset;
+        }
+
+        public StreamStateHandle getStreamStateHandle() {
+            return streamStateHandle;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        Tuple2<StreamStateHandle, Long> toHandleAndOffset() {
+            return Tuple2.of(streamStateHandle, offset);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.runtime.state.changelog.SequenceNumber;
+import org.apache.flink.runtime.state.changelog.StateChange;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link BatchingStateChangeUploader}. */
+public class BatchingStateChangeUploaderTest extends TestLogger {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private final List<Collection<StateChangeUploader.UploadTask>> batches = new ArrayList<>();
+
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    private BatchingStateChangeUploader uploader;
+
+    @Before
+    public void setUp() {
+        batches.clear();
+        failuresLeft.set(0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (uploader != null) {
+            uploader.close();
+        }
+    }
+
+    @Test
+    public void testUploadAfterDelay() throws Exception {
+        uploader = createUploader(500L, Long.MAX_VALUE, 1);
+
+        CompletableFuture<StateChangeUploader.UploadResult> first = uploader.upload(changeSet(1));
+        CompletableFuture<StateChangeUploader.UploadResult> second = uploader.upload(changeSet(1));
+
+        assertSame(first.get().getStreamStateHandle(), second.get().getStreamStateHandle());
+        assertEquals(1, getNumberOfBatches());
+    }
+
+    @Test
+    public void testUploadWhenSizeThresholdIsReached() throws Exception {
+        uploader = createUploader(HOUR, 10L, 1);
+
+        CompletableFuture<StateChangeUploader.UploadResult> first = uploader.upload(changeSet(6));
+        assertFalse(first.isDone());
+        CompletableFuture<StateChangeUploader.UploadResult> second = uploader.upload(changeSet(6));
+
+        assertEquals(0L, first.get().getOffset());
+        assertEquals(1L, second.get().getOffset());
+        assertEquals(1, getNumberOfBatches());
+    }
+
+    @Test
+    public void testUploadIsRetried() throws Exception {
+        failuresLeft.set(2);
+        uploader = createUploader(0L, Long.MAX_VALUE, 3);
+
+        uploader.upload(changeSet(1)).get();
+        assertEquals(1, getNumberOfBatches());
+    }
+
+    @Test
+    public void testUploadFailsAfterMaxAttempts() throws Exception {
+        failuresLeft.set(2);
+        uploader = createUploader(0L, Long.MAX_VALUE, 2);
+
+        try {
+            uploader.upload(changeSet(1)).get();
+            fail("Expected the upload to fail.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(0, getNumberOfBatches());
+    }
+
+    @Test
+    public void testCloseFailsPendingUploads() throws Exception {
+        uploader = createUploader(HOUR, Long.MAX_VALUE, 1);
+        CompletableFuture<StateChangeUploader.UploadResult> pending = uploader.upload(changeSet(1));
+
+        uploader.close();
+
+        assertTrue(pending.isCompletedExceptionally());
+    }
+
+    private BatchingStateChangeUploader createUploader(
+            long persistDelayMillis, long sizeThresholdBytes, int maxAttempts) {
+        StateChangeUploader delegate =
+                tasks -> {
+                    if (failuresLeft.getAndDecrement() > 0) {
+                        throw new IOException("expected");
+                    }
+                    synchronized (batches) {
+                        batches.add(tasks);
+                    }
+                    ByteStreamStateHandle handle =
+                            new ByteStreamStateHandle(UUID.randomUUID().toString(), new byte[0]);
+                    long offset = 0L;
+                    for (StateChangeUploader.UploadTask task : tasks) {
+                        task.complete(new StateChangeUploader.UploadResult(handle, offset++));
+                    }
+                };
+        return new BatchingStateChangeUploader(
+                persistDelayMillis,
+                sizeThresholdBytes,
+                delegate,
+                Executors.newSingleThreadScheduledExecutor(),
+                new RetryingExecutor(
+                        Executors.newSingleThreadScheduledExecutor(
+                                new ExecutorThreadFactory("test-uploader")),
+                        maxAttempts,
+                        0L));
+    }
+
+    private int getNumberOfBatches() {
+        synchronized (batches) {
+            return batches.size();
+        }
+    }
+
+    private static StateChangeSet changeSet(int size) {
+        return new StateChangeSet(
+                UUID.randomUUID(),
+                SequenceNumber.of(1L),
+                Collections.singletonList(new StateChange(0, new byte[size])));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog.fs;
+
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.changelog.SequenceNumber;
+import org.apache.flink.runtime.state.changelog.StateChange;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandleStreamImpl;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.util.CloseableIterator;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests for {@link FsStateChangelogWriter}. */
+public class FsStateChangelogWriterTest extends TestLogger {
+
+    private final AtomicInteger numUploadedChangeSets = new AtomicInteger();
+
+    private BatchingStateChangeUploader uploader;
+
+    private FsStateChangelogWriter writer;
+
+    @Before
+    public void setUp() {
+        numUploadedChangeSets.set(0);
+        StateChangeUploader delegate =
+                tasks -> {
+                    ByteStreamStateHandle handle =
+                            new ByteStreamStateHandle(UUID.randomUUID().toString(), new byte[0]);
+                    for (StateChangeUploader.UploadTask task : tasks) {
+                        numUploadedChangeSets.incrementAndGet();
+                        task.complete(new StateChangeUploader.UploadResult(handle, 0L));
+                    }
+                };
+        uploader =
+                new BatchingStateChangeUploader(
+                        0L,
+                        Long.MAX_VALUE,
+                        delegate,
+                        Executors.newSingleThreadScheduledExecutor(),
+                        new RetryingExecutor(Executors.newSingleThreadScheduledExecutor(), 1, 0L));
+        writer = new FsStateChangelogWriter(UUID.randomUUID(), KeyGroupRange.of(0, 1), uploader);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        writer.close();
+        uploader.close();
+    }
+
+    @Test
+    public void testChangeSetsAreUploadedOnce() throws Exception {
+        SequenceNumber from = writer.lastAppendedSequenceNumber().next();
+        writer.append(0, new byte[] {1});
+        writer.append(1, new byte[] {2});
+        assertEquals(1, persist(from));
+        assertEquals(1, numUploadedChangeSets.get());
+
+        writer.append(0, new byte[] {3});
+        assertEquals(2, persist(from));
+        assertEquals(2, numUploadedChangeSets.get());
+    }
+
+    @Test
+    public void testTruncatedChangeSetsAreNotPersisted() throws Exception {
+        writer.append(0, new byte[] {1});
+        SequenceNumber truncateTo = writer.lastAppendedSequenceNumber().next();
+        writer.append(0, new byte[] {2});
+        writer.truncate(truncateTo);
+
+        assertEquals(1, persist(SequenceNumber.of(1L)));
+    }
+
+    @Test
+    public void testResetChangeSetsAreUploadedAgain() throws Exception {
+        SequenceNumber from = writer.lastAppendedSequenceNumber().next();
+        writer.append(0, new byte[] {1});
+        SequenceNumber to = writer.lastAppendedSequenceNumber().next();
+        assertEquals(1, persist(from));
+
+        writer.reset(from, to);
+        assertEquals(1, persist(from));
+        assertEquals(2, numUploadedChangeSets.get());
+    }
+
+    /** Persists the changes and returns the number of change sets in the resulting handle. */
+    private int persist(SequenceNumber from) throws Exception {
+        StateChangelogHandleStreamImpl handle = writer.persist(from).get();
+        int numChangeSets = 0;
+        // read a single dummy change per uploaded change set
+        try (CloseableIterator<StateChange> changes =
+                handle.getChanges(
+                        (stream, offset) ->
+                                CloseableIterator.ofElement(
+                                        new StateChange(0, new byte[0]), change -> {}))) {
+            while (changes.hasNext()) {
+                changes.next();
+                numChangeSets++;
+            }
+        }
+        return numChangeSets;
+    }
+}
@@ -25,6 +25,9 @@ import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.runtime.state.internal.InternalValueState;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Delegated partitioned {@link ValueState} that forwards changes to {@link StateChange} upon {@link
@@ -52,6 +55,21 @@ class ChangelogValueState<K, N, V>
         delegatedState.update(value);
     }
 
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) throws IOException {
+        return delegatedState.getAll(keys);
+    }
+
+    @Override
+    public void putAll(Map<K, V> values) throws IOException {
+        delegatedState.putAll(values);
+    }
+
+    @Override
+    public CompletableFuture<V> asyncValue(K key) {
+        return delegatedState.asyncValue(key);
+    }
+
     @Override
     public void clear() {
         delegatedState.clear();
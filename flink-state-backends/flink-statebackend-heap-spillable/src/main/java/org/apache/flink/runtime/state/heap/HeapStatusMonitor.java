@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monitors the status of the JVM heap in a background thread. There is one monitor per JVM, which
+ * is shared by all {@link SpillableKeyedStateBackend SpillableKeyedStateBackends} and shut down
+ * when the last of them releases it.
+ *
+ * <p>The state backends only read the latest {@link MonitorResult} on their task threads, so that
+ * checking the heap status does not add noticeable cost to state accesses.
+ */
+public class HeapStatusMonitor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HeapStatusMonitor.class);
+
+    /** The shared monitor, or null if no backend uses it. */
+    private static HeapStatusMonitor sharedMonitor;
+
+    /** Number of backends that use the shared monitor. */
+    private static int sharedMonitorReferences;
+
+    private final MemoryMXBean memoryMXBean;
+
+    private final List<GarbageCollectorMXBean> garbageCollectorMXBeans;
+
+    private final ScheduledExecutorService executor;
+
+    private final long checkIntervalMillis;
+
+    private volatile MonitorResult monitorResult;
+
+    @VisibleForTesting
+    HeapStatusMonitor(long checkIntervalMillis) {
+        Preconditions.checkArgument(
+                checkIntervalMillis > 0, "The check interval of the heap status must be positive.");
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.memoryMXBean = ManagementFactory.getMemoryMXBean();
+        this.garbageCollectorMXBeans = ManagementFactory.getGarbageCollectorMXBeans();
+        this.monitorResult = checkHeapStatus();
+        this.executor =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ExecutorThreadFactory("heap-status-monitor"));
+        this.executor.scheduleWithFixedDelay(
+                this::runCheck, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the shared monitor and registers a reference to it. The check interval of the first
+     * caller is used.
+     */
+    static synchronized HeapStatusMonitor acquireSharedMonitor(long checkIntervalMillis) {
+        if (sharedMonitor == null) {
+            LOG.info("Starting heap status monitor with interval {} ms.", checkIntervalMillis);
+            sharedMonitor = new HeapStatusMonitor(checkIntervalMillis);
+        }
+        sharedMonitorReferences++;
+        return sharedMonitor;
+    }
+
+    /** Releases a reference to the shared monitor, and shuts it down if it is no longer used. */
+    static synchronized void releaseSharedMonitor(HeapStatusMonitor monitor) {
+        Preconditions.checkState(monitor == sharedMonitor, "Unknown heap status monitor.");
+        if (--sharedMonitorReferences == 0) {
+            sharedMonitor.shutdown();
+            sharedMonitor = null;
+        }
+    }
+
+    /** Returns the latest status of the heap. */
+    public MonitorResult getMonitorResult() {
+        return monitorResult;
+    }
+
+    long getCheckIntervalMillis() {
+        return checkIntervalMillis;
+    }
+
+    private void runCheck() {
+        try {
+            monitorResult = checkHeapStatus();
+        } catch (Throwable t) {
+            LOG.warn("Failed to check the heap status.", t);
+        }
+    }
+
+    private MonitorResult checkHeapStatus() {
+        MemoryUsage memoryUsage = memoryMXBean.getHeapMemoryUsage();
+        long garbageCollectionCount = 0;
+        for (GarbageCollectorMXBean garbageCollectorMXBean : garbageCollectorMXBeans) {
+            garbageCollectionCount += Math.max(0, garbageCollectorMXBean.getCollectionCount());
+        }
+        return new MonitorResult(
+                System.currentTimeMillis(),
+                memoryUsage.getUsed(),
+                memoryUsage.getMax() > 0 ? memoryUsage.getMax() : memoryUsage.getCommitted(),
+                garbageCollectionCount);
+    }
+
+    @VisibleForTesting
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** The status of the heap at some point in time. */
+    public static class MonitorResult {
+
+        private final long timestamp;
+
+        private final long usedMemory;
+
+        private final long maxMemory;
+
+        private final long garbageCollectionCount;
+
+        MonitorResult(
+                long timestamp, long usedMemory, long maxMemory, long garbageCollectionCount) {
+            this.timestamp = timestamp;
+            this.usedMemory = usedMemory;
+            this.maxMemory = maxMemory;
+            this.garbageCollectionCount = garbageCollectionCount;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getUsedMemory() {
+            return usedMemory;
+        }
+
+        public long getMaxMemory() {
+            return maxMemory;
+        }
+
+        /** Returns the total number of garbage collections since the start of the JVM. */
+        public long getGarbageCollectionCount() {
+            return garbageCollectionCount;
+        }
+
+        /** Returns the fraction of the maximum heap size that is used. */
+        public float getUsageRatio() {
+            return (float) usedMemory / maxMemory;
+        }
+
+        @Override
+        public String toString() {
+            return "MonitorResult{"
+                    + "timestamp="
+                    + timestamp
+                    + ", usedMemory="
+                    + usedMemory
+                    + ", maxMemory="
+                    + maxMemory
+                    + ", garbageCollectionCount="
+                    + garbageCollectionCount
+                    + '}';
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.heap.HeapStatusMonitor.MonitorResult;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Decides which key groups of the {@link SpillableStateTable SpillableStateTables} of a backend are
+ * kept on the heap, based on the latest {@link MonitorResult} of the heap.
+ *
+ * <p>If the heap usage exceeds the spill threshold, the key groups with the fewest requests are
+ * spilled, larger ones first, until the configured fraction of the on-heap entries is spilled. If
+ * the heap usage is below the load threshold, the spilled key groups with the most requests are
+ * loaded back. After each action, the manager waits for a garbage collection before it takes the
+ * next action, because the heap usage only reflects an action after the next collection.
+ *
+ * <p>The manager is not thread-safe and must only be used from the task thread.
+ */
+public class SpillAndLoadManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillAndLoadManager.class);
+
+    static final String METRIC_GROUP_NAME = "spillable";
+
+    static final String NUM_SPILLED_KEY_GROUPS = "numSpilledKeyGroups";
+
+    static final String NUM_KEY_GROUP_SPILLS = "numKeyGroupSpills";
+
+    static final String NUM_KEY_GROUP_LOADS = "numKeyGroupLoads";
+
+    static final String SPILLED_STATE_SIZE = "spilledStateSize";
+
+    static final String LAST_SPILL_DURATION = "lastSpillDuration";
+
+    static final String LAST_LOAD_DURATION = "lastLoadDuration";
+
+    /** The key/value states of the backend, which includes the states registered later. */
+    private final Collection<? extends StateTable<?, ?, ?>> stateTables;
+
+    private final KeyGroupRange keyGroupRange;
+
+    private final Supplier<MonitorResult> monitorResultSupplier;
+
+    private final float spillThreshold;
+
+    private final float loadThreshold;
+
+    private final float spillSizeRatio;
+
+    private final float loadSizeRatio;
+
+    /** The last monitor result that was evaluated. */
+    private MonitorResult lastMonitorResult;
+
+    /** Number of garbage collections at the time of the last action, -1 if there was none. */
+    private long garbageCollectionCountAtLastAction;
+
+    private final Counter numKeyGroupSpills;
+
+    private final Counter numKeyGroupLoads;
+
+    private int numSpilledKeyGroups;
+
+    private long lastSpillDuration;
+
+    private long lastLoadDuration;
+
+    SpillAndLoadManager(
+            Collection<? extends StateTable<?, ?, ?>> stateTables,
+            KeyGroupRange keyGroupRange,
+            Supplier<MonitorResult> monitorResultSupplier,
+            float spillThreshold,
+            float loadThreshold,
+            float spillSizeRatio,
+            float loadSizeRatio,
+            MetricGroup metricGroup,
+            LongSupplier spilledStateSizeSupplier) {
+        Preconditions.checkArgument(
+                loadThreshold < spillThreshold,
+                "The load threshold must be smaller than the spill threshold.");
+        Preconditions.checkArgument(
+                spillSizeRatio > 0 && spillSizeRatio <= 1,
+                "The spill size ratio must be in (0, 1].");
+        Preconditions.checkArgument(
+                loadSizeRatio > 0 && loadSizeRatio <= 1, "The load size ratio must be in (0, 1].");
+        this.stateTables = Preconditions.checkNotNull(stateTables);
+        this.keyGroupRange = Preconditions.checkNotNull(keyGroupRange);
+        this.monitorResultSupplier = Preconditions.checkNotNull(monitorResultSupplier);
+        this.spillThreshold = spillThreshold;
+        this.loadThreshold = loadThreshold;
+        this.spillSizeRatio = spillSizeRatio;
+        this.loadSizeRatio = loadSizeRatio;
+        this.garbageCollectionCountAtLastAction = -1;
+
+        MetricGroup spillableMetricGroup = metricGroup.addGroup(METRIC_GROUP_NAME);
+        this.numKeyGroupSpills =
+                spillableMetricGroup.counter(NUM_KEY_GROUP_SPILLS, new SimpleCounter());
+        this.numKeyGroupLoads =
+                spillableMetricGroup.counter(NUM_KEY_GROUP_LOADS, new SimpleCounter());
+        spillableMetricGroup.gauge(
+                NUM_SPILLED_KEY_GROUPS, (Gauge<Integer>) () -> numSpilledKeyGroups);
+        spillableMetricGroup.gauge(
+                SPILLED_STATE_SIZE, (Gauge<Long>) spilledStateSizeSupplier::getAsLong);
+        spillableMetricGroup.gauge(LAST_SPILL_DURATION, (Gauge<Long>) () -> lastSpillDuration);
+        spillableMetricGroup.gauge(LAST_LOAD_DURATION, (Gauge<Long>) () -> lastLoadDuration);
+    }
+
+    /**
+     * Spills or loads key groups if the heap status changed since the last call. This is cheap if
+     * there is no new {@link MonitorResult}, so it can be called on every state access.
+     */
+    public void checkResource() {
+        MonitorResult monitorResult = monitorResultSupplier.get();
+        if (monitorResult == lastMonitorResult) {
+            return;
+        }
+        lastMonitorResult = monitorResult;
+
+        for (StateTable<?, ?, ?> stateTable : stateTables) {
+            if (stateTable instanceof SpillableStateTable) {
+                ((SpillableStateTable<?, ?, ?>) stateTable).closeRetiredStateMaps();
+            }
+        }
+
+        if (monitorResult.getGarbageCollectionCount() <= garbageCollectionCountAtLastAction) {
+            // the heap usage does not reflect the last action yet
+            return;
+        }
+
+        float usageRatio = monitorResult.getUsageRatio();
+        boolean actionTaken = false;
+        if (usageRatio > spillThreshold) {
+            actionTaken = spill();
+        } else if (usageRatio < loadThreshold) {
+            actionTaken = load();
+        }
+
+        if (actionTaken) {
+            garbageCollectionCountAtLastAction = monitorResult.getGarbageCollectionCount();
+            LOG.debug("Changed spilled key groups after heap status {}.", monitorResult);
+        }
+
+        for (StateTable<?, ?, ?> stateTable : stateTables) {
+            if (stateTable instanceof SpillableStateTable) {
+                ((SpillableStateTable<?, ?, ?>) stateTable).decayRequestCounts();
+            }
+        }
+    }
+
+    /** Spills the coldest key groups. Returns whether any key group was spilled. */
+    @VisibleForTesting
+    boolean spill() {
+        List<KeyGroupStat> candidates = collectKeyGroupStats(false);
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        candidates.sort(
+                Comparator.comparingInt((KeyGroupStat stat) -> stat.requestCount)
+                        .thenComparing(
+                                Comparator.comparingInt((KeyGroupStat stat) -> stat.size)
+                                        .reversed()));
+
+        long startTime = System.currentTimeMillis();
+        long targetSize = Math.max(1L, (long) (totalSize(candidates) * spillSizeRatio));
+        long spilledSize = 0;
+        int spilledKeyGroups = 0;
+        for (KeyGroupStat candidate : candidates) {
+            if (spilledSize >= targetSize) {
+                break;
+            }
+            spilledSize += candidate.stateTable.spillState(candidate.keyGroup);
+            spilledKeyGroups++;
+        }
+
+        numSpilledKeyGroups += spilledKeyGroups;
+        numKeyGroupSpills.inc(spilledKeyGroups);
+        lastSpillDuration = System.currentTimeMillis() - startTime;
+        LOG.info(
+                "Spilled {} entries in {} key groups in {} ms.",
+                spilledSize,
+                spilledKeyGroups,
+                lastSpillDuration);
+        return true;
+    }
+
+    /** Loads the hottest spilled key groups. Returns whether any key group was loaded. */
+    @VisibleForTesting
+    boolean load() {
+        List<KeyGroupStat> candidates = collectKeyGroupStats(true);
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        candidates.sort(
+                Comparator.comparingInt((KeyGroupStat stat) -> stat.requestCount).reversed());
+
+        long startTime = System.currentTimeMillis();
+        long targetSize = Math.max(1L, (long) (totalSize(candidates) * loadSizeRatio));
+        long loadedSize = 0;
+        int loadedKeyGroups = 0;
+        for (KeyGroupStat candidate : candidates) {
+            if (loadedSize >= targetSize) {
+                break;
+            }
+            loadedSize += candidate.stateTable.loadState(candidate.keyGroup);
+            loadedKeyGroups++;
+        }
+
+        numSpilledKeyGroups -= loadedKeyGroups;
+        numKeyGroupLoads.inc(loadedKeyGroups);
+        lastLoadDuration = System.currentTimeMillis() - startTime;
+        LOG.info(
+                "Loaded {} entries in {} key groups in {} ms.",
+                loadedSize,
+                loadedKeyGroups,
+                lastLoadDuration);
+        return true;
+    }
+
+    private List<KeyGroupStat> collectKeyGroupStats(boolean spilled) {
+        List<KeyGroupStat> stats = new ArrayList<>();
+        int spilledKeyGroups = 0;
+        for (StateTable<?, ?, ?> stateTable : stateTables) {
+            if (!(stateTable instanceof SpillableStateTable)) {
+                continue;
+            }
+            SpillableStateTable<?, ?, ?> spillableStateTable =
+                    (SpillableStateTable<?, ?, ?>) stateTable;
+            for (int keyGroup : keyGroupRange) {
+                boolean isSpilled = spillableStateTable.isSpilled(keyGroup);
+                if (isSpilled) {
+                    spilledKeyGroups++;
+                }
+                int size = spillableStateTable.sizeOfKeyGroup(keyGroup);
+                if (isSpilled == spilled && (spilled || size > 0)) {
+                    stats.add(
+                            new KeyGroupStat(
+                                    spillableStateTable,
+                                    keyGroup,
+                                    size,
+                                    spillableStateTable.getRequestCount(keyGroup)));
+                }
+            }
+        }
+        // key groups may have been loaded by the tables themselves, e.g. on serializer upgrades
+        numSpilledKeyGroups = spilledKeyGroups;
+        return stats;
+    }
+
+    private static long totalSize(List<KeyGroupStat> stats) {
+        long totalSize = 0;
+        for (KeyGroupStat stat : stats) {
+            totalSize += stat.size;
+        }
+        return totalSize;
+    }
+
+    @VisibleForTesting
+    int getNumSpilledKeyGroups() {
+        return numSpilledKeyGroups;
+    }
+
+    /** Size and number of requests of a key group in a state table. */
+    private static final class KeyGroupStat {
+
+        private final SpillableStateTable<?, ?, ?> stateTable;
+
+        private final int keyGroup;
+
+        private final int size;
+
+        private final int requestCount;
+
+        KeyGroupStat(
+                SpillableStateTable<?, ?, ?> stateTable, int keyGroup, int size, int requestCount) {
+            this.stateTable = stateTable;
+            this.keyGroup = keyGroup;
+            this.size = size;
+            this.requestCount = requestCount;
+        }
+    }
+}
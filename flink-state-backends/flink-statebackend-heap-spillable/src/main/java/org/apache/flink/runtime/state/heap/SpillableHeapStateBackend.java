@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.ConfigurableStateBackend;
+import org.apache.flink.runtime.state.DefaultOperatorStateBackendBuilder;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.OperatorStateBackend;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.TaskStateManager;
+import org.apache.flink.runtime.state.heap.space.Constants;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * This state backend holds the working state in the memory (JVM heap) of the TaskManagers, like the
+ * {@link org.apache.flink.runtime.state.hashmap.HashMapStateBackend}, but spills the state of cold
+ * key groups to local disk when the heap is about to run full.
+ *
+ * <h1>Spilling and Loading</h1>
+ *
+ * <p>The backend watches the usage of the JVM heap. If more than the spill threshold of the heap is
+ * used, the key groups that were accessed least recently are moved in serialized form to
+ * memory-mapped files in the temporary directories of the TaskManager. If less than the load
+ * threshold is used, the most frequently accessed spilled key groups are moved back to the heap.
+ * Spilled state is still accessible, at the cost of serializing it on every access.
+ *
+ * <p>Snapshots are always taken asynchronously and have the same format as the snapshots of the
+ * {@code HashMapStateBackend}, so both backends can restore each other's checkpoints and
+ * savepoints.
+ *
+ * <h1>Configuration</h1>
+ *
+ * <p>As for all state backends, this backend can either be configured within the application (by
+ * creating the backend and calling the setters) or by specifying it in the Flink configuration, see
+ * {@link SpillableOptions}.
+ */
+@PublicEvolving
+public class SpillableHeapStateBackend extends AbstractStateBackend
+        implements ConfigurableStateBackend {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Maximum size of the memory-mapped files, because chunk offsets are stored as integers. */
+    private static final MemorySize MAX_CHUNK_SIZE = MemorySize.parse("1gb");
+
+    // ------------------------------------------------------------------------
+
+    /** Interval at which the heap status is checked, null if not yet configured. */
+    @Nullable private Duration heapStatusCheckInterval;
+
+    /** Heap usage above which key groups are spilled, null if not yet configured. */
+    @Nullable private Float spillThreshold;
+
+    /** Heap usage below which key groups are loaded, null if not yet configured. */
+    @Nullable private Float loadThreshold;
+
+    /** Fraction of the on-heap state that is spilled at once, null if not yet configured. */
+    @Nullable private Float spillSizeRatio;
+
+    /** Fraction of the spilled state that is loaded at once, null if not yet configured. */
+    @Nullable private Float loadSizeRatio;
+
+    /** Size of the memory-mapped files, null if not yet configured. */
+    @Nullable private MemorySize chunkSize;
+
+    // -----------------------------------------------------------------------
+
+    /** Creates a new spillable state backend. */
+    public SpillableHeapStateBackend() {}
+
+    private SpillableHeapStateBackend(SpillableHeapStateBackend original, ReadableConfig config) {
+        this.heapStatusCheckInterval =
+                original.heapStatusCheckInterval != null
+                        ? original.heapStatusCheckInterval
+                        : config.get(SpillableOptions.HEAP_STATUS_CHECK_INTERVAL);
+        this.spillThreshold =
+                original.spillThreshold != null
+                        ? original.spillThreshold
+                        : config.get(SpillableOptions.SPILL_THRESHOLD);
+        this.loadThreshold =
+                original.loadThreshold != null
+                        ? original.loadThreshold
+                        : config.get(SpillableOptions.LOAD_THRESHOLD);
+        this.spillSizeRatio =
+                original.spillSizeRatio != null
+                        ? original.spillSizeRatio
+                        : config.get(SpillableOptions.SPILL_SIZE_RATIO);
+        this.loadSizeRatio =
+                original.loadSizeRatio != null
+                        ? original.loadSizeRatio
+                        : config.get(SpillableOptions.LOAD_SIZE_RATIO);
+        this.chunkSize =
+                original.chunkSize != null
+                        ? original.chunkSize
+                        : config.get(SpillableOptions.CHUNK_SIZE);
+        validateConfiguration();
+    }
+
+    @Override
+    public SpillableHeapStateBackend configure(ReadableConfig config, ClassLoader classLoader)
+            throws IllegalConfigurationException {
+        return new SpillableHeapStateBackend(this, config);
+    }
+
+    private void validateConfiguration() {
+        float spill = getSpillThreshold();
+        float load = getLoadThreshold();
+        if (spill <= 0 || spill > 1 || load < 0 || load >= spill) {
+            throw new IllegalConfigurationException(
+                    "The thresholds must satisfy 0 <= load threshold < spill threshold <= 1, but "
+                            + "were "
+                            + load
+                            + " and "
+                            + spill
+                            + ".");
+        }
+        validateRatio(getSpillSizeRatio(), SpillableOptions.SPILL_SIZE_RATIO.key());
+        validateRatio(getLoadSizeRatio(), SpillableOptions.LOAD_SIZE_RATIO.key());
+        long chunkBytes = getChunkSize().getBytes();
+        if (chunkBytes < Constants.BUCKET_SIZE || chunkBytes > MAX_CHUNK_SIZE.getBytes()) {
+            throw new IllegalConfigurationException(
+                    "The chunk size must be between "
+                            + new MemorySize(Constants.BUCKET_SIZE).toHumanReadableString()
+                            + " and "
+                            + MAX_CHUNK_SIZE.toHumanReadableString()
+                            + ", but was "
+                            + getChunkSize().toHumanReadableString()
+                            + ".");
+        }
+        if (getHeapStatusCheckInterval().isZero() || getHeapStatusCheckInterval().isNegative()) {
+            throw new IllegalConfigurationException(
+                    "The heap status check interval must be positive.");
+        }
+    }
+
+    private static void validateRatio(float ratio, String key) {
+        if (ratio <= 0 || ratio > 1) {
+            throw new IllegalConfigurationException(
+                    "The value of '" + key + "' must be in (0, 1], but was " + ratio + ".");
+        }
+    }
+
+    @Override
+    public <K> AbstractKeyedStateBackend<K> createKeyedStateBackend(
+            Environment env,
+            JobID jobID,
+            String operatorIdentifier,
+            TypeSerializer<K> keySerializer,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            TaskKvStateRegistry kvStateRegistry,
+            TtlTimeProvider ttlTimeProvider,
+            MetricGroup metricGroup,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry)
+            throws IOException {
+
+        TaskStateManager taskStateManager = env.getTaskStateManager();
+        LocalRecoveryConfig localRecoveryConfig = taskStateManager.createLocalRecoveryConfig();
+        HeapPriorityQueueSetFactory priorityQueueSetFactory =
+                new HeapPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128);
+
+        File[] tmpDirectories = env.getIOManager().getSpillingDirectories();
+        File spillDirectory =
+                new File(
+                        tmpDirectories[ThreadLocalRandom.current().nextInt(tmpDirectories.length)],
+                        "flink-spillable-state-" + UUID.randomUUID());
+
+        return new SpillableKeyedStateBackendBuilder<>(
+                        kvStateRegistry,
+                        keySerializer,
+                        env.getUserCodeClassLoader().asClassLoader(),
+                        numberOfKeyGroups,
+                        keyGroupRange,
+                        env.getExecutionConfig(),
+                        ttlTimeProvider,
+                        stateHandles,
+                        getCompressionDecorator(env.getExecutionConfig()),
+                        localRecoveryConfig,
+                        priorityQueueSetFactory,
+                        cancelStreamRegistry,
+                        spillDirectory,
+                        (int) getChunkSize().getBytes(),
+                        getHeapStatusCheckInterval().toMillis(),
+                        getSpillThreshold(),
+                        getLoadThreshold(),
+                        getSpillSizeRatio(),
+                        getLoadSizeRatio(),
+                        metricGroup)
+                .build();
+    }
+
+    @Override
+    public OperatorStateBackend createOperatorStateBackend(
+            Environment env,
+            String operatorIdentifier,
+            @Nonnull Collection<OperatorStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry)
+            throws BackendBuildingException {
+
+        return new DefaultOperatorStateBackendBuilder(
+                        env.getUserCodeClassLoader().asClassLoader(),
+                        env.getExecutionConfig(),
+                        true,
+                        stateHandles,
+                        cancelStreamRegistry)
+                .build();
+    }
+
+    // ------------------------------------------------------------------------
+    //  Parameters
+    // ------------------------------------------------------------------------
+
+    /**
+     * Gets the interval at which the heap status is checked.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * SpillableOptions#HEAP_STATUS_CHECK_INTERVAL}.
+     */
+    public Duration getHeapStatusCheckInterval() {
+        return heapStatusCheckInterval != null
+                ? heapStatusCheckInterval
+                : SpillableOptions.HEAP_STATUS_CHECK_INTERVAL.defaultValue();
+    }
+
+    /**
+     * Sets the interval at which the heap status is checked. The interval is shared by all
+     * spillable state backends of a TaskManager, the first backend determines it.
+     */
+    public void setHeapStatusCheckInterval(Duration heapStatusCheckInterval) {
+        checkNotNull(heapStatusCheckInterval);
+        checkArgument(
+                !heapStatusCheckInterval.isZero() && !heapStatusCheckInterval.isNegative(),
+                "The heap status check interval must be positive.");
+        this.heapStatusCheckInterval = heapStatusCheckInterval;
+    }
+
+    /**
+     * Gets the fraction of the heap above which key groups are spilled.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * SpillableOptions#SPILL_THRESHOLD}.
+     */
+    public float getSpillThreshold() {
+        return spillThreshold != null
+                ? spillThreshold
+                : SpillableOptions.SPILL_THRESHOLD.defaultValue();
+    }
+
+    /** Sets the fraction of the heap above which key groups are spilled. */
+    public void setSpillThreshold(float spillThreshold) {
+        checkArgument(
+                spillThreshold > 0 && spillThreshold <= 1,
+                "The spill threshold must be in (0, 1].");
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * Gets the fraction of the heap below which spilled key groups are loaded.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * SpillableOptions#LOAD_THRESHOLD}.
+     */
+    public float getLoadThreshold() {
+        return loadThreshold != null
+                ? loadThreshold
+                : SpillableOptions.LOAD_THRESHOLD.defaultValue();
+    }
+
+    /**
+     * Sets the fraction of the heap below which spilled key groups are loaded. Must be smaller than
+     * the spill threshold.
+     */
+    public void setLoadThreshold(float loadThreshold) {
+        checkArgument(
+                loadThreshold >= 0 && loadThreshold < 1, "The load threshold must be in [0, 1).");
+        this.loadThreshold = loadThreshold;
+    }
+
+    /**
+     * Gets the fraction of the on-heap state that is spilled at once.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * SpillableOptions#SPILL_SIZE_RATIO}.
+     */
+    public float getSpillSizeRatio() {
+        return spillSizeRatio != null
+                ? spillSizeRatio
+                : SpillableOptions.SPILL_SIZE_RATIO.defaultValue();
+    }
+
+    /** Sets the fraction of the on-heap state that is spilled at once. */
+    public void setSpillSizeRatio(float spillSizeRatio) {
+        checkArgument(
+                spillSizeRatio > 0 && spillSizeRatio <= 1,
+                "The spill size ratio must be in (0, 1].");
+        this.spillSizeRatio = spillSizeRatio;
+    }
+
+    /**
+     * Gets the fraction of the spilled state that is loaded at once.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * SpillableOptions#LOAD_SIZE_RATIO}.
+     */
+    public float getLoadSizeRatio() {
+        return loadSizeRatio != null
+                ? loadSizeRatio
+                : SpillableOptions.LOAD_SIZE_RATIO.defaultValue();
+    }
+
+    /** Sets the fraction of the spilled state that is loaded at once. */
+    public void setLoadSizeRatio(float loadSizeRatio) {
+        checkArgument(
+                loadSizeRatio > 0 && loadSizeRatio <= 1, "The load size ratio must be in (0, 1].");
+        this.loadSizeRatio = loadSizeRatio;
+    }
+
+    /**
+     * Gets the size of the memory-mapped files that hold the spilled state.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * SpillableOptions#CHUNK_SIZE}.
+     */
+    public MemorySize getChunkSize() {
+        return chunkSize != null ? chunkSize : SpillableOptions.CHUNK_SIZE.defaultValue();
+    }
+
+    /** Sets the size of the memory-mapped files that hold the spilled state. */
+    public void setChunkSize(MemorySize chunkSize) {
+        checkNotNull(chunkSize);
+        checkArgument(
+                chunkSize.getBytes() >= Constants.BUCKET_SIZE
+                        && chunkSize.compareTo(MAX_CHUNK_SIZE) <= 0,
+                "The chunk size must be between 1 mb and 1 gb.");
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public String toString() {
+        return "SpillableHeapStateBackend{"
+                + "heapStatusCheckInterval="
+                + getHeapStatusCheckInterval()
+                + ", spillThreshold="
+                + getSpillThreshold()
+                + ", loadThreshold="
+                + getLoadThreshold()
+                + ", spillSizeRatio="
+                + getSpillSizeRatio()
+                + ", loadSizeRatio="
+                + getLoadSizeRatio()
+                + ", chunkSize="
+                + getChunkSize()
+                + '}';
+    }
+}
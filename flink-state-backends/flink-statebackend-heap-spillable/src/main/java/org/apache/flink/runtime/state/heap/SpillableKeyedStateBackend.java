@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.SnapshotExecutionType;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.heap.space.MmapSpaceAllocator;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.IOUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * A {@link HeapKeyedStateBackend} that spills cold key groups to memory-mapped files on local disk
+ * when the JVM heap runs full, and loads them back to the heap when there is enough heap again. The
+ * key/value states are kept in {@link SpillableStateTable SpillableStateTables}, and the decisions
+ * are taken by a {@link SpillAndLoadManager} whenever the current key changes.
+ *
+ * @param <K> The key by which state is keyed.
+ */
+public class SpillableKeyedStateBackend<K> extends HeapKeyedStateBackend<K> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillableKeyedStateBackend.class);
+
+    /** Decides which key groups are spilled. */
+    private final SpillAndLoadManager spillAndLoadManager;
+
+    /** The allocator for the space of the spilled key groups. */
+    private final MmapSpaceAllocator spaceAllocator;
+
+    /** The monitor that provides the heap status to the {@link SpillAndLoadManager}. */
+    private final HeapStatusMonitor heapStatusMonitor;
+
+    private boolean disposed;
+
+    SpillableKeyedStateBackend(
+            TaskKvStateRegistry kvStateRegistry,
+            TypeSerializer<K> keySerializer,
+            ClassLoader userCodeClassLoader,
+            ExecutionConfig executionConfig,
+            TtlTimeProvider ttlTimeProvider,
+            CloseableRegistry cancelStreamRegistry,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            Map<String, StateTable<K, ?, ?>> registeredKVStates,
+            Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates,
+            LocalRecoveryConfig localRecoveryConfig,
+            HeapPriorityQueueSetFactory priorityQueueSetFactory,
+            HeapSnapshotStrategy<K> checkpointStrategy,
+            StateTableFactory<K> stateTableFactory,
+            InternalKeyContext<K> keyContext,
+            SpillAndLoadManager spillAndLoadManager,
+            MmapSpaceAllocator spaceAllocator,
+            HeapStatusMonitor heapStatusMonitor) {
+        super(
+                kvStateRegistry,
+                keySerializer,
+                userCodeClassLoader,
+                executionConfig,
+                ttlTimeProvider,
+                cancelStreamRegistry,
+                keyGroupCompressionDecorator,
+                registeredKVStates,
+                registeredPQStates,
+                localRecoveryConfig,
+                priorityQueueSetFactory,
+                checkpointStrategy,
+                SnapshotExecutionType.ASYNCHRONOUS,
+                stateTableFactory,
+                keyContext);
+        this.spillAndLoadManager = spillAndLoadManager;
+        this.spaceAllocator = spaceAllocator;
+        this.heapStatusMonitor = heapStatusMonitor;
+        LOG.info("Initializing spillable keyed state backend.");
+    }
+
+    @Override
+    public void setCurrentKey(K newKey) {
+        super.setCurrentKey(newKey);
+        spillAndLoadManager.checkResource();
+    }
+
+    @Override
+    public void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        super.dispose();
+
+        IOUtils.closeQuietly(spaceAllocator);
+        HeapStatusMonitor.releaseSharedMonitor(heapStatusMonitor);
+    }
+
+    @VisibleForTesting
+    SpillAndLoadManager getSpillAndLoadManager() {
+        return spillAndLoadManager;
+    }
+
+    @Override
+    public String toString() {
+        return "SpillableKeyedStateBackend";
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.heap.space.MmapSpaceAllocator;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Builder class for {@link SpillableKeyedStateBackend} which handles all necessary initializations
+ * and clean ups.
+ *
+ * @param <K> The data type that the key serializer serializes.
+ */
+public class SpillableKeyedStateBackendBuilder<K> extends HeapKeyedStateBackendBuilder<K> {
+
+    /** The directory for the memory-mapped files of the spilled state. */
+    private final File spillDirectory;
+
+    /** Capacity of the memory-mapped files. */
+    private final int chunkSize;
+
+    /** Interval at which the heap status is checked. */
+    private final long heapStatusCheckIntervalMillis;
+
+    private final float spillThreshold;
+
+    private final float loadThreshold;
+
+    private final float spillSizeRatio;
+
+    private final float loadSizeRatio;
+
+    private final MetricGroup metricGroup;
+
+    /** The allocator of the backend that is built, created with the state table factory. */
+    private MmapSpaceAllocator spaceAllocator;
+
+    public SpillableKeyedStateBackendBuilder(
+            TaskKvStateRegistry kvStateRegistry,
+            TypeSerializer<K> keySerializer,
+            ClassLoader userCodeClassLoader,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            ExecutionConfig executionConfig,
+            TtlTimeProvider ttlTimeProvider,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            LocalRecoveryConfig localRecoveryConfig,
+            HeapPriorityQueueSetFactory priorityQueueSetFactory,
+            CloseableRegistry cancelStreamRegistry,
+            File spillDirectory,
+            int chunkSize,
+            long heapStatusCheckIntervalMillis,
+            float spillThreshold,
+            float loadThreshold,
+            float spillSizeRatio,
+            float loadSizeRatio,
+            MetricGroup metricGroup) {
+        super(
+                kvStateRegistry,
+                keySerializer,
+                userCodeClassLoader,
+                numberOfKeyGroups,
+                keyGroupRange,
+                executionConfig,
+                ttlTimeProvider,
+                stateHandles,
+                keyGroupCompressionDecorator,
+                localRecoveryConfig,
+                priorityQueueSetFactory,
+                true,
+                cancelStreamRegistry);
+        this.spillDirectory = Preconditions.checkNotNull(spillDirectory);
+        this.chunkSize = chunkSize;
+        this.heapStatusCheckIntervalMillis = heapStatusCheckIntervalMillis;
+        this.spillThreshold = spillThreshold;
+        this.loadThreshold = loadThreshold;
+        this.spillSizeRatio = spillSizeRatio;
+        this.loadSizeRatio = loadSizeRatio;
+        this.metricGroup = Preconditions.checkNotNull(metricGroup);
+    }
+
+    @Override
+    public SpillableKeyedStateBackend<K> build() throws BackendBuildingException {
+        try {
+            return (SpillableKeyedStateBackend<K>) super.build();
+        } catch (UncheckedIOException e) {
+            IOUtils.closeQuietly(spaceAllocator);
+            throw new BackendBuildingException(e.getMessage(), e.getCause());
+        } catch (BackendBuildingException | RuntimeException e) {
+            IOUtils.closeQuietly(spaceAllocator);
+            throw e;
+        }
+    }
+
+    @Override
+    StateTableFactory<K> createStateTableFactory() {
+        try {
+            spaceAllocator = new MmapSpaceAllocator(spillDirectory, chunkSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the space for spilled state.", e);
+        }
+        final MmapSpaceAllocator allocator = spaceAllocator;
+        return new StateTableFactory<K>() {
+            @Override
+            public <N, V> StateTable<K, N, V> newStateTable(
+                    InternalKeyContext<K> keyContext,
+                    RegisteredKeyValueStateBackendMetaInfo<N, V> meta,
+                    TypeSerializer<K> keySerializer) {
+                return new SpillableStateTable<>(keyContext, meta, keySerializer, allocator);
+            }
+        };
+    }
+
+    @Override
+    HeapKeyedStateBackend<K> createKeyedStateBackend(
+            CloseableRegistry cancelStreamRegistryForBackend,
+            Map<String, StateTable<K, ?, ?>> registeredKVStates,
+            Map<String, HeapPriorityQueueSnapshotRestoreWrapper<?>> registeredPQStates,
+            HeapSnapshotStrategy<K> snapshotStrategy,
+            StateTableFactory<K> stateTableFactory,
+            InternalKeyContext<K> keyContext) {
+        HeapStatusMonitor heapStatusMonitor =
+                HeapStatusMonitor.acquireSharedMonitor(heapStatusCheckIntervalMillis);
+        try {
+            SpillAndLoadManager spillAndLoadManager =
+                    new SpillAndLoadManager(
+                            registeredKVStates.values(),
+                            keyGroupRange,
+                            heapStatusMonitor::getMonitorResult,
+                            spillThreshold,
+                            loadThreshold,
+                            spillSizeRatio,
+                            loadSizeRatio,
+                            metricGroup,
+                            spaceAllocator::getUsedSize);
+            return new SpillableKeyedStateBackend<>(
+                    kvStateRegistry,
+                    keySerializerProvider.currentSchemaSerializer(),
+                    userCodeClassLoader,
+                    executionConfig,
+                    ttlTimeProvider,
+                    cancelStreamRegistryForBackend,
+                    keyGroupCompressionDecorator,
+                    registeredKVStates,
+                    registeredPQStates,
+                    localRecoveryConfig,
+                    priorityQueueSetFactory,
+                    snapshotStrategy,
+                    stateTableFactory,
+                    keyContext,
+                    spillAndLoadManager,
+                    spaceAllocator,
+                    heapStatusMonitor);
+        } catch (RuntimeException e) {
+            HeapStatusMonitor.releaseSharedMonitor(heapStatusMonitor);
+            throw e;
+        }
+    }
+}
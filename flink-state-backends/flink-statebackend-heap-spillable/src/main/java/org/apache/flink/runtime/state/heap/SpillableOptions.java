@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.MemorySize;
+
+import java.time.Duration;
+
+/** Configuration options for the {@link SpillableHeapStateBackend}. */
+@PublicEvolving
+public class SpillableOptions {
+
+    /** Interval at which the status of the heap is checked. */
+    public static final ConfigOption<Duration> HEAP_STATUS_CHECK_INTERVAL =
+            ConfigOptions.key("state.backend.spillable.heap-status.check-interval")
+                    .durationType()
+                    .defaultValue(Duration.ofSeconds(1))
+                    .withDescription(
+                            "Interval at which the status of the JVM heap is checked to decide "
+                                    + "whether key groups are spilled or loaded. The interval is shared "
+                                    + "by all spillable state backends of a TaskManager.");
+
+    /** Heap usage above which key groups are spilled. */
+    public static final ConfigOption<Float> SPILL_THRESHOLD =
+            ConfigOptions.key("state.backend.spillable.spill-threshold")
+                    .floatType()
+                    .defaultValue(0.7f)
+                    .withDescription(
+                            "Fraction of the maximum JVM heap size. If more heap is in use, the "
+                                    + "coldest key groups are spilled to local disk.");
+
+    /** Heap usage below which spilled key groups are loaded. */
+    public static final ConfigOption<Float> LOAD_THRESHOLD =
+            ConfigOptions.key("state.backend.spillable.load-threshold")
+                    .floatType()
+                    .defaultValue(0.5f)
+                    .withDescription(
+                            "Fraction of the maximum JVM heap size. If less heap is in use, the "
+                                    + "hottest spilled key groups are loaded back to the heap. Must be "
+                                    + "smaller than the spill threshold.");
+
+    /** Fraction of the on-heap state to spill at once. */
+    public static final ConfigOption<Float> SPILL_SIZE_RATIO =
+            ConfigOptions.key("state.backend.spillable.spill-size-ratio")
+                    .floatType()
+                    .defaultValue(0.2f)
+                    .withDescription(
+                            "Fraction of the entries on the heap that is spilled when the spill "
+                                    + "threshold is exceeded.");
+
+    /** Fraction of the spilled state to load at once. */
+    public static final ConfigOption<Float> LOAD_SIZE_RATIO =
+            ConfigOptions.key("state.backend.spillable.load-size-ratio")
+                    .floatType()
+                    .defaultValue(0.1f)
+                    .withDescription(
+                            "Fraction of the spilled entries that is loaded back to the heap when "
+                                    + "the heap usage is below the load threshold.");
+
+    /** Size of the memory-mapped files that hold the spilled state. */
+    public static final ConfigOption<MemorySize> CHUNK_SIZE =
+            ConfigOptions.key("state.backend.spillable.chunk-size")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("64mb"))
+                    .withDescription(
+                            "Size of the memory-mapped files in the temporary directories that hold "
+                                    + "the spilled state. Must be between 1 mb and 1 gb.");
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.heap.space.Allocator;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.util.Disposable;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.apache.flink.runtime.state.heap.CopyOnWriteSkipListStateMap.DEFAULT_LOGICAL_REMOVED_KEYS_RATIO;
+import static org.apache.flink.runtime.state.heap.CopyOnWriteSkipListStateMap.DEFAULT_MAX_KEYS_TO_DELETE_ONE_TIME;
+
+/**
+ * This implementation of {@link StateTable} keeps each key group either on the heap in a {@link
+ * CopyOnWriteStateMap}, or spilled in serialized form to a {@link CopyOnWriteSkipListStateMap}
+ * whose space comes from the given {@link Allocator}. Key groups start on the heap and are moved
+ * between both forms by {@link #spillState(int)} and {@link #loadState(int)}. Both map types
+ * support asynchronous snapshots, and a snapshot keeps referring to the maps from the time it was
+ * taken.
+ *
+ * <p>The table counts the requests per key group, so that cold key groups can be spilled first.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of state.
+ */
+public class SpillableStateTable<K, N, S> extends StateTable<K, N, S> implements Disposable {
+
+    /** The allocator for the space of spilled key groups. */
+    private final Allocator spaceAllocator;
+
+    /** Number of requests per key group since the counts were last reset. */
+    private final int[] requestCounts;
+
+    /** The state serializer with which the spilled key groups were written. */
+    private TypeSerializer<S> spilledStateSerializer;
+
+    /**
+     * Spilled maps that were replaced while snapshots still referred to them. Guarded by itself,
+     * because they are also closed by snapshot threads when the snapshots are released.
+     */
+    @GuardedBy("retiredStateMaps")
+    private final List<CopyOnWriteSkipListStateMap<K, N, S>> retiredStateMaps;
+
+    /**
+     * Constructs a new {@code SpillableStateTable}.
+     *
+     * @param keyContext the key context.
+     * @param metaInfo the meta information, including the type serializer for state copy-on-write.
+     * @param keySerializer the serializer of the key.
+     * @param spaceAllocator the allocator for the space of spilled key groups.
+     */
+    SpillableStateTable(
+            InternalKeyContext<K> keyContext,
+            RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo,
+            TypeSerializer<K> keySerializer,
+            Allocator spaceAllocator) {
+        super(keyContext, metaInfo, keySerializer);
+        this.spaceAllocator = Preconditions.checkNotNull(spaceAllocator);
+        this.requestCounts = new int[keyGroupedStateMaps.length];
+        this.spilledStateSerializer = getStateSerializer();
+        this.retiredStateMaps = new ArrayList<>();
+    }
+
+    @Override
+    protected CopyOnWriteStateMap<K, N, S> createStateMap() {
+        return new CopyOnWriteStateMap<>(getStateSerializer());
+    }
+
+    @Override
+    StateMap<K, N, S> getMapForKeyGroup(int keyGroupIndex) {
+        final int pos = keyGroupIndex - keyGroupOffset;
+        if (pos >= 0 && pos < keyGroupedStateMaps.length) {
+            requestCounts[pos]++;
+            return keyGroupedStateMaps[pos];
+        } else {
+            return null;
+        }
+    }
+
+    /** Spilled key groups return deserialized copies of the state. */
+    @Override
+    public boolean isStoringStateObjects() {
+        return false;
+    }
+
+    @Override
+    public void setMetaInfo(RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo) {
+        super.setMetaInfo(metaInfo);
+        if (!getStateSerializer().equals(spilledStateSerializer)) {
+            // spilled key groups must not be mixed with state written by the new serializer
+            for (int pos = 0; pos < keyGroupedStateMaps.length; pos++) {
+                if (keyGroupedStateMaps[pos] instanceof CopyOnWriteSkipListStateMap) {
+                    loadState(pos + keyGroupOffset);
+                }
+            }
+            spilledStateSerializer = getStateSerializer();
+        }
+    }
+
+    // Spilling and loading
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Moves the state of the given key group from the heap to the spilled form.
+     *
+     * @param keyGroupIndex the key group to spill.
+     * @return the number of spilled entries.
+     */
+    public int spillState(int keyGroupIndex) {
+        final int pos = keyGroupIndex - keyGroupOffset;
+        StateMap<K, N, S> stateMap = keyGroupedStateMaps[pos];
+        Preconditions.checkState(
+                !(stateMap instanceof CopyOnWriteSkipListStateMap),
+                "Key group " + keyGroupIndex + " is already spilled.");
+
+        CopyOnWriteSkipListStateMap<K, N, S> spilledStateMap =
+                new CopyOnWriteSkipListStateMap<>(
+                        getKeySerializer(),
+                        getNamespaceSerializer(),
+                        getStateSerializer(),
+                        spaceAllocator,
+                        DEFAULT_MAX_KEYS_TO_DELETE_ONE_TIME,
+                        DEFAULT_LOGICAL_REMOVED_KEYS_RATIO);
+        for (StateEntry<K, N, S> entry : stateMap) {
+            spilledStateMap.put(entry.getKey(), entry.getNamespace(), entry.getState());
+        }
+
+        keyGroupedStateMaps[pos] = spilledStateMap;
+        spilledStateSerializer = getStateSerializer();
+        closeRetiredStateMaps();
+        return spilledStateMap.size();
+    }
+
+    /**
+     * Moves the state of the given key group from the spilled form back to the heap.
+     *
+     * @param keyGroupIndex the key group to load.
+     * @return the number of loaded entries.
+     */
+    public int loadState(int keyGroupIndex) {
+        final int pos = keyGroupIndex - keyGroupOffset;
+        StateMap<K, N, S> stateMap = keyGroupedStateMaps[pos];
+        Preconditions.checkState(
+                stateMap instanceof CopyOnWriteSkipListStateMap,
+                "Key group " + keyGroupIndex + " is not spilled.");
+
+        CopyOnWriteStateMap<K, N, S> heapStateMap = createStateMap();
+        for (StateEntry<K, N, S> entry : stateMap) {
+            heapStateMap.put(entry.getKey(), entry.getNamespace(), entry.getState());
+        }
+
+        keyGroupedStateMaps[pos] = heapStateMap;
+        synchronized (retiredStateMaps) {
+            retiredStateMaps.add((CopyOnWriteSkipListStateMap<K, N, S>) stateMap);
+        }
+        closeRetiredStateMaps();
+        return heapStateMap.size();
+    }
+
+    /**
+     * Closes the replaced spilled maps that are no longer referred to by any snapshot. This is
+     * called by the task thread when key groups are moved and by snapshot threads when a snapshot
+     * of a spilled map is released.
+     */
+    void closeRetiredStateMaps() {
+        synchronized (retiredStateMaps) {
+            Iterator<CopyOnWriteSkipListStateMap<K, N, S>> iterator = retiredStateMaps.iterator();
+            while (iterator.hasNext()) {
+                CopyOnWriteSkipListStateMap<K, N, S> stateMap = iterator.next();
+                if (stateMap.getResourceGuard().getLeaseCount() == 0) {
+                    stateMap.close();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /** Returns whether the given key group is spilled. */
+    public boolean isSpilled(int keyGroupIndex) {
+        return keyGroupedStateMaps[keyGroupIndex - keyGroupOffset]
+                instanceof CopyOnWriteSkipListStateMap;
+    }
+
+    /** Returns the number of entries in the given key group. */
+    int sizeOfKeyGroup(int keyGroupIndex) {
+        return keyGroupedStateMaps[keyGroupIndex - keyGroupOffset].size();
+    }
+
+    /** Returns the number of requests to the given key group since the last reset. */
+    int getRequestCount(int keyGroupIndex) {
+        return requestCounts[keyGroupIndex - keyGroupOffset];
+    }
+
+    /** Halves all request counts, so that the counts favour recent requests. */
+    void decayRequestCounts() {
+        for (int i = 0; i < requestCounts.length; i++) {
+            requestCounts[i] >>>= 1;
+        }
+    }
+
+    @VisibleForTesting
+    int getNumberOfRetiredStateMaps() {
+        synchronized (retiredStateMaps) {
+            return retiredStateMaps.size();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
+            if (stateMap instanceof CopyOnWriteSkipListStateMap) {
+                ((CopyOnWriteSkipListStateMap<K, N, S>) stateMap).close();
+            }
+        }
+        synchronized (retiredStateMaps) {
+            for (CopyOnWriteSkipListStateMap<K, N, S> stateMap : retiredStateMaps) {
+                stateMap.close();
+            }
+            retiredStateMaps.clear();
+        }
+    }
+
+    /**
+     * The returned visitor notices when a key group is spilled or loaded while it is visited, and
+     * then continues with the new map of the key group instead of the replaced one.
+     */
+    @Override
+    public StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(
+            int recommendedMaxNumberOfReturnedRecords) {
+        return new SpillableStateEntryIterator(recommendedMaxNumberOfReturnedRecords);
+    }
+
+    // Snapshotting
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a snapshot of this {@link SpillableStateTable}, to be written in checkpointing.
+     *
+     * @return a snapshot from this {@link SpillableStateTable}, for checkpointing.
+     */
+    @Nonnull
+    @Override
+    public SpillableStateTableSnapshot<K, N, S> stateSnapshot() {
+        return new SpillableStateTableSnapshot<>(
+                this,
+                getKeySerializer().duplicate(),
+                getNamespaceSerializer().duplicate(),
+                getStateSerializer().duplicate(),
+                getMetaInfo()
+                        .getStateSnapshotTransformFactory()
+                        .createForDeserializedState()
+                        .orElse(null));
+    }
+
+    List<StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>>> getStateMapSnapshotList() {
+        List<StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>>> snapshotList =
+                new ArrayList<>(keyGroupedStateMaps.length);
+        for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
+            snapshotList.add(stateMap.stateSnapshot());
+        }
+        return snapshotList;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+
+    /** Incremental visitor over all key groups that tolerates spilling and loading. */
+    private class SpillableStateEntryIterator implements StateIncrementalVisitor<K, N, S> {
+
+        private final int recommendedMaxNumberOfReturnedRecords;
+
+        /** Position of the next key group to visit. */
+        private int nextPos;
+
+        /** Position of the key group that is currently visited. */
+        private int currentPos;
+
+        private StateIncrementalVisitor<K, N, S> stateIncrementalVisitor;
+
+        /** The map of the key group that is currently visited. */
+        private StateMap<K, N, S> visitedStateMap;
+
+        SpillableStateEntryIterator(int recommendedMaxNumberOfReturnedRecords) {
+            this.recommendedMaxNumberOfReturnedRecords = recommendedMaxNumberOfReturnedRecords;
+            this.nextPos = 0;
+            this.currentPos = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (stateIncrementalVisitor != null
+                    && visitedStateMap != keyGroupedStateMaps[currentPos]) {
+                // the visited key group was spilled or loaded, so visit its current map again
+                stateIncrementalVisitor = createVisitor(currentPos);
+            }
+            while (stateIncrementalVisitor == null || !stateIncrementalVisitor.hasNext()) {
+                if (nextPos == keyGroupedStateMaps.length) {
+                    return false;
+                }
+                currentPos = nextPos++;
+                stateIncrementalVisitor = createVisitor(currentPos);
+            }
+            return true;
+        }
+
+        @Override
+        public Collection<StateEntry<K, N, S>> nextEntries() {
+            if (!hasNext()) {
+                return null;
+            }
+            return stateIncrementalVisitor.nextEntries();
+        }
+
+        @Override
+        public void remove(StateEntry<K, N, S> stateEntry) {
+            keyGroupedStateMaps[currentPos].remove(stateEntry.getKey(), stateEntry.getNamespace());
+        }
+
+        @Override
+        public void update(StateEntry<K, N, S> stateEntry, S newValue) {
+            keyGroupedStateMaps[currentPos].put(
+                    stateEntry.getKey(), stateEntry.getNamespace(), newValue);
+        }
+
+        private StateIncrementalVisitor<K, N, S> createVisitor(int pos) {
+            visitedStateMap = keyGroupedStateMaps[pos];
+            return visitedStateMap.getStateIncrementalVisitor(
+                    recommendedMaxNumberOfReturnedRecords);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.BUCKET_SIZE;
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * A {@link Chunk} that is backed by a memory-mapped file. Space is handed out in blocks whose size
+ * is a power of two, and freed blocks are kept in one free list per block size for reuse. Each
+ * block starts with a header that records its size class, so that it can be freed by its offset.
+ *
+ * <p>A dedicated chunk holds exactly one allocation that is larger than {@link
+ * Constants#BUCKET_SIZE}.
+ */
+public class MmapChunk implements Chunk {
+
+    /** Size of the block header that holds the size class. */
+    static final int BLOCK_HEADER_SIZE = 4;
+
+    /** Size of the smallest block. */
+    static final int MIN_BLOCK_SIZE = 16;
+
+    /** Size class stored in the header of the block of a dedicated chunk. */
+    private static final int DEDICATED_SIZE_CLASS = -1;
+
+    private static final int MIN_SIZE_CLASS = MathUtils.log2strict(MIN_BLOCK_SIZE);
+
+    private static final int NUM_SIZE_CLASSES =
+            MathUtils.log2strict(BUCKET_SIZE) - MIN_SIZE_CLASS + 1;
+
+    private final int chunkId;
+
+    private final int capacity;
+
+    private final File file;
+
+    private final MemorySegment segment;
+
+    private final boolean dedicated;
+
+    /** Offset of the first byte that was never allocated. */
+    private int nextOffset;
+
+    /** Number of bytes in blocks that are currently allocated. */
+    private long usedSize;
+
+    /** Offsets of free blocks, per size class. */
+    private final int[][] freeLists;
+
+    /** Number of offsets in each free list. */
+    private final int[] freeListSizes;
+
+    private MmapChunk(int chunkId, int capacity, File file, boolean dedicated) throws IOException {
+        this.chunkId = chunkId;
+        this.capacity = capacity;
+        this.file = file;
+        this.dedicated = dedicated;
+        this.segment = MemorySegmentFactory.wrapOffHeapMemory(map(file, capacity));
+        this.nextOffset = 0;
+        this.usedSize = 0;
+        this.freeLists = new int[NUM_SIZE_CLASSES][];
+        this.freeListSizes = new int[NUM_SIZE_CLASSES];
+    }
+
+    /** Creates a chunk of the given capacity that is shared by many allocations. */
+    static MmapChunk createChunk(int chunkId, int capacity, File file) throws IOException {
+        Preconditions.checkArgument(
+                capacity >= BUCKET_SIZE,
+                "The capacity of a chunk must not be smaller than " + BUCKET_SIZE);
+        return new MmapChunk(chunkId, capacity, file, false);
+    }
+
+    /** Creates a chunk that holds a single allocation of the given size. */
+    static MmapChunk createDedicatedChunk(int chunkId, int allocationSize, File file)
+            throws IOException {
+        return new MmapChunk(chunkId, allocationSize + BLOCK_HEADER_SIZE, file, true);
+    }
+
+    private static MappedByteBuffer map(File file, int capacity) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                FileChannel channel = randomAccessFile.getChannel()) {
+            randomAccessFile.setLength(capacity);
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    /** Returns the total size of the blocks required for an allocation of the given length. */
+    static int getBlockSize(int len) {
+        return Math.max(MIN_BLOCK_SIZE, MathUtils.roundUpToPowerOfTwo(len + BLOCK_HEADER_SIZE));
+    }
+
+    @Override
+    public synchronized int allocate(int len) {
+        if (dedicated) {
+            if (nextOffset > 0 || len + BLOCK_HEADER_SIZE > capacity) {
+                return NO_SPACE;
+            }
+            segment.putInt(0, DEDICATED_SIZE_CLASS);
+            nextOffset = capacity;
+            usedSize = capacity;
+            return BLOCK_HEADER_SIZE;
+        }
+
+        int blockSize = getBlockSize(len);
+        if (blockSize > BUCKET_SIZE) {
+            return NO_SPACE;
+        }
+        int sizeClass = MathUtils.log2strict(blockSize) - MIN_SIZE_CLASS;
+
+        int blockOffset;
+        if (freeListSizes[sizeClass] > 0) {
+            blockOffset = freeLists[sizeClass][--freeListSizes[sizeClass]];
+        } else if (capacity - nextOffset >= blockSize) {
+            blockOffset = nextOffset;
+            nextOffset += blockSize;
+        } else {
+            return NO_SPACE;
+        }
+
+        segment.putInt(blockOffset, sizeClass);
+        usedSize += blockSize;
+        return blockOffset + BLOCK_HEADER_SIZE;
+    }
+
+    @Override
+    public synchronized void free(int interChunkOffset) {
+        int blockOffset = interChunkOffset - BLOCK_HEADER_SIZE;
+        int sizeClass = segment.getInt(blockOffset);
+        if (sizeClass == DEDICATED_SIZE_CLASS) {
+            Preconditions.checkState(dedicated, "Invalid block at offset " + interChunkOffset);
+            usedSize = 0;
+            return;
+        }
+
+        int[] freeList = freeLists[sizeClass];
+        int freeListSize = freeListSizes[sizeClass];
+        if (freeList == null) {
+            freeList = new int[16];
+        } else if (freeListSize == freeList.length) {
+            freeList = Arrays.copyOf(freeList, freeListSize << 1);
+        }
+        freeList[freeListSize] = blockOffset;
+        freeLists[sizeClass] = freeList;
+        freeListSizes[sizeClass] = freeListSize + 1;
+        usedSize -= 1L << (sizeClass + MIN_SIZE_CLASS);
+    }
+
+    /**
+     * Returns whether a block for an allocation of the given length can be taken from this chunk.
+     */
+    synchronized boolean canAllocate(int len) {
+        if (dedicated) {
+            return nextOffset == 0 && len + BLOCK_HEADER_SIZE <= capacity;
+        }
+        int blockSize = getBlockSize(len);
+        return blockSize <= BUCKET_SIZE
+                && (freeListSizes[MathUtils.log2strict(blockSize) - MIN_SIZE_CLASS] > 0
+                        || capacity - nextOffset >= blockSize);
+    }
+
+    boolean isDedicated() {
+        return dedicated;
+    }
+
+    /** Returns the number of bytes in blocks that are currently allocated. */
+    synchronized long getUsedSize() {
+        return usedSize;
+    }
+
+    @Override
+    public int getChunkId() {
+        return chunkId;
+    }
+
+    @Override
+    public int getChunkCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public MemorySegment getMemorySegment(int chunkOffset) {
+        return segment;
+    }
+
+    @Override
+    public int getOffsetInSegment(int offsetInChunk) {
+        return offsetInChunk;
+    }
+
+    /** Releases the memory segment and deletes the backing file. */
+    void close() throws IOException {
+        segment.free();
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.BUCKET_SIZE;
+import static org.apache.flink.runtime.state.heap.space.Constants.FOUR_BYTES_BITS;
+import static org.apache.flink.runtime.state.heap.space.Constants.FOUR_BYTES_MARK;
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * Implementation of {@link Allocator} that allocates space in {@link MmapChunk MmapChunks}, which
+ * are backed by memory-mapped files in a local directory. The operating system pages the files in
+ * and out as needed, so the allocated space is not limited by the JVM heap or by the physical
+ * memory.
+ *
+ * <p>Allocations up to {@link Constants#BUCKET_SIZE} share chunks of a fixed size, larger
+ * allocations get a dedicated chunk that is deleted once the allocation is freed.
+ *
+ * <p>Allocation and free are synchronized, because the space may be freed by snapshot threads. The
+ * lookup of chunks by id is lock free.
+ */
+public class MmapSpaceAllocator implements Allocator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MmapSpaceAllocator.class);
+
+    /** The directory that holds the chunk files. */
+    private final File directory;
+
+    /** Capacity of the chunks that are shared by many allocations. */
+    private final int chunkSize;
+
+    /** The chunks, indexed by their id. Ids of released dedicated chunks are reused. */
+    private volatile MmapChunk[] chunks;
+
+    /** The chunk that was last used for an allocation of a shared chunk. */
+    private MmapChunk currentChunk;
+
+    /** Number of bytes in all chunks. */
+    private long totalSize;
+
+    private boolean closed;
+
+    /**
+     * Creates a new allocator.
+     *
+     * @param directory the directory to create the chunk files in. The directory is created if it
+     *     does not exist, and deleted when the allocator is closed.
+     * @param chunkSize the capacity of the chunks that are shared by many allocations.
+     */
+    public MmapSpaceAllocator(File directory, int chunkSize) throws IOException {
+        Preconditions.checkArgument(
+                chunkSize >= BUCKET_SIZE,
+                "The chunk size must not be smaller than " + BUCKET_SIZE + " bytes.");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory + " for chunks.");
+        }
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+        this.chunks = new MmapChunk[0];
+        this.totalSize = 0;
+        this.closed = false;
+    }
+
+    @Override
+    public synchronized long allocate(int size) throws Exception {
+        Preconditions.checkState(!closed, "The allocator has been closed.");
+
+        MmapChunk chunk;
+        if (MmapChunk.getBlockSize(size) > BUCKET_SIZE) {
+            chunk = addChunk(true, size);
+        } else {
+            chunk = findChunk(size);
+            if (chunk == null) {
+                chunk = addChunk(false, size);
+            }
+            currentChunk = chunk;
+        }
+
+        int offset = chunk.allocate(size);
+        Preconditions.checkState(offset != NO_SPACE, "Chunk has no space for the allocation.");
+        return (((long) chunk.getChunkId() & FOUR_BYTES_MARK) << FOUR_BYTES_BITS)
+                | (offset & FOUR_BYTES_MARK);
+    }
+
+    private MmapChunk findChunk(int size) {
+        if (currentChunk != null && currentChunk.canAllocate(size)) {
+            return currentChunk;
+        }
+        for (MmapChunk chunk : chunks) {
+            if (chunk != null && !chunk.isDedicated() && chunk.canAllocate(size)) {
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    private MmapChunk addChunk(boolean dedicated, int size) throws IOException {
+        MmapChunk[] currentChunks = chunks;
+        int chunkId = 0;
+        while (chunkId < currentChunks.length && currentChunks[chunkId] != null) {
+            chunkId++;
+        }
+
+        File file = new File(directory, "chunk-" + chunkId);
+        MmapChunk chunk =
+                dedicated
+                        ? MmapChunk.createDedicatedChunk(chunkId, size, file)
+                        : MmapChunk.createChunk(chunkId, chunkSize, file);
+
+        MmapChunk[] newChunks =
+                chunkId < currentChunks.length
+                        ? currentChunks.clone()
+                        : Arrays.copyOf(currentChunks, chunkId + 1);
+        newChunks[chunkId] = chunk;
+        chunks = newChunks;
+        totalSize += chunk.getChunkCapacity();
+        return chunk;
+    }
+
+    @Override
+    public synchronized void free(long address) {
+        if (closed) {
+            return;
+        }
+
+        MmapChunk chunk = chunks[SpaceUtils.getChunkIdByAddress(address)];
+        chunk.free(SpaceUtils.getChunkOffsetByAddress(address));
+        if (chunk.isDedicated()) {
+            MmapChunk[] newChunks = chunks.clone();
+            newChunks[chunk.getChunkId()] = null;
+            chunks = newChunks;
+            totalSize -= chunk.getChunkCapacity();
+            closeChunk(chunk);
+        }
+    }
+
+    @Override
+    public Chunk getChunkById(int chunkId) {
+        MmapChunk chunk = chunks[chunkId];
+        Preconditions.checkNotNull(chunk, "chunk " + chunkId + " does not exist.");
+        return chunk;
+    }
+
+    /** Returns the number of bytes in all chunk files. */
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /** Returns the number of bytes that are currently allocated. */
+    public synchronized long getUsedSize() {
+        long usedSize = 0;
+        for (MmapChunk chunk : chunks) {
+            if (chunk != null) {
+                usedSize += chunk.getUsedSize();
+            }
+        }
+        return usedSize;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (MmapChunk chunk : chunks) {
+            if (chunk != null) {
+                closeChunk(chunk);
+            }
+        }
+        chunks = new MmapChunk[0];
+        currentChunk = null;
+        totalSize = 0;
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private static void closeChunk(MmapChunk chunk) {
+        try {
+            chunk.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to delete the file of chunk {}.", chunk.getChunkId(), e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.heap.HeapStatusMonitor.MonitorResult;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link SpillAndLoadManager}. */
+public class SpillAndLoadManagerTest extends TestLogger {
+
+    private static final int NUMBER_OF_KEY_GROUPS = 10;
+
+    private static final long MAX_MEMORY = 1000L;
+
+    private static final int NAMESPACE = 1;
+
+    private TestAllocator allocator;
+
+    private MockInternalKeyContext<Integer> keyContext;
+
+    private SpillableStateTable<Integer, Integer, String> stateTable;
+
+    private MonitorResult monitorResult;
+
+    private SpillAndLoadManager manager;
+
+    @Before
+    public void setUp() {
+        allocator = new TestAllocator(256);
+        keyContext =
+                new MockInternalKeyContext<>(0, NUMBER_OF_KEY_GROUPS - 1, NUMBER_OF_KEY_GROUPS);
+        stateTable =
+                new SpillableStateTable<>(
+                        keyContext,
+                        new RegisteredKeyValueStateBackendMetaInfo<>(
+                                StateDescriptor.Type.VALUE,
+                                "test",
+                                IntSerializer.INSTANCE,
+                                StringSerializer.INSTANCE),
+                        IntSerializer.INSTANCE,
+                        allocator);
+        for (int key = 0; key < 1000; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            stateTable.put(NAMESPACE, String.valueOf(key));
+        }
+        // forget the requests of filling the table
+        for (int i = 0; i < 32; i++) {
+            stateTable.decayRequestCounts();
+        }
+
+        monitorResult = new MonitorResult(0L, 0L, MAX_MEMORY, 0L);
+        manager =
+                new SpillAndLoadManager(
+                        Collections.singletonList(stateTable),
+                        keyContext.getKeyGroupRange(),
+                        () -> monitorResult,
+                        0.7f,
+                        0.5f,
+                        0.2f,
+                        0.5f,
+                        new UnregisteredMetricsGroup(),
+                        () -> 0L);
+    }
+
+    @After
+    public void tearDown() {
+        stateTable.dispose();
+        IOUtils.closeQuietly(allocator);
+    }
+
+    @Test
+    public void testNoActionBetweenThresholds() {
+        updateHeapStatus(600L, 1L);
+        manager.checkResource();
+        assertEquals(0, manager.getNumSpilledKeyGroups());
+    }
+
+    @Test
+    public void testSpillColdKeyGroupsFirst() {
+        // key group 0 is hot
+        int hotKeyGroup = 0;
+        for (int key = 0; key < 1000; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            if (keyContext.getCurrentKeyGroupIndex() == hotKeyGroup) {
+                for (int i = 0; i < 10; i++) {
+                    stateTable.get(NAMESPACE);
+                }
+            }
+        }
+
+        updateHeapStatus(800L, 1L);
+        manager.checkResource();
+
+        int spilledKeyGroups = manager.getNumSpilledKeyGroups();
+        assertTrue(spilledKeyGroups > 0 && spilledKeyGroups < NUMBER_OF_KEY_GROUPS);
+        assertFalse(stateTable.isSpilled(hotKeyGroup));
+        int spilledEntries = 0;
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            if (stateTable.isSpilled(keyGroup)) {
+                spilledEntries += stateTable.sizeOfKeyGroup(keyGroup);
+            }
+        }
+        // at least the spill size ratio is spilled, but not more than necessary
+        assertTrue(spilledEntries >= 200);
+        assertTrue(spilledEntries < 200 + maxKeyGroupSize());
+    }
+
+    @Test
+    public void testWaitForGarbageCollectionAfterAction() {
+        updateHeapStatus(800L, 1L);
+        manager.checkResource();
+        int spilledKeyGroups = manager.getNumSpilledKeyGroups();
+        assertTrue(spilledKeyGroups > 0);
+
+        // no garbage collection since the last spill, so the heap usage is not yet reliable
+        updateHeapStatus(800L, 1L);
+        manager.checkResource();
+        assertEquals(spilledKeyGroups, manager.getNumSpilledKeyGroups());
+
+        updateHeapStatus(800L, 2L);
+        manager.checkResource();
+        assertTrue(manager.getNumSpilledKeyGroups() > spilledKeyGroups);
+    }
+
+    @Test
+    public void testLoadHotKeyGroups() {
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            stateTable.spillState(keyGroup);
+        }
+        int hotKey = 42;
+        keyContext.setCurrentKeyAndKeyGroup(hotKey);
+        int hotKeyGroup = keyContext.getCurrentKeyGroupIndex();
+        for (int i = 0; i < 10; i++) {
+            stateTable.get(NAMESPACE);
+        }
+
+        updateHeapStatus(100L, 1L);
+        manager.checkResource();
+
+        assertFalse(stateTable.isSpilled(hotKeyGroup));
+        int spilledKeyGroups = manager.getNumSpilledKeyGroups();
+        assertTrue(spilledKeyGroups > 0 && spilledKeyGroups < NUMBER_OF_KEY_GROUPS);
+
+        // all key groups are loaded eventually
+        for (long gcCount = 2L; manager.getNumSpilledKeyGroups() > 0; gcCount++) {
+            updateHeapStatus(100L, gcCount);
+            manager.checkResource();
+        }
+        assertEquals(1000, stateTable.size());
+    }
+
+    private void updateHeapStatus(long usedMemory, long garbageCollectionCount) {
+        monitorResult =
+                new MonitorResult(
+                        System.currentTimeMillis(), usedMemory, MAX_MEMORY, garbageCollectionCount);
+    }
+
+    private int maxKeyGroupSize() {
+        int maxSize = 0;
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            maxSize = Math.max(maxSize, stateTable.sizeOfKeyGroup(keyGroup));
+        }
+        return maxSize;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.core.memory.ByteArrayInputStreamWithPos;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link SpillableStateTable}. */
+public class SpillableStateTableTest extends TestLogger {
+
+    private static final int NUMBER_OF_KEY_GROUPS = 4;
+
+    private static final int NUMBER_OF_KEYS = 1000;
+
+    private static final int NAMESPACE = 1;
+
+    private TestAllocator allocator;
+
+    private MockInternalKeyContext<Integer> keyContext;
+
+    private SpillableStateTable<Integer, Integer, String> stateTable;
+
+    @Before
+    public void setUp() {
+        allocator = new TestAllocator(256);
+        keyContext =
+                new MockInternalKeyContext<>(0, NUMBER_OF_KEY_GROUPS - 1, NUMBER_OF_KEY_GROUPS);
+        stateTable =
+                new SpillableStateTable<>(
+                        keyContext, createMetaInfo(), IntSerializer.INSTANCE, allocator);
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            stateTable.put(NAMESPACE, String.valueOf(key));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        stateTable.dispose();
+        IOUtils.closeQuietly(allocator);
+    }
+
+    @Test
+    public void testAccessSpilledState() {
+        int spilledEntries = 0;
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            int size = stateTable.sizeOfKeyGroup(keyGroup);
+            assertEquals(size, stateTable.spillState(keyGroup));
+            assertTrue(stateTable.isSpilled(keyGroup));
+            assertEquals(size, stateTable.sizeOfKeyGroup(keyGroup));
+            spilledEntries += size;
+        }
+        assertEquals(NUMBER_OF_KEYS, spilledEntries);
+        assertEquals(NUMBER_OF_KEYS, stateTable.size());
+
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            assertEquals(String.valueOf(key), stateTable.get(NAMESPACE));
+            if (key % 2 == 0) {
+                stateTable.remove(NAMESPACE);
+            } else {
+                stateTable.put(NAMESPACE, "updated-" + key);
+            }
+        }
+
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            stateTable.loadState(keyGroup);
+            assertFalse(stateTable.isSpilled(keyGroup));
+        }
+        assertEquals(0, stateTable.getNumberOfRetiredStateMaps());
+
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            if (key % 2 == 0) {
+                assertNull(stateTable.get(NAMESPACE));
+            } else {
+                assertEquals("updated-" + key, stateTable.get(NAMESPACE));
+            }
+        }
+    }
+
+    @Test
+    public void testRequestCounts() {
+        keyContext.setCurrentKeyAndKeyGroup(0);
+        int keyGroup = keyContext.getCurrentKeyGroupIndex();
+        int requestCount = stateTable.getRequestCount(keyGroup);
+        for (int i = 0; i < 10; i++) {
+            stateTable.get(NAMESPACE);
+        }
+        assertEquals(requestCount + 10, stateTable.getRequestCount(keyGroup));
+
+        stateTable.decayRequestCounts();
+        assertEquals((requestCount + 10) / 2, stateTable.getRequestCount(keyGroup));
+    }
+
+    @Test
+    public void testSnapshotOfSpilledKeyGroups() throws IOException {
+        stateTable.spillState(0);
+        stateTable.spillState(1);
+        StateSnapshot snapshot = stateTable.stateSnapshot();
+
+        // changes after the snapshot, including moving key groups, are not visible in the snapshot
+        stateTable.loadState(0);
+        stateTable.spillState(2);
+        assertEquals(1, stateTable.getNumberOfRetiredStateMaps());
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            stateTable.put(NAMESPACE, "updated-" + key);
+        }
+
+        CopyOnWriteStateTable<Integer, Integer, String> restoredTable =
+                new CopyOnWriteStateTable<>(keyContext, createMetaInfo(), IntSerializer.INSTANCE);
+        restoreStateTableFromSnapshot(restoredTable, snapshot, keyContext.getKeyGroupRange());
+        // writing a key group releases its snapshot, which closes the replaced spilled map
+        assertEquals(0, stateTable.getNumberOfRetiredStateMaps());
+        snapshot.release();
+
+        assertEquals(NUMBER_OF_KEYS, restoredTable.size());
+        for (int key = 0; key < NUMBER_OF_KEYS; key++) {
+            keyContext.setCurrentKeyAndKeyGroup(key);
+            assertEquals(String.valueOf(key), restoredTable.get(NAMESPACE));
+        }
+    }
+
+    @Test
+    public void testReleaseSnapshotClosesReplacedSpilledMaps() {
+        stateTable.spillState(0);
+        StateSnapshot snapshot = stateTable.stateSnapshot();
+
+        // the replaced spilled map can only be closed after the snapshot was released
+        stateTable.loadState(0);
+        stateTable.closeRetiredStateMaps();
+        assertEquals(1, stateTable.getNumberOfRetiredStateMaps());
+
+        // no later load is needed to close it
+        snapshot.release();
+        assertEquals(0, stateTable.getNumberOfRetiredStateMaps());
+    }
+
+    @Test
+    public void testIncrementalVisitorWhileSpilling() {
+        StateIncrementalVisitor<Integer, Integer, String> visitor =
+                stateTable.getStateIncrementalVisitor(10);
+        Set<Integer> visitedKeys = new HashSet<>();
+        int round = 0;
+        while (visitor.hasNext()) {
+            for (StateEntry<Integer, Integer, String> entry : visitor.nextEntries()) {
+                visitedKeys.add(entry.getKey());
+            }
+            // move all key groups, including the visited one, a few times during the visit
+            if (++round % 40 == 0) {
+                for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+                    if (stateTable.isSpilled(keyGroup)) {
+                        stateTable.loadState(keyGroup);
+                    } else {
+                        stateTable.spillState(keyGroup);
+                    }
+                }
+            }
+        }
+        assertEquals(NUMBER_OF_KEYS, visitedKeys.size());
+    }
+
+    @Test
+    public void testSerializerUpgradeLoadsSpilledKeyGroups() {
+        stateTable.spillState(0);
+        stateTable.spillState(3);
+
+        stateTable.setMetaInfo(
+                new RegisteredKeyValueStateBackendMetaInfo<>(
+                        StateDescriptor.Type.VALUE,
+                        "test",
+                        IntSerializer.INSTANCE,
+                        new KryoSerializer<>(String.class, new ExecutionConfig())));
+
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            assertFalse(stateTable.isSpilled(keyGroup));
+        }
+        assertEquals(NUMBER_OF_KEYS, stateTable.size());
+    }
+
+    private static RegisteredKeyValueStateBackendMetaInfo<Integer, String> createMetaInfo() {
+        return new RegisteredKeyValueStateBackendMetaInfo<>(
+                StateDescriptor.Type.VALUE,
+                "test",
+                IntSerializer.INSTANCE,
+                StringSerializer.INSTANCE);
+    }
+
+    private static void restoreStateTableFromSnapshot(
+            StateTable<Integer, Integer, String> stateTable,
+            StateSnapshot snapshot,
+            KeyGroupRange keyGroupRange)
+            throws IOException {
+
+        final ByteArrayOutputStreamWithPos out = new ByteArrayOutputStreamWithPos(1024 * 1024);
+        final DataOutputViewStreamWrapper dov = new DataOutputViewStreamWrapper(out);
+        final StateSnapshot.StateKeyGroupWriter keyGroupPartitionedSnapshot =
+                snapshot.getKeyGroupWriter();
+        for (Integer keyGroup : keyGroupRange) {
+            keyGroupPartitionedSnapshot.writeStateInKeyGroup(dov, keyGroup);
+        }
+
+        final ByteArrayInputStreamWithPos in = new ByteArrayInputStreamWithPos(out.getBuf());
+        final DataInputViewStreamWrapper div = new DataInputViewStreamWrapper(in);
+
+        final StateSnapshotKeyGroupReader keyGroupReader =
+                StateTableByKeyGroupReaders.readerForVersion(
+                        stateTable, KeyedBackendSerializationProxy.VERSION);
+
+        for (Integer keyGroup : keyGroupRange) {
+            keyGroupReader.readMappingsInKeyGroup(div, keyGroup);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.BUCKET_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link MmapSpaceAllocator}. */
+public class MmapSpaceAllocatorTest extends TestLogger {
+
+    @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File directory;
+
+    private MmapSpaceAllocator allocator;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = new File(tempFolder.getRoot(), "chunks");
+        allocator = new MmapSpaceAllocator(directory, 2 * BUCKET_SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        allocator.close();
+    }
+
+    @Test
+    public void testAllocatedSpaceIsWritable() throws Exception {
+        Set<Long> addresses = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            long address = allocator.allocate(100);
+            assertTrue("Address allocated twice.", addresses.add(address));
+            write(address, i);
+        }
+        for (long address : addresses) {
+            Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+            int offset = SpaceUtils.getChunkOffsetByAddress(address);
+            MemorySegment segment = chunk.getMemorySegment(offset);
+            int value = segment.getInt(chunk.getOffsetInSegment(offset));
+            assertTrue(value >= 0 && value < 100);
+        }
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    public void testFreedSpaceIsReused() throws Exception {
+        long address = allocator.allocate(1000);
+        long usedSize = allocator.getUsedSize();
+        assertTrue(usedSize >= 1000);
+
+        allocator.free(address);
+        assertEquals(0, allocator.getUsedSize());
+
+        assertEquals(address, allocator.allocate(1000));
+        assertEquals(usedSize, allocator.getUsedSize());
+    }
+
+    @Test
+    public void testNewChunkIsAddedWhenFull() throws Exception {
+        int numAllocations = 2 * BUCKET_SIZE / 4096 + 1;
+        for (int i = 0; i < numAllocations; i++) {
+            allocator.allocate(4000);
+        }
+        assertEquals(2, directory.listFiles().length);
+        assertEquals(4L * BUCKET_SIZE, allocator.getTotalSize());
+    }
+
+    @Test
+    public void testLargeAllocationGetsDedicatedChunk() throws Exception {
+        allocator.allocate(100);
+        long address = allocator.allocate(BUCKET_SIZE + 1);
+        write(address, 42);
+        assertEquals(2, directory.listFiles().length);
+
+        allocator.free(address);
+        assertEquals(1, directory.listFiles().length);
+        assertEquals(2L * BUCKET_SIZE, allocator.getTotalSize());
+    }
+
+    @Test
+    public void testCloseDeletesDirectory() throws Exception {
+        allocator.allocate(100);
+        assertTrue(directory.exists());
+
+        allocator.close();
+        assertFalse(directory.exists());
+        assertEquals(0, allocator.getTotalSize());
+    }
+
+    private void write(long address, int value) {
+        Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+        int offset = SpaceUtils.getChunkOffsetByAddress(address);
+        chunk.getMemorySegment(offset).putInt(chunk.getOffsetInSegment(offset), value);
+    }
+}
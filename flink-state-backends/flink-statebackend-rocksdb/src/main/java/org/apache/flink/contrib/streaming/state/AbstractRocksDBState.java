@@ -73,6 +73,12 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 
     private final SerializedCompositeKeyBuilder<K> sharedKeyNamespaceSerializer;
 
+    /**
+     * Builder for the composite keys of keys other than the current key, created lazily because it
+     * is only used to access the state of multiple keys at once.
+     */
+    private SerializedCompositeKeyBuilder<K> keyNamespaceSerializer;
+
     /**
      * Creates a new RocksDB backed state.
      *
@@ -153,6 +159,18 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
                 currentNamespace, namespaceSerializer, userKey, userKeySerializer);
     }
 
+    byte[] serializeKeyWithGroupAndNamespace(K key) {
+        if (keyNamespaceSerializer == null) {
+            keyNamespaceSerializer =
+                    new SerializedCompositeKeyBuilder<>(
+                            backend.getKeySerializer(), backend.getKeyGroupPrefixBytes(), 32);
+        }
+        keyNamespaceSerializer.setKeyAndKeyGroup(
+                key, KeyGroupRangeAssignment.assignToKeyGroup(key, backend.getNumberOfKeyGroups()));
+        return keyNamespaceSerializer.buildCompositeKeyNamespace(
+                currentNamespace, namespaceSerializer);
+    }
+
     private <T> byte[] serializeValueInternal(T value, TypeSerializer<T> serializer)
             throws IOException {
         serializer.serialize(value, dataOutputView);
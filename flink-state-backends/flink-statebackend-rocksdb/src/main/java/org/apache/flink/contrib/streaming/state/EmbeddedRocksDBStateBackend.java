@@ -71,8 +71,11 @@ import java.util.Random;
 import java.util.UUID;
 
 import static org.apache.flink.contrib.streaming.state.RocksDBConfigurableOptions.WRITE_BATCH_SIZE;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.ASYNC_READ_THREAD_NUM;
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.CHECKPOINT_TRANSFER_THREAD_NUM;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.RESCALING_USE_SST_INGESTION;
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.TIMER_SERVICE_FACTORY;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.TIMER_SERVICE_TIERED_MEMORY_SIZE;
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -94,7 +97,12 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
     /** The options to chose for the type of priority queue state. */
     public enum PriorityQueueStateType {
         HEAP,
-        ROCKSDB
+        ROCKSDB,
+        /**
+         * Timers are stored in serialized form in off-heap memory and spilled to local disk when
+         * the memory is exhausted.
+         */
+        TIERED
     }
 
     private static final long serialVersionUID = 1L;
@@ -109,8 +117,12 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
 
     private static final int UNDEFINED_NUMBER_OF_TRANSFER_THREADS = -1;
 
+    private static final int UNDEFINED_NUMBER_OF_ASYNC_READ_THREADS = -1;
+
     private static final long UNDEFINED_WRITE_BATCH_SIZE = -1;
 
+    private static final long UNDEFINED_TIERED_TIMER_SERVICE_MEMORY_SIZE = -1;
+
     private Logger logger = LOG;
 
     // ------------------------------------------------------------------------
@@ -136,6 +148,12 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
     /** Thread number used to transfer (download and upload) state, default value: 1. */
     private int numberOfTransferThreads;
 
+    /** Thread number used to serve asynchronous state reads, default value: 4. */
+    private int numberOfAsyncReadThreads;
+
+    /** This determines if rescaled incremental checkpoints are restored by SST file ingestion. */
+    private TernaryBoolean useSstIngestionForRescaling;
+
     /** The configuration for memory settings (pool sizes, etc.). */
     private final RocksDBMemoryConfiguration memoryConfiguration;
 
@@ -165,6 +183,9 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
      */
     private long writeBatchSize;
 
+    /** The off-heap memory of the timers of a tiered timer service, per stateful operator. */
+    private long tieredTimerServiceMemorySize;
+
     // ------------------------------------------------------------------------
 
     /** Creates a new {@code EmbeddedRocksDBStateBackend} for storing local state. */
@@ -189,9 +210,12 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
     public EmbeddedRocksDBStateBackend(TernaryBoolean enableIncrementalCheckpointing) {
         this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
         this.numberOfTransferThreads = UNDEFINED_NUMBER_OF_TRANSFER_THREADS;
+        this.numberOfAsyncReadThreads = UNDEFINED_NUMBER_OF_ASYNC_READ_THREADS;
+        this.useSstIngestionForRescaling = TernaryBoolean.UNDEFINED;
         this.defaultMetricOptions = new RocksDBNativeMetricOptions();
         this.memoryConfiguration = new RocksDBMemoryConfiguration();
         this.writeBatchSize = UNDEFINED_WRITE_BATCH_SIZE;
+        this.tieredTimerServiceMemorySize = UNDEFINED_TIERED_TIMER_SERVICE_MEMORY_SIZE;
     }
 
     /**
@@ -214,12 +238,29 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
             this.numberOfTransferThreads = original.numberOfTransferThreads;
         }
 
+        if (original.numberOfAsyncReadThreads == UNDEFINED_NUMBER_OF_ASYNC_READ_THREADS) {
+            this.numberOfAsyncReadThreads = config.get(ASYNC_READ_THREAD_NUM);
+        } else {
+            this.numberOfAsyncReadThreads = original.numberOfAsyncReadThreads;
+        }
+
+        this.useSstIngestionForRescaling =
+                original.useSstIngestionForRescaling.resolveUndefined(
+                        config.get(RESCALING_USE_SST_INGESTION));
+
         if (original.writeBatchSize == UNDEFINED_WRITE_BATCH_SIZE) {
             this.writeBatchSize = config.get(WRITE_BATCH_SIZE).getBytes();
         } else {
             this.writeBatchSize = original.writeBatchSize;
         }
 
+        if (original.tieredTimerServiceMemorySize == UNDEFINED_TIERED_TIMER_SERVICE_MEMORY_SIZE) {
+            this.tieredTimerServiceMemorySize =
+                    config.get(TIMER_SERVICE_TIERED_MEMORY_SIZE).getBytes();
+        } else {
+            this.tieredTimerServiceMemorySize = original.tieredTimerServiceMemorySize;
+        }
+
         this.memoryConfiguration =
                 RocksDBMemoryConfiguration.fromOtherAndConfiguration(
                         original.memoryConfiguration, config);
@@ -465,9 +506,16 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
                                 cancelStreamRegistry)
                         .setEnableIncrementalCheckpointing(isIncrementalCheckpointsEnabled())
                         .setNumberOfTransferingThreads(getNumberOfTransferThreads())
+                        .setSstFileCache(
+                                RocksDBSstFileCache.getOrCreate(
+                                        env.getTaskManagerInfo().getConfiguration(),
+                                        env.getTaskManagerInfo().getTmpDirectories()))
+                        .setNumberOfAsyncReadThreads(getNumberOfAsyncReadThreads())
+                        .setUseSstIngestionForRescaling(isSstIngestionForRescalingEnabled())
                         .setNativeMetricOptions(
                                 resourceContainer.getMemoryWatcherOptions(defaultMetricOptions))
-                        .setWriteBatchSize(getWriteBatchSize());
+                        .setWriteBatchSize(getWriteBatchSize())
+                        .setTieredTimerServiceMemorySize(getTieredTimerServiceMemorySize());
         return builder.build();
     }
 
@@ -770,6 +818,44 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
         this.numberOfTransferThreads = numberOfTransferThreads;
     }
 
+    /** Gets the number of threads used to serve asynchronous state reads. */
+    public int getNumberOfAsyncReadThreads() {
+        return numberOfAsyncReadThreads == UNDEFINED_NUMBER_OF_ASYNC_READ_THREADS
+                ? ASYNC_READ_THREAD_NUM.defaultValue()
+                : numberOfAsyncReadThreads;
+    }
+
+    /**
+     * Sets the number of threads used to serve asynchronous state reads.
+     *
+     * @param numberOfAsyncReadThreads The number of threads used to serve asynchronous state reads.
+     */
+    public void setNumberOfAsyncReadThreads(int numberOfAsyncReadThreads) {
+        Preconditions.checkArgument(
+                numberOfAsyncReadThreads > 0,
+                "The number of threads used to serve asynchronous reads in EmbeddedRocksDBStateBackend should be greater than zero.");
+        this.numberOfAsyncReadThreads = numberOfAsyncReadThreads;
+    }
+
+    /**
+     * Gets whether rescaled incremental checkpoints are restored by writing the key groups of each
+     * state handle into SST files and ingesting them into the target instance.
+     */
+    public boolean isSstIngestionForRescalingEnabled() {
+        return useSstIngestionForRescaling.getOrDefault(RESCALING_USE_SST_INGESTION.defaultValue());
+    }
+
+    /**
+     * Sets whether rescaled incremental checkpoints are restored by writing the key groups of each
+     * state handle into SST files in parallel and ingesting them into the target instance, instead
+     * of copying them through write batches.
+     *
+     * @param useSstIngestionForRescaling True to restore rescaled checkpoints by SST ingestion.
+     */
+    public void setUseSstIngestionForRescaling(boolean useSstIngestionForRescaling) {
+        this.useSstIngestionForRescaling = TernaryBoolean.fromBoolean(useSstIngestionForRescaling);
+    }
+
     /** Gets the max batch size will be used in {@link RocksDBWriteBatchWrapper}. */
     public long getWriteBatchSize() {
         return writeBatchSize == UNDEFINED_WRITE_BATCH_SIZE
@@ -788,6 +874,30 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
         this.writeBatchSize = writeBatchSize;
     }
 
+    /**
+     * Gets the size of the off-heap memory for the timers of each stateful operator, if the
+     * priority queue state type is {@link PriorityQueueStateType#TIERED}.
+     */
+    public long getTieredTimerServiceMemorySize() {
+        return tieredTimerServiceMemorySize == UNDEFINED_TIERED_TIMER_SERVICE_MEMORY_SIZE
+                ? TIMER_SERVICE_TIERED_MEMORY_SIZE.defaultValue().getBytes()
+                : tieredTimerServiceMemorySize;
+    }
+
+    /**
+     * Sets the size of the off-heap memory for the timers of each stateful operator, if the
+     * priority queue state type is {@link PriorityQueueStateType#TIERED}. Timers that do not fit
+     * into the memory are spilled to local disk.
+     *
+     * @param tieredTimerServiceMemorySize The memory size in bytes.
+     */
+    public void setTieredTimerServiceMemorySize(long tieredTimerServiceMemorySize) {
+        checkArgument(
+                tieredTimerServiceMemorySize >= 0,
+                "The memory size of the timer service must not be negative.");
+        this.tieredTimerServiceMemorySize = tieredTimerServiceMemorySize;
+    }
+
     // ------------------------------------------------------------------------
     //  utilities
     // ------------------------------------------------------------------------
@@ -816,8 +926,14 @@ public class EmbeddedRocksDBStateBackend extends AbstractManagedMemoryStateBacke
                 + enableIncrementalCheckpointing
                 + ", numberOfTransferThreads="
                 + numberOfTransferThreads
+                + ", numberOfAsyncReadThreads="
+                + numberOfAsyncReadThreads
+                + ", useSstIngestionForRescaling="
+                + useSstIngestionForRescaling
                 + ", writeBatchSize="
                 + writeBatchSize
+                + ", tieredTimerServiceMemorySize="
+                + tieredTimerServiceMemorySize
                 + '}';
     }
 
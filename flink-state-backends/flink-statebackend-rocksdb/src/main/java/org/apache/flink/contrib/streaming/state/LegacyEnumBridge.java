@@ -31,6 +31,8 @@ class LegacyEnumBridge {
                 return RocksDBStateBackend.PriorityQueueStateType.HEAP;
             case ROCKSDB:
                 return RocksDBStateBackend.PriorityQueueStateType.ROCKSDB;
+            case TIERED:
+                return RocksDBStateBackend.PriorityQueueStateType.TIERED;
             default:
                 throw new IllegalStateException("Unknown enum type " + t);
         }
@@ -43,6 +45,8 @@ class LegacyEnumBridge {
                 return EmbeddedRocksDBStateBackend.PriorityQueueStateType.HEAP;
             case ROCKSDB:
                 return EmbeddedRocksDBStateBackend.PriorityQueueStateType.ROCKSDB;
+            case TIERED:
+                return EmbeddedRocksDBStateBackend.PriorityQueueStateType.TIERED;
             default:
                 throw new IllegalStateException("Unknown enum type " + t);
         }
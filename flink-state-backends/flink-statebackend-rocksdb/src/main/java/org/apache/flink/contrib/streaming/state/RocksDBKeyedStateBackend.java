@@ -65,6 +65,7 @@ import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSnapshotRestoreWrapper;
 import org.apache.flink.runtime.state.heap.InternalKeyContext;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.IOUtils;
@@ -85,6 +86,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -94,6 +96,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RunnableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -180,6 +185,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
     /** The max memory size for one batch in {@link RocksDBWriteBatchWrapper}. */
     private final long writeBatchSize;
 
+    /** The threads serving asynchronous state reads, started on demand. */
+    private final ExecutorService asyncReadExecutor;
+
     /**
      * Information about the k/v states, maintained in the order as we create them. This is used to
      * retrieve the column family that is used for a state and also for sanity checks when
@@ -257,7 +265,8 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
             PriorityQueueSetFactory priorityQueueFactory,
             RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
             InternalKeyContext<K> keyContext,
-            @Nonnegative long writeBatchSize) {
+            @Nonnegative long writeBatchSize,
+            int numberOfAsyncReadThreads) {
 
         super(
                 kvStateRegistry,
@@ -284,6 +293,10 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         this.writeOptions = optionsContainer.getWriteOptions();
         this.readOptions = optionsContainer.getReadOptions();
         this.writeBatchSize = writeBatchSize;
+        this.asyncReadExecutor =
+                Executors.newFixedThreadPool(
+                        numberOfAsyncReadThreads,
+                        new ExecutorThreadFactory("Flink-RocksDB-AsyncRead"));
         this.db = db;
         this.rocksDBResourceGuard = rocksDBResourceGuard;
         this.checkpointSnapshotStrategy = checkpointSnapshotStrategy;
@@ -410,6 +423,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         }
         super.dispose();
 
+        // pending asynchronous reads are dropped, running ones hold a lease on the resource guard
+        asyncReadExecutor.shutdownNow();
+
         // This call will block until all clients that still acquire access to the RocksDB instance
         // have released it,
         // so that we cannot release the native resources while clients are still working with it in
@@ -455,6 +471,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
             columnFamilyOptions.forEach(IOUtils::closeQuietly);
 
             IOUtils.closeQuietly(optionsContainer);
+            if (priorityQueueFactory instanceof Closeable) {
+                IOUtils.closeQuietly((Closeable) priorityQueueFactory);
+            }
 
             ttlCompactFiltersManager.disposeAndClearRegisteredCompactionFactories();
 
@@ -906,4 +925,21 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
     long getWriteBatchSize() {
         return writeBatchSize;
     }
+
+    /**
+     * Reads the value of the given serialized key from the given column family in one of the
+     * asynchronous read threads.
+     */
+    CompletableFuture<byte[]> asyncGet(ColumnFamilyHandle columnFamily, byte[] key) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    try (ResourceGuard.Lease ignored = rocksDBResourceGuard.acquireResource()) {
+                        return db.get(columnFamily, key);
+                    } catch (IOException | RocksDBException e) {
+                        throw new FlinkRuntimeException(
+                                "Error while retrieving data from RocksDB.", e);
+                    }
+                },
+                asyncReadExecutor);
+    }
 }
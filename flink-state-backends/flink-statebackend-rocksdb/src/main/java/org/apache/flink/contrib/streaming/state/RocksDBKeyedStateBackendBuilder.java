@@ -49,6 +49,7 @@ import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSnapshotRestoreWrapper;
 import org.apache.flink.runtime.state.heap.InternalKeyContext;
 import org.apache.flink.runtime.state.heap.InternalKeyContextImpl;
+import org.apache.flink.runtime.state.heap.TieredPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.IOUtils;
@@ -61,7 +62,9 @@ import org.rocksdb.DBOptions;
 import org.rocksdb.RocksDB;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -114,8 +117,18 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
 
     private RocksDBNativeMetricOptions nativeMetricOptions;
     private int numberOfTransferingThreads;
+    @Nullable private RocksDBSstFileCache sstFileCache;
+    private boolean useSstIngestionForRescaling;
+    private int numberOfAsyncReadThreads;
     private long writeBatchSize =
             RocksDBConfigurableOptions.WRITE_BATCH_SIZE.defaultValue().getBytes();
+    private long tieredTimerServiceMemorySize =
+            RocksDBOptions.TIMER_SERVICE_TIERED_MEMORY_SIZE.defaultValue().getBytes();
+    /**
+     * The factory for heap-based timers, shared by the restore and the backend, so that restored
+     * timers and new timers are managed by the same factory.
+     */
+    @Nullable private HeapPriorityQueueSetFactory heapQueueFactory;
 
     private RocksDB injectedTestDB; // for testing
     private ColumnFamilyHandle injectedDefaultColumnFamilyHandle; // for testing
@@ -164,6 +177,7 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
         this.nativeMetricOptions = new RocksDBNativeMetricOptions();
         this.numberOfTransferingThreads =
                 RocksDBOptions.CHECKPOINT_TRANSFER_THREAD_NUM.defaultValue();
+        this.numberOfAsyncReadThreads = RocksDBOptions.ASYNC_READ_THREAD_NUM.defaultValue();
     }
 
     @VisibleForTesting
@@ -227,12 +241,40 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
         return this;
     }
 
+    RocksDBKeyedStateBackendBuilder<K> setSstFileCache(@Nullable RocksDBSstFileCache sstFileCache) {
+        this.sstFileCache = sstFileCache;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setUseSstIngestionForRescaling(
+            boolean useSstIngestionForRescaling) {
+        this.useSstIngestionForRescaling = useSstIngestionForRescaling;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setNumberOfAsyncReadThreads(int numberOfAsyncReadThreads) {
+        checkArgument(
+                numberOfAsyncReadThreads > 0,
+                "The number of asynchronous read threads should be positive.");
+        this.numberOfAsyncReadThreads = numberOfAsyncReadThreads;
+        return this;
+    }
+
     RocksDBKeyedStateBackendBuilder<K> setWriteBatchSize(long writeBatchSize) {
         checkArgument(writeBatchSize >= 0, "Write batch size should be non negative.");
         this.writeBatchSize = writeBatchSize;
         return this;
     }
 
+    RocksDBKeyedStateBackendBuilder<K> setTieredTimerServiceMemorySize(
+            long tieredTimerServiceMemorySize) {
+        checkArgument(
+                tieredTimerServiceMemorySize >= 0,
+                "The memory size of the timer service should be non negative.");
+        this.tieredTimerServiceMemorySize = tieredTimerServiceMemorySize;
+        return this;
+    }
+
     private static void checkAndCreateDirectory(File directory) throws IOException {
         if (directory.exists()) {
             if (!directory.isDirectory()) {
@@ -356,6 +398,9 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
             IOUtils.closeQuietly(restoreOperation);
             IOUtils.closeAllQuietly(columnFamilyOptions);
             IOUtils.closeQuietly(optionsContainer);
+            if (heapQueueFactory instanceof Closeable) {
+                IOUtils.closeQuietly((Closeable) heapQueueFactory);
+            }
             ttlCompactFiltersManager.disposeAndClearRegisteredCompactionFactories();
             kvStateInformation.clear();
             try {
@@ -399,7 +444,8 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                 priorityQueueFactory,
                 ttlCompactFiltersManager,
                 keyContext,
-                writeBatchSize);
+                writeBatchSize,
+                numberOfAsyncReadThreads);
     }
 
     private RocksDBRestoreOperation getRocksDBRestoreOperation(
@@ -427,6 +473,7 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                     keyGroupRange,
                     keyGroupPrefixBytes,
                     numberOfTransferingThreads,
+                    sstFileCache,
                     cancelStreamRegistry,
                     userCodeClassLoader,
                     kvStateInformation,
@@ -440,9 +487,11 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                     restoreStateHandles,
                     ttlCompactFiltersManager,
                     writeBatchSize,
-                    optionsContainer.getWriteBufferManagerCapacity());
-        } else if (priorityQueueStateType
-                == EmbeddedRocksDBStateBackend.PriorityQueueStateType.HEAP) {
+                    optionsContainer.getWriteBufferManagerCapacity(),
+                    useSstIngestionForRescaling);
+        } else if (priorityQueueStateType == EmbeddedRocksDBStateBackend.PriorityQueueStateType.HEAP
+                || priorityQueueStateType
+                        == EmbeddedRocksDBStateBackend.PriorityQueueStateType.TIERED) {
             return new RocksDBHeapTimersFullRestoreOperation<>(
                     keyGroupRange,
                     numberOfKeyGroups,
@@ -504,7 +553,8 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                             backendUID,
                             materializedSstFiles,
                             lastCompletedCheckpointId,
-                            numberOfTransferingThreads);
+                            numberOfTransferingThreads,
+                            sstFileCache);
         } else {
             checkpointSnapshotStrategy =
                     new RocksFullSnapshotStrategy<>(
@@ -530,6 +580,7 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
         PriorityQueueSetFactory priorityQueueFactory;
         switch (priorityQueueStateType) {
             case HEAP:
+            case TIERED:
                 priorityQueueFactory = createHeapQueueFactory();
                 break;
             case ROCKSDB:
@@ -554,7 +605,19 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
     }
 
     private HeapPriorityQueueSetFactory createHeapQueueFactory() {
-        return new HeapPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128);
+        if (heapQueueFactory == null) {
+            heapQueueFactory =
+                    priorityQueueStateType
+                                    == EmbeddedRocksDBStateBackend.PriorityQueueStateType.TIERED
+                            ? new TieredPriorityQueueSetFactory(
+                                    keyGroupRange,
+                                    numberOfKeyGroups,
+                                    tieredTimerServiceMemorySize,
+                                    new File(instanceBasePath, "timers"))
+                            : new HeapPriorityQueueSetFactory(
+                                    keyGroupRange, numberOfKeyGroups, 128);
+        }
+        return heapQueueFactory;
     }
 
     private void prepareDirectories() throws IOException {
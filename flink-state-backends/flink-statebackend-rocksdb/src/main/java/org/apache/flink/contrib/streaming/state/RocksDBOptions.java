@@ -22,10 +22,12 @@ import org.apache.flink.annotation.docs.Documentation;
 import org.apache.flink.configuration.ConfigOption;
 import org.apache.flink.configuration.ConfigOptions;
 import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend.PriorityQueueStateType;
 
 import static org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend.PriorityQueueStateType.HEAP;
 import static org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend.PriorityQueueStateType.ROCKSDB;
+import static org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend.PriorityQueueStateType.TIERED;
 import static org.apache.flink.contrib.streaming.state.PredefinedOptions.DEFAULT;
 import static org.apache.flink.contrib.streaming.state.PredefinedOptions.FLASH_SSD_OPTIMIZED;
 import static org.apache.flink.contrib.streaming.state.PredefinedOptions.SPINNING_DISK_OPTIMIZED;
@@ -52,8 +54,26 @@ public class RocksDBOptions {
                     .withDescription(
                             String.format(
                                     "This determines the factory for timer service state implementation. Options "
-                                            + "are either %s (heap-based) or %s for an implementation based on RocksDB.",
-                                    HEAP.name(), ROCKSDB.name()));
+                                            + "are either %s (heap-based), %s for an implementation based on RocksDB, "
+                                            + "or %s for an implementation that keeps the timers in serialized form in "
+                                            + "off-heap memory and spills them to local disk when the memory is exhausted.",
+                                    HEAP.name(), ROCKSDB.name(), TIERED.name()));
+
+    /** The off-heap memory of the tiered timer service. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<MemorySize> TIMER_SERVICE_TIERED_MEMORY_SIZE =
+            ConfigOptions.key("state.backend.rocksdb.timer-service.tiered.memory-size")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("64mb"))
+                    .withDescription(
+                            String.format(
+                                    "The size of the off-heap memory (per stateful operator) that holds the timers "
+                                            + "if the timer service factory is %s. Timers that do not fit into the "
+                                            + "memory are spilled to the local directory of RocksDB, starting with "
+                                            + "the timers that fire last. The memory is not part of the managed "
+                                            + "memory of the slot, it is accounted as task off-heap memory and has "
+                                            + "to be covered by '%s'.",
+                                    TIERED.name(), TaskManagerOptions.TASK_OFF_HEAP_MEMORY.key()));
 
     /**
      * The number of threads used to transfer (download and upload) files in RocksDBStateBackend.
@@ -65,6 +85,52 @@ public class RocksDBOptions {
                     .withDescription(
                             "The number of threads (per stateful operator) used to transfer (download and upload) files in RocksDBStateBackend.");
 
+    /** The number of threads used to serve asynchronous state reads in RocksDBStateBackend. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Integer> ASYNC_READ_THREAD_NUM =
+            ConfigOptions.key("state.backend.rocksdb.async-read.thread.num")
+                    .defaultValue(4)
+                    .withDescription(
+                            "The number of threads (per stateful operator) used to serve asynchronous state reads in RocksDBStateBackend. "
+                                    + "The threads are only started when an operator reads state asynchronously.");
+
+    /** Whether to restore rescaled incremental checkpoints by ingesting SST files. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Boolean> RESCALING_USE_SST_INGESTION =
+            ConfigOptions.key("state.backend.rocksdb.rescaling.use-sst-ingestion")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "If true, RocksDBStateBackend restores rescaled incremental checkpoints by writing the key groups "
+                                    + "of each state handle into SST files in parallel, one thread per state handle, and ingesting "
+                                    + "the files into the target instance. Otherwise, the key groups are copied one state handle "
+                                    + "after another through write batches.");
+
+    /** The capacity of the TaskManager-wide cache of SST files for incremental checkpoints. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<MemorySize> SST_FILE_CACHE_SIZE =
+            ConfigOptions.key("state.backend.rocksdb.sst-file-cache.size")
+                    .memoryType()
+                    .defaultValue(MemorySize.ZERO)
+                    .withDescription(
+                            "The disk capacity of the cache of SST files shared by all RocksDB instances of a TaskManager. "
+                                    + "SST files are added to the cache when they are uploaded or downloaded for incremental checkpoints, "
+                                    + "so that restores on the same TaskManager only download the files missing from the cache. "
+                                    + "The least recently used files are evicted when the capacity is exceeded. Zero disables the cache. "
+                                    + "This is a TaskManager option.");
+
+    /** The directory of the TaskManager-wide cache of SST files. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<String> SST_FILE_CACHE_DIRECTORY =
+            ConfigOptions.key("state.backend.rocksdb.sst-file-cache.dir")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "The local directory of the cache of SST files. Defaults to the first temporary directory of "
+                                    + "the TaskManager. Each TaskManager process stores the cached files in its own subdirectory, "
+                                    + "which is deleted on shutdown. Cached files are hard-linked into the RocksDB directories "
+                                    + "if they are on the same file system, and copied otherwise. This is a TaskManager option.");
+
     /** The predefined settings for RocksDB DBOptions and ColumnFamilyOptions by Flink community. */
     @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
     public static final ConfigOption<String> PREDEFINED_OPTIONS =
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.ShutdownHookUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A cache of the SST files of incremental checkpoints on the local disk of a TaskManager, shared by
+ * all RocksDB instances of the TaskManager.
+ *
+ * <p>The files are identified by the location of their remote copy, i.e. the path of the {@link
+ * FileStateHandle}. As uploaded SST files are never modified, a cached file can be used instead of
+ * downloading its remote copy. Files are added to the cache when they are uploaded by {@link
+ * RocksDBStateUploader} or downloaded by {@link RocksDBStateDownloader}. They are hard-linked from
+ * and into the RocksDB instance directories, so cached files usually don't take additional disk
+ * space as long as an instance still uses them. If the directories are on different file systems,
+ * the files are copied instead.
+ *
+ * <p>The least recently used files are evicted once the total size of the cached files exceeds the
+ * capacity. Evicting a file only removes the cache's link to it, so instances using the file are
+ * not affected.
+ *
+ * <p>The files are stored in a new subdirectory of the configured directory, so that TaskManagers
+ * sharing the configured directory don't interfere with each other. The subdirectory is deleted
+ * when the TaskManager process shuts down.
+ */
+@ThreadSafe
+public class RocksDBSstFileCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RocksDBSstFileCache.class);
+
+    private static final String DIRECTORY_NAME_PREFIX = "flink-rocksdb-sst-cache-";
+
+    /** The caches of this JVM, by their parent directory. */
+    @GuardedBy("INSTANCES")
+    private static final Map<Path, RocksDBSstFileCache> INSTANCES = new HashMap<>();
+
+    private final Path directory;
+
+    private final long capacity;
+
+    /** The cached files by their key, in access order. */
+    @GuardedBy("this")
+    private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+
+    @GuardedBy("this")
+    private long usedBytes;
+
+    @VisibleForTesting
+    RocksDBSstFileCache(Path directory, long capacity) throws IOException {
+        checkArgument(capacity > 0, "The capacity of the cache must be positive.");
+        this.directory = checkNotNull(directory);
+        this.capacity = capacity;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Returns the cache of this TaskManager as configured by {@link
+     * RocksDBOptions#SST_FILE_CACHE_SIZE} and {@link RocksDBOptions#SST_FILE_CACHE_DIRECTORY}, or
+     * null if the cache is disabled.
+     */
+    @Nullable
+    public static RocksDBSstFileCache getOrCreate(
+            ReadableConfig taskManagerConfig, String[] tmpDirectories) throws IOException {
+        MemorySize capacity = taskManagerConfig.get(RocksDBOptions.SST_FILE_CACHE_SIZE);
+        if (capacity.getBytes() == 0L) {
+            return null;
+        }
+        Path parentDirectory =
+                new File(
+                                taskManagerConfig
+                                        .getOptional(RocksDBOptions.SST_FILE_CACHE_DIRECTORY)
+                                        .orElse(tmpDirectories[0]))
+                        .toPath()
+                        .toAbsolutePath();
+
+        synchronized (INSTANCES) {
+            RocksDBSstFileCache cache = INSTANCES.get(parentDirectory);
+            if (cache == null) {
+                Path directory = parentDirectory.resolve(DIRECTORY_NAME_PREFIX + UUID.randomUUID());
+                LOG.info(
+                        "Creating cache of RocksDB SST files of size {} in {}",
+                        capacity,
+                        directory);
+                cache = new RocksDBSstFileCache(directory, capacity.getBytes());
+                ShutdownHookUtil.addShutdownHook(
+                        () -> FileUtils.deleteDirectory(directory.toFile()),
+                        RocksDBSstFileCache.class.getSimpleName(),
+                        LOG);
+                INSTANCES.put(parentDirectory, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Returns the key under which the file of the given handle is cached, or null if the file can't
+     * be cached.
+     */
+    @Nullable
+    public static String getCacheKey(StreamStateHandle handle) {
+        return handle instanceof FileStateHandle
+                ? ((FileStateHandle) handle).getFilePath().toString()
+                : null;
+    }
+
+    /**
+     * Links or copies the cached file with the given key to the target path.
+     *
+     * @return True if the file was cached and is now available at the target path.
+     */
+    public boolean tryRestore(String key, Path target) throws IOException {
+        CachedFile file;
+        synchronized (this) {
+            file = files.get(key);
+        }
+        if (file == null) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            linkOrCopy(file.path, target);
+        } catch (IOException e) {
+            // the file may have been evicted in the meantime
+            LOG.debug("Could not restore {} from the cache", key, e);
+            return false;
+        }
+        LOG.trace("Restored {} from the cache", key);
+        return true;
+    }
+
+    /**
+     * Adds the given local file to the cache, unless a file with the given key is already cached.
+     * The file must not be modified anymore.
+     */
+    public void add(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        synchronized (this) {
+            if (size > capacity || files.containsKey(key)) {
+                return;
+            }
+        }
+
+        Path path =
+                directory.resolve(
+                        UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString());
+        try {
+            linkOrCopy(source, path);
+        } catch (FileAlreadyExistsException e) {
+            // added concurrently
+            return;
+        }
+
+        synchronized (this) {
+            if (files.containsKey(key)) {
+                return;
+            }
+            files.put(key, new CachedFile(path, size));
+            usedBytes += size;
+            evictIfNecessary();
+        }
+    }
+
+    @GuardedBy("this")
+    private void evictIfNecessary() {
+        Iterator<CachedFile> iterator = files.values().iterator();
+        while (usedBytes > capacity && iterator.hasNext()) {
+            CachedFile evicted = iterator.next();
+            iterator.remove();
+            usedBytes -= evicted.size;
+            try {
+                Files.deleteIfExists(evicted.path);
+            } catch (IOException e) {
+                LOG.warn("Could not delete evicted file {}", evicted.path, e);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    @VisibleForTesting
+    synchronized boolean contains(String key) {
+        return files.containsKey(key);
+    }
+
+    @VisibleForTesting
+    Path getDirectory() {
+        return directory;
+    }
+
+    /** Links or copies the source to the target, which must not exist yet. */
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            if (e instanceof FileAlreadyExistsException) {
+                throw (FileAlreadyExistsException) e;
+            }
+            // e.g. the paths are on different file systems
+            copy(source, target);
+        }
+    }
+
+    /** Copies the source to the new target file, which is deleted again if the copy fails. */
+    private static void copy(Path source, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            // fails if the target exists, so only a file created by this call is deleted below
+            OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW);
+            try {
+                IOUtils.copyBytes(in, out, false);
+                out.close();
+            } catch (IOException e) {
+                IOUtils.closeQuietly(out);
+                Files.deleteIfExists(target);
+                throw e;
+            }
+        }
+    }
+
+    private static final class CachedFile {
+
+        private final Path path;
+
+        private final long size;
+
+        private CachedFile(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
@@ -92,7 +92,8 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
     @Deprecated
     public enum PriorityQueueStateType {
         HEAP,
-        ROCKSDB
+        ROCKSDB,
+        TIERED
     }
 
     private static final long serialVersionUID = 1L;
@@ -530,6 +531,39 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
         rocksDBStateBackend.setNumberOfTransferThreads(numberOfTransferThreads);
     }
 
+    /** Gets the number of threads used to serve asynchronous state reads. */
+    public int getNumberOfAsyncReadThreads() {
+        return rocksDBStateBackend.getNumberOfAsyncReadThreads();
+    }
+
+    /**
+     * Sets the number of threads used to serve asynchronous state reads.
+     *
+     * @param numberOfAsyncReadThreads The number of threads used to serve asynchronous state reads.
+     */
+    public void setNumberOfAsyncReadThreads(int numberOfAsyncReadThreads) {
+        rocksDBStateBackend.setNumberOfAsyncReadThreads(numberOfAsyncReadThreads);
+    }
+
+    /**
+     * Gets whether rescaled incremental checkpoints are restored by writing the key groups of each
+     * state handle into SST files and ingesting them into the target instance.
+     */
+    public boolean isSstIngestionForRescalingEnabled() {
+        return rocksDBStateBackend.isSstIngestionForRescalingEnabled();
+    }
+
+    /**
+     * Sets whether rescaled incremental checkpoints are restored by writing the key groups of each
+     * state handle into SST files in parallel and ingesting them into the target instance, instead
+     * of copying them through write batches.
+     *
+     * @param useSstIngestionForRescaling True to restore rescaled checkpoints by SST ingestion.
+     */
+    public void setUseSstIngestionForRescaling(boolean useSstIngestionForRescaling) {
+        rocksDBStateBackend.setUseSstIngestionForRescaling(useSstIngestionForRescaling);
+    }
+
     /** @deprecated Typo in method name. Use {@link #getNumberOfTransferThreads} instead. */
     @Deprecated
     public int getNumberOfTransferingThreads() {
@@ -557,6 +591,25 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
         rocksDBStateBackend.setWriteBatchSize(writeBatchSize);
     }
 
+    /**
+     * Gets the size of the off-heap memory for the timers of each stateful operator, if the
+     * priority queue state type is {@link PriorityQueueStateType#TIERED}.
+     */
+    public long getTieredTimerServiceMemorySize() {
+        return rocksDBStateBackend.getTieredTimerServiceMemorySize();
+    }
+
+    /**
+     * Sets the size of the off-heap memory for the timers of each stateful operator, if the
+     * priority queue state type is {@link PriorityQueueStateType#TIERED}. Timers that do not fit
+     * into the memory are spilled to local disk.
+     *
+     * @param tieredTimerServiceMemorySize The memory size in bytes.
+     */
+    public void setTieredTimerServiceMemorySize(long tieredTimerServiceMemorySize) {
+        rocksDBStateBackend.setTieredTimerServiceMemorySize(tieredTimerServiceMemorySize);
+    }
+
     // ------------------------------------------------------------------------
     //  utilities
     // ------------------------------------------------------------------------
@@ -577,8 +630,14 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
                 + rocksDBStateBackend.isIncrementalCheckpointsEnabled()
                 + ", numberOfTransferThreads="
                 + rocksDBStateBackend.getNumberOfTransferThreads()
+                + ", numberOfAsyncReadThreads="
+                + rocksDBStateBackend.getNumberOfAsyncReadThreads()
+                + ", useSstIngestionForRescaling="
+                + rocksDBStateBackend.isSstIngestionForRescalingEnabled()
                 + ", writeBatchSize="
                 + rocksDBStateBackend.getWriteBatchSize()
+                + ", tieredTimerServiceMemorySize="
+                + rocksDBStateBackend.getTieredTimerServiceMemorySize()
                 + '}';
     }
 
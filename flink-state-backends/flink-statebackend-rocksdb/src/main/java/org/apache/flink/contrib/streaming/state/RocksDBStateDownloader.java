@@ -27,6 +27,11 @@ import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.function.ThrowingRunnable;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
@@ -39,8 +44,20 @@ import java.util.concurrent.ExecutionException;
 
 /** Help class for downloading RocksDB state files. */
 public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RocksDBStateDownloader.class);
+
+    /** The cache consulted before downloading SST files, null if disabled. */
+    @Nullable private final RocksDBSstFileCache sstFileCache;
+
     public RocksDBStateDownloader(int restoringThreadNum) {
+        this(restoringThreadNum, null);
+    }
+
+    public RocksDBStateDownloader(
+            int restoringThreadNum, @Nullable RocksDBSstFileCache sstFileCache) {
         super(restoringThreadNum);
+        this.sstFileCache = sstFileCache;
     }
 
     /**
@@ -60,8 +77,8 @@ public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
         final Map<StateHandleID, StreamStateHandle> miscFiles =
                 restoreStateHandle.getPrivateState();
 
-        downloadDataForAllStateHandles(sstFiles, dest, closeableRegistry);
-        downloadDataForAllStateHandles(miscFiles, dest, closeableRegistry);
+        downloadDataForAllStateHandles(sstFiles, dest, closeableRegistry, sstFileCache);
+        downloadDataForAllStateHandles(miscFiles, dest, closeableRegistry, null);
     }
 
     /**
@@ -71,12 +88,14 @@ public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
     private void downloadDataForAllStateHandles(
             Map<StateHandleID, StreamStateHandle> stateHandleMap,
             Path restoreInstancePath,
-            CloseableRegistry closeableRegistry)
+            CloseableRegistry closeableRegistry,
+            @Nullable RocksDBSstFileCache cache)
             throws Exception {
 
         try {
             List<Runnable> runnables =
-                    createDownloadRunnables(stateHandleMap, restoreInstancePath, closeableRegistry);
+                    createDownloadRunnables(
+                            stateHandleMap, restoreInstancePath, closeableRegistry, cache);
             List<CompletableFuture<Void>> futures = new ArrayList<>(runnables.size());
             for (Runnable runnable : runnables) {
                 futures.add(CompletableFuture.runAsync(runnable, executorService));
@@ -96,7 +115,8 @@ public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
     private List<Runnable> createDownloadRunnables(
             Map<StateHandleID, StreamStateHandle> stateHandleMap,
             Path restoreInstancePath,
-            CloseableRegistry closeableRegistry) {
+            CloseableRegistry closeableRegistry,
+            @Nullable RocksDBSstFileCache cache) {
         List<Runnable> runnables = new ArrayList<>(stateHandleMap.size());
         for (Map.Entry<StateHandleID, StreamStateHandle> entry : stateHandleMap.entrySet()) {
             StateHandleID stateHandleID = entry.getKey();
@@ -108,11 +128,38 @@ public class RocksDBStateDownloader extends RocksDBStateDataTransfer {
                     ThrowingRunnable.unchecked(
                             () ->
                                     downloadDataForStateHandle(
-                                            path, remoteFileHandle, closeableRegistry)));
+                                            path, remoteFileHandle, closeableRegistry, cache)));
         }
         return runnables;
     }
 
+    /**
+     * Copies the file from a single state handle to the given path, taking it from the cache if
+     * possible and adding it to the cache otherwise.
+     */
+    private void downloadDataForStateHandle(
+            Path restoreFilePath,
+            StreamStateHandle remoteFileHandle,
+            CloseableRegistry closeableRegistry,
+            @Nullable RocksDBSstFileCache cache)
+            throws IOException {
+
+        String cacheKey = cache == null ? null : RocksDBSstFileCache.getCacheKey(remoteFileHandle);
+        if (cacheKey != null && cache.tryRestore(cacheKey, restoreFilePath)) {
+            return;
+        }
+
+        downloadDataForStateHandle(restoreFilePath, remoteFileHandle, closeableRegistry);
+
+        if (cacheKey != null) {
+            try {
+                cache.add(cacheKey, restoreFilePath);
+            } catch (IOException e) {
+                LOG.warn("Could not add {} to the SST file cache.", restoreFilePath, e);
+            }
+        }
+    }
+
     /** Copies the file from a single state handle to the given path. */
     private void downloadDataForStateHandle(
             Path restoreFilePath,
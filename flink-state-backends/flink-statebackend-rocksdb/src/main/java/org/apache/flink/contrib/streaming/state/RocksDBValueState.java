@@ -23,6 +23,7 @@ import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.DataInputDeserializer;
 import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
 import org.apache.flink.runtime.state.internal.InternalValueState;
 import org.apache.flink.util.FlinkRuntimeException;
@@ -31,6 +32,13 @@ import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * {@link ValueState} implementation that stores state in RocksDB.
@@ -110,6 +118,81 @@ class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
         }
     }
 
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final List<K> keyList = new ArrayList<>(keys);
+        final List<byte[]> keyBytesList = new ArrayList<>(keyList.size());
+        for (K key : keyList) {
+            keyBytesList.add(serializeKeyWithGroupAndNamespace(key));
+        }
+
+        try {
+            // the returned map is keyed by the identity of the given key bytes
+            final Map<byte[], byte[]> valueBytesByKeyBytes =
+                    backend.db.multiGet(
+                            Collections.nCopies(keyBytesList.size(), columnFamily), keyBytesList);
+
+            final Map<K, V> result = new HashMap<>(valueBytesByKeyBytes.size());
+            for (int i = 0; i < keyList.size(); i++) {
+                byte[] valueBytes = valueBytesByKeyBytes.get(keyBytesList.get(i));
+                if (valueBytes != null) {
+                    dataInputView.setBuffer(valueBytes);
+                    result.put(keyList.get(i), valueSerializer.deserialize(dataInputView));
+                }
+            }
+            return result;
+        } catch (IOException | RocksDBException e) {
+            throw new FlinkRuntimeException("Error while retrieving data from RocksDB.", e);
+        }
+    }
+
+    @Override
+    public void putAll(Map<K, V> values) {
+        try (RocksDBWriteBatchWrapper writeBatchWrapper =
+                new RocksDBWriteBatchWrapper(
+                        backend.db, writeOptions, backend.getWriteBatchSize())) {
+            for (Map.Entry<K, V> entry : values.entrySet()) {
+                byte[] keyBytes = serializeKeyWithGroupAndNamespace(entry.getKey());
+                if (entry.getValue() == null) {
+                    writeBatchWrapper.remove(columnFamily, keyBytes);
+                } else {
+                    writeBatchWrapper.put(columnFamily, keyBytes, serializeValue(entry.getValue()));
+                }
+            }
+        } catch (Exception e) {
+            throw new FlinkRuntimeException("Error while adding data to RocksDB", e);
+        }
+    }
+
+    /**
+     * The value is read and deserialized in one of the asynchronous read threads of the backend,
+     * with a duplicate of the value serializer, because the serializer of the state is not thread
+     * safe.
+     */
+    @Override
+    public CompletableFuture<V> asyncValue(K key) {
+        final byte[] keyBytes = serializeKeyWithGroupAndNamespace(key);
+        final TypeSerializer<V> serializer = valueSerializer.duplicate();
+        return backend.asyncGet(columnFamily, keyBytes)
+                .thenApply(
+                        valueBytes -> {
+                            if (valueBytes == null) {
+                                return null;
+                            }
+                            try {
+                                return serializer.deserialize(
+                                        new DataInputDeserializer(valueBytes));
+                            } catch (IOException e) {
+                                throw new FlinkRuntimeException(
+                                        "Error while deserializing data from RocksDB.", e);
+                            }
+                        });
+    }
+
     @SuppressWarnings("unchecked")
     static <K, N, SV, S extends State, IS extends S> IS create(
             StateDescriptor<S, SV> stateDesc,
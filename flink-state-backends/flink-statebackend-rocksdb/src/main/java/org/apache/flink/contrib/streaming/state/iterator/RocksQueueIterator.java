@@ -23,7 +23,12 @@ import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.runtime.state.CompositeKeySerializationUtils;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueStateSnapshot;
+import org.apache.flink.runtime.state.heap.TieredPriorityQueueStateSnapshot;
+import org.apache.flink.util.CloseableIterator;
 import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.util.Iterator;
@@ -40,6 +45,9 @@ public final class RocksQueueIterator implements SingleStateIterator {
     private final int keyGroupPrefixBytes;
     private final TypeSerializer<Object> elementSerializer;
 
+    /** The snapshot if it holds the elements in serialized form, which are copied directly. */
+    @Nullable private final TieredPriorityQueueStateSnapshot<?> serializedQueueSnapshot;
+
     private Iterator<Object> elementsForKeyGroup;
     private int afterKeyMark = 0;
 
@@ -53,6 +61,10 @@ public final class RocksQueueIterator implements SingleStateIterator {
             int kvStateId) {
         this.queueSnapshot = queuesSnapshot;
         this.elementSerializer = castToType(queuesSnapshot.getMetaInfo().getElementSerializer());
+        this.serializedQueueSnapshot =
+                queuesSnapshot instanceof TieredPriorityQueueStateSnapshot
+                        ? (TieredPriorityQueueStateSnapshot<?>) queuesSnapshot
+                        : null;
         this.keyGroupRangeIterator = keyGroupRange.iterator();
         this.keyGroupPrefixBytes = keyGroupPrefixBytes;
         this.kvStateId = kvStateId;
@@ -81,7 +93,11 @@ public final class RocksQueueIterator implements SingleStateIterator {
                 }
             }
             keyOut.setPosition(afterKeyMark);
-            elementSerializer.serialize(elementsForKeyGroup.next(), keyOut);
+            if (serializedQueueSnapshot != null) {
+                keyOut.write((byte[]) elementsForKeyGroup.next());
+            } else {
+                elementSerializer.serialize(elementsForKeyGroup.next(), keyOut);
+            }
             this.currentKey = keyOut.getCopyOfBuffer();
         } catch (IOException e) {
             throw new FlinkRuntimeException(e);
@@ -91,7 +107,13 @@ public final class RocksQueueIterator implements SingleStateIterator {
     private boolean moveToNextNonEmptyKeyGroup() throws IOException {
         while (keyGroupRangeIterator.hasNext()) {
             Integer keyGroupId = keyGroupRangeIterator.next();
-            elementsForKeyGroup = castToType(queueSnapshot.getIteratorForKeyGroup(keyGroupId));
+            closeElementsForKeyGroup();
+            elementsForKeyGroup =
+                    serializedQueueSnapshot != null
+                            ? castToType(
+                                    serializedQueueSnapshot.getSerializedIteratorForKeyGroup(
+                                            keyGroupId))
+                            : castToType(queueSnapshot.getIteratorForKeyGroup(keyGroupId));
             if (elementsForKeyGroup.hasNext()) {
                 writeKeyGroupId(keyGroupId);
                 return true;
@@ -136,6 +158,14 @@ public final class RocksQueueIterator implements SingleStateIterator {
         return kvStateId;
     }
 
+    private void closeElementsForKeyGroup() {
+        if (elementsForKeyGroup instanceof CloseableIterator) {
+            IOUtils.closeQuietly((CloseableIterator<?>) elementsForKeyGroup);
+        }
+    }
+
     @Override
-    public void close() {}
+    public void close() {
+        closeElementsForKeyGroup();
+    }
 }
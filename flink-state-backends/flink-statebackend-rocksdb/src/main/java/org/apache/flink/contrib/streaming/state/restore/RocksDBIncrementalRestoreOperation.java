@@ -24,6 +24,7 @@ import org.apache.flink.contrib.streaming.state.RocksDBIncrementalCheckpointUtil
 import org.apache.flink.contrib.streaming.state.RocksDBKeyedStateBackend.RocksDbKvStateInfo;
 import org.apache.flink.contrib.streaming.state.RocksDBNativeMetricOptions;
 import org.apache.flink.contrib.streaming.state.RocksDBOperationUtils;
+import org.apache.flink.contrib.streaming.state.RocksDBSstFileCache;
 import org.apache.flink.contrib.streaming.state.RocksDBStateDownloader;
 import org.apache.flink.contrib.streaming.state.RocksDBWriteBatchWrapper;
 import org.apache.flink.contrib.streaming.state.RocksIteratorWrapper;
@@ -32,6 +33,7 @@ import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.concurrent.FutureUtils;
 import org.apache.flink.runtime.state.BackendBuildingException;
 import org.apache.flink.runtime.state.CompositeKeySerializationUtils;
 import org.apache.flink.runtime.state.DirectoryStateHandle;
@@ -46,29 +48,39 @@ import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StateSerializerProvider;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.StateMigrationException;
+import org.apache.flink.util.function.ThrowingRunnable;
 
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -76,6 +88,10 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 import static org.apache.flink.runtime.state.StateUtil.unexpectedStateHandleException;
@@ -94,12 +110,14 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
     private final KeyGroupRange keyGroupRange;
     private final File instanceBasePath;
     private final int numberOfTransferringThreads;
+    @Nullable private final RocksDBSstFileCache sstFileCache;
     private final int keyGroupPrefixBytes;
     private final StateSerializerProvider<K> keySerializerProvider;
     private final ClassLoader userCodeClassLoader;
     private long lastCompletedCheckpointId;
     private UUID backendUID;
     private final long writeBatchSize;
+    private final boolean useSstIngestionForRescaling;
 
     private boolean isKeySerializerCompatibilityChecked;
 
@@ -108,6 +126,7 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
             KeyGroupRange keyGroupRange,
             int keyGroupPrefixBytes,
             int numberOfTransferringThreads,
+            @Nullable RocksDBSstFileCache sstFileCache,
             CloseableRegistry cancelStreamRegistry,
             ClassLoader userCodeClassLoader,
             Map<String, RocksDbKvStateInfo> kvStateInformation,
@@ -121,7 +140,8 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
             @Nonnull Collection<KeyedStateHandle> restoreStateHandles,
             @Nonnull RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
             @Nonnegative long writeBatchSize,
-            Long writeBufferManagerCapacity) {
+            Long writeBufferManagerCapacity,
+            boolean useSstIngestionForRescaling) {
         this.rocksHandle =
                 new RocksDBHandle(
                         kvStateInformation,
@@ -137,11 +157,13 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
         this.lastCompletedCheckpointId = -1L;
         this.backendUID = UUID.randomUUID();
         this.writeBatchSize = writeBatchSize;
+        this.useSstIngestionForRescaling = useSstIngestionForRescaling;
         this.restoreStateHandles = restoreStateHandles;
         this.cancelStreamRegistry = cancelStreamRegistry;
         this.keyGroupRange = keyGroupRange;
         this.instanceBasePath = instanceBasePath;
         this.numberOfTransferringThreads = numberOfTransferringThreads;
+        this.sstFileCache = sstFileCache;
         this.keyGroupPrefixBytes = keyGroupPrefixBytes;
         this.keySerializerProvider = keySerializerProvider;
         this.userCodeClassLoader = userCodeClassLoader;
@@ -249,7 +271,7 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
             throws Exception {
 
         try (RocksDBStateDownloader rocksDBStateDownloader =
-                new RocksDBStateDownloader(numberOfTransferringThreads)) {
+                new RocksDBStateDownloader(numberOfTransferringThreads, sstFileCache)) {
             rocksDBStateDownloader.transferAllStateDataToDirectory(
                     restoreStateHandle, temporaryRestoreInstancePath, cancelStreamRegistry);
         }
@@ -277,7 +299,9 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
     /**
      * Recovery from multi incremental states with rescaling. For rescaling, this method creates a
      * temporary RocksDB instance for a key-groups shard. All contents from the temporary instance
-     * are copied into the real restore instance and then the temporary instance is discarded.
+     * are copied into the real restore instance and then the temporary instance is discarded. If
+     * SST ingestion is enabled, the contents are copied by {@link
+     * #restoreWithRescalingBySstIngestion} instead.
      */
     private void restoreWithRescaling(Collection<KeyedStateHandle> restoreStateHandles)
             throws Exception {
@@ -304,6 +328,12 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
         CompositeKeySerializationUtils.serializeKeyGroup(
                 keyGroupRange.getEndKeyGroup() + 1, stopKeyGroupPrefixBytes);
 
+        if (useSstIngestionForRescaling) {
+            restoreWithRescalingBySstIngestion(
+                    restoreStateHandles, startKeyGroupPrefixBytes, stopKeyGroupPrefixBytes);
+            return;
+        }
+
         for (KeyedStateHandle rawStateHandle : restoreStateHandles) {
 
             if (!(rawStateHandle instanceof IncrementalRemoteKeyedStateHandle)) {
@@ -374,6 +404,132 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
         }
     }
 
+    /**
+     * Copies the key-groups of the given state handles into the base DB by SST file ingestion. Each
+     * state handle is restored into a temporary RocksDB instance by its own thread, which writes
+     * the key-groups of the target range into one SST file per column family with a {@link
+     * SstFileWriter}. Once all files are written, they are ingested into the base DB.
+     */
+    private void restoreWithRescalingBySstIngestion(
+            Collection<KeyedStateHandle> restoreStateHandles,
+            byte[] startKeyGroupPrefixBytes,
+            byte[] stopKeyGroupPrefixBytes)
+            throws Exception {
+
+        if (restoreStateHandles.isEmpty()) {
+            return;
+        }
+
+        Path sstFilesPath =
+                instanceBasePath.getAbsoluteFile().toPath().resolve(UUID.randomUUID().toString());
+        List<SstFileWriterTask> tasks = new ArrayList<>(restoreStateHandles.size());
+        ExecutorService executorService =
+                Executors.newFixedThreadPool(
+                        restoreStateHandles.size(),
+                        new ExecutorThreadFactory("Flink-RocksDBRescalingRestore"));
+        try {
+            Files.createDirectories(sstFilesPath);
+
+            // the metadata and options must be created by this thread
+            for (KeyedStateHandle rawStateHandle : restoreStateHandles) {
+                if (!(rawStateHandle instanceof IncrementalRemoteKeyedStateHandle)) {
+                    throw unexpectedStateHandleException(
+                            IncrementalRemoteKeyedStateHandle.class, rawStateHandle.getClass());
+                }
+                tasks.add(
+                        createSstFileWriterTask(
+                                (IncrementalRemoteKeyedStateHandle) rawStateHandle,
+                                sstFilesPath,
+                                startKeyGroupPrefixBytes,
+                                stopKeyGroupPrefixBytes));
+            }
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>(tasks.size());
+            for (SstFileWriterTask task : tasks) {
+                futures.add(
+                        CompletableFuture.runAsync(
+                                ThrowingRunnable.unchecked(task::writeSstFiles), executorService));
+            }
+            try {
+                // wait for all tasks, as their native resources are released afterwards
+                FutureUtils.completeAll(futures).get();
+            } catch (ExecutionException e) {
+                Throwable throwable = ExceptionUtils.stripExecutionException(e);
+                throw new BackendBuildingException(
+                        "Failed to write SST files for rescaling.",
+                        ExceptionUtils.stripException(throwable, RuntimeException.class));
+            }
+
+            ingestSstFiles(tasks);
+        } finally {
+            executorService.shutdownNow();
+            IOUtils.closeAllQuietly(tasks);
+            cleanUpPathQuietly(sstFilesPath);
+        }
+    }
+
+    private SstFileWriterTask createSstFileWriterTask(
+            IncrementalRemoteKeyedStateHandle restoreStateHandle,
+            Path sstFilesPath,
+            byte[] startKeyGroupPrefixBytes,
+            byte[] stopKeyGroupPrefixBytes)
+            throws Exception {
+
+        List<StateMetaInfoSnapshot> stateMetaInfoSnapshots =
+                readMetaData(restoreStateHandle.getMetaStateHandle()).getStateMetaInfoSnapshots();
+        List<ColumnFamilyDescriptor> columnFamilyDescriptors =
+                createlumnFamilyDescriptors(stateMetaInfoSnapshots, false);
+        List<Options> sstFileWriterOptions = new ArrayList<>(columnFamilyDescriptors.size());
+        for (ColumnFamilyDescriptor columnFamilyDescriptor : columnFamilyDescriptors) {
+            sstFileWriterOptions.add(
+                    new Options(
+                            this.rocksHandle.getDbOptions(), columnFamilyDescriptor.getOptions()));
+        }
+
+        return new SstFileWriterTask(
+                restoreStateHandle,
+                instanceBasePath.getAbsoluteFile().toPath().resolve(UUID.randomUUID().toString()),
+                sstFilesPath,
+                startKeyGroupPrefixBytes,
+                stopKeyGroupPrefixBytes,
+                stateMetaInfoSnapshots,
+                columnFamilyDescriptors,
+                RocksDBOperationUtils.createColumnFamilyOptions(
+                        this.rocksHandle.getColumnFamilyOptionsFactory(), "default"),
+                sstFileWriterOptions);
+    }
+
+    /** Ingests the SST files written by the given tasks into the base DB. */
+    private void ingestSstFiles(List<SstFileWriterTask> tasks) throws RocksDBException {
+        Map<ColumnFamilyHandle, List<String>> sstFilesByColumnFamily = new HashMap<>();
+        for (SstFileWriterTask task : tasks) {
+            for (int i = 0; i < task.stateMetaInfoSnapshots.size(); ++i) {
+                ColumnFamilyHandle targetColumnFamilyHandle =
+                        this.rocksHandle.getOrRegisterStateColumnFamilyHandle(
+                                        null, task.stateMetaInfoSnapshots.get(i))
+                                .columnFamilyHandle;
+                Path sstFile = task.sstFiles.get(i);
+                if (sstFile != null) {
+                    sstFilesByColumnFamily
+                            .computeIfAbsent(targetColumnFamilyHandle, cf -> new ArrayList<>())
+                            .add(sstFile.toString());
+                }
+            }
+        }
+
+        try (IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()) {
+            // the files are deleted after the restore anyways
+            ingestOptions.setMoveFiles(true);
+            for (Map.Entry<ColumnFamilyHandle, List<String>> entry :
+                    sstFilesByColumnFamily.entrySet()) {
+                // the files don't overlap, as they contain different key-groups
+                this.rocksHandle
+                        .getDb()
+                        .ingestExternalFile(entry.getKey(), entry.getValue(), ingestOptions);
+            }
+        }
+    }
+
     private void initDBWithRescaling(KeyedStateHandle initialHandle) throws Exception {
 
         assert (initialHandle instanceof IncrementalRemoteKeyedStateHandle);
@@ -440,12 +596,157 @@ public class RocksDBIncrementalRestoreOperation<K> implements RocksDBRestoreOper
         }
     }
 
+    /**
+     * Restores a single state handle into a temporary RocksDB instance and writes the key-groups of
+     * the target range into one SST file per column family. The task is executed by its own thread,
+     * all other methods must be called by the restoring thread.
+     */
+    private class SstFileWriterTask implements AutoCloseable {
+
+        private final IncrementalRemoteKeyedStateHandle restoreStateHandle;
+
+        private final Path temporaryRestoreInstancePath;
+
+        private final Path sstFilesPath;
+
+        private final byte[] startKeyGroupPrefixBytes;
+
+        private final byte[] stopKeyGroupPrefixBytes;
+
+        private final List<StateMetaInfoSnapshot> stateMetaInfoSnapshots;
+
+        private final List<ColumnFamilyDescriptor> columnFamilyDescriptors;
+
+        private final ColumnFamilyOptions defaultColumnFamilyOptions;
+
+        private final List<Options> sstFileWriterOptions;
+
+        /** The written SST file per column family, null if the column family has no data. */
+        private final List<Path> sstFiles;
+
+        private SstFileWriterTask(
+                IncrementalRemoteKeyedStateHandle restoreStateHandle,
+                Path temporaryRestoreInstancePath,
+                Path sstFilesPath,
+                byte[] startKeyGroupPrefixBytes,
+                byte[] stopKeyGroupPrefixBytes,
+                List<StateMetaInfoSnapshot> stateMetaInfoSnapshots,
+                List<ColumnFamilyDescriptor> columnFamilyDescriptors,
+                ColumnFamilyOptions defaultColumnFamilyOptions,
+                List<Options> sstFileWriterOptions) {
+            this.restoreStateHandle = restoreStateHandle;
+            this.temporaryRestoreInstancePath = temporaryRestoreInstancePath;
+            this.sstFilesPath = sstFilesPath;
+            this.startKeyGroupPrefixBytes = startKeyGroupPrefixBytes;
+            this.stopKeyGroupPrefixBytes = stopKeyGroupPrefixBytes;
+            this.stateMetaInfoSnapshots = stateMetaInfoSnapshots;
+            this.columnFamilyDescriptors = columnFamilyDescriptors;
+            this.defaultColumnFamilyOptions = defaultColumnFamilyOptions;
+            this.sstFileWriterOptions = sstFileWriterOptions;
+            this.sstFiles = new ArrayList<>(columnFamilyDescriptors.size());
+        }
+
+        private void writeSstFiles() throws Exception {
+            logger.info(
+                    "Starting to restore from state handle: {} with rescaling by SST ingestion.",
+                    restoreStateHandle);
+            try {
+                try (RocksDBStateDownloader rocksDBStateDownloader =
+                        new RocksDBStateDownloader(numberOfTransferringThreads, sstFileCache)) {
+                    rocksDBStateDownloader.transferAllStateDataToDirectory(
+                            restoreStateHandle, temporaryRestoreInstancePath, cancelStreamRegistry);
+                }
+
+                List<ColumnFamilyHandle> columnFamilyHandles =
+                        new ArrayList<>(columnFamilyDescriptors.size() + 1);
+                RocksDB db =
+                        RocksDBOperationUtils.openDB(
+                                temporaryRestoreInstancePath.toString(),
+                                columnFamilyDescriptors,
+                                columnFamilyHandles,
+                                defaultColumnFamilyOptions,
+                                rocksHandle.getDbOptions());
+                try (ReadOptions readOptions =
+                                RocksDBOperationUtils.createTotalOrderSeekReadOptions();
+                        EnvOptions envOptions = new EnvOptions()) {
+                    // skip the default column family handle
+                    for (int i = 0; i < columnFamilyDescriptors.size(); ++i) {
+                        sstFiles.add(
+                                writeSstFile(
+                                        db,
+                                        columnFamilyHandles.get(i + 1),
+                                        readOptions,
+                                        envOptions,
+                                        sstFileWriterOptions.get(i)));
+                    }
+                } finally {
+                    List<ColumnFamilyOptions> columnFamilyOptions = new ArrayList<>(1);
+                    RocksDBOperationUtils.addColumnFamilyOptionsToCloseLater(
+                            columnFamilyOptions, columnFamilyHandles.get(0));
+                    IOUtils.closeAllQuietly(columnFamilyHandles);
+                    IOUtils.closeQuietly(db);
+                    IOUtils.closeAllQuietly(columnFamilyOptions);
+                }
+            } finally {
+                cleanUpPathQuietly(temporaryRestoreInstancePath);
+            }
+            logger.info(
+                    "Finished restoring from state handle: {} with rescaling by SST ingestion.",
+                    restoreStateHandle);
+        }
+
+        /** Writes the key-groups of the target range of a column family into a new SST file. */
+        @Nullable
+        private Path writeSstFile(
+                RocksDB db,
+                ColumnFamilyHandle columnFamilyHandle,
+                ReadOptions readOptions,
+                EnvOptions envOptions,
+                Options options)
+                throws RocksDBException {
+
+            Path sstFile = sstFilesPath.resolve(UUID.randomUUID() + ".sst");
+            boolean empty = true;
+            try (RocksIteratorWrapper iterator =
+                            RocksDBOperationUtils.getRocksIterator(
+                                    db, columnFamilyHandle, readOptions);
+                    SstFileWriter sstFileWriter = new SstFileWriter(envOptions, options)) {
+
+                iterator.seek(startKeyGroupPrefixBytes);
+                // the iterator visits the records in sorted order, as required by the writer
+                while (iterator.isValid()
+                        && RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(
+                                iterator.key(), stopKeyGroupPrefixBytes)) {
+                    if (empty) {
+                        sstFileWriter.open(sstFile.toString());
+                        empty = false;
+                    }
+                    sstFileWriter.put(iterator.key(), iterator.value());
+                    iterator.next();
+                }
+
+                // the writer can't finish files without entries
+                if (!empty) {
+                    sstFileWriter.finish();
+                }
+            }
+            return empty ? null : sstFile;
+        }
+
+        @Override
+        public void close() {
+            IOUtils.closeAllQuietly(sstFileWriterOptions);
+            columnFamilyDescriptors.forEach((cfd) -> IOUtils.closeQuietly(cfd.getOptions()));
+            IOUtils.closeQuietly(defaultColumnFamilyOptions);
+        }
+    }
+
     private RestoredDBInstance restoreDBInstanceFromStateHandle(
             IncrementalRemoteKeyedStateHandle restoreStateHandle, Path temporaryRestoreInstancePath)
             throws Exception {
 
         try (RocksDBStateDownloader rocksDBStateDownloader =
-                new RocksDBStateDownloader(numberOfTransferringThreads)) {
+                new RocksDBStateDownloader(numberOfTransferringThreads, sstFileCache)) {
             rocksDBStateDownloader.transferAllStateDataToDirectory(
                     restoreStateHandle, temporaryRestoreInstancePath, cancelStreamRegistry);
         }
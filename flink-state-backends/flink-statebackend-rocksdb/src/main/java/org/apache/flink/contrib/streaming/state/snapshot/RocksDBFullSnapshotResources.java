@@ -260,6 +260,9 @@ public class RocksDBFullSnapshotResources<K> implements FullSnapshotResources<K>
         db.releaseSnapshot(snapshot);
         IOUtils.closeQuietly(snapshot);
         IOUtils.closeQuietly(lease);
+        for (HeapPriorityQueueStateSnapshot<?> queuesSnapshot : heapPriorityQueuesSnapshots) {
+            queuesSnapshot.release();
+        }
     }
 
     private static class MetaData {
@@ -20,6 +20,7 @@ package org.apache.flink.contrib.streaming.state.snapshot;
 
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.contrib.streaming.state.RocksDBKeyedStateBackend.RocksDbKvStateInfo;
+import org.apache.flink.contrib.streaming.state.RocksDBSstFileCache;
 import org.apache.flink.contrib.streaming.state.RocksDBStateUploader;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.memory.DataOutputView;
@@ -106,6 +107,9 @@ public class RocksIncrementalSnapshotStrategy<K>
     /** The help class used to upload state files. */
     private final RocksDBStateUploader stateUploader;
 
+    /** The cache to which uploaded SST files are added, null if disabled. */
+    @Nullable private final RocksDBSstFileCache sstFileCache;
+
     /** The local directory name of the current snapshot strategy. */
     private final String localDirectoryName;
 
@@ -122,7 +126,8 @@ public class RocksIncrementalSnapshotStrategy<K>
             @Nonnull UUID backendUID,
             @Nonnull SortedMap<Long, Set<StateHandleID>> materializedSstFiles,
             long lastCompletedCheckpointId,
-            int numberOfTransferingThreads) {
+            int numberOfTransferingThreads,
+            @Nullable RocksDBSstFileCache sstFileCache) {
 
         super(
                 DESCRIPTION,
@@ -139,6 +144,7 @@ public class RocksIncrementalSnapshotStrategy<K>
         this.materializedSstFiles = materializedSstFiles;
         this.lastCompletedCheckpointId = lastCompletedCheckpointId;
         this.stateUploader = new RocksDBStateUploader(numberOfTransferingThreads);
+        this.sstFileCache = sstFileCache;
         this.localDirectoryName = backendUID.toString().replaceAll("[\\-]", "");
     }
 
@@ -438,15 +444,35 @@ public class RocksIncrementalSnapshotStrategy<K>
             if (files != null) {
                 createUploadFilePaths(files, sstFiles, sstFilePaths, miscFilePaths);
 
-                sstFiles.putAll(
+                Map<StateHandleID, StreamStateHandle> uploadedSstFiles =
                         stateUploader.uploadFilesToCheckpointFs(
-                                sstFilePaths, checkpointStreamFactory, snapshotCloseableRegistry));
+                                sstFilePaths, checkpointStreamFactory, snapshotCloseableRegistry);
+                sstFiles.putAll(uploadedSstFiles);
+                if (sstFileCache != null) {
+                    addToCache(sstFilePaths, uploadedSstFiles);
+                }
                 miscFiles.putAll(
                         stateUploader.uploadFilesToCheckpointFs(
                                 miscFilePaths, checkpointStreamFactory, snapshotCloseableRegistry));
             }
         }
 
+        /** Adds the uploaded SST files to the cache, so restores on this TM can skip them. */
+        private void addToCache(
+                Map<StateHandleID, Path> sstFilePaths,
+                Map<StateHandleID, StreamStateHandle> uploadedSstFiles) {
+            for (Map.Entry<StateHandleID, StreamStateHandle> entry : uploadedSstFiles.entrySet()) {
+                String cacheKey = RocksDBSstFileCache.getCacheKey(entry.getValue());
+                if (cacheKey != null) {
+                    try {
+                        sstFileCache.add(cacheKey, sstFilePaths.get(entry.getKey()));
+                    } catch (IOException e) {
+                        LOG.warn("Could not add {} to the SST file cache.", entry.getKey(), e);
+                    }
+                }
+            }
+        }
+
         private void createUploadFilePaths(
                 Path[] files,
                 Map<StateHandleID, StreamStateHandle> sstFiles,
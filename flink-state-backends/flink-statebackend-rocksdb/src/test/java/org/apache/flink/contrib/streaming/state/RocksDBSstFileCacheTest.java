@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link RocksDBSstFileCache}. */
+public class RocksDBSstFileCacheTest extends TestLogger {
+
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRestoreCachedFile() throws Exception {
+        RocksDBSstFileCache cache = createCache(100);
+        byte[] content = new byte[] {1, 2, 3};
+        java.nio.file.Path source = createFile(content);
+
+        cache.add("a", source);
+        // the instance may delete its copy without affecting the cache
+        Files.delete(source);
+
+        java.nio.file.Path target = temporaryFolder.getRoot().toPath().resolve("db/000001.sst");
+        assertTrue(cache.tryRestore("a", target));
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(3, cache.getUsedBytes());
+    }
+
+    @Test
+    public void testRestoreMissingFile() throws Exception {
+        RocksDBSstFileCache cache = createCache(100);
+        java.nio.file.Path target = temporaryFolder.getRoot().toPath().resolve("000001.sst");
+
+        assertFalse(cache.tryRestore("a", target));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    public void testRestoreKeepsExistingTarget() throws Exception {
+        RocksDBSstFileCache cache = createCache(100);
+        cache.add("a", createFile(new byte[] {1, 2, 3}));
+
+        byte[] existingContent = new byte[] {4, 5};
+        java.nio.file.Path target = createFile(existingContent);
+        assertFalse(cache.tryRestore("a", target));
+        assertArrayEquals(existingContent, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedFiles() throws Exception {
+        RocksDBSstFileCache cache = createCache(10);
+        cache.add("a", createFile(new byte[4]));
+        cache.add("b", createFile(new byte[4]));
+        assertTrue(cache.tryRestore("a", temporaryFolder.getRoot().toPath().resolve("000001.sst")));
+
+        cache.add("c", createFile(new byte[4]));
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(8, cache.getUsedBytes());
+    }
+
+    @Test
+    public void testFilesLargerThanCapacityAreNotCached() throws Exception {
+        RocksDBSstFileCache cache = createCache(10);
+        cache.add("a", createFile(new byte[4]));
+        cache.add("b", createFile(new byte[11]));
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertEquals(4, cache.getUsedBytes());
+    }
+
+    @Test
+    public void testCacheIsDisabledByDefault() throws Exception {
+        String[] tmpDirectories = {temporaryFolder.getRoot().getAbsolutePath()};
+        assertNull(RocksDBSstFileCache.getOrCreate(new Configuration(), tmpDirectories));
+
+        Configuration configuration = new Configuration();
+        configuration.set(RocksDBOptions.SST_FILE_CACHE_SIZE, MemorySize.parse("1mb"));
+        RocksDBSstFileCache cache = RocksDBSstFileCache.getOrCreate(configuration, tmpDirectories);
+        assertNotNull(cache);
+        assertSame(cache, RocksDBSstFileCache.getOrCreate(configuration, tmpDirectories));
+    }
+
+    @Test
+    public void testCacheUsesOwnSubdirectory() throws Exception {
+        File parentDirectory = temporaryFolder.newFolder();
+        // e.g. the cache of another TaskManager sharing the directory
+        File otherCacheFile = new File(new File(parentDirectory, "other-cache"), "file");
+        assertTrue(otherCacheFile.getParentFile().mkdirs());
+        Files.write(otherCacheFile.toPath(), new byte[] {1});
+
+        Configuration configuration = new Configuration();
+        configuration.set(RocksDBOptions.SST_FILE_CACHE_SIZE, MemorySize.parse("1mb"));
+        configuration.set(
+                RocksDBOptions.SST_FILE_CACHE_DIRECTORY, parentDirectory.getAbsolutePath());
+        RocksDBSstFileCache cache =
+                RocksDBSstFileCache.getOrCreate(configuration, new String[] {"/unused"});
+
+        assertNotNull(cache);
+        assertEquals(parentDirectory.toPath(), cache.getDirectory().getParent());
+        assertTrue(Files.isDirectory(cache.getDirectory()));
+        assertTrue(otherCacheFile.exists());
+    }
+
+    @Test
+    public void testOnlyFileHandlesAreCached() {
+        assertEquals(
+                "file:/checkpoints/shared/abc",
+                RocksDBSstFileCache.getCacheKey(
+                        new FileStateHandle(new Path("file:/checkpoints/shared/abc"), 42L)));
+        assertNull(RocksDBSstFileCache.getCacheKey(new ByteStreamStateHandle("abc", new byte[0])));
+    }
+
+    private RocksDBSstFileCache createCache(long capacity) throws IOException {
+        return new RocksDBSstFileCache(temporaryFolder.newFolder().toPath(), capacity);
+    }
+
+    private java.nio.file.Path createFile(byte[] content) throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content);
+        return file.toPath();
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.flink.configuration.ConfigOption;
 import org.apache.flink.configuration.ConfigOptions;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.CoreOptions;
+import org.apache.flink.configuration.MemorySize;
 import org.apache.flink.configuration.ReadableConfig;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FileSystem;
@@ -37,12 +38,18 @@ import org.apache.flink.runtime.operators.testutils.MockEnvironmentBuilder;
 import org.apache.flink.runtime.query.KvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
 import org.apache.flink.runtime.state.filesystem.FsStateBackend;
 import org.apache.flink.runtime.state.heap.HeapPriorityQueueSetFactory;
+import org.apache.flink.runtime.state.heap.TieredPriorityQueueSetFactory;
 import org.apache.flink.runtime.state.memory.MemoryStateBackend;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.apache.flink.runtime.util.TestingTaskManagerRuntimeInfo;
+import org.apache.flink.streaming.api.operators.TimerHeapInternalTimer;
+import org.apache.flink.streaming.api.operators.TimerSerializer;
 import org.apache.flink.util.IOUtils;
 
 import org.junit.Assert;
@@ -151,11 +158,13 @@ public class RocksDBStateBackendConfigTest {
                 RocksDBOptions.TIMER_SERVICE_FACTORY.key());
 
         // Fix the option value string and ensure all are covered
-        Assert.assertEquals(2, EmbeddedRocksDBStateBackend.PriorityQueueStateType.values().length);
+        Assert.assertEquals(3, EmbeddedRocksDBStateBackend.PriorityQueueStateType.values().length);
         Assert.assertEquals(
                 "ROCKSDB", EmbeddedRocksDBStateBackend.PriorityQueueStateType.ROCKSDB.toString());
         Assert.assertEquals(
                 "HEAP", EmbeddedRocksDBStateBackend.PriorityQueueStateType.HEAP.toString());
+        Assert.assertEquals(
+                "TIERED", EmbeddedRocksDBStateBackend.PriorityQueueStateType.TIERED.toString());
 
         // Fix the default
         Assert.assertEquals(
@@ -183,9 +192,75 @@ public class RocksDBStateBackendConfigTest {
                 HeapPriorityQueueSetFactory.class,
                 keyedBackend.getPriorityQueueFactory().getClass());
         keyedBackend.dispose();
+
+        conf.set(
+                RocksDBOptions.TIMER_SERVICE_FACTORY,
+                EmbeddedRocksDBStateBackend.PriorityQueueStateType.TIERED);
+        conf.set(RocksDBOptions.TIMER_SERVICE_TIERED_MEMORY_SIZE, MemorySize.parse("1mb"));
+
+        rocksDbBackend =
+                new EmbeddedRocksDBStateBackend()
+                        .configure(conf, Thread.currentThread().getContextClassLoader());
+        Assert.assertEquals(
+                MemorySize.parse("1mb").getBytes(),
+                rocksDbBackend.getTieredTimerServiceMemorySize());
+        keyedBackend = createKeyedStateBackend(rocksDbBackend, env, IntSerializer.INSTANCE);
+        Assert.assertEquals(
+                TieredPriorityQueueSetFactory.class,
+                keyedBackend.getPriorityQueueFactory().getClass());
+        keyedBackend.dispose();
         env.close();
     }
 
+    /**
+     * Validates that the tiered timer service keeps its timers in memory while RocksDB occupies all
+     * the managed memory of the slot.
+     */
+    @Test
+    public void testTieredTimerServiceWithManagedMemory() throws Exception {
+        final MockEnvironment env = new MockEnvironmentBuilder().build();
+
+        Configuration conf = new Configuration();
+        conf.set(
+                RocksDBOptions.TIMER_SERVICE_FACTORY,
+                EmbeddedRocksDBStateBackend.PriorityQueueStateType.TIERED);
+        conf.set(RocksDBOptions.TIMER_SERVICE_TIERED_MEMORY_SIZE, MemorySize.parse("1mb"));
+        EmbeddedRocksDBStateBackend rocksDbBackend =
+                new EmbeddedRocksDBStateBackend()
+                        .configure(conf, Thread.currentThread().getContextClassLoader());
+        assertTrue(rocksDbBackend.getMemoryConfiguration().isUsingManagedMemory());
+
+        RocksDBKeyedStateBackend<Integer> keyedBackend =
+                createKeyedStateBackend(rocksDbBackend, env, IntSerializer.INSTANCE);
+        try {
+            assertTrue(
+                    env.getMemoryManager().availableMemory() < MemorySize.parse("1mb").getBytes());
+
+            KeyGroupedInternalPriorityQueue<TimerHeapInternalTimer<Integer, VoidNamespace>>
+                    priorityQueue =
+                            keyedBackend.create(
+                                    "timer",
+                                    new TimerSerializer<>(
+                                            keyedBackend.getKeySerializer(),
+                                            VoidNamespaceSerializer.INSTANCE));
+            for (int i = 1000; i > 0; i--) {
+                priorityQueue.add(new TimerHeapInternalTimer<>(i, i, VoidNamespace.INSTANCE));
+            }
+
+            // the timers fit into the memory of the timer service and are not spilled
+            File[] spillFiles = new File(keyedBackend.getInstanceBasePath(), "timers").listFiles();
+            assertTrue(spillFiles == null || spillFiles.length == 0);
+
+            for (int i = 1; i <= 1000; i++) {
+                assertEquals(i, priorityQueue.poll().getTimestamp());
+            }
+            assertTrue(priorityQueue.isEmpty());
+        } finally {
+            keyedBackend.dispose();
+            env.close();
+        }
+    }
+
     /** Validates that user custom configuration from code should override the flink-conf.yaml. */
     @Test
     public void testConfigureTimerServiceLoadingFromApplication() throws Exception {
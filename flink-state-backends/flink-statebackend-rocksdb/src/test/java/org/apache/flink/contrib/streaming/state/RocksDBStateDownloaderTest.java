@@ -24,6 +24,7 @@ import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FileStateHandle;
 import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
 import org.apache.flink.util.TestLogger;
 
@@ -31,11 +32,13 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +48,7 @@ import java.util.UUID;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /** Test class for {@link RocksDBStateDownloader}. */
@@ -145,6 +149,42 @@ public class RocksDBStateDownloaderTest extends TestLogger {
         }
     }
 
+    /** Tests that SST files are restored from the cache once they have been downloaded. */
+    @Test
+    public void testRestoreSstFilesFromCache() throws Exception {
+        byte[] content = new byte[] {1, 2, 3, 4};
+        File remoteFile = temporaryFolder.newFile();
+        Files.write(remoteFile.toPath(), content);
+        StreamStateHandle sstFile =
+                new FileStateHandle(
+                        new org.apache.flink.core.fs.Path(remoteFile.toURI()), content.length);
+
+        IncrementalRemoteKeyedStateHandle incrementalKeyedStateHandle =
+                new IncrementalRemoteKeyedStateHandle(
+                        UUID.randomUUID(),
+                        KeyGroupRange.of(0, 1),
+                        1,
+                        Collections.singletonMap(new StateHandleID("000001.sst"), sstFile),
+                        Collections.emptyMap(),
+                        new ByteStreamStateHandle("meta", new byte[0]));
+
+        RocksDBSstFileCache cache =
+                new RocksDBSstFileCache(temporaryFolder.newFolder().toPath(), 1024);
+        try (RocksDBStateDownloader rocksDBStateDownloader = new RocksDBStateDownloader(2, cache)) {
+            rocksDBStateDownloader.transferAllStateDataToDirectory(
+                    incrementalKeyedStateHandle,
+                    temporaryFolder.newFolder().toPath(),
+                    new CloseableRegistry());
+
+            // the second restore must not access the remote file anymore
+            assertTrue(remoteFile.delete());
+            Path dstPath = temporaryFolder.newFolder().toPath();
+            rocksDBStateDownloader.transferAllStateDataToDirectory(
+                    incrementalKeyedStateHandle, dstPath, new CloseableRegistry());
+            assertStateContentEqual(content, dstPath.resolve("000001.sst"));
+        }
+    }
+
     private void assertStateContentEqual(byte[] expected, Path path) throws IOException {
         byte[] actual = Files.readAllBytes(Paths.get(path.toUri()));
         assertArrayEquals(expected, actual);
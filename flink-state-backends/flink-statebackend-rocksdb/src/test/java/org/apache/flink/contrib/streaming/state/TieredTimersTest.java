@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.contrib.streaming.state.RocksDBStateBackend.PriorityQueueStateType;
+import org.apache.flink.runtime.checkpoint.CheckpointType;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.util.Collector;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the timers of the {@link PriorityQueueStateType#TIERED tiered timer service} fire in
+ * order, also after spilling and after restoring from a snapshot.
+ */
+@RunWith(Parameterized.class)
+public class TieredTimersTest {
+
+    private static final int NUMBER_OF_TIMERS = 10_000;
+
+    @Parameterized.Parameters(name = "checkpointType={0}")
+    public static Object[] checkpointTypes() {
+        return new Object[] {CheckpointType.CHECKPOINT, CheckpointType.SAVEPOINT};
+    }
+
+    @Parameterized.Parameter public CheckpointType checkpointType;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testTimersFireInOrderAfterRestore() throws Exception {
+        final List<Integer> timestamps = new ArrayList<>(NUMBER_OF_TIMERS);
+        for (int i = 0; i < NUMBER_OF_TIMERS; i++) {
+            timestamps.add(i);
+        }
+        Collections.shuffle(timestamps, new Random(42L));
+
+        final List<Integer> firedTimers = new ArrayList<>(NUMBER_OF_TIMERS);
+        final OperatorSubtaskState state;
+        try (KeyedOneInputStreamOperatorTestHarness<Integer, Integer, Integer> testHarness =
+                getTestHarness()) {
+            testHarness.open();
+            for (int timestamp : timestamps) {
+                testHarness.processElement(timestamp, 0L);
+            }
+            testHarness.processWatermark(NUMBER_OF_TIMERS / 2 - 1);
+            firedTimers.addAll(testHarness.extractOutputValues());
+            state =
+                    testHarness
+                            .snapshotWithLocalState(0L, 1L, checkpointType)
+                            .getJobManagerOwnedState();
+        }
+
+        try (KeyedOneInputStreamOperatorTestHarness<Integer, Integer, Integer> testHarness =
+                getTestHarness()) {
+            testHarness.initializeState(state);
+            testHarness.open();
+            testHarness.processWatermark(Long.MAX_VALUE);
+            firedTimers.addAll(testHarness.extractOutputValues());
+        }
+
+        Collections.sort(timestamps);
+        assertEquals(timestamps, firedTimers);
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<Integer, Integer, Integer> getTestHarness()
+            throws Exception {
+        final KeyedOneInputStreamOperatorTestHarness<Integer, Integer, Integer> testHarness =
+                new KeyedOneInputStreamOperatorTestHarness<>(
+                        new KeyedProcessOperator<>(
+                                new KeyedProcessFunction<Integer, Integer, Integer>() {
+                                    @Override
+                                    public void processElement(
+                                            Integer value, Context ctx, Collector<Integer> out) {
+                                        ctx.timerService().registerEventTimeTimer(value);
+                                    }
+
+                                    @Override
+                                    public void onTimer(
+                                            long timestamp,
+                                            OnTimerContext ctx,
+                                            Collector<Integer> out) {
+                                        out.collect((int) timestamp);
+                                    }
+                                }),
+                        (KeySelector<Integer, Integer>) value -> value % 100,
+                        BasicTypeInfo.INT_TYPE_INFO,
+                        128,
+                        1,
+                        0);
+
+        final RocksDBStateBackend backend =
+                new RocksDBStateBackend(temporaryFolder.newFolder().toURI());
+        backend.setPriorityQueueStateType(PriorityQueueStateType.TIERED);
+        // spill as much as possible
+        backend.setTieredTimerServiceMemorySize(0L);
+        testHarness.setStateBackend(backend);
+        return testHarness;
+    }
+}
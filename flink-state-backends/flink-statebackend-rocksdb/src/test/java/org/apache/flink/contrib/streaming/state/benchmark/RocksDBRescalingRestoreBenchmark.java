@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state.benchmark;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend;
+import org.apache.flink.contrib.streaming.state.RocksDBKeyedStateBackend;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.operators.testutils.MockEnvironment;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.filesystem.FsCheckpointStreamFactory;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RunnableFuture;
+
+/**
+ * Benchmark for restoring RocksDB incremental checkpoints with rescaling, to compare the restore
+ * through write batches with the restore by SST file ingestion.
+ *
+ * <p>{@link #prepareCheckpoint} creates an incremental checkpoint of a job with a single value
+ * state, and {@link #restore} is the benchmarked operation which restores one subtask of the job
+ * after rescaling.
+ */
+public class RocksDBRescalingRestoreBenchmark implements AutoCloseable {
+
+    public static final int MAX_PARALLELISM = 128;
+
+    public static final ValueStateDescriptor<Long> STATE_DESCRIPTOR =
+            new ValueStateDescriptor<>("valueState", Long.class);
+
+    private final File rootDir;
+
+    private final EmbeddedRocksDBStateBackend stateBackend;
+
+    private final MockEnvironment env;
+
+    private final List<KeyedStateHandle> checkpoint = new ArrayList<>();
+
+    private int numberOfRestores;
+
+    public RocksDBRescalingRestoreBenchmark(File rootDir, boolean useSstIngestion) {
+        this.rootDir = rootDir;
+        this.stateBackend = new EmbeddedRocksDBStateBackend(true);
+        this.stateBackend.setUseSstIngestionForRescaling(useSstIngestion);
+        this.stateBackend.setDbStoragePath(new File(rootDir, "db").getAbsolutePath());
+        this.env = MockEnvironment.builder().build();
+    }
+
+    /**
+     * Creates the incremental checkpoint of a job with the given parallelism, whose value state
+     * holds the given number of keys.
+     */
+    public void prepareCheckpoint(int parallelism, long numberOfKeys) throws Exception {
+        FsCheckpointStreamFactory streamFactory =
+                new FsCheckpointStreamFactory(
+                        FileSystem.getLocalFileSystem(),
+                        Path.fromLocalFile(new File(rootDir, "checkpoint")),
+                        Path.fromLocalFile(new File(rootDir, "shared")),
+                        0,
+                        4096);
+
+        for (int i = 0; i < parallelism; ++i) {
+            KeyGroupRange keyGroupRange =
+                    KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(
+                            MAX_PARALLELISM, parallelism, i);
+            RocksDBKeyedStateBackend<Long> backend =
+                    createKeyedStateBackend(keyGroupRange, new ArrayList<>());
+            try {
+                ValueState<Long> state =
+                        StateBackendBenchmarkUtils.getValueState(backend, STATE_DESCRIPTOR);
+                for (long key = 0; key < numberOfKeys; ++key) {
+                    if (keyGroupRange.contains(
+                            KeyGroupRangeAssignment.assignToKeyGroup(key, MAX_PARALLELISM))) {
+                        backend.setCurrentKey(key);
+                        state.update(key);
+                    }
+                }
+
+                RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot =
+                        backend.snapshot(
+                                1L,
+                                System.currentTimeMillis(),
+                                streamFactory,
+                                CheckpointOptions.forCheckpointWithDefaultLocation());
+                snapshot.run();
+                checkpoint.add(snapshot.get().getJobManagerOwnedSnapshot());
+            } finally {
+                backend.dispose();
+            }
+        }
+    }
+
+    /**
+     * Restores the given subtask of the job after rescaling it to the given parallelism. The
+     * returned backend must be disposed by the caller.
+     */
+    public RocksDBKeyedStateBackend<Long> restore(int parallelism, int subtaskIndex)
+            throws IOException {
+        KeyGroupRange keyGroupRange =
+                KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(
+                        MAX_PARALLELISM, parallelism, subtaskIndex);
+        List<KeyedStateHandle> stateHandles = new ArrayList<>();
+        for (KeyedStateHandle stateHandle : checkpoint) {
+            if (stateHandle.getIntersection(keyGroupRange) != null) {
+                stateHandles.add(stateHandle);
+            }
+        }
+        numberOfRestores++;
+        return createKeyedStateBackend(keyGroupRange, stateHandles);
+    }
+
+    private RocksDBKeyedStateBackend<Long> createKeyedStateBackend(
+            KeyGroupRange keyGroupRange, List<KeyedStateHandle> stateHandles) throws IOException {
+        return (RocksDBKeyedStateBackend<Long>)
+                stateBackend.createKeyedStateBackend(
+                        env,
+                        env.getJobID(),
+                        "benchmark-" + numberOfRestores,
+                        LongSerializer.INSTANCE,
+                        MAX_PARALLELISM,
+                        keyGroupRange,
+                        env.getTaskKvStateRegistry(),
+                        TtlTimeProvider.DEFAULT,
+                        new UnregisteredMetricsGroup(),
+                        stateHandles,
+                        new CloseableRegistry());
+    }
+
+    @Override
+    public void close() throws Exception {
+        env.close();
+        Path path = Path.fromLocalFile(rootDir);
+        path.getFileSystem().delete(path, true);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state.benchmark;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.contrib.streaming.state.RocksDBKeyedStateBackend;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.apache.flink.contrib.streaming.state.benchmark.RocksDBRescalingRestoreBenchmark.MAX_PARALLELISM;
+import static org.apache.flink.contrib.streaming.state.benchmark.RocksDBRescalingRestoreBenchmark.STATE_DESCRIPTOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/** Test for {@link RocksDBRescalingRestoreBenchmark}. */
+@RunWith(Parameterized.class)
+public class RocksDBRescalingRestoreBenchmarkTest extends TestLogger {
+
+    @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+    @Parameterized.Parameters(name = "useSstIngestion={0}")
+    public static Collection<Boolean> parameters() {
+        return Arrays.asList(false, true);
+    }
+
+    @Parameterized.Parameter public boolean useSstIngestion;
+
+    @Test
+    public void testRestoreWithRescaling() throws Exception {
+        try (RocksDBRescalingRestoreBenchmark benchmark =
+                new RocksDBRescalingRestoreBenchmark(temp.newFolder(), useSstIngestion)) {
+            benchmark.prepareCheckpoint(4, 1000);
+
+            // scale out, the subtask restores parts of two state handles
+            verifyRestoredState(benchmark.restore(6, 1), 1000);
+            // scale in, the subtask restores three state handles
+            verifyRestoredState(benchmark.restore(2, 1), 1000);
+        }
+    }
+
+    private static void verifyRestoredState(
+            RocksDBKeyedStateBackend<Long> backend, long numberOfKeys) throws Exception {
+        try {
+            ValueState<Long> state =
+                    StateBackendBenchmarkUtils.getValueState(backend, STATE_DESCRIPTOR);
+            for (long key = 0; key < numberOfKeys; ++key) {
+                backend.setCurrentKey(key);
+                if (backend.getKeyGroupRange()
+                        .contains(KeyGroupRangeAssignment.assignToKeyGroup(key, MAX_PARALLELISM))) {
+                    assertEquals(Long.valueOf(key), state.value());
+                } else {
+                    assertNull(state.value());
+                }
+            }
+        } finally {
+            backend.dispose();
+        }
+    }
+}
@@ -58,6 +58,8 @@ import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.Serializable;
 import java.util.Locale;
 import java.util.Optional;
@@ -144,6 +146,11 @@ public abstract class AbstractStreamOperator<OUT>
 
     protected transient ProcessingTimeService processingTimeService;
 
+    // ---------------- asynchronous state access ------------------
+
+    /** Controller of asynchronous state reads, if the operator created one. */
+    @Nullable private transient AsyncStateAccessController<?> asyncStateController;
+
     // ---------------- two-input operator watermarks ------------------
 
     // We keep track of watermarks from both inputs, the combined input is the minimum
@@ -536,6 +543,41 @@ public abstract class AbstractStreamOperator<OUT>
         return stateHandler.getCurrentKey();
     }
 
+    /**
+     * Creates the {@link AsyncStateAccessController} of this operator, which processes the results
+     * of asynchronous state reads in the mailbox thread of the task. The runtime drains the pending
+     * requests of the controller before it passes checkpoint barriers, watermarks and the end of
+     * input to the operator and before it closes the operator, see {@link
+     * AsyncStateAccessController#drain(Object)}.
+     *
+     * @param maxInFlightRequests The maximum number of pending requests.
+     */
+    @SuppressWarnings("unchecked")
+    protected <K> AsyncStateAccessController<K> createAsyncStateController(
+            int maxInFlightRequests) {
+        checkState(
+                stateHandler.getKeyedStateBackend() != null,
+                "Asynchronous state access is only supported on keyed streams.");
+        checkState(asyncStateController == null, "The controller has already been created.");
+        AsyncStateAccessController<K> controller =
+                new AsyncStateAccessController<>(
+                        getContainingTask()
+                                .getMailboxExecutorFactory()
+                                .createExecutor(config.getChainIndex()),
+                        () -> (K) getCurrentKey(),
+                        this::setCurrentKey,
+                        maxInFlightRequests);
+        asyncStateController = controller;
+        return controller;
+    }
+
+    /** Completes all pending requests of the controller of this operator, if it has one. */
+    final void drainAsyncStateRequests() throws InterruptedException {
+        if (asyncStateController != null) {
+            asyncStateController.drain();
+        }
+    }
+
     public KeyedStateStore getKeyedStateStore() {
         if (stateHandler == null) {
             return null;
@@ -624,6 +666,8 @@ public abstract class AbstractStreamOperator<OUT>
     public void processWatermark(Watermark mark) throws Exception {
         if (timeServiceManager != null) {
             timeServiceManager.advanceWatermark(mark);
+            // the fired timers may have submitted state requests which have to complete first
+            drainAsyncStateRequests();
         }
         output.emitWatermark(mark);
     }
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Issues asynchronous state reads of a keyed operator, e.g. via {@link
+ * InternalValueState#asyncValue(Object)}, and processes their results in the mailbox thread.
+ *
+ * <p>The controller gives the following guarantees:
+ *
+ * <ul>
+ *   <li>Requests of the same key are processed in the order they were submitted. The read of a
+ *       request is only issued after the callback of the previous request of the same key has
+ *       finished, so it observes all state modifications of that callback.
+ *   <li>The callback of a request runs in the mailbox thread with the current key of the operator
+ *       set to the key of the request. The previous current key is restored afterwards, so the
+ *       caller of {@link #submit} or {@link #drain()} continues with its own key.
+ *   <li>If a read or a callback fails, the requests of the same key submitted after it are
+ *       discarded and the failure is propagated from the mailbox.
+ *   <li>At most {@code maxInFlightRequests} requests are pending at any time. Submitting further
+ *       requests yields to the mailbox until earlier requests have completed.
+ * </ul>
+ *
+ * <p>Requests of different keys may complete in any order. The controller has to be drained before
+ * anything that must observe all previously submitted requests, such as checkpoint barriers,
+ * watermarks, and the end of input. For the controller created by {@link
+ * AbstractStreamOperator#createAsyncStateController(int)}, the runtime does this via {@link
+ * #drain(Object)}, independent of which methods of {@link AbstractStreamOperator} the operator
+ * overrides.
+ *
+ * <p>This class is not thread safe and must only be accessed from the mailbox thread.
+ *
+ * @param <K> The type of the keys.
+ */
+@Internal
+public final class AsyncStateAccessController<K> {
+
+    private final MailboxExecutor mailboxExecutor;
+
+    private final Supplier<K> currentKeyGetter;
+
+    private final Consumer<K> currentKeySetter;
+
+    private final int maxInFlightRequests;
+
+    /**
+     * Requests waiting for the previous request of the same key to complete. A key has an entry,
+     * possibly an empty one, as long as a request of the key is in flight.
+     */
+    private final Map<K, ArrayDeque<Request<K, ?>>> blockedRequests = new HashMap<>();
+
+    /** The number of requests whose read has been issued, but whose callback has not run yet. */
+    private int numInFlightRequests;
+
+    /** The number of requests waiting in {@link #blockedRequests}. */
+    private int numBlockedRequests;
+
+    public AsyncStateAccessController(
+            MailboxExecutor mailboxExecutor,
+            Supplier<K> currentKeyGetter,
+            Consumer<K> currentKeySetter,
+            int maxInFlightRequests) {
+        checkArgument(maxInFlightRequests > 0, "The maximum number of requests must be positive.");
+        this.mailboxExecutor = checkNotNull(mailboxExecutor);
+        this.currentKeyGetter = checkNotNull(currentKeyGetter);
+        this.currentKeySetter = checkNotNull(currentKeySetter);
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * Submits an asynchronous state read for the given key and the callback processing its result.
+     *
+     * <p>The read may be issued after this method returns, once the previous request of the same
+     * key has been processed. It should therefore not depend on mutable context of the caller, like
+     * the current namespace of a state.
+     *
+     * @param key The key of the request.
+     * @param read Issues the state read, e.g. {@code () -> state.asyncValue(key)}.
+     * @param callback Processes the result of the read in the mailbox thread.
+     * @throws InterruptedException If interrupted while waiting for earlier requests to complete.
+     */
+    public <V> void submit(
+            K key,
+            Supplier<CompletableFuture<V>> read,
+            ThrowingConsumer<V, ? extends Exception> callback)
+            throws InterruptedException {
+        while (numInFlightRequests + numBlockedRequests >= maxInFlightRequests) {
+            mailboxExecutor.yield();
+        }
+
+        Request<K, V> request = new Request<>(key, read, callback);
+        ArrayDeque<Request<K, ?>> blocked = blockedRequests.get(key);
+        if (blocked == null) {
+            blockedRequests.put(key, new ArrayDeque<>());
+            start(request);
+        } else {
+            blocked.add(request);
+            numBlockedRequests++;
+        }
+    }
+
+    /**
+     * Processes mails until all submitted requests have been completed and their callbacks have
+     * run.
+     *
+     * @throws InterruptedException If interrupted while waiting for requests to complete.
+     */
+    public void drain() throws InterruptedException {
+        while (numInFlightRequests > 0) {
+            mailboxExecutor.yield();
+        }
+    }
+
+    /**
+     * Drains the controller of the given operator, if the operator is an {@link
+     * AbstractStreamOperator} which created one. The runtime calls this before it passes checkpoint
+     * barriers, watermarks and the end of input to the operator and before it closes the operator.
+     *
+     * @param operator The operator, or the input of an operator, which receives the event.
+     * @throws InterruptedException If interrupted while waiting for requests to complete.
+     */
+    public static void drain(Object operator) throws InterruptedException {
+        if (operator instanceof AbstractStreamOperator) {
+            ((AbstractStreamOperator<?>) operator).drainAsyncStateRequests();
+        }
+    }
+
+    /** Returns the number of submitted requests whose callbacks have not run yet. */
+    public int getNumberOfPendingRequests() {
+        return numInFlightRequests + numBlockedRequests;
+    }
+
+    private <V> void start(Request<K, V> request) {
+        numInFlightRequests++;
+        CompletableFuture<V> result;
+        try {
+            result = request.read.get();
+        } catch (Throwable t) {
+            ExceptionUtils.rethrowIfFatalErrorOrOOM(t);
+            result = new CompletableFuture<>();
+            result.completeExceptionally(t);
+        }
+        result.whenComplete(
+                (value, error) ->
+                        mailboxExecutor.execute(
+                                () -> complete(request, value, error),
+                                "asynchronous state access of key %s",
+                                request.key));
+    }
+
+    private <V> void complete(Request<K, V> request, V value, Throwable error) throws Exception {
+        numInFlightRequests--;
+        if (error != null) {
+            discardBlockedRequests(request.key);
+            throw new IOException(
+                    "Could not access the state of key " + request.key + " asynchronously.",
+                    ExceptionUtils.stripCompletionException(error));
+        }
+
+        // the callback may run while the caller of submit() or drain() yields, which continues
+        // with its own key afterwards
+        K previousKey = currentKeyGetter.get();
+        currentKeySetter.accept(request.key);
+        try {
+            request.callback.accept(value);
+        } catch (Throwable t) {
+            discardBlockedRequests(request.key);
+            throw t;
+        } finally {
+            if (previousKey != null) {
+                currentKeySetter.accept(previousKey);
+            }
+        }
+
+        ArrayDeque<Request<K, ?>> blocked = blockedRequests.get(request.key);
+        Request<K, ?> next = blocked.poll();
+        if (next == null) {
+            blockedRequests.remove(request.key);
+        } else {
+            numBlockedRequests--;
+            start(next);
+        }
+    }
+
+    /**
+     * Discards the requests waiting for a failed request of the given key. They would observe the
+     * state without the modifications of the failed request, so they are never issued.
+     */
+    private void discardBlockedRequests(K key) {
+        ArrayDeque<Request<K, ?>> blocked = blockedRequests.remove(key);
+        if (blocked != null) {
+            numBlockedRequests -= blocked.size();
+        }
+    }
+
+    private static final class Request<K, V> {
+
+        private final K key;
+
+        private final Supplier<CompletableFuture<V>> read;
+
+        private final ThrowingConsumer<V, ? extends Exception> callback;
+
+        private Request(
+                K key,
+                Supplier<CompletableFuture<V>> read,
+                ThrowingConsumer<V, ? extends Exception> callback) {
+            this.key = key;
+            this.read = read;
+            this.callback = callback;
+        }
+    }
+}
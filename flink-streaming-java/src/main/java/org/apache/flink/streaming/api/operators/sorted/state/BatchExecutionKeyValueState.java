@@ -24,6 +24,9 @@ import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.internal.InternalValueState;
 
+import java.util.Collection;
+import java.util.Map;
+
 /** A {@link ValueState} which keeps value for a single key at a time. */
 class BatchExecutionKeyValueState<K, N, T> extends AbstractBatchExecutionKeyState<K, N, T>
         implements InternalValueState<K, N, T> {
@@ -46,6 +49,18 @@ class BatchExecutionKeyValueState<K, N, T> extends AbstractBatchExecutionKeyStat
         setCurrentNamespaceValue(value);
     }
 
+    @Override
+    public Map<K, T> getAll(Collection<K> keys) {
+        throw new UnsupportedOperationException(
+                "Accessing the state of multiple keys is not supported in BATCH execution.");
+    }
+
+    @Override
+    public void putAll(Map<K, T> values) {
+        throw new UnsupportedOperationException(
+                "Accessing the state of multiple keys is not supported in BATCH execution.");
+    }
+
     @SuppressWarnings("unchecked")
     static <T, K, N, SV, S extends State, IS extends S> IS create(
             TypeSerializer<K> keySerializer,
@@ -31,6 +31,7 @@ import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 import org.apache.flink.streaming.api.graph.StreamConfig;
+import org.apache.flink.streaming.api.operators.AsyncStateAccessController;
 import org.apache.flink.streaming.api.operators.BoundedMultiInput;
 import org.apache.flink.streaming.api.operators.InputSelectable;
 import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
@@ -294,6 +295,7 @@ public class StreamTwoInputProcessorFactory {
         @Override
         public void emitWatermark(Watermark watermark) throws Exception {
             inputWatermarkGauge.setCurrentWatermark(watermark.getTimestamp());
+            AsyncStateAccessController.drain(operator);
             if (inputIndex == 0) {
                 operator.processWatermark1(watermark);
             } else {
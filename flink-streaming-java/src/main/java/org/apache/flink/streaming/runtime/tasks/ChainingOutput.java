@@ -22,6 +22,7 @@ import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.metrics.groups.OperatorIOMetricGroup;
 import org.apache.flink.runtime.metrics.groups.OperatorMetricGroup;
+import org.apache.flink.streaming.api.operators.AsyncStateAccessController;
 import org.apache.flink.streaming.api.operators.Input;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
@@ -120,6 +121,7 @@ class ChainingOutput<T> implements WatermarkGaugeExposingOutput<StreamRecord<T>>
         try {
             watermarkGauge.setCurrentWatermark(mark.getTimestamp());
             if (streamStatusProvider.getStreamStatus().isActive()) {
+                AsyncStateAccessController.drain(input);
                 input.processWatermark(mark);
             }
         } catch (Exception e) {
@@ -407,7 +407,7 @@ public class OperatorChain<OUT, OP extends StreamOperator<OUT>>
         // to prepare the checkpoint
         for (StreamOperatorWrapper<?, ?> operatorWrapper : getAllOperators()) {
             if (!operatorWrapper.isClosed()) {
-                operatorWrapper.getStreamOperator().prepareSnapshotPreBarrier(checkpointId);
+                operatorWrapper.prepareSnapshotPreBarrier(checkpointId);
             }
         }
     }
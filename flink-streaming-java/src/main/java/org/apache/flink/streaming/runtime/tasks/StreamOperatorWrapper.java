@@ -18,6 +18,7 @@
 package org.apache.flink.streaming.runtime.tasks;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.streaming.api.operators.AsyncStateAccessController;
 import org.apache.flink.streaming.api.operators.BoundedMultiInput;
 import org.apache.flink.streaming.api.operators.BoundedOneInput;
 import org.apache.flink.streaming.api.operators.MailboxExecutor;
@@ -87,6 +88,7 @@ public class StreamOperatorWrapper<OUT, OP extends StreamOperator<OUT>> {
      * @param inputId the input ID starts from 1 which indicates the first input.
      */
     public void endOperatorInput(int inputId) throws Exception {
+        AsyncStateAccessController.drain(wrapped);
         if (wrapped instanceof BoundedOneInput) {
             ((BoundedOneInput) wrapped).endInput();
         } else if (wrapped instanceof BoundedMultiInput) {
@@ -94,6 +96,17 @@ public class StreamOperatorWrapper<OUT, OP extends StreamOperator<OUT>> {
         }
     }
 
+    /**
+     * Lets the wrapped operator prepare the checkpoint. Pending asynchronous state requests of the
+     * operator are completed before and after, because their callbacks may emit records or modify
+     * state.
+     */
+    public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+        AsyncStateAccessController.drain(wrapped);
+        wrapped.prepareSnapshotPreBarrier(checkpointId);
+        AsyncStateAccessController.drain(wrapped);
+    }
+
     public void notifyCheckpointComplete(long checkpointId) throws Exception {
         if (!closed) {
             wrapped.notifyCheckpointComplete(checkpointId);
@@ -209,8 +222,10 @@ public class StreamOperatorWrapper<OUT, OP extends StreamOperator<OUT>> {
     private void closeOperator(StreamTaskActionExecutor actionExecutor) throws Exception {
         actionExecutor.runThrowing(
                 () -> {
+                    AsyncStateAccessController.drain(wrapped);
                     closed = true;
                     wrapped.close();
+                    AsyncStateAccessController.drain(wrapped);
                 });
     }
 
@@ -19,6 +19,8 @@ package org.apache.flink.streaming.runtime.tasks;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.Path;
@@ -44,6 +46,7 @@ import org.apache.flink.runtime.io.network.api.writer.RecordWriterDelegate;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.api.writer.SingleRecordWriter;
 import org.apache.flink.runtime.io.network.partition.ChannelStateHolder;
+import org.apache.flink.runtime.io.network.partition.consumer.IndexedInputGate;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.runtime.jobgraph.OperatorID;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
@@ -240,6 +243,10 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>> extends Ab
 
     private long latestAsyncCheckpointStartDelayNanos;
 
+    private final boolean bufferDebloatEnabled;
+
+    private final long bufferDebloatPeriod;
+
     // ------------------------------------------------------------------------
 
     /**
@@ -354,6 +361,14 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>> extends Ab
         injectChannelStateWriterIntoChannels();
 
         environment.getMetricGroup().getIOMetricGroup().setEnableBusyTime(true);
+
+        Configuration taskManagerConf = environment.getTaskManagerInfo().getConfiguration();
+        this.bufferDebloatEnabled =
+                taskManagerConf.get(NettyShuffleEnvironmentOptions.BUFFER_DEBLOAT_ENABLED);
+        this.bufferDebloatPeriod =
+                taskManagerConf
+                        .get(NettyShuffleEnvironmentOptions.BUFFER_DEBLOAT_PERIOD)
+                        .toMillis();
     }
 
     private void injectChannelStateWriterIntoChannels() {
@@ -572,6 +587,36 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>> extends Ab
                 });
 
         isRunning = true;
+
+        if (bufferDebloatEnabled) {
+            scheduleBufferDebloater();
+        }
+    }
+
+    private void scheduleBufferDebloater() {
+        // the recalculation runs in the mailbox, because the throughput is measured by the task
+        // thread; the next recalculation is only scheduled once the previous one has finished
+        timerService.registerTimer(
+                timerService.getCurrentProcessingTime() + bufferDebloatPeriod,
+                timestamp -> {
+                    try {
+                        mainMailboxExecutor.execute(
+                                () -> {
+                                    debloat();
+                                    scheduleBufferDebloater();
+                                },
+                                "Buffer size recalculation");
+                    } catch (RejectedExecutionException e) {
+                        // this happens during shutdown, we can swallow this
+                    }
+                });
+    }
+
+    @VisibleForTesting
+    void debloat() {
+        for (IndexedInputGate inputGate : getEnvironment().getAllInputGates()) {
+            inputGate.triggerDebloating();
+        }
     }
 
     @Override
@@ -1322,6 +1367,8 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>> extends Ab
                         .setChannelSelector(outputPartitioner)
                         .setTimeout(bufferTimeout)
                         .setTaskName(taskName)
+                        .setObjectExchange(
+                                environment.getExecutionConfig().isLocalObjectExchangeEnabled())
                         .build(bufferWriter);
         output.setMetricGroup(environment.getMetricGroup().getIOMetricGroup());
         return output;
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.streaming.runtime.tasks.StreamTaskActionExecutor;
+import org.apache.flink.streaming.runtime.tasks.mailbox.MailboxExecutorImpl;
+import org.apache.flink.streaming.runtime.tasks.mailbox.TaskMailboxImpl;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link AsyncStateAccessController}. */
+public class AsyncStateAccessControllerTest extends TestLogger {
+
+    private MailboxExecutor mailboxExecutor;
+
+    private String currentKey;
+
+    @Before
+    public void setUp() {
+        mailboxExecutor =
+                new MailboxExecutorImpl(
+                        new TaskMailboxImpl(), 0, StreamTaskActionExecutor.IMMEDIATE);
+        currentKey = null;
+    }
+
+    @Test
+    public void testRequestsOfSameKeyAreProcessedInOrder() throws Exception {
+        AsyncStateAccessController<String> controller = createController(10);
+        List<CompletableFuture<Integer>> reads = new ArrayList<>();
+        List<String> processed = new ArrayList<>();
+
+        controller.submit("a", recordRead(reads), value -> processed.add(currentKey + value));
+        controller.submit("b", recordRead(reads), value -> processed.add(currentKey + value));
+        controller.submit("a", recordRead(reads), value -> processed.add(currentKey + value));
+
+        // the second read of key "a" is only issued after the first one has been processed
+        assertEquals(2, reads.size());
+        assertEquals(3, controller.getNumberOfPendingRequests());
+
+        reads.get(1).complete(2);
+        reads.get(0).complete(1);
+        mailboxExecutor.yield();
+        mailboxExecutor.yield();
+        assertEquals(Arrays.asList("b2", "a1"), processed);
+        assertEquals(3, reads.size());
+
+        reads.get(2).complete(3);
+        controller.drain();
+        assertEquals(Arrays.asList("b2", "a1", "a3"), processed);
+        assertEquals(0, controller.getNumberOfPendingRequests());
+    }
+
+    @Test
+    public void testSubmitWaitsForPendingRequests() throws Exception {
+        AsyncStateAccessController<String> controller = createController(2);
+        List<String> processed = new ArrayList<>();
+
+        for (String key : Arrays.asList("a", "b", "c", "d")) {
+            controller.submit(key, () -> CompletableFuture.completedFuture(key), processed::add);
+            assertTrue(controller.getNumberOfPendingRequests() <= 2);
+        }
+        assertEquals(Arrays.asList("a", "b"), processed);
+
+        controller.drain();
+        assertEquals(Arrays.asList("a", "b", "c", "d"), processed);
+    }
+
+    @Test
+    public void testFailedReadFailsProcessing() throws Exception {
+        AsyncStateAccessController<String> controller = createController(10);
+        IOException cause = new IOException("expected");
+
+        controller.submit(
+                "a",
+                () -> FutureUtils.completedExceptionally(cause),
+                value -> fail("The callback of a failed read must not be called."));
+        try {
+            controller.drain();
+            fail("Expected the failure of the read to be propagated.");
+        } catch (RuntimeException e) {
+            assertTrue(ExceptionUtils.findThrowable(e, t -> t == cause).isPresent());
+        }
+        assertEquals(0, controller.getNumberOfPendingRequests());
+    }
+
+    @Test
+    public void testCurrentKeyIsRestoredAfterCallbacks() throws Exception {
+        AsyncStateAccessController<String> controller = createController(1);
+        List<String> keysOfCallbacks = new ArrayList<>();
+        Supplier<CompletableFuture<Integer>> read = () -> CompletableFuture.completedFuture(1);
+
+        currentKey = "caller";
+        controller.submit("a", read, v -> keysOfCallbacks.add(currentKey));
+        // the controller is back-pressured, so the callback of "a" runs while submitting "b"
+        controller.submit("b", read, v -> keysOfCallbacks.add(currentKey));
+        assertEquals("caller", currentKey);
+        assertEquals(Collections.singletonList("a"), keysOfCallbacks);
+
+        controller.drain();
+        assertEquals("caller", currentKey);
+        assertEquals(Arrays.asList("a", "b"), keysOfCallbacks);
+    }
+
+    @Test
+    public void testFailedReadDiscardsBlockedRequestsOfSameKey() throws Exception {
+        AsyncStateAccessController<String> controller = createController(10);
+        List<CompletableFuture<Integer>> reads = new ArrayList<>();
+        List<String> processed = new ArrayList<>();
+        IOException cause = new IOException("expected");
+
+        controller.submit(
+                "a", recordRead(reads), v -> fail("The callback of a failed read must not run."));
+        controller.submit(
+                "a", recordRead(reads), v -> fail("Requests after a failed one must not run."));
+        controller.submit("b", recordRead(reads), v -> processed.add(currentKey + v));
+        assertEquals(3, controller.getNumberOfPendingRequests());
+
+        reads.get(0).completeExceptionally(cause);
+        reads.get(1).complete(2);
+        try {
+            controller.drain();
+            fail("Expected the failure of the read to be propagated.");
+        } catch (RuntimeException e) {
+            assertTrue(ExceptionUtils.findThrowable(e, t -> t == cause).isPresent());
+        }
+        assertEquals(1, controller.getNumberOfPendingRequests());
+
+        controller.drain();
+        assertEquals(Collections.singletonList("b2"), processed);
+        assertEquals(0, controller.getNumberOfPendingRequests());
+
+        // the key is not blocked anymore, so a new request is issued immediately
+        controller.submit("a", recordRead(reads), v -> processed.add(currentKey + v));
+        assertEquals(3, reads.size());
+        reads.get(2).complete(3);
+        controller.drain();
+        assertEquals(Arrays.asList("b2", "a3"), processed);
+    }
+
+    @Test
+    public void testFailedCallbackRestoresCurrentKey() throws Exception {
+        AsyncStateAccessController<String> controller = createController(10);
+        List<CompletableFuture<Integer>> reads = new ArrayList<>();
+        RuntimeException cause = new RuntimeException("expected");
+
+        controller.submit(
+                "a",
+                recordRead(reads),
+                v -> {
+                    throw cause;
+                });
+        controller.submit("a", recordRead(reads), v -> fail("Must not run after a failure."));
+
+        currentKey = "caller";
+        reads.get(0).complete(1);
+        try {
+            controller.drain();
+            fail("Expected the failure of the callback to be propagated.");
+        } catch (RuntimeException e) {
+            assertTrue(ExceptionUtils.findThrowable(e, t -> t == cause).isPresent());
+        }
+        assertEquals("caller", currentKey);
+        assertEquals(0, controller.getNumberOfPendingRequests());
+        assertEquals(1, reads.size());
+    }
+
+    private AsyncStateAccessController<String> createController(int maxInFlightRequests) {
+        return new AsyncStateAccessController<>(
+                mailboxExecutor, () -> currentKey, key -> currentKey = key, maxInFlightRequests);
+    }
+
+    private static Supplier<CompletableFuture<Integer>> recordRead(
+            List<CompletableFuture<Integer>> reads) {
+        return () -> {
+            CompletableFuture<Integer> read = new CompletableFuture<>();
+            reads.add(read);
+            return read;
+        };
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks;
+
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.AsyncStateAccessController;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the runtime drains the {@link AsyncStateAccessController} of an operator before
+ * watermarks, checkpoint barriers and the end of input reach it, even if the operator overrides the
+ * corresponding methods without calling super.
+ */
+public class AsyncStateAccessTaskTest extends TestLogger {
+
+    private static ScheduledExecutorService stateReadExecutor;
+
+    @BeforeClass
+    public static void setupExecutor() {
+        stateReadExecutor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterClass
+    public static void shutdownExecutor() {
+        stateReadExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testRequestsAreDrainedByTheRuntime() throws Exception {
+        KeySelector<Integer, Integer> keySelector = value -> value % 2;
+        try (StreamTaskMailboxTestHarness<String> testHarness =
+                new StreamTaskMailboxTestHarnessBuilder<>(
+                                OneInputStreamTask::new, BasicTypeInfo.STRING_TYPE_INFO)
+                        .addInput(BasicTypeInfo.INT_TYPE_INFO, 1, keySelector)
+                        .setKeyType(BasicTypeInfo.INT_TYPE_INFO)
+                        .setupOutputForSingletonOperatorChain(new AsyncCountingOperator())
+                        .build()) {
+            for (int i = 0; i < 6; i++) {
+                testHarness.processElement(new StreamRecord<>(i));
+            }
+            testHarness.processElement(new Watermark(100));
+
+            for (int i = 6; i < 10; i++) {
+                testHarness.processElement(new StreamRecord<>(i));
+            }
+            testHarness.processEvent(
+                    new CheckpointBarrier(
+                            1, 1, CheckpointOptions.forCheckpointWithDefaultLocation()));
+
+            for (int i = 10; i < 12; i++) {
+                testHarness.processElement(new StreamRecord<>(i));
+            }
+            testHarness.waitForTaskCompletion();
+            testHarness.finishProcessing();
+
+            // requests of different keys may complete in any order, so the records between two
+            // events are ordered by key, which keeps the order of the records of each key
+            List<String> output = new ArrayList<>();
+            List<String> records = new ArrayList<>();
+            for (Object element : testHarness.getOutput()) {
+                if (element instanceof StreamRecord) {
+                    String value = (String) ((StreamRecord<?>) element).getValue();
+                    if (value.contains(" pending=")) {
+                        records.sort(Comparator.comparing(record -> record.split(":")[0]));
+                        output.addAll(records);
+                        records.clear();
+                        output.add(value);
+                    } else {
+                        records.add(value);
+                    }
+                } else if (element instanceof Watermark) {
+                    output.add("watermark " + ((Watermark) element).getTimestamp());
+                }
+            }
+
+            // the counts of each key increase by one, so the requests of a key ran in order, and
+            // all requests completed before the watermark, the barrier and the close
+            assertEquals(
+                    Arrays.asList(
+                            "0:1",
+                            "0:2",
+                            "0:3",
+                            "1:1",
+                            "1:2",
+                            "1:3",
+                            "watermark pending=0",
+                            "watermark 100",
+                            "0:4",
+                            "0:5",
+                            "1:4",
+                            "1:5",
+                            "barrier pending=0",
+                            "0:6",
+                            "1:6",
+                            "close pending=0"),
+                    output);
+        }
+    }
+
+    /**
+     * Counts the records of each key with asynchronous state reads which complete on another
+     * thread. Overrides the methods which need drained requests without calling super.
+     */
+    private static class AsyncCountingOperator extends AbstractStreamOperator<String>
+            implements OneInputStreamOperator<Integer, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient InternalValueState<Integer, VoidNamespace, Integer> countState;
+
+        private transient AsyncStateAccessController<Integer> controller;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void open() throws Exception {
+            super.open();
+            countState =
+                    (InternalValueState<Integer, VoidNamespace, Integer>)
+                            getPartitionedState(
+                                    VoidNamespace.INSTANCE,
+                                    VoidNamespaceSerializer.INSTANCE,
+                                    new ValueStateDescriptor<>("count", Integer.class));
+            controller = createAsyncStateController(100);
+        }
+
+        @Override
+        public void processElement(StreamRecord<Integer> element) throws Exception {
+            Integer key = (Integer) getCurrentKey();
+            controller.submit(
+                    key,
+                    () -> countState.asyncValue(key).thenCompose(this::completeLater),
+                    count -> {
+                        int newCount = count == null ? 1 : count + 1;
+                        countState.update(newCount);
+                        output.collect(new StreamRecord<>(key + ":" + newCount));
+                    });
+        }
+
+        private CompletableFuture<Integer> completeLater(Integer value) {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            stateReadExecutor.schedule(() -> future.complete(value), 5, TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        @Override
+        public void processWatermark(Watermark mark) {
+            collectPendingRequests("watermark");
+            output.emitWatermark(mark);
+        }
+
+        @Override
+        public void prepareSnapshotPreBarrier(long checkpointId) {
+            collectPendingRequests("barrier");
+        }
+
+        @Override
+        public void close() {
+            collectPendingRequests("close");
+        }
+
+        private void collectPendingRequests(String event) {
+            output.collect(
+                    new StreamRecord<>(
+                            event + " pending=" + controller.getNumberOfPendingRequests()));
+        }
+    }
+}
@@ -168,6 +168,27 @@ public class ExecutionConfigOptions {
                                     + "The larger the memory, the higher the compression ratio, "
                                     + "but more memory resource will be consumed by the job.");
 
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH)
+    public static final ConfigOption<String> TABLE_EXEC_SPILL_COMPRESSION_CODEC =
+            key("table.exec.spill-compression.codec")
+                    .stringType()
+                    .defaultValue("LZ4")
+                    .withDescription(
+                            "The codec used to compress spilled data. Supported codecs are LZ4, ZSTD "
+                                    + "and SNAPPY. LZ4 is the fastest codec, ZSTD achieves the highest "
+                                    + "compression ratio at a higher CPU cost, which may pay off "
+                                    + "if the local disks are slow.");
+
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH)
+    public static final ConfigOption<Integer> TABLE_EXEC_SPILL_COMPRESSION_ZSTD_LEVEL =
+            key("table.exec.spill-compression.zstd-level")
+                    .intType()
+                    .defaultValue(3)
+                    .withDescription(
+                            "The compression level used when spilled data is compressed with ZSTD. "
+                                    + "Higher levels achieve higher compression ratios at the cost "
+                                    + "of compression speed.");
+
     // ------------------------------------------------------------------------
     //  Resource Options
     // ------------------------------------------------------------------------
@@ -248,6 +269,30 @@ public class ExecutionConfigOptions {
                     .withDescription(
                             "Sets the window elements buffer size limit used in group window agg operator.");
 
+    @Documentation.TableOption(execMode = Documentation.ExecMode.STREAMING)
+    public static final ConfigOption<Boolean> TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_ENABLED =
+            key("table.exec.window-agg.buffer-spill.enabled")
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether the window aggregate operator on window table-valued functions "
+                                    + "spills its buffered records to local disk when the managed memory "
+                                    + "is exhausted. The spilled records are combined into state at once "
+                                    + "when the buffer is flushed, instead of flushing the buffer into "
+                                    + "state every time it is full.");
+
+    @Documentation.TableOption(execMode = Documentation.ExecMode.STREAMING)
+    public static final ConfigOption<Integer>
+            TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_MAX_NUM_FILE_HANDLES =
+                    key("table.exec.window-agg.buffer-spill.max-num-file-handles")
+                            .defaultValue(128)
+                            .withDescription(
+                                    "The max number of spilled files the window aggregate operator "
+                                            + "opens at the same time when it merges the spilled "
+                                            + "records of its buffer. If there are more spilled "
+                                            + "files, they are merged in multiple passes. Only "
+                                            + "takes effect if '"
+                                            + "table.exec.window-agg.buffer-spill.enabled' is true.");
+
     // ------------------------------------------------------------------------
     //  Async Lookup Options
     // ------------------------------------------------------------------------
@@ -266,6 +311,59 @@ public class ExecutionConfigOptions {
                     .withDescription(
                             "The async timeout for the asynchronous operation to complete.");
 
+    // ------------------------------------------------------------------------
+    //  Lookup Cache Options
+    // ------------------------------------------------------------------------
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH_STREAMING)
+    public static final ConfigOption<LookupCacheStrategy> TABLE_EXEC_LOOKUP_CACHE_STRATEGY =
+            key("table.exec.lookup-cache.strategy")
+                    .enumType(LookupCacheStrategy.class)
+                    .defaultValue(LookupCacheStrategy.NONE)
+                    .withDescription(
+                            "The strategy of the cache that lookup joins keep in front of the "
+                                    + "lookup function of every table source, keyed by the lookup "
+                                    + "key. 'NONE' (default) disables the cache, 'LRU' evicts the "
+                                    + "least recently used keys and 'LFU' evicts the least "
+                                    + "frequently used keys once the cache is full.");
+
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH_STREAMING)
+    public static final ConfigOption<Long> TABLE_EXEC_LOOKUP_CACHE_MAX_ROWS =
+            key("table.exec.lookup-cache.max-rows")
+                    .longType()
+                    .defaultValue(10000L)
+                    .withDescription(
+                            "The max number of lookup keys the lookup join cache keeps per "
+                                    + "subtask.");
+
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH_STREAMING)
+    public static final ConfigOption<Duration> TABLE_EXEC_LOOKUP_CACHE_TTL =
+            key("table.exec.lookup-cache.ttl")
+                    .durationType()
+                    .defaultValue(Duration.ofMillis(0))
+                    .withDescription(
+                            "The time after which an entry of the lookup join cache expires "
+                                    + "since it was loaded. The default value 0 means entries "
+                                    + "never expire and are only evicted by the cache strategy.");
+
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH_STREAMING)
+    public static final ConfigOption<Boolean> TABLE_EXEC_LOOKUP_CACHE_MISSING_KEY =
+            key("table.exec.lookup-cache.missing-key")
+                    .booleanType()
+                    .defaultValue(true)
+                    .withDescription(
+                            "Whether the lookup join cache also keeps lookup keys for which "
+                                    + "the lookup function returned no rows.");
+
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH_STREAMING)
+    public static final ConfigOption<Boolean> TABLE_EXEC_LOOKUP_CACHE_OFF_HEAP =
+            key("table.exec.lookup-cache.off-heap")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether the lookup join cache keeps the cached rows in binary "
+                                    + "format in off-heap memory. Off-heap memory is taken from "
+                                    + "the task off-heap memory budget.");
+
     // ------------------------------------------------------------------------
     //  MiniBatch Options
     // ------------------------------------------------------------------------
@@ -301,7 +399,7 @@ public class ExecutionConfigOptions {
                             "The maximum number of input records can be buffered for MiniBatch. "
                                     + "MiniBatch is an optimization to buffer input records to reduce state access. "
                                     + "MiniBatch is triggered with the allowed latency interval and when the maximum number of buffered records reached. "
-                                    + "NOTE: MiniBatch only works for non-windowed aggregations currently. If "
+                                    + "NOTE: MiniBatch only works for non-windowed aggregations and regular joins currently. If "
                                     + TABLE_EXEC_MINIBATCH_ENABLED.key()
                                     + " is set true, its value must be positive.");
 
@@ -358,6 +456,16 @@ public class ExecutionConfigOptions {
     // Enum option types
     // ------------------------------------------------------------------------------------------
 
+    /** The strategy of the cache in front of the lookup functions of lookup joins. */
+    public enum LookupCacheStrategy {
+        /** Lookup results are not cached. */
+        NONE,
+        /** Evicts the least recently used lookup keys. */
+        LRU,
+        /** Evicts the least frequently used lookup keys. */
+        LFU
+    }
+
     /** The enforcer to guarantee NOT NULL column constraint when writing data into sink. */
     public enum NotNullEnforcer {
         /** Throws runtime exception when writing null values into NOT NULL column. */
@@ -78,6 +78,18 @@ public class OptimizerConfigOptions {
                                     + "The number is used in the first level aggregation to calculate a bucket key "
                                     + "'hash_code(distinct_key) % BUCKET_NUM' which is used as an additional group key after splitting.");
 
+    @Documentation.TableOption(execMode = Documentation.ExecMode.STREAMING)
+    public static final ConfigOption<Boolean> TABLE_OPTIMIZER_TOPN_TWO_PHASE_ENABLED =
+            key("table.optimizer.topn.two-phase-enabled")
+                    .defaultValue(false)
+                    .withDescription(
+                            "Tells the optimizer whether to split a streaming TopN on an insert-only input "
+                                    + "into a local and a global phase. The local TopN runs before the shuffle, keeps "
+                                    + "the top N sort keys of every partition key it has seen and only forwards the "
+                                    + "records that may still enter the global top N. This reduces the network traffic "
+                                    + "and relieves data skew on hot partition keys. It only applies to ROW_NUMBER with "
+                                    + "a constant rank range and when idle state retention is disabled. Default is false.");
+
     @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH_STREAMING)
     public static final ConfigOption<Boolean> TABLE_OPTIMIZER_REUSE_SUB_PLAN_ENABLED =
             key("table.optimizer.reuse-sub-plan-enabled")
@@ -95,6 +107,15 @@ public class OptimizerConfigOptions {
                                     + TABLE_OPTIMIZER_REUSE_SUB_PLAN_ENABLED.key()
                                     + " is true.");
 
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH)
+    public static final ConfigOption<Boolean> TABLE_OPTIMIZER_SOURCE_AGGREGATE_PUSHDOWN_ENABLED =
+            key("table.optimizer.source.aggregate-pushdown-enabled")
+                    .defaultValue(true)
+                    .withDescription(
+                            "When it is true, the optimizer will push down the local aggregates into the "
+                                    + "TableSource which implements SupportsAggregatePushDown. "
+                                    + "Default value is true.");
+
     @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH_STREAMING)
     public static final ConfigOption<Boolean> TABLE_OPTIMIZER_SOURCE_PREDICATE_PUSHDOWN_ENABLED =
             key("table.optimizer.source.predicate-pushdown-enabled")
@@ -116,4 +137,26 @@ public class OptimizerConfigOptions {
                     .withDescription(
                             "When it is true, the optimizer will merge the operators with pipelined shuffling "
                                     + "into a multiple input operator to reduce shuffling and improve performance. Default value is true.");
+
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH)
+    public static final ConfigOption<Boolean> TABLE_OPTIMIZER_RUNTIME_FILTER_ENABLED =
+            key("table.optimizer.runtime-filter.enabled")
+                    .defaultValue(false)
+                    .withDescription(
+                            "When it is true, the optimizer will build a bloom filter of the join keys of the "
+                                    + "build side of a shuffled hash join at runtime and drop the probe side records "
+                                    + "which can't find a match before they are shuffled to the join. Default value is false.");
+
+    @Documentation.TableOption(execMode = Documentation.ExecMode.BATCH)
+    public static final ConfigOption<Long> TABLE_OPTIMIZER_RUNTIME_FILTER_MAX_BUILD_ROW_COUNT =
+            key("table.optimizer.runtime-filter.max-build-row-count")
+                    .defaultValue(1000000L)
+                    .withDescription(
+                            "The maximum number of build side records of a runtime filter, which determines "
+                                    + "the size of the bloom filter. A hash join whose build side is estimated to "
+                                    + "have more records doesn't get a runtime filter, and the probe side isn't "
+                                    + "filtered if the build side turns out to have more records at runtime. "
+                                    + "This only works when "
+                                    + TABLE_OPTIMIZER_RUNTIME_FILTER_ENABLED.key()
+                                    + " is true.");
 }
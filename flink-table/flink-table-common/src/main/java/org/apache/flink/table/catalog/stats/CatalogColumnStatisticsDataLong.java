@@ -32,19 +32,30 @@ public class CatalogColumnStatisticsDataLong extends CatalogColumnStatisticsData
     /** number of distinct values. */
     private final Long ndv;
 
+    /** most frequent values mapped to their (estimated) number of occurrences. */
+    private final Map<Long, Long> hotValues;
+
     public CatalogColumnStatisticsDataLong(Long min, Long max, Long ndv, Long nullCount) {
-        super(nullCount);
-        this.min = min;
-        this.max = max;
-        this.ndv = ndv;
+        this(min, max, ndv, nullCount, new HashMap<>());
     }
 
     public CatalogColumnStatisticsDataLong(
             Long min, Long max, Long ndv, Long nullCount, Map<String, String> properties) {
+        this(min, max, ndv, nullCount, null, properties);
+    }
+
+    public CatalogColumnStatisticsDataLong(
+            Long min,
+            Long max,
+            Long ndv,
+            Long nullCount,
+            Map<Long, Long> hotValues,
+            Map<String, String> properties) {
         super(nullCount, properties);
         this.min = min;
         this.max = max;
         this.ndv = ndv;
+        this.hotValues = hotValues;
     }
 
     public Long getMin() {
@@ -59,8 +70,21 @@ public class CatalogColumnStatisticsDataLong extends CatalogColumnStatisticsData
         return ndv;
     }
 
+    /**
+     * Returns the most frequent values of the column mapped to their (estimated) number of
+     * occurrences, or null if unknown.
+     */
+    public Map<Long, Long> getHotValues() {
+        return hotValues;
+    }
+
     public CatalogColumnStatisticsDataLong copy() {
         return new CatalogColumnStatisticsDataLong(
-                min, max, ndv, getNullCount(), new HashMap<>(getProperties()));
+                min,
+                max,
+                ndv,
+                getNullCount(),
+                hotValues == null ? null : new HashMap<>(hotValues),
+                new HashMap<>(getProperties()));
     }
 }
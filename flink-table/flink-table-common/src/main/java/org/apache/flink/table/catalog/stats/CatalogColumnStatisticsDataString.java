@@ -32,12 +32,21 @@ public class CatalogColumnStatisticsDataString extends CatalogColumnStatisticsDa
     /** number of distinct values. */
     private final Long ndv;
 
+    /** most frequent values mapped to their (estimated) number of occurrences. */
+    private final Map<String, Long> hotValues;
+
     public CatalogColumnStatisticsDataString(
             Long maxLength, Double avgLength, Long ndv, Long nullCount) {
-        super(nullCount);
-        this.maxLength = maxLength;
-        this.avgLength = avgLength;
-        this.ndv = ndv;
+        this(maxLength, avgLength, ndv, nullCount, new HashMap<>());
+    }
+
+    public CatalogColumnStatisticsDataString(
+            Long maxLength,
+            Double avgLength,
+            Long ndv,
+            Long nullCount,
+            Map<String, String> properties) {
+        this(maxLength, avgLength, ndv, nullCount, null, properties);
     }
 
     public CatalogColumnStatisticsDataString(
@@ -45,11 +54,13 @@ public class CatalogColumnStatisticsDataString extends CatalogColumnStatisticsDa
             Double avgLength,
             Long ndv,
             Long nullCount,
+            Map<String, Long> hotValues,
             Map<String, String> properties) {
         super(nullCount, properties);
         this.maxLength = maxLength;
         this.avgLength = avgLength;
         this.ndv = ndv;
+        this.hotValues = hotValues;
     }
 
     public Long getMaxLength() {
@@ -64,8 +75,21 @@ public class CatalogColumnStatisticsDataString extends CatalogColumnStatisticsDa
         return ndv;
     }
 
+    /**
+     * Returns the most frequent values of the column mapped to their (estimated) number of
+     * occurrences, or null if unknown.
+     */
+    public Map<String, Long> getHotValues() {
+        return hotValues;
+    }
+
     public CatalogColumnStatisticsDataString copy() {
         return new CatalogColumnStatisticsDataString(
-                maxLength, avgLength, ndv, getNullCount(), new HashMap<>(getProperties()));
+                maxLength,
+                avgLength,
+                ndv,
+                getNullCount(),
+                hotValues == null ? null : new HashMap<>(hotValues),
+                new HashMap<>(getProperties()));
     }
 }
@@ -125,7 +125,10 @@ import java.util.List;
  * <p>Regardless if this interface is implemented or not, a final aggregation is always applied in a
  * subsequent operation after the source.
  *
- * <p>Note: currently, the {@link SupportsAggregatePushDown} is not supported by planner.
+ * <p>Note: currently, the planner only pushes down local hash aggregates in batch mode which read
+ * directly from the source. The aggregate functions are passed as the built-in functions {@code
+ * SUM}, {@code SUM0}, {@code MIN}, {@code MAX} and {@code COUNT}, an {@code AVG} is passed as a
+ * {@code SUM0} and a {@code COUNT} of the same field.
  */
 @PublicEvolving
 public interface SupportsAggregatePushDown {
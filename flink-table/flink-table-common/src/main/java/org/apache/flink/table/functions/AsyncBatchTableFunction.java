@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.functions;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.util.SerializableObject;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Base class for a user-defined asynchronous table function which looks up many keys at once.
+ *
+ * <p>Instead of issuing one request per call to <code>eval()</code>, the lookup keys are buffered
+ * and passed in batches to {@link #evalBatch(List, List)}, which completes one future per key. A
+ * batch is flushed as soon as it contains {@code maxBatchSize} distinct keys or when the first key
+ * of the batch has been waiting for {@code maxBatchDelay}. Identical keys within a batch are only
+ * looked up once, and the result is passed to all calls of <code>eval()</code> with that key.
+ *
+ * <p>This allows implementations to use the multi-get or batch query APIs of the external system
+ * and to pay one round trip for many lookups:
+ *
+ * <pre>{@code
+ * public class HBaseAsyncBatchTableFunction extends AsyncBatchTableFunction<RowData> {
+ *
+ *   public HBaseAsyncBatchTableFunction() {
+ *     super(100, Duration.ofMillis(10));
+ *   }
+ *
+ *   protected void evalBatch(
+ *       List<Object[]> keys, List<CompletableFuture<Collection<RowData>>> futures) {
+ *     List<CompletableFuture<Result>> results = table.get(createGets(keys));
+ *     for (int i = 0; i < keys.size(); i++) {
+ *       CompletableFuture<Collection<RowData>> future = futures.get(i);
+ *       results.get(i).whenComplete((result, t) -> ...);
+ *     }
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Note: The async lookup join only keeps a limited number of lookups in flight (see {@code
+ * table.exec.async-lookup.buffer-capacity}), which is also an upper bound for the size of a batch.
+ * Subclasses overriding {@link #close()} must call {@code super.close()}.
+ *
+ * @param <T> The type of the output row used during reflective extraction.
+ */
+@PublicEvolving
+public abstract class AsyncBatchTableFunction<T> extends AsyncTableFunction<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxBatchSize;
+    private final Duration maxBatchDelay;
+    private final SerializableObject lock = new SerializableObject();
+
+    /** Serializes calls to {@link #evalBatch(List, List)}. */
+    private final SerializableObject flushLock = new SerializableObject();
+
+    @GuardedBy("lock")
+    private transient Map<BatchKey, List<CompletableFuture<Collection<T>>>> pending;
+
+    /** Identifies the pending batch, so that a delayed flush does not flush a later batch. */
+    @GuardedBy("lock")
+    private transient long batchId;
+
+    @GuardedBy("lock")
+    private transient ScheduledExecutorService flusher;
+
+    /**
+     * Creates a function which buffers up to {@code maxBatchSize} distinct keys for at most {@code
+     * maxBatchDelay}. A batch size of 1 or a zero delay disables batching, each key is then passed
+     * to {@link #evalBatch(List, List)} on its own.
+     */
+    protected AsyncBatchTableFunction(int maxBatchSize, Duration maxBatchDelay) {
+        checkArgument(maxBatchSize > 0, "The max batch size must be positive.");
+        checkArgument(!maxBatchDelay.isNegative(), "The max batch delay must not be negative.");
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelay = checkNotNull(maxBatchDelay);
+    }
+
+    /**
+     * Looks up the given keys in a batch. The lists of keys and futures have the same size and
+     * every future must eventually be completed, either with the rows of its key or exceptionally.
+     * Calls are never concurrent, but they may happen from a thread other than the one calling
+     * <code>eval()</code>. Implementations should not block but complete the futures
+     * asynchronously.
+     *
+     * @param keys the distinct lookup keys of the batch
+     * @param futures the futures to complete, one per key
+     */
+    protected abstract void evalBatch(
+            List<Object[]> keys, List<CompletableFuture<Collection<T>>> futures) throws Exception;
+
+    /**
+     * Adds the given lookup keys to the current batch.
+     *
+     * @param future The result or exception is returned.
+     * @param keys the lookup keys.
+     */
+    public final void eval(CompletableFuture<Collection<T>> future, Object... keys) {
+        if (maxBatchSize == 1 || maxBatchDelay.isZero()) {
+            doEvalBatch(Collections.singletonList(keys), Collections.singletonList(future));
+            return;
+        }
+
+        Map<BatchKey, List<CompletableFuture<Collection<T>>>> batch = null;
+        synchronized (lock) {
+            if (pending == null) {
+                pending = new LinkedHashMap<>();
+            }
+            boolean firstOfBatch = pending.isEmpty();
+            pending.computeIfAbsent(new BatchKey(keys), k -> new ArrayList<>(1)).add(future);
+            if (pending.size() >= maxBatchSize) {
+                batch = takeBatch();
+            } else if (firstOfBatch) {
+                scheduleFlush(batchId);
+            }
+        }
+        if (batch != null) {
+            flush(batch);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (lock) {
+            if (flusher != null) {
+                flusher.shutdownNow();
+                flusher = null;
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void scheduleFlush(long id) {
+        if (flusher == null) {
+            // the flushing thread inherits the user code class loader of the calling task thread
+            ClassLoader userClassLoader = Thread.currentThread().getContextClassLoader();
+            flusher =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "async-lookup-batch-flusher");
+                                thread.setDaemon(true);
+                                thread.setContextClassLoader(userClassLoader);
+                                return thread;
+                            });
+        }
+        flusher.schedule(() -> flushBatch(id), maxBatchDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void flushBatch(long id) {
+        Map<BatchKey, List<CompletableFuture<Collection<T>>>> batch;
+        synchronized (lock) {
+            if (id != batchId || pending.isEmpty()) {
+                // the batch has already been flushed because it was full
+                return;
+            }
+            batch = takeBatch();
+        }
+        flush(batch);
+    }
+
+    @GuardedBy("lock")
+    private Map<BatchKey, List<CompletableFuture<Collection<T>>>> takeBatch() {
+        Map<BatchKey, List<CompletableFuture<Collection<T>>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        batchId++;
+        return batch;
+    }
+
+    private void flush(Map<BatchKey, List<CompletableFuture<Collection<T>>>> batch) {
+        List<Object[]> keys = new ArrayList<>(batch.size());
+        List<CompletableFuture<Collection<T>>> futures = new ArrayList<>(batch.size());
+        for (Map.Entry<BatchKey, List<CompletableFuture<Collection<T>>>> entry : batch.entrySet()) {
+            keys.add(entry.getKey().keys);
+            futures.add(fanOut(entry.getValue()));
+        }
+        doEvalBatch(keys, futures);
+    }
+
+    private void doEvalBatch(List<Object[]> keys, List<CompletableFuture<Collection<T>>> futures) {
+        synchronized (flushLock) {
+            try {
+                evalBatch(keys, futures);
+            } catch (Throwable t) {
+                futures.forEach(future -> future.completeExceptionally(t));
+            }
+        }
+    }
+
+    /** Returns a future which completes all the given futures of the same key. */
+    private static <T> CompletableFuture<Collection<T>> fanOut(
+            List<CompletableFuture<Collection<T>>> futures) {
+        if (futures.size() == 1) {
+            return futures.get(0);
+        }
+        CompletableFuture<Collection<T>> future = new CompletableFuture<>();
+        future.whenComplete(
+                (result, throwable) -> {
+                    for (CompletableFuture<Collection<T>> f : futures) {
+                        if (throwable != null) {
+                            f.completeExceptionally(throwable);
+                        } else {
+                            f.complete(result);
+                        }
+                    }
+                });
+        return future;
+    }
+
+    /** The lookup keys of a call to <code>eval()</code>, compared by value. */
+    private static final class BatchKey {
+
+        private final Object[] keys;
+        private final int hashCode;
+
+        private BatchKey(Object[] keys) {
+            this.keys = keys;
+            this.hashCode = Arrays.deepHashCode(keys);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BatchKey && Arrays.deepEquals(keys, ((BatchKey) o).keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
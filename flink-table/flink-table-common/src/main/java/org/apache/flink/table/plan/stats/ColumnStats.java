@@ -21,7 +21,10 @@ package org.apache.flink.table.plan.stats;
 import org.apache.flink.annotation.PublicEvolving;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.BinaryOperator;
 
@@ -59,6 +62,12 @@ public final class ColumnStats {
     /** min value of column values, null if the value is unknown or not comparable. */
     private final Comparable<?> min;
 
+    /**
+     * the most frequent column values mapped to their (estimated) number of occurrences, null if
+     * unknown. The map only contains the heavy hitters of the column, not all values.
+     */
+    private final Map<Comparable<?>, Long> hotValues;
+
     /**
      * Deprecated because Number type max/min is not well supported comparable type, e.g. {@link
      * java.util.Date}, {@link java.sql.Timestamp}. please use {@link ColumnStats.Builder} to
@@ -75,6 +84,7 @@ public final class ColumnStats {
         this.minValue = min;
         this.max = null;
         this.min = null;
+        this.hotValues = null;
     }
 
     /**
@@ -88,7 +98,8 @@ public final class ColumnStats {
             Double avgLen,
             Integer maxLen,
             Comparable<?> max,
-            Comparable<?> min) {
+            Comparable<?> min,
+            Map<Comparable<?>, Long> hotValues) {
         this.ndv = ndv;
         this.nullCount = nullCount;
         this.avgLen = avgLen;
@@ -97,6 +108,8 @@ public final class ColumnStats {
         this.min = min;
         this.maxValue = null;
         this.minValue = null;
+        this.hotValues =
+                hotValues == null ? null : Collections.unmodifiableMap(new HashMap<>(hotValues));
     }
 
     public Long getNdv() {
@@ -153,6 +166,14 @@ public final class ColumnStats {
         return min;
     }
 
+    /**
+     * Returns the most frequent values of the column mapped to their (estimated) number of
+     * occurrences, e.g. collected from a sample of the data. Returns null if unknown.
+     */
+    public Map<Comparable<?>, Long> getHotValues() {
+        return hotValues;
+    }
+
     public String toString() {
         List<String> columnStats = new ArrayList<>();
         if (ndv != null) {
@@ -179,6 +200,9 @@ public final class ColumnStats {
         if (minValue != null) {
             columnStats.add("min=" + minValue);
         }
+        if (hotValues != null) {
+            columnStats.add("hotValues=" + hotValues);
+        }
         String columnStatsStr = String.join(", ", columnStats);
         return "ColumnStats(" + columnStatsStr + ")";
     }
@@ -199,7 +223,13 @@ public final class ColumnStats {
                     this.minValue);
         } else {
             return new ColumnStats(
-                    this.ndv, this.nullCount, this.avgLen, this.maxLen, this.max, this.min);
+                    this.ndv,
+                    this.nullCount,
+                    this.avgLen,
+                    this.maxLen,
+                    this.max,
+                    this.min,
+                    this.hotValues);
         }
     }
 
@@ -239,9 +269,11 @@ public final class ColumnStats {
                         (c1, c2) -> ((Comparable) c1).compareTo(c2) < 0 ? c1 : c2,
                         this.min,
                         other.min);
+        Map<Comparable<?>, Long> hotValues =
+                combineIfNonNull(ColumnStats::mergeHotValues, this.hotValues, other.hotValues);
 
-        if (max != null || min != null) {
-            return new ColumnStats(ndv, nullCount, avgLen, maxLen, max, min);
+        if (max != null || min != null || hotValues != null) {
+            return new ColumnStats(ndv, nullCount, avgLen, maxLen, max, min, hotValues);
         } else {
             return new ColumnStats(ndv, nullCount, avgLen, maxLen, maxValue, minValue);
         }
@@ -263,12 +295,22 @@ public final class ColumnStats {
                 && Objects.equals(maxValue, that.maxValue)
                 && Objects.equals(max, that.max)
                 && Objects.equals(minValue, that.minValue)
-                && Objects.equals(min, that.min);
+                && Objects.equals(min, that.min)
+                && Objects.equals(hotValues, that.hotValues);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(ndv, nullCount, avgLen, maxLen, maxValue, max, minValue, min);
+        return Objects.hash(
+                ndv, nullCount, avgLen, maxLen, maxValue, max, minValue, min, hotValues);
+    }
+
+    private static Map<Comparable<?>, Long> mergeHotValues(
+            Map<Comparable<?>, Long> hotValues1, Map<Comparable<?>, Long> hotValues2) {
+        // a value which is only hot on one side is kept with the count known from that side
+        Map<Comparable<?>, Long> merged = new HashMap<>(hotValues1);
+        hotValues2.forEach((value, count) -> merged.merge(value, count, Long::sum));
+        return merged;
     }
 
     private static <T> T combineIfNonNull(BinaryOperator<T> op, T t1, T t2) {
@@ -286,6 +328,7 @@ public final class ColumnStats {
         private Integer maxLen = null;
         private Comparable<?> max;
         private Comparable<?> min;
+        private Map<Comparable<?>, Long> hotValues;
 
         public static Builder builder() {
             return new Builder();
@@ -321,8 +364,13 @@ public final class ColumnStats {
             return this;
         }
 
+        public Builder setHotValues(Map<Comparable<?>, Long> hotValues) {
+            this.hotValues = hotValues;
+            return this;
+        }
+
         public ColumnStats build() {
-            return new ColumnStats(ndv, nullCount, avgLen, maxLen, max, min);
+            return new ColumnStats(ndv, nullCount, avgLen, maxLen, max, min, hotValues);
         }
     }
 }
@@ -168,6 +168,7 @@ public class CatalogTestUtil {
         assertEquals(v1.getMax(), v2.getMax());
         assertEquals(v1.getNdv(), v2.getNdv());
         assertEquals(v1.getNullCount(), v2.getNullCount());
+        assertEquals(v1.getHotValues(), v2.getHotValues());
         assertEquals(v1.getProperties(), v2.getProperties());
     }
 
@@ -186,6 +187,7 @@ public class CatalogTestUtil {
         assertEquals(v1.getAvgLength(), v2.getAvgLength(), 0.05D);
         assertEquals(v1.getNdv(), v2.getNdv());
         assertEquals(v1.getNullCount(), v2.getNullCount());
+        assertEquals(v1.getHotValues(), v2.getHotValues());
         assertEquals(v1.getProperties(), v2.getProperties());
     }
 
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.functions;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link AsyncBatchTableFunction}. */
+public class AsyncBatchTableFunctionTest {
+
+    @Test
+    public void testFlushOnMaxBatchSize() throws Exception {
+        TestBatchFunction function = new TestBatchFunction(3, Duration.ofHours(1));
+        CompletableFuture<Collection<String>> f1 = eval(function, 1, "a");
+        CompletableFuture<Collection<String>> f2 = eval(function, 2, "b");
+        assertTrue(function.batches.isEmpty());
+        assertFalse(f1.isDone());
+
+        CompletableFuture<Collection<String>> f3 = eval(function, 3, "c");
+        assertEquals(1, function.batches.size());
+        assertEquals(Arrays.asList("1a", "2b", "3c"), function.batches.get(0));
+        assertEquals(Collections.singletonList("1a"), f1.get());
+        assertEquals(Collections.singletonList("2b"), f2.get());
+        assertEquals(Collections.singletonList("3c"), f3.get());
+        function.close();
+    }
+
+    @Test
+    public void testFlushOnMaxBatchDelay() throws Exception {
+        TestBatchFunction function = new TestBatchFunction(100, Duration.ofMillis(10));
+        CompletableFuture<Collection<String>> f1 = eval(function, 1, "a");
+        CompletableFuture<Collection<String>> f2 = eval(function, 2, "b");
+
+        assertEquals(Collections.singletonList("1a"), f1.get());
+        assertEquals(Collections.singletonList("2b"), f2.get());
+        assertEquals(1, function.batches.size());
+
+        // a new batch is started after the flush
+        CompletableFuture<Collection<String>> f3 = eval(function, 3, "c");
+        assertEquals(Collections.singletonList("3c"), f3.get());
+        assertEquals(2, function.batches.size());
+        function.close();
+    }
+
+    @Test
+    public void testDeduplicateKeys() throws Exception {
+        TestBatchFunction function = new TestBatchFunction(2, Duration.ofHours(1));
+        CompletableFuture<Collection<String>> f1 = eval(function, 1, "a");
+        CompletableFuture<Collection<String>> f2 = eval(function, 1, "a");
+        CompletableFuture<Collection<String>> f3 = eval(function, 1, "b");
+
+        assertEquals(Collections.singletonList(Arrays.asList("1a", "1b")), function.batches);
+        assertSame(f1.get(), f2.get());
+        assertEquals(Collections.singletonList("1b"), f3.get());
+        function.close();
+    }
+
+    @Test
+    public void testWithoutBatching() throws Exception {
+        TestBatchFunction function = new TestBatchFunction(1, Duration.ofHours(1));
+        CompletableFuture<Collection<String>> f1 = eval(function, 1, "a");
+        CompletableFuture<Collection<String>> f2 = eval(function, 1, "a");
+
+        assertEquals(
+                Arrays.asList(Collections.singletonList("1a"), Collections.singletonList("1a")),
+                function.batches);
+        assertEquals(Collections.singletonList("1a"), f1.get());
+        assertEquals(Collections.singletonList("1a"), f2.get());
+        function.close();
+    }
+
+    @Test
+    public void testFailingBatch() throws Exception {
+        TestBatchFunction function = new TestBatchFunction(2, Duration.ofHours(1));
+        function.failure = new RuntimeException("expected");
+        CompletableFuture<Collection<String>> f1 = eval(function, 1, "a");
+        CompletableFuture<Collection<String>> f2 = eval(function, 2, "b");
+        for (CompletableFuture<Collection<String>> future : Arrays.asList(f1, f2)) {
+            try {
+                future.get();
+                fail("Expected exception");
+            } catch (ExecutionException e) {
+                assertSame(function.failure, e.getCause());
+            }
+        }
+        function.close();
+    }
+
+    private static CompletableFuture<Collection<String>> eval(
+            TestBatchFunction function, Object... keys) {
+        CompletableFuture<Collection<String>> future = new CompletableFuture<>();
+        function.eval(future, keys);
+        return future;
+    }
+
+    /** Completes every key with the concatenation of its fields. */
+    private static class TestBatchFunction extends AsyncBatchTableFunction<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        private RuntimeException failure;
+
+        private TestBatchFunction(int maxBatchSize, Duration maxBatchDelay) {
+            super(maxBatchSize, maxBatchDelay);
+        }
+
+        @Override
+        protected void evalBatch(
+                List<Object[]> keys, List<CompletableFuture<Collection<String>>> futures) {
+            if (failure != null) {
+                throw failure;
+            }
+            List<String> batch = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                String result = keys.get(i)[0].toString() + keys.get(i)[1];
+                batch.add(result);
+                futures.get(i).complete(Collections.singletonList(result));
+            }
+            batches.add(batch);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.plan.stats;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Test for {@link ColumnStats}. */
+public class ColumnStatsTest {
+
+    @Test
+    public void testCopyHotValues() {
+        Map<Comparable<?>, Long> hotValues = new HashMap<>();
+        hotValues.put(1, 100L);
+        hotValues.put(2, 50L);
+        ColumnStats stats =
+                ColumnStats.Builder.builder().setNdv(10L).setHotValues(hotValues).build();
+
+        ColumnStats copy = stats.copy();
+        Assert.assertEquals(stats, copy);
+        Assert.assertEquals(hotValues, copy.getHotValues());
+
+        // the stats are not affected by changes of the given map
+        hotValues.put(3, 10L);
+        Assert.assertEquals(stats, copy);
+        Assert.assertEquals(2, copy.getHotValues().size());
+    }
+
+    @Test
+    public void testMergeHotValues() {
+        Map<Comparable<?>, Long> hotValues1 = new HashMap<>();
+        hotValues1.put(1, 100L);
+        hotValues1.put(2, 50L);
+        Map<Comparable<?>, Long> hotValues2 = new HashMap<>();
+        hotValues2.put(2, 70L);
+        hotValues2.put(3, 30L);
+        ColumnStats stats1 =
+                ColumnStats.Builder.builder().setNdv(10L).setHotValues(hotValues1).build();
+        ColumnStats stats2 =
+                ColumnStats.Builder.builder().setNdv(20L).setHotValues(hotValues2).build();
+
+        Map<Comparable<?>, Long> merged = new HashMap<>();
+        merged.put(1, 100L);
+        merged.put(2, 120L);
+        merged.put(3, 30L);
+        Assert.assertEquals(
+                ColumnStats.Builder.builder().setNdv(30L).setHotValues(merged).build(),
+                stats1.merge(stats2));
+    }
+
+    @Test
+    public void testMergeHotValuesUnknown() {
+        Map<Comparable<?>, Long> hotValues = new HashMap<>();
+        hotValues.put(1, 100L);
+        ColumnStats stats1 =
+                ColumnStats.Builder.builder().setNdv(10L).setHotValues(hotValues).build();
+        ColumnStats stats2 = ColumnStats.Builder.builder().setNdv(20L).build();
+
+        Assert.assertNull(stats1.merge(stats2).getHotValues());
+        Assert.assertNull(stats2.merge(stats1).getHotValues());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.abilities.source;
+
+import org.apache.flink.table.api.TableException;
+import org.apache.flink.table.connector.source.DynamicTableSource;
+import org.apache.flink.table.connector.source.abilities.SupportsAggregatePushDown;
+import org.apache.flink.table.expressions.AggregateExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinition;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.utils.TypeConversions;
+
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.annotation.JsonCreator;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.annotation.JsonTypeName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A sub-class of {@link SourceAbilitySpec} that can not only serialize/deserialize the local
+ * aggregate to/from JSON, but also can push the local aggregate into a {@link
+ * SupportsAggregatePushDown}.
+ *
+ * <p>The aggregate functions are described by the names of the built-in functions {@code SUM},
+ * {@code SUM0}, {@code MIN}, {@code MAX} and {@code COUNT}, their arguments by field indices of the
+ * source row type before the push down.
+ */
+@JsonTypeName("AggregatePushDown")
+public class AggregatePushDownSpec extends SourceAbilitySpecBase {
+    public static final String FIELD_NAME_GROUPING = "grouping";
+    public static final String FIELD_NAME_AGGREGATE_FUNCTIONS = "aggregateFunctions";
+    public static final String FIELD_NAME_AGGREGATE_ARGUMENTS = "aggregateArguments";
+
+    private static final List<BuiltInFunctionDefinition> SUPPORTED_FUNCTIONS =
+            Arrays.asList(
+                    BuiltInFunctionDefinitions.SUM,
+                    BuiltInFunctionDefinitions.SUM0,
+                    BuiltInFunctionDefinitions.MIN,
+                    BuiltInFunctionDefinitions.MAX,
+                    BuiltInFunctionDefinitions.COUNT);
+
+    @JsonProperty(FIELD_NAME_GROUPING)
+    private final int[] grouping;
+
+    @JsonProperty(FIELD_NAME_AGGREGATE_FUNCTIONS)
+    private final List<String> aggregateFunctions;
+
+    @JsonProperty(FIELD_NAME_AGGREGATE_ARGUMENTS)
+    private final int[][] aggregateArguments;
+
+    @JsonCreator
+    public AggregatePushDownSpec(
+            @JsonProperty(FIELD_NAME_GROUPING) int[] grouping,
+            @JsonProperty(FIELD_NAME_AGGREGATE_FUNCTIONS) List<String> aggregateFunctions,
+            @JsonProperty(FIELD_NAME_AGGREGATE_ARGUMENTS) int[][] aggregateArguments,
+            @JsonProperty(FIELD_NAME_PRODUCED_TYPE) RowType producedType) {
+        super(checkNotNull(producedType));
+        this.grouping = checkNotNull(grouping);
+        this.aggregateFunctions = new ArrayList<>(checkNotNull(aggregateFunctions));
+        this.aggregateArguments = checkNotNull(aggregateArguments);
+        checkArgument(aggregateFunctions.size() == aggregateArguments.length);
+        checkArgument(producedType.getFieldCount() == grouping.length + aggregateArguments.length);
+    }
+
+    @Override
+    public void apply(DynamicTableSource tableSource, SourceAbilityContext context) {
+        if (!apply(tableSource, context.getSourceRowType())) {
+            throw new TableException("The aggregates should be accepted here.");
+        }
+    }
+
+    /**
+     * Pushes the aggregates into the given source.
+     *
+     * @param sourceRowType the row type of the source before the push down
+     * @return whether the source accepted all aggregates
+     */
+    public boolean apply(DynamicTableSource tableSource, RowType sourceRowType) {
+        if (tableSource instanceof SupportsAggregatePushDown) {
+            RowType producedType = getProducedType().get();
+            List<AggregateExpression> aggregates = new ArrayList<>();
+            for (int i = 0; i < aggregateFunctions.size(); i++) {
+                List<FieldReferenceExpression> args =
+                        Arrays.stream(aggregateArguments[i])
+                                .mapToObj(
+                                        index ->
+                                                new FieldReferenceExpression(
+                                                        sourceRowType.getFieldNames().get(index),
+                                                        TypeConversions.fromLogicalToDataType(
+                                                                sourceRowType.getTypeAt(index)),
+                                                        0,
+                                                        index))
+                                .collect(Collectors.toList());
+                aggregates.add(
+                        new AggregateExpression(
+                                functionOf(aggregateFunctions.get(i)),
+                                args,
+                                null,
+                                TypeConversions.fromLogicalToDataType(
+                                        producedType.getTypeAt(grouping.length + i)),
+                                false,
+                                false,
+                                false));
+            }
+            return ((SupportsAggregatePushDown) tableSource)
+                    .applyAggregates(
+                            Collections.singletonList(grouping),
+                            aggregates,
+                            TypeConversions.fromLogicalToDataType(producedType));
+        } else {
+            throw new TableException(
+                    String.format(
+                            "%s does not support SupportsAggregatePushDown.",
+                            tableSource.getClass().getName()));
+        }
+    }
+
+    private static BuiltInFunctionDefinition functionOf(String name) {
+        return SUPPORTED_FUNCTIONS.stream()
+                .filter(function -> function.getName().equals(name))
+                .findFirst()
+                .orElseThrow(
+                        () ->
+                                new TableException(
+                                        String.format("Unsupported aggregate function %s.", name)));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.nodes.exec.batch;
+
+import org.apache.flink.api.dag.Transformation;
+import org.apache.flink.streaming.api.operators.SimpleOperatorFactory;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.planner.codegen.CodeGeneratorContext;
+import org.apache.flink.table.planner.codegen.ProjectionCodeGenerator;
+import org.apache.flink.table.planner.delegation.PlannerBase;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecEdge;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecNode;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecNodeBase;
+import org.apache.flink.table.planner.plan.nodes.exec.InputProperty;
+import org.apache.flink.table.runtime.generated.GeneratedProjection;
+import org.apache.flink.table.runtime.operators.runtimefilter.LocalRuntimeFilterBuilderOperator;
+import org.apache.flink.table.runtime.operators.runtimefilter.RuntimeFilterUtils;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+/**
+ * Batch {@link ExecNode} which builds the bloom filter of the join keys of the build side records
+ * of a subtask, see {@link BatchExecRuntimeFilter}.
+ */
+public class BatchExecLocalRuntimeFilterBuilder extends ExecNodeBase<RowData>
+        implements BatchExecNode<RowData> {
+
+    private final int[] buildKeys;
+    private final int expectedEntries;
+    private final long maxRowCount;
+
+    public BatchExecLocalRuntimeFilterBuilder(
+            int[] buildKeys,
+            int expectedEntries,
+            long maxRowCount,
+            InputProperty inputProperty,
+            String description) {
+        super(
+                Collections.singletonList(inputProperty),
+                RuntimeFilterUtils.FILTER_ROW_TYPE,
+                description);
+        this.buildKeys = buildKeys;
+        this.expectedEntries = expectedEntries;
+        this.maxRowCount = maxRowCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Transformation<RowData> translateToPlanInternal(PlannerBase planner) {
+        ExecEdge inputEdge = getInputEdges().get(0);
+        Transformation<RowData> inputTransform =
+                (Transformation<RowData>) inputEdge.translateToPlan(planner);
+        RowType inputType = (RowType) inputEdge.getOutputType();
+        RowType keyType =
+                RowType.of(
+                        IntStream.of(buildKeys)
+                                .mapToObj(inputType::getTypeAt)
+                                .toArray(LogicalType[]::new));
+        GeneratedProjection buildKeyProjection =
+                ProjectionCodeGenerator.generateProjection(
+                        new CodeGeneratorContext(planner.getTableConfig()),
+                        "RuntimeFilterBuildProjection",
+                        inputType,
+                        keyType,
+                        buildKeys);
+
+        LocalRuntimeFilterBuilderOperator operator =
+                new LocalRuntimeFilterBuilderOperator(
+                        buildKeyProjection, expectedEntries, maxRowCount);
+        return new OneInputTransformation<>(
+                inputTransform,
+                getDescription(),
+                SimpleOperatorFactory.of(operator),
+                InternalTypeInfo.of(getOutputType()),
+                inputTransform.getParallelism());
+    }
+}
@@ -64,6 +64,7 @@ import org.apache.flink.table.runtime.generated.GeneratedResultFuture;
 import org.apache.flink.table.runtime.operators.join.FlinkJoinType;
 import org.apache.flink.table.runtime.operators.join.lookup.AsyncLookupJoinRunner;
 import org.apache.flink.table.runtime.operators.join.lookup.AsyncLookupJoinWithCalcRunner;
+import org.apache.flink.table.runtime.operators.join.lookup.LookupCacheConfig;
 import org.apache.flink.table.runtime.operators.join.lookup.LookupJoinRunner;
 import org.apache.flink.table.runtime.operators.join.lookup.LookupJoinWithCalcRunner;
 import org.apache.flink.table.runtime.types.PlannerTypeUtils;
@@ -83,6 +84,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nullable;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -302,6 +304,13 @@ public abstract class CommonExecLookupJoin extends ExecNodeBase<RowData>
 
         DataStructureConverter<?, ?> fetcherConverter =
                 DataStructureConverters.getConverter(generatedFuncWithType.dataType());
+        LookupCacheConfig cacheConfig =
+                createLookupCacheConfig(
+                        config,
+                        allLookupKeys,
+                        LookupJoinUtil.getOrderedLookupKeys(allLookupKeys.keySet()),
+                        inputRowType,
+                        tableSourceRowType);
         AsyncFunction<RowData, RowData> asyncFunc;
         if (calcOnTemporalTable != null) {
             // a projection or filter after table source scan
@@ -318,7 +327,8 @@ public abstract class CommonExecLookupJoin extends ExecNodeBase<RowData>
                             generatedResultFuture,
                             InternalSerializers.create(rightRowType),
                             isLeftOuterJoin,
-                            asyncBufferCapacity);
+                            asyncBufferCapacity,
+                            cacheConfig);
         } else {
             // right type is the same as table source row type, because no calc after temporal table
             asyncFunc =
@@ -328,7 +338,8 @@ public abstract class CommonExecLookupJoin extends ExecNodeBase<RowData>
                             generatedResultFuture,
                             InternalSerializers.create(rightRowType),
                             isLeftOuterJoin,
-                            asyncBufferCapacity);
+                            asyncBufferCapacity,
+                            cacheConfig);
         }
 
         // force ORDERED output mode currently, optimize it to UNORDERED
@@ -381,6 +392,9 @@ public abstract class CommonExecLookupJoin extends ExecNodeBase<RowData>
                         JavaScalaConversionUtil.toScala(Optional.ofNullable(joinCondition)),
                         JavaScalaConversionUtil.toScala(Optional.empty()),
                         true);
+        LookupCacheConfig cacheConfig =
+                createLookupCacheConfig(
+                        config, allLookupKeys, orderedLookupKeys, inputRowType, tableSourceRowType);
         ProcessFunction<RowData, RowData> processFunc;
         if (calcOnTemporalTable != null) {
             // a projection or filter after table source scan
@@ -396,7 +410,8 @@ public abstract class CommonExecLookupJoin extends ExecNodeBase<RowData>
                             generatedCalc,
                             generatedCollector,
                             isLeftOuterJoin,
-                            rightRowType.getFieldCount());
+                            rightRowType.getFieldCount(),
+                            cacheConfig);
         } else {
             // right type is the same as table source row type, because no calc after temporal table
             processFunc =
@@ -404,11 +419,38 @@ public abstract class CommonExecLookupJoin extends ExecNodeBase<RowData>
                             generatedFetcher,
                             generatedCollector,
                             isLeftOuterJoin,
-                            rightRowType.getFieldCount());
+                            rightRowType.getFieldCount(),
+                            cacheConfig);
         }
         return SimpleOperatorFactory.of(new ProcessOperator<>(processFunc));
     }
 
+    /**
+     * Creates the configuration of the cache in front of the lookup function, keyed by the input
+     * fields the lookup keys are taken from, or returns null if caching is disabled.
+     */
+    @Nullable
+    private LookupCacheConfig createLookupCacheConfig(
+            TableConfig config,
+            Map<Integer, LookupJoinUtil.LookupKey> allLookupKeys,
+            int[] orderedLookupKeys,
+            RowType inputRowType,
+            RowType tableSourceRowType) {
+        // constant lookup keys are the same for every input row
+        int[] keyFields =
+                Arrays.stream(orderedLookupKeys)
+                        .mapToObj(allLookupKeys::get)
+                        .filter(key -> key instanceof LookupJoinUtil.FieldRefLookupKey)
+                        .mapToInt(key -> ((LookupJoinUtil.FieldRefLookupKey) key).index)
+                        .toArray();
+        LogicalType[] keyTypes =
+                Arrays.stream(keyFields)
+                        .mapToObj(inputRowType::getTypeAt)
+                        .toArray(LogicalType[]::new);
+        return LookupCacheConfig.fromConfiguration(
+                config.getConfiguration(), keyFields, keyTypes, tableSourceRowType);
+    }
+
     // ----------------------------------------------------------------------------------------
     //                                       Validation
     // ----------------------------------------------------------------------------------------
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.nodes.exec.processor;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.transformations.ShuffleMode;
+import org.apache.flink.table.api.TableException;
+import org.apache.flink.table.api.config.OptimizerConfigOptions;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecEdge;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecNode;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecNodeGraph;
+import org.apache.flink.table.planner.plan.nodes.exec.InputProperty;
+import org.apache.flink.table.planner.plan.nodes.exec.batch.BatchExecExchange;
+import org.apache.flink.table.planner.plan.nodes.exec.batch.BatchExecGlobalRuntimeFilterBuilder;
+import org.apache.flink.table.planner.plan.nodes.exec.batch.BatchExecHashJoin;
+import org.apache.flink.table.planner.plan.nodes.exec.batch.BatchExecLocalRuntimeFilterBuilder;
+import org.apache.flink.table.planner.plan.nodes.exec.batch.BatchExecNode;
+import org.apache.flink.table.planner.plan.nodes.exec.batch.BatchExecRuntimeFilter;
+import org.apache.flink.table.planner.plan.nodes.exec.spec.JoinSpec;
+import org.apache.flink.table.planner.plan.nodes.exec.visitor.AbstractExecNodeExactlyOnceVisitor;
+import org.apache.flink.table.runtime.operators.join.FlinkJoinType;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link DAGProcessor} that adds a runtime filter to the probe side of the shuffled {@link
+ * BatchExecHashJoin}s, which drops the probe side records that can't find a match on the build side
+ * before they are shuffled.
+ *
+ * <p>The input of the build side exchange is additionally consumed by a {@link
+ * BatchExecLocalRuntimeFilterBuilder}. The local filters are merged by a {@link
+ * BatchExecGlobalRuntimeFilterBuilder} behind a singleton exchange, and the merged filter is
+ * broadcast to a {@link BatchExecRuntimeFilter}, which is added between the probe side input and
+ * the probe side exchange.
+ *
+ * <p>The runtime filter reads the bloom filter of the build side before the probe side, so the
+ * build side and the probe side must not have common inputs, otherwise the job may deadlock. The
+ * exchanges of the filters are {@link ShuffleMode#BATCH} exchanges, so the filter is completely
+ * built before the probe side is read.
+ *
+ * <p>NOTE: This processor can be only applied on {@link BatchExecNode} DAG.
+ */
+public class RuntimeFilterInjectionProcessor implements DAGProcessor {
+
+    @Override
+    public ExecNodeGraph process(ExecNodeGraph execGraph, DAGProcessContext context) {
+        if (!execGraph.getRootNodes().stream().allMatch(r -> r instanceof BatchExecNode)) {
+            throw new TableException("Only BatchExecNode DAG are supported now.");
+        }
+
+        Configuration config = context.getPlanner().getTableConfig().getConfiguration();
+        long maxBuildRowCount =
+                config.getLong(
+                        OptimizerConfigOptions.TABLE_OPTIMIZER_RUNTIME_FILTER_MAX_BUILD_ROW_COUNT);
+        if (maxBuildRowCount <= 0) {
+            return execGraph;
+        }
+
+        List<BatchExecHashJoin> hashJoins = new ArrayList<>();
+        Map<ExecNode<?>, Integer> numConsumers = new HashMap<>();
+        AbstractExecNodeExactlyOnceVisitor visitor =
+                new AbstractExecNodeExactlyOnceVisitor() {
+                    @Override
+                    protected void visitNode(ExecNode<?> node) {
+                        if (node instanceof BatchExecHashJoin) {
+                            hashJoins.add((BatchExecHashJoin) node);
+                        }
+                        node.getInputEdges()
+                                .forEach(e -> numConsumers.merge(e.getSource(), 1, Integer::sum));
+                        visitInputs(node);
+                    }
+                };
+        execGraph.getRootNodes().forEach(r -> r.accept(visitor));
+
+        for (BatchExecHashJoin hashJoin : hashJoins) {
+            tryInjectRuntimeFilter(hashJoin, numConsumers, maxBuildRowCount);
+        }
+        return execGraph;
+    }
+
+    private void tryInjectRuntimeFilter(
+            BatchExecHashJoin hashJoin,
+            Map<ExecNode<?>, Integer> numConsumers,
+            long maxBuildRowCount) {
+        JoinSpec joinSpec = hashJoin.getJoinSpec();
+        boolean leftIsBuild = hashJoin.isLeftBuild();
+        if (!canFilterProbeSide(joinSpec.getJoinType(), leftIsBuild)
+                || hashJoin.getEstimatedBuildRowCount() > maxBuildRowCount) {
+            return;
+        }
+
+        ExecNode<?> buildInput = hashJoin.getInputEdges().get(leftIsBuild ? 0 : 1).getSource();
+        ExecNode<?> probeInput = hashJoin.getInputEdges().get(leftIsBuild ? 1 : 0).getSource();
+        // only filter a probe side which is shuffled to this join only
+        if (!(probeInput instanceof BatchExecExchange) || numConsumers.get(probeInput) > 1) {
+            return;
+        }
+        BatchExecExchange probeExchange = (BatchExecExchange) probeInput;
+        ExecNode<?> probeSource = probeExchange.getInputEdges().get(0).getSource();
+        if (haveCommonInputs(buildInput, probeSource)) {
+            return;
+        }
+        // build the filter before the build side is shuffled
+        ExecNode<?> buildSource =
+                buildInput instanceof BatchExecExchange
+                        ? buildInput.getInputEdges().get(0).getSource()
+                        : buildInput;
+
+        int expectedEntries = (int) Math.min(maxBuildRowCount, Integer.MAX_VALUE);
+        int[] buildKeys = leftIsBuild ? joinSpec.getLeftKeys() : joinSpec.getRightKeys();
+        int[] probeKeys = leftIsBuild ? joinSpec.getRightKeys() : joinSpec.getLeftKeys();
+
+        BatchExecLocalRuntimeFilterBuilder localBuilder =
+                new BatchExecLocalRuntimeFilterBuilder(
+                        buildKeys,
+                        expectedEntries,
+                        maxBuildRowCount,
+                        InputProperty.DEFAULT,
+                        "LocalRuntimeFilterBuilder");
+        localBuilder.setInputEdges(
+                Collections.singletonList(createEdge(buildSource, localBuilder)));
+        numConsumers.merge(buildSource, 1, Integer::sum);
+
+        BatchExecGlobalRuntimeFilterBuilder globalBuilder =
+                new BatchExecGlobalRuntimeFilterBuilder(
+                        expectedEntries,
+                        maxBuildRowCount,
+                        InputProperty.builder()
+                                .requiredDistribution(InputProperty.SINGLETON_DISTRIBUTION)
+                                .build(),
+                        "GlobalRuntimeFilterBuilder");
+        BatchExecExchange singletonExchange =
+                createExchange(localBuilder, globalBuilder.getInputProperties().get(0));
+        globalBuilder.setInputEdges(
+                Collections.singletonList(createEdge(singletonExchange, globalBuilder)));
+
+        BatchExecRuntimeFilter runtimeFilter =
+                new BatchExecRuntimeFilter(
+                        probeKeys,
+                        expectedEntries,
+                        InputProperty.builder()
+                                .requiredDistribution(InputProperty.BROADCAST_DISTRIBUTION)
+                                .damBehavior(InputProperty.DamBehavior.BLOCKING)
+                                .priority(0)
+                                .build(),
+                        InputProperty.builder().priority(1).build(),
+                        (RowType) probeSource.getOutputType(),
+                        "RuntimeFilter");
+        BatchExecExchange broadcastExchange =
+                createExchange(globalBuilder, runtimeFilter.getInputProperties().get(0));
+        runtimeFilter.setInputEdges(
+                Arrays.asList(
+                        createEdge(broadcastExchange, runtimeFilter),
+                        createEdge(probeSource, runtimeFilter)));
+
+        probeExchange.replaceInputEdge(0, createEdge(runtimeFilter, probeExchange));
+    }
+
+    /** Whether the probe side records without a match are dropped by the join. */
+    private static boolean canFilterProbeSide(FlinkJoinType joinType, boolean leftIsBuild) {
+        switch (joinType) {
+            case INNER:
+            case SEMI:
+                return true;
+            case LEFT:
+                return leftIsBuild;
+            case RIGHT:
+                return !leftIsBuild;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean haveCommonInputs(ExecNode<?> left, ExecNode<?> right) {
+        Set<ExecNode<?>> leftInputs = collectInputs(left);
+        return collectInputs(right).stream().anyMatch(leftInputs::contains);
+    }
+
+    /** Returns the given node and all its direct and indirect inputs. */
+    private static Set<ExecNode<?>> collectInputs(ExecNode<?> node) {
+        Set<ExecNode<?>> inputs = new HashSet<>();
+        node.accept(
+                new AbstractExecNodeExactlyOnceVisitor() {
+                    @Override
+                    protected void visitNode(ExecNode<?> node) {
+                        inputs.add(node);
+                        visitInputs(node);
+                    }
+                });
+        return inputs;
+    }
+
+    private static BatchExecExchange createExchange(
+            ExecNode<?> input, InputProperty consumerInputProperty) {
+        InputProperty inputProperty =
+                InputProperty.builder()
+                        .requiredDistribution(consumerInputProperty.getRequiredDistribution())
+                        .damBehavior(consumerInputProperty.getDamBehavior())
+                        .priority(consumerInputProperty.getPriority())
+                        .build();
+        BatchExecExchange exchange =
+                new BatchExecExchange(inputProperty, (RowType) input.getOutputType(), "Exchange");
+        // a pipelined exchange doesn't ensure the BLOCKING filter input of the runtime filter
+        exchange.setRequiredShuffleMode(ShuffleMode.BATCH);
+        exchange.setInputEdges(Collections.singletonList(createEdge(input, exchange)));
+        return exchange;
+    }
+
+    private static ExecEdge createEdge(ExecNode<?> source, ExecNode<?> target) {
+        return ExecEdge.builder().source(source).target(target).build();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.nodes.exec.stream;
+
+import org.apache.flink.api.dag.Transformation;
+import org.apache.flink.streaming.api.operators.ProcessOperator;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.table.api.TableConfig;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.planner.codegen.sort.ComparatorCodeGenerator;
+import org.apache.flink.table.planner.delegation.PlannerBase;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecEdge;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecNode;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecNodeBase;
+import org.apache.flink.table.planner.plan.nodes.exec.InputProperty;
+import org.apache.flink.table.planner.plan.nodes.exec.SingleTransformationTranslator;
+import org.apache.flink.table.planner.plan.nodes.exec.spec.PartitionSpec;
+import org.apache.flink.table.planner.plan.nodes.exec.spec.SortSpec;
+import org.apache.flink.table.planner.plan.utils.KeySelectorUtil;
+import org.apache.flink.table.runtime.generated.GeneratedRecordComparator;
+import org.apache.flink.table.runtime.keyselector.RowDataKeySelector;
+import org.apache.flink.table.runtime.operators.rank.LocalAppendOnlyTopNFunction;
+import org.apache.flink.table.runtime.operators.rank.RankRange;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+/**
+ * Stream {@link ExecNode} for local Rank, which filters an insert-only input before it is shuffled
+ * to the global {@link StreamExecRank}.
+ */
+public class StreamExecLocalRank extends ExecNodeBase<RowData>
+        implements StreamExecNode<RowData>, SingleTransformationTranslator<RowData> {
+
+    private final PartitionSpec partitionSpec;
+    private final SortSpec sortSpec;
+    private final RankRange rankRange;
+
+    public StreamExecLocalRank(
+            PartitionSpec partitionSpec,
+            SortSpec sortSpec,
+            RankRange rankRange,
+            InputProperty inputProperty,
+            RowType outputType,
+            String description) {
+        super(Collections.singletonList(inputProperty), outputType, description);
+        this.partitionSpec = partitionSpec;
+        this.sortSpec = sortSpec;
+        this.rankRange = rankRange;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Transformation<RowData> translateToPlanInternal(PlannerBase planner) {
+        ExecEdge inputEdge = getInputEdges().get(0);
+        Transformation<RowData> inputTransform =
+                (Transformation<RowData>) inputEdge.translateToPlan(planner);
+
+        RowType inputType = (RowType) inputEdge.getOutputType();
+        InternalTypeInfo<RowData> inputRowTypeInfo = InternalTypeInfo.of(inputType);
+        int[] sortFields = sortSpec.getFieldIndices();
+        RowDataKeySelector sortKeySelector =
+                KeySelectorUtil.getRowDataSelector(sortFields, inputRowTypeInfo);
+        RowDataKeySelector partitionKeySelector =
+                KeySelectorUtil.getRowDataSelector(
+                        partitionSpec.getFieldIndices(), inputRowTypeInfo);
+        // create a sort spec on sort keys.
+        SortSpec.SortSpecBuilder builder = SortSpec.builder();
+        IntStream.range(0, sortFields.length)
+                .forEach(
+                        idx ->
+                                builder.addField(
+                                        idx,
+                                        sortSpec.getFieldSpec(idx).getIsAscendingOrder(),
+                                        sortSpec.getFieldSpec(idx).getNullIsLast()));
+        SortSpec sortSpecInSortKey = builder.build();
+        TableConfig tableConfig = planner.getTableConfig();
+        GeneratedRecordComparator sortKeyComparator =
+                ComparatorCodeGenerator.gen(
+                        tableConfig,
+                        "StreamExecLocalSortComparator",
+                        RowType.of(sortSpec.getFieldTypes(inputType)),
+                        sortSpecInSortKey);
+        long cacheSize =
+                tableConfig.getConfiguration().getLong(StreamExecRank.TABLE_EXEC_TOPN_CACHE_SIZE);
+
+        LocalAppendOnlyTopNFunction processFunction =
+                new LocalAppendOnlyTopNFunction(
+                        sortKeyComparator,
+                        partitionKeySelector,
+                        sortKeySelector,
+                        rankRange,
+                        cacheSize);
+
+        return new OneInputTransformation<>(
+                inputTransform,
+                getDescription(),
+                new ProcessOperator<>(processFunction),
+                InternalTypeInfo.of((RowType) getOutputType()),
+                inputTransform.getParallelism());
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.flink.streaming.api.operators.SimpleOperatorFactory;
 import org.apache.flink.streaming.api.transformations.OneInputTransformation;
 import org.apache.flink.table.api.TableConfig;
 import org.apache.flink.table.api.TableException;
+import org.apache.flink.table.api.config.ExecutionConfigOptions;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.planner.codegen.CodeGeneratorContext;
 import org.apache.flink.table.planner.codegen.agg.AggsHandlerCodeGenerator;
@@ -180,6 +181,16 @@ public class StreamExecWindowAggregate extends ExecNodeBase<RowData>
                         .toArray(LogicalType[]::new);
         final LogicalType[] accTypes = convertToLogicalTypes(aggInfoList.getAccTypes());
 
+        final boolean bufferSpillEnabled =
+                config.getConfiguration()
+                        .getBoolean(
+                                ExecutionConfigOptions.TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_ENABLED);
+        final int bufferSpillMaxNumFileHandles =
+                config.getConfiguration()
+                        .getInteger(
+                                ExecutionConfigOptions
+                                        .TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_MAX_NUM_FILE_HANDLES);
+
         final OneInputStreamOperator<RowData, RowData> windowOperator =
                 SlicingWindowAggOperatorBuilder.builder()
                         .inputType(inputRowType)
@@ -187,6 +198,8 @@ public class StreamExecWindowAggregate extends ExecNodeBase<RowData>
                         .assigner(sliceAssigner)
                         .countStarIndex(aggInfoList.getIndexOfCountStar())
                         .aggregate(generatedAggsHandler, accTypes)
+                        .bufferSpillEnabled(bufferSpillEnabled)
+                        .bufferSpillMaxNumFileHandles(bufferSpillMaxNumFileHandles)
                         .build();
 
         final OneInputTransformation<RowData, RowData> transform =
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.nodes.exec.stream;
+
+import org.apache.flink.api.dag.Transformation;
+import org.apache.flink.streaming.api.transformations.TwoInputTransformation;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.planner.delegation.PlannerBase;
+import org.apache.flink.table.planner.plan.logical.WindowAttachedWindowingStrategy;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecEdge;
+import org.apache.flink.table.planner.plan.nodes.exec.ExecNodeBase;
+import org.apache.flink.table.planner.plan.nodes.exec.InputProperty;
+import org.apache.flink.table.planner.plan.nodes.exec.SingleTransformationTranslator;
+import org.apache.flink.table.planner.plan.nodes.exec.spec.JoinSpec;
+import org.apache.flink.table.planner.plan.utils.JoinUtil;
+import org.apache.flink.table.planner.plan.utils.KeySelectorUtil;
+import org.apache.flink.table.runtime.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.keyselector.RowDataKeySelector;
+import org.apache.flink.table.runtime.operators.join.window.WindowJoinOperator;
+import org.apache.flink.table.runtime.operators.join.window.WindowJoinOperatorBuilder;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.apache.flink.shaded.guava18.com.google.common.collect.Lists;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link StreamExecNode} for WindowJoin.
+ *
+ * <p>A window join joins the elements of two inputs that share a common key and are in the same
+ * window. The records of both inputs are buffered per window and the join result is emitted once
+ * the watermark passes the end of the window.
+ */
+public class StreamExecWindowJoin extends ExecNodeBase<RowData>
+        implements StreamExecNode<RowData>, SingleTransformationTranslator<RowData> {
+
+    private final JoinSpec joinSpec;
+    private final WindowAttachedWindowingStrategy leftWindowing;
+    private final WindowAttachedWindowingStrategy rightWindowing;
+
+    public StreamExecWindowJoin(
+            JoinSpec joinSpec,
+            WindowAttachedWindowingStrategy leftWindowing,
+            WindowAttachedWindowingStrategy rightWindowing,
+            InputProperty leftInputProperty,
+            InputProperty rightInputProperty,
+            RowType outputType,
+            String description) {
+        super(Lists.newArrayList(leftInputProperty, rightInputProperty), outputType, description);
+        this.joinSpec = checkNotNull(joinSpec);
+        this.leftWindowing = checkNotNull(leftWindowing);
+        this.rightWindowing = checkNotNull(rightWindowing);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Transformation<RowData> translateToPlanInternal(PlannerBase planner) {
+        final ExecEdge leftInputEdge = getInputEdges().get(0);
+        final ExecEdge rightInputEdge = getInputEdges().get(1);
+
+        final Transformation<RowData> leftTransform =
+                (Transformation<RowData>) leftInputEdge.translateToPlan(planner);
+        final Transformation<RowData> rightTransform =
+                (Transformation<RowData>) rightInputEdge.translateToPlan(planner);
+
+        final RowType leftType = (RowType) leftInputEdge.getOutputType();
+        final RowType rightType = (RowType) rightInputEdge.getOutputType();
+        JoinUtil.validateJoinSpec(joinSpec, leftType, rightType, true);
+
+        final int[] leftJoinKey = joinSpec.getLeftKeys();
+        final int[] rightJoinKey = joinSpec.getRightKeys();
+
+        final InternalTypeInfo<RowData> leftTypeInfo = InternalTypeInfo.of(leftType);
+        final InternalTypeInfo<RowData> rightTypeInfo = InternalTypeInfo.of(rightType);
+
+        GeneratedJoinCondition generatedCondition =
+                JoinUtil.generateConditionFunction(
+                        planner.getTableConfig(), joinSpec, leftType, rightType);
+
+        WindowJoinOperator operator =
+                WindowJoinOperatorBuilder.builder()
+                        .leftSerializer(leftTypeInfo.toRowSerializer())
+                        .rightSerializer(rightTypeInfo.toRowSerializer())
+                        .generatedJoinCondition(generatedCondition)
+                        .leftWindowEndIndex(leftWindowing.getWindowEnd())
+                        .rightWindowEndIndex(rightWindowing.getWindowEnd())
+                        .filterNullKeys(joinSpec.getFilterNulls())
+                        .joinType(joinSpec.getJoinType())
+                        .build();
+
+        final RowType returnType = (RowType) getOutputType();
+        final TwoInputTransformation<RowData, RowData, RowData> transform =
+                new TwoInputTransformation<>(
+                        leftTransform,
+                        rightTransform,
+                        getDescription(),
+                        operator,
+                        InternalTypeInfo.of(returnType),
+                        leftTransform.getParallelism());
+
+        // set KeyType and Selector for state
+        RowDataKeySelector leftSelect =
+                KeySelectorUtil.getRowDataSelector(leftJoinKey, leftTypeInfo);
+        RowDataKeySelector rightSelect =
+                KeySelectorUtil.getRowDataSelector(rightJoinKey, rightTypeInfo);
+        transform.setStateKeySelectors(leftSelect, rightSelect);
+        transform.setStateKeyType(leftSelect.getProducedType());
+        return transform;
+    }
+}
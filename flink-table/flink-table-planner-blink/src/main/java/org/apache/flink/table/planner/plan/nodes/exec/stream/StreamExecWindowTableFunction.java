@@ -19,13 +19,27 @@
 package org.apache.flink.table.planner.plan.nodes.exec.stream;
 
 import org.apache.flink.api.dag.Transformation;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.planner.delegation.PlannerBase;
+import org.apache.flink.table.planner.plan.logical.CumulativeWindowSpec;
+import org.apache.flink.table.planner.plan.logical.HoppingWindowSpec;
+import org.apache.flink.table.planner.plan.logical.TimeAttributeWindowingStrategy;
+import org.apache.flink.table.planner.plan.logical.TumblingWindowSpec;
+import org.apache.flink.table.planner.plan.logical.WindowSpec;
 import org.apache.flink.table.planner.plan.logical.WindowingStrategy;
 import org.apache.flink.table.planner.plan.nodes.exec.ExecEdge;
 import org.apache.flink.table.planner.plan.nodes.exec.ExecNode;
 import org.apache.flink.table.planner.plan.nodes.exec.ExecNodeBase;
 import org.apache.flink.table.planner.plan.nodes.exec.InputProperty;
+import org.apache.flink.table.planner.plan.nodes.exec.SingleTransformationTranslator;
+import org.apache.flink.table.runtime.operators.window.TimeWindow;
+import org.apache.flink.table.runtime.operators.window.WindowTableFunctionOperator;
+import org.apache.flink.table.runtime.operators.window.assigners.CumulativeWindowAssigner;
+import org.apache.flink.table.runtime.operators.window.assigners.SlidingWindowAssigner;
+import org.apache.flink.table.runtime.operators.window.assigners.TumblingWindowAssigner;
+import org.apache.flink.table.runtime.operators.window.assigners.WindowAssigner;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
 import org.apache.flink.table.types.logical.RowType;
 
 import java.util.Collections;
@@ -37,7 +51,7 @@ import java.util.Collections;
  * indicate the assigned window.
  */
 public class StreamExecWindowTableFunction extends ExecNodeBase<RowData>
-        implements StreamExecNode<RowData> {
+        implements StreamExecNode<RowData>, SingleTransformationTranslator<RowData> {
 
     private final WindowingStrategy windowingStrategy;
 
@@ -50,17 +64,64 @@ public class StreamExecWindowTableFunction extends ExecNodeBase<RowData>
         this.windowingStrategy = windowingStrategy;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     protected Transformation<RowData> translateToPlanInternal(PlannerBase planner) {
         final ExecEdge inputEdge = getInputEdges().get(0);
-        final RowType inputRowType = (RowType) inputEdge.getOutputType();
-        String[] inputFieldNames = inputRowType.getFieldNames().toArray(new String[0]);
-        String windowSummary = windowingStrategy.toSummaryString(inputFieldNames);
+        if (!(windowingStrategy instanceof TimeAttributeWindowingStrategy)) {
+            final RowType inputRowType = (RowType) inputEdge.getOutputType();
+            String[] inputFieldNames = inputRowType.getFieldNames().toArray(new String[0]);
+            throw new UnsupportedOperationException(
+                    String.format(
+                            "Currently Flink doesn't support individual window table-valued function %s.",
+                            windowingStrategy.toSummaryString(inputFieldNames)));
+        }
+        final Transformation<RowData> inputTransform =
+                (Transformation<RowData>) inputEdge.translateToPlan(planner);
+        final int rowtimeIndex =
+                windowingStrategy.isRowtime()
+                        ? ((TimeAttributeWindowingStrategy) windowingStrategy)
+                                .getTimeAttributeIndex()
+                        : -1;
+        final WindowTableFunctionOperator windowTableFunctionOperator =
+                new WindowTableFunctionOperator(createWindowAssigner(), rowtimeIndex);
+        return new OneInputTransformation<>(
+                inputTransform,
+                getDescription(),
+                windowTableFunctionOperator,
+                InternalTypeInfo.of(getOutputType()),
+                inputTransform.getParallelism());
+    }
+
+    private WindowAssigner<TimeWindow> createWindowAssigner() {
+        final WindowSpec windowSpec = windowingStrategy.getWindow();
+        if (windowSpec instanceof TumblingWindowSpec) {
+            TumblingWindowAssigner windowAssigner =
+                    TumblingWindowAssigner.of(((TumblingWindowSpec) windowSpec).getSize());
+            return windowingStrategy.isRowtime()
+                    ? windowAssigner.withEventTime()
+                    : windowAssigner.withProcessingTime();
+
+        } else if (windowSpec instanceof HoppingWindowSpec) {
+            HoppingWindowSpec hoppingWindowSpec = (HoppingWindowSpec) windowSpec;
+            SlidingWindowAssigner windowAssigner =
+                    SlidingWindowAssigner.of(
+                            hoppingWindowSpec.getSize(), hoppingWindowSpec.getSlide());
+            return windowingStrategy.isRowtime()
+                    ? windowAssigner.withEventTime()
+                    : windowAssigner.withProcessingTime();
+
+        } else if (windowSpec instanceof CumulativeWindowSpec) {
+            CumulativeWindowSpec cumulativeWindowSpec = (CumulativeWindowSpec) windowSpec;
+            CumulativeWindowAssigner windowAssigner =
+                    CumulativeWindowAssigner.of(
+                            cumulativeWindowSpec.getMaxSize(), cumulativeWindowSpec.getStep());
+            return windowingStrategy.isRowtime()
+                    ? windowAssigner.withEventTime()
+                    : windowAssigner.withProcessingTime();
 
-        throw new UnsupportedOperationException(
-                String.format(
-                        "Currently Flink doesn't support individual window table-valued function %s.\n "
-                                + "Please use window table-valued function with aggregate together using window_start and window_end as group keys.",
-                        windowSummary));
+        } else {
+            throw new UnsupportedOperationException(windowSpec + " is not supported yet.");
+        }
     }
 }
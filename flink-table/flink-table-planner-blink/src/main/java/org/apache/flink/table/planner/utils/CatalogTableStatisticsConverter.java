@@ -84,6 +84,7 @@ public class CatalogTableStatisticsConverter {
         Integer maxLen = null;
         Comparable<?> max = null;
         Comparable<?> min = null;
+        Map<Comparable<?>, Long> hotValues = null;
         if (columnStatisticsData instanceof CatalogColumnStatisticsDataBoolean) {
             CatalogColumnStatisticsDataBoolean booleanData =
                     (CatalogColumnStatisticsDataBoolean) columnStatisticsData;
@@ -105,6 +106,9 @@ public class CatalogTableStatisticsConverter {
             maxLen = 8;
             max = longData.getMax();
             min = longData.getMin();
+            if (longData.getHotValues() != null) {
+                hotValues = new HashMap<>(longData.getHotValues());
+            }
         } else if (columnStatisticsData instanceof CatalogColumnStatisticsDataDouble) {
             CatalogColumnStatisticsDataDouble doubleData =
                     (CatalogColumnStatisticsDataDouble) columnStatisticsData;
@@ -119,6 +123,9 @@ public class CatalogTableStatisticsConverter {
             ndv = strData.getNdv();
             avgLen = strData.getAvgLength();
             maxLen = null == strData.getMaxLength() ? null : strData.getMaxLength().intValue();
+            if (strData.getHotValues() != null) {
+                hotValues = new HashMap<>(strData.getHotValues());
+            }
         } else if (columnStatisticsData instanceof CatalogColumnStatisticsDataBinary) {
             CatalogColumnStatisticsDataBinary binaryData =
                     (CatalogColumnStatisticsDataBinary) columnStatisticsData;
@@ -153,6 +160,7 @@ public class CatalogTableStatisticsConverter {
                 .setMaxLen(maxLen)
                 .setMax(max)
                 .setMin(min)
+                .setHotValues(hotValues)
                 .build();
     }
 }
@@ -30,7 +30,7 @@ import org.apache.flink.table.planner.operations.PlannerQueryOperation
 import org.apache.flink.table.planner.plan.`trait`.FlinkRelDistributionTraitDef
 import org.apache.flink.table.planner.plan.nodes.exec.ExecNodeGraph
 import org.apache.flink.table.planner.plan.nodes.exec.batch.BatchExecNode
-import org.apache.flink.table.planner.plan.nodes.exec.processor.{DAGProcessContext, DAGProcessor, DeadlockBreakupProcessor, MultipleInputNodeCreationProcessor}
+import org.apache.flink.table.planner.plan.nodes.exec.processor.{DAGProcessContext, DAGProcessor, DeadlockBreakupProcessor, MultipleInputNodeCreationProcessor, RuntimeFilterInjectionProcessor}
 import org.apache.flink.table.planner.plan.nodes.exec.utils.ExecNodePlanDumper
 import org.apache.flink.table.planner.plan.optimize.{BatchCommonSubGraphBasedOptimizer, Optimizer}
 import org.apache.flink.table.planner.plan.utils.FlinkRelOptUtil
@@ -70,6 +70,11 @@ class BatchPlanner(
     val processors = new util.ArrayList[DAGProcessor]()
     // deadlock breakup
     processors.add(new DeadlockBreakupProcessor())
+    // runtime filter injection, only for joins whose build and probe sides are independent
+    if (getTableConfig.getConfiguration.getBoolean(
+        OptimizerConfigOptions.TABLE_OPTIMIZER_RUNTIME_FILTER_ENABLED)) {
+      processors.add(new RuntimeFilterInjectionProcessor())
+    }
     // multiple input creation
     if (getTableConfig.getConfiguration.getBoolean(
         OptimizerConfigOptions.TABLE_OPTIMIZER_MULTIPLE_INPUT_ENABLED)) {
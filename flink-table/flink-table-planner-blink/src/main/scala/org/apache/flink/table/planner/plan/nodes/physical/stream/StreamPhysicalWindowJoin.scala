@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.table.planner.plan.nodes.physical.stream
+
+import org.apache.flink.table.planner.calcite.FlinkTypeFactory
+import org.apache.flink.table.planner.plan.logical.WindowAttachedWindowingStrategy
+import org.apache.flink.table.planner.plan.nodes.exec.stream.StreamExecWindowJoin
+import org.apache.flink.table.planner.plan.nodes.exec.{ExecNode, InputProperty}
+import org.apache.flink.table.planner.plan.nodes.physical.common.CommonPhysicalJoin
+
+import org.apache.calcite.plan._
+import org.apache.calcite.rel.core.{Join, JoinRelType}
+import org.apache.calcite.rel.{RelNode, RelWriter}
+import org.apache.calcite.rex.RexNode
+
+/**
+ * Stream physical RelNode for window join of window table-valued functions.
+ *
+ * The join condition requires the window starts and window ends of both inputs to be equal, the
+ * records of both inputs are buffered per window and joined when the window is fired.
+ */
+class StreamPhysicalWindowJoin(
+    cluster: RelOptCluster,
+    traitSet: RelTraitSet,
+    leftRel: RelNode,
+    rightRel: RelNode,
+    condition: RexNode,
+    joinType: JoinRelType,
+    val leftWindowing: WindowAttachedWindowingStrategy,
+    val rightWindowing: WindowAttachedWindowingStrategy)
+  extends CommonPhysicalJoin(cluster, traitSet, leftRel, rightRel, condition, joinType)
+  with StreamPhysicalRel {
+
+  override def requireWatermark: Boolean = true
+
+  override def copy(
+      traitSet: RelTraitSet,
+      conditionExpr: RexNode,
+      left: RelNode,
+      right: RelNode,
+      joinType: JoinRelType,
+      semiJoinDone: Boolean): Join = {
+    new StreamPhysicalWindowJoin(
+      cluster,
+      traitSet,
+      left,
+      right,
+      conditionExpr,
+      joinType,
+      leftWindowing,
+      rightWindowing)
+  }
+
+  override def explainTerms(pw: RelWriter): RelWriter = {
+    val leftFieldNames = getLeft.getRowType.getFieldNames.toArray(new Array[String](0))
+    val rightFieldNames = getRight.getRowType.getFieldNames.toArray(new Array[String](0))
+    super.explainTerms(pw)
+      .item("leftWindow", leftWindowing.toSummaryString(leftFieldNames))
+      .item("rightWindow", rightWindowing.toSummaryString(rightFieldNames))
+  }
+
+  override def translateToExecNode(): ExecNode[_] = {
+    new StreamExecWindowJoin(
+      joinSpec,
+      leftWindowing,
+      rightWindowing,
+      InputProperty.DEFAULT,
+      InputProperty.DEFAULT,
+      FlinkTypeFactory.toLogicalRowType(getRowType),
+      getRelDetailedDescription)
+  }
+}
@@ -174,6 +174,11 @@ object FlinkBatchProgram {
           .setHepMatchOrder(HepMatchOrder.BOTTOM_UP)
           .add(FlinkBatchRuleSets.JOIN_NULL_FILTER_RULES)
           .build(), "deal with possible null join keys")
+        .addProgram(FlinkHepRuleSetProgramBuilder.newBuilder
+          .setHepRulesExecutionType(HEP_RULES_EXECUTION_TYPE.RULE_COLLECTION)
+          .setHepMatchOrder(HepMatchOrder.BOTTOM_UP)
+          .add(FlinkBatchRuleSets.JOIN_SKEW_RULES)
+          .build(), "split joins on skewed join keys")
         .build())
 
     // window rewrite
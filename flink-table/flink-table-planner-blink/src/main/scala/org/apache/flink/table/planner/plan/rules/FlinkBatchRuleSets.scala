@@ -155,6 +155,10 @@ object FlinkBatchRuleSets {
     JoinDeriveNullFilterRule.INSTANCE
   )
 
+  val JOIN_SKEW_RULES: RuleSet = RuleSets.ofList(
+    JoinSkewedKeySplitRule.INSTANCE
+  )
+
   val JOIN_PREDICATE_REWRITE_RULES: RuleSet = RuleSets.ofList((
     RuleSets.ofList(JoinDependentConditionDerivationRule.INSTANCE).asScala ++
     JOIN_NULL_FILTER_RULES.asScala
@@ -443,6 +447,8 @@ object FlinkBatchRuleSets {
     */
   val PHYSICAL_REWRITE: RuleSet = RuleSets.ofList(
     EnforceLocalHashAggRule.INSTANCE,
-    EnforceLocalSortAggRule.INSTANCE
+    EnforceLocalSortAggRule.INSTANCE,
+    // push the local aggregates into the scans after they have been enforced
+    PushLocalHashAggIntoScanRule.INSTANCE
   )
 }
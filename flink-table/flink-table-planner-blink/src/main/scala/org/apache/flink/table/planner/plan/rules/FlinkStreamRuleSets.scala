@@ -442,6 +442,7 @@ object FlinkStreamRuleSets {
     // join
     StreamPhysicalJoinRule.INSTANCE,
     StreamPhysicalIntervalJoinRule.INSTANCE,
+    StreamPhysicalWindowJoinRule.INSTANCE,
     StreamPhysicalTemporalJoinRule.INSTANCE,
     StreamPhysicalLookupJoinRule.SNAPSHOT_ON_TABLESCAN,
     StreamPhysicalLookupJoinRule.SNAPSHOT_ON_CALC_TABLESCAN,
@@ -478,6 +479,8 @@ object FlinkStreamRuleSets {
   val PHYSICAL_REWRITE: RuleSet = RuleSets.ofList(
     //optimize agg rule
     TwoStageOptimizedAggregateRule.INSTANCE,
+    // optimize rank rule
+    TwoStageOptimizedRankRule.INSTANCE,
     // incremental agg rule
     IncrementalAggregateRule.INSTANCE
   )
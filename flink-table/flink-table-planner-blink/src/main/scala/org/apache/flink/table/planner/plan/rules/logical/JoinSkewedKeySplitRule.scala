@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.rules.logical
+
+import org.apache.flink.annotation.Experimental
+import org.apache.flink.configuration.ConfigOption
+import org.apache.flink.configuration.ConfigOptions.key
+import org.apache.flink.table.planner.plan.schema.FlinkPreparingTableBase
+import org.apache.flink.table.planner.plan.utils.FlinkRelOptUtil
+
+import org.apache.calcite.plan.RelOptRule.{any, operand}
+import org.apache.calcite.plan.{RelOptRule, RelOptRuleCall}
+import org.apache.calcite.rel.RelNode
+import org.apache.calcite.rel.`type`.RelDataType
+import org.apache.calcite.rel.core.JoinRelType
+import org.apache.calcite.rel.logical.{LogicalFilter, LogicalJoin, LogicalUnion}
+import org.apache.calcite.rel.metadata.RelMetadataQuery
+import org.apache.calcite.rex.{RexBuilder, RexNode, RexUtil}
+import org.apache.calcite.sql.`type`.SqlTypeName
+import org.apache.calcite.sql.fun.SqlStdOperatorTable
+
+import java.lang.{Long => JLong}
+import java.math.{BigDecimal => JBigDecimal}
+
+import scala.collection.JavaConversions._
+
+/**
+  * Planner rule that splits a join on a skewed key into a join of the hot key values and a join
+  * of all other key values, if the statistics of a join key contain values
+  * (see [[org.apache.flink.table.plan.stats.ColumnStats#getHotValues]]) which occur more often
+  * than the skew threshold.
+  *
+  * {{{
+  *   Join(A, B, a.k = b.k)
+  * }}}
+  * is converted to
+  * {{{
+  *   Union(all)
+  *   :- Join(Filter(A, a.k IN hot), Filter(B, b.k IN hot), a.k = b.k)
+  *   +- Join(Filter(A, (a.k IN hot) IS NOT TRUE), Filter(B, (b.k IN hot) IS NOT TRUE), a.k = b.k)
+  * }}}
+  *
+  * A record with a hot key value can only match records with the same value, so both joins
+  * together produce the same result as the original join, also for outer joins. The build side of
+  * the join on the hot values is usually small enough to be broadcast, so the records of a hot
+  * value are joined where they are produced instead of being shuffled to a single subtask.
+  */
+class JoinSkewedKeySplitRule
+  extends RelOptRule(
+    operand(classOf[LogicalJoin],
+      operand(classOf[RelNode], any()),
+      operand(classOf[RelNode], any())),
+    "JoinSkewedKeySplitRule") {
+
+  override def matches(call: RelOptRuleCall): Boolean = {
+    val join: LogicalJoin = call.rel(0)
+    // semi and anti joins are skipped because their conditions may be null-aware
+    JoinSkewedKeySplitRule.SUPPORTED_JOIN_TYPES.contains(join.getJoinType) &&
+      join.analyzeCondition.pairs().nonEmpty
+  }
+
+  override def onMatch(call: RelOptRuleCall): Unit = {
+    val join: LogicalJoin = call.rel(0)
+    val left: RelNode = call.rel(1)
+    val right: RelNode = call.rel(2)
+
+    val rexBuilder = join.getCluster.getRexBuilder
+    val mq = join.getCluster.getMetadataQuery
+    val conf = FlinkRelOptUtil.getTableConfigFromContext(join)
+    val threshold = conf.getConfiguration.getLong(
+      JoinSkewedKeySplitRule.TABLE_OPTIMIZER_JOIN_SKEW_THRESHOLD)
+
+    // split on the first pair of join keys which has hot values on either side
+    val split = join.analyzeCondition.pairs().iterator
+      .map { pair =>
+        val leftKey = rexBuilder.makeInputRef(left, pair.source)
+        val rightKey = rexBuilder.makeInputRef(right, pair.target)
+        val hotValues = (getHotValues(left, pair.source, mq, threshold) ++
+          getHotValues(right, pair.target, mq, threshold)).distinct
+        // both sides must be filtered on the same values, otherwise matches are lost
+        val literals = hotValues
+          .map(v => (createLiteral(rexBuilder, leftKey.getType, v),
+            createLiteral(rexBuilder, rightKey.getType, v)))
+          .collect { case (Some(l), Some(r)) => (l, r) }
+        (leftKey, rightKey, literals)
+      }
+      .find(_._3.nonEmpty)
+
+    split.foreach { case (leftKey, rightKey, literals) =>
+      val leftHot = createInCondition(rexBuilder, leftKey, literals.map(_._1))
+      val rightHot = createInCondition(rexBuilder, rightKey, literals.map(_._2))
+      val leftCold = rexBuilder.makeCall(SqlStdOperatorTable.IS_NOT_TRUE, leftHot)
+      val rightCold = rexBuilder.makeCall(SqlStdOperatorTable.IS_NOT_TRUE, rightHot)
+
+      // the inputs of an already split join are filtered on the hot values
+      if (!isFilteredBy(left, leftHot, leftCold) && !isFilteredBy(right, rightHot, rightCold)) {
+        val hotJoin = join.copy(
+          join.getTraitSet,
+          Seq(LogicalFilter.create(left, leftHot), LogicalFilter.create(right, rightHot)))
+        val coldJoin = join.copy(
+          join.getTraitSet,
+          Seq(LogicalFilter.create(left, leftCold), LogicalFilter.create(right, rightCold)))
+        call.transformTo(LogicalUnion.create(Seq(hotJoin, coldJoin), true))
+      }
+    }
+  }
+
+  /** Returns the values of the given column which occur more often than the threshold. */
+  private def getHotValues(
+      input: RelNode,
+      index: Int,
+      mq: RelMetadataQuery,
+      threshold: Long): Seq[Comparable[_]] = {
+    val origin = mq.getColumnOrigin(input, index)
+    if (origin == null || origin.isDerived) {
+      Seq()
+    } else {
+      origin.getOriginTable match {
+        case table: FlinkPreparingTableBase =>
+          val fieldName = table.getRowType.getFieldNames.get(origin.getOriginColumnOrdinal)
+          val colStats = table.getStatistic.getColumnStats(fieldName)
+          if (colStats == null || colStats.getHotValues == null) {
+            Seq()
+          } else {
+            colStats.getHotValues.filter(_._2 > threshold).keys.toSeq
+          }
+        case _ => Seq()
+      }
+    }
+  }
+
+  /** Creates a literal of the given key type, or None if the value doesn't fit the type. */
+  private def createLiteral(
+      rexBuilder: RexBuilder,
+      keyType: RelDataType,
+      value: Comparable[_]): Option[RexNode] = {
+    val literalType = rexBuilder.getTypeFactory.createTypeWithNullability(keyType, false)
+    (keyType.getSqlTypeName, value) match {
+      case (SqlTypeName.TINYINT | SqlTypeName.SMALLINT | SqlTypeName.INTEGER |
+            SqlTypeName.BIGINT, n: Number) =>
+        val decimal = new JBigDecimal(n.toString)
+        if (decimal.stripTrailingZeros().scale() <= 0) {
+          Some(rexBuilder.makeLiteral(decimal, literalType, false))
+        } else {
+          None
+        }
+      case (SqlTypeName.DECIMAL, n: Number) =>
+        Some(rexBuilder.makeLiteral(new JBigDecimal(n.toString), literalType, false))
+      case (SqlTypeName.CHAR | SqlTypeName.VARCHAR, s: String) =>
+        Some(rexBuilder.makeLiteral(s, literalType, false))
+      case _ => None
+    }
+  }
+
+  private def createInCondition(
+      rexBuilder: RexBuilder,
+      key: RexNode,
+      literals: Seq[RexNode]): RexNode = {
+    RexUtil.composeDisjunction(
+      rexBuilder,
+      literals.map(l => rexBuilder.makeCall(SqlStdOperatorTable.EQUALS, key, l)))
+  }
+
+  private def isFilteredBy(input: RelNode, conditions: RexNode*): Boolean = input match {
+    case filter: LogicalFilter => conditions.contains(filter.getCondition)
+    case _ => false
+  }
+}
+
+object JoinSkewedKeySplitRule {
+  val INSTANCE = new JoinSkewedKeySplitRule
+
+  private val SUPPORTED_JOIN_TYPES =
+    Set(JoinRelType.INNER, JoinRelType.LEFT, JoinRelType.RIGHT, JoinRelType.FULL)
+
+  // It is a experimental config, will may be removed later.
+  @Experimental
+  val TABLE_OPTIMIZER_JOIN_SKEW_THRESHOLD: ConfigOption[JLong] =
+    key("table.optimizer.join.skew-threshold")
+        .defaultValue(JLong.valueOf(2000000L))
+        .withDescription("To avoid that a single hot join key value determines the run time " +
+            "of a join, a join is split into a join of the hot values and a join of all other " +
+            "values when the statistics of a join key contain values that occur more often " +
+            "than this threshold. The join of the hot values is usually broadcast.")
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.rules.physical.batch
+
+import org.apache.flink.table.api.config.OptimizerConfigOptions
+import org.apache.flink.table.connector.source.abilities.SupportsAggregatePushDown
+import org.apache.flink.table.functions.{BuiltInFunctionDefinition, BuiltInFunctionDefinitions, UserDefinedFunction}
+import org.apache.flink.table.planner.calcite.FlinkTypeFactory
+import org.apache.flink.table.planner.functions.aggfunctions.{AvgAggFunction, Count1AggFunction, CountAggFunction, MaxAggFunction, MinAggFunction, Sum0AggFunction, SumAggFunction}
+import org.apache.flink.table.planner.plan.abilities.source.{AggregatePushDownSpec, SourceAbilitySpec}
+import org.apache.flink.table.planner.plan.nodes.physical.batch.{BatchPhysicalLocalHashAggregate, BatchPhysicalTableSourceScan}
+import org.apache.flink.table.planner.plan.schema.TableSourceTable
+import org.apache.flink.table.planner.plan.utils.FlinkRelOptUtil
+
+import org.apache.calcite.plan.RelOptRule._
+import org.apache.calcite.plan.{RelOptRule, RelOptRuleCall}
+
+import scala.collection.JavaConversions._
+
+/**
+ * Planner rule that pushes a [[BatchPhysicalLocalHashAggregate]] into the
+ * [[BatchPhysicalTableSourceScan]] it reads from, if the table source implements
+ * [[SupportsAggregatePushDown]] and accepts all aggregates.
+ *
+ * <p>Only SUM, SUM0, MIN, MAX, COUNT and AVG without DISTINCT, FILTER or ordering are pushed down.
+ * An AVG is pushed down as a SUM0 and a COUNT, which are the accumulators of the local AVG. The new
+ * scan produces the same rows as the local aggregate, i.e. the grouping keys followed by the
+ * accumulators, so the global aggregate stays unchanged.
+ */
+class PushLocalHashAggIntoScanRule extends RelOptRule(
+  operand(classOf[BatchPhysicalLocalHashAggregate],
+    operand(classOf[BatchPhysicalTableSourceScan], none)),
+  "PushLocalHashAggIntoScanRule") {
+
+  override def matches(call: RelOptRuleCall): Boolean = {
+    val localAgg: BatchPhysicalLocalHashAggregate = call.rel(0)
+    val scan: BatchPhysicalTableSourceScan = call.rel(1)
+    val tableConfig = FlinkRelOptUtil.getTableConfigFromContext(localAgg)
+    if (!tableConfig.getConfiguration.getBoolean(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_SOURCE_AGGREGATE_PUSHDOWN_ENABLED)) {
+      return false
+    }
+
+    val tableSourceTable = scan.getTable.unwrap(classOf[TableSourceTable])
+    tableSourceTable != null &&
+      tableSourceTable.tableSource.isInstanceOf[SupportsAggregatePushDown] &&
+      !tableSourceTable.abilitySpecs.exists(_.isInstanceOf[AggregatePushDownSpec]) &&
+      localAgg.auxGrouping.isEmpty &&
+      localAgg.getAggCallToAggFunction.forall {
+        case (aggCall, function) =>
+          !aggCall.isDistinct &&
+            !aggCall.isApproximate &&
+            !aggCall.hasFilter &&
+            aggCall.getCollation.getFieldCollations.isEmpty &&
+            toBuiltInFunctions(function).nonEmpty
+      }
+  }
+
+  override def onMatch(call: RelOptRuleCall): Unit = {
+    val localAgg: BatchPhysicalLocalHashAggregate = call.rel(0)
+    val scan: BatchPhysicalTableSourceScan = call.rel(1)
+    val tableSourceTable = scan.getTable.unwrap(classOf[TableSourceTable])
+    val fieldNames = scan.getRowType.getFieldNames
+
+    // one pushed down aggregate per accumulator of the local aggregate
+    val aggregates = localAgg.getAggCallToAggFunction.flatMap {
+      case (aggCall, function) =>
+        val args = function match {
+          case _: Count1AggFunction => Array.empty[Int]
+          case _ => aggCall.getArgList.map(_.intValue()).toArray
+        }
+        toBuiltInFunctions(function).map(f => (f.getName, args))
+    }
+
+    val aggregatePushDownSpec = new AggregatePushDownSpec(
+      localAgg.grouping,
+      aggregates.map(_._1),
+      aggregates.map(_._2).toArray,
+      FlinkTypeFactory.toLogicalRowType(localAgg.getRowType))
+    val newTableSource = tableSourceTable.tableSource.copy()
+    if (!aggregatePushDownSpec.apply(
+      newTableSource, FlinkTypeFactory.toLogicalRowType(scan.getRowType))) {
+      return
+    }
+
+    val aggDigests = aggregates.map {
+      case (name, args) => s"$name(${args.map(fieldNames.get).mkString(", ")})"
+    }
+    val digest = s"aggregates=[grouping=[${localAgg.grouping.map(fieldNames.get).mkString(",")}]," +
+      s" aggFunctions=[${aggDigests.mkString(",")}]]"
+    val newTableSourceTable = tableSourceTable.copy(
+      newTableSource,
+      localAgg.getRowType,
+      Array(digest),
+      Array[SourceAbilitySpec](aggregatePushDownSpec))
+    val newScan = new BatchPhysicalTableSourceScan(
+      scan.getCluster, localAgg.getTraitSet, newTableSourceTable)
+    call.transformTo(newScan)
+  }
+
+  private def toBuiltInFunctions(
+      function: UserDefinedFunction): Seq[BuiltInFunctionDefinition] = function match {
+    case _: SumAggFunction => Seq(BuiltInFunctionDefinitions.SUM)
+    case _: Sum0AggFunction => Seq(BuiltInFunctionDefinitions.SUM0)
+    case _: MinAggFunction => Seq(BuiltInFunctionDefinitions.MIN)
+    case _: MaxAggFunction => Seq(BuiltInFunctionDefinitions.MAX)
+    case _: CountAggFunction | _: Count1AggFunction => Seq(BuiltInFunctionDefinitions.COUNT)
+    case _: AvgAggFunction => Seq(BuiltInFunctionDefinitions.SUM0, BuiltInFunctionDefinitions.COUNT)
+    case _ => Seq()
+  }
+}
+
+object PushLocalHashAggIntoScanRule {
+  val INSTANCE = new PushLocalHashAggIntoScanRule
+}
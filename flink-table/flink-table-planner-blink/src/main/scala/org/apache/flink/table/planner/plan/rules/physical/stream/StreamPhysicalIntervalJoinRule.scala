@@ -22,6 +22,7 @@ import org.apache.flink.table.planner.calcite.FlinkTypeFactory
 import org.apache.flink.table.planner.plan.nodes.FlinkRelNode
 import org.apache.flink.table.planner.plan.nodes.logical.FlinkLogicalJoin
 import org.apache.flink.table.planner.plan.nodes.physical.stream.StreamPhysicalIntervalJoin
+import org.apache.flink.table.planner.plan.utils.WindowJoinUtil
 
 import org.apache.calcite.plan.{RelOptRule, RelOptRuleCall, RelTraitSet}
 import org.apache.calcite.rel.RelNode
@@ -44,6 +45,11 @@ class StreamPhysicalIntervalJoinRule
       return false
     }
 
+    // window join is converted by StreamPhysicalWindowJoinRule
+    if (WindowJoinUtil.satisfyWindowJoin(join)) {
+      return false
+    }
+
     val (windowBounds, _) = extractWindowBounds(join)
 
     if (windowBounds.isDefined) {
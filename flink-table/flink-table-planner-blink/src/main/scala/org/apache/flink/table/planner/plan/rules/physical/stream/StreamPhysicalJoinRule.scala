@@ -23,7 +23,7 @@ import org.apache.flink.table.planner.calcite.FlinkTypeFactory
 import org.apache.flink.table.planner.plan.nodes.FlinkRelNode
 import org.apache.flink.table.planner.plan.nodes.logical.{FlinkLogicalJoin, FlinkLogicalRel, FlinkLogicalSnapshot}
 import org.apache.flink.table.planner.plan.nodes.physical.stream.StreamPhysicalJoin
-import org.apache.flink.table.planner.plan.utils.{IntervalJoinUtil, TemporalJoinUtil}
+import org.apache.flink.table.planner.plan.utils.{IntervalJoinUtil, TemporalJoinUtil, WindowJoinUtil}
 import org.apache.calcite.plan.{RelOptRule, RelOptRuleCall, RelTraitSet}
 import org.apache.calcite.rel.RelNode
 
@@ -38,6 +38,10 @@ class StreamPhysicalJoinRule
 
   override def matches(call: RelOptRuleCall): Boolean = {
     val join: FlinkLogicalJoin = call.rel(0)
+    // window join is converted by StreamPhysicalWindowJoinRule
+    if (WindowJoinUtil.satisfyWindowJoin(join)) {
+      return false
+    }
     if (!join.getJoinType.projectsRight) {
       // SEMI/ANTI join always converts to StreamExecJoin now
       return true
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.table.planner.plan.rules.physical.stream
+
+import org.apache.flink.table.planner.plan.nodes.FlinkRelNode
+import org.apache.flink.table.planner.plan.nodes.logical.FlinkLogicalJoin
+import org.apache.flink.table.planner.plan.nodes.physical.stream.StreamPhysicalWindowJoin
+import org.apache.flink.table.planner.plan.utils.WindowJoinUtil
+
+import org.apache.calcite.plan.{RelOptRule, RelOptRuleCall, RelTraitSet}
+import org.apache.calcite.rel.RelNode
+
+/**
+  * Rule that converts [[FlinkLogicalJoin]] whose inputs are window table-valued functions and
+  * whose join condition requires equal window starts and window ends to
+  * [[StreamPhysicalWindowJoin]].
+  */
+class StreamPhysicalWindowJoinRule
+  extends StreamPhysicalJoinRuleBase("StreamPhysicalWindowJoinRule") {
+
+  override def matches(call: RelOptRuleCall): Boolean = {
+    val join: FlinkLogicalJoin = call.rel(0)
+    if (!WindowJoinUtil.satisfyWindowJoin(join)) {
+      return false
+    }
+    // validate the windows here, exceptions thrown in onMatch are wrapped by the planner
+    WindowJoinUtil.createWindowingStrategies(join)
+    true
+  }
+
+  override protected def transform(
+      join: FlinkLogicalJoin,
+      leftInput: FlinkRelNode,
+      leftConversion: RelNode => RelNode,
+      rightInput: FlinkRelNode,
+      rightConversion: RelNode => RelNode,
+      providedTraitSet: RelTraitSet): FlinkRelNode = {
+    val (leftWindowing, rightWindowing) = WindowJoinUtil.createWindowingStrategies(join)
+    new StreamPhysicalWindowJoin(
+      join.getCluster,
+      providedTraitSet,
+      leftConversion(leftInput),
+      rightConversion(rightInput),
+      join.getCondition,
+      join.getJoinType,
+      leftWindowing,
+      rightWindowing)
+  }
+}
+
+object StreamPhysicalWindowJoinRule {
+  val INSTANCE: RelOptRule = new StreamPhysicalWindowJoinRule
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.rules.physical.stream
+
+import org.apache.flink.table.api.config.OptimizerConfigOptions
+import org.apache.flink.table.planner.calcite.FlinkContext
+import org.apache.flink.table.planner.plan.`trait`.{FlinkRelDistribution, FlinkRelDistributionTraitDef}
+import org.apache.flink.table.planner.plan.nodes.physical.stream.{StreamPhysicalExchange, StreamPhysicalLocalRank, StreamPhysicalRank, StreamPhysicalRel}
+import org.apache.flink.table.planner.plan.utils.ChangelogPlanUtils
+import org.apache.flink.table.runtime.operators.rank.{ConstantRankRange, RankType}
+
+import org.apache.calcite.plan.RelOptRule.{any, operand}
+import org.apache.calcite.plan.{RelOptRule, RelOptRuleCall}
+import org.apache.calcite.rel.RelNode
+
+import java.util
+import java.util.Collections
+
+/**
+  * Rule that matches [[StreamPhysicalRank]] on [[StreamPhysicalExchange]]
+  * with the following condition:
+  * 1. two-phase TopN is enabled in given TableConfig,
+  * 2. idle state retention is disabled in given TableConfig,
+  * 3. the rank is a ROW_NUMBER with a constant rank range,
+  * 4. the input of exchange is insert-only,
+  * 5. the input of exchange does not satisfy the shuffle distribution,
+  *
+  * and converts them to
+  * {{{
+  *   StreamPhysicalRank
+  *   +- StreamPhysicalExchange
+  *      +- StreamPhysicalLocalRank
+  *         +- input of exchange
+  * }}}
+  *
+  * The local rank only forwards the records which are in the top N of their partition on the
+  * local subtask, the other records can never enter the global top N. With idle state retention
+  * the global rank may forget a partition, so the local rank could drop records which would
+  * enter the top N again.
+  */
+class TwoStageOptimizedRankRule extends RelOptRule(
+  operand(classOf[StreamPhysicalRank],
+    operand(classOf[StreamPhysicalExchange],
+      operand(classOf[RelNode], any))),
+  "TwoStageOptimizedRankRule") {
+
+  override def matches(call: RelOptRuleCall): Boolean = {
+    val tableConfig = call.getPlanner.getContext.unwrap(classOf[FlinkContext]).getTableConfig
+    val rank: StreamPhysicalRank = call.rel(0)
+    val realInput: RelNode = call.rel(2)
+
+    val isTwoPhaseEnabled = tableConfig.getConfiguration.getBoolean(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_TOPN_TWO_PHASE_ENABLED)
+    val isStateRetentionDisabled = tableConfig.getMinIdleStateRetentionTime <= 0
+
+    isTwoPhaseEnabled && isStateRetentionDisabled &&
+      rank.rankType == RankType.ROW_NUMBER &&
+      rank.rankRange.isInstanceOf[ConstantRankRange] &&
+      !realInput.isInstanceOf[StreamPhysicalLocalRank] &&
+      ChangelogPlanUtils.isInsertOnly(realInput.asInstanceOf[StreamPhysicalRel]) &&
+      !isInputSatisfyRequiredDistribution(realInput, rank.partitionKey.toArray)
+  }
+
+  private def isInputSatisfyRequiredDistribution(input: RelNode, keys: Array[Int]): Boolean = {
+    val requiredDistribution = createDistribution(keys)
+    val inputDistribution = input.getTraitSet.getTrait(FlinkRelDistributionTraitDef.INSTANCE)
+    inputDistribution.satisfies(requiredDistribution)
+  }
+
+  override def onMatch(call: RelOptRuleCall): Unit = {
+    val rank: StreamPhysicalRank = call.rel(0)
+    val exchange: StreamPhysicalExchange = call.rel(1)
+    val realInput: RelNode = call.rel(2)
+
+    // local rank forwards the input records, so it provides the same traits as its input
+    val localRank = new StreamPhysicalLocalRank(
+      rank.getCluster,
+      realInput.getTraitSet,
+      realInput,
+      rank.partitionKey,
+      rank.orderKey,
+      rank.rankRange)
+
+    val newExchange = exchange.copy(exchange.getTraitSet, Collections.singletonList(localRank))
+    val globalRank = rank.copy(rank.getTraitSet, Collections.singletonList(newExchange))
+    call.transformTo(globalRank)
+  }
+
+  private def createDistribution(keys: Array[Int]): FlinkRelDistribution = {
+    if (keys.nonEmpty) {
+      val fields = new util.ArrayList[Integer]()
+      keys.foreach(fields.add(_))
+      FlinkRelDistribution.hash(fields)
+    } else {
+      FlinkRelDistribution.SINGLETON
+    }
+  }
+}
+
+object TwoStageOptimizedRankRule {
+  val INSTANCE: RelOptRule = new TwoStageOptimizedRankRule
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.table.planner.plan.utils
+
+import org.apache.flink.table.api.TableException
+import org.apache.flink.table.planner.plan.`trait`.RelWindowProperties
+import org.apache.flink.table.planner.plan.logical.WindowAttachedWindowingStrategy
+import org.apache.flink.table.planner.plan.metadata.FlinkRelMetadataQuery
+
+import org.apache.calcite.rel.core.Join
+import org.apache.calcite.util.ImmutableBitSet
+
+import scala.collection.JavaConversions._
+
+/**
+ * Utilities for window join.
+ */
+object WindowJoinUtil {
+
+  /**
+   * Returns true if the given join is a window join, i.e. both inputs are the (projected) output
+   * of window table-valued functions and the join condition requires the window starts and the
+   * window ends of both inputs to be equal.
+   */
+  def satisfyWindowJoin(join: Join): Boolean = {
+    val fmq = FlinkRelMetadataQuery.reuseOrCreate(join.getCluster.getMetadataQuery)
+    val leftWindowProperties = fmq.getRelWindowProperties(join.getLeft)
+    val rightWindowProperties = fmq.getRelWindowProperties(join.getRight)
+    if (leftWindowProperties == null || rightWindowProperties == null) {
+      return false
+    }
+    val (leftStart, rightStart, leftEnd, rightEnd) =
+      getWindowStartEndEqualities(join, leftWindowProperties, rightWindowProperties)
+    !leftStart.isEmpty && !rightStart.isEmpty && !leftEnd.isEmpty && !rightEnd.isEmpty
+  }
+
+  /**
+   * Creates the windowing strategies of the left and the right input of a window join.
+   *
+   * @throws TableException if the windows of both inputs can't be joined
+   */
+  def createWindowingStrategies(join: Join)
+      : (WindowAttachedWindowingStrategy, WindowAttachedWindowingStrategy) = {
+    val fmq = FlinkRelMetadataQuery.reuseOrCreate(join.getCluster.getMetadataQuery)
+    val leftWindowProperties = fmq.getRelWindowProperties(join.getLeft)
+    val rightWindowProperties = fmq.getRelWindowProperties(join.getRight)
+    val (leftStart, rightStart, leftEnd, rightEnd) =
+      getWindowStartEndEqualities(join, leftWindowProperties, rightWindowProperties)
+
+    val leftWindowing = new WindowAttachedWindowingStrategy(
+      leftWindowProperties.getWindowSpec,
+      leftWindowProperties.getTimeAttributeType,
+      leftStart.nextSetBit(0),
+      leftEnd.nextSetBit(0))
+    val rightWindowing = new WindowAttachedWindowingStrategy(
+      rightWindowProperties.getWindowSpec,
+      rightWindowProperties.getTimeAttributeType,
+      rightStart.nextSetBit(0),
+      rightEnd.nextSetBit(0))
+
+    if (leftWindowing.getWindow != rightWindowing.getWindow) {
+      val leftFieldNames = join.getLeft.getRowType.getFieldNames.toList.toArray
+      val rightFieldNames = join.getRight.getRowType.getFieldNames.toList.toArray
+      throw new TableException(
+        "Currently, window join doesn't support different window table function of left and " +
+          "right inputs.\n" +
+          "The left windowing table function is " +
+          s"${leftWindowing.toSummaryString(leftFieldNames)}.\n" +
+          "The right windowing table function is " +
+          s"${rightWindowing.toSummaryString(rightFieldNames)}.")
+    }
+    if (!leftWindowing.isRowtime || !rightWindowing.isRowtime) {
+      throw new TableException("Processing time window join is not supported yet.")
+    }
+    (leftWindowing, rightWindowing)
+  }
+
+  /**
+   * Returns the window start columns of the left and right input which are required to be equal
+   * by the join condition, followed by the window end columns of the left and right input.
+   * The columns are indices of the input fields.
+   */
+  private def getWindowStartEndEqualities(
+      join: Join,
+      leftWindowProperties: RelWindowProperties,
+      rightWindowProperties: RelWindowProperties)
+      : (ImmutableBitSet, ImmutableBitSet, ImmutableBitSet, ImmutableBitSet) = {
+    val joinInfo = join.analyzeCondition()
+    val leftStart = ImmutableBitSet.builder()
+    val rightStart = ImmutableBitSet.builder()
+    val leftEnd = ImmutableBitSet.builder()
+    val rightEnd = ImmutableBitSet.builder()
+    joinInfo.pairs().foreach { pair =>
+      val leftKey = pair.source
+      val rightKey = pair.target
+      if (leftWindowProperties.getWindowStartColumns.get(leftKey) &&
+        rightWindowProperties.getWindowStartColumns.get(rightKey)) {
+        leftStart.set(leftKey)
+        rightStart.set(rightKey)
+      } else if (leftWindowProperties.getWindowEndColumns.get(leftKey) &&
+        rightWindowProperties.getWindowEndColumns.get(rightKey)) {
+        leftEnd.set(leftKey)
+        rightEnd.set(rightKey)
+      }
+    }
+    (leftStart.build(), rightStart.build(), leftEnd.build(), rightEnd.build())
+  }
+}
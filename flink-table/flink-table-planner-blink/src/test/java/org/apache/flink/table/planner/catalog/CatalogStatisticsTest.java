@@ -43,6 +43,7 @@ import org.apache.flink.table.catalog.stats.Date;
 import org.apache.flink.table.plan.stats.TableStats;
 import org.apache.flink.table.planner.delegation.PlannerBase;
 import org.apache.flink.table.planner.plan.metadata.FlinkRelMetadataQuery;
+import org.apache.flink.table.planner.plan.rules.logical.JoinSkewedKeySplitRule;
 import org.apache.flink.table.planner.plan.stats.ValueInterval$;
 import org.apache.flink.table.planner.utils.TableTestUtil;
 import org.apache.flink.table.planner.utils.TestPartitionableSourceFactory;
@@ -50,6 +51,7 @@ import org.apache.flink.table.planner.utils.TestTableSource;
 import org.apache.flink.table.types.DataType;
 
 import org.apache.calcite.avatica.util.DateTimeUtils;
+import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.util.ImmutableBitSet;
 import org.junit.Before;
@@ -62,8 +64,10 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /** Test for Catalog Statistics. */
 public class CatalogStatisticsTest {
@@ -139,6 +143,48 @@ public class CatalogStatisticsTest {
         assertTableStatisticsWithUnknownRowCount(tEnv, "T2");
     }
 
+    @Test
+    public void testSplitJoinOnHotValuesFromCatalog() throws Exception {
+        catalog.createTable(
+                new ObjectPath(databaseName, "T1"),
+                ConnectorCatalogTable.source(new TestTableSource(true, tableSchema), true),
+                false);
+        catalog.createTable(
+                new ObjectPath(databaseName, "T2"),
+                ConnectorCatalogTable.source(new TestTableSource(true, tableSchema), true),
+                false);
+
+        Map<Long, Long> hotValues = new HashMap<>();
+        hotValues.put(42L, 5_000_000L);
+        hotValues.put(7L, 10L);
+        Map<String, CatalogColumnStatisticsDataBase> colStatsMap = new HashMap<>();
+        colStatsMap.put(
+                "l2",
+                new CatalogColumnStatisticsDataLong(
+                        -123L, 763322L, 23L, 77L, hotValues, new HashMap<>()));
+        catalog.alterTableStatistics(
+                new ObjectPath(databaseName, "T1"),
+                new CatalogTableStatistics(10_000_000, 10, 1000L, 2000L),
+                true);
+        catalog.alterTableColumnStatistics(
+                new ObjectPath(databaseName, "T1"), new CatalogColumnStatistics(colStatsMap), true);
+        tEnv.getConfig()
+                .getConfiguration()
+                .setLong(JoinSkewedKeySplitRule.TABLE_OPTIMIZER_JOIN_SKEW_THRESHOLD(), 1_000_000L);
+
+        RelNode join =
+                ((PlannerBase) ((TableEnvironmentImpl) tEnv).getPlanner())
+                        .optimize(
+                                TableTestUtil.toRelNode(
+                                        tEnv.sqlQuery(
+                                                "select * from T1 join T2 on T1.l2 = T2.l2")));
+        String plan = RelOptUtil.toString(join);
+        // only the value above the threshold is split off into its own join
+        assertTrue(plan, plan.contains("Union(all=[true]"));
+        assertTrue(plan, plan.contains("=(l2, 42:BIGINT)"));
+        assertFalse(plan, plan.contains("=(l2, 7:BIGINT)"));
+    }
+
     private void alterTableStatistics(Catalog catalog, String tableName)
             throws TableNotExistException, TablePartitionedException {
         catalog.alterTableStatistics(
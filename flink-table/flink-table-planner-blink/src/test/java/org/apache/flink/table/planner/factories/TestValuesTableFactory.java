@@ -53,6 +53,7 @@ import org.apache.flink.table.connector.source.LookupTableSource;
 import org.apache.flink.table.connector.source.ScanTableSource;
 import org.apache.flink.table.connector.source.SourceFunctionProvider;
 import org.apache.flink.table.connector.source.TableFunctionProvider;
+import org.apache.flink.table.connector.source.abilities.SupportsAggregatePushDown;
 import org.apache.flink.table.connector.source.abilities.SupportsFilterPushDown;
 import org.apache.flink.table.connector.source.abilities.SupportsLimitPushDown;
 import org.apache.flink.table.connector.source.abilities.SupportsPartitionPushDown;
@@ -60,11 +61,15 @@ import org.apache.flink.table.connector.source.abilities.SupportsProjectionPushD
 import org.apache.flink.table.connector.source.abilities.SupportsReadingMetadata;
 import org.apache.flink.table.connector.source.abilities.SupportsWatermarkPushDown;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.expressions.AggregateExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
 import org.apache.flink.table.expressions.ResolvedExpression;
 import org.apache.flink.table.factories.DynamicTableSinkFactory;
 import org.apache.flink.table.factories.DynamicTableSourceFactory;
 import org.apache.flink.table.factories.FactoryUtil;
 import org.apache.flink.table.functions.AsyncTableFunction;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
 import org.apache.flink.table.functions.TableFunction;
 import org.apache.flink.table.planner.factories.TestValuesRuntimeFunctions.AppendingOutputFormat;
 import org.apache.flink.table.planner.factories.TestValuesRuntimeFunctions.AppendingSinkFunction;
@@ -77,6 +82,7 @@ import org.apache.flink.table.planner.utils.FilterUtils;
 import org.apache.flink.table.planner.utils.JavaScalaConversionUtil;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeFamily;
 import org.apache.flink.table.types.logical.utils.LogicalTypeParser;
 import org.apache.flink.table.types.utils.DataTypeUtils;
 import org.apache.flink.table.types.utils.TypeConversions;
@@ -262,6 +268,9 @@ public final class TestValuesTableFactory
     private static final ConfigOption<Boolean> ENABLE_WATERMARK_PUSH_DOWN =
             ConfigOptions.key("enable-watermark-push-down").booleanType().defaultValue(false);
 
+    private static final ConfigOption<Boolean> ENABLE_AGGREGATE_PUSH_DOWN =
+            ConfigOptions.key("enable-aggregate-push-down").booleanType().defaultValue(false);
+
     private static final ConfigOption<Map<String, String>> READABLE_METADATA =
             ConfigOptions.key("readable-metadata")
                     .mapType()
@@ -317,6 +326,7 @@ public final class TestValuesTableFactory
         boolean disableLookup = helper.getOptions().get(DISABLE_LOOKUP);
         boolean nestedProjectionSupported = helper.getOptions().get(NESTED_PROJECTION_SUPPORTED);
         boolean enableWatermarkPushDown = helper.getOptions().get(ENABLE_WATERMARK_PUSH_DOWN);
+        boolean enableAggregatePushDown = helper.getOptions().get(ENABLE_AGGREGATE_PUSH_DOWN);
         boolean failingSource = helper.getOptions().get(FAILING_SOURCE);
 
         Optional<List<String>> filterableFields =
@@ -363,6 +373,22 @@ public final class TestValuesTableFactory
                             partitions,
                             readableMetadata,
                             null);
+                } else if (enableAggregatePushDown) {
+                    return new TestValuesScanTableSourceWithAggregatePushDown(
+                            producedDataType,
+                            changelogMode,
+                            isBounded,
+                            runtimeSource,
+                            failingSource,
+                            partition2Rows,
+                            nestedProjectionSupported,
+                            null,
+                            Collections.emptyList(),
+                            filterableFieldsSet,
+                            Long.MAX_VALUE,
+                            partitions,
+                            readableMetadata,
+                            null);
                 } else {
                     return new TestValuesScanTableSource(
                             producedDataType,
@@ -494,6 +520,7 @@ public final class TestValuesTableFactory
                         SINK_CHANGELOG_MODE_ENFORCED,
                         WRITABLE_METADATA,
                         ENABLE_WATERMARK_PUSH_DOWN,
+                        ENABLE_AGGREGATE_PUSH_DOWN,
                         SINK_DROP_LATE_EVENT));
     }
 
@@ -827,7 +854,7 @@ public final class TestValuesTableFactory
             return result;
         }
 
-        private Row projectRow(Row row) {
+        protected Row projectRow(Row row) {
             if (projectedPhysicalFields == null) {
                 return row;
             }
@@ -996,6 +1023,242 @@ public final class TestValuesTableFactory
         }
     }
 
+    /**
+     * Values {@link ScanTableSource} for testing that supports aggregate push down. It accepts
+     * {@code SUM}, {@code SUM0}, {@code MIN} and {@code MAX} over numeric columns and {@code COUNT}
+     * over any column, but no aggregates after a limit was pushed down.
+     */
+    private static class TestValuesScanTableSourceWithAggregatePushDown
+            extends TestValuesScanTableSource implements SupportsAggregatePushDown {
+
+        /** The produced data type before the aggregates were pushed down. */
+        private @Nullable DataType inputDataType;
+
+        private @Nullable int[] grouping;
+        private @Nullable List<AggregateExpression> aggregateExpressions;
+
+        private TestValuesScanTableSourceWithAggregatePushDown(
+                DataType producedDataType,
+                ChangelogMode changelogMode,
+                boolean bounded,
+                String runtimeSource,
+                boolean failingSource,
+                Map<Map<String, String>, Collection<Row>> data,
+                boolean nestedProjectionSupported,
+                @Nullable int[][] projectedPhysicalFields,
+                List<ResolvedExpression> filterPredicates,
+                Set<String> filterableFields,
+                long limit,
+                List<Map<String, String>> allPartitions,
+                Map<String, DataType> readableMetadata,
+                @Nullable int[] projectedMetadataFields) {
+            super(
+                    producedDataType,
+                    changelogMode,
+                    bounded,
+                    runtimeSource,
+                    failingSource,
+                    data,
+                    nestedProjectionSupported,
+                    projectedPhysicalFields,
+                    filterPredicates,
+                    filterableFields,
+                    limit,
+                    allPartitions,
+                    readableMetadata,
+                    projectedMetadataFields);
+        }
+
+        @Override
+        public boolean applyAggregates(
+                List<int[]> groupingSets,
+                List<AggregateExpression> aggregateExpressions,
+                DataType producedDataType) {
+            if (groupingSets.size() != 1 || limit != Long.MAX_VALUE) {
+                return false;
+            }
+            for (AggregateExpression aggregate : aggregateExpressions) {
+                if (!isSupported(aggregate)) {
+                    return false;
+                }
+            }
+            this.inputDataType = this.producedDataType;
+            this.grouping = groupingSets.get(0);
+            this.aggregateExpressions = aggregateExpressions;
+            this.producedDataType = producedDataType;
+            return true;
+        }
+
+        private static boolean isSupported(AggregateExpression aggregate) {
+            if (aggregate.isDistinct() || aggregate.getFilterExpression().isPresent()) {
+                return false;
+            }
+            List<FieldReferenceExpression> args = aggregate.getArgs();
+            if (aggregate.getFunctionDefinition() == BuiltInFunctionDefinitions.COUNT) {
+                return args.size() <= 1;
+            }
+            return args.size() == 1
+                    && (hasFamily(args.get(0), LogicalTypeFamily.INTEGER_NUMERIC)
+                            || hasFamily(args.get(0), LogicalTypeFamily.APPROXIMATE_NUMERIC));
+        }
+
+        private static boolean hasFamily(FieldReferenceExpression arg, LogicalTypeFamily family) {
+            return arg.getOutputDataType()
+                    .getLogicalType()
+                    .getTypeRoot()
+                    .getFamilies()
+                    .contains(family);
+        }
+
+        @Override
+        protected Collection<RowData> convertToRowData(DataStructureConverter converter) {
+            if (aggregateExpressions == null) {
+                return super.convertToRowData(converter);
+            }
+            final List<String> inputFieldNames = DataTypeUtils.flattenToNames(inputDataType);
+            final Map<Row, Object[]> groups = new LinkedHashMap<>();
+            List<Map<String, String>> keys =
+                    allPartitions.isEmpty()
+                            ? Collections.singletonList(Collections.emptyMap())
+                            : allPartitions;
+            for (Map<String, String> partition : keys) {
+                for (Row row : data.get(partition)) {
+                    boolean isRetained =
+                            FilterUtils.isRetainedAfterApplyingFilterPredicates(
+                                    filterPredicates,
+                                    fieldName ->
+                                            (Comparable<?>)
+                                                    row.getField(
+                                                            inputFieldNames.indexOf(fieldName)));
+                    if (isRetained) {
+                        Row input = projectRow(row);
+                        accumulate(
+                                groups.computeIfAbsent(
+                                        Row.project(input, grouping), key -> createAccumulators()),
+                                input);
+                    }
+                }
+            }
+
+            List<LogicalType> producedTypes = producedDataType.getLogicalType().getChildren();
+            List<RowData> result = new ArrayList<>();
+            for (Map.Entry<Row, Object[]> group : groups.entrySet()) {
+                Object[] values = new Object[grouping.length + aggregateExpressions.size()];
+                for (int i = 0; i < grouping.length; i++) {
+                    values[i] = group.getKey().getField(i);
+                }
+                for (int i = 0; i < aggregateExpressions.size(); i++) {
+                    values[grouping.length + i] =
+                            getValue(
+                                    aggregateExpressions.get(i).getFunctionDefinition(),
+                                    group.getValue()[i],
+                                    producedTypes.get(grouping.length + i));
+                }
+                result.add((RowData) converter.toInternal(Row.of(values)));
+            }
+            return result;
+        }
+
+        private Object[] createAccumulators() {
+            Object[] accumulators = new Object[aggregateExpressions.size()];
+            for (int i = 0; i < accumulators.length; i++) {
+                if (aggregateExpressions.get(i).getFunctionDefinition()
+                        == BuiltInFunctionDefinitions.COUNT) {
+                    accumulators[i] = 0L;
+                }
+            }
+            return accumulators;
+        }
+
+        private void accumulate(Object[] accumulators, Row input) {
+            for (int i = 0; i < accumulators.length; i++) {
+                AggregateExpression aggregate = aggregateExpressions.get(i);
+                FunctionDefinition function = aggregate.getFunctionDefinition();
+                Object value =
+                        aggregate.getArgs().isEmpty()
+                                ? null
+                                : input.getField(aggregate.getArgs().get(0).getFieldIndex());
+                if (function == BuiltInFunctionDefinitions.COUNT) {
+                    if (aggregate.getArgs().isEmpty() || value != null) {
+                        accumulators[i] = (Long) accumulators[i] + 1;
+                    }
+                } else if (value != null) {
+                    accumulators[i] =
+                            accumulators[i] == null
+                                    ? value
+                                    : combine(function, accumulators[i], value);
+                }
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object combine(FunctionDefinition function, Object acc, Object value) {
+            if (function == BuiltInFunctionDefinitions.MIN) {
+                return ((Comparable) value).compareTo(acc) < 0 ? value : acc;
+            } else if (function == BuiltInFunctionDefinitions.MAX) {
+                return ((Comparable) value).compareTo(acc) > 0 ? value : acc;
+            } else if (value instanceof Float || value instanceof Double) {
+                return ((Number) acc).doubleValue() + ((Number) value).doubleValue();
+            } else {
+                return ((Number) acc).longValue() + ((Number) value).longValue();
+            }
+        }
+
+        private static Object getValue(
+                FunctionDefinition function, @Nullable Object acc, LogicalType type) {
+            if (acc == null) {
+                if (function != BuiltInFunctionDefinitions.SUM0) {
+                    return null;
+                }
+                acc = 0L;
+            }
+            if (!(acc instanceof Number)) {
+                return acc;
+            }
+            Number number = (Number) acc;
+            switch (type.getTypeRoot()) {
+                case TINYINT:
+                    return number.byteValue();
+                case SMALLINT:
+                    return number.shortValue();
+                case INTEGER:
+                    return number.intValue();
+                case BIGINT:
+                    return number.longValue();
+                case FLOAT:
+                    return number.floatValue();
+                case DOUBLE:
+                    return number.doubleValue();
+                default:
+                    return acc;
+            }
+        }
+
+        @Override
+        public DynamicTableSource copy() {
+            final TestValuesScanTableSourceWithAggregatePushDown newSource =
+                    new TestValuesScanTableSourceWithAggregatePushDown(
+                            producedDataType,
+                            changelogMode,
+                            bounded,
+                            runtimeSource,
+                            failingSource,
+                            data,
+                            nestedProjectionSupported,
+                            projectedPhysicalFields,
+                            filterPredicates,
+                            filterableFields,
+                            limit,
+                            allPartitions,
+                            readableMetadata,
+                            projectedMetadataFields);
+            newSource.inputDataType = inputDataType;
+            newSource.grouping = grouping;
+            newSource.aggregateExpressions = aggregateExpressions;
+            return newSource;
+        }
+    }
+
     /**
      * Values {@link LookupTableSource} and {@link ScanTableSource} for testing.
      *
@@ -46,6 +46,7 @@ public class JsonSerdeCoverageTest {
                     "StreamExecIntervalJoin",
                     "StreamExecLookupJoin",
                     "StreamExecTemporalJoin",
+                    "StreamExecWindowJoin",
                     "StreamExecPythonGroupAggregate",
                     "StreamExecLocalGroupAggregate",
                     "StreamExecGlobalGroupAggregate",
@@ -60,6 +61,7 @@ public class JsonSerdeCoverageTest {
                     "StreamExecCorrelate",
                     "StreamExecPythonCorrelate",
                     "StreamExecRank",
+                    "StreamExecLocalRank",
                     "StreamExecPythonCalc",
                     "StreamExecLimit",
                     "StreamExecSortLimit",
@@ -19,6 +19,7 @@
 package org.apache.flink.table.planner.utils;
 
 import org.apache.flink.table.catalog.stats.CatalogColumnStatisticsDataBase;
+import org.apache.flink.table.catalog.stats.CatalogColumnStatisticsDataLong;
 import org.apache.flink.table.catalog.stats.CatalogColumnStatisticsDataString;
 import org.apache.flink.table.plan.stats.ColumnStats;
 
@@ -30,6 +31,7 @@ import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /** Tests for {@link CatalogTableStatisticsConverter}. */
@@ -49,4 +51,30 @@ public class CatalogTableStatisticsConverterTest {
         assertTrue(columnStatsMap.containsKey("first"));
         assertFalse(columnStatsMap.containsKey("second"));
     }
+
+    @Test
+    public void testConvertHotValues() {
+        Map<Long, Long> longHotValues = new HashMap<>();
+        longHotValues.put(1L, 5000L);
+        Map<String, Long> stringHotValues = new HashMap<>();
+        stringHotValues.put("a", 3000L);
+        Map<String, CatalogColumnStatisticsDataBase> columnStatisticsDataBaseMap = new HashMap<>();
+        columnStatisticsDataBaseMap.put(
+                "long",
+                new CatalogColumnStatisticsDataLong(
+                        0L, 10L, 5L, 0L, longHotValues, new HashMap<>()));
+        columnStatisticsDataBaseMap.put(
+                "string",
+                new CatalogColumnStatisticsDataString(
+                        10L, 5.2, 3L, 100L, stringHotValues, new HashMap<>()));
+        columnStatisticsDataBaseMap.put(
+                "unknown", new CatalogColumnStatisticsDataLong(0L, 10L, 5L, 0L));
+
+        Map<String, ColumnStats> columnStatsMap =
+                CatalogTableStatisticsConverter.convertToColumnStatsMap(
+                        columnStatisticsDataBaseMap);
+        assertEquals(longHotValues, columnStatsMap.get("long").getHotValues());
+        assertEquals(stringHotValues, columnStatsMap.get("string").getHotValues());
+        assertNull(columnStatsMap.get("unknown").getHotValues());
+    }
 }
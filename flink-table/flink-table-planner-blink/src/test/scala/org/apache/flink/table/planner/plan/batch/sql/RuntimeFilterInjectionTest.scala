@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.batch.sql
+
+import org.apache.flink.api.common.typeinfo.TypeInformation
+import org.apache.flink.table.api.Types
+import org.apache.flink.table.api.config.{ExecutionConfigOptions, OptimizerConfigOptions}
+import org.apache.flink.table.plan.stats.TableStats
+import org.apache.flink.table.planner.plan.stats.FlinkStatistic
+import org.apache.flink.table.planner.utils.TableTestBase
+
+import org.junit.{Before, Test}
+
+class RuntimeFilterInjectionTest extends TableTestBase {
+
+  private val util = batchTestUtil()
+
+  @Before
+  def setup(): Unit = {
+    util.addTableSource("x",
+      Array[TypeInformation[_]](Types.INT, Types.LONG, Types.STRING),
+      Array("a", "b", "c"),
+      FlinkStatistic.builder().tableStats(new TableStats(1000L)).build()
+    )
+    util.addTableSource("y",
+      Array[TypeInformation[_]](Types.INT, Types.LONG, Types.STRING),
+      Array("d", "e", "f"),
+      FlinkStatistic.builder().tableStats(new TableStats(1000000L)).build()
+    )
+    util.addTableSource("z",
+      Array[TypeInformation[_]](Types.INT, Types.LONG, Types.STRING),
+      Array("g", "h", "i"),
+      FlinkStatistic.builder().tableStats(new TableStats(1000000L)).build()
+    )
+    util.tableEnv.getConfig.getConfiguration.setBoolean(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_RUNTIME_FILTER_ENABLED, true)
+    util.tableEnv.getConfig.getConfiguration.setBoolean(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_MULTIPLE_INPUT_ENABLED, false)
+    util.tableEnv.getConfig.getConfiguration.setLong(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_BROADCAST_JOIN_THRESHOLD, -1)
+    util.tableEnv.getConfig.getConfiguration.setString(
+      ExecutionConfigOptions.TABLE_EXEC_DISABLED_OPERATORS, "NestedLoopJoin,SortMergeJoin")
+  }
+
+  @Test
+  def testInnerJoinBuildLeft(): Unit = {
+    util.verifyExecPlan("SELECT * FROM x JOIN y ON a = d")
+  }
+
+  @Test
+  def testInnerJoinBuildRight(): Unit = {
+    util.verifyExecPlan("SELECT * FROM y JOIN x ON d = a")
+  }
+
+  @Test
+  def testSemiJoin(): Unit = {
+    util.verifyExecPlan("SELECT * FROM y WHERE d IN (SELECT a FROM x)")
+  }
+
+  @Test
+  def testLeftJoinBuildLeft(): Unit = {
+    util.verifyExecPlan("SELECT * FROM x LEFT JOIN y ON a = d")
+  }
+
+  @Test
+  def testLeftJoinBuildRight(): Unit = {
+    // the unmatched records of the probe side are preserved by the join
+    util.verifyExecPlan("SELECT * FROM y LEFT JOIN x ON d = a")
+  }
+
+  @Test
+  def testRightJoinBuildRight(): Unit = {
+    util.verifyExecPlan("SELECT * FROM y RIGHT JOIN x ON d = a")
+  }
+
+  @Test
+  def testFullJoin(): Unit = {
+    util.verifyExecPlan("SELECT * FROM x FULL JOIN y ON a = d")
+  }
+
+  @Test
+  def testBuildSideTooLarge(): Unit = {
+    util.tableEnv.getConfig.getConfiguration.setLong(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_RUNTIME_FILTER_MAX_BUILD_ROW_COUNT, 100L)
+    util.verifyExecPlan("SELECT * FROM x JOIN y ON a = d")
+  }
+
+  @Test
+  def testSharedInputs(): Unit = {
+    // the reused source is read by both the build side and the probe side
+    val sqlQuery = "SELECT * FROM (SELECT * FROM y WHERE e < 10) t1 JOIN y t2 ON t1.d = t2.d"
+    util.verifyExecPlan(sqlQuery)
+  }
+
+  @Test
+  def testProbeExchangeWithMultipleConsumers(): Unit = {
+    // the reused exchange of the probe side is consumed by both joins
+    val sqlQuery =
+      """
+        |SELECT * FROM x JOIN y ON a = d WHERE b < 10
+        |UNION ALL
+        |SELECT * FROM x JOIN y ON a = d WHERE b > 20
+      """.stripMargin
+    util.verifyExecPlan(sqlQuery)
+  }
+
+  @Test
+  def testMultipleInput(): Unit = {
+    util.tableEnv.getConfig.getConfiguration.setBoolean(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_MULTIPLE_INPUT_ENABLED, true)
+    val sqlQuery =
+      """
+        |SELECT * FROM x JOIN y ON a = d
+        |UNION ALL
+        |SELECT * FROM x JOIN z ON a = g WHERE b < 10
+      """.stripMargin
+    util.verifyExecPlan(sqlQuery)
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.rules.logical
+
+import org.apache.flink.api.common.typeinfo.TypeInformation
+import org.apache.flink.table.api.Types
+import org.apache.flink.table.plan.stats.{ColumnStats, TableStats}
+import org.apache.flink.table.planner.plan.optimize.program.{FlinkBatchProgram, FlinkHepRuleSetProgramBuilder, HEP_RULES_EXECUTION_TYPE}
+import org.apache.flink.table.planner.plan.stats.FlinkStatistic
+import org.apache.flink.table.planner.utils.{TableConfigUtils, TableTestBase}
+
+import org.apache.calcite.plan.hep.HepMatchOrder
+import org.apache.calcite.tools.RuleSets
+import org.junit.{Before, Test}
+
+import java.lang.{Long => JLong}
+
+import scala.collection.JavaConversions._
+
+/**
+  * Test for [[JoinSkewedKeySplitRule]].
+  */
+class JoinSkewedKeySplitRuleTest extends TableTestBase {
+
+  private val util = batchTestUtil()
+
+  @Before
+  def setup(): Unit = {
+    util.buildBatchProgram(FlinkBatchProgram.DEFAULT_REWRITE)
+    val calciteConfig = TableConfigUtils.getCalciteConfig(util.tableEnv.getConfig)
+    calciteConfig.getBatchProgram.get.addLast(
+      "rules",
+      FlinkHepRuleSetProgramBuilder.newBuilder
+        .setHepRulesExecutionType(HEP_RULES_EXECUTION_TYPE.RULE_COLLECTION)
+        .setHepMatchOrder(HepMatchOrder.BOTTOM_UP)
+        .add(RuleSets.ofList(JoinSkewedKeySplitRule.INSTANCE))
+        .build()
+    )
+
+    util.tableEnv.getConfig.getConfiguration.setLong(
+      JoinSkewedKeySplitRule.TABLE_OPTIMIZER_JOIN_SKEW_THRESHOLD, 2000000)
+    util.addTableSource("MyTable1",
+      Array[TypeInformation[_]](Types.INT, Types.LONG, Types.STRING, Types.INT),
+      Array("a1", "b1", "c1", "d1"),
+      FlinkStatistic.builder().tableStats(new TableStats(1000000000, Map(
+        "a1" -> hotValueStats(Int.box(1) -> 5000000L, Int.box(2) -> 100L),
+        "b1" -> hotValueStats(JLong.valueOf(10L) -> 1000000L),
+        "c1" -> new ColumnStats(null, 5000000L, 10.2, 16, null, null)
+      ))).build())
+    util.addTableSource("MyTable2",
+      Array[TypeInformation[_]](Types.INT, Types.LONG, Types.STRING, Types.INT),
+      Array("a2", "b2", "c2", "d2"),
+      FlinkStatistic.builder().tableStats(new TableStats(2000000000, Map(
+        "d2" -> hotValueStats(Int.box(7) -> 3000000L, Int.box(8) -> 4000000L)
+      ))).build())
+  }
+
+  private def hotValueStats(hotValues: (Comparable[_], Long)*): ColumnStats = {
+    val stats = new java.util.HashMap[Comparable[_], JLong]()
+    hotValues.foreach { case (value, count) => stats.put(value, count) }
+    ColumnStats.Builder.builder().setNdv(1000L).setHotValues(stats).build()
+  }
+
+  @Test
+  def testInnerJoin_HotValuesOnLeftKey(): Unit = {
+    util.verifyRelPlan("SELECT * FROM MyTable1 JOIN MyTable2 ON a1 = a2")
+  }
+
+  @Test
+  def testInnerJoin_HotValuesOnRightKey(): Unit = {
+    util.verifyRelPlan("SELECT * FROM MyTable1 JOIN MyTable2 ON d1 = d2")
+  }
+
+  @Test
+  def testInnerJoin_HotValuesLessThanThreshold(): Unit = {
+    util.verifyRelPlan("SELECT * FROM MyTable1 JOIN MyTable2 ON b1 = b2")
+  }
+
+  @Test
+  def testInnerJoin_NoHotValues(): Unit = {
+    util.verifyRelPlan("SELECT * FROM MyTable1 JOIN MyTable2 ON c1 = c2")
+  }
+
+  @Test
+  def testInnerJoin_NoneEquiJoinKeys(): Unit = {
+    util.verifyRelPlan("SELECT * FROM MyTable1 JOIN MyTable2 ON a1 > a2")
+  }
+
+  @Test
+  def testInnerJoin_MultipleJoinKeys(): Unit = {
+    // the join is split once on the first skewed key, the split joins are not split again
+    util.verifyRelPlan("SELECT * FROM MyTable1 JOIN MyTable2 ON a1 = a2 AND d1 = d2")
+  }
+
+  @Test
+  def testLeftJoin(): Unit = {
+    util.verifyRelPlan("SELECT * FROM MyTable1 LEFT JOIN MyTable2 ON a1 = a2")
+  }
+
+  @Test
+  def testFullJoin(): Unit = {
+    util.verifyRelPlan("SELECT * FROM MyTable1 FULL JOIN MyTable2 ON a1 = a2")
+  }
+}
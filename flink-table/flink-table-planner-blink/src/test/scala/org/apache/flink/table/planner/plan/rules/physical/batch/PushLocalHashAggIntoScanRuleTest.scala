@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.rules.physical.batch
+
+import org.apache.flink.table.api.config.{ExecutionConfigOptions, OptimizerConfigOptions}
+import org.apache.flink.table.planner.utils.TableTestBase
+
+import org.junit.{Before, Test}
+
+/**
+  * Test for [[PushLocalHashAggIntoScanRule]].
+  */
+class PushLocalHashAggIntoScanRuleTest extends TableTestBase {
+
+  private val util = batchTestUtil()
+
+  @Before
+  def setup(): Unit = {
+    util.tableEnv.getConfig.getConfiguration.setString(
+      ExecutionConfigOptions.TABLE_EXEC_DISABLED_OPERATORS, "SortAgg")
+    util.tableEnv.getConfig.getConfiguration.setString(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_AGG_PHASE_STRATEGY, "TWO_PHASE")
+    val ddl =
+      """
+        |CREATE TABLE T (
+        |  a INT,
+        |  b BIGINT,
+        |  c BIGINT,
+        |  d DECIMAL(10, 2),
+        |  e STRING,
+        |  f BOOLEAN NOT NULL
+        |) WITH (
+        |  'connector' = 'values',
+        |  'bounded' = 'true',
+        |  'disable-lookup' = 'true',
+        |  'filterable-fields' = 'a',
+        |  'enable-aggregate-push-down' = 'true'
+        |)
+      """.stripMargin
+    util.tableEnv.executeSql(ddl)
+  }
+
+  @Test
+  def testPushDown(): Unit = {
+    util.verifyRelPlan("SELECT a, SUM(b), MIN(c), MAX(c), COUNT(*) FROM T GROUP BY a")
+  }
+
+  @Test
+  def testPushDownDisabled(): Unit = {
+    util.tableEnv.getConfig.getConfiguration.setBoolean(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_SOURCE_AGGREGATE_PUSHDOWN_ENABLED, false)
+    util.verifyRelPlan("SELECT a, SUM(b), MIN(c), MAX(c), COUNT(*) FROM T GROUP BY a")
+  }
+
+  @Test
+  def testAvgPushedDownAsSum0AndCount(): Unit = {
+    util.verifyRelPlan("SELECT a, AVG(b) FROM T GROUP BY a")
+  }
+
+  @Test
+  def testAvgOnDecimalNotPushedDown(): Unit = {
+    // the source does not accept the SUM0 over a DECIMAL column
+    util.verifyRelPlan("SELECT a, AVG(d) FROM T GROUP BY a")
+  }
+
+  @Test
+  def testDistinctAggregate(): Unit = {
+    // only the local aggregate which groups by the distinct values is pushed down
+    util.verifyRelPlan("SELECT COUNT(DISTINCT a) FROM T")
+  }
+
+  @Test
+  def testFilterArgNotPushedDown(): Unit = {
+    util.verifyRelPlan("SELECT a, COUNT(b) FILTER (WHERE f) FROM T GROUP BY a")
+  }
+
+  @Test
+  def testPushDownWithPushedFilter(): Unit = {
+    util.verifyRelPlan("SELECT a, SUM(b) FROM T WHERE a > 10 GROUP BY a")
+  }
+
+  @Test
+  def testRemainingFilterNotPushedDown(): Unit = {
+    util.verifyRelPlan("SELECT a, SUM(b) FROM T WHERE c > 10 GROUP BY a")
+  }
+
+  @Test
+  def testLimitNotPushedDown(): Unit = {
+    util.verifyRelPlan("SELECT a, SUM(b) FROM (SELECT a, b FROM T LIMIT 10) GROUP BY a")
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.stream.sql
+
+import org.apache.flink.api.common.time.Time
+import org.apache.flink.api.scala._
+import org.apache.flink.table.api._
+import org.apache.flink.table.api.config.OptimizerConfigOptions
+import org.apache.flink.table.planner.utils.TableTestBase
+
+import org.junit.{Before, Test}
+
+class TwoStageRankTest extends TableTestBase {
+
+  private val util = streamTestUtil()
+  util.addDataStream[(Int, String, Long)]("MyTable", 'a, 'b, 'c)
+
+  @Before
+  def before(): Unit = {
+    util.tableEnv.getConfig.getConfiguration.setBoolean(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_TOPN_TWO_PHASE_ENABLED, true)
+  }
+
+  private val topN =
+    """
+      |SELECT *
+      |FROM (
+      |  SELECT a, b, c,
+      |      ROW_NUMBER() OVER (PARTITION BY a ORDER BY b DESC) as row_num
+      |  FROM MyTable)
+      |WHERE row_num <= 10
+    """.stripMargin
+
+  @Test
+  def testTopN(): Unit = {
+    util.verifyRelPlan(topN, ExplainDetail.CHANGELOG_MODE)
+  }
+
+  @Test
+  def testTopNWithTwoPhaseDisabled(): Unit = {
+    util.tableEnv.getConfig.getConfiguration.setBoolean(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_TOPN_TWO_PHASE_ENABLED, false)
+    util.verifyRelPlan(topN, ExplainDetail.CHANGELOG_MODE)
+  }
+
+  @Test
+  def testTopNWithStateRetention(): Unit = {
+    util.tableEnv.getConfig.setIdleStateRetentionTime(Time.hours(1), Time.hours(2))
+    util.verifyRelPlan(topN, ExplainDetail.CHANGELOG_MODE)
+  }
+
+  @Test
+  def testRankFunction(): Unit = {
+    val sql =
+      """
+        |SELECT *
+        |FROM (
+        |  SELECT a, b, c,
+        |      RANK() OVER (PARTITION BY a ORDER BY b DESC) as rank_num
+        |  FROM MyTable)
+        |WHERE rank_num <= 10
+      """.stripMargin
+    util.verifyRelPlan(sql, ExplainDetail.CHANGELOG_MODE)
+  }
+
+  @Test
+  def testTopNAfterAgg(): Unit = {
+    // the input of the rank is not insert-only
+    val sql =
+      """
+        |SELECT *
+        |FROM (
+        |  SELECT a, b, sum_c,
+        |      ROW_NUMBER() OVER (PARTITION BY b ORDER BY sum_c DESC) as row_num
+        |  FROM (SELECT a, b, SUM(c) as sum_c FROM MyTable GROUP BY a, b))
+        |WHERE row_num <= 10
+      """.stripMargin
+    util.verifyRelPlan(sql, ExplainDetail.CHANGELOG_MODE)
+  }
+}
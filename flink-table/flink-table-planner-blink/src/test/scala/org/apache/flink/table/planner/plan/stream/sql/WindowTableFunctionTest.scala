@@ -125,19 +125,12 @@ class WindowTableFunctionTest extends TableTestBase {
   }
 
   @Test
-  def testUnsupported(): Unit = {
+  def testIndividualWindowTVF(): Unit = {
     val sql =
       """
         |SELECT *
         |FROM TABLE(TUMBLE(TABLE MyTable, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
         |""".stripMargin
-
-    thrown.expectMessage("Currently Flink doesn't support individual window " +
-      "table-valued function TUMBLE(time_col=[rowtime], size=[15 min]).\n " +
-      "Please use window table-valued function with aggregate together " +
-      "using window_start and window_end as group keys.")
-    thrown.expect(classOf[UnsupportedOperationException])
-    util.verifyExplain(sql)
+    util.verifyExecPlan(sql)
   }
-
 }
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.plan.stream.sql.join
+
+import org.apache.flink.table.api.TableException
+import org.apache.flink.table.planner.utils.TableTestBase
+
+import org.junit.Test
+
+/**
+ * Tests for window join based on window table-valued function.
+ */
+class WindowJoinTest extends TableTestBase {
+
+  private val util = streamTestUtil()
+  util.tableEnv.executeSql(
+    s"""
+       |CREATE TABLE MyTable (
+       |  a INT,
+       |  b STRING,
+       |  c BIGINT,
+       |  rowtime TIMESTAMP(3),
+       |  proctime as PROCTIME(),
+       |  WATERMARK FOR rowtime AS rowtime - INTERVAL '1' SECOND
+       |) with (
+       |  'connector' = 'values'
+       |)
+       |""".stripMargin)
+  util.tableEnv.executeSql(
+    s"""
+       |CREATE TABLE MyTable2 (
+       |  a INT,
+       |  b STRING,
+       |  c BIGINT,
+       |  rowtime TIMESTAMP(3),
+       |  proctime as PROCTIME(),
+       |  WATERMARK FOR rowtime AS rowtime - INTERVAL '1' SECOND
+       |) with (
+       |  'connector' = 'values'
+       |)
+       |""".stripMargin)
+
+  @Test
+  def testTumbleWindowJoin(): Unit = {
+    val sql =
+      """
+        |SELECT L.a, L.b, R.b AS rb, L.window_start, L.window_end
+        |FROM (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) L
+        |JOIN (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable2, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) R
+        |ON L.window_start = R.window_start AND L.window_end = R.window_end AND L.a = R.a
+      """.stripMargin
+    util.verifyRelPlan(sql)
+  }
+
+  @Test
+  def testTumbleWindowLeftJoin(): Unit = {
+    val sql =
+      """
+        |SELECT L.a, L.b, R.b AS rb, L.window_start, L.window_end
+        |FROM (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) L
+        |LEFT JOIN (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable2, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) R
+        |ON L.window_start = R.window_start AND L.window_end = R.window_end AND L.a = R.a
+      """.stripMargin
+    util.verifyRelPlan(sql)
+  }
+
+  @Test
+  def testWindowJoinWithDifferentWindows(): Unit = {
+    val sql =
+      """
+        |SELECT L.a, L.b, R.b AS rb, L.window_start, L.window_end
+        |FROM (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) L
+        |JOIN (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable2, DESCRIPTOR(rowtime), INTERVAL '10' MINUTE))
+        |) R
+        |ON L.window_start = R.window_start AND L.window_end = R.window_end AND L.a = R.a
+      """.stripMargin
+    thrown.expect(classOf[TableException])
+    thrown.expectMessage("Currently, window join doesn't support different window table " +
+      "function of left and right inputs.")
+    util.verifyRelPlan(sql)
+  }
+
+  @Test
+  def testWindowJoinOnProctime(): Unit = {
+    val sql =
+      """
+        |SELECT L.a, L.b, R.b AS rb, L.window_start, L.window_end
+        |FROM (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable, DESCRIPTOR(proctime), INTERVAL '15' MINUTE))
+        |) L
+        |JOIN (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable2, DESCRIPTOR(proctime), INTERVAL '15' MINUTE))
+        |) R
+        |ON L.window_start = R.window_start AND L.window_end = R.window_end AND L.a = R.a
+      """.stripMargin
+    thrown.expect(classOf[TableException])
+    thrown.expectMessage("Processing time window join is not supported yet.")
+    util.verifyRelPlan(sql)
+  }
+
+  @Test
+  def testJoinWithoutWindowEnd(): Unit = {
+    // the window ends are not required to be equal, so this is a regular join
+    val sql =
+      """
+        |SELECT L.a, L.b, R.b AS rb, L.window_start, L.window_end
+        |FROM (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) L
+        |JOIN (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable2, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) R
+        |ON L.window_start = R.window_start AND L.a = R.a
+      """.stripMargin
+    util.verifyRelPlan(sql)
+  }
+
+  @Test
+  def testIntervalJoinOnWindowTime(): Unit = {
+    // the window starts and ends are not required to be equal, so this is an interval join
+    val sql =
+      """
+        |SELECT L.a, L.b, R.b AS rb
+        |FROM (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) L
+        |JOIN (
+        |  SELECT * FROM TABLE(TUMBLE(TABLE MyTable2, DESCRIPTOR(rowtime), INTERVAL '15' MINUTE))
+        |) R
+        |ON L.a = R.a AND
+        |  L.window_time BETWEEN R.window_time - INTERVAL '5' SECOND AND R.window_time
+      """.stripMargin
+    util.verifyRelPlan(sql)
+  }
+}
@@ -19,11 +19,13 @@
 package org.apache.flink.table.planner.runtime.batch.sql
 
 import org.apache.flink.table.api.TableEnvironment
+import org.apache.flink.table.api.config.OptimizerConfigOptions
 import org.apache.flink.table.planner.runtime.FileSystemITCaseBase
 import org.apache.flink.table.planner.runtime.utils.BatchTestBase
+import org.apache.flink.table.planner.runtime.utils.BatchTestBase.row
 import org.apache.flink.types.Row
 
-import org.junit.Before
+import org.junit.{Before, Test}
 
 import scala.collection.Seq
 
@@ -45,4 +47,24 @@ abstract class BatchFileSystemITCaseBase extends BatchTestBase with FileSystemIT
   override def check(sqlQuery: String, expectedResult: Seq[Row]): Unit = {
     checkResult(sqlQuery, expectedResult)
   }
+
+  @Test
+  def testAggregatePushDown(): Unit = {
+    tableEnv.getConfig.getConfiguration.setString(
+      OptimizerConfigOptions.TABLE_OPTIMIZER_AGG_PHASE_STRATEGY, "TWO_PHASE")
+    tableEnv.executeSql("insert into partitionedTable select x, y, a, b from originalT").await()
+
+    check(
+      "select a, count(*), sum(y), min(b), max(y), avg(y) from partitionedTable group by a",
+      Seq(
+        row(1, 10, 55, 1, 10, 5),
+        row(2, 6, 81, 1, 16, 13),
+        row(3, 3, 54, 1, 19, 18),
+        row(4, 4, 86, 1, 23, 21),
+        row(5, 4, 102, 1, 27, 25)))
+
+    check(
+      "select count(x), sum(b) from partitionedTable",
+      Seq(row(27, 48)))
+  }
 }
@@ -158,6 +158,58 @@ class GroupAggregateHarnessTest(mode: StateBackendMode, miniBatch: MiniBatchMode
     testHarness.close()
   }
 
+  @Test
+  def testRetractionOfAbsentKeyInBundle(): Unit = {
+    val data = new mutable.MutableList[(String, String, Long)]
+    val t = env.fromCollection(data).toTable(tEnv, 'a, 'b, 'c)
+    tEnv.createTemporaryView("T", t)
+
+    val sql =
+      """
+        |SELECT a, SUM(c)
+        |FROM (
+        |  SELECT a, b, SUM(c) as c
+        |  FROM T GROUP BY a, b
+        |)GROUP BY a
+      """.stripMargin
+    val t1 = tEnv.sqlQuery(sql)
+
+    // bundle three records, so that the retraction shares the bundle with other keys
+    tEnv.getConfig.getConfiguration.setLong(TABLE_EXEC_MINIBATCH_SIZE, 3L)
+    val testHarness = createHarnessTester(t1.toRetractStream[Row], "GroupAggregate")
+    val assertor = new RowDataHarnessAssertor(
+      Array(
+        DataTypes.STRING().getLogicalType,
+        DataTypes.BIGINT().getLogicalType))
+
+    testHarness.open()
+
+    val expectedOutput = new ConcurrentLinkedQueue[Object]()
+
+    // the retraction of a key without state is dropped, the other keys are still aggregated
+    testHarness.processElement(binaryRecord(DELETE, "aaa", 1L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "bbb", 1L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "ccc", 2L: JLong))
+    expectedOutput.add(binaryRecord(INSERT, "bbb", 1L: JLong))
+    expectedOutput.add(binaryRecord(INSERT, "ccc", 2L: JLong))
+
+    // the accumulators of the other keys have been written to the state
+    testHarness.processElement(binaryRecord(INSERT, "bbb", 3L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "ccc", 4L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "aaa", 5L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_BEFORE, "bbb", 1L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_AFTER, "bbb", 4L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_BEFORE, "ccc", 2L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_AFTER, "ccc", 6L: JLong))
+    expectedOutput.add(binaryRecord(INSERT, "aaa", 5L: JLong))
+
+    val result = testHarness.getOutput
+
+    assertor.assertOutputEqualsSorted("result mismatch", expectedOutput, result)
+
+    testHarness.close()
+  }
+
   @Test
   def testAggregationWithDistinct(): Unit = {
     val data = new mutable.MutableList[(String, String, Long)]
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.planner.runtime.stream.sql
+
+import org.apache.flink.api.common.restartstrategy.RestartStrategies
+import org.apache.flink.api.scala._
+import org.apache.flink.streaming.api.CheckpointingMode
+import org.apache.flink.table.api.bridge.scala._
+import org.apache.flink.table.planner.factories.TestValuesTableFactory
+import org.apache.flink.table.planner.runtime.utils.BatchTestBase.row
+import org.apache.flink.table.planner.runtime.utils.StreamingWithStateTestBase.StateBackendMode
+import org.apache.flink.table.planner.runtime.utils.{FailingCollectionSource, StreamingWithStateTestBase, TestingAppendSink}
+import org.apache.flink.types.Row
+
+import org.junit.Assert.assertEquals
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.{Before, Test}
+
+@RunWith(classOf[Parameterized])
+class WindowJoinITCase(mode: StateBackendMode)
+  extends StreamingWithStateTestBase(mode) {
+
+  // the rows of both inputs are in event-time order, so that no row is dropped as late
+  // no matter how the watermarks of the two inputs interleave
+  val leftData = Seq(
+    row("2020-10-10 00:00:01", 1, "a"),
+    row("2020-10-10 00:00:03", 2, "b"),
+    row("2020-10-10 00:00:06", 3, "a"),
+    row("2020-10-10 00:00:16", 4, "b"),
+    row("2020-10-10 00:00:32", 5, null))
+
+  val rightData = Seq(
+    row("2020-10-10 00:00:02", 10, "a"),
+    row("2020-10-10 00:00:04", 20, "a"),
+    row("2020-10-10 00:00:07", 30, "b"),
+    row("2020-10-10 00:00:18", 40, "b"),
+    row("2020-10-10 00:00:33", 50, null))
+
+  @Before
+  override def before(): Unit = {
+    super.before()
+    // enable checkpoint, we are using failing source to force have a complete checkpoint
+    // and cover restore path
+    env.enableCheckpointing(100, CheckpointingMode.EXACTLY_ONCE)
+    env.setRestartStrategy(RestartStrategies.fixedDelayRestart(1, 0))
+    FailingCollectionSource.reset()
+
+    createTable("T1", TestValuesTableFactory.registerData(leftData))
+    createTable("T2", TestValuesTableFactory.registerData(rightData))
+  }
+
+  private def createTable(name: String, dataId: String): Unit = {
+    tEnv.executeSql(
+      s"""
+        |CREATE TABLE $name (
+        | `ts` STRING,
+        | `id` INT,
+        | `name` STRING,
+        | `rowtime` AS TO_TIMESTAMP(`ts`),
+        | WATERMARK for `rowtime` AS `rowtime` - INTERVAL '1' SECOND
+        |) WITH (
+        | 'connector' = 'values',
+        | 'data-id' = '$dataId',
+        | 'failing-source' = 'true'
+        |)
+        |""".stripMargin)
+  }
+
+  private def windowJoin(joinType: String): String =
+    s"""
+      |SELECT L.`name`, L.`id`, R.`id`, L.window_start, L.window_end
+      |FROM (
+      |  SELECT * FROM TABLE(TUMBLE(TABLE T1, DESCRIPTOR(rowtime), INTERVAL '5' SECOND))
+      |) L
+      |$joinType JOIN (
+      |  SELECT * FROM TABLE(TUMBLE(TABLE T2, DESCRIPTOR(rowtime), INTERVAL '5' SECOND))
+      |) R
+      |ON L.window_start = R.window_start AND L.window_end = R.window_end
+      |AND L.`name` = R.`name`
+      """.stripMargin
+
+  @Test
+  def testEventTimeTumbleWindowJoin(): Unit = {
+    val sink = new TestingAppendSink
+    tEnv.sqlQuery(windowJoin("INNER")).toAppendStream[Row].addSink(sink)
+    env.execute()
+
+    val expected = Seq(
+      "a,1,10,2020-10-10T00:00,2020-10-10T00:00:05",
+      "a,1,20,2020-10-10T00:00,2020-10-10T00:00:05",
+      "b,4,40,2020-10-10T00:00:15,2020-10-10T00:00:20")
+    assertEquals(expected.sorted.mkString("\n"), sink.getAppendResults.sorted.mkString("\n"))
+  }
+
+  @Test
+  def testEventTimeTumbleWindowLeftJoin(): Unit = {
+    val sink = new TestingAppendSink
+    tEnv.sqlQuery(windowJoin("LEFT")).toAppendStream[Row].addSink(sink)
+    env.execute()
+
+    val expected = Seq(
+      "a,1,10,2020-10-10T00:00,2020-10-10T00:00:05",
+      "a,1,20,2020-10-10T00:00,2020-10-10T00:00:05",
+      "b,2,null,2020-10-10T00:00,2020-10-10T00:00:05",
+      "a,3,null,2020-10-10T00:00:05,2020-10-10T00:00:10",
+      "b,4,40,2020-10-10T00:00:15,2020-10-10T00:00:20",
+      "null,5,null,2020-10-10T00:00:30,2020-10-10T00:00:35")
+    assertEquals(expected.sorted.mkString("\n"), sink.getAppendResults.sorted.mkString("\n"))
+  }
+}
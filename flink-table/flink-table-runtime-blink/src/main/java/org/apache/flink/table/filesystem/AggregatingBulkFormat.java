@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.filesystem;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.connector.file.src.FileSourceSplit;
+import org.apache.flink.connector.file.src.reader.BulkFormat;
+import org.apache.flink.connector.file.src.util.CheckpointedPosition;
+import org.apache.flink.connector.file.src.util.IteratorResultIterator;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.vector.VectorizedAggregation;
+import org.apache.flink.table.runtime.vector.VectorizedHashAggregator;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link BulkFormat} that evaluates a local aggregate over the column batches of a columnar
+ * format and returns the aggregated rows instead of the rows of the files.
+ *
+ * <p>The readers of the wrapped format must return {@link ColumnarRowIterator}s. At most {@link
+ * #DEFAULT_MAX_NUM_GROUPS} groups are kept per reader, the aggregated rows are returned early when
+ * there are more groups. Because the aggregated rows are no rows of the files, the readers cannot
+ * be restored from a checkpointed position, which is fine for bounded batch jobs.
+ */
+public class AggregatingBulkFormat<SplitT extends FileSourceSplit>
+        implements BulkFormat<RowData, SplitT> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The maximum number of groups a reader keeps on the heap before returning them. */
+    public static final int DEFAULT_MAX_NUM_GROUPS = 64 * 1024;
+
+    private final BulkFormat<RowData, SplitT> format;
+    private final VectorizedAggregation aggregation;
+    private final int maxNumGroups;
+
+    AggregatingBulkFormat(
+            BulkFormat<RowData, SplitT> format,
+            VectorizedAggregation aggregation,
+            int maxNumGroups) {
+        this.format = format;
+        this.aggregation = aggregation;
+        this.maxNumGroups = maxNumGroups;
+    }
+
+    @Override
+    public Reader<RowData> createReader(Configuration config, SplitT split) throws IOException {
+        return new AggregatingReader(
+                format.createReader(config, split), aggregation.createAggregator(maxNumGroups));
+    }
+
+    @Override
+    public Reader<RowData> restoreReader(Configuration config, SplitT split) {
+        throw new UnsupportedOperationException(
+                "A reader which aggregates the rows of a split cannot be restored from a position.");
+    }
+
+    @Override
+    public boolean isSplittable() {
+        return format.isSplittable();
+    }
+
+    @Override
+    public TypeInformation<RowData> getProducedType() {
+        return InternalTypeInfo.of(aggregation.getProducedType());
+    }
+
+    private static class AggregatingReader implements Reader<RowData> {
+
+        private final Reader<RowData> reader;
+        private final VectorizedHashAggregator aggregator;
+
+        private long numEmitted;
+        private boolean endOfInput;
+
+        private AggregatingReader(Reader<RowData> reader, VectorizedHashAggregator aggregator) {
+            this.reader = reader;
+            this.aggregator = aggregator;
+        }
+
+        @Nullable
+        @Override
+        public RecordIterator<RowData> readBatch() throws IOException {
+            while (!endOfInput) {
+                RecordIterator<RowData> records = reader.readBatch();
+                if (records == null) {
+                    endOfInput = true;
+                    break;
+                }
+                try {
+                    if (!(records instanceof ColumnarRowIterator)) {
+                        throw new IllegalStateException(
+                                "The aggregate can only be evaluated over column batches, but got "
+                                        + records.getClass().getName());
+                    }
+                    ((ColumnarRowIterator) records).aggregateRemaining(aggregator);
+                } finally {
+                    records.releaseBatch();
+                }
+                if (aggregator.isFull()) {
+                    return emit();
+                }
+            }
+            return aggregator.isEmpty() ? null : emit();
+        }
+
+        private RecordIterator<RowData> emit() {
+            List<RowData> results = aggregator.emit();
+            RecordIterator<RowData> iterator =
+                    new IteratorResultIterator<>(
+                            results.iterator(), CheckpointedPosition.NO_OFFSET, numEmitted);
+            numEmitted += results.size();
+            return iterator;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    public static <SplitT extends FileSourceSplit> BulkFormat<RowData, SplitT> create(
+            BulkFormat<RowData, SplitT> format, @Nullable VectorizedAggregation aggregation) {
+        return aggregation == null
+                ? format
+                : new AggregatingBulkFormat<>(format, aggregation, DEFAULT_MAX_NUM_GROUPS);
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.filesystem;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.runtime.util.SegmentsUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * An immutable snapshot of a lookup table, keeping rows in their binary format.
+ *
+ * <p>Every row is stored as a {@link BinaryRowData} together with its binary lookup key in large
+ * {@link MemorySegment}s, either on heap or off heap, instead of as one Java object graph per row.
+ * The hash index only consists of primitive arrays, so the garbage collector has to track a handful
+ * of objects no matter how many rows are cached. Off-heap segments are released by the garbage
+ * collector once the snapshot is no longer referenced, which allows readers to keep using a
+ * snapshot while a newer one is swapped in.
+ *
+ * <p>Each entry is laid out as {@code [key length][row length][key bytes][row bytes]} and never
+ * crosses a segment boundary. Rows sharing the same key are chained in insertion order.
+ *
+ * <p>A snapshot can be read by any number of threads concurrently.
+ */
+class BinaryLookupTable {
+
+    static final BinaryLookupTable EMPTY = new Builder(false).build();
+
+    private static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+    private static final int ENTRY_HEADER_SIZE = 8;
+
+    private final MemorySegment[] segments;
+    private final int arity;
+
+    /** Address (segment index in the upper 32 bits, offset in the lower 32 bits) per entry. */
+    private final long[] addresses;
+
+    /** Next entry with the same key, or -1. */
+    private final int[] nextSameKey;
+
+    /** Open addressing table pointing to the first entry of each distinct key, or -1. */
+    private final int[] buckets;
+
+    private final int[] bucketHashes;
+    private final int numEntries;
+    private final int numKeys;
+    private final long numBytes;
+
+    private BinaryLookupTable(Builder builder) {
+        this.segments = builder.segments.toArray(new MemorySegment[0]);
+        this.arity = builder.arity;
+        this.addresses = builder.addresses;
+        this.nextSameKey = builder.nextSameKey;
+        this.buckets = builder.buckets;
+        this.bucketHashes = builder.bucketHashes;
+        this.numEntries = builder.numEntries;
+        this.numKeys = builder.numKeys;
+        this.numBytes = builder.numBytes;
+    }
+
+    /**
+     * Returns all rows matching the given binary key. The returned rows point directly into the
+     * memory of this snapshot and must not be modified.
+     */
+    List<BinaryRowData> lookup(BinaryRowData key) {
+        int bucket = findBucket(key, key.hashCode());
+        if (buckets[bucket] < 0) {
+            return Collections.emptyList();
+        }
+        List<BinaryRowData> rows = new ArrayList<>(1);
+        for (int entry = buckets[bucket]; entry >= 0; entry = nextSameKey[entry]) {
+            MemorySegment segment = segments[segmentIndex(entry)];
+            int offset = offset(entry);
+            int keyLength = segment.getInt(offset);
+            int rowLength = segment.getInt(offset + 4);
+            BinaryRowData row = new BinaryRowData(arity);
+            row.pointTo(segment, offset + ENTRY_HEADER_SIZE + keyLength, rowLength);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    int getNumEntries() {
+        return numEntries;
+    }
+
+    int getNumKeys() {
+        return numKeys;
+    }
+
+    /** Returns the number of bytes occupied by the stored rows and keys. */
+    long getNumBytes() {
+        return numBytes;
+    }
+
+    /**
+     * Returns the bucket holding the given key, or the first empty bucket of its probe sequence if
+     * the key is absent. The table always keeps empty buckets, so the probing terminates.
+     */
+    private int findBucket(BinaryRowData key, int hash) {
+        int mask = buckets.length - 1;
+        int bucket = hash & mask;
+        while (true) {
+            int entry = buckets[bucket];
+            if (entry < 0
+                    || (bucketHashes[bucket] == hash
+                            && keyEquals(segments[segmentIndex(entry)], offset(entry), key))) {
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    private int segmentIndex(int entry) {
+        return (int) (addresses[entry] >>> 32);
+    }
+
+    private int offset(int entry) {
+        return (int) addresses[entry];
+    }
+
+    private static boolean keyEquals(MemorySegment segment, int offset, BinaryRowData key) {
+        int length = key.getSizeInBytes();
+        if (segment.getInt(offset) != length) {
+            return false;
+        }
+        MemorySegment[] keySegments = key.getSegments();
+        if (keySegments.length == 1) {
+            return segment.equalTo(
+                    keySegments[0], offset + ENTRY_HEADER_SIZE, key.getOffset(), length);
+        }
+        return SegmentsUtil.equals(
+                new MemorySegment[] {segment},
+                offset + ENTRY_HEADER_SIZE,
+                keySegments,
+                key.getOffset(),
+                length);
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** Builds a {@link BinaryLookupTable}. A builder must only be used by a single thread. */
+    static class Builder {
+
+        private final boolean offHeap;
+        private final int segmentSize;
+        private final List<MemorySegment> segments = new ArrayList<>();
+
+        private MemorySegment currentSegment;
+        private int currentOffset;
+        private int arity;
+
+        private long[] addresses = new long[64];
+        private int[] nextSameKey = new int[64];
+        private int[] lastSameKey = new int[64];
+        private int[] buckets = newBuckets(64);
+        private int[] bucketHashes = new int[64];
+        private int numEntries;
+        private int numKeys;
+        private long numBytes;
+
+        Builder(boolean offHeap) {
+            this(offHeap, DEFAULT_SEGMENT_SIZE);
+        }
+
+        Builder(boolean offHeap, int segmentSize) {
+            checkArgument(segmentSize > ENTRY_HEADER_SIZE, "Segment size is too small.");
+            this.offHeap = offHeap;
+            this.segmentSize = segmentSize;
+        }
+
+        /** Copies the given row and its key into the table. Both may be reused by the caller. */
+        void add(BinaryRowData key, BinaryRowData row) {
+            arity = row.getArity();
+            int keyLength = key.getSizeInBytes();
+            int rowLength = row.getSizeInBytes();
+            long address = write(keyLength, rowLength, key, row);
+
+            if (numEntries == addresses.length) {
+                int newLength = addresses.length * 2;
+                addresses = Arrays.copyOf(addresses, newLength);
+                nextSameKey = Arrays.copyOf(nextSameKey, newLength);
+            }
+            int entry = numEntries++;
+            addresses[entry] = address;
+            nextSameKey[entry] = -1;
+
+            int hash = key.hashCode();
+            int bucket = findBucket(key, hash);
+            if (buckets[bucket] < 0) {
+                buckets[bucket] = entry;
+                bucketHashes[bucket] = hash;
+                lastSameKey[bucket] = entry;
+                if (++numKeys * 4 > buckets.length * 3) {
+                    growBuckets();
+                }
+            } else {
+                nextSameKey[lastSameKey[bucket]] = entry;
+                lastSameKey[bucket] = entry;
+            }
+        }
+
+        BinaryLookupTable build() {
+            return new BinaryLookupTable(this);
+        }
+
+        private long write(int keyLength, int rowLength, BinaryRowData key, BinaryRowData row) {
+            int length = ENTRY_HEADER_SIZE + keyLength + rowLength;
+            if (currentSegment == null || currentSegment.size() - currentOffset < length) {
+                currentSegment = allocate(Math.max(segmentSize, length));
+                currentOffset = 0;
+                segments.add(currentSegment);
+            }
+            int offset = currentOffset;
+            currentSegment.putInt(offset, keyLength);
+            currentSegment.putInt(offset + 4, rowLength);
+            copy(key, currentSegment, offset + ENTRY_HEADER_SIZE);
+            copy(row, currentSegment, offset + ENTRY_HEADER_SIZE + keyLength);
+            currentOffset += length;
+            numBytes += length;
+            return ((long) (segments.size() - 1) << 32) | offset;
+        }
+
+        private MemorySegment allocate(int size) {
+            return offHeap
+                    ? MemorySegmentFactory.allocateUnpooledOffHeapMemory(size)
+                    : MemorySegmentFactory.wrap(new byte[size]);
+        }
+
+        private int findBucket(BinaryRowData key, int hash) {
+            int mask = buckets.length - 1;
+            int bucket = hash & mask;
+            while (true) {
+                int entry = buckets[bucket];
+                if (entry < 0
+                        || (bucketHashes[bucket] == hash
+                                && keyEquals(
+                                        segments.get((int) (addresses[entry] >>> 32)),
+                                        (int) addresses[entry],
+                                        key))) {
+                    return bucket;
+                }
+                bucket = (bucket + 1) & mask;
+            }
+        }
+
+        private void growBuckets() {
+            int[] oldBuckets = buckets;
+            int[] oldHashes = bucketHashes;
+            int[] oldLast = lastSameKey;
+            buckets = newBuckets(oldBuckets.length * 2);
+            bucketHashes = new int[buckets.length];
+            lastSameKey = new int[buckets.length];
+            int mask = buckets.length - 1;
+            for (int i = 0; i < oldBuckets.length; i++) {
+                if (oldBuckets[i] >= 0) {
+                    int bucket = oldHashes[i] & mask;
+                    while (buckets[bucket] >= 0) {
+                        bucket = (bucket + 1) & mask;
+                    }
+                    buckets[bucket] = oldBuckets[i];
+                    bucketHashes[bucket] = oldHashes[i];
+                    lastSameKey[bucket] = oldLast[i];
+                }
+            }
+        }
+
+        private static int[] newBuckets(int size) {
+            int[] buckets = new int[size];
+            Arrays.fill(buckets, -1);
+            return buckets;
+        }
+
+        private static void copy(BinaryRowData source, MemorySegment target, int targetOffset) {
+            MemorySegment[] sourceSegments = source.getSegments();
+            int length = source.getSizeInBytes();
+            if (sourceSegments.length == 1) {
+                sourceSegments[0].copyTo(source.getOffset(), target, targetOffset, length);
+            } else {
+                byte[] bytes = SegmentsUtil.copyToBytes(sourceSegments, source.getOffset(), length);
+                target.put(targetOffset, bytes, 0, length);
+            }
+        }
+    }
+}
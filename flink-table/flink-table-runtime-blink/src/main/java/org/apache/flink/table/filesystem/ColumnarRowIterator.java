@@ -25,18 +25,34 @@ import org.apache.flink.connector.file.src.util.RecordAndPosition;
 import org.apache.flink.connector.file.src.util.RecyclableIterator;
 import org.apache.flink.table.data.ColumnarRowData;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.runtime.vector.VectorizedFilter;
+import org.apache.flink.table.runtime.vector.VectorizedHashAggregator;
 
 import javax.annotation.Nullable;
 
+import static org.apache.flink.util.Preconditions.checkState;
+
 /**
  * A {@link BulkFormat.RecordIterator} that returns {@link RowData}s. The next row is set by {@link
  * ColumnarRowData#setRowId}.
+ *
+ * <p>If a {@link VectorizedFilter} is given, it is evaluated over the column vectors of each batch
+ * and only the selected rows are returned. The record skip count of the positions then counts the
+ * returned rows only, so a format with a filter should checkpoint the start of the batch as offset
+ * and re-evaluate the filter over the same batch when it is restored.
  */
 public class ColumnarRowIterator extends RecyclableIterator<RowData> {
 
     private final ColumnarRowData rowData;
     private final MutableRecordAndPosition<RowData> recordAndPosition;
 
+    @Nullable private final VectorizedColumnBatch batch;
+    @Nullable private final VectorizedFilter filter;
+
+    /** The ids of the rows selected by the filter, or {@code null} if there is no filter. */
+    @Nullable private int[] selected;
+
     private int num;
     private int pos;
 
@@ -44,6 +60,19 @@ public class ColumnarRowIterator extends RecyclableIterator<RowData> {
         super(recycler);
         this.rowData = rowData;
         this.recordAndPosition = new MutableRecordAndPosition<>();
+        this.batch = null;
+        this.filter = null;
+    }
+
+    public ColumnarRowIterator(
+            VectorizedColumnBatch batch,
+            @Nullable VectorizedFilter filter,
+            @Nullable Runnable recycler) {
+        super(recycler);
+        this.rowData = new ColumnarRowData(batch);
+        this.recordAndPosition = new MutableRecordAndPosition<>();
+        this.batch = batch;
+        this.filter = filter;
     }
 
     /**
@@ -59,17 +88,46 @@ public class ColumnarRowIterator extends RecyclableIterator<RowData> {
         this.num = num;
         this.pos = 0;
         this.recordAndPosition.set(null, offset, recordSkipCount);
+
+        if (filter != null) {
+            if (selected == null || selected.length < num) {
+                selected = new int[num];
+            }
+            for (int i = 0; i < num; i++) {
+                selected[i] = i;
+            }
+            this.num = filter.filter(batch, selected, num);
+        }
     }
 
     @Nullable
     @Override
     public RecordAndPosition<RowData> next() {
         if (pos < num) {
-            rowData.setRowId(pos++);
+            rowData.setRowId(selected == null ? pos : selected[pos]);
+            pos++;
             recordAndPosition.setNext(rowData);
             return recordAndPosition;
         } else {
             return null;
         }
     }
+
+    /**
+     * Accumulates the remaining rows of this batch into the given aggregator. The aggregator runs
+     * over the column vectors of the batch instead of the rows one by one.
+     */
+    public void aggregateRemaining(VectorizedHashAggregator aggregator) {
+        checkState(batch != null, "The iterator was not created over a column batch.");
+        if (pos == 0) {
+            aggregator.accumulate(batch, selected, num);
+        } else if (pos < num) {
+            int[] remaining = new int[num - pos];
+            for (int i = 0; i < remaining.length; i++) {
+                remaining[i] = selected == null ? pos + i : selected[pos + i];
+            }
+            aggregator.accumulate(batch, remaining, remaining.length);
+        }
+        pos = num;
+    }
 }
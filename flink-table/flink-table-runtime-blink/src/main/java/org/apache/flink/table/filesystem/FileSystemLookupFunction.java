@@ -20,53 +20,53 @@ package org.apache.flink.table.filesystem;
 
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
-import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
 import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.TableFunction;
-import org.apache.flink.table.runtime.typeutils.InternalSerializers;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.RowType;
-import org.apache.flink.util.FlinkRuntimeException;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.apache.flink.util.InstantiationUtil;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
 
 /**
  * Lookup function for filesystem connector tables.
  *
  * <p>The hive connector and filesystem connector share read/write files code. Currently, this
  * function only used in hive connector.
+ *
+ * <p>All subtasks of this function running in the same TaskManager share a single {@link
+ * SharedLookupCache}, which keeps the table in binary format, optionally off heap, and reloads it
+ * in the background once the reload interval has passed.
  */
 public class FileSystemLookupFunction<P> extends TableFunction<RowData> {
 
-    private static final Logger LOG = LoggerFactory.getLogger(FileSystemLookupFunction.class);
-
-    // the max number of retries before throwing exception, in case of failure to load the table
-    // into cache
-    private static final int MAX_RETRIES = 3;
-    // interval between retries
-    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(10);
-
     private final PartitionFetcher<P> partitionFetcher;
     private final PartitionFetcher.Context<P> fetcherContext;
     private final PartitionReader<P, RowData> partitionReader;
     private final RowData.FieldGetter[] lookupFieldGetters;
     private final Duration reloadInterval;
-    private final TypeSerializer<RowData> serializer;
     private final RowType rowType;
+    private final LogicalType[] lookupKeyTypes;
+    private final boolean offHeap;
 
-    // cache for lookup data
-    private transient Map<RowData, List<RowData>> cache;
-    // timestamp when cache expires
-    private transient long nextLoadTime;
+    // identifies the cache shared by all subtasks of this function, the same for every copy
+    private final String cacheId;
+
+    private transient SharedLookupCache cache;
+    private transient RowDataSerializer lookupKeySerializer;
+    private transient Counter hitCounter;
+    private transient Counter missCounter;
 
     public FileSystemLookupFunction(
             PartitionFetcher<P> partitionFetcher,
@@ -75,25 +75,78 @@ public class FileSystemLookupFunction<P> extends TableFunction<RowData> {
             RowType rowType,
             int[] lookupKeys,
             Duration reloadInterval) {
+        this(
+                partitionFetcher,
+                fetcherContext,
+                partitionReader,
+                rowType,
+                lookupKeys,
+                reloadInterval,
+                false);
+    }
+
+    public FileSystemLookupFunction(
+            PartitionFetcher<P> partitionFetcher,
+            PartitionFetcher.Context<P> fetcherContext,
+            PartitionReader<P, RowData> partitionReader,
+            RowType rowType,
+            int[] lookupKeys,
+            Duration reloadInterval,
+            boolean offHeap) {
         this.fetcherContext = fetcherContext;
         this.partitionFetcher = partitionFetcher;
         this.partitionReader = partitionReader;
         this.rowType = rowType;
         this.lookupFieldGetters = new RowData.FieldGetter[lookupKeys.length];
+        this.lookupKeyTypes = new LogicalType[lookupKeys.length];
         for (int i = 0; i < lookupKeys.length; i++) {
-            lookupFieldGetters[i] =
-                    RowData.createFieldGetter(rowType.getTypeAt(lookupKeys[i]), lookupKeys[i]);
+            lookupKeyTypes[i] = rowType.getTypeAt(lookupKeys[i]);
+            lookupFieldGetters[i] = RowData.createFieldGetter(lookupKeyTypes[i], lookupKeys[i]);
         }
         this.reloadInterval = reloadInterval;
-        this.serializer = InternalSerializers.create(rowType);
+        this.offHeap = offHeap;
+        this.cacheId = UUID.randomUUID().toString();
     }
 
     @Override
     public void open(FunctionContext context) throws Exception {
         super.open(context);
-        cache = new HashMap<>();
-        nextLoadTime = -1L;
-        fetcherContext.open();
+        // the cache loads the table with its own copies, so that it is independent of the
+        // lifecycle of the subtask that happened to create it
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        cache =
+                SharedLookupCache.acquire(
+                        cacheId,
+                        reloadInterval,
+                        () ->
+                                new PartitionLookupTableLoader<>(
+                                        InstantiationUtil.clone(partitionFetcher, classLoader),
+                                        InstantiationUtil.clone(fetcherContext, classLoader),
+                                        InstantiationUtil.clone(partitionReader, classLoader),
+                                        rowType,
+                                        lookupKeyTypes,
+                                        lookupFieldGetters,
+                                        offHeap));
+        lookupKeySerializer = new RowDataSerializer(lookupKeyTypes);
+        hitCounter = new SimpleCounter();
+        missCounter = new SimpleCounter();
+        if (context != null) {
+            registerMetrics(context.getMetricGroup());
+        }
+    }
+
+    private void registerMetrics(MetricGroup metricGroup) {
+        SharedLookupCache sharedCache = cache;
+        hitCounter = metricGroup.counter("lookupCacheHits", hitCounter);
+        missCounter = metricGroup.counter("lookupCacheMisses", missCounter);
+        metricGroup.gauge("lookupCacheLoads", (Gauge<Long>) sharedCache::getLoadCount);
+        metricGroup.gauge("lookupCacheLoadFailures", (Gauge<Long>) sharedCache::getNumLoadFailures);
+        metricGroup.gauge(
+                "lookupCacheRecords",
+                (Gauge<Integer>) () -> sharedCache.getCurrentTable().getNumEntries());
+        metricGroup.gauge(
+                "lookupCacheBytes",
+                (Gauge<Long>) () -> sharedCache.getCurrentTable().getNumBytes());
     }
 
     @Override
@@ -102,80 +155,24 @@ public class FileSystemLookupFunction<P> extends TableFunction<RowData> {
     }
 
     public void eval(Object... values) {
-        checkCacheReload();
-        RowData lookupKey = GenericRowData.of(values);
-        List<RowData> matchedRows = cache.get(lookupKey);
-        if (matchedRows != null) {
-            for (RowData matchedRow : matchedRows) {
-                collect(matchedRow);
-            }
-        }
-    }
-
-    private void checkCacheReload() {
-        if (nextLoadTime > System.currentTimeMillis()) {
+        BinaryRowData lookupKey = lookupKeySerializer.toBinaryRow(GenericRowData.of(values));
+        List<BinaryRowData> matchedRows = cache.getTable().lookup(lookupKey);
+        if (matchedRows.isEmpty()) {
+            missCounter.inc();
             return;
         }
-        if (nextLoadTime > 0) {
-            LOG.info(
-                    "Lookup join cache has expired after {} minute(s), reloading",
-                    reloadInterval.toMinutes());
-        } else {
-            LOG.info("Populating lookup join cache");
-        }
-        int numRetry = 0;
-        while (true) {
-            cache.clear();
-            try {
-                long count = 0;
-                GenericRowData reuse = new GenericRowData(rowType.getFieldCount());
-                partitionReader.open(partitionFetcher.fetch(fetcherContext));
-                RowData row;
-                while ((row = partitionReader.read(reuse)) != null) {
-                    count++;
-                    RowData key = extractLookupKey(row);
-                    List<RowData> rows = cache.computeIfAbsent(key, k -> new ArrayList<>());
-                    rows.add(serializer.copy(row));
-                }
-                partitionReader.close();
-                nextLoadTime = System.currentTimeMillis() + reloadInterval.toMillis();
-                LOG.info("Loaded {} row(s) into lookup join cache", count);
-                return;
-            } catch (Exception e) {
-                if (numRetry >= MAX_RETRIES) {
-                    throw new FlinkRuntimeException(
-                            String.format(
-                                    "Failed to load table into cache after %d retries", numRetry),
-                            e);
-                }
-                numRetry++;
-                long toSleep = numRetry * RETRY_INTERVAL.toMillis();
-                LOG.warn(
-                        String.format(
-                                "Failed to load table into cache, will retry in %d seconds",
-                                toSleep / 1000),
-                        e);
-                try {
-                    Thread.sleep(toSleep);
-                } catch (InterruptedException ex) {
-                    LOG.warn("Interrupted while waiting to retry failed cache load, aborting");
-                    throw new FlinkRuntimeException(ex);
-                }
-            }
+        hitCounter.inc();
+        for (RowData matchedRow : matchedRows) {
+            collect(matchedRow);
         }
     }
 
-    private RowData extractLookupKey(RowData row) {
-        GenericRowData key = new GenericRowData(lookupFieldGetters.length);
-        for (int i = 0; i < lookupFieldGetters.length; i++) {
-            key.setField(i, lookupFieldGetters[i].getFieldOrNull(row));
-        }
-        return key;
-    }
-
     @Override
     public void close() throws Exception {
-        this.fetcherContext.close();
+        if (cache != null) {
+            cache.release();
+            cache = null;
+        }
     }
 
     @VisibleForTesting
@@ -197,4 +194,68 @@ public class FileSystemLookupFunction<P> extends TableFunction<RowData> {
     public PartitionReader<P, RowData> getPartitionReader() {
         return partitionReader;
     }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** Loads all partitions returned by the {@link PartitionFetcher} into a lookup table. */
+    private static class PartitionLookupTableLoader<P> implements SharedLookupCache.Loader {
+
+        private final PartitionFetcher<P> partitionFetcher;
+        private final PartitionFetcher.Context<P> fetcherContext;
+        private final PartitionReader<P, RowData> partitionReader;
+        private final int arity;
+        private final RowData.FieldGetter[] lookupFieldGetters;
+        private final RowDataSerializer rowSerializer;
+        private final RowDataSerializer lookupKeySerializer;
+        private final boolean offHeap;
+
+        private PartitionLookupTableLoader(
+                PartitionFetcher<P> partitionFetcher,
+                PartitionFetcher.Context<P> fetcherContext,
+                PartitionReader<P, RowData> partitionReader,
+                RowType rowType,
+                LogicalType[] lookupKeyTypes,
+                RowData.FieldGetter[] lookupFieldGetters,
+                boolean offHeap) {
+            this.partitionFetcher = partitionFetcher;
+            this.fetcherContext = fetcherContext;
+            this.partitionReader = partitionReader;
+            this.arity = rowType.getFieldCount();
+            this.lookupFieldGetters = lookupFieldGetters;
+            this.rowSerializer = new RowDataSerializer(rowType);
+            this.lookupKeySerializer = new RowDataSerializer(lookupKeyTypes);
+            this.offHeap = offHeap;
+        }
+
+        @Override
+        public void open() throws Exception {
+            fetcherContext.open();
+        }
+
+        @Override
+        public BinaryLookupTable load() throws Exception {
+            BinaryLookupTable.Builder builder = new BinaryLookupTable.Builder(offHeap);
+            GenericRowData reuse = new GenericRowData(arity);
+            GenericRowData key = new GenericRowData(lookupFieldGetters.length);
+            partitionReader.open(partitionFetcher.fetch(fetcherContext));
+            try {
+                RowData row;
+                while ((row = partitionReader.read(reuse)) != null) {
+                    for (int i = 0; i < lookupFieldGetters.length; i++) {
+                        key.setField(i, lookupFieldGetters[i].getFieldOrNull(row));
+                    }
+                    builder.add(
+                            lookupKeySerializer.toBinaryRow(key), rowSerializer.toBinaryRow(row));
+                }
+            } finally {
+                partitionReader.close();
+            }
+            return builder.build();
+        }
+
+        @Override
+        public void close() throws Exception {
+            fetcherContext.close();
+        }
+    }
 }
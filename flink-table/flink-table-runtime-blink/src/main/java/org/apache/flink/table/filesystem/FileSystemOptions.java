@@ -168,6 +168,16 @@ public class FileSystemOptions {
                             "The cache TTL (e.g. 10min) for the build table in lookup join. "
                                     + "By default the TTL is 60 minutes.");
 
+    public static final ConfigOption<Boolean> LOOKUP_JOIN_CACHE_OFF_HEAP =
+            key("lookup.join.cache.off-heap")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether to keep the cached build table of lookup join in off-heap "
+                                    + "memory. The cache is shared by all subtasks of a lookup "
+                                    + "join in the same TaskManager. Off-heap memory is taken "
+                                    + "from the task off-heap memory budget.");
+
     public static final ConfigOption<String> SINK_PARTITION_COMMIT_TRIGGER =
             key("sink.partition-commit.trigger")
                     .stringType()
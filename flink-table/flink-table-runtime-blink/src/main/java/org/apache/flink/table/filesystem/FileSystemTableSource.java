@@ -39,17 +39,21 @@ import org.apache.flink.table.connector.source.InputFormatProvider;
 import org.apache.flink.table.connector.source.ScanTableSource;
 import org.apache.flink.table.connector.source.SourceFunctionProvider;
 import org.apache.flink.table.connector.source.SourceProvider;
+import org.apache.flink.table.connector.source.abilities.SupportsAggregatePushDown;
 import org.apache.flink.table.connector.source.abilities.SupportsFilterPushDown;
 import org.apache.flink.table.connector.source.abilities.SupportsLimitPushDown;
 import org.apache.flink.table.connector.source.abilities.SupportsPartitionPushDown;
 import org.apache.flink.table.connector.source.abilities.SupportsProjectionPushDown;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.expressions.AggregateExpression;
 import org.apache.flink.table.expressions.ResolvedExpression;
 import org.apache.flink.table.factories.DynamicTableFactory;
 import org.apache.flink.table.factories.FactoryUtil;
 import org.apache.flink.table.factories.FileSystemFormatFactory;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.vector.VectorizedAggregation;
 import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
 import org.apache.flink.table.utils.PartitionPathUtils;
 
 import javax.annotation.Nullable;
@@ -72,7 +76,8 @@ public class FileSystemTableSource extends AbstractFileSystemTable
                 SupportsProjectionPushDown,
                 SupportsLimitPushDown,
                 SupportsPartitionPushDown,
-                SupportsFilterPushDown {
+                SupportsFilterPushDown,
+                SupportsAggregatePushDown {
 
     @Nullable private final DecodingFormat<BulkFormat<RowData, FileSourceSplit>> bulkReaderFormat;
     @Nullable private final DecodingFormat<DeserializationSchema<RowData>> deserializationFormat;
@@ -82,6 +87,7 @@ public class FileSystemTableSource extends AbstractFileSystemTable
     private List<Map<String, String>> remainingPartitions;
     private List<ResolvedExpression> filters;
     private Long limit;
+    private VectorizedAggregation aggregation;
 
     public FileSystemTableSource(
             DynamicTableFactory.Context context,
@@ -142,7 +148,9 @@ public class FileSystemTableSource extends AbstractFileSystemTable
     private SourceProvider createSourceProvider(BulkFormat<RowData, FileSourceSplit> bulkFormat) {
         FileSource.FileSourceBuilder<RowData> builder =
                 FileSource.forBulkFileFormat(
-                        LimitableBulkFormat.create(bulkFormat, limit), paths());
+                        LimitableBulkFormat.create(
+                                AggregatingBulkFormat.create(bulkFormat, aggregation), limit),
+                        paths());
         return SourceProvider.of(builder.build());
     }
 
@@ -228,6 +236,26 @@ public class FileSystemTableSource extends AbstractFileSystemTable
         this.limit = limit;
     }
 
+    @Override
+    public boolean applyAggregates(
+            List<int[]> groupingSets,
+            List<AggregateExpression> aggregateExpressions,
+            DataType producedDataType) {
+        // the aggregate runs over the column batches, which must hold all rows of the files
+        if (!(bulkReaderFormat instanceof ColumnarBulkDecodingFormat)
+                || limit != null
+                || (filters != null && !filters.isEmpty())) {
+            return false;
+        }
+        aggregation =
+                VectorizedAggregation.create(
+                        groupingSets,
+                        aggregateExpressions,
+                        (RowType) getProducedDataType().getLogicalType(),
+                        (RowType) producedDataType.getLogicalType());
+        return aggregation != null;
+    }
+
     @Override
     public Optional<List<Map<String, String>>> listPartitions() {
         try {
@@ -278,6 +306,7 @@ public class FileSystemTableSource extends AbstractFileSystemTable
         source.remainingPartitions = remainingPartitions;
         source.filters = filters;
         source.limit = limit;
+        source.aggregation = aggregation;
         return source;
     }
 
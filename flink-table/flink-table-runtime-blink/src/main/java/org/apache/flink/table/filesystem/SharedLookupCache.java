@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.filesystem;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.TemporaryClassLoaderContext;
+import org.apache.flink.util.function.SupplierWithException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A lookup cache shared by all subtasks of a lookup function running in the same TaskManager.
+ *
+ * <p>Instead of every subtask loading and keeping its own copy of the table, the first subtask
+ * acquiring the cache creates it and the last one releasing it disposes it. The table is loaded by
+ * a background thread into an immutable {@link BinaryLookupTable} and periodically reloaded. A
+ * reload builds a complete new snapshot and atomically swaps it in, so lookups are never blocked by
+ * a reload and never observe a partially loaded table. If a reload fails, the previous snapshot
+ * keeps being served until the next reload succeeds. If the initial load fails, the cache is
+ * unregistered, so that the next subtask acquiring it loads the table again.
+ */
+class SharedLookupCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedLookupCache.class);
+
+    // the max number of retries before giving up, in case of failure to load the table
+    private static final int MAX_RETRIES = 3;
+    // interval between retries
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(10);
+
+    @GuardedBy("CACHES")
+    private static final Map<String, SharedLookupCache> CACHES = new HashMap<>();
+
+    /** Loads a complete snapshot of the lookup table. */
+    interface Loader extends AutoCloseable {
+
+        /** Called once from the loading thread before the first load. */
+        void open() throws Exception;
+
+        BinaryLookupTable load() throws Exception;
+    }
+
+    private final String cacheId;
+    private final Loader loader;
+    private final Duration reloadInterval;
+    private final ClassLoader userClassLoader;
+    private final CompletableFuture<Void> initialLoad = new CompletableFuture<>();
+
+    @GuardedBy("CACHES")
+    private int refCount;
+
+    @GuardedBy("this")
+    private ScheduledExecutorService executor;
+
+    private volatile BinaryLookupTable table = BinaryLookupTable.EMPTY;
+
+    // only written by the loading thread
+    private volatile long loadCount;
+    private volatile long numLoadFailures;
+
+    @VisibleForTesting
+    SharedLookupCache(String cacheId, Loader loader, Duration reloadInterval) {
+        this.cacheId = cacheId;
+        this.loader = loader;
+        this.reloadInterval = reloadInterval;
+        this.userClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    /**
+     * Returns the cache registered under the given id, creating it with a loader from the given
+     * factory if it does not exist yet. Every call must be paired with a call to {@link
+     * #release()}.
+     */
+    static SharedLookupCache acquire(
+            String cacheId,
+            Duration reloadInterval,
+            SupplierWithException<Loader, Exception> loaderFactory)
+            throws Exception {
+        synchronized (CACHES) {
+            SharedLookupCache cache = CACHES.get(cacheId);
+            if (cache == null) {
+                cache = new SharedLookupCache(cacheId, loaderFactory.get(), reloadInterval);
+                CACHES.put(cacheId, cache);
+            }
+            cache.refCount++;
+            return cache;
+        }
+    }
+
+    /** Releases this cache and disposes it if it is no longer used by any subtask. */
+    void release() {
+        synchronized (CACHES) {
+            checkState(refCount > 0, "The lookup cache has already been released.");
+            if (--refCount > 0) {
+                return;
+            }
+            // a cache whose initial load failed may already have been replaced
+            CACHES.remove(cacheId, this);
+        }
+        dispose();
+    }
+
+    /**
+     * Returns the current snapshot of the table. The first call starts loading the table in the
+     * background and all calls block until the initial load has completed.
+     */
+    BinaryLookupTable getTable() {
+        if (!initialLoad.isDone() || initialLoad.isCompletedExceptionally()) {
+            startLoading();
+            try {
+                initialLoad.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FlinkRuntimeException(
+                        "Interrupted while waiting for the lookup join cache to be populated", e);
+            } catch (ExecutionException e) {
+                throw new FlinkRuntimeException(
+                        "Failed to populate the lookup join cache",
+                        ExceptionUtils.stripExecutionException(e));
+            }
+        }
+        return table;
+    }
+
+    /** Returns the current snapshot of the table without waiting for the initial load. */
+    BinaryLookupTable getCurrentTable() {
+        return table;
+    }
+
+    long getLoadCount() {
+        return loadCount;
+    }
+
+    long getNumLoadFailures() {
+        return numLoadFailures;
+    }
+
+    private synchronized void startLoading() {
+        if (executor != null) {
+            return;
+        }
+        ScheduledExecutorService loadingExecutor =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ExecutorThreadFactory("lookup-join-cache-loader"));
+        loadingExecutor.execute(
+                () -> {
+                    try (TemporaryClassLoaderContext ignored =
+                            TemporaryClassLoaderContext.of(userClassLoader)) {
+                        LOG.info("Populating lookup join cache");
+                        loader.open();
+                        table = loadWithRetries();
+                    } catch (Throwable t) {
+                        // subtasks acquiring the cache from now on, e.g. restarted ones, get a
+                        // new cache which loads the table again
+                        synchronized (CACHES) {
+                            CACHES.remove(cacheId, this);
+                        }
+                        initialLoad.completeExceptionally(t);
+                        return;
+                    }
+                    initialLoad.complete(null);
+                    if (!loadingExecutor.isShutdown()) {
+                        loadingExecutor.scheduleWithFixedDelay(
+                                this::reload,
+                                reloadInterval.toMillis(),
+                                reloadInterval.toMillis(),
+                                TimeUnit.MILLISECONDS);
+                    }
+                });
+        executor = loadingExecutor;
+    }
+
+    private void reload() {
+        LOG.info(
+                "Lookup join cache has expired after {} minute(s), reloading",
+                reloadInterval.toMinutes());
+        try (TemporaryClassLoaderContext ignored =
+                TemporaryClassLoaderContext.of(userClassLoader)) {
+            // the previous snapshot stays in use until the new one is complete
+            table = load();
+        } catch (Exception e) {
+            // the next scheduled reload is the retry
+            numLoadFailures++;
+            LOG.warn("Failed to reload lookup join cache, keep serving the previous snapshot", e);
+        }
+    }
+
+    private BinaryLookupTable load() throws Exception {
+        BinaryLookupTable loaded = loader.load();
+        loadCount++;
+        LOG.info(
+                "Loaded {} row(s) ({} bytes) into lookup join cache",
+                loaded.getNumEntries(),
+                loaded.getNumBytes());
+        return loaded;
+    }
+
+    private BinaryLookupTable loadWithRetries() throws Exception {
+        int numRetry = 0;
+        while (true) {
+            try {
+                return load();
+            } catch (Exception e) {
+                numLoadFailures++;
+                if (numRetry >= MAX_RETRIES) {
+                    throw new FlinkRuntimeException(
+                            String.format(
+                                    "Failed to load table into cache after %d retries", numRetry),
+                            e);
+                }
+                numRetry++;
+                long toSleep = numRetry * RETRY_INTERVAL.toMillis();
+                LOG.warn(
+                        String.format(
+                                "Failed to load table into cache, will retry in %d seconds",
+                                toSleep / 1000),
+                        e);
+                Thread.sleep(toSleep);
+            }
+        }
+    }
+
+    private synchronized void dispose() {
+        initialLoad.completeExceptionally(
+                new IllegalStateException("The lookup join cache has been disposed."));
+        if (executor != null) {
+            // close the loader after a load in progress has finished, pending reloads are dropped
+            executor.execute(this::closeLoader);
+            executor.shutdown();
+        } else {
+            closeLoader();
+        }
+    }
+
+    private void closeLoader() {
+        table = BinaryLookupTable.EMPTY;
+        try {
+            loader.close();
+        } catch (Exception e) {
+            LOG.warn("Failed to close the loader of the lookup join cache", e);
+        }
+    }
+
+    @VisibleForTesting
+    static int getNumRegisteredCaches() {
+        synchronized (CACHES) {
+            return CACHES.size();
+        }
+    }
+}
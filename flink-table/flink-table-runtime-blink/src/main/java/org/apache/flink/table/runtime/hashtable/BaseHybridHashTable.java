@@ -144,13 +144,16 @@ public abstract class BaseHybridHashTable implements MemorySegmentPool {
             long buildRowCount,
             boolean tryDistinctBuildRow) {
 
-        // TODO: read compression config from configuration
         this.compressionEnable =
                 conf.getBoolean(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_ENABLED);
+        String compressionCodec =
+                conf.get(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_CODEC);
+        int compressionZstdLevel =
+                conf.get(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_ZSTD_LEVEL);
         this.compressionCodecFactory =
                 this.compressionEnable
                         ? BlockCompressionFactory.createBlockCompressionFactory(
-                                BlockCompressionFactory.CompressionFactoryName.LZ4.toString())
+                                compressionCodec, compressionZstdLevel)
                         : null;
         this.compressionBlockSize =
                 (int)
@@ -19,7 +19,6 @@
 package org.apache.flink.table.runtime.operators.aggregate;
 
 import org.apache.flink.api.common.state.StateTtlConfig;
-import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.utils.JoinedRowData;
@@ -29,6 +28,7 @@ import org.apache.flink.table.runtime.generated.AggsHandleFunction;
 import org.apache.flink.table.runtime.generated.GeneratedAggsHandleFunction;
 import org.apache.flink.table.runtime.generated.GeneratedRecordEqualiser;
 import org.apache.flink.table.runtime.generated.RecordEqualiser;
+import org.apache.flink.table.runtime.operators.bundle.BundledValueState;
 import org.apache.flink.table.runtime.operators.bundle.MapBundleFunction;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
 import org.apache.flink.table.types.logical.LogicalType;
@@ -81,7 +81,7 @@ public class MiniBatchGlobalGroupAggFunction
     private transient RecordEqualiser equaliser = null;
 
     // stores the accumulators
-    private transient ValueState<RowData> accState = null;
+    private transient BundledValueState<RowData, RowData> accState = null;
 
     /**
      * Creates a {@link MiniBatchGlobalGroupAggFunction}.
@@ -133,7 +133,7 @@ public class MiniBatchGlobalGroupAggFunction
         if (ttlConfig.isEnabled()) {
             accDesc.enableTimeToLive(ttlConfig);
         }
-        accState = ctx.getRuntimeContext().getState(accDesc);
+        accState = new BundledValueState<>(ctx.getRuntimeContext().getState(accDesc));
 
         resultRow = new JoinedRowData();
     }
@@ -160,6 +160,8 @@ public class MiniBatchGlobalGroupAggFunction
     @Override
     public void finishBundle(Map<RowData, RowData> buffer, Collector<RowData> out)
             throws Exception {
+        // fetch the accumulators of all keys at once
+        accState.prefetch(buffer.keySet());
         for (Map.Entry<RowData, RowData> entry : buffer.entrySet()) {
             RowData currentKey = entry.getKey();
             RowData bufferAcc = entry.getValue();
@@ -168,6 +170,7 @@ public class MiniBatchGlobalGroupAggFunction
 
             // set current key to access states under the current key
             ctx.setCurrentKey(currentKey);
+            accState.setCurrentKey(currentKey);
             RowData stateAcc = accState.value();
             if (stateAcc == null) {
                 stateAcc = globalAgg.createAccumulators();
@@ -228,6 +231,8 @@ public class MiniBatchGlobalGroupAggFunction
                 globalAgg.cleanup();
             }
         }
+        // write back the accumulators of all keys at once
+        accState.flush();
     }
 
     @Override
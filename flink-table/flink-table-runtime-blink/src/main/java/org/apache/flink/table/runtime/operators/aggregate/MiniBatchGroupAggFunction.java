@@ -19,7 +19,6 @@
 package org.apache.flink.table.runtime.operators.aggregate;
 
 import org.apache.flink.api.common.state.StateTtlConfig;
-import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.table.data.RowData;
@@ -30,6 +29,7 @@ import org.apache.flink.table.runtime.generated.AggsHandleFunction;
 import org.apache.flink.table.runtime.generated.GeneratedAggsHandleFunction;
 import org.apache.flink.table.runtime.generated.GeneratedRecordEqualiser;
 import org.apache.flink.table.runtime.generated.RecordEqualiser;
+import org.apache.flink.table.runtime.operators.bundle.BundledValueState;
 import org.apache.flink.table.runtime.operators.bundle.MapBundleFunction;
 import org.apache.flink.table.runtime.typeutils.InternalSerializers;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
@@ -93,7 +93,7 @@ public class MiniBatchGroupAggFunction
     private transient RecordEqualiser equaliser = null;
 
     // stores the accumulators
-    private transient ValueState<RowData> accState = null;
+    private transient BundledValueState<RowData, RowData> accState = null;
 
     /**
      * Creates a {@link MiniBatchGroupAggFunction}.
@@ -141,7 +141,7 @@ public class MiniBatchGroupAggFunction
         if (ttlConfig.isEnabled()) {
             accDesc.enableTimeToLive(ttlConfig);
         }
-        accState = ctx.getRuntimeContext().getState(accDesc);
+        accState = new BundledValueState<>(ctx.getRuntimeContext().getState(accDesc));
 
         inputRowSerializer = InternalSerializers.create(inputType);
 
@@ -162,6 +162,8 @@ public class MiniBatchGroupAggFunction
     @Override
     public void finishBundle(Map<RowData, List<RowData>> buffer, Collector<RowData> out)
             throws Exception {
+        // fetch the accumulators of all keys at once
+        accState.prefetch(buffer.keySet());
         for (Map.Entry<RowData, List<RowData>> entry : buffer.entrySet()) {
             RowData currentKey = entry.getKey();
             List<RowData> inputRows = entry.getValue();
@@ -172,6 +174,7 @@ public class MiniBatchGroupAggFunction
 
             // set current key to access state under the key
             ctx.setCurrentKey(currentKey);
+            accState.setCurrentKey(currentKey);
             RowData acc = accState.value();
             if (acc == null) {
                 // Don't create a new accumulator for a retraction message. This
@@ -187,7 +190,7 @@ public class MiniBatchGroupAggFunction
                     }
                 }
                 if (inputRows.isEmpty()) {
-                    return;
+                    continue;
                 }
                 acc = function.createAccumulators();
                 firstRow = true;
@@ -256,6 +259,8 @@ public class MiniBatchGroupAggFunction
                 function.cleanup();
             }
         }
+        // write back the accumulators of all keys at once
+        accState.flush();
     }
 
     @Override
@@ -37,6 +37,7 @@ import org.apache.flink.table.types.logical.RowType;
 
 import java.util.function.Supplier;
 
+import static org.apache.flink.table.api.config.ExecutionConfigOptions.TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_MAX_NUM_FILE_HANDLES;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -64,6 +65,9 @@ public class SlicingWindowAggOperatorBuilder {
     private LogicalType[] accumulatorTypes;
     private GeneratedNamespaceAggsHandleFunction<Long> generatedAggregateFunction;
     private int indexOfCountStart = -1;
+    private boolean bufferSpillEnabled = false;
+    private int bufferSpillMaxNumFileHandles =
+            TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_MAX_NUM_FILE_HANDLES.defaultValue();
 
     public SlicingWindowAggOperatorBuilder inputType(RowType rowType) {
         this.inputType = rowType;
@@ -100,6 +104,22 @@ public class SlicingWindowAggOperatorBuilder {
         return this;
     }
 
+    /**
+     * Whether the records buffered in managed memory are spilled to local disk when the memory is
+     * exhausted, instead of being flushed into state.
+     */
+    public SlicingWindowAggOperatorBuilder bufferSpillEnabled(boolean bufferSpillEnabled) {
+        this.bufferSpillEnabled = bufferSpillEnabled;
+        return this;
+    }
+
+    /** The max number of spilled files which are opened at the same time when merging them. */
+    public SlicingWindowAggOperatorBuilder bufferSpillMaxNumFileHandles(
+            int bufferSpillMaxNumFileHandles) {
+        this.bufferSpillMaxNumFileHandles = bufferSpillMaxNumFileHandles;
+        return this;
+    }
+
     public SlicingWindowOperator<RowData, ?> build() {
         checkNotNull(assigner);
         checkNotNull(inputType);
@@ -107,7 +127,8 @@ public class SlicingWindowAggOperatorBuilder {
         checkNotNull(accumulatorTypes);
         checkNotNull(generatedAggregateFunction);
         final WindowBuffer.Factory bufferFactory =
-                new RecordsWindowBuffer.Factory(keyTypes, inputType);
+                new RecordsWindowBuffer.Factory(
+                        keyTypes, inputType, bufferSpillEnabled, bufferSpillMaxNumFileHandles);
         final WindowCombineFunction.Factory combinerFactory =
                 new CombineRecordsFunction.Factory(generatedAggregateFunction, inputType);
         final SlicingWindowProcessor<Long> windowProcessor;
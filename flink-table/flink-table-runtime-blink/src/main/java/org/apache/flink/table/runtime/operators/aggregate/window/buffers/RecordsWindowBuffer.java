@@ -18,6 +18,7 @@
 
 package org.apache.flink.table.runtime.operators.aggregate.window.buffers;
 
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.binary.BinaryRowData;
@@ -31,12 +32,21 @@ import org.apache.flink.table.runtime.util.collections.binary.WindowBytesMultiMa
 import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.RowType;
 
+import javax.annotation.Nullable;
+
 import java.io.EOFException;
 import java.util.Iterator;
 
+import static org.apache.flink.table.api.config.ExecutionConfigOptions.TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_MAX_NUM_FILE_HANDLES;
+
 /**
  * An implementation of {@link WindowBuffer} that buffers input elements in a {@link
  * WindowBytesMultiMap} and combines buffered elements into state when flushing.
+ *
+ * <p>By default, the buffer is flushed into state whenever the {@link WindowBytesMultiMap} is full.
+ * If spilling is enabled, a full buffer is spilled to local disk instead (see {@link
+ * WindowRecordsSpiller}) and the spilled runs are merged when the buffer is flushed, so that the
+ * buffered elements of a window-key pair are combined into state only once.
  */
 public final class RecordsWindowBuffer implements WindowBuffer {
 
@@ -44,6 +54,7 @@ public final class RecordsWindowBuffer implements WindowBuffer {
     private final WindowBytesMultiMap recordsBuffer;
     private final WindowKey reuseWindowKey;
     private final RowDataSerializer recordSerializer;
+    @Nullable private final WindowRecordsSpiller spiller;
 
     private long minTriggerTime = Long.MAX_VALUE;
 
@@ -51,9 +62,30 @@ public final class RecordsWindowBuffer implements WindowBuffer {
             Object operatorOwner,
             MemoryManager memoryManager,
             long memorySize,
+            @Nullable IOManager ioManager,
             WindowCombineFunction combineFunction,
             LogicalType[] keyTypes,
             RowType inputType) {
+        this(
+                operatorOwner,
+                memoryManager,
+                memorySize,
+                ioManager,
+                combineFunction,
+                keyTypes,
+                inputType,
+                TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_MAX_NUM_FILE_HANDLES.defaultValue());
+    }
+
+    public RecordsWindowBuffer(
+            Object operatorOwner,
+            MemoryManager memoryManager,
+            long memorySize,
+            @Nullable IOManager ioManager,
+            WindowCombineFunction combineFunction,
+            LogicalType[] keyTypes,
+            RowType inputType,
+            int spillMaxNumFileHandles) {
         this.combineFunction = combineFunction;
         LogicalType[] inputFieldTypes =
                 inputType.getFields().stream()
@@ -64,6 +96,14 @@ public final class RecordsWindowBuffer implements WindowBuffer {
                         operatorOwner, memoryManager, memorySize, keyTypes, inputFieldTypes);
         this.recordSerializer = new RowDataSerializer(inputFieldTypes);
         this.reuseWindowKey = new WindowKeySerializer(keyTypes.length).createInstance();
+        this.spiller =
+                ioManager == null
+                        ? null
+                        : new WindowRecordsSpiller(
+                                ioManager,
+                                keyTypes.length,
+                                inputFieldTypes.length,
+                                spillMaxNumFileHandles);
     }
 
     @Override
@@ -78,8 +118,14 @@ public final class RecordsWindowBuffer implements WindowBuffer {
         try {
             recordsBuffer.append(lookup, recordSerializer.toBinaryRow(element));
         } catch (EOFException e) {
-            // buffer is full, flush it to state
-            flush();
+            if (spiller != null) {
+                // buffer is full, spill it to disk and combine it into state when flushing
+                spiller.spill(recordsBuffer);
+                recordsBuffer.reset();
+            } else {
+                // buffer is full, flush it to state
+                flush();
+            }
             // remember to add the input element again
             addElement(key, sliceEnd, element);
         }
@@ -95,7 +141,15 @@ public final class RecordsWindowBuffer implements WindowBuffer {
 
     @Override
     public void flush() throws Exception {
-        if (recordsBuffer.getNumKeys() > 0) {
+        if (spiller != null && spiller.hasSpilledRuns()) {
+            if (recordsBuffer.getNumKeys() > 0) {
+                spiller.spill(recordsBuffer);
+                recordsBuffer.reset();
+            }
+            spiller.mergeAndCombine(combineFunction);
+            // reset trigger time
+            minTriggerTime = Long.MAX_VALUE;
+        } else if (recordsBuffer.getNumKeys() > 0) {
             KeyValueIterator<WindowKey, Iterator<RowData>> entryIterator =
                     recordsBuffer.getEntryIterator();
             while (entryIterator.advanceNext()) {
@@ -110,6 +164,9 @@ public final class RecordsWindowBuffer implements WindowBuffer {
     @Override
     public void close() throws Exception {
         recordsBuffer.free();
+        if (spiller != null) {
+            spiller.close();
+        }
     }
 
     // ------------------------------------------------------------------------------------------
@@ -123,10 +180,30 @@ public final class RecordsWindowBuffer implements WindowBuffer {
 
         private final LogicalType[] keyTypes;
         private final RowType inputType;
+        private final boolean spillEnabled;
+        private final int spillMaxNumFileHandles;
 
         public Factory(LogicalType[] keyTypes, RowType inputType) {
+            this(keyTypes, inputType, false);
+        }
+
+        public Factory(LogicalType[] keyTypes, RowType inputType, boolean spillEnabled) {
+            this(
+                    keyTypes,
+                    inputType,
+                    spillEnabled,
+                    TABLE_EXEC_WINDOW_AGG_BUFFER_SPILL_MAX_NUM_FILE_HANDLES.defaultValue());
+        }
+
+        public Factory(
+                LogicalType[] keyTypes,
+                RowType inputType,
+                boolean spillEnabled,
+                int spillMaxNumFileHandles) {
             this.keyTypes = keyTypes;
             this.inputType = inputType;
+            this.spillEnabled = spillEnabled;
+            this.spillMaxNumFileHandles = spillMaxNumFileHandles;
         }
 
         @Override
@@ -134,9 +211,17 @@ public final class RecordsWindowBuffer implements WindowBuffer {
                 Object operatorOwner,
                 MemoryManager memoryManager,
                 long memorySize,
+                IOManager ioManager,
                 WindowCombineFunction combineFunction) {
             return new RecordsWindowBuffer(
-                    operatorOwner, memoryManager, memorySize, combineFunction, keyTypes, inputType);
+                    operatorOwner,
+                    memoryManager,
+                    memorySize,
+                    spillEnabled ? ioManager : null,
+                    combineFunction,
+                    keyTypes,
+                    inputType,
+                    spillMaxNumFileHandles);
         }
     }
 }
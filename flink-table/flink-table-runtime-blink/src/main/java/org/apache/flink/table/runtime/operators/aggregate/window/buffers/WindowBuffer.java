@@ -19,6 +19,7 @@
 package org.apache.flink.table.runtime.operators.aggregate.window.buffers;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.binary.BinaryRowData;
@@ -83,6 +84,7 @@ public interface WindowBuffer {
          * @param operatorOwner the owner of the operator
          * @param memoryManager the manager that governs memory by Flink framework
          * @param memorySize the managed memory size can be used by this operator
+         * @param ioManager the manager used to spill buffered data to local disk
          * @param combineFunction the combine function used to combine buffered data into state
          * @throws IOException thrown if the buffer can't be opened
          */
@@ -90,6 +92,7 @@ public interface WindowBuffer {
                 Object operatorOwner,
                 MemoryManager memoryManager,
                 long memorySize,
+                IOManager ioManager,
                 WindowCombineFunction combineFunction)
                 throws IOException;
     }
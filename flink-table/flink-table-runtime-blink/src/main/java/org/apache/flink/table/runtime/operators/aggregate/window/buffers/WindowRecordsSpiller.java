@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.aggregate.window.buffers;
+
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.data.binary.BinarySegmentUtils;
+import org.apache.flink.table.runtime.operators.aggregate.window.combines.WindowCombineFunction;
+import org.apache.flink.table.runtime.typeutils.BinaryRowDataSerializer;
+import org.apache.flink.table.runtime.util.KeyValueIterator;
+import org.apache.flink.table.runtime.util.WindowKey;
+import org.apache.flink.table.runtime.util.collections.binary.BytesMap.LookupInfo;
+import org.apache.flink.table.runtime.util.collections.binary.WindowBytesMultiMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Spills the content of a full {@link WindowBytesMultiMap} to local disk and merges the spilled
+ * runs when the {@link RecordsWindowBuffer} is flushed.
+ *
+ * <p>Every spilled run contains the window-key pairs of the buffer sorted by window and key,
+ * together with all buffered records of a pair. The runs are merged so that the records of a
+ * window-key pair from all runs are combined into state at once, in the order they were added to
+ * the buffer. The records are streamed from the runs while they are combined, so a window-key pair
+ * with many records doesn't need to fit into memory.
+ *
+ * <p>At most {@code maxFanIn} runs are opened at the same time. If there are more runs, they are
+ * merged into fewer runs in intermediate passes first, like the {@code BinaryExternalSorter} does.
+ * Only consecutive runs are merged with each other, so the order of the records is kept.
+ */
+final class WindowRecordsSpiller implements Closeable {
+
+    private static final Comparator<SpilledKey> KEY_COMPARATOR =
+            Comparator.comparingLong((SpilledKey k) -> k.window)
+                    .thenComparing((k1, k2) -> compareBytes(k1.keyBytes, k2.keyBytes));
+
+    private final IOManager ioManager;
+    private final int keyArity;
+    private final int maxFanIn;
+    private final BinaryRowDataSerializer recordSerializer;
+    private final List<FileIOChannel.ID> runs = new ArrayList<>();
+
+    WindowRecordsSpiller(IOManager ioManager, int keyArity, int recordArity, int maxFanIn) {
+        checkArgument(maxFanIn >= 2, "The merge fan-in must be at least 2.");
+        this.ioManager = ioManager;
+        this.keyArity = keyArity;
+        this.maxFanIn = maxFanIn;
+        this.recordSerializer = new BinaryRowDataSerializer(recordArity);
+    }
+
+    boolean hasSpilledRuns() {
+        return !runs.isEmpty();
+    }
+
+    int getNumSpilledRuns() {
+        return runs.size();
+    }
+
+    /** Writes the content of the given buffer as a sorted run, the buffer is not modified. */
+    void spill(WindowBytesMultiMap buffer) throws IOException {
+        // only the keys are copied and sorted, the records are read from the buffer again
+        List<SpilledKey> keys = new ArrayList<>((int) buffer.getNumKeys());
+        KeyValueIterator<WindowKey, Iterator<RowData>> entryIterator = buffer.getEntryIterator();
+        while (entryIterator.advanceNext()) {
+            WindowKey windowKey = entryIterator.getKey();
+            keys.add(new SpilledKey(windowKey.getWindow(), toBytes(windowKey.getKey())));
+        }
+        keys.sort(KEY_COMPARATOR);
+
+        FileIOChannel.ID channel = ioManager.createChannel();
+        runs.add(channel);
+        WindowKey lookupKey = new WindowKey(0L, new BinaryRowData(keyArity));
+        try (DataOutputViewStreamWrapper out =
+                new DataOutputViewStreamWrapper(
+                        new BufferedOutputStream(new FileOutputStream(channel.getPathFile())))) {
+            for (SpilledKey key : keys) {
+                LookupInfo<WindowKey, Iterator<RowData>> lookup =
+                        buffer.lookup(lookupKey.replace(key.window, toRow(key.keyBytes)));
+                writeKeyAndRecords(out, key, lookup.getValue());
+            }
+            // end of the run
+            out.writeBoolean(false);
+        }
+    }
+
+    /**
+     * Writes a window-key pair and its records, every pair and every record is prefixed by a flag,
+     * so that a run can be written without knowing the number of pairs or records upfront.
+     */
+    private void writeKeyAndRecords(
+            DataOutputViewStreamWrapper out, SpilledKey key, Iterator<RowData> records)
+            throws IOException {
+        out.writeBoolean(true);
+        out.writeLong(key.window);
+        out.writeInt(key.keyBytes.length);
+        out.write(key.keyBytes);
+        while (records.hasNext()) {
+            out.writeBoolean(true);
+            recordSerializer.serialize((BinaryRowData) records.next(), out);
+        }
+        out.writeBoolean(false);
+    }
+
+    /**
+     * Merges all spilled runs and combines the records of every window-key pair into state. The
+     * spilled runs are deleted afterwards.
+     */
+    void mergeAndCombine(WindowCombineFunction combineFunction) throws Exception {
+        try {
+            // merge the runs in intermediate passes until they can be opened at once
+            while (runs.size() > maxFanIn) {
+                List<FileIOChannel.ID> mergedRuns = mergeRunList(new ArrayList<>(runs));
+                runs.clear();
+                runs.addAll(mergedRuns);
+            }
+
+            WindowKey reuseWindowKey = new WindowKey(0L, new BinaryRowData(keyArity));
+            merge(
+                    runs,
+                    (key, records) ->
+                            combineFunction.combine(
+                                    reuseWindowKey.replace(key.window, toRow(key.keyBytes)),
+                                    records));
+        } finally {
+            deleteRuns();
+        }
+    }
+
+    /**
+     * Merges the given runs into at most {@code maxFanIn} runs, see {@code
+     * AbstractBinaryExternalMerger#mergeChannelList}. The merged runs are returned in the order of
+     * the given runs.
+     */
+    private List<FileIOChannel.ID> mergeRunList(List<FileIOChannel.ID> runIDs) throws Exception {
+        // A run list with length maxFanIn<sup>i</sup> can be merged to maxFanIn runs in i-1
+        // rounds where every merge is a full merge with maxFanIn input runs. A partial round
+        // includes merges with fewer than maxFanIn inputs. It is most efficient to perform the
+        // partial round first.
+        final double scale = Math.ceil(Math.log(runIDs.size()) / Math.log(maxFanIn)) - 1;
+
+        final int numStart = runIDs.size();
+        final int numEnd = (int) Math.pow(maxFanIn, scale);
+
+        final int numMerges = (int) Math.ceil((numStart - numEnd) / (double) (maxFanIn - 1));
+
+        final int numNotMerged = numEnd - numMerges;
+        final int numToMerge = numStart - numNotMerged;
+
+        // unmerged runs are copied directly to the result list
+        final List<FileIOChannel.ID> mergedRunIDs = new ArrayList<>(numEnd);
+        mergedRunIDs.addAll(runIDs.subList(0, numNotMerged));
+
+        final int runsToMergePerStep = (int) Math.ceil(numToMerge / (double) numMerges);
+
+        int runNum = numNotMerged;
+        while (runNum < runIDs.size()) {
+            int endRunNum = Math.min(runNum + runsToMergePerStep, runIDs.size());
+            mergedRunIDs.add(mergeRuns(runIDs.subList(runNum, endRunNum)));
+            runNum = endRunNum;
+        }
+        return mergedRunIDs;
+    }
+
+    /** Merges the given runs into a single run and deletes them. */
+    private FileIOChannel.ID mergeRuns(List<FileIOChannel.ID> runIDs) throws Exception {
+        FileIOChannel.ID channel = ioManager.createChannel();
+        // registered to be deleted on close if the merge fails
+        runs.add(channel);
+        try (DataOutputViewStreamWrapper out =
+                new DataOutputViewStreamWrapper(
+                        new BufferedOutputStream(new FileOutputStream(channel.getPathFile())))) {
+            merge(runIDs, (key, records) -> writeKeyAndRecords(out, key, records));
+            // end of the run
+            out.writeBoolean(false);
+        }
+        for (FileIOChannel.ID runID : runIDs) {
+            IOManager.deleteChannel(runID);
+        }
+        return channel;
+    }
+
+    /**
+     * Merges the given runs and passes every window-key pair with the records of all runs to the
+     * given consumer. The records of a pair are passed in the order of the given runs.
+     */
+    private void merge(List<FileIOChannel.ID> runIDs, MergedKeyConsumer consumer) throws Exception {
+        PriorityQueue<RunReader> queue =
+                new PriorityQueue<>(
+                        Math.max(1, runIDs.size()),
+                        (r1, r2) -> {
+                            int cmp = KEY_COMPARATOR.compare(r1.currentKey, r2.currentKey);
+                            // keep the order in which the records were added to the buffer
+                            return cmp != 0 ? cmp : Integer.compare(r1.runIndex, r2.runIndex);
+                        });
+        List<RunReader> readers = new ArrayList<>(runIDs.size());
+        try {
+            for (int i = 0; i < runIDs.size(); i++) {
+                RunReader reader = new RunReader(runIDs.get(i), i);
+                readers.add(reader);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+
+            List<RunReader> sameKeyReaders = new ArrayList<>(runIDs.size());
+            while (!queue.isEmpty()) {
+                // the readers of the same window-key pair are polled in the order of their runs
+                RunReader reader = queue.poll();
+                SpilledKey key = reader.currentKey;
+                sameKeyReaders.clear();
+                sameKeyReaders.add(reader);
+                while (!queue.isEmpty()
+                        && KEY_COMPARATOR.compare(queue.peek().currentKey, key) == 0) {
+                    sameKeyReaders.add(queue.poll());
+                }
+
+                consumer.accept(key, new ChainedRecordIterator(sameKeyReaders));
+
+                for (RunReader sameKeyReader : sameKeyReaders) {
+                    if (sameKeyReader.advance()) {
+                        queue.add(sameKeyReader);
+                    }
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        deleteRuns();
+    }
+
+    private void deleteRuns() {
+        for (FileIOChannel.ID channel : runs) {
+            IOManager.deleteChannel(channel);
+        }
+        runs.clear();
+    }
+
+    private static byte[] toBytes(BinaryRowData row) {
+        return BinarySegmentUtils.copyToBytes(
+                row.getSegments(), row.getOffset(), row.getSizeInBytes());
+    }
+
+    private BinaryRowData toRow(byte[] bytes) {
+        BinaryRowData row = new BinaryRowData(keyArity);
+        row.pointTo(MemorySegmentFactory.wrap(bytes), 0, bytes.length);
+        return row;
+    }
+
+    private static int compareBytes(byte[] b1, byte[] b2) {
+        int len = Math.min(b1.length, b2.length);
+        for (int i = 0; i < len; i++) {
+            int cmp = Integer.compare(b1[i] & 0xff, b2[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(b1.length, b2.length);
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** Consumes a window-key pair of the merged runs together with its records. */
+    @FunctionalInterface
+    private interface MergedKeyConsumer {
+        void accept(SpilledKey key, Iterator<RowData> records) throws Exception;
+    }
+
+    /** A window-key pair of a spilled run, the key is kept in its binary form. */
+    private static final class SpilledKey {
+        private final long window;
+        private final byte[] keyBytes;
+
+        private SpilledKey(long window, byte[] keyBytes) {
+            this.window = window;
+            this.keyBytes = keyBytes;
+        }
+    }
+
+    /**
+     * Iterates over the records of the current window-key pair of the given readers, one reader
+     * after the other. The records are read lazily and the returned rows are reused.
+     */
+    private static final class ChainedRecordIterator implements Iterator<RowData> {
+        private final Iterator<RunReader> readers;
+        private RunReader currentReader;
+
+        private ChainedRecordIterator(List<RunReader> readers) {
+            this.readers = readers.iterator();
+            this.currentReader = this.readers.next();
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (!currentReader.hasNextRecord()) {
+                    if (!readers.hasNext()) {
+                        return false;
+                    }
+                    currentReader = readers.next();
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public RowData next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return currentReader.nextRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Reads the window-key pairs and records of a spilled run sequentially. */
+    private final class RunReader implements Closeable {
+        private final int runIndex;
+        private final DataInputViewStreamWrapper in;
+        private final BinaryRowData reuseRecord;
+        private SpilledKey currentKey;
+
+        /** Whether all window-key pairs of the run have been read. */
+        private boolean endOfRun;
+
+        /** Whether all records of the current window-key pair have been read. */
+        private boolean endOfRecords = true;
+
+        /** Whether the flag announcing the next record has been read, but the record not yet. */
+        private boolean hasPendingRecord;
+
+        private RunReader(FileIOChannel.ID channel, int runIndex) throws IOException {
+            this.runIndex = runIndex;
+            this.reuseRecord = recordSerializer.createInstance();
+            this.in =
+                    new DataInputViewStreamWrapper(
+                            new BufferedInputStream(new FileInputStream(channel.getPathFile())));
+        }
+
+        /**
+         * Reads the next window-key pair, returns false if the run is exhausted. The records of the
+         * current pair which have not been read are skipped.
+         */
+        private boolean advance() throws IOException {
+            while (hasNextRecord()) {
+                nextRecord();
+            }
+            if (endOfRun || !in.readBoolean()) {
+                endOfRun = true;
+                return false;
+            }
+            long window = in.readLong();
+            byte[] keyBytes = new byte[in.readInt()];
+            in.readFully(keyBytes);
+            currentKey = new SpilledKey(window, keyBytes);
+            endOfRecords = false;
+            return true;
+        }
+
+        /** Whether the current window-key pair has more records. */
+        private boolean hasNextRecord() throws IOException {
+            if (!endOfRecords && !hasPendingRecord) {
+                hasPendingRecord = in.readBoolean();
+                endOfRecords = !hasPendingRecord;
+            }
+            return hasPendingRecord;
+        }
+
+        /** Reads the next record of the current window-key pair into the reused row. */
+        private BinaryRowData nextRecord() throws IOException {
+            hasPendingRecord = false;
+            return recordSerializer.deserialize(reuseRecord, in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
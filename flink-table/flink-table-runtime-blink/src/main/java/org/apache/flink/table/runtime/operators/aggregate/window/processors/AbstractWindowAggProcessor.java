@@ -114,6 +114,7 @@ public abstract class AbstractWindowAggProcessor implements SlicingWindowProcess
                         ctx.getOperatorOwner(),
                         ctx.getMemoryManager(),
                         ctx.getMemorySize(),
+                        ctx.getIOManager(),
                         combineFunction);
 
         this.reuseOutput = new JoinedRowData();
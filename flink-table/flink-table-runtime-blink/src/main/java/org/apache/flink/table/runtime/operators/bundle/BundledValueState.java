@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.bundle;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.util.Preconditions;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link ValueState} view on the keys of a bundle. The values of all keys are fetched with one
+ * batched lookup before the bundle is processed, and all changes are written back in one batch when
+ * the bundle is finished, which saves a state backend round trip per key for backends like RocksDB.
+ *
+ * <p>The view must only be accessed for keys of the current bundle, between {@link
+ * #prefetch(Collection)} and {@link #flush()}.
+ *
+ * @param <K> The type of the key in the bundle map
+ * @param <V> The type of the value in the state
+ */
+public final class BundledValueState<K, V> implements ValueState<V> {
+
+    private final InternalValueState<K, ?, V> state;
+
+    /** Values of the keys of the current bundle, as they were before the bundle was processed. */
+    private Map<K, V> values = Collections.emptyMap();
+
+    /** Values changed while processing the current bundle, {@code null} for cleared values. */
+    private final Map<K, V> updates = new HashMap<>();
+
+    private K currentKey;
+
+    @SuppressWarnings("unchecked")
+    public BundledValueState(ValueState<V> state) {
+        Preconditions.checkArgument(
+                state instanceof InternalValueState,
+                "The state %s does not support batched access.",
+                state);
+        this.state = (InternalValueState<K, ?, V>) state;
+    }
+
+    /** Fetches the values of the given keys of the bundle which is about to be processed. */
+    public void prefetch(Collection<K> keys) throws IOException {
+        values = state.getAll(keys);
+    }
+
+    /** Sets the key of the bundle that the next value methods will refer to. */
+    public void setCurrentKey(K key) {
+        this.currentKey = Preconditions.checkNotNull(key);
+    }
+
+    @Override
+    public V value() {
+        if (updates.containsKey(currentKey)) {
+            return updates.get(currentKey);
+        }
+        return values.get(currentKey);
+    }
+
+    @Override
+    public void update(V value) {
+        updates.put(currentKey, value);
+    }
+
+    @Override
+    public void clear() {
+        updates.put(currentKey, null);
+    }
+
+    /** Writes back all changes of the bundle which has been processed. */
+    public void flush() throws IOException {
+        if (!updates.isEmpty()) {
+            state.putAll(updates);
+            updates.clear();
+        }
+        values = Collections.emptyMap();
+        currentKey = null;
+    }
+}
@@ -60,11 +60,14 @@ public class ProcTimeMiniBatchDeduplicateKeepFirstRowFunction
     @Override
     public void finishBundle(Map<RowData, RowData> buffer, Collector<RowData> out)
             throws Exception {
+        state.prefetch(buffer.keySet());
         for (Map.Entry<RowData, RowData> entry : buffer.entrySet()) {
             RowData currentKey = entry.getKey();
             RowData currentRow = entry.getValue();
             ctx.setCurrentKey(currentKey);
+            state.setCurrentKey(currentKey);
             processFirstRowOnProcTime(currentRow, state, out);
         }
+        state.flush();
     }
 }
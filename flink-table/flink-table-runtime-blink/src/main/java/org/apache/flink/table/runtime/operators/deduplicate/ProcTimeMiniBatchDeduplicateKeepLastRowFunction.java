@@ -82,10 +82,12 @@ public class ProcTimeMiniBatchDeduplicateKeepLastRowFunction
     @Override
     public void finishBundle(Map<RowData, RowData> buffer, Collector<RowData> out)
             throws Exception {
+        state.prefetch(buffer.keySet());
         for (Map.Entry<RowData, RowData> entry : buffer.entrySet()) {
             RowData currentKey = entry.getKey();
             RowData currentRow = entry.getValue();
             ctx.setCurrentKey(currentKey);
+            state.setCurrentKey(currentKey);
             if (inputInsertOnly) {
                 processLastRowOnProcTime(
                         currentRow,
@@ -100,5 +102,6 @@ public class ProcTimeMiniBatchDeduplicateKeepLastRowFunction
                         currentRow, generateUpdateBefore, state, out, isStateTtlEnabled, equaliser);
             }
         }
+        state.flush();
     }
 }
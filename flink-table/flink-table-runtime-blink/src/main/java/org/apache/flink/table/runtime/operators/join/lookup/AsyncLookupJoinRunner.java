@@ -26,6 +26,7 @@ import org.apache.flink.streaming.api.functions.async.ResultFuture;
 import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
 import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
 import org.apache.flink.table.data.conversion.DataStructureConverter;
 import org.apache.flink.table.data.utils.JoinedRowData;
 import org.apache.flink.table.runtime.collector.TableFunctionResultFuture;
@@ -33,6 +34,8 @@ import org.apache.flink.table.runtime.generated.GeneratedFunction;
 import org.apache.flink.table.runtime.generated.GeneratedResultFuture;
 import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
 
+import javax.annotation.Nullable;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -49,8 +52,10 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
     private final GeneratedResultFuture<TableFunctionResultFuture<RowData>> generatedResultFuture;
     private final boolean isLeftOuterJoin;
     private final int asyncBufferCapacity;
+    @Nullable private final LookupCacheConfig cacheConfig;
 
     private transient AsyncFunction<RowData, Object> fetcher;
+    private transient LookupCache cache;
 
     protected final RowDataSerializer rightRowSerializer;
 
@@ -73,12 +78,31 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
             RowDataSerializer rightRowSerializer,
             boolean isLeftOuterJoin,
             int asyncBufferCapacity) {
+        this(
+                generatedFetcher,
+                fetcherConverter,
+                generatedResultFuture,
+                rightRowSerializer,
+                isLeftOuterJoin,
+                asyncBufferCapacity,
+                null);
+    }
+
+    public AsyncLookupJoinRunner(
+            GeneratedFunction<AsyncFunction<RowData, Object>> generatedFetcher,
+            DataStructureConverter<RowData, Object> fetcherConverter,
+            GeneratedResultFuture<TableFunctionResultFuture<RowData>> generatedResultFuture,
+            RowDataSerializer rightRowSerializer,
+            boolean isLeftOuterJoin,
+            int asyncBufferCapacity,
+            @Nullable LookupCacheConfig cacheConfig) {
         this.generatedFetcher = generatedFetcher;
         this.fetcherConverter = fetcherConverter;
         this.generatedResultFuture = generatedResultFuture;
         this.rightRowSerializer = rightRowSerializer;
         this.isLeftOuterJoin = isLeftOuterJoin;
         this.asyncBufferCapacity = asyncBufferCapacity;
+        this.cacheConfig = cacheConfig;
     }
 
     @Override
@@ -93,6 +117,11 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
 
         fetcherConverter.open(getRuntimeContext().getUserCodeClassLoader());
 
+        if (cacheConfig != null) {
+            this.cache = cacheConfig.createCache();
+            cache.registerMetrics(getRuntimeContext().getMetricGroup());
+        }
+
         // asyncBufferCapacity + 1 as the queue size in order to avoid
         // blocking on the queue when taking a collector.
         this.resultFutureBuffer = new ArrayBlockingQueue<>(asyncBufferCapacity + 1);
@@ -103,6 +132,7 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
                             resultFutureBuffer,
                             createFetcherResultFuture(parameters),
                             fetcherConverter,
+                            cache,
                             isLeftOuterJoin,
                             rightRowSerializer.getArity());
             // add will throw exception immediately if the queue is full which should never happen
@@ -117,6 +147,16 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
         // the input row is copied when object reuse in AsyncWaitOperator
         outResultFuture.reset(input, resultFuture);
 
+        if (cache != null) {
+            BinaryRowData key = cache.extractKey(input);
+            List<RowData> cachedRows = cache.getIfPresent(key);
+            if (cachedRows != null) {
+                outResultFuture.completeInternal(cachedRows);
+                return;
+            }
+            outResultFuture.setCacheKey(key.copy());
+        }
+
         // fetcher has copied the input field when object reuse is enabled
         fetcher.asyncInvoke(input, outResultFuture);
     }
@@ -155,7 +195,8 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
      * <p>There are 3 phases in this collector.
      *
      * <ol>
-     *   <li>accept lookup function return result and convert it into RowData, call it right result
+     *   <li>accept lookup function return result and convert it into RowData, call it right result,
+     *       and put it into the lookup cache if there is one
      *   <li>project & filter the right result if there is a calc on the temporal table, see {@link
      *       AsyncLookupJoinWithCalcRunner#createFetcherResultFuture(Configuration)}
      *   <li>filter the result if a join condition exist, see {@link
@@ -170,6 +211,7 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
         private final BlockingQueue<JoinedRowResultFuture> resultFutureBuffer;
         private final TableFunctionResultFuture<RowData> joinConditionResultFuture;
         private final DataStructureConverter<RowData, Object> resultConverter;
+        @Nullable private final LookupCache cache;
         private final boolean isLeftOuterJoin;
 
         private final DelegateResultFuture delegate;
@@ -177,16 +219,19 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
 
         private RowData leftRow;
         private ResultFuture<RowData> realOutput;
+        @Nullable private BinaryRowData cacheKey;
 
         private JoinedRowResultFuture(
                 BlockingQueue<JoinedRowResultFuture> resultFutureBuffer,
                 TableFunctionResultFuture<RowData> joinConditionResultFuture,
                 DataStructureConverter<RowData, Object> resultConverter,
+                @Nullable LookupCache cache,
                 boolean isLeftOuterJoin,
                 int rightArity) {
             this.resultFutureBuffer = resultFutureBuffer;
             this.joinConditionResultFuture = joinConditionResultFuture;
             this.resultConverter = resultConverter;
+            this.cache = cache;
             this.isLeftOuterJoin = isLeftOuterJoin;
             this.delegate = new DelegateResultFuture();
             this.nullRow = new GenericRowData(rightArity);
@@ -195,11 +240,17 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
         public void reset(RowData row, ResultFuture<RowData> realOutput) {
             this.realOutput = realOutput;
             this.leftRow = row;
+            this.cacheKey = null;
             joinConditionResultFuture.setInput(row);
             joinConditionResultFuture.setResultFuture(delegate);
             delegate.reset();
         }
 
+        /** Sets the key under which the result of the pending lookup is cached. */
+        public void setCacheKey(BinaryRowData cacheKey) {
+            this.cacheKey = cacheKey;
+        }
+
         @Override
         @SuppressWarnings({"unchecked", "rawtypes"})
         public void complete(Collection<Object> result) {
@@ -213,6 +264,20 @@ public class AsyncLookupJoinRunner extends RichAsyncFunction<RowData, RowData> {
                 }
             }
 
+            if (cacheKey != null) {
+                List<BinaryRowData> cachedRows = new ArrayList<>();
+                if (rowDataCollection != null) {
+                    for (RowData row : rowDataCollection) {
+                        cachedRows.add(cache.copyRow(row));
+                    }
+                }
+                cache.put(cacheKey, cachedRows);
+            }
+            completeInternal(rowDataCollection);
+        }
+
+        /** Completes the lookup with rows that have already been converted to internal rows. */
+        public void completeInternal(Collection<RowData> rowDataCollection) {
             // call condition collector first,
             // the filtered result will be routed to the delegateCollector
             try {
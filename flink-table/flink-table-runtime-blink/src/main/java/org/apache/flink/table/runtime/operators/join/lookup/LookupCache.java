@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.lookup;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.util.clock.Clock;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A size-bounded cache of the rows returned by a lookup function, keyed by the lookup key.
+ *
+ * <p>Keys and rows are kept as {@link BinaryRowData} copies, either on heap or, if configured, in
+ * one off-heap {@link MemorySegment} per key. Keys for which the lookup function returned no rows
+ * can be cached as well. Entries expire a fixed time after they have been loaded and are evicted
+ * according to the {@link LookupCacheConfig#getStrategy() strategy} once the cache is full.
+ *
+ * <p>A cache belongs to a single subtask. Lookup keys must be extracted by the task thread, all
+ * other methods may be called by any thread, e.g. by the threads completing async lookups.
+ */
+public abstract class LookupCache {
+
+    private static final List<RowData> NO_ROWS = Collections.emptyList();
+
+    private final Clock clock;
+    private final long ttlMillis;
+    private final boolean cacheMissingKey;
+    private final boolean offHeap;
+    private final int lookupArity;
+    private final RowDataSerializer rowSerializer;
+
+    private final RowData.FieldGetter[] keyGetters;
+    private final RowDataSerializer keySerializer;
+    private final GenericRowData reuseKey;
+
+    protected final long maxRows;
+
+    private volatile long hitCount;
+    private volatile long missCount;
+    private volatile long loadCount;
+    private volatile long evictionCount;
+
+    LookupCache(LookupCacheConfig config, Clock clock) {
+        this.clock = clock;
+        this.maxRows = config.getMaxRows();
+        this.ttlMillis = config.getTtl().toMillis();
+        this.cacheMissingKey = config.isCacheMissingKey();
+        this.offHeap = config.isOffHeap();
+        this.lookupArity = config.getLookupRowType().getFieldCount();
+        this.rowSerializer = new RowDataSerializer(config.getLookupRowType());
+        int[] keyFields = config.getKeyFields();
+        this.keyGetters = new RowData.FieldGetter[keyFields.length];
+        for (int i = 0; i < keyFields.length; i++) {
+            keyGetters[i] = RowData.createFieldGetter(config.getKeyTypes()[i], keyFields[i]);
+        }
+        this.keySerializer = new RowDataSerializer(config.getKeyTypes());
+        this.reuseKey = new GenericRowData(keyFields.length);
+    }
+
+    @VisibleForTesting
+    static LookupCache create(LookupCacheConfig config, Clock clock) {
+        switch (config.getStrategy()) {
+            case LRU:
+                return new LruLookupCache(config, clock);
+            case LFU:
+                return new LfuLookupCache(config, clock);
+            default:
+                throw new UnsupportedOperationException(
+                        "Unsupported lookup cache strategy: " + config.getStrategy());
+        }
+    }
+
+    /**
+     * Extracts the lookup key from the given input row. The returned key is reused by the next
+     * call, it has to be {@link BinaryRowData#copy() copied} if it should be kept. Must only be
+     * called by the task thread.
+     */
+    public BinaryRowData extractKey(RowData input) {
+        for (int i = 0; i < keyGetters.length; i++) {
+            reuseKey.setField(i, keyGetters[i].getFieldOrNull(input));
+        }
+        return keySerializer.toBinaryRow(reuseKey);
+    }
+
+    /**
+     * Returns the cached rows of the given key, or null if the key is not cached. An empty result
+     * means that the lookup function did not return any rows for the key.
+     */
+    @Nullable
+    public synchronized List<RowData> getIfPresent(BinaryRowData key) {
+        CachedRows cached = getEntry(key);
+        if (cached != null && ttlMillis > 0 && cached.expireTime <= clock.relativeTimeMillis()) {
+            removeEntry(key);
+            cached = null;
+        }
+        if (cached == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return cached.getRows(lookupArity);
+    }
+
+    /** Copies a row returned by the lookup function, so that it can be {@link #put} later. */
+    public synchronized BinaryRowData copyRow(RowData row) {
+        return rowSerializer.toBinaryRow(row).copy();
+    }
+
+    /**
+     * Caches the given rows for the given key. Both the key and the rows must not be modified after
+     * this call, the rows must be created by {@link #copyRow(RowData)}.
+     */
+    public synchronized void put(BinaryRowData key, List<BinaryRowData> rows) {
+        if (rows.isEmpty() && !cacheMissingKey) {
+            return;
+        }
+        long expireTime = ttlMillis > 0 ? clock.relativeTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        CachedRows cached;
+        if (rows.isEmpty()) {
+            cached = new CachedRows(null, 0, expireTime);
+        } else if (offHeap) {
+            cached = CachedRows.offHeap(rows, expireTime);
+        } else {
+            cached = new CachedRows(rows.toArray(new BinaryRowData[0]), rows.size(), expireTime);
+        }
+        putEntry(key, cached);
+        loadCount++;
+    }
+
+    /** Returns the number of cached keys. */
+    public abstract int size();
+
+    /** Registers the standard cache metrics on the given group. */
+    public void registerMetrics(MetricGroup metricGroup) {
+        metricGroup.gauge("lookupCacheHits", (Gauge<Long>) () -> hitCount);
+        metricGroup.gauge("lookupCacheMisses", (Gauge<Long>) () -> missCount);
+        metricGroup.gauge("lookupCacheLoads", (Gauge<Long>) () -> loadCount);
+        metricGroup.gauge("lookupCacheEvictions", (Gauge<Long>) () -> evictionCount);
+        metricGroup.gauge("lookupCacheSize", (Gauge<Integer>) this::size);
+    }
+
+    @VisibleForTesting
+    long getHitCount() {
+        return hitCount;
+    }
+
+    @VisibleForTesting
+    long getMissCount() {
+        return missCount;
+    }
+
+    @VisibleForTesting
+    long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /** Returns the entry of the key, or null, and records the access. */
+    @Nullable
+    protected abstract CachedRows getEntry(BinaryRowData key);
+
+    /** Adds or replaces the entry of the key, evicting other entries if the cache is full. */
+    protected abstract void putEntry(BinaryRowData key, CachedRows cached);
+
+    protected abstract void removeEntry(BinaryRowData key);
+
+    /** Must be called by implementations whenever an entry is evicted. */
+    protected void onEviction() {
+        evictionCount++;
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** The rows cached for a lookup key, either as heap rows or packed into a memory segment. */
+    protected static final class CachedRows {
+
+        @Nullable private final Object rows;
+        private final int numRows;
+        private final long expireTime;
+
+        private CachedRows(@Nullable Object rows, int numRows, long expireTime) {
+            this.rows = rows;
+            this.numRows = numRows;
+            this.expireTime = expireTime;
+        }
+
+        /** Packs the rows as {@code [length][bytes]} into a single off-heap segment. */
+        private static CachedRows offHeap(List<BinaryRowData> rows, long expireTime) {
+            int size = 0;
+            for (BinaryRowData row : rows) {
+                size += 4 + row.getSizeInBytes();
+            }
+            MemorySegment segment = MemorySegmentFactory.allocateUnpooledOffHeapMemory(size);
+            int offset = 0;
+            for (BinaryRowData row : rows) {
+                segment.putInt(offset, row.getSizeInBytes());
+                // copied rows are always backed by a single segment
+                row.getSegments()[0].copyTo(
+                        row.getOffset(), segment, offset + 4, row.getSizeInBytes());
+                offset += 4 + row.getSizeInBytes();
+            }
+            return new CachedRows(segment, rows.size(), expireTime);
+        }
+
+        private List<RowData> getRows(int arity) {
+            if (rows == null) {
+                return NO_ROWS;
+            } else if (rows instanceof BinaryRowData[]) {
+                List<RowData> result = new ArrayList<>(numRows);
+                Collections.addAll(result, (BinaryRowData[]) rows);
+                return result;
+            }
+            MemorySegment segment = (MemorySegment) rows;
+            List<RowData> result = new ArrayList<>(numRows);
+            int offset = 0;
+            for (int i = 0; i < numRows; i++) {
+                int length = segment.getInt(offset);
+                BinaryRowData row = new BinaryRowData(arity);
+                row.pointTo(segment, offset + 4, length);
+                result.add(row);
+                offset += 4 + length;
+            }
+            return result;
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** Evicts the least recently used key. */
+    private static final class LruLookupCache extends LookupCache {
+
+        private final LinkedHashMap<BinaryRowData, CachedRows> entries =
+                new LinkedHashMap<>(16, 0.75f, true);
+
+        private LruLookupCache(LookupCacheConfig config, Clock clock) {
+            super(config, clock);
+        }
+
+        @Override
+        public synchronized int size() {
+            return entries.size();
+        }
+
+        @Nullable
+        @Override
+        protected CachedRows getEntry(BinaryRowData key) {
+            return entries.get(key);
+        }
+
+        @Override
+        protected void putEntry(BinaryRowData key, CachedRows cached) {
+            entries.put(key, cached);
+            if (entries.size() > maxRows) {
+                Iterator<BinaryRowData> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                onEviction();
+            }
+        }
+
+        @Override
+        protected void removeEntry(BinaryRowData key) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Evicts the least frequently used key, and among those the least recently added one. Keeps the
+     * keys of every access frequency in insertion order, so that all operations take constant time.
+     */
+    private static final class LfuLookupCache extends LookupCache {
+
+        private final Map<BinaryRowData, FrequencyEntry> entries = new HashMap<>();
+        private final Map<Long, LinkedHashSet<BinaryRowData>> keysByFrequency = new HashMap<>();
+        private long minFrequency;
+
+        private LfuLookupCache(LookupCacheConfig config, Clock clock) {
+            super(config, clock);
+        }
+
+        @Override
+        public synchronized int size() {
+            return entries.size();
+        }
+
+        @Nullable
+        @Override
+        protected CachedRows getEntry(BinaryRowData key) {
+            FrequencyEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            touch(key, entry);
+            return entry.cached;
+        }
+
+        @Override
+        protected void putEntry(BinaryRowData key, CachedRows cached) {
+            FrequencyEntry entry = entries.get(key);
+            if (entry != null) {
+                entry.cached = cached;
+                touch(key, entry);
+                return;
+            }
+            if (entries.size() >= maxRows) {
+                evict();
+            }
+            entries.put(key, new FrequencyEntry(cached));
+            keysByFrequency.computeIfAbsent(1L, f -> new LinkedHashSet<>()).add(key);
+            minFrequency = 1L;
+        }
+
+        @Override
+        protected void removeEntry(BinaryRowData key) {
+            FrequencyEntry entry = entries.remove(key);
+            if (entry != null) {
+                removeFromFrequency(key, entry.frequency);
+            }
+        }
+
+        private void touch(BinaryRowData key, FrequencyEntry entry) {
+            removeFromFrequency(key, entry.frequency);
+            if (entry.frequency == minFrequency && !keysByFrequency.containsKey(minFrequency)) {
+                minFrequency++;
+            }
+            entry.frequency++;
+            keysByFrequency.computeIfAbsent(entry.frequency, f -> new LinkedHashSet<>()).add(key);
+        }
+
+        private void evict() {
+            LinkedHashSet<BinaryRowData> keys = keysByFrequency.get(minFrequency);
+            if (keys == null) {
+                // the least frequent keys have been removed on expiration
+                minFrequency = Collections.min(keysByFrequency.keySet());
+                keys = keysByFrequency.get(minFrequency);
+            }
+            Iterator<BinaryRowData> iterator = keys.iterator();
+            BinaryRowData key = iterator.next();
+            iterator.remove();
+            if (keys.isEmpty()) {
+                keysByFrequency.remove(minFrequency);
+            }
+            entries.remove(key);
+            onEviction();
+        }
+
+        private void removeFromFrequency(BinaryRowData key, long frequency) {
+            LinkedHashSet<BinaryRowData> keys = keysByFrequency.get(frequency);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByFrequency.remove(frequency);
+            }
+        }
+
+        private static final class FrequencyEntry {
+
+            private CachedRows cached;
+            private long frequency = 1L;
+
+            private FrequencyEntry(CachedRows cached) {
+                this.cached = cached;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.lookup;
+
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.table.api.config.ExecutionConfigOptions;
+import org.apache.flink.table.api.config.ExecutionConfigOptions.LookupCacheStrategy;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.util.clock.SystemClock;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The configuration of the {@link LookupCache} of a lookup join, including how to derive the cache
+ * key from the rows of the input side.
+ */
+public class LookupCacheConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LookupCacheStrategy strategy;
+    private final long maxRows;
+    private final Duration ttl;
+    private final boolean cacheMissingKey;
+    private final boolean offHeap;
+
+    /** Indices of the input fields the lookup keys are taken from. */
+    private final int[] keyFields;
+
+    private final LogicalType[] keyTypes;
+
+    /** Type of the rows returned by the lookup function. */
+    private final RowType lookupRowType;
+
+    public LookupCacheConfig(
+            LookupCacheStrategy strategy,
+            long maxRows,
+            Duration ttl,
+            boolean cacheMissingKey,
+            boolean offHeap,
+            int[] keyFields,
+            LogicalType[] keyTypes,
+            RowType lookupRowType) {
+        checkArgument(strategy != LookupCacheStrategy.NONE, "The cache strategy must not be NONE.");
+        checkArgument(maxRows > 0, "The max rows of the lookup cache must be positive.");
+        checkArgument(keyFields.length == keyTypes.length);
+        this.strategy = strategy;
+        this.maxRows = maxRows;
+        this.ttl = checkNotNull(ttl);
+        this.cacheMissingKey = cacheMissingKey;
+        this.offHeap = offHeap;
+        this.keyFields = keyFields;
+        this.keyTypes = keyTypes;
+        this.lookupRowType = checkNotNull(lookupRowType);
+    }
+
+    /**
+     * Creates the cache configuration from the table configuration, or returns null if lookup joins
+     * should not be cached.
+     *
+     * @param keyFields indices of the input fields the lookup keys are taken from
+     * @param keyTypes types of the input fields the lookup keys are taken from
+     * @param lookupRowType type of the rows returned by the lookup function
+     */
+    @Nullable
+    public static LookupCacheConfig fromConfiguration(
+            ReadableConfig config, int[] keyFields, LogicalType[] keyTypes, RowType lookupRowType) {
+        LookupCacheStrategy strategy =
+                config.get(ExecutionConfigOptions.TABLE_EXEC_LOOKUP_CACHE_STRATEGY);
+        if (strategy == LookupCacheStrategy.NONE) {
+            return null;
+        }
+        return new LookupCacheConfig(
+                strategy,
+                config.get(ExecutionConfigOptions.TABLE_EXEC_LOOKUP_CACHE_MAX_ROWS),
+                config.get(ExecutionConfigOptions.TABLE_EXEC_LOOKUP_CACHE_TTL),
+                config.get(ExecutionConfigOptions.TABLE_EXEC_LOOKUP_CACHE_MISSING_KEY),
+                config.get(ExecutionConfigOptions.TABLE_EXEC_LOOKUP_CACHE_OFF_HEAP),
+                keyFields,
+                keyTypes,
+                lookupRowType);
+    }
+
+    /** Creates a new, empty cache. Every subtask creates its own cache. */
+    public LookupCache createCache() {
+        return LookupCache.create(this, SystemClock.getInstance());
+    }
+
+    public LookupCacheStrategy getStrategy() {
+        return strategy;
+    }
+
+    public long getMaxRows() {
+        return maxRows;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public boolean isCacheMissingKey() {
+        return cacheMissingKey;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public int[] getKeyFields() {
+        return keyFields;
+    }
+
+    public LogicalType[] getKeyTypes() {
+        return keyTypes;
+    }
+
+    public RowType getLookupRowType() {
+        return lookupRowType;
+    }
+}
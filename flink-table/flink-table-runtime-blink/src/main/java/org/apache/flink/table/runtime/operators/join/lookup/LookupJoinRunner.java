@@ -24,12 +24,18 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.functions.ProcessFunction;
 import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
 import org.apache.flink.table.data.utils.JoinedRowData;
 import org.apache.flink.table.runtime.collector.TableFunctionCollector;
 import org.apache.flink.table.runtime.generated.GeneratedCollector;
 import org.apache.flink.table.runtime.generated.GeneratedFunction;
 import org.apache.flink.util.Collector;
 
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /** The join runner to lookup the dimension table. */
 public class LookupJoinRunner extends ProcessFunction<RowData, RowData> {
     private static final long serialVersionUID = -4521543015709964733L;
@@ -38,21 +44,34 @@ public class LookupJoinRunner extends ProcessFunction<RowData, RowData> {
     private final GeneratedCollector<TableFunctionCollector<RowData>> generatedCollector;
     private final boolean isLeftOuterJoin;
     private final int tableFieldsCount;
+    @Nullable private final LookupCacheConfig cacheConfig;
 
     private transient FlatMapFunction<RowData, RowData> fetcher;
     protected transient TableFunctionCollector<RowData> collector;
     private transient GenericRowData nullRow;
     private transient JoinedRowData outRow;
+    private transient LookupCache cache;
+    private transient CachingCollector cachingCollector;
 
     public LookupJoinRunner(
             GeneratedFunction<FlatMapFunction<RowData, RowData>> generatedFetcher,
             GeneratedCollector<TableFunctionCollector<RowData>> generatedCollector,
             boolean isLeftOuterJoin,
             int tableFieldsCount) {
+        this(generatedFetcher, generatedCollector, isLeftOuterJoin, tableFieldsCount, null);
+    }
+
+    public LookupJoinRunner(
+            GeneratedFunction<FlatMapFunction<RowData, RowData>> generatedFetcher,
+            GeneratedCollector<TableFunctionCollector<RowData>> generatedCollector,
+            boolean isLeftOuterJoin,
+            int tableFieldsCount,
+            @Nullable LookupCacheConfig cacheConfig) {
         this.generatedFetcher = generatedFetcher;
         this.generatedCollector = generatedCollector;
         this.isLeftOuterJoin = isLeftOuterJoin;
         this.tableFieldsCount = tableFieldsCount;
+        this.cacheConfig = cacheConfig;
     }
 
     @Override
@@ -69,6 +88,12 @@ public class LookupJoinRunner extends ProcessFunction<RowData, RowData> {
 
         this.nullRow = new GenericRowData(tableFieldsCount);
         this.outRow = new JoinedRowData();
+
+        if (cacheConfig != null) {
+            this.cache = cacheConfig.createCache();
+            this.cachingCollector = new CachingCollector();
+            cache.registerMetrics(getRuntimeContext().getMetricGroup());
+        }
     }
 
     @Override
@@ -77,8 +102,12 @@ public class LookupJoinRunner extends ProcessFunction<RowData, RowData> {
         collector.setInput(in);
         collector.reset();
 
-        // fetcher has copied the input field when object reuse is enabled
-        fetcher.flatMap(in, getFetcherCollector());
+        if (cache == null) {
+            // fetcher has copied the input field when object reuse is enabled
+            fetcher.flatMap(in, getFetcherCollector());
+        } else {
+            lookupWithCache(in);
+        }
 
         if (isLeftOuterJoin && !collector.isCollected()) {
             outRow.replace(in, nullRow);
@@ -87,6 +116,22 @@ public class LookupJoinRunner extends ProcessFunction<RowData, RowData> {
         }
     }
 
+    private void lookupWithCache(RowData in) throws Exception {
+        BinaryRowData key = cache.extractKey(in);
+        List<RowData> cachedRows = cache.getIfPresent(key);
+        if (cachedRows != null) {
+            Collector<RowData> fetcherCollector = getFetcherCollector();
+            for (RowData cachedRow : cachedRows) {
+                fetcherCollector.collect(cachedRow);
+            }
+        } else {
+            key = key.copy();
+            cachingCollector.reset(getFetcherCollector());
+            fetcher.flatMap(in, cachingCollector);
+            cache.put(key, cachingCollector.rows);
+        }
+    }
+
     public Collector<RowData> getFetcherCollector() {
         return collector;
     }
@@ -101,4 +146,27 @@ public class LookupJoinRunner extends ProcessFunction<RowData, RowData> {
             FunctionUtils.closeFunction(collector);
         }
     }
+
+    /** Keeps a copy of the fetched rows for the cache and forwards them to the real collector. */
+    private final class CachingCollector implements Collector<RowData> {
+
+        private Collector<RowData> delegate;
+        private List<BinaryRowData> rows;
+
+        private void reset(Collector<RowData> delegate) {
+            this.delegate = delegate;
+            this.rows = new ArrayList<>();
+        }
+
+        @Override
+        public void collect(RowData record) {
+            rows.add(cache.copyRow(record));
+            delegate.collect(record);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
 }
@@ -220,6 +220,53 @@ public abstract class AbstractStreamingJoinOperator extends AbstractStreamOperat
             }
             return new AssociatedRecords(associations);
         }
+
+        /**
+         * Creates an {@link AssociatedRecords} which represents the records associated to the input
+         * row from the records returned by {@link #probe(JoinRecordStateView)}. The {@link
+         * OuterRecord}s are shared with the probed records, so that the updates of their {@code
+         * numOfAssociations} are visible to the input rows which are associated afterwards.
+         */
+        public static AssociatedRecords of(
+                RowData input,
+                boolean inputIsLeft,
+                List<OuterRecord> probedRecords,
+                JoinCondition condition) {
+            List<OuterRecord> associations = new ArrayList<>();
+            for (OuterRecord record : probedRecords) {
+                boolean matched =
+                        inputIsLeft
+                                ? condition.apply(input, record.record)
+                                : condition.apply(record.record, input);
+                if (matched) {
+                    associations.add(record);
+                }
+            }
+            return new AssociatedRecords(associations);
+        }
+
+        /**
+         * Reads all the records of the other side under the current key, so that they can be
+         * associated to several input rows with a single state access.
+         */
+        public static List<OuterRecord> probe(JoinRecordStateView otherSideStateView)
+                throws Exception {
+            List<OuterRecord> records = new ArrayList<>();
+            if (otherSideStateView instanceof OuterJoinRecordStateView) {
+                OuterJoinRecordStateView outerStateView =
+                        (OuterJoinRecordStateView) otherSideStateView;
+                for (Tuple2<RowData, Integer> record :
+                        outerStateView.getRecordsAndNumOfAssociations()) {
+                    records.add(new OuterRecord(record.f0, record.f1));
+                }
+            } else {
+                for (RowData record : otherSideStateView.getRecords()) {
+                    // use -1 as the default number of associations
+                    records.add(new OuterRecord(record, -1));
+                }
+            }
+            return records;
+        }
     }
 
     /** A lazy Iterable which transform {@code List<OuterReocord>} to {@code Iterable<RowData>}. */
@@ -259,10 +306,13 @@ public abstract class AbstractStreamingJoinOperator extends AbstractStreamOperat
      *
      * <p>When the record is from inner side (e.g. right side in LEFT OUTER JOIN), the {@code
      * numOfAssociations} will always be {@code -1}.
+     *
+     * <p>The {@code numOfAssociations} has to be updated together with the state, because the same
+     * {@link OuterRecord} may be associated to several input rows in mini-batch mode.
      */
     protected static final class OuterRecord {
         public final RowData record;
-        public final int numOfAssociations;
+        public int numOfAssociations;
 
         private OuterRecord(RowData record, int numOfAssociations) {
             this.record = record;
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.stream;
+
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.data.util.RowDataUtil;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.types.RowKind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bundle of the records of one join input, grouped by join key.
+ *
+ * <p>The records are folded when they are added: a retraction cancels the latest buffered
+ * accumulation of the same record, e.g. the changes {@code +I(a), -U(a), +U(b), -U(b), +U(c)} of a
+ * key are folded into {@code +I(c)}. Only the net changes of a bundle access the join state.
+ */
+final class JoinRecordBundle {
+
+    private final RowDataSerializer serializer;
+    private final Map<RowData, KeyedRecords> bundle = new LinkedHashMap<>();
+
+    /** The number of buffered records after folding. */
+    private int numOfRecords;
+
+    JoinRecordBundle(RowDataSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    /** Adds a record of the given join key to the bundle, the key must not be reused. */
+    void add(RowData key, RowData record) {
+        RowKind kind = record.getRowKind();
+        BinaryRowData row = serializer.toBinaryRow(record).copy();
+        // records are compared without RowKind when folding
+        row.setRowKind(RowKind.INSERT);
+        KeyedRecords keyedRecords = bundle.computeIfAbsent(key, k -> new KeyedRecords());
+        List<BufferedRecord> records = keyedRecords.records;
+
+        if (RowDataUtil.isRetractMsg(record)) {
+            for (int i = records.size() - 1; i >= 0; i--) {
+                BufferedRecord buffered = records.get(i);
+                if (buffered.isAccumulate() && buffered.row.equals(row)) {
+                    records.remove(i);
+                    numOfRecords--;
+                    if (kind == RowKind.UPDATE_BEFORE) {
+                        // the following update after replaces the cancelled accumulation
+                        keyedRecords.updateAfterKind = buffered.kind;
+                    }
+                    return;
+                }
+            }
+        } else if (kind == RowKind.UPDATE_AFTER && keyedRecords.updateAfterKind != null) {
+            kind = keyedRecords.updateAfterKind;
+            keyedRecords.updateAfterKind = null;
+        }
+        records.add(new BufferedRecord(row, kind));
+        numOfRecords++;
+    }
+
+    boolean isEmpty() {
+        return bundle.isEmpty();
+    }
+
+    /** Returns the number of buffered records after folding. */
+    int size() {
+        return numOfRecords;
+    }
+
+    /** Returns the join keys in the order of their first record. */
+    Set<RowData> keys() {
+        return bundle.keySet();
+    }
+
+    boolean containsKey(RowData key) {
+        return bundle.containsKey(key);
+    }
+
+    /** Returns the folded records of the given join key with their original {@link RowKind}. */
+    List<RowData> getRecords(RowData key) {
+        KeyedRecords keyedRecords = bundle.get(key);
+        if (keyedRecords == null) {
+            return Collections.emptyList();
+        }
+        List<RowData> records = new ArrayList<>(keyedRecords.records.size());
+        for (BufferedRecord buffered : keyedRecords.records) {
+            buffered.row.setRowKind(buffered.kind);
+            records.add(buffered.row);
+        }
+        return records;
+    }
+
+    void clear() {
+        bundle.clear();
+        numOfRecords = 0;
+    }
+
+    // ----------------------------------------------------------------------------------------
+
+    /** The buffered records of a join key. */
+    private static final class KeyedRecords {
+        private final List<BufferedRecord> records = new ArrayList<>();
+
+        /** The kind of the next update after, if its update before has been folded. */
+        private RowKind updateAfterKind;
+    }
+
+    /** A buffered record without {@link RowKind} and its original {@link RowKind}. */
+    private static final class BufferedRecord {
+        private final BinaryRowData row;
+        private final RowKind kind;
+
+        private BufferedRecord(BinaryRowData row, RowKind kind) {
+            this.row = row;
+            this.kind = kind;
+        }
+
+        private boolean isAccumulate() {
+            return kind == RowKind.INSERT || kind == RowKind.UPDATE_AFTER;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.stream;
+
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.runtime.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.operators.bundle.trigger.BundleTriggerCallback;
+import org.apache.flink.table.runtime.operators.bundle.trigger.CoBundleTrigger;
+import org.apache.flink.table.runtime.operators.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Streaming unbounded Join operator which supports SEMI/ANTI JOIN in mini-batch mode.
+ *
+ * <p>The input records are buffered and folded per join key like in {@link
+ * MiniBatchStreamingJoinOperator}. When the bundle is finished, the records of every key are
+ * processed like in {@link StreamingSemiAntiJoinOperator}, first the records of the left side, then
+ * the records of the right side. The state of the other side is probed once per key and side, and
+ * all the records of that key are joined against the probed records.
+ */
+public class MiniBatchStreamingSemiAntiJoinOperator extends StreamingSemiAntiJoinOperator
+        implements BundleTriggerCallback {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CoBundleTrigger<RowData, RowData> bundleTrigger;
+
+    private transient JoinRecordBundle leftBundle;
+    private transient JoinRecordBundle rightBundle;
+
+    public MiniBatchStreamingSemiAntiJoinOperator(
+            boolean isAntiJoin,
+            InternalTypeInfo<RowData> leftType,
+            InternalTypeInfo<RowData> rightType,
+            GeneratedJoinCondition generatedJoinCondition,
+            JoinInputSideSpec leftInputSideSpec,
+            JoinInputSideSpec rightInputSideSpec,
+            boolean[] filterNullKeys,
+            long stateRetentionTime,
+            CoBundleTrigger<RowData, RowData> bundleTrigger) {
+        super(
+                isAntiJoin,
+                leftType,
+                rightType,
+                generatedJoinCondition,
+                leftInputSideSpec,
+                rightInputSideSpec,
+                filterNullKeys,
+                stateRetentionTime);
+        this.bundleTrigger = checkNotNull(bundleTrigger, "bundleTrigger is null");
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+
+        this.leftBundle = new JoinRecordBundle(leftType.toRowSerializer());
+        this.rightBundle = new JoinRecordBundle(rightType.toRowSerializer());
+
+        bundleTrigger.registerCallback(this);
+        // reset trigger
+        bundleTrigger.reset();
+        LOG.info("BundleOperator's trigger info: " + bundleTrigger.explain());
+
+        // counter metric to get the size of bundle
+        getRuntimeContext()
+                .getMetricGroup()
+                .gauge("bundleSize", (Gauge<Integer>) () -> leftBundle.size() + rightBundle.size());
+    }
+
+    @Override
+    public void processElement1(StreamRecord<RowData> element) throws Exception {
+        RowData input = element.getValue();
+        leftBundle.add(copyCurrentKey(), input);
+        bundleTrigger.onElement1(input);
+    }
+
+    @Override
+    public void processElement2(StreamRecord<RowData> element) throws Exception {
+        RowData input = element.getValue();
+        rightBundle.add(copyCurrentKey(), input);
+        bundleTrigger.onElement2(input);
+    }
+
+    @Override
+    public void finishBundle() throws Exception {
+        if (!leftBundle.isEmpty() || !rightBundle.isEmpty()) {
+            for (RowData key : leftBundle.keys()) {
+                processBundledRecords(key);
+            }
+            for (RowData key : rightBundle.keys()) {
+                if (!leftBundle.containsKey(key)) {
+                    processBundledRecords(key);
+                }
+            }
+            leftBundle.clear();
+            rightBundle.clear();
+        }
+        bundleTrigger.reset();
+    }
+
+    private void processBundledRecords(RowData key) throws Exception {
+        setCurrentKey(key);
+        List<RowData> leftInputs = leftBundle.getRecords(key);
+        if (!leftInputs.isEmpty()) {
+            // the left records never update the probed right records
+            List<OuterRecord> rightRecords = AssociatedRecords.probe(rightRecordStateView);
+            for (RowData input : leftInputs) {
+                processLeftElement(
+                        input, AssociatedRecords.of(input, true, rightRecords, joinCondition));
+            }
+        }
+        List<RowData> rightInputs = rightBundle.getRecords(key);
+        if (!rightInputs.isEmpty()) {
+            // probe the left side after the left records have been added to the state
+            List<OuterRecord> leftRecords = AssociatedRecords.probe(leftRecordStateView);
+            for (RowData input : rightInputs) {
+                processRightElement(
+                        input, AssociatedRecords.of(input, false, leftRecords, joinCondition));
+            }
+        }
+    }
+
+    private RowData copyCurrentKey() {
+        // key is always BinaryRowData
+        return ((BinaryRowData) getCurrentKey()).copy();
+    }
+
+    @Override
+    public void processWatermark(Watermark mark) throws Exception {
+        finishBundle();
+        super.processWatermark(mark);
+    }
+
+    @Override
+    public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+        super.prepareSnapshotPreBarrier(checkpointId);
+        finishBundle();
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            if (leftBundle != null) {
+                finishBundle();
+            }
+        } finally {
+            super.close();
+        }
+    }
+}
@@ -47,9 +47,9 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
     private transient RowData rightNullRow;
 
     // left join state
-    private transient JoinRecordStateView leftRecordStateView;
+    protected transient JoinRecordStateView leftRecordStateView;
     // right join state
-    private transient JoinRecordStateView rightRecordStateView;
+    protected transient JoinRecordStateView rightRecordStateView;
 
     public StreamingJoinOperator(
             InternalTypeInfo<RowData> leftType,
@@ -201,14 +201,29 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
             JoinRecordStateView otherSideStateView,
             boolean inputIsLeft)
             throws Exception {
+        AssociatedRecords associatedRecords =
+                AssociatedRecords.of(input, inputIsLeft, otherSideStateView, joinCondition);
+        processElement(
+                input, associatedRecords, inputSideStateView, otherSideStateView, inputIsLeft);
+    }
+
+    /**
+     * Process an input element with the records of the other side which are associated to it, see
+     * {@link #processElement(RowData, JoinRecordStateView, JoinRecordStateView, boolean)}.
+     */
+    protected void processElement(
+            RowData input,
+            AssociatedRecords associatedRecords,
+            JoinRecordStateView inputSideStateView,
+            JoinRecordStateView otherSideStateView,
+            boolean inputIsLeft)
+            throws Exception {
         boolean inputIsOuter = inputIsLeft ? leftIsOuter : rightIsOuter;
         boolean otherIsOuter = inputIsLeft ? rightIsOuter : leftIsOuter;
         boolean isAccumulateMsg = RowDataUtil.isAccumulateMsg(input);
         RowKind inputRowKind = input.getRowKind();
         input.setRowKind(RowKind.INSERT); // erase RowKind for later state updating
 
-        AssociatedRecords associatedRecords =
-                AssociatedRecords.of(input, inputIsLeft, otherSideStateView, joinCondition);
         if (isAccumulateMsg) { // record is accumulate
             if (inputIsOuter) { // input side is outer
                 OuterJoinRecordStateView inputSideOuterStateView =
@@ -232,8 +247,9 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                                 outputNullPadding(other, !inputIsLeft);
                             } // ignore matched number > 0
                             // otherState.update(other, old + 1)
+                            outerRecord.numOfAssociations++;
                             otherSideOuterStateView.updateNumOfAssociations(
-                                    other, outerRecord.numOfAssociations + 1);
+                                    other, outerRecord.numOfAssociations);
                         }
                     }
                     // send +I[record+other]s
@@ -259,8 +275,9 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                                 outputNullPadding(outerRecord.record, !inputIsLeft);
                             }
                             // otherState.update(other, old + 1)
+                            outerRecord.numOfAssociations++;
                             otherSideOuterStateView.updateNumOfAssociations(
-                                    outerRecord.record, outerRecord.numOfAssociations + 1);
+                                    outerRecord.record, outerRecord.numOfAssociations);
                         }
                         // send +I[record+other]s
                         outRow.setRowKind(RowKind.INSERT);
@@ -306,8 +323,9 @@ public class StreamingJoinOperator extends AbstractStreamingJoinOperator {
                             outputNullPadding(outerRecord.record, !inputIsLeft);
                         } // nothing else to do when number of associations > 1
                         // otherState.update(other, old - 1)
+                        outerRecord.numOfAssociations--;
                         otherSideOuterStateView.updateNumOfAssociations(
-                                outerRecord.record, outerRecord.numOfAssociations - 1);
+                                outerRecord.record, outerRecord.numOfAssociations);
                     }
                 }
             }
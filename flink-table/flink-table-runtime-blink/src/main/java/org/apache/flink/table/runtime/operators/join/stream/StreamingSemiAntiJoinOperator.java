@@ -39,9 +39,9 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
     private final boolean isAntiJoin;
 
     // left join state
-    private transient OuterJoinRecordStateView leftRecordStateView;
+    protected transient OuterJoinRecordStateView leftRecordStateView;
     // right join state
-    private transient JoinRecordStateView rightRecordStateView;
+    protected transient JoinRecordStateView rightRecordStateView;
 
     public StreamingSemiAntiJoinOperator(
             boolean isAntiJoin,
@@ -84,6 +84,22 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
                         stateRetentionTime);
     }
 
+    @Override
+    public void processElement1(StreamRecord<RowData> element) throws Exception {
+        RowData input = element.getValue();
+        AssociatedRecords associatedRecords =
+                AssociatedRecords.of(input, true, rightRecordStateView, joinCondition);
+        processLeftElement(input, associatedRecords);
+    }
+
+    @Override
+    public void processElement2(StreamRecord<RowData> element) throws Exception {
+        RowData input = element.getValue();
+        AssociatedRecords associatedRecords =
+                AssociatedRecords.of(input, false, leftRecordStateView, joinCondition);
+        processRightElement(input, associatedRecords);
+    }
+
     /**
      * Process an input element and output incremental joined records, retraction messages will be
      * sent in some scenarios.
@@ -98,12 +114,12 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
      * if the input record is accumulate, state.add(record, matched size)
      * if the input record is retract, state.retract(record)
      * </pre>
+     *
+     * @param input the input element of the left side
+     * @param associatedRecords the records of the right side which are associated to the input
      */
-    @Override
-    public void processElement1(StreamRecord<RowData> element) throws Exception {
-        RowData input = element.getValue();
-        AssociatedRecords associatedRecords =
-                AssociatedRecords.of(input, true, rightRecordStateView, joinCondition);
+    protected void processLeftElement(RowData input, AssociatedRecords associatedRecords)
+            throws Exception {
         if (associatedRecords.isEmpty()) {
             if (isAntiJoin) {
                 collector.collect(input);
@@ -158,16 +174,16 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
      * | endif
      * endif
      * </pre>
+     *
+     * @param input the input element of the right side
+     * @param associatedRecords the records of the left side which are associated to the input
      */
-    @Override
-    public void processElement2(StreamRecord<RowData> element) throws Exception {
-        RowData input = element.getValue();
+    protected void processRightElement(RowData input, AssociatedRecords associatedRecords)
+            throws Exception {
         boolean isAccumulateMsg = RowDataUtil.isAccumulateMsg(input);
         RowKind inputRowKind = input.getRowKind();
         input.setRowKind(RowKind.INSERT); // erase RowKind for later state updating
 
-        AssociatedRecords associatedRecords =
-                AssociatedRecords.of(input, false, leftRecordStateView, joinCondition);
         if (isAccumulateMsg) { // record is accumulate
             rightRecordStateView.addRecord(input);
             if (!associatedRecords.isEmpty()) {
@@ -186,8 +202,9 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
                         // set header back to INSERT, because we will update the other row to state
                         other.setRowKind(RowKind.INSERT);
                     } // ignore when number > 0
+                    outerRecord.numOfAssociations++;
                     leftRecordStateView.updateNumOfAssociations(
-                            other, outerRecord.numOfAssociations + 1);
+                            other, outerRecord.numOfAssociations);
                 }
             } // ignore when associated number == 0
         } else { // retract input
@@ -208,8 +225,9 @@ public class StreamingSemiAntiJoinOperator extends AbstractStreamingJoinOperator
                         // set RowKind back, because we will update the other row to state
                         other.setRowKind(RowKind.INSERT);
                     } // ignore when number > 0
+                    outerRecord.numOfAssociations--;
                     leftRecordStateView.updateNumOfAssociations(
-                            other, outerRecord.numOfAssociations - 1);
+                            other, outerRecord.numOfAssociations);
                 }
             } // ignore when associated number == 0
         }
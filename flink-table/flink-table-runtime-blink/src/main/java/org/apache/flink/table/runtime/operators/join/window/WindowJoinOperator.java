@@ -0,0 +1,580 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.window;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Meter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.runtime.state.internal.InternalListState;
+import org.apache.flink.streaming.api.operators.InternalTimer;
+import org.apache.flink.streaming.api.operators.InternalTimerService;
+import org.apache.flink.streaming.api.operators.KeyContext;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
+import org.apache.flink.streaming.api.operators.Triggerable;
+import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.data.utils.JoinedRowData;
+import org.apache.flink.table.runtime.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.generated.JoinCondition;
+import org.apache.flink.table.runtime.operators.TableStreamOperator;
+import org.apache.flink.table.runtime.operators.join.NullAwareJoinHelper;
+import org.apache.flink.table.runtime.operators.window.slicing.SlicingWindowOperator;
+import org.apache.flink.table.runtime.operators.window.state.WindowListState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming window join operator for inputs of window table-valued functions.
+ *
+ * <p>Both inputs must have been assigned to windows, i.e. every row carries the window start and
+ * end of its window, and the join condition must require both sides to be in the same window. The
+ * operator then buffers the rows of both sides in state per window (identified by the window end
+ * timestamp) and joins them when the watermark passes the end of the window. Afterwards the state
+ * of the window is dropped, so the state size is bounded by the number of rows of the windows which
+ * have not been fired yet, instead of growing forever like a regular streaming join.
+ *
+ * <p>Note: Like {@link SlicingWindowOperator}, the window join only works in event-time mode and
+ * doesn't support early-fire and late-arrival. Late records (records of windows which have already
+ * been fired) are simply dropped.
+ */
+@Internal
+public abstract class WindowJoinOperator extends TableStreamOperator<RowData>
+        implements TwoInputStreamOperator<RowData, RowData, RowData>,
+                Triggerable<RowData, Long>,
+                KeyContext {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String LEFT_LATE_ELEMENTS_DROPPED_METRIC_NAME =
+            "leftNumLateRecordsDropped";
+    private static final String LEFT_LATE_ELEMENTS_DROPPED_RATE_METRIC_NAME =
+            "leftLateRecordsDroppedRate";
+    private static final String RIGHT_LATE_ELEMENTS_DROPPED_METRIC_NAME =
+            "rightNumLateRecordsDropped";
+    private static final String RIGHT_LATE_ELEMENTS_DROPPED_RATE_METRIC_NAME =
+            "rightLateRecordsDroppedRate";
+    private static final String WATERMARK_LATENCY_METRIC_NAME = "watermarkLatency";
+
+    private final TypeSerializer<RowData> leftSerializer;
+    private final TypeSerializer<RowData> rightSerializer;
+    private final GeneratedJoinCondition generatedJoinCondition;
+    private final int leftWindowEndIndex;
+    private final int rightWindowEndIndex;
+
+    /** Should filter null keys. */
+    private final int[] nullFilterKeys;
+
+    /** No keys need to filter null. */
+    private final boolean nullSafe;
+
+    /** Filter null to all keys. */
+    private final boolean filterAllNulls;
+
+    // ------------------------------------------------------------------------
+
+    /** This is used for emitting elements with a given timestamp. */
+    protected transient TimestampedCollector<RowData> collector;
+
+    protected transient JoinCondition joinCondition;
+
+    private transient InternalTimerService<Long> internalTimerService;
+
+    /** state schema: [key, window_end, left records]. */
+    private transient WindowListState<Long> leftWindowState;
+
+    /** state schema: [key, window_end, right records]. */
+    private transient WindowListState<Long> rightWindowState;
+
+    // ------------------------------------------------------------------------
+    // Metrics
+    // ------------------------------------------------------------------------
+
+    private transient Counter leftNumLateRecordsDropped;
+    private transient Meter leftLateRecordsDroppedRate;
+    private transient Counter rightNumLateRecordsDropped;
+    private transient Meter rightLateRecordsDroppedRate;
+    private transient Gauge<Long> watermarkLatency;
+
+    WindowJoinOperator(
+            TypeSerializer<RowData> leftSerializer,
+            TypeSerializer<RowData> rightSerializer,
+            GeneratedJoinCondition generatedJoinCondition,
+            int leftWindowEndIndex,
+            int rightWindowEndIndex,
+            boolean[] filterNullKeys) {
+        this.leftSerializer = leftSerializer;
+        this.rightSerializer = rightSerializer;
+        this.generatedJoinCondition = generatedJoinCondition;
+        this.leftWindowEndIndex = leftWindowEndIndex;
+        this.rightWindowEndIndex = rightWindowEndIndex;
+        this.nullFilterKeys = NullAwareJoinHelper.getNullFilterKeys(filterNullKeys);
+        this.nullSafe = nullFilterKeys.length == 0;
+        this.filterAllNulls = nullFilterKeys.length == filterNullKeys.length;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        this.collector = new TimestampedCollector<>(output);
+        collector.eraseTimestamp();
+
+        final LongSerializer windowSerializer = LongSerializer.INSTANCE;
+
+        InternalTimerService<Long> internalTimerService =
+                getInternalTimerService("window-timers", windowSerializer, this);
+        this.internalTimerService = internalTimerService;
+
+        // init join condition
+        JoinCondition condition =
+                generatedJoinCondition.newInstance(getRuntimeContext().getUserCodeClassLoader());
+        condition.setRuntimeContext(getRuntimeContext());
+        condition.open(new Configuration());
+        this.joinCondition = condition;
+
+        // init state
+        ListState<RowData> leftListState =
+                getOrCreateKeyedState(
+                        windowSerializer, new ListStateDescriptor<>("left", leftSerializer));
+        this.leftWindowState =
+                new WindowListState<>((InternalListState<RowData, Long, RowData>) leftListState);
+
+        ListState<RowData> rightListState =
+                getOrCreateKeyedState(
+                        windowSerializer, new ListStateDescriptor<>("right", rightSerializer));
+        this.rightWindowState =
+                new WindowListState<>((InternalListState<RowData, Long, RowData>) rightListState);
+
+        // metrics
+        this.leftNumLateRecordsDropped = metrics.counter(LEFT_LATE_ELEMENTS_DROPPED_METRIC_NAME);
+        this.leftLateRecordsDroppedRate =
+                metrics.meter(
+                        LEFT_LATE_ELEMENTS_DROPPED_RATE_METRIC_NAME,
+                        new MeterView(leftNumLateRecordsDropped));
+        this.rightNumLateRecordsDropped = metrics.counter(RIGHT_LATE_ELEMENTS_DROPPED_METRIC_NAME);
+        this.rightLateRecordsDroppedRate =
+                metrics.meter(
+                        RIGHT_LATE_ELEMENTS_DROPPED_RATE_METRIC_NAME,
+                        new MeterView(rightNumLateRecordsDropped));
+        this.watermarkLatency =
+                metrics.gauge(
+                        WATERMARK_LATENCY_METRIC_NAME,
+                        () -> {
+                            long watermark = internalTimerService.currentWatermark();
+                            if (watermark < 0) {
+                                return 0L;
+                            } else {
+                                return internalTimerService.currentProcessingTime() - watermark;
+                            }
+                        });
+    }
+
+    @Override
+    public void close() throws Exception {
+        super.close();
+        collector = null;
+        if (joinCondition != null) {
+            joinCondition.close();
+        }
+    }
+
+    @Override
+    public void processElement1(StreamRecord<RowData> element) throws Exception {
+        processElement(element, leftWindowEndIndex, leftLateRecordsDroppedRate, leftWindowState);
+    }
+
+    @Override
+    public void processElement2(StreamRecord<RowData> element) throws Exception {
+        processElement(element, rightWindowEndIndex, rightLateRecordsDroppedRate, rightWindowState);
+    }
+
+    private void processElement(
+            StreamRecord<RowData> element,
+            int windowEndIndex,
+            Meter lateRecordsDroppedRate,
+            WindowListState<Long> windowState)
+            throws Exception {
+        RowData inputRow = element.getValue();
+        long windowEnd = inputRow.getTimestamp(windowEndIndex, 3).getMillisecond();
+        if (windowEnd - 1 <= internalTimerService.currentWatermark()) {
+            // element is late and should be dropped,
+            // markEvent will increase numLateRecordsDropped
+            lateRecordsDroppedRate.markEvent();
+            return;
+        }
+        windowState.add(windowEnd, inputRow);
+        // there is only one timer for each window and key, registering it again is a no-op
+        internalTimerService.registerEventTimeTimer(windowEnd, windowEnd - 1);
+    }
+
+    @Override
+    public void onEventTime(InternalTimer<RowData, Long> timer) throws Exception {
+        setCurrentKey(timer.getKey());
+        Long window = timer.getNamespace();
+        Iterable<RowData> leftRecords = leftWindowState.get(window);
+        Iterable<RowData> rightRecords = rightWindowState.get(window);
+        join(leftRecords, rightRecords);
+        // the window will never be triggered again, drop its records
+        leftWindowState.clear(window);
+        rightWindowState.clear(window);
+    }
+
+    @Override
+    public void onProcessingTime(InternalTimer<RowData, Long> timer) throws Exception {
+        throw new UnsupportedOperationException(
+                "Window join only supports event time, this should never happen.");
+    }
+
+    /**
+     * Joins the records of both sides of a fired window.
+     *
+     * @param leftRecords the records of the left side, null if there is none
+     * @param rightRecords the records of the right side, null if there is none
+     */
+    protected abstract void join(Iterable<RowData> leftRecords, Iterable<RowData> rightRecords)
+            throws Exception;
+
+    /** Returns true if the given pair of records satisfies the join condition. */
+    protected boolean matches(RowData left, RowData right) {
+        if (!nullSafe) {
+            // key is always BinaryRowData
+            BinaryRowData joinKey = (BinaryRowData) getCurrentKey();
+            if (filterAllNulls ? joinKey.anyNull() : joinKey.anyNull(nullFilterKeys)) {
+                // find null present, records never match
+                return false;
+            }
+        }
+        return joinCondition.apply(left, right);
+    }
+
+    // ------------------------------------------------------------------------------
+    // Visible For Testing
+    // ------------------------------------------------------------------------------
+
+    @VisibleForTesting
+    public Counter getLeftNumLateRecordsDropped() {
+        return leftNumLateRecordsDropped;
+    }
+
+    @VisibleForTesting
+    public Counter getRightNumLateRecordsDropped() {
+        return rightNumLateRecordsDropped;
+    }
+
+    @VisibleForTesting
+    public Gauge<Long> getWatermarkLatency() {
+        return watermarkLatency;
+    }
+
+    // ------------------------------------------------------------------------------
+    // Join types
+    // ------------------------------------------------------------------------------
+
+    static final class InnerJoinOperator extends WindowJoinOperator {
+        private static final long serialVersionUID = 1L;
+
+        private transient JoinedRowData outRow;
+
+        InnerJoinOperator(
+                TypeSerializer<RowData> leftSerializer,
+                TypeSerializer<RowData> rightSerializer,
+                GeneratedJoinCondition generatedJoinCondition,
+                int leftWindowEndIndex,
+                int rightWindowEndIndex,
+                boolean[] filterNullKeys) {
+            super(
+                    leftSerializer,
+                    rightSerializer,
+                    generatedJoinCondition,
+                    leftWindowEndIndex,
+                    rightWindowEndIndex,
+                    filterNullKeys);
+        }
+
+        @Override
+        public void open() throws Exception {
+            super.open();
+            outRow = new JoinedRowData();
+        }
+
+        @Override
+        protected void join(Iterable<RowData> leftRecords, Iterable<RowData> rightRecords) {
+            if (leftRecords == null || rightRecords == null) {
+                return;
+            }
+            for (RowData leftRecord : leftRecords) {
+                for (RowData rightRecord : rightRecords) {
+                    if (matches(leftRecord, rightRecord)) {
+                        collector.collect(outRow.replace(leftRecord, rightRecord));
+                    }
+                }
+            }
+        }
+    }
+
+    static final class SemiAntiJoinOperator extends WindowJoinOperator {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean isAntiJoin;
+
+        SemiAntiJoinOperator(
+                TypeSerializer<RowData> leftSerializer,
+                TypeSerializer<RowData> rightSerializer,
+                GeneratedJoinCondition generatedJoinCondition,
+                int leftWindowEndIndex,
+                int rightWindowEndIndex,
+                boolean[] filterNullKeys,
+                boolean isAntiJoin) {
+            super(
+                    leftSerializer,
+                    rightSerializer,
+                    generatedJoinCondition,
+                    leftWindowEndIndex,
+                    rightWindowEndIndex,
+                    filterNullKeys);
+            this.isAntiJoin = isAntiJoin;
+        }
+
+        @Override
+        protected void join(Iterable<RowData> leftRecords, Iterable<RowData> rightRecords) {
+            if (leftRecords == null) {
+                return;
+            }
+            for (RowData leftRecord : leftRecords) {
+                boolean matched = false;
+                if (rightRecords != null) {
+                    for (RowData rightRecord : rightRecords) {
+                        if (matches(leftRecord, rightRecord)) {
+                            matched = true;
+                            break;
+                        }
+                    }
+                }
+                if (matched != isAntiJoin) {
+                    collector.collect(leftRecord);
+                }
+            }
+        }
+    }
+
+    /** Base class for outer joins, which pads the records without match with nulls. */
+    private abstract static class AbstractOuterJoinOperator extends WindowJoinOperator {
+        private static final long serialVersionUID = 1L;
+
+        private final int leftArity;
+        private final int rightArity;
+
+        protected transient JoinedRowData outRow;
+        protected transient GenericRowData leftNullRow;
+        protected transient GenericRowData rightNullRow;
+
+        AbstractOuterJoinOperator(
+                TypeSerializer<RowData> leftSerializer,
+                TypeSerializer<RowData> rightSerializer,
+                GeneratedJoinCondition generatedJoinCondition,
+                int leftWindowEndIndex,
+                int rightWindowEndIndex,
+                boolean[] filterNullKeys,
+                int leftArity,
+                int rightArity) {
+            super(
+                    leftSerializer,
+                    rightSerializer,
+                    generatedJoinCondition,
+                    leftWindowEndIndex,
+                    rightWindowEndIndex,
+                    filterNullKeys);
+            this.leftArity = leftArity;
+            this.rightArity = rightArity;
+        }
+
+        @Override
+        public void open() throws Exception {
+            super.open();
+            outRow = new JoinedRowData();
+            leftNullRow = new GenericRowData(leftArity);
+            rightNullRow = new GenericRowData(rightArity);
+        }
+
+        protected void outputNullPadding(RowData row, boolean isLeft) {
+            if (isLeft) {
+                collector.collect(outRow.replace(row, rightNullRow));
+            } else {
+                collector.collect(outRow.replace(leftNullRow, row));
+            }
+        }
+
+        /**
+         * Joins every record of the outer side with the records of the other side and pads the
+         * outer records without match with nulls.
+         */
+        protected void joinOuterSide(
+                Iterable<RowData> outerRecords, Iterable<RowData> otherRecords, boolean isLeft) {
+            for (RowData outerRecord : outerRecords) {
+                boolean matched = false;
+                if (otherRecords != null) {
+                    for (RowData otherRecord : otherRecords) {
+                        RowData left = isLeft ? outerRecord : otherRecord;
+                        RowData right = isLeft ? otherRecord : outerRecord;
+                        if (matches(left, right)) {
+                            matched = true;
+                            collector.collect(outRow.replace(left, right));
+                        }
+                    }
+                }
+                if (!matched) {
+                    outputNullPadding(outerRecord, isLeft);
+                }
+            }
+        }
+    }
+
+    static final class LeftOuterJoinOperator extends AbstractOuterJoinOperator {
+        private static final long serialVersionUID = 1L;
+
+        LeftOuterJoinOperator(
+                TypeSerializer<RowData> leftSerializer,
+                TypeSerializer<RowData> rightSerializer,
+                GeneratedJoinCondition generatedJoinCondition,
+                int leftWindowEndIndex,
+                int rightWindowEndIndex,
+                boolean[] filterNullKeys,
+                int leftArity,
+                int rightArity) {
+            super(
+                    leftSerializer,
+                    rightSerializer,
+                    generatedJoinCondition,
+                    leftWindowEndIndex,
+                    rightWindowEndIndex,
+                    filterNullKeys,
+                    leftArity,
+                    rightArity);
+        }
+
+        @Override
+        protected void join(Iterable<RowData> leftRecords, Iterable<RowData> rightRecords) {
+            if (leftRecords != null) {
+                joinOuterSide(leftRecords, rightRecords, true);
+            }
+        }
+    }
+
+    static final class RightOuterJoinOperator extends AbstractOuterJoinOperator {
+        private static final long serialVersionUID = 1L;
+
+        RightOuterJoinOperator(
+                TypeSerializer<RowData> leftSerializer,
+                TypeSerializer<RowData> rightSerializer,
+                GeneratedJoinCondition generatedJoinCondition,
+                int leftWindowEndIndex,
+                int rightWindowEndIndex,
+                boolean[] filterNullKeys,
+                int leftArity,
+                int rightArity) {
+            super(
+                    leftSerializer,
+                    rightSerializer,
+                    generatedJoinCondition,
+                    leftWindowEndIndex,
+                    rightWindowEndIndex,
+                    filterNullKeys,
+                    leftArity,
+                    rightArity);
+        }
+
+        @Override
+        protected void join(Iterable<RowData> leftRecords, Iterable<RowData> rightRecords) {
+            if (rightRecords != null) {
+                joinOuterSide(rightRecords, leftRecords, false);
+            }
+        }
+    }
+
+    static final class FullOuterJoinOperator extends AbstractOuterJoinOperator {
+        private static final long serialVersionUID = 1L;
+
+        FullOuterJoinOperator(
+                TypeSerializer<RowData> leftSerializer,
+                TypeSerializer<RowData> rightSerializer,
+                GeneratedJoinCondition generatedJoinCondition,
+                int leftWindowEndIndex,
+                int rightWindowEndIndex,
+                boolean[] filterNullKeys,
+                int leftArity,
+                int rightArity) {
+            super(
+                    leftSerializer,
+                    rightSerializer,
+                    generatedJoinCondition,
+                    leftWindowEndIndex,
+                    rightWindowEndIndex,
+                    filterNullKeys,
+                    leftArity,
+                    rightArity);
+        }
+
+        @Override
+        protected void join(Iterable<RowData> leftRecords, Iterable<RowData> rightRecords) {
+            if (leftRecords == null) {
+                if (rightRecords != null) {
+                    rightRecords.forEach(row -> outputNullPadding(row, false));
+                }
+                return;
+            }
+            if (rightRecords == null) {
+                leftRecords.forEach(row -> outputNullPadding(row, true));
+                return;
+            }
+            List<RowData> rights = new ArrayList<>();
+            rightRecords.forEach(rights::add);
+            boolean[] rightMatched = new boolean[rights.size()];
+            for (RowData leftRecord : leftRecords) {
+                boolean matched = false;
+                for (int i = 0; i < rights.size(); i++) {
+                    RowData rightRecord = rights.get(i);
+                    if (matches(leftRecord, rightRecord)) {
+                        matched = true;
+                        rightMatched[i] = true;
+                        collector.collect(outRow.replace(leftRecord, rightRecord));
+                    }
+                }
+                if (!matched) {
+                    outputNullPadding(leftRecord, true);
+                }
+            }
+            for (int i = 0; i < rights.size(); i++) {
+                if (!rightMatched[i]) {
+                    outputNullPadding(rights.get(i), false);
+                }
+            }
+        }
+    }
+}
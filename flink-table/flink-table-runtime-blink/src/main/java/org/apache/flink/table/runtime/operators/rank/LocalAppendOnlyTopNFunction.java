@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.rank;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.generated.GeneratedRecordComparator;
+import org.apache.flink.table.runtime.keyselector.RowDataKeySelector;
+import org.apache.flink.table.runtime.util.LRUMap;
+import org.apache.flink.util.Collector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A local TopN function which filters an insert-only stream before it is shuffled to the global
+ * {@link AppendOnlyTopNFunction}.
+ *
+ * <p>The function keeps the best {@code rankEnd} sort keys seen so far for every partition key in a
+ * heap {@link TopNBuffer} and only forwards the records which enter the buffer. A record which is
+ * not in the local top N of its partition can never enter the global top N, because the global
+ * function has already received at least N records of the same partition with a better or equal
+ * sort key from this channel.
+ *
+ * <p>The buffers are not part of the state. After a failover, or if a partition key is evicted from
+ * the cache, the function forwards more records until the buffer is filled again.
+ */
+public class LocalAppendOnlyTopNFunction extends ProcessFunction<RowData, RowData> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalAppendOnlyTopNFunction.class);
+
+    private final RowDataKeySelector partitionKeySelector;
+    private final RowDataKeySelector sortKeySelector;
+    private final long rankEnd;
+    private final long cacheSize;
+
+    private GeneratedRecordComparator generatedSortKeyComparator;
+
+    private transient Comparator<RowData> sortKeyComparator;
+
+    // the kvSortedMap stores mapping from partition key to the sort keys of its local topN
+    private transient Map<RowData, TopNBuffer> kvSortedMap;
+
+    private transient Counter numFilteredRecords;
+
+    public LocalAppendOnlyTopNFunction(
+            GeneratedRecordComparator generatedSortKeyComparator,
+            RowDataKeySelector partitionKeySelector,
+            RowDataKeySelector sortKeySelector,
+            RankRange rankRange,
+            long cacheSize) {
+        checkArgument(
+                rankRange instanceof ConstantRankRange,
+                "The local TopN only supports a constant rank range, but got %s.",
+                rankRange);
+        this.generatedSortKeyComparator = generatedSortKeyComparator;
+        this.partitionKeySelector = partitionKeySelector;
+        this.sortKeySelector = sortKeySelector;
+        this.rankEnd = ((ConstantRankRange) rankRange).getRankEnd();
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        sortKeyComparator =
+                generatedSortKeyComparator.newInstance(
+                        getRuntimeContext().getUserCodeClassLoader());
+        generatedSortKeyComparator = null;
+
+        int lruCacheSize = Math.max(1, (int) (cacheSize / rankEnd));
+        kvSortedMap = new LRUMap<>(lruCacheSize);
+        LOG.info("Local Top{} operator is using LRU caches key-size: {}", rankEnd, lruCacheSize);
+
+        numFilteredRecords = getRuntimeContext().getMetricGroup().counter("topn.filteredRecords");
+    }
+
+    @Override
+    public void processElement(RowData input, Context ctx, Collector<RowData> out)
+            throws Exception {
+        RowData partitionKey = partitionKeySelector.getKey(input);
+        TopNBuffer buffer = kvSortedMap.get(partitionKey);
+        if (buffer == null) {
+            buffer = new TopNBuffer(sortKeyComparator, ArrayList::new);
+            kvSortedMap.put(partitionKey, buffer);
+        }
+
+        RowData sortKey = sortKeySelector.getKey(input);
+        if (checkSortKeyInBufferRange(sortKey, buffer)) {
+            // only the sort keys are needed to decide whether a record enters the local topN
+            buffer.put(sortKey, sortKey);
+            if (buffer.getCurrentTopNum() > rankEnd) {
+                buffer.removeLast();
+            }
+            out.collect(input);
+        } else {
+            numFilteredRecords.inc();
+        }
+    }
+
+    private boolean checkSortKeyInBufferRange(RowData sortKey, TopNBuffer buffer) {
+        if (buffer.getCurrentTopNum() < rankEnd) {
+            return true;
+        }
+        Map.Entry<RowData, Collection<RowData>> worstEntry = buffer.lastEntry();
+        return sortKeyComparator.compare(sortKey, worstEntry.getKey()) < 0;
+    }
+}
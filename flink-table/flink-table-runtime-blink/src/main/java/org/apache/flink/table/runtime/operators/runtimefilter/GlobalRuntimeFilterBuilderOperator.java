@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.runtimefilter;
+
+import org.apache.flink.streaming.api.operators.BoundedOneInput;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.operators.TableStreamOperator;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Operator which merges the bloom filters of all {@link LocalRuntimeFilterBuilderOperator}s into
+ * the bloom filter of the whole build side. It must run with a parallelism of one.
+ *
+ * <p>All local filters are built for the same number of expected entries, so they have the same
+ * size and hash functions and are merged by a bitwise or.
+ */
+public class GlobalRuntimeFilterBuilderOperator extends TableStreamOperator<RowData>
+        implements OneInputStreamOperator<RowData, RowData>, BoundedOneInput {
+
+    private final int expectedEntries;
+    private final long maxRowCount;
+
+    private transient byte[] filterBytes;
+    private transient boolean filterValid;
+    private transient long rowCount;
+
+    public GlobalRuntimeFilterBuilderOperator(int expectedEntries, long maxRowCount) {
+        checkArgument(expectedEntries > 0, "expectedEntries should be > 0");
+        this.expectedEntries = expectedEntries;
+        this.maxRowCount = maxRowCount;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        this.filterBytes = new byte[RuntimeFilterUtils.computeFilterByteSize(expectedEntries)];
+        this.filterValid = true;
+        this.rowCount = 0L;
+    }
+
+    @Override
+    public void processElement(StreamRecord<RowData> element) throws Exception {
+        RowData localFilter = element.getValue();
+        rowCount += localFilter.getLong(0);
+        if (!filterValid) {
+            return;
+        }
+        if (localFilter.isNullAt(1) || rowCount > maxRowCount) {
+            filterValid = false;
+        } else {
+            byte[] localBytes = localFilter.getBinary(1);
+            checkState(
+                    localBytes.length == filterBytes.length,
+                    "The local filters were built with different sizes.");
+            for (int i = 0; i < filterBytes.length; i++) {
+                filterBytes[i] |= localBytes[i];
+            }
+        }
+    }
+
+    @Override
+    public void endInput() throws Exception {
+        output.collect(
+                new StreamRecord<>(
+                        RuntimeFilterUtils.createFilterRow(
+                                rowCount, filterValid ? filterBytes : null)));
+    }
+}
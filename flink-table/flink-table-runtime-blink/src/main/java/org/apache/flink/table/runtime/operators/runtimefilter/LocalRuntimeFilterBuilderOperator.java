@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.runtimefilter;
+
+import org.apache.flink.runtime.operators.util.BloomFilter;
+import org.apache.flink.streaming.api.operators.BoundedOneInput;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.runtime.generated.GeneratedProjection;
+import org.apache.flink.table.runtime.generated.Projection;
+import org.apache.flink.table.runtime.operators.TableStreamOperator;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Operator which builds the bloom filter of the join keys of the build side records of a subtask.
+ * The filter is emitted at the end of the input, or without the bloom filter if there are more
+ * build records than the filter may contain.
+ */
+public class LocalRuntimeFilterBuilderOperator extends TableStreamOperator<RowData>
+        implements OneInputStreamOperator<RowData, RowData>, BoundedOneInput {
+
+    private GeneratedProjection buildKeyProjectionCode;
+    private final int expectedEntries;
+    private final long maxRowCount;
+
+    private transient Projection<RowData, BinaryRowData> buildKeyProjection;
+    private transient byte[] filterBytes;
+    private transient BloomFilter filter;
+    private transient long rowCount;
+
+    public LocalRuntimeFilterBuilderOperator(
+            GeneratedProjection buildKeyProjectionCode, int expectedEntries, long maxRowCount) {
+        checkArgument(expectedEntries > 0, "expectedEntries should be > 0");
+        this.buildKeyProjectionCode = buildKeyProjectionCode;
+        this.expectedEntries = expectedEntries;
+        this.maxRowCount = maxRowCount;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        this.buildKeyProjection = buildKeyProjectionCode.newInstance(getUserCodeClassloader());
+        buildKeyProjectionCode = null;
+
+        this.filterBytes = new byte[RuntimeFilterUtils.computeFilterByteSize(expectedEntries)];
+        this.filter = RuntimeFilterUtils.createBloomFilter(expectedEntries, filterBytes);
+        this.rowCount = 0L;
+    }
+
+    @Override
+    public void processElement(StreamRecord<RowData> element) throws Exception {
+        rowCount++;
+        if (filter == null) {
+            return;
+        }
+        if (rowCount > maxRowCount) {
+            // the filter would not be selective anymore, drop it
+            filter = null;
+            filterBytes = null;
+        } else {
+            filter.addHash(buildKeyProjection.apply(element.getValue()).hashCode());
+        }
+    }
+
+    @Override
+    public void endInput() throws Exception {
+        output.collect(
+                new StreamRecord<>(RuntimeFilterUtils.createFilterRow(rowCount, filterBytes)));
+    }
+}
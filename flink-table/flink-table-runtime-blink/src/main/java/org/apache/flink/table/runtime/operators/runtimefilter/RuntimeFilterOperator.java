@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.runtimefilter;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.runtime.operators.util.BloomFilter;
+import org.apache.flink.streaming.api.operators.BoundedMultiInput;
+import org.apache.flink.streaming.api.operators.InputSelectable;
+import org.apache.flink.streaming.api.operators.InputSelection;
+import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.runtime.generated.GeneratedProjection;
+import org.apache.flink.table.runtime.generated.Projection;
+import org.apache.flink.table.runtime.operators.TableStreamOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Operator which drops the probe side records of a hash join whose join keys are not contained in
+ * the bloom filter of the build side, before the probe side is shuffled to the join.
+ *
+ * <p>The first input is the broadcast filter from the {@link GlobalRuntimeFilterBuilderOperator},
+ * which is read completely before the second input, the probe side records. If the build side was
+ * too large for a selective filter, all probe side records are forwarded.
+ */
+public class RuntimeFilterOperator extends TableStreamOperator<RowData>
+        implements TwoInputStreamOperator<RowData, RowData, RowData>,
+                BoundedMultiInput,
+                InputSelectable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RuntimeFilterOperator.class);
+
+    private static final String FILTERED_RECORDS_METRIC_NAME = "runtimefilter.filteredRecords";
+
+    private GeneratedProjection probeKeyProjectionCode;
+    private final int expectedEntries;
+
+    private transient Projection<RowData, BinaryRowData> probeKeyProjection;
+    private transient BloomFilter filter;
+    private transient boolean filterReceived;
+    private transient boolean filterEnd;
+    private transient Counter filteredRecords;
+
+    public RuntimeFilterOperator(GeneratedProjection probeKeyProjectionCode, int expectedEntries) {
+        checkArgument(expectedEntries > 0, "expectedEntries should be > 0");
+        this.probeKeyProjectionCode = probeKeyProjectionCode;
+        this.expectedEntries = expectedEntries;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        this.probeKeyProjection = probeKeyProjectionCode.newInstance(getUserCodeClassloader());
+        probeKeyProjectionCode = null;
+
+        this.filter = null;
+        this.filterReceived = false;
+        this.filterEnd = false;
+        this.filteredRecords =
+                getRuntimeContext().getMetricGroup().counter(FILTERED_RECORDS_METRIC_NAME);
+    }
+
+    @Override
+    public void processElement1(StreamRecord<RowData> element) throws Exception {
+        checkState(!filterReceived, "The runtime filter should be received only once.");
+        filterReceived = true;
+        RowData filterRow = element.getValue();
+        if (filterRow.isNullAt(1)) {
+            LOG.info(
+                    "The build side has {} records, the probe side will not be filtered.",
+                    filterRow.getLong(0));
+        } else {
+            filter = RuntimeFilterUtils.createBloomFilter(expectedEntries, filterRow.getBinary(1));
+        }
+    }
+
+    @Override
+    public void processElement2(StreamRecord<RowData> element) throws Exception {
+        if (filter == null
+                || filter.testHash(probeKeyProjection.apply(element.getValue()).hashCode())) {
+            output.collect(element);
+        } else {
+            filteredRecords.inc();
+        }
+    }
+
+    @Override
+    public InputSelection nextSelection() {
+        return filterEnd ? InputSelection.SECOND : InputSelection.FIRST;
+    }
+
+    @Override
+    public void endInput(int inputId) throws Exception {
+        if (inputId == 1) {
+            checkState(!filterEnd, "The filter input should only end once.");
+            filterEnd = true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.runtimefilter;
+
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.operators.util.BloomFilter;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.VarBinaryType;
+
+import javax.annotation.Nullable;
+
+/** Utilities for the runtime filters of batch hash joins. */
+public final class RuntimeFilterUtils {
+
+    /** The expected false positive probability of a runtime filter. */
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.05;
+
+    /**
+     * The type of the records sent from the runtime filter builders to the {@link
+     * RuntimeFilterOperator}: the number of build records and the serialized bloom filter of their
+     * keys. The filter is null if there were too many build records for a selective filter.
+     */
+    public static final RowType FILTER_ROW_TYPE =
+            RowType.of(
+                    new LogicalType[] {
+                        new BigIntType(false), new VarBinaryType(VarBinaryType.MAX_LENGTH)
+                    },
+                    new String[] {"rowCount", "filter"});
+
+    private RuntimeFilterUtils() {}
+
+    /** Returns the byte size of a bloom filter for the given number of expected entries. */
+    public static int computeFilterByteSize(int expectedEntries) {
+        long numBits = BloomFilter.optimalNumOfBits(expectedEntries, FALSE_POSITIVE_PROBABILITY);
+        return (int) Math.max(1L, (numBits + 7) >>> 3);
+    }
+
+    /** Creates a bloom filter which stores its bits in the given bytes. */
+    public static BloomFilter createBloomFilter(int expectedEntries, byte[] bytes) {
+        BloomFilter filter = new BloomFilter(expectedEntries, bytes.length);
+        filter.setBitsLocation(MemorySegmentFactory.wrap(bytes), 0);
+        return filter;
+    }
+
+    public static RowData createFilterRow(long rowCount, @Nullable byte[] filter) {
+        return GenericRowData.of(rowCount, filter);
+    }
+}
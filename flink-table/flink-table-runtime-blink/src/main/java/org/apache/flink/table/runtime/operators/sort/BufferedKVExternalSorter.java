@@ -103,10 +103,14 @@ public class BufferedKVExternalSorter {
                 conf.getInteger(ExecutionConfigOptions.TABLE_EXEC_SORT_MAX_NUM_FILE_HANDLES);
         this.compressionEnable =
                 conf.getBoolean(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_ENABLED);
+        String compressionCodec =
+                conf.get(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_CODEC);
+        int compressionZstdLevel =
+                conf.get(ExecutionConfigOptions.TABLE_EXEC_SPILL_COMPRESSION_ZSTD_LEVEL);
         this.compressionCodecFactory =
                 this.compressionEnable
                         ? BlockCompressionFactory.createBlockCompressionFactory(
-                                BlockCompressionFactory.CompressionFactoryName.LZ4.toString())
+                                compressionCodec, compressionZstdLevel)
                         : null;
         this.compressionBlockSize =
                 (int)
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.window;
+
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.data.utils.JoinedRowData;
+import org.apache.flink.table.runtime.operators.TableStreamOperator;
+import org.apache.flink.table.runtime.operators.window.assigners.WindowAssigner;
+
+import java.util.Collection;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * The operator acts as a table-valued function to assign windows for input row. Output row includes
+ * the original columns as well additional 3 columns named {@code window_start}, {@code window_end},
+ * {@code window_time} to indicate the assigned window.
+ *
+ * <p>A row is emitted once for every window it is assigned to. Rows with a null event-time
+ * attribute are dropped, because they can't be assigned to any window.
+ */
+public class WindowTableFunctionOperator extends TableStreamOperator<RowData>
+        implements OneInputStreamOperator<RowData, RowData> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final WindowAssigner<TimeWindow> windowAssigner;
+    private final int rowtimeIndex;
+
+    /** This is used for emitting elements with a given timestamp. */
+    private transient TimestampedCollector<RowData> collector;
+
+    private transient JoinedRowData outRow;
+    private transient GenericRowData windowProperties;
+
+    public WindowTableFunctionOperator(
+            WindowAssigner<TimeWindow> windowAssigner, int rowtimeIndex) {
+        checkArgument(!windowAssigner.isEventTime() || rowtimeIndex >= 0);
+        this.windowAssigner = windowAssigner;
+        this.rowtimeIndex = rowtimeIndex;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        this.collector = new TimestampedCollector<>(output);
+        collector.eraseTimestamp();
+        this.outRow = new JoinedRowData();
+        this.windowProperties = new GenericRowData(3);
+    }
+
+    @Override
+    public void processElement(StreamRecord<RowData> element) throws Exception {
+        RowData inputRow = element.getValue();
+        long timestamp;
+        if (windowAssigner.isEventTime()) {
+            if (inputRow.isNullAt(rowtimeIndex)) {
+                // null timestamp would be dropped
+                return;
+            }
+            timestamp = inputRow.getTimestamp(rowtimeIndex, 3).getMillisecond();
+        } else {
+            timestamp = getProcessingTimeService().getCurrentProcessingTime();
+        }
+        Collection<TimeWindow> elementWindows = windowAssigner.assignWindows(inputRow, timestamp);
+        outRow.setRowKind(inputRow.getRowKind());
+        for (TimeWindow window : elementWindows) {
+            windowProperties.setField(0, TimestampData.fromEpochMillis(window.getStart()));
+            windowProperties.setField(1, TimestampData.fromEpochMillis(window.getEnd()));
+            windowProperties.setField(2, TimestampData.fromEpochMillis(window.maxTimestamp()));
+            collector.collect(outRow.replace(inputRow, windowProperties));
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.MeterView;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.streaming.api.operators.ChainingStrategy;
@@ -151,6 +152,7 @@ public final class SlicingWindowOperator<K, W> extends TableStreamOperator<RowDa
                         getContainingTask(),
                         getContainingTask().getEnvironment().getMemoryManager(),
                         computeMemorySize(),
+                        getContainingTask().getEnvironment().getIOManager(),
                         internalTimerService,
                         getKeyedStateBackend(),
                         collector,
@@ -250,6 +252,7 @@ public final class SlicingWindowOperator<K, W> extends TableStreamOperator<RowDa
         private final Object operatorOwner;
         private final MemoryManager memoryManager;
         private final long memorySize;
+        private final IOManager ioManager;
         private final InternalTimerService<W> timerService;
         private final KeyedStateBackend<RowData> keyedStateBackend;
         private final Output<RowData> collector;
@@ -259,6 +262,7 @@ public final class SlicingWindowOperator<K, W> extends TableStreamOperator<RowDa
                 Object operatorOwner,
                 MemoryManager memoryManager,
                 long memorySize,
+                IOManager ioManager,
                 InternalTimerService<W> timerService,
                 KeyedStateBackend<RowData> keyedStateBackend,
                 Output<RowData> collector,
@@ -266,6 +270,7 @@ public final class SlicingWindowOperator<K, W> extends TableStreamOperator<RowDa
             this.operatorOwner = operatorOwner;
             this.memoryManager = memoryManager;
             this.memorySize = memorySize;
+            this.ioManager = ioManager;
             this.timerService = timerService;
             this.keyedStateBackend = checkNotNull(keyedStateBackend);
             this.collector = checkNotNull(collector);
@@ -287,6 +292,11 @@ public final class SlicingWindowOperator<K, W> extends TableStreamOperator<RowDa
             return memorySize;
         }
 
+        @Override
+        public IOManager getIOManager() {
+            return ioManager;
+        }
+
         @Override
         public KeyedStateBackend<RowData> getKeyedStateBackend() {
             return keyedStateBackend;
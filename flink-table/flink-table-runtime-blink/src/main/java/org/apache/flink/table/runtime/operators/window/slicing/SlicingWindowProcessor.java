@@ -21,6 +21,7 @@ package org.apache.flink.table.runtime.operators.window.slicing;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.functions.RuntimeContext;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.streaming.api.operators.InternalTimerService;
@@ -104,6 +105,9 @@ public interface SlicingWindowProcessor<W> extends Serializable {
         /** Returns the managed memory size can be used by this operator. */
         long getMemorySize();
 
+        /** Returns the current {@link IOManager}. */
+        IOManager getIOManager();
+
         /** Returns the current {@link KeyedStateBackend}. */
         KeyedStateBackend<RowData> getKeyedStateBackend();
 
@@ -266,6 +266,8 @@ public abstract class AbstractBytesMultiMap<K> extends BytesMap<K, Iterator<RowD
             endPtr = readPointer(keyInView);
             endPtrOffset = (int) keyInView.getReadPosition() - ELEMENT_POINT_LENGTH;
             pointerToSecondValue = readPointer(keyInView);
+            // the first value is only read if the values of the key are iterated
+            reusedValueIterator.setOffset(keyInView.getReadPosition(), pointerToSecondValue);
             return reuse;
         }
 
@@ -374,12 +376,22 @@ public abstract class AbstractBytesMultiMap<K> extends BytesMap<K, Iterator<RowD
             private int offset;
             private boolean isFirstRead;
 
+            /**
+             * Offset of the first value in the key area, or -1 if the first value has already been
+             * read into the reused record.
+             */
+            private long firstValueOffset;
+
             public ValueIterator(int offset) {
-                this.offset = offset;
-                this.isFirstRead = true;
+                setOffset(offset);
             }
 
             public void setOffset(int offset) {
+                setOffset(-1, offset);
+            }
+
+            public void setOffset(long firstValueOffset, int offset) {
+                this.firstValueOffset = firstValueOffset;
                 this.offset = offset;
                 this.isFirstRead = true;
             }
@@ -393,6 +405,16 @@ public abstract class AbstractBytesMultiMap<K> extends BytesMap<K, Iterator<RowD
             public RowData next() {
                 if (isFirstRead) {
                     isFirstRead = false;
+                    if (firstValueOffset != -1) {
+                        keyInView.setReadPosition(firstValueOffset);
+                        try {
+                            reusedRecord = valueSerializer.mapFromPages(reusedRecord, keyInView);
+                        } catch (IOException e) {
+                            throw new RuntimeException(
+                                    "Exception happened while iterating"
+                                            + " value list of a key in BytesMultiMap");
+                        }
+                    }
                     return reusedRecord;
                 }
                 if (hasNext()) {
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.vector;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.expressions.AggregateExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Describes a local hash aggregate which is evaluated over the column vectors of {@link
+ * VectorizedColumnBatch}es by a {@link VectorizedHashAggregator}.
+ *
+ * <p>Supported are {@code SUM}, {@code SUM0}, {@code MIN}, {@code MAX} over columns of type
+ * TINYINT, SMALLINT, INTEGER, BIGINT, FLOAT and DOUBLE ({@code MIN} and {@code MAX} also over DATE)
+ * and {@code COUNT} over columns of any type or over all rows. The grouping keys can be of any
+ * atomic type. The aggregated rows contain the grouping keys followed by one value per aggregate,
+ * which is the accumulator of the corresponding local aggregate.
+ */
+@Internal
+public final class VectorizedAggregation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(VectorizedAggregation.class);
+
+    /** The supported aggregate functions. */
+    enum Kind {
+        SUM,
+        SUM0,
+        MIN,
+        MAX,
+        COUNT
+    }
+
+    private final RowType inputType;
+    private final RowType producedType;
+    private final int[] grouping;
+    private final Kind[] kinds;
+
+    /** The aggregated column of each aggregate, or -1 for {@code COUNT(*)}. */
+    private final int[] columns;
+
+    private VectorizedAggregation(
+            RowType inputType, RowType producedType, int[] grouping, Kind[] kinds, int[] columns) {
+        this.inputType = inputType;
+        this.producedType = producedType;
+        this.grouping = grouping;
+        this.kinds = kinds;
+        this.columns = columns;
+    }
+
+    /**
+     * Converts the given grouping sets and aggregates into a {@link VectorizedAggregation}.
+     *
+     * @param groupingSets the grouping sets, only a single grouping set is supported
+     * @param aggregates the aggregates, the arguments are looked up by name in the input type
+     * @param inputType the type of the batches to aggregate
+     * @param producedType the type of the aggregated rows
+     * @return the aggregation, or {@code null} if any of the aggregates cannot be vectorized
+     */
+    @Nullable
+    public static VectorizedAggregation create(
+            List<int[]> groupingSets,
+            List<AggregateExpression> aggregates,
+            RowType inputType,
+            RowType producedType) {
+        if (groupingSets.size() != 1) {
+            return null;
+        }
+        int[] grouping = groupingSets.get(0);
+        if (producedType.getFieldCount() != grouping.length + aggregates.size()) {
+            return null;
+        }
+        for (int i = 0; i < grouping.length; i++) {
+            LogicalType keyType = inputType.getTypeAt(grouping[i]);
+            if (!isSupportedKeyType(keyType) || !keyType.equals(producedType.getTypeAt(i))) {
+                return null;
+            }
+        }
+
+        Kind[] kinds = new Kind[aggregates.size()];
+        int[] columns = new int[aggregates.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            AggregateExpression aggregate = aggregates.get(i);
+            LogicalType resultType = producedType.getTypeAt(grouping.length + i);
+            kinds[i] = kindOf(aggregate.getFunctionDefinition());
+            columns[i] = columnOf(aggregate, inputType);
+            if (kinds[i] == null
+                    || columns[i] == -2
+                    || aggregate.isDistinct()
+                    || aggregate.isApproximate()
+                    || aggregate.getFilterExpression().isPresent()
+                    || !isSupported(
+                            kinds[i],
+                            columns[i] < 0 ? null : inputType.getTypeAt(columns[i]),
+                            resultType)) {
+                LOG.debug("Unsupported aggregate [{}] cannot be vectorized.", aggregate);
+                return null;
+            }
+        }
+        return new VectorizedAggregation(inputType, producedType, grouping, kinds, columns);
+    }
+
+    /**
+     * Creates an aggregator for this aggregation.
+     *
+     * @param maxNumGroups the number of groups after which the aggregator reports to be full
+     */
+    public VectorizedHashAggregator createAggregator(int maxNumGroups) {
+        return new VectorizedHashAggregator(
+                inputType, producedType, grouping, kinds, columns, maxNumGroups);
+    }
+
+    public RowType getProducedType() {
+        return producedType;
+    }
+
+    @Nullable
+    private static Kind kindOf(FunctionDefinition function) {
+        if (function == BuiltInFunctionDefinitions.SUM) {
+            return Kind.SUM;
+        } else if (function == BuiltInFunctionDefinitions.SUM0) {
+            return Kind.SUM0;
+        } else if (function == BuiltInFunctionDefinitions.MIN) {
+            return Kind.MIN;
+        } else if (function == BuiltInFunctionDefinitions.MAX) {
+            return Kind.MAX;
+        } else if (function == BuiltInFunctionDefinitions.COUNT) {
+            return Kind.COUNT;
+        }
+        return null;
+    }
+
+    /** Returns the aggregated column, -1 for no argument or -2 if it is not supported. */
+    private static int columnOf(AggregateExpression aggregate, RowType inputType) {
+        List<FieldReferenceExpression> args = aggregate.getArgs();
+        if (args.isEmpty()) {
+            return -1;
+        } else if (args.size() > 1) {
+            return -2;
+        }
+        int column = inputType.getFieldNames().indexOf(args.get(0).getName());
+        return column < 0 ? -2 : column;
+    }
+
+    private static boolean isSupported(
+            Kind kind, @Nullable LogicalType argType, LogicalType resultType) {
+        LogicalTypeRoot resultRoot = resultType.getTypeRoot();
+        if (kind == Kind.COUNT) {
+            return resultRoot == LogicalTypeRoot.BIGINT;
+        } else if (argType == null) {
+            return false;
+        }
+
+        LogicalTypeRoot argRoot = argType.getTypeRoot();
+        switch (kind) {
+            case SUM:
+            case SUM0:
+                return (isIntegral(argRoot) && isIntegral(resultRoot))
+                        || (isFloatingPoint(argRoot) && isFloatingPoint(resultRoot));
+            default:
+                return (isIntegral(argRoot)
+                                || isFloatingPoint(argRoot)
+                                || argRoot == LogicalTypeRoot.DATE)
+                        && argRoot == resultRoot;
+        }
+    }
+
+    private static boolean isSupportedKeyType(LogicalType type) {
+        switch (type.getTypeRoot()) {
+            case CHAR:
+            case VARCHAR:
+            case BOOLEAN:
+            case BINARY:
+            case VARBINARY:
+            case DECIMAL:
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case FLOAT:
+            case DOUBLE:
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static boolean isIntegral(LogicalTypeRoot root) {
+        return root == LogicalTypeRoot.TINYINT
+                || root == LogicalTypeRoot.SMALLINT
+                || root == LogicalTypeRoot.INTEGER
+                || root == LogicalTypeRoot.BIGINT;
+    }
+
+    static boolean isFloatingPoint(LogicalTypeRoot root) {
+        return root == LogicalTypeRoot.FLOAT || root == LogicalTypeRoot.DOUBLE;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.vector;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+
+import java.io.Serializable;
+
+/**
+ * A filter that is evaluated over whole column vectors of a {@link VectorizedColumnBatch} instead
+ * of row by row.
+ *
+ * <p>The rows of a batch which are still candidates are described by a selection vector, i.e. the
+ * ascending ids of the selected rows. A filter narrows down the selection in place.
+ *
+ * <p>Filters are evaluated on a best-effort basis: a filter must never drop a row which fulfills
+ * the original condition, but it may keep rows which do not.
+ */
+@Internal
+public interface VectorizedFilter extends Serializable {
+
+    /**
+     * Narrows down the selected rows of the given batch.
+     *
+     * @param batch the batch to filter
+     * @param selected the ids of the selected rows in ascending order, the ids of the remaining
+     *     rows are written to the beginning of this array
+     * @param size the number of selected rows
+     * @return the number of remaining selected rows
+     */
+    int filter(VectorizedColumnBatch batch, int[] selected, int size);
+}
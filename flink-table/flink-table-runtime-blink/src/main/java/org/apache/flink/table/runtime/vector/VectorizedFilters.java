@@ -0,0 +1,553 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.vector;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.vector.BooleanColumnVector;
+import org.apache.flink.table.data.vector.ByteColumnVector;
+import org.apache.flink.table.data.vector.BytesColumnVector;
+import org.apache.flink.table.data.vector.ColumnVector;
+import org.apache.flink.table.data.vector.DoubleColumnVector;
+import org.apache.flink.table.data.vector.FloatColumnVector;
+import org.apache.flink.table.data.vector.IntColumnVector;
+import org.apache.flink.table.data.vector.LongColumnVector;
+import org.apache.flink.table.data.vector.ShortColumnVector;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.expressions.CallExpression;
+import org.apache.flink.table.expressions.Expression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.expressions.ValueLiteralExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilities to convert filter expressions into {@link VectorizedFilter}s.
+ *
+ * <p>Supported are comparisons between a column and a literal, {@code IS NULL}, {@code IS NOT
+ * NULL}, {@code AND} and {@code OR} over columns of type BOOLEAN, TINYINT, SMALLINT, INTEGER,
+ * BIGINT, DATE, FLOAT, DOUBLE and VARCHAR. Other expressions are ignored, which is fine because the
+ * filters only need to be evaluated on a best-effort basis.
+ */
+@Internal
+public final class VectorizedFilters {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VectorizedFilters.class);
+
+    private VectorizedFilters() {}
+
+    /**
+     * Converts the given filters in conjunctive form into a {@link VectorizedFilter}.
+     *
+     * @param filters the filters in conjunctive form
+     * @param rowType the type of the batches to filter, the fields are looked up by name
+     * @return the filter, or {@code null} if none of the filters can be vectorized
+     */
+    @Nullable
+    public static VectorizedFilter create(List<? extends Expression> filters, RowType rowType) {
+        List<VectorizedFilter> converted = new ArrayList<>();
+        for (Expression filter : filters) {
+            VectorizedFilter vectorized = convert(filter, rowType);
+            if (vectorized != null) {
+                converted.add(vectorized);
+            } else {
+                LOG.debug("Unsupported filter [{}] cannot be vectorized.", filter);
+            }
+        }
+        if (converted.isEmpty()) {
+            return null;
+        }
+        return converted.size() == 1
+                ? converted.get(0)
+                : new AndFilter(converted.toArray(new VectorizedFilter[0]));
+    }
+
+    @Nullable
+    private static VectorizedFilter convert(Expression expression, RowType rowType) {
+        if (!(expression instanceof CallExpression)) {
+            return null;
+        }
+        CallExpression call = (CallExpression) expression;
+        FunctionDefinition function = call.getFunctionDefinition();
+        List<Expression> children = call.getChildren();
+
+        if (function == BuiltInFunctionDefinitions.AND) {
+            // dropping a conjunct only makes the filter less selective
+            return create(children, rowType);
+        } else if (function == BuiltInFunctionDefinitions.OR) {
+            VectorizedFilter[] disjuncts = new VectorizedFilter[children.size()];
+            for (int i = 0; i < disjuncts.length; i++) {
+                disjuncts[i] = convert(children.get(i), rowType);
+                if (disjuncts[i] == null) {
+                    return null;
+                }
+            }
+            return new OrFilter(disjuncts);
+        } else if (function == BuiltInFunctionDefinitions.IS_NULL
+                || function == BuiltInFunctionDefinitions.IS_NOT_NULL) {
+            if (children.size() != 1 || !(children.get(0) instanceof FieldReferenceExpression)) {
+                return null;
+            }
+            int column = indexOf((FieldReferenceExpression) children.get(0), rowType);
+            return column < 0
+                    ? null
+                    : new NullFilter(column, function == BuiltInFunctionDefinitions.IS_NULL);
+        }
+
+        Comparison comparison = Comparison.of(function);
+        if (comparison == null || children.size() != 2) {
+            return null;
+        }
+        if (children.get(0) instanceof FieldReferenceExpression
+                && children.get(1) instanceof ValueLiteralExpression) {
+            return convertComparison(
+                    comparison,
+                    (FieldReferenceExpression) children.get(0),
+                    (ValueLiteralExpression) children.get(1),
+                    rowType);
+        } else if (children.get(0) instanceof ValueLiteralExpression
+                && children.get(1) instanceof FieldReferenceExpression) {
+            return convertComparison(
+                    comparison.swap(),
+                    (FieldReferenceExpression) children.get(1),
+                    (ValueLiteralExpression) children.get(0),
+                    rowType);
+        }
+        return null;
+    }
+
+    @Nullable
+    private static VectorizedFilter convertComparison(
+            Comparison comparison,
+            FieldReferenceExpression field,
+            ValueLiteralExpression literal,
+            RowType rowType) {
+        int column = indexOf(field, rowType);
+        if (column < 0) {
+            return null;
+        }
+        LogicalTypeRoot typeRoot = rowType.getTypeAt(column).getTypeRoot();
+        Object value = literal.getValueAs(Object.class).orElse(null);
+        if (value == null) {
+            // comparisons with NULL are never true, leave them to the row-based evaluation
+            return null;
+        }
+
+        switch (typeRoot) {
+            case BOOLEAN:
+                if (value instanceof Boolean
+                        && (comparison == Comparison.EQUALS
+                                || comparison == Comparison.NOT_EQUALS)) {
+                    return new BooleanFilter(
+                            column, (Boolean) value ^ (comparison == Comparison.NOT_EQUALS));
+                }
+                return null;
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                Long longValue = toLong(value);
+                return longValue == null
+                        ? null
+                        : new LongFilter(column, typeRoot, comparison, longValue);
+            case DATE:
+                return literal.getValueAs(LocalDate.class)
+                        .map(
+                                date ->
+                                        (VectorizedFilter)
+                                                new LongFilter(
+                                                        column,
+                                                        typeRoot,
+                                                        comparison,
+                                                        date.toEpochDay()))
+                        .orElse(null);
+            case FLOAT:
+            case DOUBLE:
+                return value instanceof Number
+                        ? new DoubleFilter(
+                                column, typeRoot, comparison, ((Number) value).doubleValue())
+                        : null;
+            case VARCHAR:
+                return value instanceof String
+                        ? new BytesFilter(
+                                column,
+                                comparison,
+                                ((String) value).getBytes(StandardCharsets.UTF_8))
+                        : null;
+            default:
+                return null;
+        }
+    }
+
+    private static int indexOf(FieldReferenceExpression field, RowType rowType) {
+        return rowType.getFieldNames().indexOf(field.getName());
+    }
+
+    @Nullable
+    private static Long toLong(Object value) {
+        if (value instanceof Byte
+                || value instanceof Short
+                || value instanceof Integer
+                || value instanceof Long) {
+            return ((Number) value).longValue();
+        } else if (value instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) value).longValueExact();
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // ------------------------------------------------------------------------
+
+    private enum Comparison {
+        EQUALS,
+        NOT_EQUALS,
+        GREATER_THAN,
+        GREATER_THAN_OR_EQUAL,
+        LESS_THAN,
+        LESS_THAN_OR_EQUAL;
+
+        @Nullable
+        static Comparison of(FunctionDefinition function) {
+            if (function == BuiltInFunctionDefinitions.EQUALS) {
+                return EQUALS;
+            } else if (function == BuiltInFunctionDefinitions.NOT_EQUALS) {
+                return NOT_EQUALS;
+            } else if (function == BuiltInFunctionDefinitions.GREATER_THAN) {
+                return GREATER_THAN;
+            } else if (function == BuiltInFunctionDefinitions.GREATER_THAN_OR_EQUAL) {
+                return GREATER_THAN_OR_EQUAL;
+            } else if (function == BuiltInFunctionDefinitions.LESS_THAN) {
+                return LESS_THAN;
+            } else if (function == BuiltInFunctionDefinitions.LESS_THAN_OR_EQUAL) {
+                return LESS_THAN_OR_EQUAL;
+            }
+            return null;
+        }
+
+        /** Returns the comparison with swapped operands, e.g. {@code 5 < a} is {@code a > 5}. */
+        Comparison swap() {
+            switch (this) {
+                case GREATER_THAN:
+                    return LESS_THAN;
+                case GREATER_THAN_OR_EQUAL:
+                    return LESS_THAN_OR_EQUAL;
+                case LESS_THAN:
+                    return GREATER_THAN;
+                case LESS_THAN_OR_EQUAL:
+                    return GREATER_THAN_OR_EQUAL;
+                default:
+                    return this;
+            }
+        }
+
+        boolean test(long value, long literal) {
+            switch (this) {
+                case EQUALS:
+                    return value == literal;
+                case NOT_EQUALS:
+                    return value != literal;
+                case GREATER_THAN:
+                    return value > literal;
+                case GREATER_THAN_OR_EQUAL:
+                    return value >= literal;
+                case LESS_THAN:
+                    return value < literal;
+                default:
+                    return value <= literal;
+            }
+        }
+
+        boolean test(double value, double literal) {
+            switch (this) {
+                case EQUALS:
+                    return value == literal;
+                case NOT_EQUALS:
+                    return value != literal;
+                case GREATER_THAN:
+                    return value > literal;
+                case GREATER_THAN_OR_EQUAL:
+                    return value >= literal;
+                case LESS_THAN:
+                    return value < literal;
+                default:
+                    return value <= literal;
+            }
+        }
+
+        boolean test(int compareResult) {
+            return test(compareResult, 0L);
+        }
+    }
+
+    /** Selects the rows whose column is null, or not null. */
+    private static final class NullFilter implements VectorizedFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int column;
+        private final boolean isNull;
+
+        NullFilter(int column, boolean isNull) {
+            this.column = column;
+            this.isNull = isNull;
+        }
+
+        @Override
+        public int filter(VectorizedColumnBatch batch, int[] selected, int size) {
+            ColumnVector vector = batch.columns[column];
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                int row = selected[i];
+                if (vector.isNullAt(row) == isNull) {
+                    selected[newSize++] = row;
+                }
+            }
+            return newSize;
+        }
+    }
+
+    /** Selects the rows whose boolean column has the given value. */
+    private static final class BooleanFilter implements VectorizedFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int column;
+        private final boolean value;
+
+        BooleanFilter(int column, boolean value) {
+            this.column = column;
+            this.value = value;
+        }
+
+        @Override
+        public int filter(VectorizedColumnBatch batch, int[] selected, int size) {
+            BooleanColumnVector vector = (BooleanColumnVector) batch.columns[column];
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                int row = selected[i];
+                if (!vector.isNullAt(row) && vector.getBoolean(row) == value) {
+                    selected[newSize++] = row;
+                }
+            }
+            return newSize;
+        }
+    }
+
+    /** Compares an integral column with a literal. */
+    private static final class LongFilter implements VectorizedFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int column;
+        private final LogicalTypeRoot typeRoot;
+        private final Comparison comparison;
+        private final long literal;
+
+        LongFilter(int column, LogicalTypeRoot typeRoot, Comparison comparison, long literal) {
+            this.column = column;
+            this.typeRoot = typeRoot;
+            this.comparison = comparison;
+            this.literal = literal;
+        }
+
+        @Override
+        public int filter(VectorizedColumnBatch batch, int[] selected, int size) {
+            ColumnVector vector = batch.columns[column];
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                int row = selected[i];
+                if (!vector.isNullAt(row) && comparison.test(getLong(vector, row), literal)) {
+                    selected[newSize++] = row;
+                }
+            }
+            return newSize;
+        }
+
+        private long getLong(ColumnVector vector, int row) {
+            switch (typeRoot) {
+                case TINYINT:
+                    return ((ByteColumnVector) vector).getByte(row);
+                case SMALLINT:
+                    return ((ShortColumnVector) vector).getShort(row);
+                case BIGINT:
+                    return ((LongColumnVector) vector).getLong(row);
+                default:
+                    return ((IntColumnVector) vector).getInt(row);
+            }
+        }
+    }
+
+    /** Compares a floating point column with a literal. */
+    private static final class DoubleFilter implements VectorizedFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int column;
+        private final LogicalTypeRoot typeRoot;
+        private final Comparison comparison;
+        private final double literal;
+
+        DoubleFilter(int column, LogicalTypeRoot typeRoot, Comparison comparison, double literal) {
+            this.column = column;
+            this.typeRoot = typeRoot;
+            this.comparison = comparison;
+            this.literal = literal;
+        }
+
+        @Override
+        public int filter(VectorizedColumnBatch batch, int[] selected, int size) {
+            ColumnVector vector = batch.columns[column];
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                int row = selected[i];
+                if (!vector.isNullAt(row) && comparison.test(getDouble(vector, row), literal)) {
+                    selected[newSize++] = row;
+                }
+            }
+            return newSize;
+        }
+
+        private double getDouble(ColumnVector vector, int row) {
+            return typeRoot == LogicalTypeRoot.FLOAT
+                    ? ((FloatColumnVector) vector).getFloat(row)
+                    : ((DoubleColumnVector) vector).getDouble(row);
+        }
+    }
+
+    /** Compares a string column with a literal by their UTF-8 bytes. */
+    private static final class BytesFilter implements VectorizedFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int column;
+        private final Comparison comparison;
+        private final byte[] literal;
+
+        BytesFilter(int column, Comparison comparison, byte[] literal) {
+            this.column = column;
+            this.comparison = comparison;
+            this.literal = literal;
+        }
+
+        @Override
+        public int filter(VectorizedColumnBatch batch, int[] selected, int size) {
+            BytesColumnVector vector = (BytesColumnVector) batch.columns[column];
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                int row = selected[i];
+                if (!vector.isNullAt(row) && comparison.test(compare(vector.getBytes(row)))) {
+                    selected[newSize++] = row;
+                }
+            }
+            return newSize;
+        }
+
+        /** Compares like {@code BinaryStringData#compareTo}, i.e. by unsigned bytes. */
+        private int compare(BytesColumnVector.Bytes bytes) {
+            int len = Math.min(bytes.len, literal.length);
+            for (int i = 0; i < len; i++) {
+                int res = (bytes.data[bytes.offset + i] & 0xFF) - (literal[i] & 0xFF);
+                if (res != 0) {
+                    return res;
+                }
+            }
+            return bytes.len - literal.length;
+        }
+    }
+
+    /** Selects the rows selected by all filters. */
+    private static final class AndFilter implements VectorizedFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final VectorizedFilter[] filters;
+
+        AndFilter(VectorizedFilter[] filters) {
+            this.filters = filters;
+        }
+
+        @Override
+        public int filter(VectorizedColumnBatch batch, int[] selected, int size) {
+            for (int i = 0; i < filters.length && size > 0; i++) {
+                size = filters[i].filter(batch, selected, size);
+            }
+            return size;
+        }
+    }
+
+    /** Selects the rows selected by any filter. */
+    private static final class OrFilter implements VectorizedFilter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final VectorizedFilter[] filters;
+
+        private transient int[] candidates;
+
+        private transient boolean[] matched;
+
+        OrFilter(VectorizedFilter[] filters) {
+            this.filters = filters;
+        }
+
+        @Override
+        public int filter(VectorizedColumnBatch batch, int[] selected, int size) {
+            if (candidates == null || candidates.length < selected.length) {
+                candidates = new int[selected.length];
+            }
+            if (matched == null || matched.length < batch.getNumRows()) {
+                matched = new boolean[batch.getNumRows()];
+            }
+
+            for (VectorizedFilter filter : filters) {
+                System.arraycopy(selected, 0, candidates, 0, size);
+                int numMatched = filter.filter(batch, candidates, size);
+                for (int i = 0; i < numMatched; i++) {
+                    matched[candidates[i]] = true;
+                }
+            }
+
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                int row = selected[i];
+                if (matched[row]) {
+                    selected[newSize++] = row;
+                    matched[row] = false;
+                }
+            }
+            return newSize;
+        }
+    }
+}
@@ -0,0 +1,539 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.vector;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.table.data.ColumnarRowData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.vector.ByteColumnVector;
+import org.apache.flink.table.data.vector.ColumnVector;
+import org.apache.flink.table.data.vector.DoubleColumnVector;
+import org.apache.flink.table.data.vector.FloatColumnVector;
+import org.apache.flink.table.data.vector.IntColumnVector;
+import org.apache.flink.table.data.vector.LongColumnVector;
+import org.apache.flink.table.data.vector.ShortColumnVector;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.runtime.typeutils.InternalSerializers;
+import org.apache.flink.table.runtime.vector.VectorizedAggregation.Kind;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.RowType;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates the rows of {@link VectorizedColumnBatch}es into groups, see {@link
+ * VectorizedAggregation}.
+ *
+ * <p>The group of every selected row of a batch is looked up first. Each aggregate then runs over
+ * its whole column vector and updates the accumulators of the groups in a tight loop. Rows are only
+ * created for the aggregated groups.
+ *
+ * <p>The number of groups is bounded by the caller: once {@link #isFull()} returns true the
+ * aggregated rows should be emitted with {@link #emit()}, which also resets the aggregator. This is
+ * fine because the results are the accumulators of a local aggregate, which are merged by a
+ * subsequent global aggregate anyway.
+ */
+@Internal
+public final class VectorizedHashAggregator {
+
+    private final int[] grouping;
+    private final int[] columns;
+    private final int maxNumGroups;
+
+    private final RowData.FieldGetter[] keyGetters;
+    private final TypeSerializer<Object>[] keySerializers;
+    private final Accumulator[] accumulators;
+
+    private final ColumnarRowData row;
+    private final GenericRowData probe;
+
+    /** The ids of the groups, the keys are copied when they are inserted. */
+    private final Map<GenericRowData, Integer> groupIds;
+
+    private final List<GenericRowData> keys;
+
+    private int[] rows;
+    private int[] groupIdOfRows;
+
+    @SuppressWarnings("unchecked")
+    VectorizedHashAggregator(
+            RowType inputType,
+            RowType producedType,
+            int[] grouping,
+            Kind[] kinds,
+            int[] columns,
+            int maxNumGroups) {
+        this.grouping = grouping;
+        this.columns = columns;
+        this.maxNumGroups = maxNumGroups;
+
+        this.keyGetters = new RowData.FieldGetter[grouping.length];
+        this.keySerializers = new TypeSerializer[grouping.length];
+        for (int i = 0; i < grouping.length; i++) {
+            keyGetters[i] =
+                    RowData.createFieldGetter(inputType.getTypeAt(grouping[i]), grouping[i]);
+            keySerializers[i] = InternalSerializers.create(inputType.getTypeAt(grouping[i]));
+        }
+
+        this.accumulators = new Accumulator[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            LogicalTypeRoot resultRoot = producedType.getTypeAt(grouping.length + i).getTypeRoot();
+            LogicalTypeRoot argRoot =
+                    columns[i] < 0 ? null : inputType.getTypeAt(columns[i]).getTypeRoot();
+            accumulators[i] = createAccumulator(kinds[i], argRoot, resultRoot);
+        }
+
+        this.row = new ColumnarRowData();
+        this.probe = new GenericRowData(grouping.length);
+        this.groupIds = new HashMap<>();
+        this.keys = new ArrayList<>();
+        this.rows = new int[0];
+        this.groupIdOfRows = new int[0];
+    }
+
+    /**
+     * Accumulates the selected rows of the given batch.
+     *
+     * @param batch the batch to accumulate
+     * @param selected the ids of the selected rows, or {@code null} to select the first {@code
+     *     size} rows
+     * @param size the number of selected rows
+     */
+    public void accumulate(VectorizedColumnBatch batch, @Nullable int[] selected, int size) {
+        if (size == 0) {
+            return;
+        }
+        if (rows.length < size) {
+            rows = new int[size];
+            groupIdOfRows = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            rows[i] = selected == null ? i : selected[i];
+        }
+
+        if (grouping.length == 0) {
+            if (keys.isEmpty()) {
+                addGroup(probe);
+            }
+            Arrays.fill(groupIdOfRows, 0, size, 0);
+        } else {
+            row.setVectorizedColumnBatch(batch);
+            for (int i = 0; i < size; i++) {
+                row.setRowId(rows[i]);
+                for (int k = 0; k < keyGetters.length; k++) {
+                    probe.setField(k, keyGetters[k].getFieldOrNull(row));
+                }
+                Integer groupId = groupIds.get(probe);
+                groupIdOfRows[i] = groupId == null ? addGroup(probe) : groupId;
+            }
+        }
+
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i].accumulate(
+                    columns[i] < 0 ? null : batch.columns[columns[i]], rows, groupIdOfRows, size);
+        }
+    }
+
+    /** Returns whether the number of groups reached the limit given at creation. */
+    public boolean isFull() {
+        return keys.size() >= maxNumGroups;
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    /** Returns the aggregated rows of all groups and resets the aggregator. */
+    public List<RowData> emit() {
+        List<RowData> results = new ArrayList<>(keys.size());
+        for (int groupId = 0; groupId < keys.size(); groupId++) {
+            GenericRowData key = keys.get(groupId);
+            GenericRowData result = new GenericRowData(grouping.length + accumulators.length);
+            for (int k = 0; k < grouping.length; k++) {
+                result.setField(k, key.getField(k));
+            }
+            for (int i = 0; i < accumulators.length; i++) {
+                result.setField(grouping.length + i, accumulators[i].getValue(groupId));
+            }
+            results.add(result);
+        }
+
+        groupIds.clear();
+        keys.clear();
+        for (Accumulator accumulator : accumulators) {
+            accumulator.reset();
+        }
+        return results;
+    }
+
+    private int addGroup(GenericRowData key) {
+        GenericRowData copy = new GenericRowData(key.getArity());
+        for (int k = 0; k < key.getArity(); k++) {
+            Object field = key.getField(k);
+            copy.setField(k, field == null ? null : keySerializers[k].copy(field));
+        }
+        int groupId = keys.size();
+        groupIds.put(copy, groupId);
+        keys.add(copy);
+        for (Accumulator accumulator : accumulators) {
+            accumulator.ensureCapacity(groupId + 1);
+        }
+        return groupId;
+    }
+
+    private static Accumulator createAccumulator(
+            Kind kind, @Nullable LogicalTypeRoot argRoot, LogicalTypeRoot resultRoot) {
+        switch (kind) {
+            case COUNT:
+                return new CountAccumulator();
+            case SUM:
+            case SUM0:
+                return VectorizedAggregation.isIntegral(resultRoot)
+                        ? new LongSumAccumulator(argRoot, resultRoot, kind == Kind.SUM0)
+                        : new DoubleSumAccumulator(argRoot, resultRoot, kind == Kind.SUM0);
+            default:
+                return VectorizedAggregation.isFloatingPoint(resultRoot)
+                        ? new DoubleMinMaxAccumulator(argRoot, kind == Kind.MAX)
+                        : new LongMinMaxAccumulator(argRoot, kind == Kind.MAX);
+        }
+    }
+
+    private static long getLong(ColumnVector vector, LogicalTypeRoot root, int row) {
+        switch (root) {
+            case TINYINT:
+                return ((ByteColumnVector) vector).getByte(row);
+            case SMALLINT:
+                return ((ShortColumnVector) vector).getShort(row);
+            case BIGINT:
+                return ((LongColumnVector) vector).getLong(row);
+            default:
+                return ((IntColumnVector) vector).getInt(row);
+        }
+    }
+
+    private static double getDouble(ColumnVector vector, LogicalTypeRoot root, int row) {
+        switch (root) {
+            case FLOAT:
+                return ((FloatColumnVector) vector).getFloat(row);
+            case DOUBLE:
+                return ((DoubleColumnVector) vector).getDouble(row);
+            default:
+                return getLong(vector, root, row);
+        }
+    }
+
+    /** Converts an integral accumulator into the internal data structure of the given type. */
+    private static Object toInternal(long value, LogicalTypeRoot root) {
+        switch (root) {
+            case TINYINT:
+                return (byte) value;
+            case SMALLINT:
+                return (short) value;
+            case BIGINT:
+                return value;
+            default:
+                return (int) value;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** The accumulators of one aggregate for all groups. */
+    private abstract static class Accumulator {
+
+        /** Makes room for the accumulators of the given number of groups. */
+        abstract void ensureCapacity(int numGroups);
+
+        /**
+         * Accumulates the given rows of the vector into the groups of the rows.
+         *
+         * @param vector the aggregated column, or {@code null} for {@code COUNT(*)}
+         */
+        abstract void accumulate(
+                @Nullable ColumnVector vector, int[] rows, int[] groupIds, int size);
+
+        @Nullable
+        abstract Object getValue(int groupId);
+
+        abstract void reset();
+
+        static int grow(int length, int numGroups) {
+            return Math.max(numGroups, Math.max(16, length * 2));
+        }
+    }
+
+    /** Counts the non-null values, or all rows if there is no column. */
+    private static final class CountAccumulator extends Accumulator {
+
+        private long[] counts = new long[0];
+
+        @Override
+        void ensureCapacity(int numGroups) {
+            if (counts.length < numGroups) {
+                counts = Arrays.copyOf(counts, grow(counts.length, numGroups));
+            }
+        }
+
+        @Override
+        void accumulate(@Nullable ColumnVector vector, int[] rows, int[] groupIds, int size) {
+            if (vector == null) {
+                for (int i = 0; i < size; i++) {
+                    counts[groupIds[i]]++;
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (!vector.isNullAt(rows[i])) {
+                        counts[groupIds[i]]++;
+                    }
+                }
+            }
+        }
+
+        @Override
+        Object getValue(int groupId) {
+            return counts[groupId];
+        }
+
+        @Override
+        void reset() {
+            Arrays.fill(counts, 0L);
+        }
+    }
+
+    /**
+     * Sums up integral values. The sum wraps around like the sum of the local aggregate, because
+     * only the lower bits are kept when it is narrowed to the result type.
+     */
+    private static final class LongSumAccumulator extends Accumulator {
+
+        private final LogicalTypeRoot argRoot;
+        private final LogicalTypeRoot resultRoot;
+        private final boolean isSum0;
+
+        private long[] sums = new long[0];
+        private boolean[] hasValue = new boolean[0];
+
+        LongSumAccumulator(LogicalTypeRoot argRoot, LogicalTypeRoot resultRoot, boolean isSum0) {
+            this.argRoot = argRoot;
+            this.resultRoot = resultRoot;
+            this.isSum0 = isSum0;
+        }
+
+        @Override
+        void ensureCapacity(int numGroups) {
+            if (sums.length < numGroups) {
+                int length = grow(sums.length, numGroups);
+                sums = Arrays.copyOf(sums, length);
+                hasValue = Arrays.copyOf(hasValue, length);
+            }
+        }
+
+        @Override
+        void accumulate(@Nullable ColumnVector vector, int[] rows, int[] groupIds, int size) {
+            for (int i = 0; i < size; i++) {
+                int row = rows[i];
+                if (!vector.isNullAt(row)) {
+                    sums[groupIds[i]] += getLong(vector, argRoot, row);
+                    hasValue[groupIds[i]] = true;
+                }
+            }
+        }
+
+        @Nullable
+        @Override
+        Object getValue(int groupId) {
+            return hasValue[groupId] || isSum0 ? toInternal(sums[groupId], resultRoot) : null;
+        }
+
+        @Override
+        void reset() {
+            Arrays.fill(sums, 0L);
+            Arrays.fill(hasValue, false);
+        }
+    }
+
+    /** Sums up floating point values, in single precision if the result is a FLOAT. */
+    private static final class DoubleSumAccumulator extends Accumulator {
+
+        private final LogicalTypeRoot argRoot;
+        private final boolean isFloat;
+        private final boolean isSum0;
+
+        private double[] sums = new double[0];
+        private boolean[] hasValue = new boolean[0];
+
+        DoubleSumAccumulator(LogicalTypeRoot argRoot, LogicalTypeRoot resultRoot, boolean isSum0) {
+            this.argRoot = argRoot;
+            this.isFloat = resultRoot == LogicalTypeRoot.FLOAT;
+            this.isSum0 = isSum0;
+        }
+
+        @Override
+        void ensureCapacity(int numGroups) {
+            if (sums.length < numGroups) {
+                int length = grow(sums.length, numGroups);
+                sums = Arrays.copyOf(sums, length);
+                hasValue = Arrays.copyOf(hasValue, length);
+            }
+        }
+
+        @Override
+        void accumulate(@Nullable ColumnVector vector, int[] rows, int[] groupIds, int size) {
+            for (int i = 0; i < size; i++) {
+                int row = rows[i];
+                if (!vector.isNullAt(row)) {
+                    int groupId = groupIds[i];
+                    double sum = sums[groupId] + getDouble(vector, argRoot, row);
+                    sums[groupId] = isFloat ? (float) sum : sum;
+                    hasValue[groupId] = true;
+                }
+            }
+        }
+
+        @Nullable
+        @Override
+        Object getValue(int groupId) {
+            if (!hasValue[groupId] && !isSum0) {
+                return null;
+            }
+            return isFloat ? (Object) (float) sums[groupId] : (Object) sums[groupId];
+        }
+
+        @Override
+        void reset() {
+            Arrays.fill(sums, 0D);
+            Arrays.fill(hasValue, false);
+        }
+    }
+
+    /** Keeps the minimum or maximum of integral and DATE values. */
+    private static final class LongMinMaxAccumulator extends Accumulator {
+
+        private final LogicalTypeRoot argRoot;
+        private final boolean isMax;
+
+        private long[] values = new long[0];
+        private boolean[] hasValue = new boolean[0];
+
+        LongMinMaxAccumulator(LogicalTypeRoot argRoot, boolean isMax) {
+            this.argRoot = argRoot;
+            this.isMax = isMax;
+        }
+
+        @Override
+        void ensureCapacity(int numGroups) {
+            if (values.length < numGroups) {
+                int length = grow(values.length, numGroups);
+                values = Arrays.copyOf(values, length);
+                hasValue = Arrays.copyOf(hasValue, length);
+            }
+        }
+
+        @Override
+        void accumulate(@Nullable ColumnVector vector, int[] rows, int[] groupIds, int size) {
+            for (int i = 0; i < size; i++) {
+                int row = rows[i];
+                if (!vector.isNullAt(row)) {
+                    int groupId = groupIds[i];
+                    long value = getLong(vector, argRoot, row);
+                    if (!hasValue[groupId]
+                            || (isMax ? value > values[groupId] : value < values[groupId])) {
+                        values[groupId] = value;
+                        hasValue[groupId] = true;
+                    }
+                }
+            }
+        }
+
+        @Nullable
+        @Override
+        Object getValue(int groupId) {
+            return hasValue[groupId] ? toInternal(values[groupId], argRoot) : null;
+        }
+
+        @Override
+        void reset() {
+            Arrays.fill(hasValue, false);
+        }
+    }
+
+    /** Keeps the minimum or maximum of floating point values. */
+    private static final class DoubleMinMaxAccumulator extends Accumulator {
+
+        private final LogicalTypeRoot argRoot;
+        private final boolean isMax;
+
+        private double[] values = new double[0];
+        private boolean[] hasValue = new boolean[0];
+
+        DoubleMinMaxAccumulator(LogicalTypeRoot argRoot, boolean isMax) {
+            this.argRoot = argRoot;
+            this.isMax = isMax;
+        }
+
+        @Override
+        void ensureCapacity(int numGroups) {
+            if (values.length < numGroups) {
+                int length = grow(values.length, numGroups);
+                values = Arrays.copyOf(values, length);
+                hasValue = Arrays.copyOf(hasValue, length);
+            }
+        }
+
+        @Override
+        void accumulate(@Nullable ColumnVector vector, int[] rows, int[] groupIds, int size) {
+            for (int i = 0; i < size; i++) {
+                int row = rows[i];
+                if (!vector.isNullAt(row)) {
+                    int groupId = groupIds[i];
+                    double value = getDouble(vector, argRoot, row);
+                    if (!hasValue[groupId]
+                            || (isMax ? value > values[groupId] : value < values[groupId])) {
+                        values[groupId] = value;
+                        hasValue[groupId] = true;
+                    }
+                }
+            }
+        }
+
+        @Nullable
+        @Override
+        Object getValue(int groupId) {
+            if (!hasValue[groupId]) {
+                return null;
+            }
+            return argRoot == LogicalTypeRoot.FLOAT
+                    ? (Object) (float) values[groupId]
+                    : (Object) values[groupId];
+        }
+
+        @Override
+        void reset() {
+            Arrays.fill(hasValue, false);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.filesystem;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.connector.file.src.FileSourceSplit;
+import org.apache.flink.connector.file.src.reader.BulkFormat;
+import org.apache.flink.connector.file.src.util.RecordAndPosition;
+import org.apache.flink.connector.file.src.util.Utils;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.vector.ColumnVector;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.data.vector.heap.HeapIntVector;
+import org.apache.flink.table.expressions.AggregateExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.vector.VectorizedAggregation;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/** Tests for {@link AggregatingBulkFormat}. */
+public class AggregatingBulkFormatTest {
+
+    private static final RowType INPUT_TYPE =
+            RowType.of(
+                    new LogicalType[] {new IntType(), new IntType()},
+                    new String[] {"key", "amount"});
+
+    private static final RowType PRODUCED_TYPE =
+            RowType.of(new IntType(), new IntType(), new BigIntType(false));
+
+    private static final int NUM_BATCHES = 3;
+    private static final int BATCH_SIZE = 4;
+
+    private static final FileSourceSplit SPLIT =
+            new FileSourceSplit("id", new Path("/tmp/test"), 0, 0);
+
+    @Test
+    public void testAggregateBatches() throws IOException {
+        AtomicInteger numReleased = new AtomicInteger();
+        BulkFormat<RowData, FileSourceSplit> format =
+                AggregatingBulkFormat.create(new BatchFormat(numReleased), createAggregation());
+
+        List<RowData> results = new ArrayList<>();
+        Utils.forEachRemaining(format.createReader(new Configuration(), SPLIT), results::add);
+
+        // the amounts 0 to 11 are grouped by amount % 3
+        assertEquals(
+                Arrays.asList(
+                        GenericRowData.of(0, 18, 4L),
+                        GenericRowData.of(1, 22, 4L),
+                        GenericRowData.of(2, 26, 4L)),
+                results);
+        assertEquals(NUM_BATCHES, numReleased.get());
+        assertEquals(InternalTypeInfo.of(PRODUCED_TYPE), format.getProducedType());
+    }
+
+    @Test
+    public void testEmitWhenFull() throws IOException {
+        BulkFormat<RowData, FileSourceSplit> format =
+                new AggregatingBulkFormat<>(
+                        new BatchFormat(new AtomicInteger()), createAggregation(), 2);
+        BulkFormat.Reader<RowData> reader = format.createReader(new Configuration(), SPLIT);
+
+        // every batch contains three groups, so every batch is returned on its own
+        int numBatches = 0;
+        Map<Integer, Integer> sums = new TreeMap<>();
+        BulkFormat.RecordIterator<RowData> batch;
+        while ((batch = reader.readBatch()) != null) {
+            numBatches++;
+            RecordAndPosition<RowData> record;
+            while ((record = batch.next()) != null) {
+                RowData row = record.getRecord();
+                sums.merge(row.getInt(0), row.getInt(1), Integer::sum);
+            }
+            batch.releaseBatch();
+        }
+        reader.close();
+
+        assertEquals(NUM_BATCHES, numBatches);
+        Map<Integer, Integer> expected = new TreeMap<>();
+        expected.put(0, 18);
+        expected.put(1, 22);
+        expected.put(2, 26);
+        assertEquals(expected, sums);
+    }
+
+    @Test
+    public void testWithoutAggregation() {
+        BulkFormat<RowData, FileSourceSplit> format = new BatchFormat(new AtomicInteger());
+        assertSame(format, AggregatingBulkFormat.create(format, null));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRestoreReader() throws IOException {
+        AggregatingBulkFormat.create(new BatchFormat(new AtomicInteger()), createAggregation())
+                .restoreReader(new Configuration(), SPLIT);
+    }
+
+    private static VectorizedAggregation createAggregation() {
+        VectorizedAggregation aggregation =
+                VectorizedAggregation.create(
+                        Collections.singletonList(new int[] {0}),
+                        Arrays.asList(
+                                new AggregateExpression(
+                                        BuiltInFunctionDefinitions.SUM,
+                                        Collections.singletonList(
+                                                new FieldReferenceExpression(
+                                                        "amount", DataTypes.INT(), 0, 1)),
+                                        null,
+                                        DataTypes.INT(),
+                                        false,
+                                        false,
+                                        false),
+                                new AggregateExpression(
+                                        BuiltInFunctionDefinitions.COUNT,
+                                        Collections.emptyList(),
+                                        null,
+                                        DataTypes.BIGINT().notNull(),
+                                        false,
+                                        false,
+                                        false)),
+                        INPUT_TYPE,
+                        PRODUCED_TYPE);
+        assertNotNull(aggregation);
+        return aggregation;
+    }
+
+    /**
+     * A {@link BulkFormat} returning {@link #NUM_BATCHES} column batches with the amounts 0 to 11
+     * keyed by amount % 3.
+     */
+    private static class BatchFormat implements BulkFormat<RowData, FileSourceSplit> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicInteger numReleased;
+
+        private BatchFormat(AtomicInteger numReleased) {
+            this.numReleased = numReleased;
+        }
+
+        @Override
+        public Reader<RowData> createReader(Configuration config, FileSourceSplit split) {
+            return new Reader<RowData>() {
+
+                private int numBatches;
+
+                @Override
+                public RecordIterator<RowData> readBatch() {
+                    if (numBatches == NUM_BATCHES) {
+                        return null;
+                    }
+                    HeapIntVector keys = new HeapIntVector(BATCH_SIZE);
+                    HeapIntVector amounts = new HeapIntVector(BATCH_SIZE);
+                    for (int i = 0; i < BATCH_SIZE; i++) {
+                        int amount = numBatches * BATCH_SIZE + i;
+                        keys.setInt(i, amount % 3);
+                        amounts.setInt(i, amount);
+                    }
+                    VectorizedColumnBatch batch =
+                            new VectorizedColumnBatch(new ColumnVector[] {keys, amounts});
+                    batch.setNumRows(BATCH_SIZE);
+                    ColumnarRowIterator iterator =
+                            new ColumnarRowIterator(batch, null, numReleased::incrementAndGet);
+                    iterator.set(BATCH_SIZE, numBatches * BATCH_SIZE);
+                    numBatches++;
+                    return iterator;
+                }
+
+                @Override
+                public void close() {}
+            };
+        }
+
+        @Override
+        public Reader<RowData> restoreReader(Configuration config, FileSourceSplit split) {
+            return createReader(config, split);
+        }
+
+        @Override
+        public boolean isSplittable() {
+            return false;
+        }
+
+        @Override
+        public TypeInformation<RowData> getProducedType() {
+            return InternalTypeInfo.of(INPUT_TYPE);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.filesystem;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.VarCharType;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link SharedLookupCache} and {@link BinaryLookupTable}. */
+public class SharedLookupCacheTest {
+
+    private final RowDataSerializer keySerializer = new RowDataSerializer(new IntType());
+    private final RowDataSerializer rowSerializer =
+            new RowDataSerializer(new IntType(), new VarCharType(VarCharType.MAX_LENGTH));
+
+    @Test
+    public void testLookup() {
+        testLookup(false);
+    }
+
+    @Test
+    public void testLookupOffHeap() {
+        testLookup(true);
+    }
+
+    private void testLookup(boolean offHeap) {
+        // small segments so that rows are spread over many segments
+        BinaryLookupTable.Builder builder = new BinaryLookupTable.Builder(offHeap, 64);
+        for (int i = 0; i < 1000; i++) {
+            add(builder, i % 100, "value-" + i);
+        }
+        BinaryLookupTable table = builder.build();
+
+        assertEquals(1000, table.getNumEntries());
+        assertEquals(100, table.getNumKeys());
+        for (int key = 0; key < 100; key++) {
+            List<BinaryRowData> rows = lookup(table, key);
+            assertEquals(10, rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(key, rows.get(i).getInt(0));
+                // rows of the same key keep their insertion order
+                assertEquals("value-" + (key + i * 100), rows.get(i).getString(1).toString());
+            }
+        }
+        assertTrue(lookup(table, 100).isEmpty());
+        assertTrue(lookup(BinaryLookupTable.EMPTY, 0).isEmpty());
+    }
+
+    @Test
+    public void testSharedBetweenSubtasks() throws Exception {
+        String cacheId = "testSharedBetweenSubtasks";
+        AtomicInteger numLoaders = new AtomicInteger();
+        TestLoader loader = new TestLoader();
+
+        SharedLookupCache cache1 =
+                SharedLookupCache.acquire(
+                        cacheId,
+                        Duration.ofHours(1),
+                        () -> {
+                            numLoaders.incrementAndGet();
+                            return loader;
+                        });
+        SharedLookupCache cache2 =
+                SharedLookupCache.acquire(
+                        cacheId,
+                        Duration.ofHours(1),
+                        () -> {
+                            numLoaders.incrementAndGet();
+                            return new TestLoader();
+                        });
+
+        assertSame(cache1, cache2);
+        assertEquals(1, numLoaders.get());
+        assertEquals(1, lookup(cache1.getTable(), 1).size());
+        assertSame(cache1.getTable(), cache2.getTable());
+        assertEquals(1, loader.numLoads.get());
+
+        cache1.release();
+        assertEquals(1, SharedLookupCache.getNumRegisteredCaches());
+        assertFalse(loader.closed.get());
+        cache2.release();
+        assertEquals(0, SharedLookupCache.getNumRegisteredCaches());
+        waitUntil(loader.closed);
+    }
+
+    @Test
+    public void testReloadKeepsSnapshotOnFailure() throws Exception {
+        TestLoader loader = new TestLoader();
+        SharedLookupCache cache =
+                SharedLookupCache.acquire(
+                        "testReloadKeepsSnapshotOnFailure", Duration.ofMillis(10), () -> loader);
+        try {
+            cache.getTable();
+            loader.failing.set(true);
+            waitForLoadFailures(cache, 1);
+            // reloads are sequential, so from now on every reload fails
+            BinaryLookupTable initial = cache.getTable();
+            waitForLoadFailures(cache, cache.getNumLoadFailures() + 1);
+            // a failed reload keeps serving the previous snapshot
+            assertSame(initial, cache.getTable());
+
+            loader.failing.set(false);
+            while (cache.getCurrentTable() == initial) {
+                Thread.sleep(10);
+            }
+            assertNotSame(initial, cache.getTable());
+            assertEquals(1, lookup(cache.getTable(), 1).size());
+            assertTrue(cache.getLoadCount() > 1);
+        } finally {
+            cache.release();
+        }
+    }
+
+    @Test
+    public void testInitialLoadFailure() throws Exception {
+        TestLoader loader = new TestLoader();
+        loader.openFailure = new RuntimeException("expected");
+        SharedLookupCache cache =
+                SharedLookupCache.acquire(
+                        "testInitialLoadFailure", Duration.ofHours(1), () -> loader);
+        try {
+            cache.getTable();
+            fail("Expected exception");
+        } catch (FlinkRuntimeException e) {
+            assertSame(loader.openFailure, e.getCause());
+        } finally {
+            cache.release();
+        }
+    }
+
+    @Test
+    public void testAcquireAfterInitialLoadFailure() throws Exception {
+        String cacheId = "testAcquireAfterInitialLoadFailure";
+        TestLoader failingLoader = new TestLoader();
+        failingLoader.openFailure = new RuntimeException("expected");
+        SharedLookupCache failedCache =
+                SharedLookupCache.acquire(cacheId, Duration.ofHours(1), () -> failingLoader);
+        try {
+            failedCache.getTable();
+            fail("Expected exception");
+        } catch (FlinkRuntimeException e) {
+            assertSame(failingLoader.openFailure, e.getCause());
+        }
+
+        // a restarted subtask acquires the cache before the failed one has released it
+        TestLoader loader = new TestLoader();
+        SharedLookupCache cache =
+                SharedLookupCache.acquire(cacheId, Duration.ofHours(1), () -> loader);
+        try {
+            assertNotSame(failedCache, cache);
+            assertEquals(1, lookup(cache.getTable(), 1).size());
+
+            // releasing the failed cache does not unregister its replacement
+            failedCache.release();
+            waitUntil(failingLoader.closed);
+            assertEquals(1, SharedLookupCache.getNumRegisteredCaches());
+            assertEquals(1, lookup(cache.getTable(), 1).size());
+        } finally {
+            cache.release();
+        }
+        assertEquals(0, SharedLookupCache.getNumRegisteredCaches());
+    }
+
+    private void add(BinaryLookupTable.Builder builder, int key, String value) {
+        builder.add(
+                keySerializer.toBinaryRow(GenericRowData.of(key)),
+                rowSerializer.toBinaryRow(GenericRowData.of(key, StringData.fromString(value))));
+    }
+
+    private List<BinaryRowData> lookup(BinaryLookupTable table, int key) {
+        return table.lookup(keySerializer.toBinaryRow(GenericRowData.of(key)));
+    }
+
+    private static void waitForLoadFailures(SharedLookupCache cache, long numFailures)
+            throws InterruptedException {
+        while (cache.getNumLoadFailures() < numFailures) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void waitUntil(AtomicBoolean condition) throws InterruptedException {
+        while (!condition.get()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class TestLoader implements SharedLookupCache.Loader {
+
+        private final AtomicInteger numLoads = new AtomicInteger();
+        private final AtomicBoolean failing = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile RuntimeException openFailure;
+
+        @Override
+        public void open() {
+            if (openFailure != null) {
+                throw openFailure;
+            }
+        }
+
+        @Override
+        public BinaryLookupTable load() {
+            if (failing.get()) {
+                throw new RuntimeException("expected");
+            }
+            numLoads.incrementAndGet();
+            // the serializers are not thread-safe, use fresh ones on the loading thread
+            RowDataSerializer keys = new RowDataSerializer(new IntType());
+            RowDataSerializer rows =
+                    new RowDataSerializer(new IntType(), new VarCharType(VarCharType.MAX_LENGTH));
+            BinaryLookupTable.Builder builder = new BinaryLookupTable.Builder(false);
+            builder.add(
+                    keys.toBinaryRow(GenericRowData.of(1)),
+                    rows.toBinaryRow(GenericRowData.of(1, StringData.fromString("one"))));
+            return builder.build();
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.aggregate.window.buffers;
+
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.memory.MemoryManagerBuilder;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.data.writer.BinaryRowWriter;
+import org.apache.flink.table.runtime.operators.aggregate.window.combines.WindowCombineFunction;
+import org.apache.flink.table.runtime.util.WindowKey;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link RecordsWindowBuffer}. */
+public class RecordsWindowBufferTest {
+
+    private static final LogicalType[] KEY_TYPES =
+            new LogicalType[] {new VarCharType(VarCharType.MAX_LENGTH)};
+
+    private static final RowType INPUT_TYPE =
+            RowType.of(new VarCharType(VarCharType.MAX_LENGTH), new IntType());
+
+    private static final int PAGE_SIZE = 32 * 1024;
+
+    /** The bucket area takes 1 MB, leaves two pages for the records. */
+    private static final long MEMORY_SIZE = 1024 * 1024 + 2 * PAGE_SIZE;
+
+    private static final int NUM_KEYS = 10;
+    private static final int NUM_RECORDS = 10000;
+
+    private MemoryManager memoryManager;
+    private IOManager ioManager;
+
+    @Before
+    public void before() {
+        this.memoryManager =
+                MemoryManagerBuilder.newBuilder()
+                        .setMemorySize(MEMORY_SIZE)
+                        .setPageSize(PAGE_SIZE)
+                        .build();
+        this.ioManager = new IOManagerAsync();
+    }
+
+    @After
+    public void after() throws Exception {
+        ioManager.close();
+        memoryManager.shutdown();
+    }
+
+    @Test
+    public void testFlushFullBufferIntoState() throws Exception {
+        TestCombineFunction combineFunction = new TestCombineFunction();
+        WindowBuffer buffer = createBuffer(false, combineFunction);
+        addRecords(buffer);
+        buffer.flush();
+        buffer.close();
+
+        // the buffer has been flushed into state whenever it was full
+        assertTrue(combineFunction.numCombines > 2 * NUM_KEYS);
+        assertRecords(combineFunction);
+    }
+
+    @Test
+    public void testSpillFullBufferToDisk() throws Exception {
+        TestCombineFunction combineFunction = new TestCombineFunction();
+        WindowBuffer buffer = createBuffer(true, combineFunction);
+        addRecords(buffer);
+        // nothing is combined into state before the buffer is flushed
+        assertEquals(0, combineFunction.numCombines);
+
+        buffer.flush();
+        // every window-key pair is combined into state only once
+        assertEquals(2 * NUM_KEYS, combineFunction.numCombines);
+        assertRecords(combineFunction);
+
+        // the buffer can be reused after flushing
+        combineFunction.records.clear();
+        combineFunction.numCombines = 0;
+        addRecords(buffer);
+        buffer.flush();
+        buffer.close();
+        assertEquals(2 * NUM_KEYS, combineFunction.numCombines);
+        assertRecords(combineFunction);
+    }
+
+    @Test
+    public void testMergeSpilledRunsInMultiplePasses() throws Exception {
+        TestCombineFunction combineFunction = new TestCombineFunction();
+        // opens at most 3 spilled runs at once, so that the runs are merged in multiple passes
+        WindowBuffer buffer =
+                new RecordsWindowBuffer.Factory(KEY_TYPES, INPUT_TYPE, true, 3)
+                        .create(this, memoryManager, MEMORY_SIZE, ioManager, combineFunction);
+        addRecords(buffer);
+        buffer.flush();
+
+        // every window-key pair is still combined into state only once and in order
+        assertEquals(2 * NUM_KEYS, combineFunction.numCombines);
+        assertRecords(combineFunction);
+
+        // the spilled runs of all passes have been deleted
+        for (File spillingDir : ioManager.getSpillingDirectories()) {
+            assertArrayEquals(new File[0], spillingDir.listFiles());
+        }
+        buffer.close();
+    }
+
+    @Test
+    public void testCombineFunctionSkipsSpilledRecords() throws Exception {
+        // only takes the first record of every window-key pair
+        Map<String, Integer> firstRecords = new HashMap<>();
+        WindowCombineFunction combineFunction =
+                new WindowCombineFunction() {
+                    @Override
+                    public void combine(WindowKey windowKey, Iterator<RowData> value) {
+                        String key = windowKey.getWindow() + "#" + windowKey.getKey().getString(0);
+                        assertTrue(value.hasNext());
+                        firstRecords.put(key, value.next().getInt(1));
+                    }
+
+                    @Override
+                    public void close() {}
+                };
+
+        WindowBuffer buffer = createBuffer(true, combineFunction);
+        addRecords(buffer);
+        buffer.flush();
+        buffer.close();
+
+        // the remaining records are skipped without affecting the other window-key pairs
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < NUM_RECORDS; i++) {
+            String key = (i % 3 == 0 ? 1000L : 2000L) + "#key" + (i % NUM_KEYS);
+            expected.putIfAbsent(key, i);
+        }
+        assertEquals(expected, firstRecords);
+    }
+
+    private WindowBuffer createBuffer(boolean spillEnabled, WindowCombineFunction combineFunction) {
+        return new RecordsWindowBuffer.Factory(KEY_TYPES, INPUT_TYPE, spillEnabled)
+                .create(this, memoryManager, MEMORY_SIZE, ioManager, combineFunction);
+    }
+
+    private static void addRecords(WindowBuffer buffer) throws Exception {
+        for (int i = 0; i < NUM_RECORDS; i++) {
+            String key = "key" + (i % NUM_KEYS);
+            long window = i % 3 == 0 ? 1000L : 2000L;
+            RowData element = GenericRowData.of(StringData.fromString(key), i);
+            buffer.addElement(binaryKey(key), window, element);
+        }
+    }
+
+    /** Checks that all records are combined in the order they were added. */
+    private static void assertRecords(TestCombineFunction combineFunction) {
+        assertEquals(2 * NUM_KEYS, combineFunction.records.size());
+        int numRecords = 0;
+        for (List<Integer> values : combineFunction.records.values()) {
+            for (int i = 1; i < values.size(); i++) {
+                assertTrue(values.get(i - 1) < values.get(i));
+            }
+            numRecords += values.size();
+        }
+        assertEquals(NUM_RECORDS, numRecords);
+    }
+
+    private static BinaryRowData binaryKey(String key) {
+        BinaryRowData row = new BinaryRowData(1);
+        BinaryRowWriter writer = new BinaryRowWriter(row);
+        writer.writeString(0, StringData.fromString(key));
+        writer.complete();
+        return row;
+    }
+
+    /** Collects the combined records per window-key pair. */
+    private static class TestCombineFunction implements WindowCombineFunction {
+
+        private final Map<String, List<Integer>> records = new HashMap<>();
+        private int numCombines;
+
+        @Override
+        public void combine(WindowKey windowKey, Iterator<RowData> value) {
+            numCombines++;
+            String key = windowKey.getWindow() + "#" + windowKey.getKey().getString(0);
+            List<Integer> values = records.computeIfAbsent(key, k -> new ArrayList<>());
+            while (value.hasNext()) {
+                values.add(value.next().getInt(1));
+            }
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.bundle;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
+import org.apache.flink.runtime.query.KvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.hashmap.HashMapStateBackend;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/** Tests for {@link BundledValueState}. */
+public class BundledValueStateTest {
+
+    private AbstractKeyedStateBackend<String> backend;
+
+    private ValueState<Integer> state;
+
+    private BundledValueState<String, Integer> bundledState;
+
+    @Before
+    public void setup() throws Exception {
+        JobID jobId = new JobID();
+        backend =
+                new HashMapStateBackend()
+                        .createKeyedStateBackend(
+                                new DummyEnvironment(),
+                                jobId,
+                                "test",
+                                StringSerializer.INSTANCE,
+                                1,
+                                new KeyGroupRange(0, 0),
+                                new KvStateRegistry().createTaskRegistry(jobId, new JobVertexID()),
+                                TtlTimeProvider.DEFAULT,
+                                new UnregisteredMetricsGroup(),
+                                Collections.emptyList(),
+                                new CloseableRegistry());
+        state =
+                backend.getPartitionedState(
+                        VoidNamespace.INSTANCE,
+                        VoidNamespaceSerializer.INSTANCE,
+                        new ValueStateDescriptor<>("state", IntSerializer.INSTANCE));
+        bundledState = new BundledValueState<>(state);
+    }
+
+    @After
+    public void teardown() {
+        backend.dispose();
+    }
+
+    @Test
+    public void testReadPrefetchedValues() throws Exception {
+        putValue("a", 1);
+        putValue("b", 2);
+
+        bundledState.prefetch(Arrays.asList("a", "b", "c"));
+        bundledState.setCurrentKey("a");
+        assertEquals(Integer.valueOf(1), bundledState.value());
+        bundledState.setCurrentKey("b");
+        assertEquals(Integer.valueOf(2), bundledState.value());
+        bundledState.setCurrentKey("c");
+        assertNull(bundledState.value());
+    }
+
+    @Test
+    public void testChangesAreWrittenOnFlush() throws Exception {
+        putValue("a", 1);
+        putValue("b", 2);
+
+        bundledState.prefetch(Arrays.asList("a", "b", "c"));
+        bundledState.setCurrentKey("a");
+        bundledState.update(10);
+        bundledState.setCurrentKey("b");
+        bundledState.clear();
+        bundledState.setCurrentKey("c");
+        bundledState.update(30);
+
+        // the changes are visible in the bundle, but not written yet
+        bundledState.setCurrentKey("a");
+        assertEquals(Integer.valueOf(10), bundledState.value());
+        bundledState.setCurrentKey("b");
+        assertNull(bundledState.value());
+        assertEquals(Integer.valueOf(1), getValue("a"));
+        assertEquals(Integer.valueOf(2), getValue("b"));
+        assertNull(getValue("c"));
+
+        bundledState.flush();
+        assertEquals(Integer.valueOf(10), getValue("a"));
+        assertNull(getValue("b"));
+        assertEquals(Integer.valueOf(30), getValue("c"));
+    }
+
+    @Test
+    public void testNextBundleReadsFlushedValues() throws Exception {
+        bundledState.prefetch(Collections.singletonList("a"));
+        bundledState.setCurrentKey("a");
+        bundledState.update(1);
+        bundledState.flush();
+
+        bundledState.prefetch(Collections.singletonList("a"));
+        bundledState.setCurrentKey("a");
+        assertEquals(Integer.valueOf(1), bundledState.value());
+        bundledState.update(2);
+        bundledState.flush();
+
+        assertEquals(Integer.valueOf(2), getValue("a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectStateWithoutBatchedAccess() {
+        new BundledValueState<String, Integer>(
+                new ValueState<Integer>() {
+                    @Override
+                    public Integer value() {
+                        return null;
+                    }
+
+                    @Override
+                    public void update(Integer value) {}
+
+                    @Override
+                    public void clear() {}
+                });
+    }
+
+    private void putValue(String key, int value) throws Exception {
+        backend.setCurrentKey(key);
+        state.update(value);
+    }
+
+    private Integer getValue(String key) throws Exception {
+        backend.setCurrentKey(key);
+        return state.value();
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.flink.streaming.api.functions.ProcessFunction;
 import org.apache.flink.streaming.api.operators.ProcessOperator;
 import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
 import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.api.config.ExecutionConfigOptions.LookupCacheStrategy;
 import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.binary.BinaryStringData;
@@ -31,24 +32,31 @@ import org.apache.flink.table.data.utils.JoinedRowData;
 import org.apache.flink.table.runtime.collector.TableFunctionCollector;
 import org.apache.flink.table.runtime.generated.GeneratedCollectorWrapper;
 import org.apache.flink.table.runtime.generated.GeneratedFunctionWrapper;
+import org.apache.flink.table.runtime.operators.join.lookup.LookupCacheConfig;
 import org.apache.flink.table.runtime.operators.join.lookup.LookupJoinRunner;
 import org.apache.flink.table.runtime.operators.join.lookup.LookupJoinWithCalcRunner;
 import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
 import org.apache.flink.table.runtime.util.RowDataHarnessAssertor;
+import org.apache.flink.table.types.logical.IntType;
 import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.VarCharType;
 import org.apache.flink.util.Collector;
 
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.flink.table.data.StringData.fromString;
 import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
+import static org.junit.Assert.assertEquals;
 
 /** Harness tests for {@link LookupJoinRunner} and {@link LookupJoinWithCalcRunner}. */
 public class LookupJoinHarnessTest {
@@ -160,28 +168,75 @@ public class LookupJoinHarnessTest {
         testHarness.close();
     }
 
+    @Test
+    public void testTemporalLeftJoinWithCache() throws Exception {
+        LookupCacheConfig cacheConfig =
+                new LookupCacheConfig(
+                        LookupCacheStrategy.LRU,
+                        100,
+                        Duration.ZERO,
+                        true,
+                        false,
+                        new int[] {0},
+                        new LogicalType[] {new IntType()},
+                        RowType.of(new IntType(), new VarCharType(VarCharType.MAX_LENGTH)));
+        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness =
+                createHarness(JoinType.LEFT_JOIN, FilterOnTable.WITH_FILTER, cacheConfig);
+
+        CountingFetcherFunction.NUM_LOOKUPS.set(0);
+        testHarness.open();
+
+        testHarness.processElement(insertRecord(1, "a"));
+        testHarness.processElement(insertRecord(2, "b"));
+        testHarness.processElement(insertRecord(3, "c"));
+        testHarness.processElement(insertRecord(1, "d"));
+        testHarness.processElement(insertRecord(2, "e"));
+        testHarness.processElement(insertRecord(3, "f"));
+
+        List<Object> expectedOutput = new ArrayList<>();
+        expectedOutput.add(insertRecord(1, "a", 1, "Julian"));
+        expectedOutput.add(insertRecord(2, "b", null, null));
+        expectedOutput.add(insertRecord(3, "c", 3, "Jackson"));
+        expectedOutput.add(insertRecord(1, "d", 1, "Julian"));
+        expectedOutput.add(insertRecord(2, "e", null, null));
+        expectedOutput.add(insertRecord(3, "f", 3, "Jackson"));
+
+        assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+        // repeated keys, including the missing one, are served by the cache
+        assertEquals(3, CountingFetcherFunction.NUM_LOOKUPS.get());
+        testHarness.close();
+    }
+
     // ---------------------------------------------------------------------------------
 
-    @SuppressWarnings("unchecked")
     private OneInputStreamOperatorTestHarness<RowData, RowData> createHarness(
             JoinType joinType, FilterOnTable filterOnTable) throws Exception {
+        return createHarness(joinType, filterOnTable, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private OneInputStreamOperatorTestHarness<RowData, RowData> createHarness(
+            JoinType joinType, FilterOnTable filterOnTable, LookupCacheConfig cacheConfig)
+            throws Exception {
         boolean isLeftJoin = joinType == JoinType.LEFT_JOIN;
         ProcessFunction<RowData, RowData> joinRunner;
         if (filterOnTable == FilterOnTable.WITHOUT_FILTER) {
             joinRunner =
                     new LookupJoinRunner(
-                            new GeneratedFunctionWrapper<>(new TestingFetcherFunction()),
+                            new GeneratedFunctionWrapper<>(new CountingFetcherFunction()),
                             new GeneratedCollectorWrapper<>(new TestingFetcherCollector()),
                             isLeftJoin,
-                            2);
+                            2,
+                            cacheConfig);
         } else {
             joinRunner =
                     new LookupJoinWithCalcRunner(
-                            new GeneratedFunctionWrapper<>(new TestingFetcherFunction()),
+                            new GeneratedFunctionWrapper<>(new CountingFetcherFunction()),
                             new GeneratedFunctionWrapper<>(new CalculateOnTemporalTable()),
                             new GeneratedCollectorWrapper<>(new TestingFetcherCollector()),
                             isLeftJoin,
-                            2);
+                            2,
+                            cacheConfig);
         }
 
         ProcessOperator<RowData, RowData> operator = new ProcessOperator<>(joinRunner);
@@ -234,6 +289,22 @@ public class LookupJoinHarnessTest {
         }
     }
 
+    /** The {@link CountingFetcherFunction} counts the lookups of {@link TestingFetcherFunction}. */
+    public static final class CountingFetcherFunction implements FlatMapFunction<RowData, RowData> {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final AtomicInteger NUM_LOOKUPS = new AtomicInteger();
+
+        private final TestingFetcherFunction delegate = new TestingFetcherFunction();
+
+        @Override
+        public void flatMap(RowData value, Collector<RowData> out) throws Exception {
+            NUM_LOOKUPS.incrementAndGet();
+            delegate.flatMap(value, out);
+        }
+    }
+
     /**
      * The {@link TestingFetcherCollector} is a simple implementation of {@link
      * TableFunctionCollector} which combines left and right into a JoinedRowData.
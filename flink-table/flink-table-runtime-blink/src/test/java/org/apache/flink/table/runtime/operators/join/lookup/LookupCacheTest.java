@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.lookup;
+
+import org.apache.flink.table.api.config.ExecutionConfigOptions.LookupCacheStrategy;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.VarCharType;
+import org.apache.flink.util.clock.ManualClock;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.flink.table.data.StringData.fromString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link LookupCache}. */
+public class LookupCacheTest {
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void testLruEviction() {
+        LookupCache cache = createCache(LookupCacheStrategy.LRU, Duration.ZERO, true, false);
+        put(cache, 1, "a");
+        put(cache, 2, "b");
+        put(cache, 3, "c");
+        // 1 becomes the most recently used key
+        assertNotNull(get(cache, 1));
+        put(cache, 4, "d");
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(get(cache, 2));
+        assertNotNull(get(cache, 1));
+        assertNotNull(get(cache, 3));
+        assertNotNull(get(cache, 4));
+    }
+
+    @Test
+    public void testLfuEviction() {
+        LookupCache cache = createCache(LookupCacheStrategy.LFU, Duration.ZERO, true, false);
+        put(cache, 1, "a");
+        put(cache, 2, "b");
+        put(cache, 3, "c");
+        get(cache, 1);
+        get(cache, 1);
+        get(cache, 2);
+        get(cache, 3);
+        // 2 and 3 are used equally often, 2 has been added earlier
+        put(cache, 4, "d");
+        assertNull(get(cache, 2));
+        // 4 is used less often than all others
+        put(cache, 5, "e");
+        assertNull(get(cache, 4));
+
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.getEvictionCount());
+        assertNotNull(get(cache, 1));
+        assertNotNull(get(cache, 3));
+        assertNotNull(get(cache, 5));
+    }
+
+    @Test
+    public void testTtl() {
+        for (LookupCacheStrategy strategy :
+                new LookupCacheStrategy[] {LookupCacheStrategy.LRU, LookupCacheStrategy.LFU}) {
+            LookupCache cache = createCache(strategy, Duration.ofSeconds(10), true, false);
+            put(cache, 1, "a");
+            clock.advanceTime(Duration.ofSeconds(5));
+            put(cache, 2, "b");
+            assertNotNull(get(cache, 1));
+
+            clock.advanceTime(Duration.ofSeconds(5));
+            assertNull(get(cache, 1));
+            assertNotNull(get(cache, 2));
+            assertEquals(1, cache.size());
+
+            // expired keys do not break the eviction order
+            put(cache, 3, "c");
+            put(cache, 4, "d");
+            put(cache, 5, "e");
+            assertEquals(3, cache.size());
+        }
+    }
+
+    @Test
+    public void testMissingKey() {
+        LookupCache cache = createCache(LookupCacheStrategy.LRU, Duration.ZERO, true, false);
+        cache.put(key(cache, 1), Collections.emptyList());
+        List<RowData> rows = get(cache, 1);
+        assertNotNull(rows);
+        assertTrue(rows.isEmpty());
+        assertEquals(1, cache.getHitCount());
+
+        cache = createCache(LookupCacheStrategy.LRU, Duration.ZERO, false, false);
+        cache.put(key(cache, 1), Collections.emptyList());
+        assertNull(get(cache, 1));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testOffHeap() {
+        LookupCache cache = createCache(LookupCacheStrategy.LRU, Duration.ZERO, true, true);
+        List<BinaryRowData> rows = new ArrayList<>();
+        rows.add(cache.copyRow(GenericRowData.of(1, fromString("Jark"))));
+        rows.add(cache.copyRow(GenericRowData.of(1, fromString("Jackson"))));
+        cache.put(key(cache, 1), rows);
+
+        List<RowData> cachedRows = get(cache, 1);
+        assertEquals(2, cachedRows.size());
+        assertEquals("Jark", cachedRows.get(0).getString(1).toString());
+        assertEquals("Jackson", cachedRows.get(1).getString(1).toString());
+        assertEquals(1, cachedRows.get(1).getInt(0));
+    }
+
+    private LookupCache createCache(
+            LookupCacheStrategy strategy, Duration ttl, boolean cacheMissingKey, boolean offHeap) {
+        LookupCacheConfig config =
+                new LookupCacheConfig(
+                        strategy,
+                        3,
+                        ttl,
+                        cacheMissingKey,
+                        offHeap,
+                        new int[] {0},
+                        new LogicalType[] {new IntType()},
+                        RowType.of(new IntType(), new VarCharType(VarCharType.MAX_LENGTH)));
+        return LookupCache.create(config, clock);
+    }
+
+    private static BinaryRowData key(LookupCache cache, int id) {
+        return cache.extractKey(GenericRowData.of(id)).copy();
+    }
+
+    private static void put(LookupCache cache, int id, String name) {
+        cache.put(
+                key(cache, id),
+                Collections.singletonList(cache.copyRow(GenericRowData.of(id, fromString(name)))));
+    }
+
+    private static List<RowData> get(LookupCache cache, int id) {
+        return cache.getIfPresent(key(cache, id));
+    }
+}
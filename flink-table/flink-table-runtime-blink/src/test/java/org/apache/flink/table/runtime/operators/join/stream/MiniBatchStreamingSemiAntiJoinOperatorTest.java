@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.stream;
+
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.util.KeyedTwoInputStreamOperatorTestHarness;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.operators.bundle.trigger.CountCoBundleTrigger;
+import org.apache.flink.table.runtime.operators.join.stream.state.JoinInputSideSpec;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.util.BinaryRowDataKeySelector;
+import org.apache.flink.table.runtime.util.RowDataHarnessAssertor;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.deleteRecord;
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link MiniBatchStreamingSemiAntiJoinOperator}. */
+public class MiniBatchStreamingSemiAntiJoinOperatorTest {
+
+    private static final InternalTypeInfo<RowData> INPUT_ROW_TYPE =
+            InternalTypeInfo.ofFields(new BigIntType(), new VarCharType(VarCharType.MAX_LENGTH));
+
+    private static final BinaryRowDataKeySelector KEY_SELECTOR =
+            new BinaryRowDataKeySelector(new int[] {0}, INPUT_ROW_TYPE.toRowFieldTypes());
+
+    private static final String FUNC_CODE =
+            "public class TestJoinCondition extends org.apache.flink.api.common.functions.AbstractRichFunction "
+                    + "implements org.apache.flink.table.runtime.generated.JoinCondition {\n"
+                    + "\n"
+                    + "    public TestJoinCondition(Object[] reference) {\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    @Override\n"
+                    + "    public boolean apply(org.apache.flink.table.data.RowData in1, org.apache.flink.table.data.RowData in2) {\n"
+                    + "        return true;\n"
+                    + "    }\n"
+                    + "}\n";
+
+    private final RowDataHarnessAssertor assertor =
+            new RowDataHarnessAssertor(INPUT_ROW_TYPE.toRowFieldTypes());
+
+    @Test
+    public void testSemiJoin() throws Exception {
+        KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData> testHarness =
+                createTestHarness(false, 100);
+        testHarness.open();
+
+        testHarness.processElement1(insertRecord(1L, "a"));
+        testHarness.processElement1(insertRecord(1L, "b"));
+        testHarness.processElement2(insertRecord(1L, "x"));
+        testHarness.processElement2(insertRecord(2L, "y"));
+        testHarness.processElement1(insertRecord(2L, "c"));
+        testHarness.processElement2(insertRecord(3L, "z"));
+        testHarness.processElement2(deleteRecord(3L, "z"));
+        assertTrue(testHarness.getOutput().isEmpty());
+
+        testHarness.processWatermark1(new Watermark(1));
+        testHarness.processWatermark2(new Watermark(1));
+
+        List<Object> expectedOutput = new ArrayList<>();
+        expectedOutput.add(insertRecord(1L, "a"));
+        expectedOutput.add(insertRecord(1L, "b"));
+        expectedOutput.add(insertRecord(2L, "c"));
+        expectedOutput.add(new Watermark(1));
+        assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+
+        testHarness.getOutput().clear();
+        testHarness.processElement2(deleteRecord(1L, "x"));
+        testHarness.processWatermark1(new Watermark(2));
+        testHarness.processWatermark2(new Watermark(2));
+
+        expectedOutput.clear();
+        expectedOutput.add(deleteRecord(1L, "a"));
+        expectedOutput.add(deleteRecord(1L, "b"));
+        expectedOutput.add(new Watermark(2));
+        assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+        testHarness.close();
+    }
+
+    @Test
+    public void testAntiJoin() throws Exception {
+        KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData> testHarness =
+                createTestHarness(true, 100);
+        testHarness.open();
+
+        testHarness.processElement1(insertRecord(1L, "a"));
+        testHarness.processElement2(insertRecord(1L, "x"));
+        testHarness.processElement2(insertRecord(1L, "y"));
+        testHarness.processWatermark1(new Watermark(1));
+        testHarness.processWatermark2(new Watermark(1));
+
+        List<Object> expectedOutput = new ArrayList<>();
+        expectedOutput.add(insertRecord(1L, "a"));
+        expectedOutput.add(deleteRecord(1L, "a"));
+        expectedOutput.add(new Watermark(1));
+        assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+
+        testHarness.getOutput().clear();
+        testHarness.processElement2(deleteRecord(1L, "x"));
+        testHarness.processElement2(deleteRecord(1L, "y"));
+        testHarness.processWatermark1(new Watermark(2));
+        testHarness.processWatermark2(new Watermark(2));
+
+        expectedOutput.clear();
+        // the associations of the probed left record have been updated by x
+        expectedOutput.add(insertRecord(1L, "a"));
+        expectedOutput.add(new Watermark(2));
+        assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+        testHarness.close();
+    }
+
+    private static KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData>
+            createTestHarness(boolean isAntiJoin, long bundleSize) throws Exception {
+        MiniBatchStreamingSemiAntiJoinOperator operator =
+                new MiniBatchStreamingSemiAntiJoinOperator(
+                        isAntiJoin,
+                        INPUT_ROW_TYPE,
+                        INPUT_ROW_TYPE,
+                        new GeneratedJoinCondition("TestJoinCondition", FUNC_CODE, new Object[0]),
+                        JoinInputSideSpec.withoutUniqueKey(),
+                        JoinInputSideSpec.withoutUniqueKey(),
+                        new boolean[] {true},
+                        0,
+                        new CountCoBundleTrigger<>(bundleSize));
+        return new KeyedTwoInputStreamOperatorTestHarness<>(
+                operator, KEY_SELECTOR, KEY_SELECTOR, KEY_SELECTOR.getProducedType());
+    }
+}
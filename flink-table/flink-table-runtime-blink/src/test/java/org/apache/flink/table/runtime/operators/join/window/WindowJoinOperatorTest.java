@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.join.window;
+
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.util.KeyedTwoInputStreamOperatorTestHarness;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.generated.GeneratedJoinCondition;
+import org.apache.flink.table.runtime.operators.join.FlinkJoinType;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.util.BinaryRowDataKeySelector;
+import org.apache.flink.table.runtime.util.RowDataHarnessAssertor;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.TimestampType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
+import static org.junit.Assert.assertEquals;
+
+/** Tests for {@link WindowJoinOperator}. */
+public class WindowJoinOperatorTest {
+
+    private static final InternalTypeInfo<RowData> INPUT_ROW_TYPE =
+            InternalTypeInfo.ofFields(
+                    new VarCharType(VarCharType.MAX_LENGTH),
+                    new BigIntType(),
+                    new TimestampType(3));
+
+    private static final InternalTypeInfo<RowData> OUTPUT_ROW_TYPE =
+            InternalTypeInfo.ofFields(
+                    new VarCharType(VarCharType.MAX_LENGTH),
+                    new BigIntType(),
+                    new TimestampType(3),
+                    new VarCharType(VarCharType.MAX_LENGTH),
+                    new BigIntType(),
+                    new TimestampType(3));
+
+    private static final BinaryRowDataKeySelector KEY_SELECTOR =
+            new BinaryRowDataKeySelector(new int[] {0}, INPUT_ROW_TYPE.toRowFieldTypes());
+
+    private static final String FUNC_CODE =
+            "public class TestWindowJoinCondition extends org.apache.flink.api.common.functions.AbstractRichFunction "
+                    + "implements org.apache.flink.table.runtime.generated.JoinCondition {\n"
+                    + "\n"
+                    + "    public TestWindowJoinCondition(Object[] reference) {\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    @Override\n"
+                    + "    public boolean apply(org.apache.flink.table.data.RowData in1, org.apache.flink.table.data.RowData in2) {\n"
+                    + "        return true;\n"
+                    + "    }\n"
+                    + "}\n";
+
+    private final RowDataHarnessAssertor assertor =
+            new RowDataHarnessAssertor(OUTPUT_ROW_TYPE.toRowFieldTypes());
+
+    @Test
+    public void testInnerJoin() throws Exception {
+        WindowJoinOperator operator = createOperator(FlinkJoinType.INNER);
+        KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData> testHarness =
+                createTestHarness(operator);
+        testHarness.open();
+
+        testHarness.processElement1(insertRecord("k1", 1L, ts(10L)));
+        testHarness.processElement1(insertRecord("k1", 2L, ts(10L)));
+        testHarness.processElement1(insertRecord("k2", 3L, ts(10L)));
+        testHarness.processElement2(insertRecord("k1", 11L, ts(10L)));
+        testHarness.processElement2(insertRecord("k1", 12L, ts(20L)));
+        // one timer per key and window
+        assertEquals(3, testHarness.numEventTimeTimers());
+
+        testHarness.processWatermark1(new Watermark(9));
+        testHarness.processWatermark2(new Watermark(9));
+        assertEquals(1, testHarness.numEventTimeTimers());
+
+        // the window [0, 10) has been fired, records of it are late
+        testHarness.processElement1(insertRecord("k1", 4L, ts(10L)));
+        assertEquals(1, operator.getLeftNumLateRecordsDropped().getCount());
+        assertEquals(0, operator.getRightNumLateRecordsDropped().getCount());
+
+        // the window [10, 20) only has records of the right side
+        testHarness.processWatermark1(new Watermark(19));
+        testHarness.processWatermark2(new Watermark(19));
+        assertEquals(0, testHarness.numEventTimeTimers());
+        assertEquals(0, testHarness.numKeyedStateEntries());
+
+        List<Object> expectedOutput = new ArrayList<>();
+        expectedOutput.add(insertRecord("k1", 1L, ts(10L), "k1", 11L, ts(10L)));
+        expectedOutput.add(insertRecord("k1", 2L, ts(10L), "k1", 11L, ts(10L)));
+        expectedOutput.add(new Watermark(9));
+        expectedOutput.add(new Watermark(19));
+        assertor.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+        testHarness.close();
+    }
+
+    @Test
+    public void testSemiAndAntiJoin() throws Exception {
+        for (FlinkJoinType joinType :
+                new FlinkJoinType[] {FlinkJoinType.SEMI, FlinkJoinType.ANTI}) {
+            KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData> testHarness =
+                    createTestHarness(createOperator(joinType));
+            testHarness.open();
+
+            testHarness.processElement1(insertRecord("k1", 1L, ts(10L)));
+            testHarness.processElement1(insertRecord("k2", 2L, ts(10L)));
+            testHarness.processElement2(insertRecord("k1", 11L, ts(10L)));
+            testHarness.processElement2(insertRecord("k1", 12L, ts(10L)));
+            testHarness.processElement2(insertRecord("k3", 13L, ts(10L)));
+
+            testHarness.processWatermark1(new Watermark(9));
+            testHarness.processWatermark2(new Watermark(9));
+
+            List<Object> expectedOutput = new ArrayList<>();
+            if (joinType == FlinkJoinType.SEMI) {
+                expectedOutput.add(insertRecord("k1", 1L, ts(10L)));
+            } else {
+                expectedOutput.add(insertRecord("k2", 2L, ts(10L)));
+            }
+            expectedOutput.add(new Watermark(9));
+            new RowDataHarnessAssertor(INPUT_ROW_TYPE.toRowFieldTypes())
+                    .assertOutputEqualsSorted(
+                            "output wrong.", expectedOutput, testHarness.getOutput());
+            testHarness.close();
+        }
+    }
+
+    @Test
+    public void testOuterJoin() throws Exception {
+        for (FlinkJoinType joinType :
+                new FlinkJoinType[] {FlinkJoinType.LEFT, FlinkJoinType.RIGHT, FlinkJoinType.FULL}) {
+            KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData> testHarness =
+                    createTestHarness(createOperator(joinType));
+            testHarness.open();
+
+            testHarness.processElement1(insertRecord("k1", 1L, ts(10L)));
+            testHarness.processElement1(insertRecord("k2", 2L, ts(10L)));
+            testHarness.processElement2(insertRecord("k1", 11L, ts(10L)));
+            testHarness.processElement2(insertRecord("k3", 13L, ts(10L)));
+
+            testHarness.processWatermark1(new Watermark(9));
+            testHarness.processWatermark2(new Watermark(9));
+            assertEquals(0, testHarness.numKeyedStateEntries());
+
+            List<Object> expectedOutput = new ArrayList<>();
+            expectedOutput.add(insertRecord("k1", 1L, ts(10L), "k1", 11L, ts(10L)));
+            if (joinType != FlinkJoinType.RIGHT) {
+                expectedOutput.add(insertRecord("k2", 2L, ts(10L), null, null, null));
+            }
+            if (joinType != FlinkJoinType.LEFT) {
+                expectedOutput.add(insertRecord(null, null, null, "k3", 13L, ts(10L)));
+            }
+            expectedOutput.add(new Watermark(9));
+            assertor.assertOutputEqualsSorted(
+                    "output wrong.", expectedOutput, testHarness.getOutput());
+            testHarness.close();
+        }
+    }
+
+    private static WindowJoinOperator createOperator(FlinkJoinType joinType) {
+        return WindowJoinOperatorBuilder.builder()
+                .leftSerializer(INPUT_ROW_TYPE.toRowSerializer())
+                .rightSerializer(INPUT_ROW_TYPE.toRowSerializer())
+                .generatedJoinCondition(
+                        new GeneratedJoinCondition(
+                                "TestWindowJoinCondition", FUNC_CODE, new Object[0]))
+                .leftWindowEndIndex(2)
+                .rightWindowEndIndex(2)
+                .filterNullKeys(new boolean[] {true})
+                .joinType(joinType)
+                .build();
+    }
+
+    private static KeyedTwoInputStreamOperatorTestHarness<RowData, RowData, RowData, RowData>
+            createTestHarness(WindowJoinOperator operator) throws Exception {
+        return new KeyedTwoInputStreamOperatorTestHarness<>(
+                operator, KEY_SELECTOR, KEY_SELECTOR, KEY_SELECTOR.getProducedType());
+    }
+
+    private static TimestampData ts(long millis) {
+        return TimestampData.fromEpochMillis(millis);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.rank;
+
+import org.apache.flink.streaming.api.operators.ProcessOperator;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.util.BinaryRowDataKeySelector;
+import org.apache.flink.table.runtime.util.GenericRowRecordSortComparator;
+import org.apache.flink.table.runtime.util.RowDataHarnessAssertor;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
+
+/** Tests for {@link LocalAppendOnlyTopNFunction}. */
+public class LocalAppendOnlyTopNFunctionTest {
+
+    private final InternalTypeInfo<RowData> inputRowType =
+            InternalTypeInfo.ofFields(
+                    new VarCharType(VarCharType.MAX_LENGTH), new BigIntType(), new IntType());
+
+    private final BinaryRowDataKeySelector partitionKeySelector =
+            new BinaryRowDataKeySelector(new int[] {0}, inputRowType.toRowFieldTypes());
+
+    private final BinaryRowDataKeySelector sortKeySelector =
+            new BinaryRowDataKeySelector(new int[] {2}, inputRowType.toRowFieldTypes());
+
+    private final RowDataHarnessAssertor assertor =
+            new RowDataHarnessAssertor(
+                    inputRowType.toRowFieldTypes(),
+                    new GenericRowRecordSortComparator(2, new IntType()));
+
+    @Test
+    public void testForwardLocalTopN() throws Exception {
+        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness =
+                createTestHarness(new ConstantRankRange(1, 2), 10000L);
+        testHarness.open();
+        testHarness.processElement(insertRecord("book", 1L, 12));
+        testHarness.processElement(insertRecord("book", 2L, 19));
+        testHarness.processElement(insertRecord("book", 4L, 11));
+        testHarness.processElement(insertRecord("book", 5L, 11));
+        // worse than the local top 2
+        testHarness.processElement(insertRecord("book", 3L, 16));
+        // equal to the worst of the local top 2, which arrived earlier
+        testHarness.processElement(insertRecord("book", 6L, 11));
+        testHarness.processElement(insertRecord("fruit", 4L, 33));
+        testHarness.processElement(insertRecord("fruit", 3L, 44));
+        testHarness.processElement(insertRecord("fruit", 5L, 22));
+        testHarness.processElement(insertRecord("fruit", 6L, 44));
+        testHarness.close();
+
+        List<Object> expectedOutput = new ArrayList<>();
+        expectedOutput.add(insertRecord("book", 1L, 12));
+        expectedOutput.add(insertRecord("book", 2L, 19));
+        expectedOutput.add(insertRecord("book", 4L, 11));
+        expectedOutput.add(insertRecord("book", 5L, 11));
+        expectedOutput.add(insertRecord("fruit", 4L, 33));
+        expectedOutput.add(insertRecord("fruit", 3L, 44));
+        expectedOutput.add(insertRecord("fruit", 5L, 22));
+        assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+    }
+
+    @Test
+    public void testForwardAfterCacheEviction() throws Exception {
+        // the cache only holds the buffer of one partition key
+        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness =
+                createTestHarness(new ConstantRankRange(1, 1), 1L);
+        testHarness.open();
+        testHarness.processElement(insertRecord("book", 1L, 12));
+        testHarness.processElement(insertRecord("book", 2L, 19));
+        testHarness.processElement(insertRecord("fruit", 3L, 33));
+        // the buffer of "book" has been evicted, the record can't be filtered anymore
+        testHarness.processElement(insertRecord("book", 4L, 19));
+        testHarness.processElement(insertRecord("book", 5L, 20));
+        testHarness.close();
+
+        List<Object> expectedOutput = new ArrayList<>();
+        expectedOutput.add(insertRecord("book", 1L, 12));
+        expectedOutput.add(insertRecord("fruit", 3L, 33));
+        expectedOutput.add(insertRecord("book", 4L, 19));
+        assertor.assertOutputEquals("output wrong.", expectedOutput, testHarness.getOutput());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotSupportVariableRankRange() throws Exception {
+        createTestHarness(new VariableRankRange(1), 10000L);
+    }
+
+    private OneInputStreamOperatorTestHarness<RowData, RowData> createTestHarness(
+            RankRange rankRange, long cacheSize) throws Exception {
+        LocalAppendOnlyTopNFunction function =
+                new LocalAppendOnlyTopNFunction(
+                        TopNFunctionTestBase.generatedSortKeyComparator,
+                        partitionKeySelector,
+                        sortKeySelector,
+                        rankRange,
+                        cacheSize);
+        return new OneInputStreamOperatorTestHarness<>(new ProcessOperator<>(function));
+    }
+}
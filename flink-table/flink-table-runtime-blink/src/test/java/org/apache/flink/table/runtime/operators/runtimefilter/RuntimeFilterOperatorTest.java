@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.runtimefilter;
+
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.TwoInputStreamOperatorTestHarness;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.data.writer.BinaryRowWriter;
+import org.apache.flink.table.runtime.generated.GeneratedProjection;
+import org.apache.flink.table.runtime.generated.Projection;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link RuntimeFilterOperator}. */
+public class RuntimeFilterOperatorTest {
+
+    private static final int EXPECTED_ENTRIES = 1000;
+
+    @Test
+    public void testFilterProbeRecords() throws Exception {
+        RowData localFilter1 = buildLocalFilter(100L, 1, 2);
+        RowData localFilter2 = buildLocalFilter(100L, 3);
+        RowData globalFilter = buildGlobalFilter(100L, localFilter1, localFilter2);
+        assertEquals(3L, globalFilter.getLong(0));
+
+        List<Integer> output = filterProbeRecords(globalFilter, 1000);
+        // the bloom filter has no false negatives
+        assertTrue(output.containsAll(Arrays.asList(1, 2, 3)));
+        assertTrue("Too many false positives: " + output, output.size() < 50);
+    }
+
+    @Test
+    public void testForwardAllIfLocalBuildSideTooLarge() throws Exception {
+        RowData localFilter1 = buildLocalFilter(2L, 1, 2, 3);
+        RowData localFilter2 = buildLocalFilter(2L, 4);
+        assertTrue(localFilter1.isNullAt(1));
+
+        RowData globalFilter = buildGlobalFilter(2L, localFilter1, localFilter2);
+        assertEquals(4L, globalFilter.getLong(0));
+        assertTrue(globalFilter.isNullAt(1));
+        assertEquals(100, filterProbeRecords(globalFilter, 100).size());
+    }
+
+    @Test
+    public void testForwardAllIfGlobalBuildSideTooLarge() throws Exception {
+        RowData localFilter1 = buildLocalFilter(2L, 1, 2);
+        RowData localFilter2 = buildLocalFilter(2L, 3);
+        assertTrue(!localFilter1.isNullAt(1) && !localFilter2.isNullAt(1));
+
+        RowData globalFilter = buildGlobalFilter(2L, localFilter1, localFilter2);
+        assertTrue(globalFilter.isNullAt(1));
+        assertEquals(100, filterProbeRecords(globalFilter, 100).size());
+    }
+
+    private RowData buildLocalFilter(long maxRowCount, int... keys) throws Exception {
+        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness =
+                new OneInputStreamOperatorTestHarness<>(
+                        new LocalRuntimeFilterBuilderOperator(
+                                createKeyProjection(), EXPECTED_ENTRIES, maxRowCount));
+        testHarness.open();
+        for (int key : keys) {
+            testHarness.processElement(new StreamRecord<>(GenericRowData.of(key)));
+        }
+        testHarness.endInput();
+        List<RowData> output = testHarness.extractOutputValues();
+        testHarness.close();
+        assertEquals(1, output.size());
+        return output.get(0);
+    }
+
+    private RowData buildGlobalFilter(long maxRowCount, RowData... localFilters) throws Exception {
+        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness =
+                new OneInputStreamOperatorTestHarness<>(
+                        new GlobalRuntimeFilterBuilderOperator(EXPECTED_ENTRIES, maxRowCount));
+        testHarness.open();
+        for (RowData localFilter : localFilters) {
+            testHarness.processElement(new StreamRecord<>(localFilter));
+        }
+        testHarness.endInput();
+        List<RowData> output = testHarness.extractOutputValues();
+        testHarness.close();
+        assertEquals(1, output.size());
+        return output.get(0);
+    }
+
+    private List<Integer> filterProbeRecords(RowData filter, int numProbeRecords) throws Exception {
+        RuntimeFilterOperator operator =
+                new RuntimeFilterOperator(createKeyProjection(), EXPECTED_ENTRIES);
+        TwoInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                new TwoInputStreamOperatorTestHarness<>(operator);
+        testHarness.open();
+        testHarness.processElement1(new StreamRecord<>(filter));
+        operator.endInput(1);
+        for (int key = 1; key <= numProbeRecords; key++) {
+            testHarness.processElement2(new StreamRecord<>(GenericRowData.of(key)));
+        }
+        operator.endInput(2);
+        List<Integer> output =
+                testHarness.extractOutputValues().stream()
+                        .map(row -> row.getInt(0))
+                        .collect(Collectors.toList());
+        testHarness.close();
+        return output;
+    }
+
+    private static GeneratedProjection createKeyProjection() {
+        return new GeneratedProjection("", "", new Object[0]) {
+            @Override
+            public Projection newInstance(ClassLoader classLoader) {
+                return new KeyProjection();
+            }
+        };
+    }
+
+    /** Projects the int key in the first field of a row. */
+    private static final class KeyProjection implements Projection<RowData, BinaryRowData> {
+
+        private final BinaryRowData keyRow = new BinaryRowData(1);
+        private final BinaryRowWriter writer = new BinaryRowWriter(keyRow);
+
+        @Override
+        public BinaryRowData apply(RowData row) {
+            writer.reset();
+            writer.writeInt(0, row.getInt(0));
+            writer.complete();
+            return keyRow;
+        }
+    }
+}
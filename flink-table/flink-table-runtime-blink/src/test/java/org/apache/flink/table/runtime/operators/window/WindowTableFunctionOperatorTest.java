@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.operators.window;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.operators.window.assigners.SlidingWindowAssigner;
+import org.apache.flink.table.runtime.operators.window.assigners.TumblingWindowAssigner;
+import org.apache.flink.table.runtime.operators.window.assigners.WindowAssigner;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.table.runtime.util.RowDataHarnessAssertor;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.TimestampType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
+
+/** Tests for {@link WindowTableFunctionOperator}. */
+public class WindowTableFunctionOperatorTest {
+
+    private static final LogicalType[] OUTPUT_TYPES =
+            new LogicalType[] {
+                new VarCharType(VarCharType.MAX_LENGTH),
+                new BigIntType(),
+                new TimestampType(3),
+                new TimestampType(3),
+                new TimestampType(3),
+                new TimestampType(3)
+            };
+
+    private static final TypeSerializer<RowData> OUT_SERIALIZER =
+            new RowDataSerializer(OUTPUT_TYPES);
+
+    private static final RowDataHarnessAssertor ASSERTER = new RowDataHarnessAssertor(OUTPUT_TYPES);
+
+    private static final int ROWTIME_INDEX = 2;
+
+    @Test
+    public void testTumblingWindows() throws Exception {
+        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness =
+                createTestHarness(TumblingWindowAssigner.of(Duration.ofSeconds(3)).withEventTime());
+        testHarness.open();
+
+        testHarness.processElement(insertRecord("key1", 1L, ts(20L)));
+        testHarness.processElement(insertRecord("key2", 1L, ts(3999L)));
+        // a row without event time can't be assigned to any window
+        testHarness.processElement(insertRecord("key1", 1L, null));
+
+        List<Object> expected = new ArrayList<>();
+        expected.add(insertRecord("key1", 1L, ts(20L), ts(0L), ts(3000L), ts(2999L)));
+        expected.add(insertRecord("key2", 1L, ts(3999L), ts(3000L), ts(6000L), ts(5999L)));
+        ASSERTER.assertOutputEquals("Output was not correct.", expected, testHarness.getOutput());
+        testHarness.close();
+    }
+
+    @Test
+    public void testSlidingWindows() throws Exception {
+        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness =
+                createTestHarness(
+                        SlidingWindowAssigner.of(Duration.ofSeconds(3), Duration.ofSeconds(1))
+                                .withEventTime());
+        testHarness.open();
+
+        testHarness.processElement(insertRecord("key1", 1L, ts(3500L)));
+
+        // the row is emitted once for every window it belongs to
+        List<Object> expected = new ArrayList<>();
+        expected.add(insertRecord("key1", 1L, ts(3500L), ts(3000L), ts(6000L), ts(5999L)));
+        expected.add(insertRecord("key1", 1L, ts(3500L), ts(2000L), ts(5000L), ts(4999L)));
+        expected.add(insertRecord("key1", 1L, ts(3500L), ts(1000L), ts(4000L), ts(3999L)));
+        ASSERTER.assertOutputEquals("Output was not correct.", expected, testHarness.getOutput());
+        testHarness.close();
+    }
+
+    private static OneInputStreamOperatorTestHarness<RowData, RowData> createTestHarness(
+            WindowAssigner<TimeWindow> windowAssigner) throws Exception {
+        WindowTableFunctionOperator operator =
+                new WindowTableFunctionOperator(windowAssigner, ROWTIME_INDEX);
+        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness =
+                new OneInputStreamOperatorTestHarness<>(operator);
+        testHarness.setup(OUT_SERIALIZER);
+        return testHarness;
+    }
+
+    private static TimestampData ts(long epochMillis) {
+        return TimestampData.fromEpochMillis(epochMillis);
+    }
+}
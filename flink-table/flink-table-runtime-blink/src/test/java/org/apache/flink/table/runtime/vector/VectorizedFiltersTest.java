@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.vector;
+
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.vector.ColumnVector;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.data.vector.heap.HeapBytesVector;
+import org.apache.flink.table.data.vector.heap.HeapIntVector;
+import org.apache.flink.table.expressions.CallExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.expressions.ResolvedExpression;
+import org.apache.flink.table.expressions.ValueLiteralExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+/** Tests for {@link VectorizedFilters}. */
+public class VectorizedFiltersTest {
+
+    private static final RowType ROW_TYPE =
+            RowType.of(new IntType(), new VarCharType(VarCharType.MAX_LENGTH), new IntType());
+
+    private static final FieldReferenceExpression ID =
+            new FieldReferenceExpression("f0", DataTypes.INT(), 0, 0);
+
+    private static final FieldReferenceExpression NAME =
+            new FieldReferenceExpression("f1", DataTypes.STRING(), 0, 1);
+
+    private static final FieldReferenceExpression UNKNOWN =
+            new FieldReferenceExpression("unknown", DataTypes.INT(), 0, 3);
+
+    @Test
+    public void testComparison() {
+        VectorizedColumnBatch batch = createBatch();
+
+        assertArrayEquals(
+                new int[] {3, 4},
+                filter(batch, call(BuiltInFunctionDefinitions.GREATER_THAN, ID, literal(2))));
+        assertArrayEquals(
+                new int[] {0, 1},
+                filter(batch, call(BuiltInFunctionDefinitions.GREATER_THAN, literal(2), ID)));
+        assertArrayEquals(
+                new int[] {0, 3, 4},
+                filter(batch, call(BuiltInFunctionDefinitions.NOT_EQUALS, ID, literal(1))));
+        assertArrayEquals(
+                new int[] {1, 3},
+                filter(batch, call(BuiltInFunctionDefinitions.LESS_THAN, NAME, literal("b"))));
+        assertArrayEquals(
+                new int[] {4},
+                filter(batch, call(BuiltInFunctionDefinitions.EQUALS, NAME, literal("bb"))));
+    }
+
+    @Test
+    public void testNulls() {
+        VectorizedColumnBatch batch = createBatch();
+
+        assertArrayEquals(
+                new int[] {2}, filter(batch, call(BuiltInFunctionDefinitions.IS_NULL, ID)));
+        assertArrayEquals(
+                new int[] {0, 1, 3, 4},
+                filter(batch, call(BuiltInFunctionDefinitions.IS_NOT_NULL, ID)));
+    }
+
+    @Test
+    public void testAndOr() {
+        VectorizedColumnBatch batch = createBatch();
+
+        assertArrayEquals(
+                new int[] {0, 4},
+                filter(
+                        batch,
+                        call(
+                                BuiltInFunctionDefinitions.OR,
+                                call(BuiltInFunctionDefinitions.EQUALS, ID, literal(0)),
+                                call(BuiltInFunctionDefinitions.EQUALS, NAME, literal("bb")))));
+
+        // the unsupported conjunct is dropped, which keeps more rows than necessary
+        assertArrayEquals(
+                new int[] {3, 4},
+                filter(
+                        batch,
+                        call(
+                                BuiltInFunctionDefinitions.AND,
+                                call(BuiltInFunctionDefinitions.GREATER_THAN, ID, literal(2)),
+                                call(BuiltInFunctionDefinitions.EQUALS, UNKNOWN, literal(1)))));
+    }
+
+    @Test
+    public void testUnsupportedFilters() {
+        assertNull(
+                VectorizedFilters.create(
+                        Collections.singletonList(
+                                call(BuiltInFunctionDefinitions.EQUALS, UNKNOWN, literal(1))),
+                        ROW_TYPE));
+        assertNull(
+                VectorizedFilters.create(
+                        Collections.singletonList(
+                                call(
+                                        BuiltInFunctionDefinitions.OR,
+                                        call(BuiltInFunctionDefinitions.EQUALS, ID, literal(1)),
+                                        call(
+                                                BuiltInFunctionDefinitions.EQUALS,
+                                                UNKNOWN,
+                                                literal(1)))),
+                        ROW_TYPE));
+    }
+
+    /** Rows: (0, "c"), (1, "a"), (null, "b"), (3, "ab"), (4, "bb"). */
+    private static VectorizedColumnBatch createBatch() {
+        HeapIntVector ids = new HeapIntVector(5);
+        HeapBytesVector names = new HeapBytesVector(5);
+        String[] nameValues = {"c", "a", "b", "ab", "bb"};
+        for (int i = 0; i < 5; i++) {
+            ids.setInt(i, i);
+            byte[] bytes = nameValues[i].getBytes(StandardCharsets.UTF_8);
+            names.appendBytes(i, bytes, 0, bytes.length);
+        }
+        ids.setNullAt(2);
+
+        VectorizedColumnBatch batch =
+                new VectorizedColumnBatch(new ColumnVector[] {ids, names, new HeapIntVector(5)});
+        batch.setNumRows(5);
+        return batch;
+    }
+
+    private static int[] filter(VectorizedColumnBatch batch, ResolvedExpression expression) {
+        VectorizedFilter filter =
+                VectorizedFilters.create(Collections.singletonList(expression), ROW_TYPE);
+        int[] selected = {0, 1, 2, 3, 4};
+        int size = filter.filter(batch, selected, selected.length);
+        return Arrays.copyOf(selected, size);
+    }
+
+    private static CallExpression call(
+            FunctionDefinition function, ResolvedExpression... children) {
+        return new CallExpression(function, Arrays.asList(children), DataTypes.BOOLEAN());
+    }
+
+    private static ValueLiteralExpression literal(Object value) {
+        return new ValueLiteralExpression(value);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.vector;
+
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.vector.ColumnVector;
+import org.apache.flink.table.data.vector.VectorizedColumnBatch;
+import org.apache.flink.table.data.vector.heap.HeapBytesVector;
+import org.apache.flink.table.data.vector.heap.HeapDoubleVector;
+import org.apache.flink.table.data.vector.heap.HeapIntVector;
+import org.apache.flink.table.expressions.AggregateExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.DoubleType;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link VectorizedAggregation} and {@link VectorizedHashAggregator}. */
+public class VectorizedHashAggregatorTest {
+
+    private static final RowType INPUT_TYPE =
+            RowType.of(
+                    new LogicalType[] {
+                        new VarCharType(VarCharType.MAX_LENGTH), new IntType(), new DoubleType()
+                    },
+                    new String[] {"name", "amount", "price"});
+
+    private static final FieldReferenceExpression NAME =
+            new FieldReferenceExpression("name", DataTypes.STRING(), 0, 0);
+
+    private static final FieldReferenceExpression AMOUNT =
+            new FieldReferenceExpression("amount", DataTypes.INT(), 0, 1);
+
+    private static final FieldReferenceExpression PRICE =
+            new FieldReferenceExpression("price", DataTypes.DOUBLE(), 0, 2);
+
+    private static final List<AggregateExpression> AGGREGATES =
+            Arrays.asList(
+                    aggregate(BuiltInFunctionDefinitions.SUM, DataTypes.INT(), AMOUNT),
+                    aggregate(BuiltInFunctionDefinitions.SUM0, DataTypes.BIGINT(), AMOUNT),
+                    aggregate(BuiltInFunctionDefinitions.MIN, DataTypes.INT(), AMOUNT),
+                    aggregate(BuiltInFunctionDefinitions.MAX, DataTypes.DOUBLE(), PRICE),
+                    aggregate(BuiltInFunctionDefinitions.COUNT, DataTypes.BIGINT(), PRICE),
+                    aggregate(BuiltInFunctionDefinitions.COUNT, DataTypes.BIGINT()));
+
+    @Test
+    public void testGroupedAggregate() {
+        VectorizedHashAggregator aggregator = createAggregator(new int[] {0}, 100);
+        aggregator.accumulate(createBatch(), null, 5);
+
+        assertEquals(
+                Arrays.asList(
+                        row(StringData.fromString("a"), 1, 1L, 1, 2.5D, 2L, 2L),
+                        row(StringData.fromString("b"), 7, 7L, 2, 0.5D, 1L, 2L),
+                        row(null, 4, 4L, 4, 4.0D, 1L, 1L)),
+                aggregator.emit());
+        assertTrue(aggregator.isEmpty());
+    }
+
+    @Test
+    public void testSelectedRows() {
+        VectorizedHashAggregator aggregator = createAggregator(new int[] {0}, 100);
+        aggregator.accumulate(createBatch(), new int[] {1, 2, 4}, 3);
+
+        // the only amount of group "a" is null
+        assertEquals(
+                Arrays.asList(
+                        row(StringData.fromString("b"), 7, 7L, 2, 0.5D, 1L, 2L),
+                        row(StringData.fromString("a"), null, 0L, null, 2.5D, 1L, 1L)),
+                aggregator.emit());
+    }
+
+    @Test
+    public void testAggregateWithoutGrouping() {
+        VectorizedHashAggregator aggregator = createAggregator(new int[0], 100);
+        assertTrue(aggregator.isEmpty());
+
+        aggregator.accumulate(createBatch(), null, 5);
+        aggregator.accumulate(createBatch(), new int[] {0}, 1);
+
+        assertEquals(Collections.singletonList(row(13, 13L, 1, 4.0D, 5L, 6L)), aggregator.emit());
+    }
+
+    @Test
+    public void testMaxNumGroups() {
+        VectorizedHashAggregator aggregator = createAggregator(new int[] {0}, 2);
+        aggregator.accumulate(createBatch(), new int[] {0, 2}, 2);
+        assertFalse(aggregator.isFull());
+
+        aggregator.accumulate(createBatch(), new int[] {1}, 1);
+        assertTrue(aggregator.isFull());
+        assertEquals(2, aggregator.emit().size());
+
+        // the groups start over after they have been emitted
+        aggregator.accumulate(createBatch(), new int[] {0}, 1);
+        assertEquals(
+                Collections.singletonList(row(StringData.fromString("a"), 1, 1L, 1, 1.5D, 1L, 1L)),
+                aggregator.emit());
+    }
+
+    @Test
+    public void testUnsupportedAggregates() {
+        RowType producedType = RowType.of(new VarCharType(VarCharType.MAX_LENGTH));
+
+        // string arguments
+        assertNull(
+                VectorizedAggregation.create(
+                        Collections.singletonList(new int[0]),
+                        Collections.singletonList(
+                                aggregate(
+                                        BuiltInFunctionDefinitions.MAX, DataTypes.STRING(), NAME)),
+                        INPUT_TYPE,
+                        producedType));
+        // functions other than SUM, SUM0, MIN, MAX and COUNT
+        assertNull(
+                VectorizedAggregation.create(
+                        Collections.singletonList(new int[0]),
+                        Collections.singletonList(
+                                aggregate(BuiltInFunctionDefinitions.AVG, DataTypes.INT(), AMOUNT)),
+                        INPUT_TYPE,
+                        RowType.of(new IntType())));
+        // multiple grouping sets
+        assertNull(
+                VectorizedAggregation.create(
+                        Arrays.asList(new int[] {0}, new int[0]),
+                        Collections.singletonList(
+                                aggregate(BuiltInFunctionDefinitions.COUNT, DataTypes.BIGINT())),
+                        INPUT_TYPE,
+                        RowType.of(new VarCharType(VarCharType.MAX_LENGTH), new BigIntType())));
+        // distinct aggregates
+        assertNull(
+                VectorizedAggregation.create(
+                        Collections.singletonList(new int[0]),
+                        Collections.singletonList(
+                                new AggregateExpression(
+                                        BuiltInFunctionDefinitions.COUNT,
+                                        Collections.singletonList(AMOUNT),
+                                        null,
+                                        DataTypes.BIGINT(),
+                                        true,
+                                        false,
+                                        false)),
+                        INPUT_TYPE,
+                        RowType.of(new BigIntType())));
+    }
+
+    private static VectorizedHashAggregator createAggregator(int[] grouping, int maxNumGroups) {
+        RowType producedType =
+                grouping.length == 0
+                        ? RowType.of(
+                                new IntType(),
+                                new BigIntType(),
+                                new IntType(),
+                                new DoubleType(),
+                                new BigIntType(false),
+                                new BigIntType(false))
+                        : RowType.of(
+                                new VarCharType(VarCharType.MAX_LENGTH),
+                                new IntType(),
+                                new BigIntType(),
+                                new IntType(),
+                                new DoubleType(),
+                                new BigIntType(false),
+                                new BigIntType(false));
+        VectorizedAggregation aggregation =
+                VectorizedAggregation.create(
+                        Collections.singletonList(grouping), AGGREGATES, INPUT_TYPE, producedType);
+        assertTrue(aggregation != null);
+        return aggregation.createAggregator(maxNumGroups);
+    }
+
+    /** Rows: ("a", 1, 1.5), ("b", 2, null), ("a", null, 2.5), (null, 4, 4.0), ("b", 5, 0.5). */
+    private static VectorizedColumnBatch createBatch() {
+        HeapBytesVector names = new HeapBytesVector(5);
+        HeapIntVector amounts = new HeapIntVector(5);
+        HeapDoubleVector prices = new HeapDoubleVector(5);
+        String[] nameValues = {"a", "b", "a", null, "b"};
+        Integer[] amountValues = {1, 2, null, 4, 5};
+        Double[] priceValues = {1.5, null, 2.5, 4.0, 0.5};
+        for (int i = 0; i < 5; i++) {
+            if (nameValues[i] == null) {
+                names.setNullAt(i);
+            } else {
+                byte[] bytes = nameValues[i].getBytes(StandardCharsets.UTF_8);
+                names.appendBytes(i, bytes, 0, bytes.length);
+            }
+            if (amountValues[i] == null) {
+                amounts.setNullAt(i);
+            } else {
+                amounts.setInt(i, amountValues[i]);
+            }
+            if (priceValues[i] == null) {
+                prices.setNullAt(i);
+            } else {
+                prices.setDouble(i, priceValues[i]);
+            }
+        }
+
+        VectorizedColumnBatch batch =
+                new VectorizedColumnBatch(new ColumnVector[] {names, amounts, prices});
+        batch.setNumRows(5);
+        return batch;
+    }
+
+    private static AggregateExpression aggregate(
+            FunctionDefinition function, DataType resultType, FieldReferenceExpression... args) {
+        return new AggregateExpression(
+                function, Arrays.asList(args), null, resultType, false, false, false);
+    }
+
+    private static RowData row(Object... fields) {
+        return GenericRowData.of(fields);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.flink.test.scheduling;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.JobManagerOptions;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.RestOptions;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.io.network.api.reader.RecordReader;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriterBuilder;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobGraphTestUtils;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.minicluster.MiniCluster;
+import org.apache.flink.runtime.minicluster.MiniClusterConfiguration;
+import org.apache.flink.types.IntValue;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/** IT case for the {@link JobManagerOptions.SchedulerType#AdaptiveBatch} scheduler. */
+public class AdaptiveBatchSchedulerITCase extends TestLogger {
+
+    private static final int SOURCE_PARALLELISM = 2;
+
+    private static final int MAX_PARALLELISM = 16;
+
+    private static final int NUM_RECORDS_PER_SOURCE = 10_000;
+
+    @Test(timeout = 120000)
+    public void testConsumeSubpartitionRanges() throws Exception {
+        Receiver.reset();
+
+        final Configuration configuration = new Configuration();
+        configuration.setString(RestOptions.BIND_PORT, "0");
+        configuration.set(
+                JobManagerOptions.SCHEDULER, JobManagerOptions.SchedulerType.AdaptiveBatch);
+        configuration.set(
+                JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_MAX_PARALLELISM, MAX_PARALLELISM);
+        configuration.set(
+                JobManagerOptions.ADAPTIVE_BATCH_SCHEDULER_DATA_VOLUME_PER_TASK,
+                MemorySize.parse("16k"));
+
+        final MiniClusterConfiguration miniClusterConfiguration =
+                new MiniClusterConfiguration.Builder()
+                        .setConfiguration(configuration)
+                        .setNumTaskManagers(2)
+                        .setNumSlotsPerTaskManager(MAX_PARALLELISM)
+                        .build();
+
+        try (MiniCluster miniCluster = new MiniCluster(miniClusterConfiguration)) {
+            miniCluster.start();
+            miniCluster.executeJobBlocking(createJobGraph());
+        }
+
+        // the sinks are not deployed at their max parallelism, each deployed sink reads a range of
+        // subpartitions through one channel per source
+        assertThat(Receiver.NUM_RECEIVERS.get(), allOf(greaterThan(1), lessThan(MAX_PARALLELISM)));
+        assertEquals(SOURCE_PARALLELISM * NUM_RECORDS_PER_SOURCE, Receiver.NUM_RECORDS.get());
+        assertEquals(
+                SOURCE_PARALLELISM * sumOfValues(NUM_RECORDS_PER_SOURCE),
+                Receiver.SUM_OF_VALUES.get());
+    }
+
+    private static long sumOfValues(int numRecords) {
+        return (long) numRecords * (numRecords - 1) / 2;
+    }
+
+    private static JobGraph createJobGraph() {
+        final JobVertex source = new JobVertex("source");
+        source.setInvokableClass(Sender.class);
+        source.setParallelism(SOURCE_PARALLELISM);
+
+        // the parallelism of the sink is decided at runtime
+        final JobVertex sink = new JobVertex("sink");
+        sink.setInvokableClass(Receiver.class);
+
+        sink.connectNewDataSetAsInput(
+                source, DistributionPattern.ALL_TO_ALL, ResultPartitionType.BLOCKING);
+
+        return JobGraphTestUtils.batchJobGraph(source, sink);
+    }
+
+    /** Emits the values {@code 0} to {@code NUM_RECORDS_PER_SOURCE - 1} to all subpartitions. */
+    public static class Sender extends AbstractInvokable {
+
+        public Sender(Environment environment) {
+            super(environment);
+        }
+
+        @Override
+        public void invoke() throws Exception {
+            final RecordWriter<IntValue> writer =
+                    new RecordWriterBuilder<IntValue>().build(getEnvironment().getWriter(0));
+
+            try {
+                final IntValue value = new IntValue();
+                for (int i = 0; i < NUM_RECORDS_PER_SOURCE; i++) {
+                    value.setValue(i);
+                    writer.emit(value);
+                }
+                writer.flushAll();
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    /** Reads all records of its single input and records what it has read. */
+    public static class Receiver extends AbstractInvokable {
+
+        private static final AtomicInteger NUM_RECEIVERS = new AtomicInteger();
+
+        private static final AtomicLong NUM_RECORDS = new AtomicLong();
+
+        private static final AtomicLong SUM_OF_VALUES = new AtomicLong();
+
+        public Receiver(Environment environment) {
+            super(environment);
+        }
+
+        static void reset() {
+            NUM_RECEIVERS.set(0);
+            NUM_RECORDS.set(0L);
+            SUM_OF_VALUES.set(0L);
+        }
+
+        @Override
+        public void invoke() throws Exception {
+            NUM_RECEIVERS.incrementAndGet();
+
+            if (getEnvironment().getInputGate(0).getNumberOfInputChannels() != SOURCE_PARALLELISM) {
+                throw new IllegalStateException(
+                        "A subpartition range must be read through one channel per partition.");
+            }
+
+            final RecordReader<IntValue> reader =
+                    new RecordReader<>(
+                            getEnvironment().getInputGate(0),
+                            IntValue.class,
+                            getEnvironment().getTaskManagerInfo().getTmpDirectories());
+            while (reader.hasNext()) {
+                NUM_RECORDS.incrementAndGet();
+                SUM_OF_VALUES.addAndGet(reader.next().getValue());
+            }
+        }
+    }
+}
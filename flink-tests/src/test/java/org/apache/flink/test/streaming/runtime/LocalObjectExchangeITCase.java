@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.test.streaming.runtime;
+
+import org.apache.flink.api.common.functions.MapFunction;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.test.util.AbstractTestBase;
+import org.apache.flink.util.CloseableIterator;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that records are handed over correctly between tasks in the same TaskManager if {@link
+ * org.apache.flink.api.common.ExecutionConfig#enableLocalObjectExchange() local object exchange} is
+ * enabled.
+ */
+public class LocalObjectExchangeITCase extends AbstractTestBase {
+
+    private static final int NUM_RECORDS = 100_000;
+
+    private static final int NUM_KEYS = 10;
+
+    @Test
+    public void testReusedOutputRecords() throws Exception {
+        testReusedOutputRecords(false);
+    }
+
+    @Test
+    public void testReusedOutputRecordsWithUnalignedCheckpoints() throws Exception {
+        testReusedOutputRecords(true);
+    }
+
+    private void testReusedOutputRecords(boolean unalignedCheckpoints) throws Exception {
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        env.setParallelism(4);
+        env.getConfig().enableLocalObjectExchange();
+        if (unalignedCheckpoints) {
+            env.enableCheckpointing(10);
+            env.getCheckpointConfig().enableUnalignedCheckpoints();
+        }
+
+        Map<Integer, Long> sums = new HashMap<>();
+        try (CloseableIterator<Tuple2<Integer, Long>> results =
+                env.fromSequence(0, NUM_RECORDS - 1)
+                        .map(new ReusingMapper())
+                        .rebalance()
+                        .keyBy(value -> value.f0)
+                        .sum(1)
+                        .executeAndCollect()) {
+            while (results.hasNext()) {
+                Tuple2<Integer, Long> result = results.next();
+                sums.put(result.f0, result.f1);
+            }
+        }
+
+        assertEquals(NUM_KEYS, sums.size());
+        long totalSum = sums.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals((long) NUM_RECORDS * (NUM_RECORDS - 1) / 2, totalSum);
+    }
+
+    /** Emits the same tuple instance for every record, which must not be seen downstream. */
+    private static class ReusingMapper implements MapFunction<Long, Tuple2<Integer, Long>> {
+
+        private final Tuple2<Integer, Long> reuse = new Tuple2<>();
+
+        @Override
+        public Tuple2<Integer, Long> map(Long value) {
+            reuse.f0 = (int) (value % NUM_KEYS);
+            reuse.f1 = value;
+            return reuse;
+        }
+    }
+}